@@ -7,6 +7,7 @@ import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Component;
 
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -28,6 +29,9 @@ public class AgentOSMetrics {
     private final Counter workflowsCompleted;
     private final Timer taskExecutionTime;
     private final Timer workflowExecutionTime;
+    private final Counter tasksDispatched;
+    private final Timer taskDispatchLatency;
+    private final Counter assignmentsDeadLettered;
     
     // Performance Metrics - MANDATORY
     private final Timer apiResponseTime;
@@ -37,6 +41,14 @@ public class AgentOSMetrics {
     private final Counter cacheMisses;
     private final AtomicLong virtualThreadsActive;
     private final AtomicLong virtualThreadsCreated;
+    private final AtomicLong structuredSubtasksInFlight;
+    private final Timer structuredQueueWait;
+    private final Counter heartbeatEvents;
+    private final Counter heartbeatWrites;
+    private final Counter outboxEventsPublished;
+    private final Counter outboxBatches;
+    private final Timer outboxLag;
+    private final Counter duplicateEventsSkipped;
     
     // System Health Metrics - MANDATORY
     private final Counter errorsByEndpoint;
@@ -62,6 +74,7 @@ public class AgentOSMetrics {
         this.tasksByPriority = new ConcurrentHashMap<>();
         this.virtualThreadsActive = new AtomicLong(0);
         this.virtualThreadsCreated = new AtomicLong(0);
+        this.structuredSubtasksInFlight = new AtomicLong(0);
         this.databaseConnectionsActive = new AtomicLong(0);
         this.redisConnectionsActive = new AtomicLong(0);
         
@@ -106,6 +119,22 @@ public class AgentOSMetrics {
             .tag("service", "agent-orchestration")
             .register(meterRegistry);
         
+        this.tasksDispatched = Counter.builder("agentos.tasks.dispatched")
+            .description("Total number of tasks matched to an agent by the dispatcher")
+            .tag("service", "agent-orchestration")
+            .register(meterRegistry);
+            
+        this.taskDispatchLatency = Timer.builder("agentos.tasks.dispatch.latency")
+            .description("Time from task submission to agent match")
+            .tag("service", "agent-orchestration")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+            
+        this.assignmentsDeadLettered = Counter.builder("agentos.tasks.dispatch.dead_lettered")
+            .description("Task assignments dropped after repeated failed writes")
+            .tag("service", "agent-orchestration")
+            .register(meterRegistry);
+        
         // Initialize Performance Metrics
         this.apiResponseTime = Timer.builder("agentos.api.response.time")
             .description("API endpoint response time")
@@ -132,6 +161,43 @@ public class AgentOSMetrics {
             .tag("service", "agent-orchestration")
             .register(meterRegistry);
         
+        this.structuredQueueWait = Timer.builder("agentos.structured.queue.wait")
+            .description("Time a batch item waits for a concurrency permit before its subtask is forked")
+            .tag("service", "agent-orchestration")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        
+        this.heartbeatEvents = Counter.builder("agentos.heartbeat.events")
+            .description("Heartbeat, load and metrics events taken in by the heartbeat aggregator")
+            .tag("service", "agent-orchestration")
+            .register(meterRegistry);
+        
+        this.heartbeatWrites = Counter.builder("agentos.heartbeat.writes")
+            .description("Redis commands and database statements issued by heartbeat flushes")
+            .tag("service", "agent-orchestration")
+            .register(meterRegistry);
+        
+        this.outboxEventsPublished = Counter.builder("agentos.outbox.published")
+            .description("Outbox events acknowledged by Kafka and removed from the outbox")
+            .tag("service", "agent-orchestration")
+            .register(meterRegistry);
+        
+        this.outboxBatches = Counter.builder("agentos.outbox.batches")
+            .description("Outbox batches relayed to Kafka")
+            .tag("service", "agent-orchestration")
+            .register(meterRegistry);
+        
+        this.outboxLag = Timer.builder("agentos.outbox.lag")
+            .description("Time from writing an outbox event to its Kafka acknowledgement")
+            .tag("service", "agent-orchestration")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        
+        this.duplicateEventsSkipped = Counter.builder("agentos.events.duplicates_skipped")
+            .description("Redelivered events skipped by consumer deduplication")
+            .tag("service", "agent-orchestration")
+            .register(meterRegistry);
+        
         // Initialize System Health Metrics
         this.errorsByEndpoint = Counter.builder("agentos.errors.by_endpoint")
             .description("Errors by API endpoint")
@@ -186,6 +252,16 @@ public class AgentOSMetrics {
             .tag("service", "agent-orchestration")
             .register(meterRegistry);
         
+        Gauge.builder("agentos.structured.subtasks.in_flight", structuredSubtasksInFlight, AtomicLong::get)
+            .description("Bounded structured-concurrency subtasks currently running")
+            .tag("service", "agent-orchestration")
+            .register(meterRegistry);
+        
+        Gauge.builder("agentos.heartbeat.write_reduction", this, AgentOSMetrics::getHeartbeatWriteReduction)
+            .description("Heartbeat events per write issued; how many per-event writes aggregation saves")
+            .tag("service", "agent-orchestration")
+            .register(meterRegistry);
+        
         // Initialize Connection Pool Gauges
         Gauge.builder("agentos.database.connections.active", databaseConnectionsActive, AtomicLong::get)
             .description("Active database connections")
@@ -245,6 +321,15 @@ public class AgentOSMetrics {
         }
     }
     
+    public void recordTaskDispatched(long latencyNanos) {
+        tasksDispatched.increment();
+        taskDispatchLatency.record(latencyNanos, java.util.concurrent.TimeUnit.NANOSECONDS);
+    }
+    
+    public void recordAssignmentsDeadLettered(int assignments) {
+        assignmentsDeadLettered.increment(assignments);
+    }
+    
     // Performance Metrics Methods
     public Timer.Sample startApiTimer() {
         return Timer.start(meterRegistry);
@@ -305,6 +390,56 @@ public class AgentOSMetrics {
         virtualThreadsCreated.incrementAndGet();
     }
     
+    // Bounded Structured Concurrency Methods
+    public void incrementStructuredInFlight() {
+        structuredSubtasksInFlight.incrementAndGet();
+    }
+    
+    public void decrementStructuredInFlight() {
+        structuredSubtasksInFlight.decrementAndGet();
+    }
+    
+    public void recordStructuredQueueWait(long waitNanos) {
+        structuredQueueWait.record(waitNanos, java.util.concurrent.TimeUnit.NANOSECONDS);
+    }
+    
+    public long getStructuredSubtasksInFlight() {
+        return structuredSubtasksInFlight.get();
+    }
+    
+    // Heartbeat Aggregation Methods
+    public void recordHeartbeatEvent() {
+        heartbeatEvents.increment();
+    }
+    
+    public void recordHeartbeatWrites(int writes) {
+        heartbeatWrites.increment(writes);
+    }
+    
+    public double getHeartbeatWriteReduction() {
+        double writes = heartbeatWrites.count();
+        return writes == 0 ? 0.0 : heartbeatEvents.count() / writes;
+    }
+    
+    // Event Outbox Methods
+    public void recordOutboxBatch(int events, long oldestLagMillis) {
+        outboxBatches.increment();
+        outboxEventsPublished.increment(events);
+        outboxLag.record(oldestLagMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    public void recordDuplicateEventSkipped() {
+        duplicateEventsSkipped.increment();
+    }
+    
+    public double getOutboxEventsPublished() {
+        return outboxEventsPublished.count();
+    }
+    
+    public double getDuplicateEventsSkipped() {
+        return duplicateEventsSkipped.count();
+    }
+    
     // Connection Pool Methods
     public void updateDatabaseConnections(long active) {
         databaseConnectionsActive.set(active);
@@ -334,4 +469,20 @@ public class AgentOSMetrics {
     public Timer getAuthenticationTime() {
         return authenticationTime;
     }
+    
+    public Timer getStructuredQueueWait() {
+        return structuredQueueWait;
+    }
+    
+    public Timer getTaskDispatchLatency() {
+        return taskDispatchLatency;
+    }
+    
+    public Counter getTasksDispatched() {
+        return tasksDispatched;
+    }
+    
+    public Counter getAssignmentsDeadLettered() {
+        return assignmentsDeadLettered;
+    }
 }
\ No newline at end of file
@@ -33,6 +33,9 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id:agent-orchestration-group}")
     private String groupId;
 
+    @Value("${agentos.outbox.compression-type:lz4}")
+    private String outboxCompressionType;
+
     // Topic Names
     public static final String AGENT_EVENTS_TOPIC = "agentos-agent-events";
     public static final String TASK_EVENTS_TOPIC = "agentos-task-events";
@@ -70,6 +73,37 @@ public class KafkaConfig {
         return new KafkaTemplate<>(producerFactory());
     }
 
+    /**
+     * Producer factory for the outbox relay. Payloads are already JSON, so values
+     * are sent as strings; large lingering batches are compressed as a whole.
+     */
+    @Bean
+    public ProducerFactory<String, String> outboxProducerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        
+        // Batching and reliability settings - idempotence keeps per-partition order across retries
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, outboxCompressionType);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 262144);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 67108864);
+        
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+
+    /**
+     * Kafka template used by the outbox relay
+     */
+    @Bean
+    public KafkaTemplate<String, String> outboxKafkaTemplate() {
+        return new KafkaTemplate<>(outboxProducerFactory());
+    }
+
     // Consumer Configuration
 
     /**
@@ -0,0 +1,55 @@
+package com.trademaster.agentos.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Outbox Event Entity
+ *
+ * An event waiting to be published to Kafka. Rows are written in the same
+ * transaction as the state change they describe and deleted by the outbox
+ * relay once Kafka has acknowledged them. The payload is the event already
+ * serialized to JSON; payloadType is the event class the consumer
+ * deserializes into.
+ */
+@Entity
+@Table(name = "event_outbox")
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long outboxId;
+
+    @Column(name = "event_id", nullable = false, unique = true, length = 64)
+    private String eventId;
+
+    @Column(nullable = false, length = 100)
+    private String topic;
+
+    /**
+     * Agent or task id; Kafka keeps events with the same key in order
+     */
+    @Column(name = "message_key", nullable = false, length = 100)
+    private String messageKey;
+
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+
+    @Column(name = "payload_type", nullable = false, length = 200)
+    private String payloadType;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,46 @@
+package com.trademaster.agentos.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Processed Event Entity
+ *
+ * Marker that a consumer group has applied an event. Inserted in the same
+ * transaction as the consumer's own changes, so a redelivered event finds the
+ * marker and is skipped.
+ */
+@Entity
+@Table(name = "processed_events")
+@IdClass(ProcessedEvent.Key.class)
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessedEvent {
+
+    @Id
+    @Column(name = "consumer_group", length = 100)
+    private String consumerGroup;
+
+    @Id
+    @Column(name = "event_id", length = 64)
+    private String eventId;
+
+    @Column(name = "processed_at", nullable = false)
+    private Instant processedAt;
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private String consumerGroup;
+        private String eventId;
+    }
+}
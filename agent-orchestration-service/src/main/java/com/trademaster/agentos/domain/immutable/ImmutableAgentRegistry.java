@@ -5,7 +5,11 @@ import com.trademaster.agentos.domain.entity.AgentStatus;
 import com.trademaster.agentos.domain.entity.AgentType;
 
 import java.time.Instant;
-import java.util.*;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -14,37 +18,35 @@ import java.util.stream.Stream;
  * 
  * Immutable collection for agent registry with persistent data structures.
  * All modifications return new instances, ensuring thread safety and history preservation.
+ *
+ * The id map and the type/status indexes are hash array mapped tries, so a
+ * modification copies only the O(log32 n) trie nodes on the changed paths
+ * and shares everything else with the previous version.
  */
 public final class ImmutableAgentRegistry {
     
-    private final Map<Long, AgentDto> agents;
-    private final Map<AgentType, Set<Long>> agentsByType;
-    private final Map<AgentStatus, Set<Long>> agentsByStatus;
+    private final PersistentHashMap<Long, AgentDto> agents;
+    private final PersistentHashMap<AgentType, PersistentHashSet<Long>> agentsByType;
+    private final PersistentHashMap<AgentStatus, PersistentHashSet<Long>> agentsByStatus;
     private final Instant lastModified;
     private final int version;
     
     /**
      * ✅ PRIVATE CONSTRUCTOR: Enforce immutability
+     *
+     * The persistent structures cannot be mutated, so they are shared as-is
+     * rather than defensively copied.
      */
     private ImmutableAgentRegistry(
-        Map<Long, AgentDto> agents,
-        Map<AgentType, Set<Long>> agentsByType,
-        Map<AgentStatus, Set<Long>> agentsByStatus,
+        PersistentHashMap<Long, AgentDto> agents,
+        PersistentHashMap<AgentType, PersistentHashSet<Long>> agentsByType,
+        PersistentHashMap<AgentStatus, PersistentHashSet<Long>> agentsByStatus,
         Instant lastModified,
         int version
     ) {
-        // ✅ DEFENSIVE COPYING: Deep copy all mutable structures
-        this.agents = Map.copyOf(agents);
-        this.agentsByType = agentsByType.entrySet().stream()
-            .collect(java.util.stream.Collectors.toUnmodifiableMap(
-                Map.Entry::getKey,
-                entry -> Set.copyOf(entry.getValue())
-            ));
-        this.agentsByStatus = agentsByStatus.entrySet().stream()
-            .collect(java.util.stream.Collectors.toUnmodifiableMap(
-                Map.Entry::getKey,
-                entry -> Set.copyOf(entry.getValue())
-            ));
+        this.agents = agents;
+        this.agentsByType = agentsByType;
+        this.agentsByStatus = agentsByStatus;
         this.lastModified = lastModified;
         this.version = version;
     }
@@ -54,9 +56,9 @@ public final class ImmutableAgentRegistry {
      */
     public static ImmutableAgentRegistry empty() {
         return new ImmutableAgentRegistry(
-            Map.of(),
-            Map.of(),
-            Map.of(),
+            PersistentHashMap.empty(),
+            PersistentHashMap.empty(),
+            PersistentHashMap.empty(),
             Instant.now(),
             0
         );
@@ -66,19 +68,18 @@ public final class ImmutableAgentRegistry {
      * ✅ FACTORY METHOD: Create from collection
      */
     public static ImmutableAgentRegistry of(Collection<AgentDto> agents) {
-        Map<Long, AgentDto> agentMap = agents.stream()
-            .collect(java.util.stream.Collectors.toUnmodifiableMap(
-                AgentDto::agentId,
-                agent -> agent
-            ));
-            
-        Map<AgentType, Set<Long>> byType = new HashMap<>();
-        Map<AgentStatus, Set<Long>> byStatus = new HashMap<>();
+        PersistentHashMap<Long, AgentDto> agentMap = PersistentHashMap.empty();
+        PersistentHashMap<AgentType, PersistentHashSet<Long>> byType = PersistentHashMap.empty();
+        PersistentHashMap<AgentStatus, PersistentHashSet<Long>> byStatus = PersistentHashMap.empty();
         
-        agents.forEach(agent -> {
-            byType.computeIfAbsent(agent.agentType(), k -> new HashSet<>()).add(agent.agentId());
-            byStatus.computeIfAbsent(agent.status(), k -> new HashSet<>()).add(agent.agentId());
-        });
+        for (AgentDto agent : agents) {
+            if (agentMap.containsKey(agent.agentId())) {
+                throw new IllegalStateException("Duplicate agent id: " + agent.agentId());
+            }
+            agentMap = agentMap.plus(agent.agentId(), agent);
+            byType = withIndexed(byType, agent.agentType(), agent.agentId());
+            byStatus = withIndexed(byStatus, agent.status(), agent.agentId());
+        }
         
         return new ImmutableAgentRegistry(
             agentMap,
@@ -97,19 +98,10 @@ public final class ImmutableAgentRegistry {
             return this; // No change needed
         }
         
-        Map<Long, AgentDto> newAgents = new HashMap<>(agents);
-        newAgents.put(agent.agentId(), agent);
-        
-        Map<AgentType, Set<Long>> newByType = new HashMap<>(agentsByType);
-        newByType.computeIfAbsent(agent.agentType(), k -> new HashSet<>()).add(agent.agentId());
-        
-        Map<AgentStatus, Set<Long>> newByStatus = new HashMap<>(agentsByStatus);
-        newByStatus.computeIfAbsent(agent.status(), k -> new HashSet<>()).add(agent.agentId());
-        
         return new ImmutableAgentRegistry(
-            newAgents,
-            newByType,
-            newByStatus,
+            agents.plus(agent.agentId(), agent),
+            withIndexed(agentsByType, agent.agentType(), agent.agentId()),
+            withIndexed(agentsByStatus, agent.status(), agent.agentId()),
             Instant.now(),
             version + 1
         );
@@ -119,43 +111,15 @@ public final class ImmutableAgentRegistry {
      * ✅ IMMUTABLE OPERATION: Remove agent (returns new instance)
      */
     public ImmutableAgentRegistry withoutAgent(Long agentId) {
-        if (!agents.containsKey(agentId)) {
-            return this; // No change needed
-        }
-        
         AgentDto removedAgent = agents.get(agentId);
-        
-        Map<Long, AgentDto> newAgents = new HashMap<>(agents);
-        newAgents.remove(agentId);
-        
-        Map<AgentType, Set<Long>> newByType = new HashMap<>(agentsByType);
-        Set<Long> typeSet = newByType.get(removedAgent.agentType());
-        if (typeSet != null) {
-            Set<Long> newTypeSet = new HashSet<>(typeSet);
-            newTypeSet.remove(agentId);
-            if (newTypeSet.isEmpty()) {
-                newByType.remove(removedAgent.agentType());
-            } else {
-                newByType.put(removedAgent.agentType(), newTypeSet);
-            }
-        }
-        
-        Map<AgentStatus, Set<Long>> newByStatus = new HashMap<>(agentsByStatus);
-        Set<Long> statusSet = newByStatus.get(removedAgent.status());
-        if (statusSet != null) {
-            Set<Long> newStatusSet = new HashSet<>(statusSet);
-            newStatusSet.remove(agentId);
-            if (newStatusSet.isEmpty()) {
-                newByStatus.remove(removedAgent.status());
-            } else {
-                newByStatus.put(removedAgent.status(), newStatusSet);
-            }
+        if (removedAgent == null) {
+            return this; // No change needed
         }
         
         return new ImmutableAgentRegistry(
-            newAgents,
-            newByType,
-            newByStatus,
+            agents.minus(agentId),
+            withoutIndexed(agentsByType, removedAgent.agentType(), agentId),
+            withoutIndexed(agentsByStatus, removedAgent.status(), agentId),
             Instant.now(),
             version + 1
         );
@@ -193,7 +157,7 @@ public final class ImmutableAgentRegistry {
     }
     
     public List<AgentDto> getAgentsByType(AgentType type) {
-        Set<Long> agentIds = agentsByType.getOrDefault(type, Set.of());
+        PersistentHashSet<Long> agentIds = agentsByType.getOrDefault(type, PersistentHashSet.empty());
         return agentIds.stream()
             .map(agents::get)
             .filter(Objects::nonNull)
@@ -201,7 +165,7 @@ public final class ImmutableAgentRegistry {
     }
     
     public List<AgentDto> getAgentsByStatus(AgentStatus status) {
-        Set<Long> agentIds = agentsByStatus.getOrDefault(status, Set.of());
+        PersistentHashSet<Long> agentIds = agentsByStatus.getOrDefault(status, PersistentHashSet.empty());
         return agentIds.stream()
             .map(agents::get)
             .filter(Objects::nonNull)
@@ -216,15 +180,15 @@ public final class ImmutableAgentRegistry {
     }
     
     public List<AgentDto> getAllAgents() {
-        return List.copyOf(agents.values());
+        return agents.values().toList();
     }
     
     public Stream<AgentDto> streamAgents() {
-        return agents.values().stream();
+        return agents.values();
     }
     
     public List<AgentDto> findAgents(Predicate<AgentDto> predicate) {
-        return agents.values().stream()
+        return agents.values()
             .filter(predicate)
             .toList();
     }
@@ -250,7 +214,7 @@ public final class ImmutableAgentRegistry {
     }
     
     public Map<AgentType, Integer> getAgentCountsByType() {
-        return agentsByType.entrySet().stream()
+        return agentsByType.stream()
             .collect(java.util.stream.Collectors.toUnmodifiableMap(
                 Map.Entry::getKey,
                 entry -> entry.getValue().size()
@@ -258,7 +222,7 @@ public final class ImmutableAgentRegistry {
     }
     
     public Map<AgentStatus, Integer> getAgentCountsByStatus() {
-        return agentsByStatus.entrySet().stream()
+        return agentsByStatus.stream()
             .collect(java.util.stream.Collectors.toUnmodifiableMap(
                 Map.Entry::getKey,
                 entry -> entry.getValue().size()
@@ -297,13 +261,38 @@ public final class ImmutableAgentRegistry {
      * ✅ TRANSFORMATION: Apply function to all agents
      */
     public ImmutableAgentRegistry transform(java.util.function.Function<AgentDto, AgentDto> transformer) {
-        List<AgentDto> transformedAgents = agents.values().stream()
+        List<AgentDto> transformedAgents = agents.values()
             .map(transformer)
             .toList();
         
         return ImmutableAgentRegistry.of(transformedAgents);
     }
     
+    /**
+     * ✅ HELPER METHODS
+     */
+    
+    private static <T> PersistentHashMap<T, PersistentHashSet<Long>> withIndexed(
+        PersistentHashMap<T, PersistentHashSet<Long>> index,
+        T key,
+        Long agentId
+    ) {
+        return index.plus(key, index.getOrDefault(key, PersistentHashSet.empty()).plus(agentId));
+    }
+    
+    private static <T> PersistentHashMap<T, PersistentHashSet<Long>> withoutIndexed(
+        PersistentHashMap<T, PersistentHashSet<Long>> index,
+        T key,
+        Long agentId
+    ) {
+        PersistentHashSet<Long> ids = index.get(key);
+        if (ids == null) {
+            return index;
+        }
+        PersistentHashSet<Long> remaining = ids.minus(agentId);
+        return remaining.isEmpty() ? index.minus(key) : index.plus(key, remaining);
+    }
+    
     /**
      * ✅ EQUALITY & HASHING: Based on content, not identity
      */
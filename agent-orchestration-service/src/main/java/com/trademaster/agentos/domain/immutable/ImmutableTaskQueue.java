@@ -5,7 +5,11 @@ import com.trademaster.agentos.domain.entity.TaskPriority;
 import com.trademaster.agentos.domain.entity.TaskStatus;
 
 import java.time.Instant;
-import java.util.*;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Predicate;
 
 /**
@@ -13,12 +17,17 @@ import java.util.function.Predicate;
  * 
  * Persistent priority queue implementation with immutable operations.
  * Supports priority-based ordering and efficient queue operations.
+ *
+ * Every version shares structure with its predecessor: the id map and
+ * status index are hash array mapped tries and the priority index is a
+ * persistent AVL tree, so enqueue, dequeue and status updates copy
+ * O(log n) nodes instead of the whole queue.
  */
 public final class ImmutableTaskQueue {
     
-    private final Map<Long, TaskDto> tasks;
-    private final NavigableMap<QueueKey, Long> priorityQueue;
-    private final Map<TaskStatus, Set<Long>> tasksByStatus;
+    private final PersistentHashMap<Long, TaskDto> tasks;
+    private final PersistentSortedMap<QueueKey, Long> priorityQueue;
+    private final PersistentHashMap<TaskStatus, PersistentHashSet<Long>> tasksByStatus;
     private final Instant lastModified;
     private final int version;
     private final int maxSize;
@@ -61,22 +70,21 @@ public final class ImmutableTaskQueue {
     
     /**
      * ✅ PRIVATE CONSTRUCTOR: Enforce immutability
+     *
+     * The persistent structures cannot be mutated, so they are shared as-is
+     * rather than defensively copied.
      */
     private ImmutableTaskQueue(
-        Map<Long, TaskDto> tasks,
-        NavigableMap<QueueKey, Long> priorityQueue,
-        Map<TaskStatus, Set<Long>> tasksByStatus,
+        PersistentHashMap<Long, TaskDto> tasks,
+        PersistentSortedMap<QueueKey, Long> priorityQueue,
+        PersistentHashMap<TaskStatus, PersistentHashSet<Long>> tasksByStatus,
         Instant lastModified,
         int version,
         int maxSize
     ) {
-        this.tasks = Map.copyOf(tasks);
-        this.priorityQueue = new TreeMap<>(priorityQueue);
-        this.tasksByStatus = tasksByStatus.entrySet().stream()
-            .collect(java.util.stream.Collectors.toUnmodifiableMap(
-                Map.Entry::getKey,
-                entry -> Set.copyOf(entry.getValue())
-            ));
+        this.tasks = tasks;
+        this.priorityQueue = priorityQueue;
+        this.tasksByStatus = tasksByStatus;
         this.lastModified = lastModified;
         this.version = version;
         this.maxSize = maxSize;
@@ -87,9 +95,9 @@ public final class ImmutableTaskQueue {
      */
     public static ImmutableTaskQueue empty(int maxSize) {
         return new ImmutableTaskQueue(
-            Map.of(),
-            new TreeMap<>(),
-            Map.of(),
+            PersistentHashMap.empty(),
+            PersistentSortedMap.empty(),
+            PersistentHashMap.empty(),
             Instant.now(),
             0,
             maxSize
@@ -100,18 +108,24 @@ public final class ImmutableTaskQueue {
      * ✅ FACTORY METHOD: Create from collection
      */
     public static ImmutableTaskQueue of(Collection<TaskDto> tasks, int maxSize) {
-        Map<Long, TaskDto> taskMap = new HashMap<>();
-        NavigableMap<QueueKey, Long> queue = new TreeMap<>();
-        Map<TaskStatus, Set<Long>> byStatus = new HashMap<>();
+        PersistentHashMap<Long, TaskDto> taskMap = PersistentHashMap.empty();
+        PersistentSortedMap<QueueKey, Long> queue = PersistentSortedMap.empty();
+        PersistentHashMap<TaskStatus, PersistentHashSet<Long>> byStatus = PersistentHashMap.empty();
         
         for (TaskDto task : tasks) {
-            taskMap.put(task.taskId(), task);
+            TaskDto replaced = taskMap.get(task.taskId());
+            if (replaced != null) {
+                // Later duplicates win, as with the previous HashMap build
+                queue = queue.minus(QueueKey.of(replaced));
+                byStatus = withoutStatus(byStatus, replaced.status(), task.taskId());
+            }
+            taskMap = taskMap.plus(task.taskId(), task);
             
             if (task.isPending()) {
-                queue.put(QueueKey.of(task), task.taskId());
+                queue = queue.plus(QueueKey.of(task), task.taskId());
             }
             
-            byStatus.computeIfAbsent(task.status(), k -> new HashSet<>()).add(task.taskId());
+            byStatus = withStatus(byStatus, task.status(), task.taskId());
         }
         
         return new ImmutableTaskQueue(
@@ -136,16 +150,14 @@ public final class ImmutableTaskQueue {
             return QueueOperationResult.failed(this, "Queue is full");
         }
         
-        Map<Long, TaskDto> newTasks = new HashMap<>(tasks);
-        newTasks.put(task.taskId(), task);
+        PersistentHashMap<Long, TaskDto> newTasks = tasks.plus(task.taskId(), task);
         
-        NavigableMap<QueueKey, Long> newPriorityQueue = new TreeMap<>(priorityQueue);
-        if (task.isPending()) {
-            newPriorityQueue.put(QueueKey.of(task), task.taskId());
-        }
+        PersistentSortedMap<QueueKey, Long> newPriorityQueue = task.isPending()
+            ? priorityQueue.plus(QueueKey.of(task), task.taskId())
+            : priorityQueue;
         
-        Map<TaskStatus, Set<Long>> newByStatus = new HashMap<>(tasksByStatus);
-        newByStatus.computeIfAbsent(task.status(), k -> new HashSet<>()).add(task.taskId());
+        PersistentHashMap<TaskStatus, PersistentHashSet<Long>> newByStatus =
+            withStatus(tasksByStatus, task.status(), task.taskId());
         
         ImmutableTaskQueue newQueue = new ImmutableTaskQueue(
             newTasks,
@@ -168,18 +180,14 @@ public final class ImmutableTaskQueue {
         }
         
         Map.Entry<QueueKey, Long> firstEntry = priorityQueue.firstEntry();
-        QueueKey queueKey = firstEntry.getKey();
         Long taskId = firstEntry.getValue();
         TaskDto task = tasks.get(taskId);
         
         if (task == null) {
             // Inconsistent state - remove from queue and try again
-            NavigableMap<QueueKey, Long> cleanedQueue = new TreeMap<>(priorityQueue);
-            cleanedQueue.remove(queueKey);
-            
             ImmutableTaskQueue cleanedTaskQueue = new ImmutableTaskQueue(
                 tasks,
-                cleanedQueue,
+                priorityQueue.minusFirst(),
                 tasksByStatus,
                 Instant.now(),
                 version + 1,
@@ -190,8 +198,7 @@ public final class ImmutableTaskQueue {
         }
         
         // Remove from queue and update status to IN_PROGRESS
-        NavigableMap<QueueKey, Long> newQueue = new TreeMap<>(priorityQueue);
-        newQueue.remove(queueKey);
+        PersistentSortedMap<QueueKey, Long> newQueue = priorityQueue.minusFirst();
         
         TaskDto inProgressTask = TaskDto.minimal(
             task.taskId(),
@@ -202,10 +209,9 @@ public final class ImmutableTaskQueue {
             0
         );
         
-        Map<Long, TaskDto> newTasks = new HashMap<>(tasks);
-        newTasks.put(taskId, inProgressTask);
+        PersistentHashMap<Long, TaskDto> newTasks = tasks.plus(taskId, inProgressTask);
         
-        Map<TaskStatus, Set<Long>> newByStatus = updateStatusMap(tasksByStatus, taskId, TaskStatus.PENDING, TaskStatus.IN_PROGRESS);
+        PersistentHashMap<TaskStatus, PersistentHashSet<Long>> newByStatus = updateStatusMap(tasksByStatus, taskId, TaskStatus.PENDING, TaskStatus.IN_PROGRESS);
         
         ImmutableTaskQueue newTaskQueue = new ImmutableTaskQueue(
             newTasks,
@@ -241,22 +247,21 @@ public final class ImmutableTaskQueue {
             newStatus == TaskStatus.COMPLETED ? 100 : existingTask.progressPercentage()
         );
         
-        Map<Long, TaskDto> newTasks = new HashMap<>(tasks);
-        newTasks.put(taskId, updatedTask);
+        PersistentHashMap<Long, TaskDto> newTasks = tasks.plus(taskId, updatedTask);
         
-        NavigableMap<QueueKey, Long> newQueue = new TreeMap<>(priorityQueue);
+        PersistentSortedMap<QueueKey, Long> newQueue = priorityQueue;
         
         // Remove from queue if it was pending and is now not pending
         if (existingTask.isPending() && !updatedTask.isPending()) {
-            newQueue.remove(QueueKey.of(existingTask));
+            newQueue = newQueue.minus(QueueKey.of(existingTask));
         }
         
         // Add to queue if it was not pending and is now pending
         if (!existingTask.isPending() && updatedTask.isPending()) {
-            newQueue.put(QueueKey.of(updatedTask), taskId);
+            newQueue = newQueue.plus(QueueKey.of(updatedTask), taskId);
         }
         
-        Map<TaskStatus, Set<Long>> newByStatus = updateStatusMap(tasksByStatus, taskId, existingTask.status(), newStatus);
+        PersistentHashMap<TaskStatus, PersistentHashSet<Long>> newByStatus = updateStatusMap(tasksByStatus, taskId, existingTask.status(), newStatus);
         
         ImmutableTaskQueue newTaskQueue = new ImmutableTaskQueue(
             newTasks,
@@ -288,14 +293,14 @@ public final class ImmutableTaskQueue {
     }
     
     public List<TaskDto> getPendingTasks() {
-        return priorityQueue.values().stream()
+        return priorityQueue.values()
             .map(tasks::get)
             .filter(Objects::nonNull)
             .toList();
     }
     
     public List<TaskDto> getTasksByStatus(TaskStatus status) {
-        Set<Long> taskIds = tasksByStatus.getOrDefault(status, Set.of());
+        PersistentHashSet<Long> taskIds = tasksByStatus.getOrDefault(status, PersistentHashSet.empty());
         return taskIds.stream()
             .map(tasks::get)
             .filter(Objects::nonNull)
@@ -303,14 +308,14 @@ public final class ImmutableTaskQueue {
     }
     
     public List<TaskDto> getTasksByPriority(TaskPriority priority) {
-        return tasks.values().stream()
+        return tasks.values()
             .filter(task -> task.priority() == priority)
             .sorted((t1, t2) -> t1.createdAt().compareTo(t2.createdAt()))
             .toList();
     }
     
     public List<TaskDto> findTasks(Predicate<TaskDto> predicate) {
-        return tasks.values().stream()
+        return tasks.values()
             .filter(predicate)
             .toList();
     }
@@ -359,30 +364,34 @@ public final class ImmutableTaskQueue {
      * ✅ HELPER METHODS
      */
     
-    private Map<TaskStatus, Set<Long>> updateStatusMap(
-        Map<TaskStatus, Set<Long>> original,
+    private static PersistentHashMap<TaskStatus, PersistentHashSet<Long>> updateStatusMap(
+        PersistentHashMap<TaskStatus, PersistentHashSet<Long>> original,
         Long taskId,
         TaskStatus oldStatus,
         TaskStatus newStatus
     ) {
-        Map<TaskStatus, Set<Long>> newMap = new HashMap<>(original);
-        
-        // Remove from old status
-        Set<Long> oldSet = newMap.get(oldStatus);
-        if (oldSet != null) {
-            Set<Long> updatedOldSet = new HashSet<>(oldSet);
-            updatedOldSet.remove(taskId);
-            if (updatedOldSet.isEmpty()) {
-                newMap.remove(oldStatus);
-            } else {
-                newMap.put(oldStatus, updatedOldSet);
-            }
+        return withStatus(withoutStatus(original, oldStatus, taskId), newStatus, taskId);
+    }
+    
+    private static PersistentHashMap<TaskStatus, PersistentHashSet<Long>> withStatus(
+        PersistentHashMap<TaskStatus, PersistentHashSet<Long>> byStatus,
+        TaskStatus status,
+        Long taskId
+    ) {
+        return byStatus.plus(status, byStatus.getOrDefault(status, PersistentHashSet.empty()).plus(taskId));
+    }
+    
+    private static PersistentHashMap<TaskStatus, PersistentHashSet<Long>> withoutStatus(
+        PersistentHashMap<TaskStatus, PersistentHashSet<Long>> byStatus,
+        TaskStatus status,
+        Long taskId
+    ) {
+        PersistentHashSet<Long> ids = byStatus.get(status);
+        if (ids == null) {
+            return byStatus;
         }
-        
-        // Add to new status
-        newMap.computeIfAbsent(newStatus, k -> new HashSet<>()).add(taskId);
-        
-        return newMap;
+        PersistentHashSet<Long> remaining = ids.minus(taskId);
+        return remaining.isEmpty() ? byStatus.minus(status) : byStatus.plus(status, remaining);
     }
     
     /**
@@ -0,0 +1,567 @@
+package com.trademaster.agentos.domain.immutable;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * ✅ PERSISTENT DATA STRUCTURE: Hash Array Mapped Trie
+ *
+ * Immutable hash map with structural sharing (CHAMP layout). Each node
+ * branches 32 ways on 5 bits of the key hash and keeps inline entries
+ * and sub-nodes in one compact array, so {@link #plus} and {@link #minus}
+ * copy only the O(log32 n) nodes on the path to the key and share the rest
+ * with the previous version.
+ *
+ * Removal keeps the trie canonical (a sub-node left with a single entry is
+ * inlined into its parent), so equal maps have equal shapes regardless of
+ * history.
+ */
+public final class PersistentHashMap<K, V> implements Iterable<Map.Entry<K, V>> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int MAX_SHIFT = 30;
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentHashMap EMPTY = new PersistentHashMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node<K, V> root;
+    private final int size;
+
+    private PersistentHashMap(Node<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * ✅ FACTORY METHOD: Shared empty map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * ✅ QUERY OPERATIONS
+     */
+
+    public V get(Object key) {
+        return root.find(key, hash(key), 0);
+    }
+
+    public V getOrDefault(Object key, V defaultValue) {
+        V value = get(key);
+        return value != null || containsKey(key) ? value : defaultValue;
+    }
+
+    public boolean containsKey(Object key) {
+        return root.contains(key, hash(key), 0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * ✅ IMMUTABLE OPERATION: Associate key with value (returns new instance)
+     */
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        Change change = new Change();
+        Node<K, V> newRoot = root.put(key, value, hash(key), 0, change);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot, change.sizeDelta == 0 ? size : size + 1);
+    }
+
+    /**
+     * ✅ IMMUTABLE OPERATION: Remove key (returns new instance)
+     */
+    public PersistentHashMap<K, V> minus(Object key) {
+        Change change = new Change();
+        Node<K, V> newRoot = root.remove(key, hash(key), 0, change);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * ✅ TRAVERSAL
+     */
+
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        root.forEach(action);
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<>(root);
+    }
+
+    public Stream<Map.Entry<K, V>> stream() {
+        return StreamSupport.stream(
+            Spliterators.spliterator(iterator(), size, Spliterator.SIZED | Spliterator.DISTINCT | Spliterator.IMMUTABLE),
+            false);
+    }
+
+    public Stream<K> keys() {
+        return stream().map(Map.Entry::getKey);
+    }
+
+    public Stream<V> values() {
+        return stream().map(Map.Entry::getValue);
+    }
+
+    /**
+     * ✅ EQUALITY & HASHING: Map semantics, independent of insertion history
+     */
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof PersistentHashMap<?, ?> other) || other.size != size) return false;
+
+        for (Map.Entry<K, V> entry : this) {
+            Object otherValue = other.get(entry.getKey());
+            if (!Objects.equals(entry.getValue(), otherValue)
+                || (otherValue == null && !other.containsKey(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int[] hash = {0};
+        forEach((key, value) -> hash[0] += Objects.hashCode(key) ^ Objects.hashCode(value));
+        return hash[0];
+    }
+
+    @Override
+    public String toString() {
+        return "PersistentHashMap{size=" + size + '}';
+    }
+
+    // ========== Trie Nodes ==========
+
+    private static int hash(Object key) {
+        int h = Objects.hashCode(key);
+        return h ^ (h >>> 16); // Spread high bits into the first levels
+    }
+
+    private static final class Change {
+        int sizeDelta;
+    }
+
+    private abstract static sealed class Node<K, V> permits BitmapNode, CollisionNode {
+
+        abstract V find(Object key, int hash, int shift);
+
+        abstract boolean contains(Object key, int hash, int shift);
+
+        abstract Node<K, V> put(K key, V value, int hash, int shift, Change change);
+
+        abstract Node<K, V> remove(Object key, int hash, int shift, Change change);
+
+        abstract void forEach(BiConsumer<? super K, ? super V> action);
+
+        /** Entries held inline at this node */
+        abstract int dataCount();
+
+        /** Sub-nodes below this node */
+        abstract int nodeCount();
+
+        abstract K keyAt(int index);
+
+        abstract V valueAt(int index);
+
+        abstract Node<K, V> nodeAt(int index);
+    }
+
+    /**
+     * Branch node: {@code dataMap} marks slots holding an inline entry,
+     * {@code nodeMap} slots holding a sub-node. {@code content} stores
+     * key/value pairs first, then sub-nodes, each in slot order.
+     */
+    private static final class BitmapNode<K, V> extends Node<K, V> {
+
+        @SuppressWarnings("rawtypes")
+        static final BitmapNode EMPTY = new BitmapNode<>(0, 0, new Object[0]);
+
+        private final int dataMap;
+        private final int nodeMap;
+        private final Object[] content;
+
+        BitmapNode(int dataMap, int nodeMap, Object[] content) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        @Override
+        V find(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                return Objects.equals(key, keyAt(index)) ? valueAt(index) : null;
+            }
+            if ((nodeMap & bit) != 0) {
+                return nodeAt(nodeIndex(bit)).find(key, hash, shift + BITS);
+            }
+            return null;
+        }
+
+        @Override
+        boolean contains(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                return Objects.equals(key, keyAt(dataIndex(bit)));
+            }
+            if ((nodeMap & bit) != 0) {
+                return nodeAt(nodeIndex(bit)).contains(key, hash, shift + BITS);
+            }
+            return false;
+        }
+
+        @Override
+        Node<K, V> put(K key, V value, int hash, int shift, Change change) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                K existingKey = keyAt(index);
+                if (Objects.equals(key, existingKey)) {
+                    if (valueAt(index) == value) {
+                        return this;
+                    }
+                    Object[] copy = content.clone();
+                    copy[2 * index + 1] = value;
+                    return new BitmapNode<>(dataMap, nodeMap, copy);
+                }
+                // Two keys share this slot: push both one level down
+                V existingValue = valueAt(index);
+                Node<K, V> sub = merge(existingKey, existingValue, hash(existingKey), key, value, hash, shift + BITS);
+                change.sizeDelta = 1;
+                return copyDataToNode(bit, index, sub);
+            }
+            if ((nodeMap & bit) != 0) {
+                int index = nodeIndex(bit);
+                Node<K, V> sub = nodeAt(index);
+                Node<K, V> newSub = sub.put(key, value, hash, shift + BITS, change);
+                return newSub == sub ? this : copyWithNode(index, newSub);
+            }
+            change.sizeDelta = 1;
+            return copyInsertData(bit, key, value);
+        }
+
+        @Override
+        Node<K, V> remove(Object key, int hash, int shift, Change change) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                if (!Objects.equals(key, keyAt(index))) {
+                    return this;
+                }
+                change.sizeDelta = -1;
+                return copyRemoveData(bit, index);
+            }
+            if ((nodeMap & bit) != 0) {
+                int index = nodeIndex(bit);
+                Node<K, V> sub = nodeAt(index);
+                Node<K, V> newSub = sub.remove(key, hash, shift + BITS, change);
+                if (newSub == sub) {
+                    return this;
+                }
+                if (newSub.nodeCount() == 0 && newSub.dataCount() == 1) {
+                    // Canonical form: a lone entry lives in its parent
+                    return copyNodeToData(bit, index, newSub.keyAt(0), newSub.valueAt(0));
+                }
+                return copyWithNode(index, newSub);
+            }
+            return this;
+        }
+
+        @Override
+        void forEach(BiConsumer<? super K, ? super V> action) {
+            int data = dataCount();
+            for (int i = 0; i < data; i++) {
+                action.accept(keyAt(i), valueAt(i));
+            }
+            int nodes = nodeCount();
+            for (int i = 0; i < nodes; i++) {
+                nodeAt(i).forEach(action);
+            }
+        }
+
+        @Override
+        int dataCount() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        int nodeCount() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        K keyAt(int index) {
+            return (K) content[2 * index];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        V valueAt(int index) {
+            return (V) content[2 * index + 1];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Node<K, V> nodeAt(int index) {
+            return (Node<K, V>) content[2 * dataCount() + index];
+        }
+
+        private int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        private int nodeIndex(int bit) {
+            return Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        private Node<K, V> copyWithNode(int index, Node<K, V> node) {
+            Object[] copy = content.clone();
+            copy[2 * dataCount() + index] = node;
+            return new BitmapNode<>(dataMap, nodeMap, copy);
+        }
+
+        private Node<K, V> copyInsertData(int bit, K key, V value) {
+            int at = 2 * dataIndex(bit);
+            Object[] copy = new Object[content.length + 2];
+            System.arraycopy(content, 0, copy, 0, at);
+            copy[at] = key;
+            copy[at + 1] = value;
+            System.arraycopy(content, at, copy, at + 2, content.length - at);
+            return new BitmapNode<>(dataMap | bit, nodeMap, copy);
+        }
+
+        private Node<K, V> copyRemoveData(int bit, int index) {
+            int at = 2 * index;
+            Object[] copy = new Object[content.length - 2];
+            System.arraycopy(content, 0, copy, 0, at);
+            System.arraycopy(content, at + 2, copy, at, content.length - at - 2);
+            return new BitmapNode<>(dataMap ^ bit, nodeMap, copy);
+        }
+
+        private Node<K, V> copyDataToNode(int bit, int dataIndex, Node<K, V> node) {
+            int dataAt = 2 * dataIndex;
+            // Node slots follow data; after dropping one pair the node region starts 2 earlier
+            int nodeInsert = 2 * (dataCount() - 1) + Integer.bitCount(nodeMap & (bit - 1));
+            Object[] copy = new Object[content.length - 1];
+            System.arraycopy(content, 0, copy, 0, dataAt);
+            System.arraycopy(content, dataAt + 2, copy, dataAt, nodeInsert - dataAt);
+            copy[nodeInsert] = node;
+            System.arraycopy(content, nodeInsert + 2, copy, nodeInsert + 1, content.length - nodeInsert - 2);
+            return new BitmapNode<>(dataMap ^ bit, nodeMap | bit, copy);
+        }
+
+        private Node<K, V> copyNodeToData(int bit, int nodeIndex, K key, V value) {
+            int nodeFrom = 2 * dataCount() + nodeIndex;
+            int dataAt = 2 * dataIndex(bit);
+            Object[] copy = new Object[content.length + 1];
+            System.arraycopy(content, 0, copy, 0, dataAt);
+            copy[dataAt] = key;
+            copy[dataAt + 1] = value;
+            System.arraycopy(content, dataAt, copy, dataAt + 2, nodeFrom - dataAt);
+            System.arraycopy(content, nodeFrom + 1, copy, nodeFrom + 2, content.length - nodeFrom - 1);
+            return new BitmapNode<>(dataMap | bit, nodeMap ^ bit, copy);
+        }
+
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & MASK);
+        }
+
+        private static <K, V> Node<K, V> merge(K key1, V value1, int hash1, K key2, V value2, int hash2, int shift) {
+            if (shift > MAX_SHIFT) {
+                return new CollisionNode<>(hash1, new Object[] {key1, value1, key2, value2});
+            }
+            int slot1 = (hash1 >>> shift) & MASK;
+            int slot2 = (hash2 >>> shift) & MASK;
+            if (slot1 == slot2) {
+                Node<K, V> sub = merge(key1, value1, hash1, key2, value2, hash2, shift + BITS);
+                return new BitmapNode<>(0, 1 << slot1, new Object[] {sub});
+            }
+            Object[] content = slot1 < slot2
+                ? new Object[] {key1, value1, key2, value2}
+                : new Object[] {key2, value2, key1, value1};
+            return new BitmapNode<>((1 << slot1) | (1 << slot2), 0, content);
+        }
+    }
+
+    /**
+     * Leaf for keys whose full 32-bit hashes are equal
+     */
+    private static final class CollisionNode<K, V> extends Node<K, V> {
+
+        private final int hash;
+        private final Object[] content;
+
+        CollisionNode(int hash, Object[] content) {
+            this.hash = hash;
+            this.content = content;
+        }
+
+        @Override
+        V find(Object key, int hash, int shift) {
+            int index = indexOf(key);
+            return index < 0 ? null : valueAt(index);
+        }
+
+        @Override
+        boolean contains(Object key, int hash, int shift) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        Node<K, V> put(K key, V value, int hash, int shift, Change change) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                if (valueAt(index) == value) {
+                    return this;
+                }
+                Object[] copy = content.clone();
+                copy[2 * index + 1] = value;
+                return new CollisionNode<>(this.hash, copy);
+            }
+            Object[] copy = Arrays.copyOf(content, content.length + 2);
+            copy[content.length] = key;
+            copy[content.length + 1] = value;
+            change.sizeDelta = 1;
+            return new CollisionNode<>(this.hash, copy);
+        }
+
+        @Override
+        Node<K, V> remove(Object key, int hash, int shift, Change change) {
+            int index = indexOf(key);
+            if (index < 0) {
+                return this;
+            }
+            change.sizeDelta = -1;
+            Object[] copy = new Object[content.length - 2];
+            System.arraycopy(content, 0, copy, 0, 2 * index);
+            System.arraycopy(content, 2 * index + 2, copy, 2 * index, content.length - 2 * index - 2);
+            // A single survivor is returned as a one-entry collision node; the parent inlines it
+            return new CollisionNode<>(this.hash, copy);
+        }
+
+        @Override
+        void forEach(BiConsumer<? super K, ? super V> action) {
+            for (int i = 0; i < dataCount(); i++) {
+                action.accept(keyAt(i), valueAt(i));
+            }
+        }
+
+        @Override
+        int dataCount() {
+            return content.length / 2;
+        }
+
+        @Override
+        int nodeCount() {
+            return 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        K keyAt(int index) {
+            return (K) content[2 * index];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        V valueAt(int index) {
+            return (V) content[2 * index + 1];
+        }
+
+        @Override
+        Node<K, V> nodeAt(int index) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < dataCount(); i++) {
+                if (Objects.equals(key, content[2 * i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Depth-first entry iterator over an explicit node stack
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+
+        private final Deque<Node<K, V>> nodes = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private Node<K, V> current;
+        private int dataPosition;
+
+        EntryIterator(Node<K, V> root) {
+            current = root;
+            advanceToData();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<K, V> entry = new AbstractMap.SimpleImmutableEntry<>(
+                current.keyAt(dataPosition), current.valueAt(dataPosition));
+            dataPosition++;
+            advanceToData();
+            return entry;
+        }
+
+        private void advanceToData() {
+            while (current != null && dataPosition >= current.dataCount()) {
+                // Entries of this node are exhausted: descend into its sub-nodes, then resume parents
+                int nodePosition = dataPosition - current.dataCount();
+                if (nodePosition < current.nodeCount()) {
+                    nodes.push(current);
+                    positions.push(dataPosition + 1);
+                    current = current.nodeAt(nodePosition);
+                    dataPosition = 0;
+                } else if (!nodes.isEmpty()) {
+                    current = nodes.pop();
+                    dataPosition = positions.pop();
+                } else {
+                    current = null;
+                }
+            }
+        }
+    }
+}
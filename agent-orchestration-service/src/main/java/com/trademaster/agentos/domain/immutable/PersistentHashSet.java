@@ -0,0 +1,95 @@
+package com.trademaster.agentos.domain.immutable;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * ✅ PERSISTENT DATA STRUCTURE: Hash Set
+ *
+ * Immutable set backed by a {@link PersistentHashMap}; adds and removes
+ * share all untouched trie nodes with the previous version.
+ */
+public final class PersistentHashSet<E> implements Iterable<E> {
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentHashSet EMPTY = new PersistentHashSet<>(PersistentHashMap.empty());
+
+    private final PersistentHashMap<E, Boolean> elements;
+
+    private PersistentHashSet(PersistentHashMap<E, Boolean> elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * ✅ FACTORY METHOD: Shared empty set
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentHashSet<E> empty() {
+        return (PersistentHashSet<E>) EMPTY;
+    }
+
+    public boolean contains(Object element) {
+        return elements.containsKey(element);
+    }
+
+    public int size() {
+        return elements.size();
+    }
+
+    public boolean isEmpty() {
+        return elements.isEmpty();
+    }
+
+    /**
+     * ✅ IMMUTABLE OPERATION: Add element (returns new instance)
+     */
+    public PersistentHashSet<E> plus(E element) {
+        PersistentHashMap<E, Boolean> updated = elements.plus(element, Boolean.TRUE);
+        return updated == elements ? this : new PersistentHashSet<>(updated);
+    }
+
+    /**
+     * ✅ IMMUTABLE OPERATION: Remove element (returns new instance)
+     */
+    public PersistentHashSet<E> minus(Object element) {
+        PersistentHashMap<E, Boolean> updated = elements.minus(element);
+        return updated == elements ? this : new PersistentHashSet<>(updated);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<Map.Entry<E, Boolean>> entries = elements.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return entries.next().getKey();
+            }
+        };
+    }
+
+    public Stream<E> stream() {
+        return elements.keys();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        return obj instanceof PersistentHashSet<?> other && elements.equals(other.elements);
+    }
+
+    @Override
+    public int hashCode() {
+        return elements.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "PersistentHashSet{size=" + size() + '}';
+    }
+}
@@ -0,0 +1,312 @@
+package com.trademaster.agentos.domain.immutable;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * ✅ PERSISTENT DATA STRUCTURE: Ordered Map
+ *
+ * Immutable AVL tree with path copying. {@link #plus} and {@link #minus}
+ * rebuild only the O(log n) nodes between the root and the changed key;
+ * every other subtree is shared with the previous version. The minimum is
+ * reached in O(log n), which is what a priority index needs for peek and
+ * dequeue, and in-order traversal yields entries in key order.
+ */
+public final class PersistentSortedMap<K extends Comparable<? super K>, V> implements Iterable<Map.Entry<K, V>> {
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentSortedMap EMPTY = new PersistentSortedMap<>(null, 0);
+
+    private final Node<K, V> root;
+    private final int size;
+
+    private PersistentSortedMap(Node<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * ✅ FACTORY METHOD: Shared empty map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<? super K>, V> PersistentSortedMap<K, V> empty() {
+        return (PersistentSortedMap<K, V>) EMPTY;
+    }
+
+    /**
+     * ✅ QUERY OPERATIONS
+     */
+
+    public V get(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                return node.value;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    public boolean containsKey(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                return true;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * Lowest entry, or null when empty
+     */
+    public Map.Entry<K, V> firstEntry() {
+        if (root == null) {
+            return null;
+        }
+        Node<K, V> node = root;
+        while (node.left != null) {
+            node = node.left;
+        }
+        return new AbstractMap.SimpleImmutableEntry<>(node.key, node.value);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * ✅ IMMUTABLE OPERATION: Associate key with value (returns new instance)
+     */
+    public PersistentSortedMap<K, V> plus(K key, V value) {
+        boolean[] added = {false};
+        Node<K, V> newRoot = put(root, key, value, added);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentSortedMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * ✅ IMMUTABLE OPERATION: Remove key (returns new instance)
+     */
+    public PersistentSortedMap<K, V> minus(K key) {
+        Node<K, V> newRoot = remove(root, key);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentSortedMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * ✅ IMMUTABLE OPERATION: Remove the lowest entry (returns new instance)
+     */
+    public PersistentSortedMap<K, V> minusFirst() {
+        return root == null ? this : new PersistentSortedMap<>(removeMin(root), size - 1);
+    }
+
+    /**
+     * ✅ TRAVERSAL: Ascending key order
+     */
+
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new InOrderIterator<>(root);
+    }
+
+    public Stream<Map.Entry<K, V>> stream() {
+        return StreamSupport.stream(
+            Spliterators.spliterator(iterator(), size,
+                Spliterator.SIZED | Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.IMMUTABLE),
+            false);
+    }
+
+    public Stream<V> values() {
+        return StreamSupport.stream(
+            Spliterators.spliterator(new ValueIterator<>(iterator()), size,
+                Spliterator.SIZED | Spliterator.ORDERED | Spliterator.IMMUTABLE),
+            false);
+    }
+
+    /**
+     * ✅ EQUALITY & HASHING: Same entries in the same order
+     */
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof PersistentSortedMap<?, ?> other) || other.size != size) return false;
+
+        Iterator<Map.Entry<K, V>> mine = iterator();
+        Iterator<? extends Map.Entry<?, ?>> theirs = other.iterator();
+        while (mine.hasNext()) {
+            if (!mine.next().equals(theirs.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (Map.Entry<K, V> entry : this) {
+            hash += entry.hashCode();
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "PersistentSortedMap{size=" + size + '}';
+    }
+
+    // ========== AVL Tree ==========
+
+    private record Node<K, V>(K key, V value, Node<K, V> left, Node<K, V> right, int height) {
+
+        static <K, V> Node<K, V> of(K key, V value, Node<K, V> left, Node<K, V> right) {
+            return new Node<>(key, value, left, right, 1 + Math.max(heightOf(left), heightOf(right)));
+        }
+    }
+
+    private static int heightOf(Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> put(Node<K, V> node, K key, V value, boolean[] added) {
+        if (node == null) {
+            added[0] = true;
+            return Node.of(key, value, null, null);
+        }
+        int cmp = key.compareTo(node.key);
+        if (cmp == 0) {
+            return node.value == value ? node : Node.of(key, value, node.left, node.right);
+        }
+        if (cmp < 0) {
+            Node<K, V> left = put(node.left, key, value, added);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        Node<K, V> right = put(node.right, key, value, added);
+        return right == node.right ? node : balance(node.key, node.value, node.left, right);
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> remove(Node<K, V> node, K key) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = key.compareTo(node.key);
+        if (cmp < 0) {
+            Node<K, V> left = remove(node.left, key);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        if (cmp > 0) {
+            Node<K, V> right = remove(node.right, key);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        // Replace with the in-order successor
+        Node<K, V> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, node.left, removeMin(node.right));
+    }
+
+    private static <K, V> Node<K, V> removeMin(Node<K, V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value, removeMin(node.left), node.right);
+    }
+
+    private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        int skew = heightOf(left) - heightOf(right);
+        if (skew > 1) {
+            if (heightOf(left.left) < heightOf(left.right)) {
+                left = rotateLeft(left.key, left.value, left.left, left.right);
+            }
+            return rotateRight(key, value, left, right);
+        }
+        if (skew < -1) {
+            if (heightOf(right.right) < heightOf(right.left)) {
+                right = rotateRight(right.key, right.value, right.left, right.right);
+            }
+            return rotateLeft(key, value, left, right);
+        }
+        return Node.of(key, value, left, right);
+    }
+
+    private static <K, V> Node<K, V> rotateRight(K key, V value, Node<K, V> left, Node<K, V> right) {
+        return Node.of(left.key, left.value, left.left, Node.of(key, value, left.right, right));
+    }
+
+    private static <K, V> Node<K, V> rotateLeft(K key, V value, Node<K, V> left, Node<K, V> right) {
+        return Node.of(right.key, right.value, Node.of(key, value, left, right.left), right.right);
+    }
+
+    private static final class InOrderIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+
+        private final Deque<Node<K, V>> path = new ArrayDeque<>();
+
+        InOrderIterator(Node<K, V> root) {
+            pushLeft(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V> node = path.pop();
+            pushLeft(node.right);
+            return new AbstractMap.SimpleImmutableEntry<>(node.key, node.value);
+        }
+
+        private void pushLeft(Node<K, V> node) {
+            while (node != null) {
+                path.push(node);
+                node = node.left;
+            }
+        }
+    }
+
+    private record ValueIterator<K, V>(Iterator<Map.Entry<K, V>> entries) implements Iterator<V> {
+
+        @Override
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        @Override
+        public V next() {
+            return entries.next().getValue();
+        }
+    }
+}
@@ -5,11 +5,13 @@ import com.trademaster.agentos.domain.entity.AgentStatus;
 import com.trademaster.agentos.domain.entity.AgentType;
 import com.trademaster.agentos.domain.entity.AgentCapability;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -201,6 +203,32 @@ public interface AgentRepository extends JpaRepository<Agent, Long> {
     @Query("UPDATE Agent a SET a.currentLoad = CASE WHEN a.currentLoad > 0 THEN a.currentLoad - 1 ELSE 0 END, a.updatedAt = CURRENT_TIMESTAMP WHERE a.agentId = :agentId")
     void decrementAgentLoad(@Param("agentId") Long agentId);
 
+    /**
+     * Apply the net load change from a batch of dispatcher assignments
+     */
+    @Modifying
+    @Query("UPDATE Agent a SET a.currentLoad = a.currentLoad + :delta, a.updatedAt = CURRENT_TIMESTAMP WHERE a.agentId = :agentId")
+    int adjustAgentLoad(@Param("agentId") Long agentId, @Param("delta") int delta);
+
+    /**
+     * Stamp one heartbeat time on a batch of agents
+     */
+    @Modifying
+    @Query("UPDATE Agent a SET a.lastHeartbeat = :heartbeatTime, a.updatedAt = :heartbeatTime WHERE a.agentId IN :agentIds")
+    int updateHeartbeats(@Param("agentIds") Collection<Long> agentIds, @Param("heartbeatTime") Instant heartbeatTime);
+
+    /**
+     * Agents of a batch in any of the given statuses
+     */
+    List<Agent> findByAgentIdInAndStatusIn(Collection<Long> agentIds, Collection<AgentStatus> statuses);
+
+    /**
+     * Mark a batch of agents UNRESPONSIVE unless they already left ACTIVE/BUSY
+     */
+    @Modifying
+    @Query("UPDATE Agent a SET a.status = 'UNRESPONSIVE', a.updatedAt = CURRENT_TIMESTAMP WHERE a.agentId IN :agentIds AND a.status IN ('ACTIVE', 'BUSY')")
+    int markUnresponsive(@Param("agentIds") Collection<Long> agentIds);
+
     /**
      * Custom query to find optimal agent for task assignment
      * Considers agent type, capabilities, current load, and performance
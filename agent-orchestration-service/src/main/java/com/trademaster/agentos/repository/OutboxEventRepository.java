@@ -0,0 +1,41 @@
+package com.trademaster.agentos.repository;
+
+import com.trademaster.agentos.domain.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Outbox Event Repository
+ *
+ * Data access for the transactional outbox. The relay reads batches in
+ * insertion order under a transaction-scoped advisory lock, so only one
+ * instance drains the outbox at a time and per-key order is preserved.
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Try to take the relay lock for the current transaction
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockKey)", nativeQuery = true)
+    boolean tryRelayLock(@Param("lockKey") long lockKey);
+
+    /**
+     * Oldest pending events, in the order they were written
+     */
+    @Query(value = "SELECT * FROM event_outbox ORDER BY outbox_id LIMIT :limit", nativeQuery = true)
+    List<OutboxEvent> findNextBatch(@Param("limit") int limit);
+
+    /**
+     * Remove events Kafka has acknowledged
+     */
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.outboxId IN :outboxIds")
+    int deleteByOutboxIds(@Param("outboxIds") Collection<Long> outboxIds);
+}
@@ -0,0 +1,36 @@
+package com.trademaster.agentos.repository;
+
+import com.trademaster.agentos.domain.entity.ProcessedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+/**
+ * Processed Event Repository
+ *
+ * Deduplication markers for event consumers.
+ */
+@Repository
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, ProcessedEvent.Key> {
+
+    /**
+     * Record an event as processed; returns 0 when it already was
+     */
+    @Modifying
+    @Query(value = "INSERT INTO processed_events (consumer_group, event_id, processed_at) " +
+                   "VALUES (:consumerGroup, :eventId, :processedAt) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int markProcessed(@Param("consumerGroup") String consumerGroup,
+                      @Param("eventId") String eventId,
+                      @Param("processedAt") Instant processedAt);
+
+    /**
+     * Drop markers older than the redelivery window
+     */
+    @Modifying
+    @Query("DELETE FROM ProcessedEvent p WHERE p.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -6,11 +6,13 @@ import com.trademaster.agentos.domain.entity.TaskPriority;
 import com.trademaster.agentos.domain.entity.TaskType;
 import com.trademaster.agentos.domain.entity.AgentCapability;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -289,4 +291,26 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
      */
     @Query("SELECT t FROM Task t WHERE t.status = 'IN_PROGRESS' AND t.updatedAt < :abandonedThreshold")
     List<Task> findAbandonedTasks(@Param("abandonedThreshold") Instant abandonedThreshold);
-}
\ No newline at end of file
+
+    /**
+     * Claim a dispatched task for its agent while it is still PENDING
+     * Returns 0 when another dispatcher claimed it or it left PENDING first
+     */
+    @Modifying
+    @Query("UPDATE Task t SET t.agentId = :agentId, t.status = 'IN_PROGRESS', t.startedAt = :claimedAt, t.updatedAt = :claimedAt WHERE t.taskId = :taskId AND t.status = 'PENDING'")
+    int claimPendingTask(@Param("taskId") Long taskId, @Param("agentId") Long agentId, @Param("claimedAt") Instant claimedAt);
+
+    /**
+     * Lock PENDING tasks untouched since the threshold, skipping rows another instance has locked
+     */
+    @Query(value = "SELECT * FROM tasks WHERE status = 'PENDING' AND (updated_at IS NULL OR updated_at < :staleBefore) " +
+                   "ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Task> lockStalePendingTasks(@Param("staleBefore") Instant staleBefore, @Param("limit") int limit);
+
+    /**
+     * Stamp a batch of tasks as updated without changing them
+     */
+    @Modifying
+    @Query("UPDATE Task t SET t.updatedAt = :touchedAt WHERE t.taskId IN :taskIds")
+    int touchTasks(@Param("taskIds") Collection<Long> taskIds, @Param("touchedAt") Instant touchedAt);
+}
@@ -5,16 +5,19 @@ import com.trademaster.agentos.domain.entity.Task;
 import com.trademaster.agentos.domain.entity.AgentType;
 import com.trademaster.agentos.domain.entity.AgentStatus;
 import com.trademaster.agentos.domain.entity.TaskStatus;
-import com.trademaster.agentos.domain.entity.TaskPriority;
 import com.trademaster.agentos.domain.entity.AgentCapability;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -33,6 +36,15 @@ public class AgentOrchestrationService {
 
     private final AgentService agentService;
     private final TaskService taskService;
+    private final TaskDispatcher taskDispatcher;
+    private final HeartbeatAggregator heartbeatAggregator;
+    private final EventPublishingService eventPublishingService;
+
+    @Value("${agentos.dispatch.reconcile-interval-ms:60000}")
+    private long reconcileIntervalMillis = 60000;
+
+    @Value("${agentos.dispatch.reconcile-batch-size:1000}")
+    private int reconcileBatchSize = 1000;
 
     // Core Orchestration Methods
 
@@ -45,37 +57,31 @@ public class AgentOrchestrationService {
         
         // Create the task
         Task createdTask = taskService.createTask(task);
+        eventPublishingService.publishTaskCreated(createdTask.getTaskId(), createdTask.getTaskName(),
+            createdTask.getTaskType().name(), createdTask.getPriority().name(), createdTask.getUserId());
         
-        // Try to assign immediately if high priority
-        if (task.getPriority() == TaskPriority.CRITICAL || task.getPriority() == TaskPriority.HIGH) {
-            tryAssignTaskImmediately(createdTask);
-        }
+        // Matched on commit, or as soon as an agent frees a slot
+        dispatchAfterCommit(createdTask);
         
         return createdTask;
     }
 
     /**
-     * Attempt to assign a task immediately to an available agent
+     * Hand a PENDING task to the dispatcher once the current transaction commits,
+     * so the batched assignment write always finds the task row
      */
-    private void tryAssignTaskImmediately(Task task) {
-        log.debug("Attempting immediate assignment for task: {}", task.getTaskName());
-        
-        // Determine required agent type based on task type
-        AgentType requiredAgentType = determineRequiredAgentType(task.getTaskType());
-        
-        // Find optimal agent
-        Optional<Agent> optimalAgent = agentService.findOptimalAgentForTask(
-                requiredAgentType, 
-                task.getRequiredCapabilities()
-        );
-        
-        if (optimalAgent.isPresent()) {
-            Agent agent = optimalAgent.get();
-            assignTaskToAgent(task.getTaskId(), agent.getAgentId());
-            log.info("Immediately assigned task {} to agent {}", task.getTaskName(), agent.getAgentName());
-        } else {
-            log.debug("No available agents for immediate assignment of task: {}", task.getTaskName());
+    private void dispatchAfterCommit(Task task) {
+        AgentType requiredType = determineRequiredAgentType(task.getTaskType());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            taskDispatcher.submit(task, requiredType);
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                taskDispatcher.submit(task, requiredType);
+            }
+        });
     }
 
     /**
@@ -143,14 +149,19 @@ public class AgentOrchestrationService {
         
         if (success) {
             taskService.completeTask(taskId, result);
+            eventPublishingService.publishTaskCompleted(taskId, task.getTaskName(), task.getAgentId(),
+                null, responseTimeMs);
         } else {
             taskService.failTask(taskId, result);
+            eventPublishingService.publishTaskFailed(taskId, task.getTaskName(), task.getAgentId(),
+                null, result);
         }
         
         // Update agent metrics if task was assigned to an agent
         if (task.getAgentId() != null) {
             agentService.decrementAgentLoad(task.getAgentId());
             agentService.updatePerformanceMetrics(task.getAgentId(), success, responseTimeMs);
+            taskDispatcher.releaseSlot(task.getAgentId());
         }
         
         log.info("Processed task completion for: {}", task.getTaskName());
@@ -159,46 +170,36 @@ public class AgentOrchestrationService {
     // Scheduled Operations
 
     /**
-     * Periodic task queue processing
-     * Runs every 10 seconds to process pending tasks
+     * Periodic dispatcher reconciliation
+     * Dispatch itself is event-driven (see TaskDispatcher). This slow pass only
+     * picks up agents and PENDING tasks the dispatcher has not seen, e.g. after a
+     * restart or a status change made outside this service, refreshes the
+     * dispatcher's agent scores from the rows, and reports throughput. Only tasks left
+     * PENDING for a full interval are adopted, with SKIP LOCKED, so instances
+     * split the stragglers instead of all re-submitting every PENDING task; a
+     * task still matched by two instances is claimed by one of them
      */
-    @Scheduled(fixedRate = 10000) // 10 seconds
+    @Scheduled(fixedDelayString = "${agentos.dispatch.reconcile-interval-ms:60000}")
     public void processTaskQueue() {
-        log.debug("Processing task queue");
+        log.debug("Reconciling task dispatcher");
         
         try {
-            // Get high priority tasks first
-            List<Task> highPriorityTasks = taskService.getHighPriorityTasks();
-            for (Task task : highPriorityTasks) {
-                if (task.getStatus() == TaskStatus.PENDING) {
-                    tryAssignTaskImmediately(task);
-                }
-            }
+            List<Agent> availableAgents = new ArrayList<>(agentService.findByStatus(AgentStatus.ACTIVE));
+            availableAgents.addAll(agentService.findByStatus(AgentStatus.BUSY));
+            taskDispatcher.reconcileAgents(availableAgents);
             
-            // Process regular queue
-            Optional<Task> nextTask = taskService.getNextTaskFromQueue();
-            while (nextTask.isPresent()) {
-                Task task = nextTask.get();
-                
-                // Find available agent for the task
-                AgentType requiredType = determineRequiredAgentType(task.getTaskType());
-                Optional<Agent> availableAgent = agentService.findOptimalAgentForTask(
-                        requiredType, task.getRequiredCapabilities());
-                
-                if (availableAgent.isPresent()) {
-                    // Start task execution
-                    taskService.updateTaskStatus(task.getTaskId(), TaskStatus.IN_PROGRESS);
-                    log.debug("Started execution of task: {}", task.getTaskName());
-                } else {
-                    log.debug("No available agents for task: {}", task.getTaskName());
-                    break; // Wait for agents to become available
-                }
-                
-                nextTask = taskService.getNextTaskFromQueue();
+            Instant staleBefore = Instant.now().minusMillis(reconcileIntervalMillis);
+            for (Task task : taskService.adoptStalePendingTasks(staleBefore, reconcileBatchSize)) {
+                taskDispatcher.submit(task, determineRequiredAgentType(task.getTaskType()));
             }
             
+            TaskDispatcher.DispatchStats stats = taskDispatcher.snapshotStats();
+            log.info("Task dispatch: {} tasks/s, p99 latency {} ms, {} waiting, {} ready agents, {} unflushed",
+                    String.format("%.1f", stats.tasksPerSecond()), String.format("%.3f", stats.p99LatencyMillis()),
+                    stats.waitingTasks(), stats.readyAgents(), stats.pendingAssignments());
+            
         } catch (Exception e) {
-            log.error("Error processing task queue", e);
+            log.error("Error reconciling task dispatcher", e);
         }
     }
 
@@ -253,6 +254,8 @@ public class AgentOrchestrationService {
         
         CompletableFuture<Agent> registeredAgentFuture = agentService.registerAgent(agent);
         Agent registeredAgent = registeredAgentFuture.join();
+        eventPublishingService.publishAgentRegistered(registeredAgent.getAgentId(),
+            registeredAgent.getAgentName(), registeredAgent.getAgentType().name());
         
         // Agent starts in STARTING status, will become ACTIVE when it sends first heartbeat
         log.info("Agent {} registered successfully and ready for task assignment", 
@@ -263,9 +266,12 @@ public class AgentOrchestrationService {
 
     /**
      * Process agent heartbeat
+     * 
+     * Recorded in memory only; the heartbeat aggregator writes timestamps in
+     * batches, activates STARTING/UNRESPONSIVE agents and hands them to the dispatcher.
      */
     public void processAgentHeartbeat(Long agentId) {
-        agentService.processHeartbeat(agentId);
+        heartbeatAggregator.recordHeartbeat(agentId);
     }
 
     /**
@@ -274,6 +280,9 @@ public class AgentOrchestrationService {
     public void deregisterAgent(Long agentId) {
         log.info("Deregistering agent from orchestration system: {}", agentId);
         
+        taskDispatcher.removeAgent(agentId);
+        heartbeatAggregator.forget(agentId);
+        
         // First, handle any tasks assigned to this agent
         List<Task> assignedTasks = taskService.findByAgentId(agentId);
         for (Task task : assignedTasks) {
@@ -282,10 +291,13 @@ public class AgentOrchestrationService {
                 // Reset task for reassignment
                 taskService.updateTaskStatus(task.getTaskId(), TaskStatus.PENDING);
                 task.setAgentId(null);
+                dispatchAfterCommit(task);
             }
         }
         
+        String agentName = agentService.findById(agentId).map(Agent::getAgentName).orElse(null);
         agentService.deregisterAgent(agentId);
+        eventPublishingService.publishAgentDeregistered(agentId, agentName);
         
         log.info("Agent {} deregistered successfully", agentId);
     }
@@ -39,18 +39,17 @@ public class AgentRegistryService {
     private final ObjectMapper objectMapper;
     private final AgentOSMetrics metrics;
     private final StructuredLoggingService structuredLogger;
+    private final HeartbeatAggregator heartbeatAggregator;
     
     // ✅ REDIS KEYS: Agent registry structure
     private static final String AGENT_REGISTRY_PREFIX = "agentos:agent:registry:";
     private static final String AGENT_BY_TYPE_PREFIX = "agentos:agent:type:";
     private static final String AGENT_BY_STATUS_PREFIX = "agentos:agent:status:";
-    private static final String AGENT_HEARTBEAT_PREFIX = "agentos:agent:heartbeat:";
     private static final String AGENT_CAPABILITIES_PREFIX = "agentos:agent:capabilities:";
     private static final String AGENT_LOAD_PREFIX = "agentos:agent:load:";
     
     // ✅ CACHE TTL
     private static final Duration AGENT_CACHE_TTL = Duration.ofMinutes(30);
-    private static final Duration HEARTBEAT_TTL = Duration.ofMinutes(2);
     
     /**
      * ✅ REGISTER: Add agent to registry with caching
@@ -151,8 +150,8 @@ public class AgentRegistryService {
                 String loadKey = AGENT_LOAD_PREFIX + agentId;
                 redisTemplate.delete(loadKey);
                 
-                String heartbeatKey = AGENT_HEARTBEAT_PREFIX + agentId;
-                redisTemplate.delete(heartbeatKey);
+                redisTemplate.opsForHash().delete(HeartbeatAggregator.HEARTBEATS_KEY, agentId.toString());
+                heartbeatAggregator.forget(agentId);
                 
                 timer.stop(metrics.getApiResponseTime());
                 metrics.recordAgentDestroyed(agent.getAgentType().toString());
@@ -304,39 +303,20 @@ public class AgentRegistryService {
     
     /**
      * ✅ HEARTBEAT: Update agent heartbeat
+     * 
+     * Recorded in the heartbeat aggregator and written with the next batched flush.
      */
     public void updateHeartbeat(Long agentId) {
-        try {
-            String heartbeatKey = AGENT_HEARTBEAT_PREFIX + agentId;
-            redisTemplate.opsForValue().set(heartbeatKey, Instant.now().toString(), HEARTBEAT_TTL);
-            
-            structuredLogger.logBusinessTransaction(
-                "agent_heartbeat",
-                agentId.toString(),
-                "heartbeat",
-                "agent",
-                Map.of("timestamp", Instant.now())
-            );
-            
-        } catch (Exception e) {
-            structuredLogger.logError("agent_registry_heartbeat", e.getMessage(), e,
-                Map.of("agentId", agentId));
-        }
+        heartbeatAggregator.recordHeartbeat(agentId);
     }
     
     /**
      * ✅ LOAD UPDATE: Update agent load
+     * 
+     * Coalesced in the heartbeat aggregator; only the latest load per flush is written.
      */
     public void updateAgentLoad(Long agentId, int currentLoad) {
-        try {
-            String loadKey = AGENT_LOAD_PREFIX + agentId;
-            redisTemplate.opsForHash().put(loadKey, "current", String.valueOf(currentLoad));
-            redisTemplate.expire(loadKey, AGENT_CACHE_TTL);
-            
-        } catch (Exception e) {
-            structuredLogger.logError("agent_registry_update_load", e.getMessage(), e,
-                Map.of("agentId", agentId, "currentLoad", currentLoad));
-        }
+        heartbeatAggregator.recordLoad(agentId, currentLoad);
     }
     
     /**
@@ -426,8 +406,7 @@ public class AgentRegistryService {
     }
     
     private boolean isAgentHealthy(Long agentId) {
-        String heartbeatKey = AGENT_HEARTBEAT_PREFIX + agentId;
-        return Boolean.TRUE.equals(redisTemplate.hasKey(heartbeatKey));
+        return heartbeatAggregator.isAlive(agentId);
     }
     
     private boolean hasCapacity(Long agentId) {
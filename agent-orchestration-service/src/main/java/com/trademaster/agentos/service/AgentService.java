@@ -16,6 +16,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -173,6 +174,7 @@ public class AgentService {
     /**
      * Find optimal agent for task assignment
      */
+    @Transactional(readOnly = true)
     public Optional<Agent> findOptimalAgentForTask(AgentType agentType, List<AgentCapability> requiredCapabilities) {
         log.debug("Finding optimal agent for type: {} with capabilities: {}", agentType, requiredCapabilities);
         
@@ -253,6 +255,48 @@ public class AgentService {
         }
     }
 
+    /**
+     * Apply batched load changes recorded by the task dispatcher
+     * One update per agent instead of one per assigned task
+     */
+    public void adjustAgentLoads(Map<Long, Integer> loadDeltas) {
+        loadDeltas.forEach((agentId, delta) -> {
+            if (delta != 0) {
+                agentRepository.adjustAgentLoad(agentId, delta);
+            }
+        });
+        log.debug("Applied load changes for {} agents", loadDeltas.size());
+    }
+
+    /**
+     * Apply a batch of coalesced heartbeats from the heartbeat aggregator
+     * One timestamp update for the batch; STARTING and UNRESPONSIVE agents become
+     * ACTIVE and are returned so the caller can make them dispatchable
+     */
+    public List<Agent> recordHeartbeats(Collection<Long> agentIds, Instant heartbeatTime) {
+        agentRepository.updateHeartbeats(agentIds, heartbeatTime);
+        
+        List<Agent> reactivated = agentRepository.findByAgentIdInAndStatusIn(
+            agentIds, List.of(AgentStatus.STARTING, AgentStatus.UNRESPONSIVE));
+        reactivated.forEach(agent -> {
+            agent.setStatus(AgentStatus.ACTIVE);
+            agent.setLastHeartbeat(heartbeatTime);
+        });
+        agentRepository.saveAll(reactivated);
+        
+        log.debug("Recorded heartbeats for {} agents, {} reactivated", agentIds.size(), reactivated.size());
+        return reactivated;
+    }
+
+    /**
+     * Mark agents whose heartbeat expired as UNRESPONSIVE in one statement
+     */
+    public int markUnresponsive(Collection<Long> agentIds) {
+        int updated = agentRepository.markUnresponsive(agentIds);
+        log.warn("Marked {} agents UNRESPONSIVE after missed heartbeats", updated);
+        return updated;
+    }
+
     /**
      * Update agent performance metrics
      */
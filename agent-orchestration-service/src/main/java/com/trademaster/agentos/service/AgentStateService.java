@@ -8,8 +8,10 @@ import org.springframework.stereotype.Service;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Agent State Service
@@ -24,11 +26,11 @@ public class AgentStateService {
 
     private final RedisTemplate<String, Object> redisTemplate;
     private final RedisTemplate<String, String> stringRedisTemplate;
+    private final HeartbeatAggregator heartbeatAggregator;
 
     // Redis Key Patterns
     private static final String AGENT_STATE_KEY = "agentos:agent:state:";
     private static final String AGENT_SESSION_KEY = "agentos:agent:session:";
-    private static final String AGENT_HEARTBEAT_KEY = "agentos:agent:heartbeat:";
     private static final String AGENT_METRICS_KEY = "agentos:agent:metrics:";
     private static final String AGENT_LOCK_KEY = "agentos:agent:lock:";
     private static final String SYSTEM_STATS_KEY = "agentos:system:stats";
@@ -143,29 +145,25 @@ public class AgentStateService {
     // Agent Heartbeat Management
 
     /**
-     * Record agent heartbeat
+     * Record agent heartbeat (coalesced by the heartbeat aggregator)
      */
     public void recordHeartbeat(Long agentId) {
-        String key = AGENT_HEARTBEAT_KEY + agentId;
-        
-        try {
-            stringRedisTemplate.opsForValue().set(key, Instant.now().toString(), Duration.ofMinutes(5));
-            log.debug("Recorded heartbeat for agent: {}", agentId);
-        } catch (Exception e) {
-            log.error("Error recording heartbeat for agent: {}", agentId, e);
-        }
+        heartbeatAggregator.recordHeartbeat(agentId);
     }
 
     /**
-     * Get last heartbeat time
+     * Get last heartbeat time, local view first, then the shared heartbeat hash
      */
     public Instant getLastHeartbeat(Long agentId) {
-        String key = AGENT_HEARTBEAT_KEY + agentId;
+        Optional<Instant> local = heartbeatAggregator.getLastHeartbeat(agentId);
+        if (local.isPresent()) {
+            return local.get();
+        }
         
         try {
-            String heartbeatStr = stringRedisTemplate.opsForValue().get(key);
-            if (heartbeatStr != null) {
-                return Instant.parse(heartbeatStr);
+            Object heartbeatMillis = stringRedisTemplate.opsForHash().get(HeartbeatAggregator.HEARTBEATS_KEY, agentId.toString());
+            if (heartbeatMillis != null) {
+                return Instant.ofEpochMilli(Long.parseLong(heartbeatMillis.toString()));
             }
         } catch (Exception e) {
             log.error("Error getting last heartbeat for agent: {}", agentId, e);
@@ -175,16 +173,10 @@ public class AgentStateService {
     }
 
     /**
-     * Check if agent heartbeat is alive (within last 2 minutes)
+     * Check if agent heartbeat is alive (within the heartbeat timeout)
      */
     public boolean isHeartbeatAlive(Long agentId) {
-        Instant lastHeartbeat = getLastHeartbeat(agentId);
-        if (lastHeartbeat == null) {
-            return false;
-        }
-        
-        Duration timeSinceHeartbeat = Duration.between(lastHeartbeat, Instant.now());
-        return timeSinceHeartbeat.toMinutes() < 2;
+        return heartbeatAggregator.isAlive(agentId);
     }
 
     // Agent Performance Metrics Caching
@@ -193,10 +185,8 @@ public class AgentStateService {
      * Cache agent performance metrics
      */
     public void cacheAgentMetrics(Long agentId, AgentPerformanceMetrics metrics) {
-        String key = AGENT_METRICS_KEY + agentId;
-        
         try {
-            redisTemplate.opsForValue().set(key, metrics, Duration.ofMinutes(15));
+            heartbeatAggregator.recordMetrics(agentId, metrics);
             log.debug("Cached metrics for agent: {}", agentId);
         } catch (Exception e) {
             log.error("Error caching agent metrics for agent: {}", agentId, e);
@@ -293,15 +283,12 @@ public class AgentStateService {
     // Utility Methods
 
     /**
-     * Get all active agent IDs (based on heartbeats)
+     * Get all active agent IDs (based on heartbeats seen by this instance)
      */
     public Set<String> getActiveAgentIds() {
-        try {
-            return stringRedisTemplate.keys(AGENT_HEARTBEAT_KEY + "*");
-        } catch (Exception e) {
-            log.error("Error getting active agent IDs", e);
-            return Set.of();
-        }
+        return heartbeatAggregator.getLiveAgentIds().stream()
+            .map(String::valueOf)
+            .collect(Collectors.toSet());
     }
 
     /**
@@ -312,11 +299,11 @@ public class AgentStateService {
             removeAgentState(agentId);
             removeAgentSession(agentId);
             
-            String heartbeatKey = AGENT_HEARTBEAT_KEY + agentId;
             String metricsKey = AGENT_METRICS_KEY + agentId;
             
-            redisTemplate.delete(heartbeatKey);
+            stringRedisTemplate.opsForHash().delete(HeartbeatAggregator.HEARTBEATS_KEY, agentId.toString());
             redisTemplate.delete(metricsKey);
+            heartbeatAggregator.forget(agentId);
             
             log.info("Cleared all Redis data for agent: {}", agentId);
         } catch (Exception e) {
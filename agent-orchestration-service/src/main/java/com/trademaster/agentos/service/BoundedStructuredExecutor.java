@@ -0,0 +1,245 @@
+package com.trademaster.agentos.service;
+
+import com.trademaster.agentos.config.AgentOSMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * ✅ BOUNDED STRUCTURED CONCURRENCY: Batch execution with limits and deadlines
+ *
+ * Runs one subtask per item inside a StructuredTaskScope, with at most
+ * {@code maxConcurrency} virtual threads alive per scope. A permit is taken
+ * before each fork and released when the subtask finishes, so a 10k item
+ * batch never opens more than the configured number of downstream calls.
+ *
+ * ✅ DEADLINE PROPAGATION: The scope deadline is bound in a ScopedValue that
+ * forked subtasks inherit. A batch started inside a subtask runs until the
+ * earlier of its own deadline and the enclosing one, and downstream calls can
+ * size their timeouts with {@link #remainingTime()}.
+ *
+ * ✅ STREAMING RESULTS: Each finished subtask is handed to the caller's
+ * consumer on the calling thread, in completion order, while later items are
+ * still running.
+ *
+ * ✅ FAILURE POLICY: FAIL_FAST shuts the scope down on the first failure and
+ * cancels the rest; TOLERATE_PARTIAL reports failures and keeps going. When the
+ * deadline passes the scope is shut down and unfinished items are counted as
+ * not completed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BoundedStructuredExecutor {
+
+    private static final ScopedValue<Instant> DEADLINE = ScopedValue.newInstance();
+
+    private final AgentOSMetrics metrics;
+
+    /**
+     * Deadline inherited from the enclosing bounded scope, if any
+     */
+    public static Optional<Instant> currentDeadline() {
+        return DEADLINE.isBound() ? Optional.of(DEADLINE.get()) : Optional.empty();
+    }
+
+    /**
+     * Time left before the enclosing scope's deadline, if any
+     */
+    public static Optional<Duration> remainingTime() {
+        return currentDeadline().map(deadline -> {
+            Duration remaining = Duration.between(Instant.now(), deadline);
+            return remaining.isNegative() ? Duration.ZERO : remaining;
+        });
+    }
+
+    /**
+     * Run {@code work} over every item and stream each outcome to {@code onResult}
+     * Blocks until every item has finished, the policy stops the batch, or the
+     * deadline passes
+     */
+    public <I, O> BatchOutcome execute(
+        List<I> items,
+        Function<I, O> work,
+        BatchOptions options,
+        Consumer<SubtaskResult<I, O>> onResult
+    ) throws InterruptedException {
+        Instant requested = Instant.now().plus(options.timeout());
+        Instant deadline = currentDeadline()
+            .filter(inherited -> inherited.isBefore(requested))
+            .orElse(requested);
+
+        try {
+            return ScopedValue.where(DEADLINE, deadline)
+                .call(() -> runScope(items, work, options, deadline, onResult));
+        } catch (InterruptedException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Bounded scope failed", e);
+        }
+    }
+
+    private <I, O> BatchOutcome runScope(
+        List<I> items,
+        Function<I, O> work,
+        BatchOptions options,
+        Instant deadline,
+        Consumer<SubtaskResult<I, O>> onResult
+    ) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + Math.max(0, Duration.between(Instant.now(), deadline).toNanos());
+        Semaphore permits = new Semaphore(options.maxConcurrency());
+        Map<StructuredTaskScope.Subtask<? extends O>, Integer> indexes = new HashMap<>();
+
+        int submitted = 0;
+        int succeeded = 0;
+        int failed = 0;
+        boolean deadlineExceeded = false;
+        Throwable firstFailure = null;
+
+        try (var scope = new CompletionQueueScope<O>()) {
+            while (succeeded + failed < items.size()) {
+                // Fork while permits are free; otherwise wait for a completion, which frees one
+                if (submitted < items.size() && permits.tryAcquire()) {
+                    I item = items.get(submitted);
+                    metrics.recordStructuredQueueWait(System.nanoTime() - startNanos);
+                    metrics.incrementStructuredInFlight();
+                    indexes.put(scope.fork(() -> {
+                        try {
+                            return work.apply(item);
+                        } finally {
+                            metrics.decrementStructuredInFlight();
+                            permits.release();
+                        }
+                    }), submitted);
+                    submitted++;
+                    continue;
+                }
+
+                long remaining = deadlineNanos - System.nanoTime();
+                Completion<O> done = remaining > 0 ? scope.completed.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (done == null) {
+                    deadlineExceeded = true;
+                    break;
+                }
+
+                int index = indexes.remove(done.subtask());
+                I item = items.get(index);
+                if (done.error() == null) {
+                    succeeded++;
+                    onResult.accept(new SubtaskResult<>(index, item, done.value(), null));
+                } else {
+                    failed++;
+                    firstFailure = firstFailure == null ? done.error() : firstFailure;
+                    onResult.accept(new SubtaskResult<>(index, item, null, done.error()));
+                    if (options.policy() == FailurePolicy.FAIL_FAST) {
+                        break;
+                    }
+                }
+            }
+
+            // Cancels anything still running or not yet forked
+            scope.shutdown();
+            scope.join();
+        }
+
+        BatchOutcome outcome = new BatchOutcome(
+            items.size(),
+            succeeded,
+            failed,
+            items.size() - succeeded - failed,
+            deadlineExceeded,
+            Optional.ofNullable(firstFailure));
+        if (!outcome.isComplete()) {
+            log.debug("Bounded scope stopped early: {}", outcome);
+        }
+        return outcome;
+    }
+
+    /**
+     * Scope that queues each finished subtask for the owner thread
+     * The outcome is read here, on the subtask's thread, because the owner may
+     * only call Subtask.get() after join()
+     */
+    private static final class CompletionQueueScope<T> extends StructuredTaskScope<T> {
+        private final LinkedBlockingQueue<Completion<T>> completed = new LinkedBlockingQueue<>();
+
+        @Override
+        protected void handleComplete(Subtask<? extends T> subtask) {
+            switch (subtask.state()) {
+                case SUCCESS -> completed.add(new Completion<>(subtask, subtask.get(), null));
+                case FAILED -> completed.add(new Completion<>(subtask, null, subtask.exception()));
+                default -> { }
+            }
+        }
+    }
+
+    private record Completion<T>(StructuredTaskScope.Subtask<? extends T> subtask, T value, Throwable error) {
+    }
+
+    // ========== Options & Results ==========
+
+    public enum FailurePolicy {
+        /** First failure shuts the scope down and cancels remaining subtasks */
+        FAIL_FAST,
+        /** Failures are reported and the remaining subtasks keep running */
+        TOLERATE_PARTIAL
+    }
+
+    public record BatchOptions(int maxConcurrency, Duration timeout, FailurePolicy policy) {
+
+        public BatchOptions {
+            if (maxConcurrency < 1) {
+                throw new IllegalArgumentException("maxConcurrency must be at least 1");
+            }
+            if (timeout == null || timeout.isNegative()) {
+                throw new IllegalArgumentException("timeout must be non-negative");
+            }
+        }
+
+        public static BatchOptions failFast(int maxConcurrency, Duration timeout) {
+            return new BatchOptions(maxConcurrency, timeout, FailurePolicy.FAIL_FAST);
+        }
+
+        public static BatchOptions tolerant(int maxConcurrency, Duration timeout) {
+            return new BatchOptions(maxConcurrency, timeout, FailurePolicy.TOLERATE_PARTIAL);
+        }
+    }
+
+    /**
+     * Outcome of one item; exactly one of value and error is meaningful
+     */
+    public record SubtaskResult<I, O>(int index, I item, O value, Throwable error) {
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    public record BatchOutcome(
+        int total,
+        int succeeded,
+        int failed,
+        int notCompleted,
+        boolean deadlineExceeded,
+        Optional<Throwable> firstFailure
+    ) {
+
+        public boolean isComplete() {
+            return notCompleted == 0;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.trademaster.agentos.service;
+
+import com.trademaster.agentos.config.AgentOSMetrics;
+import com.trademaster.agentos.events.BaseEvent;
+import com.trademaster.agentos.repository.ProcessedEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * ✅ CONSUMER DEDUPLICATION: Exactly-once effect for at-least-once event delivery
+ *
+ * The outbox relay may send an event more than once. A listener passes each
+ * event through {@link #handleOnce}, which records the event id for the
+ * consumer group and runs the handler in the same transaction. A redelivered
+ * event finds its marker and is skipped; if the handler fails, the marker is
+ * rolled back with it and the event is handled again on redelivery.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class EventDeduplicator {
+
+    private final ProcessedEventRepository processedEventRepository;
+    private final AgentOSMetrics metrics;
+
+    @Value("${agentos.outbox.processed-retention-days:7}")
+    private int retentionDays = 7;
+
+    /**
+     * Run the handler unless this consumer group has already processed the event
+     *
+     * @return true if the handler ran, false for a duplicate
+     */
+    public <E extends BaseEvent> boolean handleOnce(String consumerGroup, E event, Consumer<E> handler) {
+        if (processedEventRepository.markProcessed(consumerGroup, event.getEventId(), Instant.now()) == 0) {
+            metrics.recordDuplicateEventSkipped();
+            log.debug("Skipping duplicate event {} for {}", event.getEventId(), consumerGroup);
+            return false;
+        }
+        handler.accept(event);
+        return true;
+    }
+
+    /**
+     * Purge markers older than the retention window, well past any redelivery
+     */
+    @Scheduled(fixedRate = 3600000) // 1 hour
+    public void purgeProcessedEvents() {
+        int purged = processedEventRepository.deleteProcessedBefore(
+            Instant.now().minus(Duration.ofDays(retentionDays)));
+        if (purged > 0) {
+            log.info("Purged {} processed event markers", purged);
+        }
+    }
+}
@@ -1,29 +1,37 @@
 package com.trademaster.agentos.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.trademaster.agentos.config.KafkaConfig;
+import com.trademaster.agentos.domain.entity.OutboxEvent;
 import com.trademaster.agentos.events.AgentEvent;
 import com.trademaster.agentos.events.TaskEvent;
 import com.trademaster.agentos.events.BaseEvent;
+import com.trademaster.agentos.repository.OutboxEventRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.concurrent.CompletableFuture;
+import java.time.Instant;
 
 /**
  * Event Publishing Service
  * 
  * Service for publishing events to Kafka topics for inter-service communication.
- * Handles all event publishing with error handling and logging.
+ * Events are written to the transactional outbox inside the caller's transaction,
+ * so they are published only if the state change they describe commits. The
+ * {@link OutboxRelay} drains the outbox to Kafka in batches, keyed by agent or
+ * task id so each entity's events stay in order.
  */
 @Service
 @RequiredArgsConstructor
+@Transactional
 @Slf4j
 public class EventPublishingService {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
 
     /**
      * Publish agent event
@@ -34,23 +42,7 @@ public class EventPublishingService {
             return;
         }
 
-        try {
-            CompletableFuture<SendResult<String, Object>> future = 
-                kafkaTemplate.send(KafkaConfig.AGENT_EVENTS_TOPIC, event.getAgentId().toString(), event);
-            
-            future.whenComplete((result, ex) -> {
-                if (ex == null) {
-                    log.debug("Agent event published successfully: {} for agent: {}", 
-                             event.getEventType(), event.getAgentId());
-                } else {
-                    log.error("Failed to publish agent event: {} for agent: {}", 
-                             event.getEventType(), event.getAgentId(), ex);
-                }
-            });
-            
-        } catch (Exception e) {
-            log.error("Error publishing agent event: {}", event.getEventType(), e);
-        }
+        enqueue(KafkaConfig.AGENT_EVENTS_TOPIC, event.getAgentId().toString(), event);
     }
 
     /**
@@ -62,23 +54,7 @@ public class EventPublishingService {
             return;
         }
 
-        try {
-            CompletableFuture<SendResult<String, Object>> future = 
-                kafkaTemplate.send(KafkaConfig.TASK_EVENTS_TOPIC, event.getTaskId().toString(), event);
-            
-            future.whenComplete((result, ex) -> {
-                if (ex == null) {
-                    log.debug("Task event published successfully: {} for task: {}", 
-                             event.getEventType(), event.getTaskId());
-                } else {
-                    log.error("Failed to publish task event: {} for task: {}", 
-                             event.getEventType(), event.getTaskId(), ex);
-                }
-            });
-            
-        } catch (Exception e) {
-            log.error("Error publishing task event: {}", event.getEventType(), e);
-        }
+        enqueue(KafkaConfig.TASK_EVENTS_TOPIC, event.getTaskId().toString(), event);
     }
 
     /**
@@ -90,21 +66,7 @@ public class EventPublishingService {
             return;
         }
 
-        try {
-            CompletableFuture<SendResult<String, Object>> future = 
-                kafkaTemplate.send(KafkaConfig.SYSTEM_EVENTS_TOPIC, event.getEventId(), event);
-            
-            future.whenComplete((result, ex) -> {
-                if (ex == null) {
-                    log.debug("System event published successfully: {}", event.getEventType());
-                } else {
-                    log.error("Failed to publish system event: {}", event.getEventType(), ex);
-                }
-            });
-            
-        } catch (Exception e) {
-            log.error("Error publishing system event: {}", event.getEventType(), e);
-        }
+        enqueue(KafkaConfig.SYSTEM_EVENTS_TOPIC, event.getEventId(), event);
     }
 
     /**
@@ -116,21 +78,33 @@ public class EventPublishingService {
             return;
         }
 
+        enqueue(KafkaConfig.NOTIFICATION_EVENTS_TOPIC, event.getEventId(), event);
+    }
+
+    /**
+     * Write an event to the outbox. A database failure propagates and rolls back
+     * the caller's transaction; an event that cannot be serialized is logged and
+     * dropped, as a failed send was before.
+     */
+    private void enqueue(String topic, String key, BaseEvent event) {
+        String payload;
         try {
-            CompletableFuture<SendResult<String, Object>> future = 
-                kafkaTemplate.send(KafkaConfig.NOTIFICATION_EVENTS_TOPIC, event.getEventId(), event);
-            
-            future.whenComplete((result, ex) -> {
-                if (ex == null) {
-                    log.debug("Notification event published successfully: {}", event.getEventType());
-                } else {
-                    log.error("Failed to publish notification event: {}", event.getEventType(), ex);
-                }
-            });
-            
-        } catch (Exception e) {
-            log.error("Error publishing notification event: {}", event.getEventType(), e);
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.error("Error serializing event: {}", event.getEventType(), e);
+            return;
         }
+
+        outboxEventRepository.save(OutboxEvent.builder()
+            .eventId(event.getEventId())
+            .topic(topic)
+            .messageKey(key)
+            .eventType(event.getEventType())
+            .payloadType(event.getClass().getName())
+            .payload(payload)
+            .createdAt(Instant.now())
+            .build());
+        log.debug("Event queued in outbox: {} on {} with key {}", event.getEventType(), topic, key);
     }
 
     // Helper Methods for Common Event Publishing
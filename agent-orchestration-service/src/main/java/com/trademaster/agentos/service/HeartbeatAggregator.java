@@ -0,0 +1,559 @@
+package com.trademaster.agentos.service;
+
+import com.trademaster.agentos.config.AgentOSMetrics;
+import com.trademaster.agentos.domain.entity.Agent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * ✅ HEARTBEAT AGGREGATION: Coalesced agent heartbeat, load and metrics writes
+ *
+ * Agent events land in an in-memory table split into lock stripes, so
+ * concurrent heartbeats from different agents rarely contend. Only the latest
+ * value per agent is kept between flushes. Every flush interval the dirty
+ * entries are written in one Redis pipeline (all heartbeats as a single HSET
+ * on {@link #HEARTBEATS_KEY}, one HSET per changed load, one SET per changed
+ * metrics snapshot) and in one batched database update per chunk of agents.
+ * An agent beating every 5 s against a 1 s flush still costs one write per
+ * flush it appears in, and a thousand agents cost one Redis round trip.
+ *
+ * ✅ TIMER WHEEL LIVENESS: Instead of one TTL key per agent, each agent sits in
+ * one slot of a hashed timer wheel at its expiry tick. Heartbeats only move
+ * the agent's last-seen time; when the slot comes round the agent is either
+ * rescheduled from its latest heartbeat or declared expired. Before an agent is
+ * marked UNRESPONSIVE the shared heartbeat hash is checked, so a heartbeat
+ * received by another instance keeps it alive.
+ *
+ * ✅ LEASE RENEWAL: Each flush also extends the task queue leases held by the
+ * agents that beat, so a task outlives its timeout only while its agent is
+ * alive; a silent agent's leases expire and are redelivered.
+ *
+ * The write reduction factor (events taken in per write issued) is published
+ * as agentos.heartbeat.write_reduction.
+ */
+@Component
+@Slf4j
+public class HeartbeatAggregator {
+
+    public static final String HEARTBEATS_KEY = "agentos:agent:heartbeats";
+    private static final String AGENT_LOAD_PREFIX = "agentos:agent:load:";
+    private static final String AGENT_METRICS_PREFIX = "agentos:agent:metrics:";
+    private static final Duration LOAD_TTL = Duration.ofMinutes(30);
+    private static final Duration METRICS_TTL = Duration.ofMinutes(15);
+
+    private final RedisTemplate<String, String> stringRedisTemplate;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final AgentService agentService;
+    private final TaskDispatcher taskDispatcher;
+    private final TaskQueueService taskQueueService;
+    private final AgentOSMetrics metrics;
+    private final LongSupplier clock;
+
+    private final Stripe[] stripes;
+    private final TimerWheel wheel;
+    private final long timeoutMillis;
+
+    @Value("${agentos.heartbeat.flush-batch-size:1000}")
+    private int flushBatchSize = 1000;
+
+    @Autowired
+    public HeartbeatAggregator(
+        RedisTemplate<String, String> stringRedisTemplate,
+        RedisTemplate<String, Object> redisTemplate,
+        AgentService agentService,
+        TaskDispatcher taskDispatcher,
+        TaskQueueService taskQueueService,
+        AgentOSMetrics metrics,
+        @Value("${agentos.heartbeat.stripes:64}") int stripeCount,
+        @Value("${agentos.heartbeat.timeout-ms:120000}") long timeoutMillis,
+        @Value("${agentos.heartbeat.wheel-tick-ms:1000}") long tickMillis
+    ) {
+        this(stringRedisTemplate, redisTemplate, agentService, taskDispatcher, taskQueueService, metrics,
+            stripeCount, timeoutMillis, tickMillis, System::currentTimeMillis);
+    }
+
+    HeartbeatAggregator(
+        RedisTemplate<String, String> stringRedisTemplate,
+        RedisTemplate<String, Object> redisTemplate,
+        AgentService agentService,
+        TaskDispatcher taskDispatcher,
+        TaskQueueService taskQueueService,
+        AgentOSMetrics metrics,
+        int stripeCount,
+        long timeoutMillis,
+        long tickMillis,
+        LongSupplier clock
+    ) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisTemplate = redisTemplate;
+        this.agentService = agentService;
+        this.taskDispatcher = taskDispatcher;
+        this.taskQueueService = taskQueueService;
+        this.metrics = metrics;
+        this.clock = clock;
+        this.timeoutMillis = timeoutMillis;
+        this.stripes = new Stripe[Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.wheel = new TimerWheel(tickMillis, (int) (timeoutMillis / tickMillis) + 2, clock.getAsLong());
+    }
+
+    // ========== Ingestion ==========
+
+    /**
+     * Record a heartbeat; no I/O on this path
+     */
+    public void recordHeartbeat(Long agentId) {
+        long now = clock.getAsLong();
+        update(agentId, now, pending -> pending.heartbeat = true);
+    }
+
+    /**
+     * Record the agent's current load; later values in the same flush replace earlier ones
+     */
+    public void recordLoad(Long agentId, int currentLoad) {
+        update(agentId, -1, pending -> pending.load = currentLoad);
+    }
+
+    /**
+     * Record a metrics snapshot; later values in the same flush replace earlier ones
+     */
+    public void recordMetrics(Long agentId, AgentStateService.AgentPerformanceMetrics performanceMetrics) {
+        update(agentId, -1, pending -> pending.metrics = performanceMetrics);
+    }
+
+    /**
+     * Drop an agent from the table and the wheel after deregistration
+     */
+    public void forget(Long agentId) {
+        Stripe stripe = stripeFor(agentId);
+        stripe.lock.lock();
+        try {
+            stripe.lastSeen.remove(agentId);
+            stripe.dirty.remove(agentId);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // ========== Liveness ==========
+
+    /**
+     * Alive when this instance or any other saw a heartbeat inside the timeout
+     * Only agents not live locally cost a Redis read
+     */
+    public boolean isAlive(Long agentId) {
+        long now = clock.getAsLong();
+        if (lastHeartbeatMillis(agentId).filter(lastSeen -> now - lastSeen < timeoutMillis).isPresent()) {
+            return true;
+        }
+        try {
+            Object shared = stringRedisTemplate.opsForHash().get(HEARTBEATS_KEY, agentId.toString());
+            return shared != null && now - Long.parseLong(shared.toString()) < timeoutMillis;
+        } catch (DataAccessException e) {
+            log.warn("Could not read shared heartbeat for agent {}", agentId, e);
+            return false;
+        }
+    }
+
+    public Optional<Instant> getLastHeartbeat(Long agentId) {
+        return lastHeartbeatMillis(agentId).map(Instant::ofEpochMilli);
+    }
+
+    /**
+     * Agents with a heartbeat inside the timeout, as seen by this instance
+     */
+    public Set<Long> getLiveAgentIds() {
+        long now = clock.getAsLong();
+        Set<Long> live = new HashSet<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.lastSeen.forEach((agentId, liveness) -> {
+                    if (now - liveness.lastSeen < timeoutMillis) {
+                        live.add(agentId);
+                    }
+                });
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return live;
+    }
+
+    // ========== Flush ==========
+
+    /**
+     * Write everything recorded since the last flush and expire silent agents
+     */
+    @Scheduled(fixedDelayString = "${agentos.heartbeat.flush-interval-ms:1000}")
+    public FlushResult flush() {
+        long now = clock.getAsLong();
+        Map<Long, Pending> batch = drain();
+        int writes = 0;
+
+        if (!batch.isEmpty()) {
+            try {
+                writes += writeRedis(batch);
+            } catch (DataAccessException e) {
+                log.error("Heartbeat pipeline to Redis failed for {} agents", batch.size(), e);
+            }
+            writes += writeDatabase(batch, Instant.ofEpochMilli(now));
+            writes += extendLeases(batch);
+        }
+
+        List<Long> expired = expireDue(now);
+        if (!expired.isEmpty()) {
+            agentService.markUnresponsive(expired);
+            expired.forEach(taskDispatcher::removeAgent);
+            writes++;
+        }
+
+        metrics.recordHeartbeatWrites(writes);
+        return new FlushResult(batch.size(), writes, expired.size());
+    }
+
+    private Map<Long, Pending> drain() {
+        Map<Long, Pending> batch = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            Map<Long, Pending> dirty;
+            stripe.lock.lock();
+            try {
+                if (stripe.dirty.isEmpty()) {
+                    continue;
+                }
+                dirty = stripe.dirty;
+                stripe.dirty = new HashMap<>();
+            } finally {
+                stripe.lock.unlock();
+            }
+            batch.putAll(dirty);
+        }
+        return batch;
+    }
+
+    /**
+     * One pipeline per template; returns the number of commands issued
+     */
+    private int writeRedis(Map<Long, Pending> batch) {
+        Map<String, String> heartbeats = new HashMap<>();
+        Map<Long, Integer> loads = new HashMap<>();
+        Map<Long, AgentStateService.AgentPerformanceMetrics> snapshots = new HashMap<>();
+        batch.forEach((agentId, pending) -> {
+            if (pending.heartbeat) {
+                heartbeats.put(agentId.toString(), Long.toString(pending.heartbeatMillis));
+            }
+            if (pending.load != null) {
+                loads.put(agentId, pending.load);
+            }
+            if (pending.metrics != null) {
+                snapshots.put(agentId, pending.metrics);
+            }
+        });
+
+        int commands = 0;
+        if (!heartbeats.isEmpty() || !loads.isEmpty()) {
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    if (!heartbeats.isEmpty()) {
+                        ops.opsForHash().putAll(HEARTBEATS_KEY, heartbeats);
+                    }
+                    loads.forEach((agentId, load) -> {
+                        ops.opsForHash().put(AGENT_LOAD_PREFIX + agentId, "current", String.valueOf(load));
+                        ops.expire(AGENT_LOAD_PREFIX + agentId, LOAD_TTL);
+                    });
+                    return null;
+                }
+            });
+            commands += (heartbeats.isEmpty() ? 0 : 1) + loads.size() * 2;
+        }
+        if (!snapshots.isEmpty()) {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    snapshots.forEach((agentId, snapshot) ->
+                        ops.opsForValue().set(AGENT_METRICS_PREFIX + agentId, snapshot, METRICS_TTL));
+                    return null;
+                }
+            });
+            commands += snapshots.size();
+        }
+        return commands;
+    }
+
+    /**
+     * Heartbeat timestamps in chunks of flushBatchSize; returns the number of write statements
+     */
+    private int writeDatabase(Map<Long, Pending> batch, Instant flushTime) {
+        List<Long> beating = batch.entrySet().stream()
+            .filter(entry -> entry.getValue().heartbeat)
+            .map(Map.Entry::getKey)
+            .toList();
+
+        int statements = 0;
+        for (int from = 0; from < beating.size(); from += flushBatchSize) {
+            List<Long> chunk = beating.subList(from, Math.min(beating.size(), from + flushBatchSize));
+            try {
+                List<Agent> reactivated = agentService.recordHeartbeats(chunk, flushTime);
+                reactivated.forEach(taskDispatcher::syncAgent);
+                statements += reactivated.isEmpty() ? 1 : 2;
+            } catch (RuntimeException e) {
+                log.error("Heartbeat database update failed for {} agents", chunk.size(), e);
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Task leases of the beating agents in chunks of flushBatchSize; returns the number of scripts run
+     */
+    private int extendLeases(Map<Long, Pending> batch) {
+        List<String> beating = batch.entrySet().stream()
+            .filter(entry -> entry.getValue().heartbeat)
+            .map(entry -> entry.getKey().toString())
+            .toList();
+
+        int scripts = 0;
+        for (int from = 0; from < beating.size(); from += flushBatchSize) {
+            List<String> chunk = beating.subList(from, Math.min(beating.size(), from + flushBatchSize));
+            try {
+                taskQueueService.extendLeases(chunk);
+                scripts++;
+            } catch (DataAccessException e) {
+                log.error("Task lease renewal failed for {} agents", chunk.size(), e);
+            }
+        }
+        return scripts;
+    }
+
+    /**
+     * Advance the wheel and return agents whose heartbeat expired on every instance
+     */
+    private List<Long> expireDue(long now) {
+        List<long[]> due = wheel.advance(now);
+        if (due.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> candidates = new ArrayList<>();
+        for (long[] entry : due) {
+            Long agentId = entry[0];
+            Stripe stripe = stripeFor(agentId);
+            stripe.lock.lock();
+            try {
+                Liveness liveness = stripe.lastSeen.get(agentId);
+                if (liveness == null || liveness.scheduledTick != entry[1]) {
+                    continue;
+                }
+                if (now - liveness.lastSeen < timeoutMillis) {
+                    liveness.scheduledTick = wheel.schedule(agentId, liveness.lastSeen + timeoutMillis);
+                } else {
+                    candidates.add(agentId);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        // Another instance may have taken the agent's recent heartbeats
+        List<Object> fields = candidates.stream().map(agentId -> (Object) agentId.toString()).toList();
+        List<Object> shared = List.of();
+        try {
+            shared = stringRedisTemplate.opsForHash().multiGet(HEARTBEATS_KEY, fields);
+        } catch (DataAccessException e) {
+            log.warn("Could not read shared heartbeats, expiring on local view", e);
+        }
+
+        List<Long> expired = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            Long agentId = candidates.get(i);
+            long sharedLastSeen = i < shared.size() && shared.get(i) != null
+                ? Long.parseLong(shared.get(i).toString())
+                : Long.MIN_VALUE;
+            Stripe stripe = stripeFor(agentId);
+            stripe.lock.lock();
+            try {
+                Liveness liveness = stripe.lastSeen.get(agentId);
+                if (liveness == null) {
+                    continue;
+                }
+                long latest = Math.max(liveness.lastSeen, sharedLastSeen);
+                if (now - latest < timeoutMillis) {
+                    liveness.lastSeen = latest;
+                    liveness.scheduledTick = wheel.schedule(agentId, latest + timeoutMillis);
+                } else {
+                    stripe.lastSeen.remove(agentId);
+                    expired.add(agentId);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return expired;
+    }
+
+    // ========== Internals ==========
+
+    /**
+     * Apply one event under the agent's stripe lock; heartbeatMillis < 0 for non-heartbeat events
+     */
+    private void update(Long agentId, long heartbeatMillis, Consumer<Pending> change) {
+        metrics.recordHeartbeatEvent();
+        Stripe stripe = stripeFor(agentId);
+        stripe.lock.lock();
+        try {
+            Pending pending = stripe.dirty.computeIfAbsent(agentId, id -> new Pending());
+            change.accept(pending);
+            if (heartbeatMillis >= 0) {
+                pending.heartbeatMillis = heartbeatMillis;
+                Liveness liveness = stripe.lastSeen.get(agentId);
+                if (liveness == null) {
+                    // First heartbeat since registration or expiry puts the agent on the wheel
+                    liveness = new Liveness();
+                    liveness.scheduledTick = wheel.schedule(agentId, heartbeatMillis + timeoutMillis);
+                    stripe.lastSeen.put(agentId, liveness);
+                }
+                liveness.lastSeen = heartbeatMillis;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Optional<Long> lastHeartbeatMillis(Long agentId) {
+        Stripe stripe = stripeFor(agentId);
+        stripe.lock.lock();
+        try {
+            Liveness liveness = stripe.lastSeen.get(agentId);
+            return liveness == null ? Optional.empty() : Optional.of(liveness.lastSeen);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Stripe stripeFor(Long agentId) {
+        long hash = agentId * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (hash >>> 40) & (stripes.length - 1)];
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, Liveness> lastSeen = new HashMap<>();
+        private Map<Long, Pending> dirty = new HashMap<>();
+    }
+
+    /**
+     * Last heartbeat and the wheel tick the agent is currently filed under;
+     * wheel entries for any other tick are leftovers and are ignored
+     */
+    private static final class Liveness {
+        private long lastSeen;
+        private long scheduledTick;
+    }
+
+    /**
+     * Latest unwritten state for one agent
+     */
+    private static final class Pending {
+        private boolean heartbeat;
+        private long heartbeatMillis;
+        private Integer load;
+        private AgentStateService.AgentPerformanceMetrics metrics;
+    }
+
+    /**
+     * Hashed timer wheel; an agent is in at most one slot at a time
+     * Entries scheduled more than one rotation ahead stay until their tick comes round
+     */
+    private static final class TimerWheel {
+        private final long tickMillis;
+        private final ArrayDeque<long[]>[] slots;
+        private final ReentrantLock lock = new ReentrantLock();
+        private long currentTick;
+
+        @SuppressWarnings("unchecked")
+        TimerWheel(long tickMillis, int slotCount, long startMillis) {
+            this.tickMillis = tickMillis;
+            this.slots = new ArrayDeque[slotCount];
+            for (int i = 0; i < slotCount; i++) {
+                slots[i] = new ArrayDeque<>();
+            }
+            this.currentTick = startMillis / tickMillis;
+        }
+
+        /**
+         * File the agent under the first tick at or after the deadline; returns that tick
+         */
+        long schedule(long agentId, long deadlineMillis) {
+            lock.lock();
+            try {
+                long tick = Math.max(currentTick + 1, (deadlineMillis + tickMillis - 1) / tickMillis);
+                slots[(int) (tick % slots.length)].add(new long[] {agentId, tick});
+                return tick;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * {agentId, tick} entries whose tick passed since the last advance
+         */
+        List<long[]> advance(long nowMillis) {
+            List<long[]> due = new ArrayList<>();
+            lock.lock();
+            try {
+                long targetTick = nowMillis / tickMillis;
+                // A long pause only needs one pass over the wheel
+                long firstTick = Math.max(currentTick + 1, targetTick - slots.length + 1);
+                for (long tick = firstTick; tick <= targetTick; tick++) {
+                    ArrayDeque<long[]> slot = slots[(int) (tick % slots.length)];
+                    for (int remaining = slot.size(); remaining > 0; remaining--) {
+                        long[] entry = slot.poll();
+                        if (entry[1] <= targetTick) {
+                            due.add(entry);
+                        } else {
+                            slot.add(entry);
+                        }
+                    }
+                }
+                currentTick = Math.max(currentTick, targetTick);
+            } finally {
+                lock.unlock();
+            }
+            return due;
+        }
+    }
+
+    public record FlushResult(int agentsWritten, int writes, int agentsExpired) {
+    }
+}
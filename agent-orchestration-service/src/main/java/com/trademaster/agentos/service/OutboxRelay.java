@@ -0,0 +1,147 @@
+package com.trademaster.agentos.service;
+
+import com.trademaster.agentos.config.AgentOSMetrics;
+import com.trademaster.agentos.domain.entity.OutboxEvent;
+import com.trademaster.agentos.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * ✅ OUTBOX RELAY: Batched, compressed publishing of outbox events to Kafka
+ *
+ * Each run drains the event outbox in batches. A batch is read in insertion
+ * order, handed to the producer in one go so it lingers into large compressed
+ * record batches, flushed, and deleted only after every record has been
+ * acknowledged. Any failed or timed-out send rolls the whole batch back and it
+ * is sent again on the next run, so delivery is at-least-once; consumers
+ * apply each event once through {@link EventDeduplicator}.
+ *
+ * ✅ ORDERING: Records are keyed by agent or task id and the producer is
+ * idempotent, so events for one entity reach their partition in the order
+ * they were committed. A transaction-scoped advisory lock keeps a single
+ * instance relaying at a time.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    public static final String EVENT_ID_HEADER = "eventId";
+    static final long RELAY_LOCK_KEY = 0x6167656e746f73L;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, String> outboxKafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AgentOSMetrics metrics;
+
+    @Value("${agentos.outbox.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${agentos.outbox.max-batches-per-run:20}")
+    private int maxBatchesPerRun = 20;
+
+    @Value("${agentos.outbox.send-timeout-ms:30000}")
+    private long sendTimeoutMillis = 30_000;
+
+    public OutboxRelay(
+        OutboxEventRepository outboxEventRepository,
+        @Qualifier("outboxKafkaTemplate") KafkaTemplate<String, String> outboxKafkaTemplate,
+        PlatformTransactionManager transactionManager,
+        AgentOSMetrics metrics
+    ) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxKafkaTemplate = outboxKafkaTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Relay full batches until the outbox is drained or the per-run limit is hit
+     */
+    @Scheduled(fixedDelayString = "${agentos.outbox.relay-interval-ms:50}")
+    public int relay() {
+        int relayed = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            Integer sent;
+            try {
+                sent = transactionTemplate.execute(status -> relayBatch());
+            } catch (RuntimeException e) {
+                log.warn("Outbox relay batch failed, will retry: {}", e.getMessage());
+                break;
+            }
+            relayed += sent == null ? 0 : sent;
+            if (sent == null || sent < batchSize) {
+                break;
+            }
+        }
+        return relayed;
+    }
+
+    /**
+     * Send one batch and delete it once acknowledged; runs in the caller's transaction
+     */
+    int relayBatch() {
+        if (!outboxEventRepository.tryRelayLock(RELAY_LOCK_KEY)) {
+            return 0;
+        }
+        List<OutboxEvent> batch = outboxEventRepository.findNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<?>> acks = new ArrayList<>(batch.size());
+        List<Long> outboxIds = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            acks.add(outboxKafkaTemplate.send(toRecord(event)));
+            outboxIds.add(event.getOutboxId());
+        }
+        outboxKafkaTemplate.flush();
+        awaitAcks(acks);
+
+        outboxEventRepository.deleteByOutboxIds(outboxIds);
+        long lagMillis = Instant.now().toEpochMilli() - batch.get(0).getCreatedAt().toEpochMilli();
+        metrics.recordOutboxBatch(batch.size(), Math.max(0, lagMillis));
+        log.debug("Relayed {} outbox events", batch.size());
+        return batch.size();
+    }
+
+    private ProducerRecord<String, String> toRecord(OutboxEvent event) {
+        ProducerRecord<String, String> record =
+            new ProducerRecord<>(event.getTopic(), event.getMessageKey(), event.getPayload());
+        // Same type header JsonSerializer writes, so existing JsonDeserializer consumers keep working
+        record.headers().add(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME,
+            event.getPayloadType().getBytes(StandardCharsets.UTF_8));
+        record.headers().add(EVENT_ID_HEADER, event.getEventId().getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    private void awaitAcks(List<CompletableFuture<?>> acks) {
+        try {
+            CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new))
+                .get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for outbox acknowledgements", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Outbox batch was not acknowledged", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Outbox batch acknowledgement timed out", e);
+        }
+    }
+}
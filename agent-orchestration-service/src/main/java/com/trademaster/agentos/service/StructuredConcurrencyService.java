@@ -6,11 +6,13 @@ import com.trademaster.agentos.domain.dto.TaskDto;
 import com.trademaster.agentos.domain.types.TaskResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.StructuredTaskScope;
@@ -30,6 +32,10 @@ public class StructuredConcurrencyService {
     
     private final AgentOSMetrics metrics;
     private final StructuredLoggingService structuredLogger;
+    private final BoundedStructuredExecutor boundedExecutor;
+    
+    @Value("${agentos.concurrency.health-check-max-concurrency:64}")
+    private int healthCheckMaxConcurrency = 64;
     
     /**
      * ✅ STRUCTURED CONCURRENCY: Execute multiple operations with guaranteed cleanup
@@ -143,7 +149,8 @@ public class StructuredConcurrencyService {
     /**
      * ✅ STRUCTURED CONCURRENCY: Parallel agent health checks
      * 
-     * Coordinates multiple agent health checks with proper error handling and timeout.
+     * At most healthCheckMaxConcurrency checks run at once and the whole sweep
+     * ends at the timeout. A failed or unfinished check only drops that agent.
      */
     @Async
     public CompletableFuture<List<AgentDto>> checkAgentHealthConcurrently(
@@ -153,22 +160,19 @@ public class StructuredConcurrencyService {
         return CompletableFuture.supplyAsync(() -> {
             var timer = metrics.startApiTimer();
             
-            try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
-                
-                // ✅ CONCURRENT HEALTH CHECKS: Fork health check for each agent
-                List<StructuredTaskScope.Subtask<AgentDto>> healthCheckTasks = agentIds.stream()
-                    .map(agentId -> scope.fork(() -> performHealthCheck(agentId)))
-                    .toList();
-                
-                // ✅ COORDINATED COMPLETION: Wait for all checks or timeout
-                scope.join();
-                scope.throwIfFailed();
-                
-                // ✅ RESULT AGGREGATION: Collect all healthy agents
-                List<AgentDto> healthyAgents = healthCheckTasks.stream()
-                    .map(StructuredTaskScope.Subtask::get)
-                    .filter(agent -> agent != null && agent.isAvailable())
-                    .toList();
+            try {
+                
+                // ✅ BOUNDED HEALTH CHECKS: Healthy agents collected as their checks finish
+                List<AgentDto> healthyAgents = new ArrayList<>();
+                BoundedStructuredExecutor.BatchOutcome outcome = boundedExecutor.execute(
+                    agentIds,
+                    this::performHealthCheck,
+                    BoundedStructuredExecutor.BatchOptions.tolerant(healthCheckMaxConcurrency, timeout),
+                    result -> {
+                        if (result.isSuccess() && result.value() != null && result.value().isAvailable()) {
+                            healthyAgents.add(result.value());
+                        }
+                    });
                 
                 timer.stop(metrics.getApiResponseTime());
                 
@@ -180,6 +184,8 @@ public class StructuredConcurrencyService {
                     java.util.Map.of(
                         "totalAgents", agentIds.size(),
                         "healthyAgents", healthyAgents.size(),
+                        "failedChecks", outcome.failed(),
+                        "unfinishedChecks", outcome.notCompleted(),
                         "checkDuration", System.currentTimeMillis()
                     )
                 );
@@ -206,7 +212,10 @@ public class StructuredConcurrencyService {
     /**
      * ✅ STRUCTURED CONCURRENCY: Parallel task processing with backpressure
      * 
-     * Processes multiple tasks concurrently with controlled parallelism and proper cleanup.
+     * Processes every task with at most maxConcurrency running at once. Each wave
+     * of maxConcurrency tasks gets one taskTimeout, so the batch deadline is
+     * taskTimeout * ceil(size / maxConcurrency). Tasks still unfinished at the
+     * deadline are returned as cancelled.
      */
     @Async
     public CompletableFuture<List<TaskResult>> processTasksBatch(
@@ -215,54 +224,74 @@ public class StructuredConcurrencyService {
         Duration taskTimeout
     ) {
         return CompletableFuture.supplyAsync(() -> {
-            var timer = metrics.startApiTimer();
+            TaskResult[] results = new TaskResult[tasks.size()];
+            int waves = Math.max(1, (tasks.size() + maxConcurrency - 1) / maxConcurrency);
             
-            try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
-                
-                // ✅ CONTROLLED CONCURRENCY: Process tasks in batches
-                List<StructuredTaskScope.Subtask<TaskResult>> taskExecutions = tasks.stream()
-                    .limit(maxConcurrency) // Control parallelism
-                    .map(task -> scope.fork(() -> processIndividualTask(task, taskTimeout)))
-                    .toList();
-                
-                // ✅ BATCH COMPLETION: Wait for all tasks in batch
-                scope.join(); // Buffer time
-                scope.throwIfFailed();
-                
-                // ✅ RESULT COLLECTION: Gather all task results
-                List<TaskResult> results = taskExecutions.stream()
-                    .map(StructuredTaskScope.Subtask::get)
-                    .toList();
-                
-                timer.stop(metrics.getApiResponseTime());
-                
-                structuredLogger.logBusinessTransaction(
-                    "batch_processing",
-                    "tasks",
-                    "completed",
-                    "system",
-                    java.util.Map.of(
-                        "batchSize", tasks.size(),
-                        "successCount", results.stream().mapToInt(r -> r.isCompleted() ? 1 : 0).sum(),
-                        "processingTime", System.currentTimeMillis()
-                    )
-                );
-                
-                return results;
-                
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                timer.stop(metrics.getApiResponseTime());
-                return List.of();
-                
-            } catch (Exception e) {
-                timer.stop(metrics.getApiResponseTime());
-                metrics.recordError("batch_processing", e.getClass().getSimpleName());
-                return List.of();
+            streamTasksBatch(tasks, maxConcurrency, taskTimeout.multipliedBy(waves),
+                (result, index) -> results[index] = result);
+            
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null) {
+                    results[i] = TaskResult.cancelled(tasks.get(i).taskId(), "Batch deadline exceeded");
+                }
             }
+            return List.of(results);
         });
     }
     
+    /**
+     * ✅ STREAMING BATCH: Hand each task result to the consumer as soon as it finishes
+     * 
+     * Runs on the calling thread; returns once every task finished or the batch
+     * deadline passed. The consumer receives the task's index in the input list.
+     */
+    public BoundedStructuredExecutor.BatchOutcome streamTasksBatch(
+        List<TaskDto> tasks,
+        int maxConcurrency,
+        Duration batchTimeout,
+        java.util.function.ObjIntConsumer<TaskResult> onResult
+    ) {
+        var timer = metrics.startApiTimer();
+        
+        try {
+            BoundedStructuredExecutor.BatchOutcome outcome = boundedExecutor.execute(
+                tasks,
+                task -> processIndividualTask(task, BoundedStructuredExecutor.remainingTime().orElse(batchTimeout)),
+                BoundedStructuredExecutor.BatchOptions.tolerant(maxConcurrency, batchTimeout),
+                result -> onResult.accept(result.isSuccess()
+                    ? result.value()
+                    : TaskResult.failure(result.item().taskId(), result.error().getMessage(), result.error(), 0),
+                    result.index()));
+            
+            timer.stop(metrics.getApiResponseTime());
+            
+            structuredLogger.logBusinessTransaction(
+                "batch_processing",
+                "tasks",
+                "completed",
+                "system",
+                java.util.Map.of(
+                    "batchSize", tasks.size(),
+                    "finishedCount", outcome.succeeded() + outcome.failed(),
+                    "unfinishedCount", outcome.notCompleted(),
+                    "processingTime", System.currentTimeMillis()
+                )
+            );
+            
+            return outcome;
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            timer.stop(metrics.getApiResponseTime());
+            return new BoundedStructuredExecutor.BatchOutcome(tasks.size(), 0, 0, tasks.size(), false, java.util.Optional.of(e));
+            
+        } catch (Exception e) {
+            timer.stop(metrics.getApiResponseTime());
+            metrics.recordError("batch_processing", e.getClass().getSimpleName());
+            return new BoundedStructuredExecutor.BatchOutcome(tasks.size(), 0, 0, tasks.size(), false, java.util.Optional.of(e));
+        }
+    }
+    
     /**
      * ✅ HELPER: Simulate agent health check
      */
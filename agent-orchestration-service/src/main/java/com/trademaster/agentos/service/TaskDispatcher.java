@@ -0,0 +1,516 @@
+package com.trademaster.agentos.service;
+
+import com.trademaster.agentos.config.AgentOSMetrics;
+import com.trademaster.agentos.domain.entity.Agent;
+import com.trademaster.agentos.domain.entity.AgentStatus;
+import com.trademaster.agentos.domain.entity.AgentType;
+import com.trademaster.agentos.domain.entity.Task;
+import com.trademaster.agentos.domain.entity.TaskPriority;
+import com.trademaster.agentos.service.strategy.AgentSelectionIndex;
+import com.trademaster.agentos.service.strategy.AgentSelectionStrategy;
+import com.trademaster.agentos.service.strategy.CapabilityMask;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * ✅ EVENT-DRIVEN DISPATCH: In-memory task to agent matching
+ *
+ * Replaces the 10 second queue poll in AgentOrchestrationService. Agents are
+ * picked from an AgentSelectionIndex - capability bitsets per type and load
+ * band, scored with the composite load / success rate / response time /
+ * experience weights - which this dispatcher keeps current as it assigns and
+ * releases slots. Matching happens the moment a task is submitted, and waiting
+ * tasks are matched the moment an agent reports free capacity, so the dispatch
+ * path never queries the database. Scores are refreshed from the agent rows by
+ * the periodic reconciliation.
+ *
+ * ✅ BATCHED PERSISTENCE: Assignments are buffered and written by a short
+ * scheduled flush - one conditional PENDING -> IN_PROGRESS claim per task, a
+ * task started event per claimed task that delivers it to the agent, and one
+ * load update per agent. A task that is no longer PENDING when its batch is
+ * written, e.g. because another instance claimed it, is skipped and its slot
+ * is handed back. A batch whose write fails
+ * is set aside and retried with exponential backoff after the new assignments
+ * of each flush, so it never holds them up; after max-flush-attempts failures
+ * it is dead-lettered: dropped with its slots handed back, the tasks left
+ * PENDING for the periodic reconciliation to submit again.
+ *
+ * All matching state is guarded by a single lock; every operation under it is
+ * an index update or selection plus a handful of tree operations.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TaskDispatcher {
+
+    /**
+     * Highest priority first, then submission order
+     */
+    private static final Comparator<WaitingTask> WAITING_ORDER = Comparator
+        .comparingInt((WaitingTask task) -> task.priority().getLevel()).reversed()
+        .thenComparingLong(WaitingTask::sequence);
+
+    private final TaskService taskService;
+    private final AgentService agentService;
+    private final AgentOSMetrics metrics;
+
+    @Value("${agentos.dispatch.flush-batch-size:500}")
+    private int flushBatchSize = 500;
+
+    @Value("${agentos.dispatch.max-flush-attempts:8}")
+    private int maxFlushAttempts = 8;
+
+    @Value("${agentos.dispatch.flush-retry-backoff-ms:500}")
+    private long flushRetryBackoffMillis = 500;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, AgentSlot> agents = new HashMap<>();
+    private final AgentSelectionIndex selectionIndex = AgentSelectionStrategy.builder()
+        .withLoadBalance(0.4)
+        .withPerformance(0.4)
+        .withResponseTime(0.15)
+        .withExperience(0.05)
+        .buildIndex();
+    private final Map<AgentType, TreeSet<WaitingTask>> waitingTasks = new EnumMap<>(AgentType.class);
+    private final Set<Long> trackedTaskIds = new HashSet<>();
+    private final ArrayDeque<Assignment> pendingAssignments = new ArrayDeque<>();
+    private final List<FailedBatch> failedBatches = new ArrayList<>();
+    private long sequence;
+    private long dispatchedTasks;
+    private long lastSnapshotNanos = System.nanoTime();
+    private long lastSnapshotDispatched;
+
+    // ========== Events ==========
+
+    /**
+     * Submit a PENDING task for dispatch
+     * Returns true when an agent was matched immediately, false when the task
+     * waits for capacity or is already tracked
+     */
+    public boolean submit(Task task, AgentType requiredType) {
+        lock.lock();
+        try {
+            if (!trackedTaskIds.add(task.getTaskId())) {
+                return false;
+            }
+            WaitingTask waiting = new WaitingTask(
+                task.getTaskId(),
+                Optional.ofNullable(task.getPriority()).orElse(TaskPriority.NORMAL),
+                CapabilityMask.of(Optional.ofNullable(task.getRequiredCapabilities()).orElse(List.of())),
+                System.nanoTime(),
+                sequence++);
+
+            Optional<AgentSlot> agent = best(requiredType, waiting.capabilities());
+            if (agent.isPresent()) {
+                assign(waiting, agent.get());
+                return true;
+            }
+            waitingTasks.computeIfAbsent(requiredType, type -> new TreeSet<>(WAITING_ORDER)).add(waiting);
+            log.debug("No free agent of type {} for task {}, waiting", requiredType, task.getTaskId());
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add or refresh an agent from its persisted state
+     * Agents that are not ACTIVE or BUSY are removed. The in-memory load of a
+     * known agent is kept, since it already includes unflushed assignments;
+     * its score is recomputed from the row's metrics
+     */
+    public void syncAgent(Agent agent) {
+        lock.lock();
+        try {
+            AgentSlot existing = agents.remove(agent.getAgentId());
+            if (agent.getStatus() != AgentStatus.ACTIVE && agent.getStatus() != AgentStatus.BUSY) {
+                selectionIndex.remove(agent.getAgentId());
+                return;
+            }
+
+            AgentSlot slot = new AgentSlot(
+                agent.getAgentId(),
+                agent.getAgentType(),
+                CapabilityMask.of(Optional.ofNullable(agent.getCapabilities()).orElse(List.of())),
+                Math.max(1, Optional.ofNullable(agent.getMaxConcurrentTasks()).orElse(1)));
+            slot.load = existing != null ? existing.load : Optional.ofNullable(agent.getCurrentLoad()).orElse(0);
+            agents.put(slot.agentId(), slot);
+            selectionIndex.upsert(agent, slot.capabilities(), slot.load);
+            markReady(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replace the known agent set with the currently available agents
+     * Used by the periodic reconciliation to drop agents that went away and
+     * refresh the scores of the others
+     */
+    public void reconcileAgents(Collection<Agent> availableAgents) {
+        Set<Long> availableIds = availableAgents.stream().map(Agent::getAgentId).collect(Collectors.toSet());
+        lock.lock();
+        try {
+            List.copyOf(agents.keySet()).stream()
+                .filter(agentId -> !availableIds.contains(agentId))
+                .forEach(this::removeAgent);
+            availableAgents.forEach(this::syncAgent);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * An agent finished a task and has a free slot again
+     */
+    public void releaseSlot(Long agentId) {
+        lock.lock();
+        try {
+            returnSlot(agentId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forget an agent; its assignments not yet written are matched again
+     */
+    public void removeAgent(Long agentId) {
+        lock.lock();
+        try {
+            agents.remove(agentId);
+            selectionIndex.remove(agentId);
+
+            List<Assignment> orphaned = new ArrayList<>();
+            pendingAssignments.removeIf(assignment -> assignment.agentId().equals(agentId) && orphaned.add(assignment));
+            failedBatches.forEach(failed -> failed.assignments()
+                .removeIf(assignment -> assignment.agentId().equals(agentId) && orphaned.add(assignment)));
+            failedBatches.removeIf(failed -> failed.assignments().isEmpty());
+            orphaned.forEach(assignment -> redispatch(assignment.task(), assignment.agentType()));
+            if (!orphaned.isEmpty()) {
+                log.info("Re-dispatching {} unwritten assignments of removed agent {}", orphaned.size(), agentId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isTracking(Long agentId) {
+        lock.lock();
+        try {
+            return agents.containsKey(agentId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ========== Batched Persistence ==========
+
+    /**
+     * Write buffered assignments in batches, then the failed batches due for a retry
+     * Returns the number of assignments recorded
+     */
+    @Scheduled(fixedDelayString = "${agentos.dispatch.flush-interval-ms:100}")
+    public int flushAssignments() {
+        int recorded = 0;
+        List<Assignment> batch;
+        while (!(batch = nextBatch()).isEmpty()) {
+            Optional<Integer> written = writeBatch(batch);
+            if (written.isEmpty()) {
+                setAside(new FailedBatch(batch, 0, 0L));
+                return recorded;
+            }
+            recorded += written.get();
+        }
+
+        FailedBatch failed;
+        while ((failed = nextDueRetry()) != null) {
+            Optional<Integer> written = writeBatch(failed.assignments());
+            if (written.isEmpty()) {
+                setAside(failed);
+                break;
+            }
+            recorded += written.get();
+        }
+        return recorded;
+    }
+
+    private Optional<Integer> writeBatch(List<Assignment> batch) {
+        Map<Long, Long> agentIdsByTaskId = batch.stream()
+            .collect(Collectors.toMap(Assignment::taskId, Assignment::agentId, (first, second) -> second, LinkedHashMap::new));
+
+        Set<Long> applied;
+        try {
+            applied = taskService.recordAssignments(agentIdsByTaskId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to record {} task assignments", batch.size(), e);
+            return Optional.empty();
+        }
+
+        // Task rows are committed at this point; a failed load update must not replay them
+        try {
+            agentService.adjustAgentLoads(applied.stream()
+                .collect(Collectors.groupingBy(agentIdsByTaskId::get, Collectors.summingInt(taskId -> 1))));
+        } catch (RuntimeException e) {
+            log.warn("Recorded {} assignments but failed to update agent load counters", applied.size(), e);
+        }
+
+        lock.lock();
+        try {
+            for (Assignment assignment : batch) {
+                trackedTaskIds.remove(assignment.taskId());
+                if (!applied.contains(assignment.taskId())) {
+                    returnSlot(assignment.agentId());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (applied.size() < batch.size()) {
+            log.debug("Skipped {} assignments for tasks that were no longer pending", batch.size() - applied.size());
+        }
+        return Optional.of(applied.size());
+    }
+
+    /**
+     * Schedule a failed batch for a backed-off retry, or drop it once out of attempts
+     */
+    private void setAside(FailedBatch batch) {
+        int attempts = batch.attempts() + 1;
+        List<Assignment> assignments = batch.assignments();
+        lock.lock();
+        try {
+            if (attempts < maxFlushAttempts) {
+                long backoffNanos = TimeUnit.MILLISECONDS.toNanos(flushRetryBackoffMillis << Math.min(attempts - 1, 16));
+                failedBatches.add(new FailedBatch(assignments, attempts, System.nanoTime() + backoffNanos));
+            } else {
+                for (Assignment assignment : assignments) {
+                    trackedTaskIds.remove(assignment.taskId());
+                    returnSlot(assignment.agentId());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (attempts < maxFlushAttempts) {
+            log.error("Recording {} task assignments failed {} of {} times, retrying after backoff",
+                assignments.size(), attempts, maxFlushAttempts);
+        } else {
+            metrics.recordAssignmentsDeadLettered(assignments.size());
+            log.error("Dead-lettered {} task assignments after {} failed writes, tasks {} stay PENDING",
+                assignments.size(), attempts, assignments.stream().map(Assignment::taskId).toList());
+        }
+    }
+
+    private FailedBatch nextDueRetry() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            for (Iterator<FailedBatch> iterator = failedBatches.iterator(); iterator.hasNext(); ) {
+                FailedBatch failed = iterator.next();
+                if (now - failed.notBeforeNanos() >= 0) {
+                    iterator.remove();
+                    return failed;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Assignment> nextBatch() {
+        lock.lock();
+        try {
+            List<Assignment> batch = new ArrayList<>(Math.min(flushBatchSize, pendingAssignments.size()));
+            while (batch.size() < flushBatchSize && !pendingAssignments.isEmpty()) {
+                batch.add(pendingAssignments.pollFirst());
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ========== Statistics ==========
+
+    /**
+     * Dispatch statistics; throughput covers the interval since the previous snapshot
+     */
+    public DispatchStats snapshotStats() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            double elapsedSeconds = Math.max(1, now - lastSnapshotNanos) / 1e9;
+            double tasksPerSecond = (dispatchedTasks - lastSnapshotDispatched) / elapsedSeconds;
+            lastSnapshotNanos = now;
+            lastSnapshotDispatched = dispatchedTasks;
+
+            return new DispatchStats(
+                dispatchedTasks,
+                tasksPerSecond,
+                p99LatencyMillis(),
+                waitingTasks.values().stream().mapToInt(TreeSet::size).sum(),
+                (int) agents.values().stream().filter(AgentSlot::hasFreeSlot).count(),
+                pendingAssignments.size() + failedBatches.stream().mapToInt(failed -> failed.assignments().size()).sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double p99LatencyMillis() {
+        for (ValueAtPercentile value : metrics.getTaskDispatchLatency().takeSnapshot().percentileValues()) {
+            if (value.percentile() == 0.99) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return 0.0;
+    }
+
+    // ========== Matching (lock held) ==========
+
+    /**
+     * Best agent of the type with a free slot and every required capability
+     */
+    private Optional<AgentSlot> best(AgentType agentType, CapabilityMask required) {
+        return selectionIndex.selectAgent(agentType, required).map(agents::get);
+    }
+
+    private void assign(WaitingTask task, AgentSlot slot) {
+        slot.load++;
+        selectionIndex.updateLoad(slot.agentId(), slot.load);
+
+        pendingAssignments.addLast(new Assignment(task, slot.agentId(), slot.agentType()));
+        dispatchedTasks++;
+        metrics.recordTaskDispatched(System.nanoTime() - task.submittedNanos());
+    }
+
+    /**
+     * Serve the tasks of the agent's type that were waiting for capacity, in
+     * priority order, while it has free slots
+     */
+    private void markReady(AgentSlot slot) {
+        TreeSet<WaitingTask> waiting = waitingTasks.get(slot.agentType());
+        if (waiting == null) {
+            return;
+        }
+        Iterator<WaitingTask> iterator = waiting.iterator();
+        while (slot.hasFreeSlot() && iterator.hasNext()) {
+            WaitingTask task = iterator.next();
+            if (slot.canHandle(task.capabilities())) {
+                iterator.remove();
+                assign(task, slot);
+            }
+        }
+    }
+
+    private void redispatch(WaitingTask task, AgentType agentType) {
+        Optional<AgentSlot> agent = best(agentType, task.capabilities());
+        if (agent.isPresent()) {
+            assign(task, agent.get());
+        } else {
+            waitingTasks.computeIfAbsent(agentType, type -> new TreeSet<>(WAITING_ORDER)).add(task);
+        }
+    }
+
+    private void returnSlot(Long agentId) {
+        AgentSlot slot = agents.get(agentId);
+        if (slot != null) {
+            slot.load = Math.max(0, slot.load - 1);
+            selectionIndex.updateLoad(agentId, slot.load);
+            markReady(slot);
+        }
+    }
+
+    // ========== Internal Structures ==========
+
+    /**
+     * Dispatch view of an agent: the load including unwritten assignments and
+     * what it needs to serve waiting tasks; ranking lives in the selection index
+     */
+    private static final class AgentSlot {
+        private final long agentId;
+        private final AgentType agentType;
+        private final CapabilityMask capabilities;
+        private final int maxConcurrentTasks;
+        private int load;
+
+        AgentSlot(long agentId, AgentType agentType, CapabilityMask capabilities, int maxConcurrentTasks) {
+            this.agentId = agentId;
+            this.agentType = agentType;
+            this.capabilities = capabilities;
+            this.maxConcurrentTasks = maxConcurrentTasks;
+        }
+
+        long agentId() {
+            return agentId;
+        }
+
+        AgentType agentType() {
+            return agentType;
+        }
+
+        CapabilityMask capabilities() {
+            return capabilities;
+        }
+
+        boolean hasFreeSlot() {
+            return load < maxConcurrentTasks;
+        }
+
+        boolean canHandle(CapabilityMask required) {
+            return capabilities.isEmpty() || capabilities.containsAll(required);
+        }
+    }
+
+    private record WaitingTask(
+        Long taskId,
+        TaskPriority priority,
+        CapabilityMask capabilities,
+        long submittedNanos,
+        long sequence
+    ) {}
+
+    private record Assignment(WaitingTask task, Long agentId, AgentType agentType) {
+        Long taskId() {
+            return task.taskId();
+        }
+    }
+
+    /**
+     * A batch whose write failed; assignments are removed when their agent goes away
+     */
+    private record FailedBatch(List<Assignment> assignments, int attempts, long notBeforeNanos) {}
+
+    public record DispatchStats(
+        long dispatchedTasks,
+        double tasksPerSecond,
+        double p99LatencyMillis,
+        int waitingTasks,
+        int readyAgents,
+        int pendingAssignments
+    ) {}
+}
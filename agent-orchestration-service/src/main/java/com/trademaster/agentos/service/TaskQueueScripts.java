@@ -0,0 +1,204 @@
+package com.trademaster.agentos.service;
+
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+/**
+ * ✅ REDIS SCRIPTS: Atomic task queue operations
+ *
+ * Each script runs as a single Redis command, so capacity checks, leases and
+ * releases can never interleave with another client or be cut in half by a
+ * crash. Layout:
+ * - ready: ZSET of task ids scored by priority band + enqueue time
+ * - inflight: ZSET of leased task ids scored by lease deadline (epoch ms)
+ * - owners: HASH task id -> agent id holding the lease
+ * - scores: HASH task id -> ready score, used to restore priority on redelivery
+ * - timeouts: HASH task id -> lease length in ms (the task's own timeout)
+ * - retries: HASH task id -> attempts so far, failures and expired leases alike
+ * - dead: ZSET of task ids that exhausted their retries, scored by time
+ * - processing:{agentId}: SET of ids leased by one agent
+ *
+ * ✅ REDIS CLUSTER: every key a script touches is passed in KEYS, never built
+ * from an ARGV prefix, and all of them share the {task} hash tag, so each
+ * script is routed to, and runs entirely on, one slot. Task JSON keys are
+ * declared too; the lease script is given the candidate ids to take.
+ */
+final class TaskQueueScripts {
+
+    private TaskQueueScripts() {
+    }
+
+    /**
+     * KEYS: ready, inflight, scores, data key, timeouts, retries, dead
+     * ARGV: task id, score, task json, ttl seconds, max ready size, lease ms, retry count
+     * Returns ready size after insert, -1 when full, -2 when already queued or leased
+     */
+    static final RedisScript<Long> ENQUEUE = new DefaultRedisScript<>("""
+        if redis.call('ZSCORE', KEYS[1], ARGV[1]) or redis.call('ZSCORE', KEYS[2], ARGV[1]) then
+          return -2
+        end
+        if redis.call('ZCARD', KEYS[1]) >= tonumber(ARGV[5]) then
+          return -1
+        end
+        redis.call('SET', KEYS[4], ARGV[3], 'EX', ARGV[4])
+        redis.call('HSET', KEYS[3], ARGV[1], ARGV[2])
+        redis.call('HSET', KEYS[5], ARGV[1], ARGV[6])
+        redis.call('HSET', KEYS[6], ARGV[1], ARGV[7])
+        redis.call('ZREM', KEYS[7], ARGV[1])
+        redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+        return redis.call('ZCARD', KEYS[1])
+        """, Long.class);
+
+    /**
+     * KEYS: ready, inflight, owners, processing:{agentId}, scores, timeouts, retries,
+     *       then one data key per candidate in ARGV order
+     * ARGV: now ms, default lease ms, max tasks, agent id, processing set ttl seconds,
+     *       then the candidate ids, best first
+     * Candidates another consumer took first are skipped.
+     * Returns a flat list of id, json, retry count triples for the leased tasks
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static final RedisScript<List> LEASE = new DefaultRedisScript<>("""
+        local now = tonumber(ARGV[1])
+        local max = tonumber(ARGV[3])
+        local leased = {}
+        local count = 0
+        for i = 6, #ARGV do
+          if count >= max then
+            break
+          end
+          local id = ARGV[i]
+          if redis.call('ZREM', KEYS[1], id) == 1 then
+            local json = redis.call('GET', KEYS[i + 2])
+            if json then
+              local lease = redis.call('HGET', KEYS[6], id) or ARGV[2]
+              redis.call('ZADD', KEYS[2], now + tonumber(lease), id)
+              redis.call('HSET', KEYS[3], id, ARGV[4])
+              redis.call('SADD', KEYS[4], id)
+              leased[#leased + 1] = id
+              leased[#leased + 1] = json
+              leased[#leased + 1] = redis.call('HGET', KEYS[7], id) or '0'
+              count = count + 1
+            else
+              redis.call('HDEL', KEYS[5], id)
+              redis.call('HDEL', KEYS[6], id)
+              redis.call('HDEL', KEYS[7], id)
+            end
+          end
+        end
+        if count > 0 then
+          redis.call('EXPIRE', KEYS[4], ARGV[5])
+        end
+        return leased
+        """, List.class);
+
+    /**
+     * KEYS: ready, inflight, owners, processing:{agentId}, scores, data key, timeouts, retries
+     * ARGV: task id, agent id, task json, ttl seconds, requeue score ('' to finish), retry count
+     * Returns 1 when released, 0 when the agent no longer holds the lease
+     */
+    static final RedisScript<Long> RELEASE = new DefaultRedisScript<>("""
+        redis.call('SREM', KEYS[4], ARGV[1])
+        if redis.call('HGET', KEYS[3], ARGV[1]) ~= ARGV[2] then
+          return 0
+        end
+        redis.call('ZREM', KEYS[2], ARGV[1])
+        redis.call('HDEL', KEYS[3], ARGV[1])
+        redis.call('SET', KEYS[6], ARGV[3], 'EX', ARGV[4])
+        if ARGV[5] ~= '' then
+          redis.call('HSET', KEYS[5], ARGV[1], ARGV[5])
+          redis.call('HSET', KEYS[8], ARGV[1], ARGV[6])
+          redis.call('ZADD', KEYS[1], ARGV[5], ARGV[1])
+        else
+          redis.call('HDEL', KEYS[5], ARGV[1])
+          redis.call('HDEL', KEYS[7], ARGV[1])
+          redis.call('HDEL', KEYS[8], ARGV[1])
+        end
+        return 1
+        """, Long.class);
+
+    /**
+     * KEYS: inflight, owners, timeouts
+     * ARGV: task id, agent id, now ms, default lease ms
+     * Returns 1 when extended, 0 when the agent no longer holds the lease
+     */
+    static final RedisScript<Long> EXTEND = new DefaultRedisScript<>("""
+        if redis.call('HGET', KEYS[2], ARGV[1]) ~= ARGV[2] then
+          return 0
+        end
+        local lease = redis.call('HGET', KEYS[3], ARGV[1]) or ARGV[4]
+        redis.call('ZADD', KEYS[1], 'XX', tonumber(ARGV[3]) + tonumber(lease), ARGV[1])
+        return 1
+        """, Long.class);
+
+    /**
+     * KEYS: inflight, owners, timeouts, then processing:{agentId} per agent in ARGV order
+     * ARGV: now ms, default lease ms, then the agent ids
+     * Ids an agent no longer owns are dropped from its processing set.
+     * Returns the number of leases extended
+     */
+    static final RedisScript<Long> EXTEND_AGENTS = new DefaultRedisScript<>("""
+        local now = tonumber(ARGV[1])
+        local extended = 0
+        for i = 3, #ARGV do
+          local processing = KEYS[i + 1]
+          for _, id in ipairs(redis.call('SMEMBERS', processing)) do
+            if redis.call('HGET', KEYS[2], id) == ARGV[i] then
+              local lease = redis.call('HGET', KEYS[3], id) or ARGV[2]
+              redis.call('ZADD', KEYS[1], 'XX', now + tonumber(lease), id)
+              extended = extended + 1
+            else
+              redis.call('SREM', processing, id)
+            end
+          end
+        end
+        return extended
+        """, Long.class);
+
+    /**
+     * KEYS: inflight, ready, owners, scores, timeouts, retries, dead
+     * ARGV: now ms, max leases, fallback score, max retries
+     * Each expired lease counts as an attempt; a task past max retries goes to
+     * dead instead of ready. The owner's processing set is cleaned lazily by
+     * {@link #EXTEND_AGENTS} and {@link #RELEASE}.
+     * Returns the number of expired leases handled followed by the dead-lettered ids
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static final RedisScript<List> REDELIVER = new DefaultRedisScript<>("""
+        local expired = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2])
+        local result = {#expired}
+        for _, id in ipairs(expired) do
+          redis.call('HDEL', KEYS[3], id)
+          redis.call('ZREM', KEYS[1], id)
+          local retries = redis.call('HINCRBY', KEYS[6], id, 1)
+          if retries > tonumber(ARGV[4]) then
+            redis.call('ZADD', KEYS[7], ARGV[1], id)
+            redis.call('HDEL', KEYS[4], id)
+            redis.call('HDEL', KEYS[5], id)
+            redis.call('HDEL', KEYS[6], id)
+            result[#result + 1] = id
+          else
+            redis.call('ZADD', KEYS[2], redis.call('HGET', KEYS[4], id) or ARGV[3], id)
+          end
+        end
+        return result
+        """, List.class);
+
+    /**
+     * KEYS: ready, inflight, dead
+     * ARGV: normal band start, low band start
+     * Returns high, normal, low, in-flight and dead-lettered counts
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static final RedisScript<List> STATS = new DefaultRedisScript<>("""
+        return {
+          redis.call('ZCOUNT', KEYS[1], '-inf', '(' .. ARGV[1]),
+          redis.call('ZCOUNT', KEYS[1], ARGV[1], '(' .. ARGV[2]),
+          redis.call('ZCOUNT', KEYS[1], ARGV[2], '+inf'),
+          redis.call('ZCARD', KEYS[2]),
+          redis.call('ZCARD', KEYS[3])
+        }
+        """, List.class);
+}
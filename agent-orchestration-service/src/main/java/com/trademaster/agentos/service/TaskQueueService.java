@@ -9,17 +9,22 @@ import com.trademaster.agentos.domain.entity.TaskStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 
 /**
  * ✅ MANDATORY: Task Queue System with Redis Backend
@@ -29,6 +34,16 @@ import java.util.concurrent.TimeUnit;
  * - Priority-based task scheduling
  * - Task lifecycle management with Virtual Threads
  * - Distributed task processing across agents
+ *
+ * Reliable queue: every state change is one atomic script ({@link TaskQueueScripts}).
+ * Dequeue leases tasks into an in-flight set with a visibility timeout instead
+ * of popping them, so a consumer that dies mid-task cannot lose it; expired
+ * leases are moved back to the ready set by {@link #redeliverExpiredLeases()}.
+ *
+ * A lease lasts the task's own timeoutSeconds and is renewed by the holding
+ * agent's heartbeat ({@link #extendLeases(Collection)}). Every expired lease
+ * counts as an attempt; a task that runs out of attempts is dead-lettered
+ * rather than redelivered forever.
  */
 @Service
 @RequiredArgsConstructor
@@ -46,16 +61,54 @@ public class TaskQueueService {
     @Value("${agentos.tasks.retry-max-attempts:3}")
     private int maxRetryAttempts;
     
-    // ✅ REDIS KEYS: Task queue structure
-    private static final String TASK_QUEUE_PREFIX = "agentos:task:queue:";
-    private static final String TASK_DATA_PREFIX = "agentos:task:data:";
-    private static final String TASK_PROCESSING_PREFIX = "agentos:task:processing:";
+    @Value("${agentos.tasks.visibility-timeout-ms:300000}")
+    private long visibilityTimeoutMs;
+    
+    @Value("${agentos.tasks.batch-size:10}")
+    private int maxLeaseBatch;
+    
+    @Value("${agentos.tasks.redelivery-batch-size:500}")
+    private int redeliveryBatchSize;
+    
+    // ✅ REDIS KEYS: Task queue structure; the {task} hash tag keeps every scripted key in one cluster slot
+    private static final String TASK_KEY_PREFIX = "agentos:{task}:";
+    private static final String TASK_QUEUE_PREFIX = TASK_KEY_PREFIX + "queue:";
+    private static final String TASK_DATA_PREFIX = TASK_KEY_PREFIX + "data:";
+    private static final String TASK_PROCESSING_PREFIX = TASK_KEY_PREFIX + "processing:";
     private static final String TASK_FAILED_PREFIX = "agentos:task:failed:";
     
-    // ✅ PRIORITY QUEUES: Separate queues by priority
-    private static final String HIGH_PRIORITY_QUEUE = TASK_QUEUE_PREFIX + "high";
-    private static final String NORMAL_PRIORITY_QUEUE = TASK_QUEUE_PREFIX + "normal";
-    private static final String LOW_PRIORITY_QUEUE = TASK_QUEUE_PREFIX + "low";
+    // ✅ RELIABLE QUEUE: Ready set scored by priority, leased set scored by deadline
+    private static final String READY_QUEUE = TASK_QUEUE_PREFIX + "ready";
+    private static final String INFLIGHT_QUEUE = TASK_QUEUE_PREFIX + "inflight";
+    private static final String LEASE_OWNERS = TASK_QUEUE_PREFIX + "owners";
+    private static final String READY_SCORES = TASK_QUEUE_PREFIX + "scores";
+    private static final String LEASE_TIMEOUTS = TASK_QUEUE_PREFIX + "timeouts";
+    private static final String RETRY_COUNTS = TASK_QUEUE_PREFIX + "retries";
+    private static final String DEAD_LETTER_QUEUE = TASK_QUEUE_PREFIX + "dead";
+    
+    // ✅ LEGACY LAYOUT: Per-priority lists and the untagged sets, drained once into the queue above
+    private static final String LEGACY_QUEUE_PREFIX = "agentos:task:queue:";
+    private static final String LEGACY_DATA_PREFIX = "agentos:task:data:";
+    private static final List<String> LEGACY_LIST_QUEUES = List.of(
+        LEGACY_QUEUE_PREFIX + "high", LEGACY_QUEUE_PREFIX + "normal", LEGACY_QUEUE_PREFIX + "low");
+    private static final List<String> LEGACY_SORTED_QUEUES = List.of(
+        LEGACY_QUEUE_PREFIX + "ready", LEGACY_QUEUE_PREFIX + "inflight");
+    private static final int LEGACY_DRAIN_BATCH = 100;
+    
+    // ✅ CONTENDED LEASE: Candidates read per requested task, and attempts before reporting empty
+    private static final int LEASE_CANDIDATE_FACTOR = 4;
+    private static final int LEASE_ATTEMPTS = 3;
+    
+    // ✅ PRIORITY BANDS: score = band * PRIORITY_BAND + enqueue epoch ms (FIFO within a band)
+    private static final long PRIORITY_BAND = 10_000_000_000_000L;
+    private static final long NORMAL_BAND_START = 2 * PRIORITY_BAND;
+    private static final long LOW_BAND_START = 3 * PRIORITY_BAND;
+    
+    private static final long DATA_TTL_SECONDS = Duration.ofHours(24).toSeconds();
+    private static final long COMPLETED_TTL_SECONDS = Duration.ofDays(7).toSeconds();
+    private static final long FAILED_TTL_SECONDS = Duration.ofDays(30).toSeconds();
+    private static final long PROCESSING_TTL_SECONDS = Duration.ofHours(2).toSeconds();
+    private static final long DEAD_LETTER_RETENTION_MS = Duration.ofDays(30).toMillis();
     
     /**
      * ✅ ENQUEUE: Add task to priority queue
@@ -67,19 +120,17 @@ public class TaskQueueService {
             structuredLogger.setOperationContext("task_enqueue");
             
             try {
-                // ✅ VALIDATION: Check queue capacity
-                if (getTotalQueueSize() >= maxQueueSize) {
+                // ✅ ATOMIC ENQUEUE: Capacity check, data write and ZADD in one script
+                Long queuePosition = enqueue(task);
+                
+                if (queuePosition != null && queuePosition == -1) {
                     throw new IllegalStateException("Task queue is full");
                 }
-                
-                // ✅ SERIALIZATION: Store task data
-                String taskJson = objectMapper.writeValueAsString(task);
-                String taskKey = TASK_DATA_PREFIX + task.getTaskId();
-                redisTemplate.opsForValue().set(taskKey, taskJson, Duration.ofHours(24));
-                
-                // ✅ PRIORITY ROUTING: Add to appropriate queue
-                String queueKey = getQueueKeyByPriority(task.getPriority());
-                Long queuePosition = redisTemplate.opsForList().rightPush(queueKey, task.getTaskId().toString());
+                if (queuePosition != null && queuePosition == -2) {
+                    timer.stop(metrics.getApiResponseTime());
+                    log.debug("Task {} is already queued or leased", task.getTaskId());
+                    return true;
+                }
                 
                 // ✅ METRICS & LOGGING
                 timer.stop(metrics.getApiResponseTime());
@@ -108,52 +159,90 @@ public class TaskQueueService {
     }
     
     /**
-     * ✅ DEQUEUE: Get next highest priority task
+     * ✅ DEQUEUE: Lease next highest priority task
      */
     @Async
     public CompletableFuture<Optional<Task>> dequeueTask(String agentId) {
+        return dequeueTasks(agentId, 1).thenApply(tasks -> tasks.stream().findFirst());
+    }
+    
+    /**
+     * ✅ BATCH DEQUEUE: Lease up to maxTasks tasks in one round trip
+     * 
+     * Leased tasks move to the in-flight set until completed, failed, or the
+     * visibility timeout expires and they are redelivered.
+     */
+    @Async
+    public CompletableFuture<List<Task>> dequeueTasks(String agentId, int maxTasks) {
         return CompletableFuture.supplyAsync(() -> {
             var timer = metrics.startApiTimer();
             structuredLogger.setOperationContext("task_dequeue");
             
             try {
-                // ✅ PRIORITY PROCESSING: Check high priority first
-                Optional<Task> task = dequeueFromQueue(HIGH_PRIORITY_QUEUE, agentId);
-                if (task.isEmpty()) {
-                    task = dequeueFromQueue(NORMAL_PRIORITY_QUEUE, agentId);
-                }
-                if (task.isEmpty()) {
-                    task = dequeueFromQueue(LOW_PRIORITY_QUEUE, agentId);
-                }
+                List<Task> tasks = leaseTasks(agentId, Math.max(1, Math.min(maxTasks, maxLeaseBatch)));
+                timer.stop(metrics.getApiResponseTime());
                 
-                if (task.isPresent()) {
-                    // ✅ PROCESSING STATE: Mark task as being processed
-                    markTaskAsProcessing(task.get(), agentId);
-                    
-                    timer.stop(metrics.getApiResponseTime());
+                for (Task task : tasks) {
                     structuredLogger.logBusinessTransaction(
                         "task_dequeue",
-                        task.get().getTaskId().toString(),
+                        task.getTaskId().toString(),
                         "dequeue",
                         agentId,
-                        Map.of("priority", task.get().getPriority(), "taskType", task.get().getTaskType())
+                        Map.of("priority", task.getPriority(), "taskType", task.getTaskType(), "batchSize", tasks.size())
                     );
-                } else {
-                    timer.stop(metrics.getApiResponseTime());
                 }
                 
-                return task;
+                return tasks;
                 
             } catch (Exception e) {
                 timer.stop(metrics.getApiResponseTime());
                 metrics.recordError("task_dequeue", e.getClass().getSimpleName());
                 structuredLogger.logError("task_dequeue", e.getMessage(), e,
                     Map.of("agentId", agentId));
-                return Optional.empty();
+                return List.of();
             }
         });
     }
     
+    /**
+     * ✅ LEASE RENEWAL: Push back the visibility deadline of a long-running task by its timeout
+     */
+    public boolean extendLease(Long taskId, String agentId) {
+        Long extended = redisTemplate.execute(
+            TaskQueueScripts.EXTEND,
+            List.of(INFLIGHT_QUEUE, LEASE_OWNERS, LEASE_TIMEOUTS),
+            taskId.toString(),
+            agentId,
+            String.valueOf(System.currentTimeMillis()),
+            String.valueOf(visibilityTimeoutMs)
+        );
+        return extended != null && extended == 1;
+    }
+    
+    /**
+     * ✅ HEARTBEAT RENEWAL: Extend every lease held by the given live agents in one script
+     * 
+     * @return Number of leases extended
+     */
+    public int extendLeases(Collection<String> agentIds) {
+        if (agentIds.isEmpty()) {
+            return 0;
+        }
+        List<String> keys = new ArrayList<>(agentIds.size() + 3);
+        keys.add(INFLIGHT_QUEUE);
+        keys.add(LEASE_OWNERS);
+        keys.add(LEASE_TIMEOUTS);
+        List<String> args = new ArrayList<>(agentIds.size() + 2);
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(String.valueOf(visibilityTimeoutMs));
+        for (String agentId : agentIds) {
+            keys.add(TASK_PROCESSING_PREFIX + agentId);
+            args.add(agentId);
+        }
+        Long extended = redisTemplate.execute(TaskQueueScripts.EXTEND_AGENTS, keys, args.toArray());
+        return extended == null ? 0 : extended.intValue();
+    }
+    
     /**
      * ✅ COMPLETION: Mark task as completed
      */
@@ -164,22 +253,23 @@ public class TaskQueueService {
             structuredLogger.setOperationContext("task_complete");
             
             try {
-                // ✅ CLEANUP: Remove from processing queue
-                String processingKey = TASK_PROCESSING_PREFIX + agentId;
-                redisTemplate.opsForSet().remove(processingKey, taskId.toString());
-                
                 // ✅ STATE UPDATE: Update task status
                 Optional<Task> taskOpt = getTaskById(taskId);
-                if (taskOpt.isPresent()) {
-                    Task task = taskOpt.get();
-                    task.setStatus(TaskStatus.COMPLETED);
-                    task.setCompletedAt(Instant.now());
-                    task.setProgressPercentage(100);
-                    
-                    // ✅ PERSISTENCE: Save updated task
-                    String taskJson = objectMapper.writeValueAsString(task);
-                    String taskKey = TASK_DATA_PREFIX + taskId;
-                    redisTemplate.opsForValue().set(taskKey, taskJson, Duration.ofDays(7)); // Keep completed tasks for 7 days
+                if (taskOpt.isEmpty()) {
+                    timer.stop(metrics.getApiResponseTime());
+                    return false;
+                }
+                
+                Task task = taskOpt.get();
+                task.setStatus(TaskStatus.COMPLETED);
+                task.setCompletedAt(Instant.now());
+                task.setProgressPercentage(100);
+                
+                // ✅ ATOMIC RELEASE: Drop the lease and save the result (kept for 7 days)
+                if (!releaseLease(task, agentId, COMPLETED_TTL_SECONDS, null)) {
+                    timer.stop(metrics.getApiResponseTime());
+                    log.warn("Ignoring completion of task {} by {}: lease no longer held", taskId, agentId);
+                    return false;
                 }
                 
                 timer.stop(metrics.getApiResponseTime());
@@ -221,11 +311,16 @@ public class TaskQueueService {
                 Task task = taskOpt.get();
                 
                 // ✅ RETRY LOGIC: Check if task should be retried
+                task.setRetryCount(Math.max(task.getRetryCount(), queuedRetryCount(taskId)));
                 if (task.getRetryCount() < maxRetryAttempts) {
-                    // ✅ RETRY: Increment retry count and re-enqueue
+                    // ✅ RETRY: Increment retry count and atomically move the lease back to ready
                     task.setRetryCount(task.getRetryCount() + 1);
                     task.setStatus(TaskStatus.PENDING);
-                    enqueueTask(task);
+                    if (!releaseLease(task, agentId, DATA_TTL_SECONDS, priorityScore(task.getPriority(), Instant.now()))) {
+                        timer.stop(metrics.getApiResponseTime());
+                        log.warn("Ignoring failure of task {} by {}: lease no longer held", taskId, agentId);
+                        return false;
+                    }
                     
                     structuredLogger.logBusinessTransaction(
                         "task_retry",
@@ -238,36 +333,16 @@ public class TaskQueueService {
                     // ✅ FINAL FAILURE: Mark as permanently failed
                     task.setStatus(TaskStatus.FAILED);
                     task.setCompletedAt(Instant.now());
+                    if (!releaseLease(task, agentId, FAILED_TTL_SECONDS, null)) {
+                        timer.stop(metrics.getApiResponseTime());
+                        log.warn("Ignoring failure of task {} by {}: lease no longer held", taskId, agentId);
+                        return false;
+                    }
                     
                     // ✅ FAILED QUEUE: Move to failed tasks queue for analysis
-                    String failedKey = TASK_FAILED_PREFIX + Instant.now().toEpochMilli();
-                    Map<String, Object> failureInfo = Map.of(
-                        "taskId", taskId,
-                        "agentId", agentId,
-                        "error", errorMessage,
-                        "retryCount", task.getRetryCount(),
-                        "failedAt", Instant.now()
-                    );
-                    redisTemplate.opsForValue().set(failedKey, objectMapper.writeValueAsString(failureInfo), Duration.ofDays(30));
-                    
-                    structuredLogger.logTaskFailure(
-                        taskId.toString(),
-                        task.getTaskType().toString(),
-                        agentId,
-                        errorMessage,
-                        System.currentTimeMillis() - task.getCreatedAt().toEpochMilli()
-                    );
+                    recordFinalFailure(task, agentId, errorMessage);
                 }
                 
-                // ✅ CLEANUP: Remove from processing
-                String processingKey = TASK_PROCESSING_PREFIX + agentId;
-                redisTemplate.opsForSet().remove(processingKey, taskId.toString());
-                
-                // ✅ PERSISTENCE: Save updated task
-                String taskJson = objectMapper.writeValueAsString(task);
-                String taskKey = TASK_DATA_PREFIX + taskId;
-                redisTemplate.opsForValue().set(taskKey, taskJson, Duration.ofDays(30));
-                
                 timer.stop(metrics.getApiResponseTime());
                 return true;
                 
@@ -286,17 +361,25 @@ public class TaskQueueService {
      */
     public TaskQueueStats getQueueStats() {
         try {
-            long highPriorityCount = redisTemplate.opsForList().size(HIGH_PRIORITY_QUEUE);
-            long normalPriorityCount = redisTemplate.opsForList().size(NORMAL_PRIORITY_QUEUE);
-            long lowPriorityCount = redisTemplate.opsForList().size(LOW_PRIORITY_QUEUE);
+            List<?> counts = redisTemplate.execute(
+                TaskQueueScripts.STATS,
+                List.of(READY_QUEUE, INFLIGHT_QUEUE, DEAD_LETTER_QUEUE),
+                String.valueOf(NORMAL_BAND_START),
+                String.valueOf(LOW_BAND_START)
+            );
+            long highPriorityCount = ((Number) counts.get(0)).longValue();
+            long normalPriorityCount = ((Number) counts.get(1)).longValue();
+            long lowPriorityCount = ((Number) counts.get(2)).longValue();
             
             return TaskQueueStats.builder()
                 .highPriorityTasks(highPriorityCount)
                 .normalPriorityTasks(normalPriorityCount)
                 .lowPriorityTasks(lowPriorityCount)
+                .inFlightTasks(((Number) counts.get(3)).longValue())
+                .deadLetteredTasks(((Number) counts.get(4)).longValue())
                 .totalTasks(highPriorityCount + normalPriorityCount + lowPriorityCount)
                 .maxQueueSize(maxQueueSize)
-                .utilizationPercent((double) (highPriorityCount + normalPriorityCount + lowPriorityCount) / maxQueueSize * 100)
+                .utilizationPercent((highPriorityCount + normalPriorityCount + lowPriorityCount) * 100.0 / maxQueueSize)
                 .build();
                 
         } catch (Exception e) {
@@ -306,7 +389,7 @@ public class TaskQueueService {
     }
     
     /**
-     * ✅ CLEANUP: Remove expired tasks and clean up processing queues
+     * ✅ CLEANUP: Redeliver tasks whose lease expired
      */
     @Async
     public CompletableFuture<Void> cleanupExpiredTasks() {
@@ -314,16 +397,14 @@ public class TaskQueueService {
             structuredLogger.setOperationContext("task_cleanup");
             
             try {
-                // ✅ PROCESSING TIMEOUT: Find stale processing tasks
-                Instant staleThreshold = Instant.now().minus(Duration.ofMinutes(30));
-                // Implementation would scan processing queues and re-enqueue stale tasks
+                int redelivered = redeliverExpiredLeases();
                 
                 structuredLogger.logBusinessTransaction(
                     "task_cleanup",
                     "system",
                     "cleanup",
                     "system",
-                    Map.of("cleanupTime", Instant.now())
+                    Map.of("cleanupTime", Instant.now(), "redelivered", redelivered)
                 );
                 
             } catch (Exception e) {
@@ -332,16 +413,243 @@ public class TaskQueueService {
         });
     }
     
+    /**
+     * ✅ REDELIVERY: Move expired leases back to the ready set at their original priority
+     * 
+     * Each expiry counts as a retry; tasks past the retry limit are dead-lettered.
+     * 
+     * @return Number of tasks redelivered
+     */
+    @Scheduled(fixedDelayString = "${agentos.tasks.redelivery-interval-ms:5000}")
+    public int redeliverExpiredLeases() {
+        long now = System.currentTimeMillis();
+        int redelivered = 0;
+        List<String> deadLettered = new ArrayList<>();
+        long handled;
+        do {
+            List<?> result = redisTemplate.execute(
+                TaskQueueScripts.REDELIVER,
+                List.of(INFLIGHT_QUEUE, READY_QUEUE, LEASE_OWNERS, READY_SCORES, LEASE_TIMEOUTS, RETRY_COUNTS,
+                    DEAD_LETTER_QUEUE),
+                String.valueOf(now),
+                String.valueOf(redeliveryBatchSize),
+                String.valueOf(priorityScore(TaskPriority.NORMAL, Instant.ofEpochMilli(now))),
+                String.valueOf(maxRetryAttempts)
+            );
+            if (result == null || result.isEmpty()) {
+                break;
+            }
+            handled = ((Number) result.get(0)).longValue();
+            redelivered += (int) handled - (result.size() - 1);
+            for (int i = 1; i < result.size(); i++) {
+                deadLettered.add(result.get(i).toString());
+            }
+        } while (handled >= redeliveryBatchSize);
+        
+        if (redelivered > 0) {
+            log.info("Redelivered {} tasks with expired leases", redelivered);
+        }
+        if (!deadLettered.isEmpty()) {
+            deadLettered.forEach(this::markDeadLettered);
+            redisTemplate.opsForZSet().removeRangeByScore(DEAD_LETTER_QUEUE, 0, now - DEAD_LETTER_RETENTION_MS);
+            log.warn("Dead-lettered {} tasks whose leases expired after {} retries", deadLettered.size(), maxRetryAttempts);
+        }
+        return redelivered;
+    }
+    
+    /**
+     * ✅ MIGRATION: Drain tasks left in the legacy layout into the scripted queue
+     * 
+     * Runs at startup and is a no-op once the legacy keys are empty. Each task is
+     * enqueued before it is removed from its legacy key, and enqueue is idempotent,
+     * so instances draining concurrently or a crash mid-drain lose nothing. Tasks
+     * leased under the legacy layout are queued again.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void drainLegacyQueues() {
+        log.info("Drained {} tasks from the legacy task queue layout", drainLegacyTasks());
+    }
+    
+    /**
+     * ✅ MIGRATION: One pass over the legacy keys
+     * 
+     * @return Number of tasks moved
+     */
+    int drainLegacyTasks() {
+        int moved = 0;
+        try {
+            for (String legacyQueue : LEGACY_LIST_QUEUES) {
+                String taskId;
+                while ((taskId = redisTemplate.opsForList().index(legacyQueue, 0)) != null) {
+                    if (!migrateLegacyTask(taskId)) {
+                        return moved;
+                    }
+                    redisTemplate.opsForList().remove(legacyQueue, 1, taskId);
+                    moved++;
+                }
+            }
+            for (String legacyQueue : LEGACY_SORTED_QUEUES) {
+                Set<String> taskIds;
+                while ((taskIds = redisTemplate.opsForZSet().range(legacyQueue, 0, LEGACY_DRAIN_BATCH - 1)) != null
+                        && !taskIds.isEmpty()) {
+                    for (String taskId : taskIds) {
+                        if (!migrateLegacyTask(taskId)) {
+                            return moved;
+                        }
+                        redisTemplate.opsForZSet().remove(legacyQueue, taskId);
+                        moved++;
+                    }
+                }
+            }
+            return moved;
+        } catch (Exception e) {
+            structuredLogger.logError("task_queue_migration", e.getMessage(), e, Map.of("moved", moved));
+            return moved;
+        }
+    }
+    
     // ✅ PRIVATE METHODS
     
-    private Optional<Task> dequeueFromQueue(String queueKey, String agentId) throws JsonProcessingException {
-        String taskIdStr = redisTemplate.opsForList().leftPop(queueKey);
-        if (taskIdStr == null) {
-            return Optional.empty();
+    private Long enqueue(Task task) throws JsonProcessingException {
+        return redisTemplate.execute(
+            TaskQueueScripts.ENQUEUE,
+            List.of(READY_QUEUE, INFLIGHT_QUEUE, READY_SCORES, TASK_DATA_PREFIX + task.getTaskId(), LEASE_TIMEOUTS,
+                RETRY_COUNTS, DEAD_LETTER_QUEUE),
+            task.getTaskId().toString(),
+            String.valueOf(priorityScore(task.getPriority(), Instant.now())),
+            objectMapper.writeValueAsString(task),
+            String.valueOf(DATA_TTL_SECONDS),
+            String.valueOf(maxQueueSize),
+            String.valueOf(leaseMillis(task)),
+            String.valueOf(task.getRetryCount() == null ? 0 : task.getRetryCount())
+        );
+    }
+    
+    /**
+     * Lease from the head of the ready set; the script skips candidates another
+     * agent leased first, and a fully contended window is retried
+     */
+    private List<Task> leaseTasks(String agentId, int maxTasks) throws JsonProcessingException {
+        for (int attempt = 0; attempt < LEASE_ATTEMPTS; attempt++) {
+            Set<String> candidates = redisTemplate.opsForZSet()
+                .range(READY_QUEUE, 0, (long) maxTasks * LEASE_CANDIDATE_FACTOR - 1);
+            if (candidates == null || candidates.isEmpty()) {
+                return List.of();
+            }
+            
+            List<String> keys = new ArrayList<>(candidates.size() + 7);
+            keys.addAll(List.of(READY_QUEUE, INFLIGHT_QUEUE, LEASE_OWNERS, TASK_PROCESSING_PREFIX + agentId,
+                READY_SCORES, LEASE_TIMEOUTS, RETRY_COUNTS));
+            List<String> args = new ArrayList<>(candidates.size() + 5);
+            args.addAll(List.of(String.valueOf(System.currentTimeMillis()), String.valueOf(visibilityTimeoutMs),
+                String.valueOf(maxTasks), agentId, String.valueOf(PROCESSING_TTL_SECONDS)));
+            for (String candidate : candidates) {
+                keys.add(TASK_DATA_PREFIX + candidate);
+                args.add(candidate);
+            }
+            
+            List<?> leased = redisTemplate.execute(TaskQueueScripts.LEASE, keys, args.toArray());
+            if (leased != null && !leased.isEmpty()) {
+                List<Task> tasks = new ArrayList<>(leased.size() / 3);
+                for (int i = 0; i + 2 < leased.size(); i += 3) {
+                    Task task = objectMapper.readValue((String) leased.get(i + 1), Task.class);
+                    task.setRetryCount(Math.max(task.getRetryCount(), Integer.parseInt(leased.get(i + 2).toString())));
+                    tasks.add(task);
+                }
+                return tasks;
+            }
         }
+        return List.of();
+    }
+    
+    private boolean releaseLease(Task task, String agentId, long ttlSeconds, Long requeueScore) throws JsonProcessingException {
+        Long released = redisTemplate.execute(
+            TaskQueueScripts.RELEASE,
+            List.of(READY_QUEUE, INFLIGHT_QUEUE, LEASE_OWNERS, TASK_PROCESSING_PREFIX + agentId, READY_SCORES,
+                TASK_DATA_PREFIX + task.getTaskId(), LEASE_TIMEOUTS, RETRY_COUNTS),
+            task.getTaskId().toString(),
+            agentId,
+            objectMapper.writeValueAsString(task),
+            String.valueOf(ttlSeconds),
+            requeueScore == null ? "" : requeueScore.toString(),
+            String.valueOf(task.getRetryCount())
+        );
+        return released != null && released == 1;
+    }
+    
+    /**
+     * Attempts recorded by the queue, which also counts expired leases
+     */
+    private int queuedRetryCount(Long taskId) {
+        Object retries = redisTemplate.opsForHash().get(RETRY_COUNTS, taskId.toString());
+        return retries == null ? 0 : Integer.parseInt(retries.toString());
+    }
+    
+    private long leaseMillis(Task task) {
+        Integer timeoutSeconds = task.getTimeoutSeconds();
+        return timeoutSeconds != null && timeoutSeconds > 0 ? timeoutSeconds * 1000L : visibilityTimeoutMs;
+    }
+    
+    private void recordFinalFailure(Task task, String agentId, String errorMessage) throws JsonProcessingException {
+        String failedKey = TASK_FAILED_PREFIX + Instant.now().toEpochMilli();
+        Map<String, Object> failureInfo = Map.of(
+            "taskId", task.getTaskId(),
+            "agentId", agentId,
+            "error", errorMessage,
+            "retryCount", task.getRetryCount(),
+            "failedAt", Instant.now()
+        );
+        redisTemplate.opsForValue().set(failedKey, objectMapper.writeValueAsString(failureInfo), Duration.ofDays(30));
         
-        Long taskId = Long.parseLong(taskIdStr);
-        return getTaskById(taskId);
+        structuredLogger.logTaskFailure(
+            task.getTaskId().toString(),
+            task.getTaskType().toString(),
+            agentId,
+            errorMessage,
+            System.currentTimeMillis() - task.getCreatedAt().toEpochMilli()
+        );
+    }
+    
+    /**
+     * Record a dead-lettered task as permanently failed; its lease owner is no longer known
+     */
+    private void markDeadLettered(String taskId) {
+        try {
+            Optional<Task> taskOpt = getTaskById(Long.valueOf(taskId));
+            if (taskOpt.isEmpty()) {
+                return;
+            }
+            Task task = taskOpt.get();
+            String error = "Lease expired after " + maxRetryAttempts + " retries";
+            task.setRetryCount(maxRetryAttempts);
+            task.markAsFailed(error);
+            redisTemplate.opsForValue().set(TASK_DATA_PREFIX + taskId, objectMapper.writeValueAsString(task),
+                Duration.ofSeconds(FAILED_TTL_SECONDS));
+            recordFinalFailure(task, "unknown", error);
+        } catch (Exception e) {
+            structuredLogger.logError("task_dead_letter", e.getMessage(), e, Map.of("taskId", taskId));
+        }
+    }
+    
+    /**
+     * Queue one legacy task in the current layout
+     * 
+     * @return false when the queue is full and draining must stop
+     */
+    private boolean migrateLegacyTask(String taskId) throws JsonProcessingException {
+        String taskJson = redisTemplate.opsForValue().get(LEGACY_DATA_PREFIX + taskId);
+        if (taskJson == null) {
+            return true;
+        }
+        Task task = objectMapper.readValue(taskJson, Task.class);
+        task.setStatus(TaskStatus.PENDING);
+        Long queued = enqueue(task);
+        if (queued != null && queued == -1) {
+            log.warn("Task queue full; legacy task {} and the rest stay in the legacy layout until the next start", taskId);
+            return false;
+        }
+        redisTemplate.delete(LEGACY_DATA_PREFIX + taskId);
+        return true;
     }
     
     private Optional<Task> getTaskById(Long taskId) throws JsonProcessingException {
@@ -355,24 +663,15 @@ public class TaskQueueService {
         return Optional.of(task);
     }
     
-    private void markTaskAsProcessing(Task task, String agentId) {
-        String processingKey = TASK_PROCESSING_PREFIX + agentId;
-        redisTemplate.opsForSet().add(processingKey, task.getTaskId().toString());
-        redisTemplate.expire(processingKey, Duration.ofHours(2));
-    }
-    
-    private String getQueueKeyByPriority(TaskPriority priority) {
-        return switch (priority) {
-            case CRITICAL, HIGH -> HIGH_PRIORITY_QUEUE;
-            case NORMAL -> NORMAL_PRIORITY_QUEUE;
-            case LOW, DEFERRED -> LOW_PRIORITY_QUEUE;
+    private static long priorityScore(TaskPriority priority, Instant enqueuedAt) {
+        int band = switch (priority) {
+            case CRITICAL -> 0;
+            case HIGH -> 1;
+            case NORMAL -> 2;
+            case LOW -> 3;
+            case DEFERRED -> 4;
         };
-    }
-    
-    private long getTotalQueueSize() {
-        return redisTemplate.opsForList().size(HIGH_PRIORITY_QUEUE) +
-               redisTemplate.opsForList().size(NORMAL_PRIORITY_QUEUE) +
-               redisTemplate.opsForList().size(LOW_PRIORITY_QUEUE);
+        return band * PRIORITY_BAND + enqueuedAt.toEpochMilli();
     }
     
     // ✅ DATA MODEL
@@ -383,6 +682,8 @@ public class TaskQueueService {
         private long highPriorityTasks;
         private long normalPriorityTasks;
         private long lowPriorityTasks;
+        private long inFlightTasks;
+        private long deadLetteredTasks;
         private long totalTasks;
         private int maxQueueSize;
         private double utilizationPercent;
@@ -15,8 +15,12 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Task Service
@@ -31,6 +35,7 @@ import java.util.Optional;
 public class TaskService {
 
     private final TaskRepository taskRepository;
+    private final EventPublishingService eventPublishingService;
 
     // Task Creation & Lifecycle Management
 
@@ -163,6 +168,42 @@ public class TaskService {
         updateTaskStatus(taskId, TaskStatus.QUEUED);
     }
 
+    /**
+     * Claim a batch of dispatcher assignments and hand the tasks to their agents
+     * Each task moves PENDING -> IN_PROGRESS through a conditional update, so when
+     * two dispatchers match the same task only the one whose update hits the row
+     * owns it. A task started event is written to the outbox for every claimed
+     * task in the same transaction, delivering it to the agent. The claimed task
+     * ids are returned
+     */
+    public Set<Long> recordAssignments(Map<Long, Long> agentIdsByTaskId) {
+        Instant claimedAt = Instant.now();
+        Set<Long> claimed = agentIdsByTaskId.entrySet().stream()
+            .filter(entry -> taskRepository.claimPendingTask(entry.getKey(), entry.getValue(), claimedAt) == 1)
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        
+        taskRepository.findAllById(claimed).forEach(task -> eventPublishingService.publishTaskStarted(
+            task.getTaskId(), task.getTaskName(), agentIdsByTaskId.get(task.getTaskId()), null));
+        
+        log.debug("Claimed {} of {} dispatcher assignments", claimed.size(), agentIdsByTaskId.size());
+        return claimed;
+    }
+
+    /**
+     * Adopt PENDING tasks that no dispatcher has touched since the threshold
+     * The rows are locked with SKIP LOCKED and re-stamped before commit, so
+     * instances reconciling at the same time adopt disjoint sets and the
+     * adopted tasks are skipped by everyone for another full interval
+     */
+    public List<Task> adoptStalePendingTasks(Instant staleBefore, int limit) {
+        List<Task> stale = taskRepository.lockStalePendingTasks(staleBefore, limit);
+        if (!stale.isEmpty()) {
+            taskRepository.touchTasks(stale.stream().map(Task::getTaskId).toList(), Instant.now());
+        }
+        return stale;
+    }
+
     /**
      * Get next task from queue for execution
      */
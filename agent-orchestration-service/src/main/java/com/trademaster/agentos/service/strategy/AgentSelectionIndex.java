@@ -0,0 +1,508 @@
+package com.trademaster.agentos.service.strategy;
+
+import com.trademaster.agentos.domain.entity.Agent;
+import com.trademaster.agentos.domain.entity.AgentCapability;
+import com.trademaster.agentos.domain.entity.AgentStatus;
+import com.trademaster.agentos.domain.entity.AgentType;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * ✅ INDEXED SELECTION: Weighted agent selection without per-call scoring
+ *
+ * Index counterpart of {@link AgentSelectionStrategy#composite}. Agents are
+ * bucketed by type and load band; each bucket keeps one slot bitset per
+ * capability. The weighted score is computed when an agent's metrics or load
+ * change (upsert / updateLoad), never at selection time.
+ *
+ * Selection for a task is:
+ * - AND the capability bitsets of the required capabilities within a bucket
+ * - pop the bucket's score heap from the root until a surviving slot comes
+ *   up; only slots scoring above the winner are ever looked at
+ * - visit buckets by their score upper bound and stop as soon as no remaining
+ *   bucket can beat the best agent found
+ *
+ * Only ACTIVE or BUSY agents below capacity are selectable, and agents without
+ * declared capabilities accept any task, matching
+ * AgentRepository.findOptimalAgentForTask. TaskDispatcher owns the index: it
+ * indexes agents as they become dispatchable and moves their load on every
+ * assignment and release.
+ * Thread-safe: selections share a read lock, updates take the write lock.
+ */
+public final class AgentSelectionIndex {
+
+    public static final int LOAD_BANDS = 4;
+
+    private final List<AgentSelectionStrategy.WeightedStrategy> staticComponents;
+    private final double loadWeight;
+    private final int[] bandVisitOrder;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<AgentType, Bucket[]> buckets = new EnumMap<>(AgentType.class);
+
+    AgentSelectionIndex(List<AgentSelectionStrategy.WeightedStrategy> staticComponents, double loadWeight) {
+        this.staticComponents = List.copyOf(staticComponents);
+        this.loadWeight = loadWeight;
+        this.bandVisitOrder = IntStream.range(0, LOAD_BANDS)
+            .boxed()
+            .sorted(Comparator.comparingDouble(this::loadComponentBound).reversed())
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    // ========== Updates ==========
+
+    /**
+     * Index or re-index an agent after registration, heartbeat or metrics change
+     */
+    public void upsert(Agent agent) {
+        upsert(agent, CapabilityMask.of(agent.getCapabilities()));
+    }
+
+    /**
+     * Index an agent with an explicit capability mask
+     */
+    public void upsert(Agent agent, CapabilityMask capabilities) {
+        upsert(agent, capabilities, agent.getCurrentLoad());
+    }
+
+    /**
+     * Index an agent at a known load, e.g. one that includes unwritten assignments
+     */
+    public void upsert(Agent agent, CapabilityMask capabilities, Integer currentLoad) {
+        if (agent.getStatus() != AgentStatus.ACTIVE && agent.getStatus() != AgentStatus.BUSY) {
+            remove(agent.getAgentId());
+            return;
+        }
+        double staticScore = staticComponents.stream()
+            .mapToDouble(component -> component.calculateScore(agent))
+            .sum();
+        Entry entry = new Entry(
+            agent.getAgentId(),
+            agent.getAgentType(),
+            capabilities,
+            agent.getMaxConcurrentTasks() == null ? 1 : Math.max(1, agent.getMaxConcurrentTasks()),
+            staticScore);
+
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.put(entry.agentId, entry);
+            if (previous != null) {
+                detach(previous);
+            }
+            setLoad(entry, currentLoad);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a load change; only the load component and the band move
+     * Returns false when the agent is not indexed
+     */
+    public boolean updateLoad(Long agentId, int currentLoad) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(agentId);
+            if (entry == null) {
+                return false;
+            }
+            detach(entry);
+            setLoad(entry, currentLoad);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a relative load change, e.g. a batch of dispatcher assignments
+     * Returns false when the agent is not indexed
+     */
+    public boolean adjustLoad(Long agentId, int delta) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(agentId);
+            if (entry == null) {
+                return false;
+            }
+            detach(entry);
+            setLoad(entry, entry.load + delta);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop every agent not in the given set, e.g. after a full reload
+     */
+    public void retainOnly(Collection<Long> agentIds) {
+        Set<Long> retained = Set.copyOf(agentIds);
+        lock.writeLock().lock();
+        try {
+            entries.values().removeIf(entry -> {
+                if (retained.contains(entry.agentId)) {
+                    return false;
+                }
+                detach(entry);
+                return true;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long agentId) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.remove(agentId);
+            if (entry != null) {
+                detach(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== Selection ==========
+
+    public Optional<Long> selectAgent(AgentType agentType, Collection<AgentCapability> requiredCapabilities) {
+        return selectAgent(agentType, CapabilityMask.of(requiredCapabilities));
+    }
+
+    /**
+     * Highest scoring selectable agent of the type holding every required capability
+     */
+    public Optional<Long> selectAgent(AgentType agentType, CapabilityMask required) {
+        lock.readLock().lock();
+        try {
+            Bucket[] bands = buckets.get(agentType);
+            if (bands == null) {
+                return Optional.empty();
+            }
+            long bestId = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int band : bandVisitOrder) {
+                Bucket bucket = bands[band];
+                if (bucket.size == 0) {
+                    continue;
+                }
+                double bound = bucket.maxStaticScore + loadComponentBound(band);
+                if (bestId >= 0 && bound < bestScore) {
+                    continue;
+                }
+                int slot = bucket.best(required);
+                if (slot >= 0 && isBetter(bucket.scores[slot], bucket.agentIds[slot], bestScore, bestId)) {
+                    bestScore = bucket.scores[slot];
+                    bestId = bucket.agentIds[slot];
+                }
+            }
+            return bestId >= 0 ? Optional.of(bestId) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== Internals (write lock held) ==========
+
+    private void setLoad(Entry entry, Integer currentLoad) {
+        entry.load = Math.max(0, currentLoad == null ? 0 : currentLoad);
+        if (entry.load >= entry.maxConcurrentTasks) {
+            entry.band = -1;
+            return;
+        }
+        entry.band = entry.load * LOAD_BANDS / entry.maxConcurrentTasks;
+        double score = entry.staticScore
+            + loadWeight * (1.0 - (double) entry.load / entry.maxConcurrentTasks);
+        Bucket bucket = buckets.computeIfAbsent(entry.agentType, type -> newBands())[entry.band];
+        entry.slot = bucket.add(entry, score);
+    }
+
+    private void detach(Entry entry) {
+        if (entry.band >= 0) {
+            buckets.get(entry.agentType)[entry.band].remove(entry);
+            entry.band = -1;
+        }
+    }
+
+    /**
+     * Largest load component an agent in the band can carry
+     */
+    private double loadComponentBound(int band) {
+        double lowestLoad = 1.0 - (double) band / LOAD_BANDS;
+        double highestLoad = 1.0 - (double) (band + 1) / LOAD_BANDS;
+        return Math.max(loadWeight * lowestLoad, loadWeight * highestLoad);
+    }
+
+    private static Bucket[] newBands() {
+        Bucket[] bands = new Bucket[LOAD_BANDS];
+        Arrays.setAll(bands, band -> new Bucket());
+        return bands;
+    }
+
+    private static boolean isBetter(double score, long agentId, double bestScore, long bestId) {
+        return bestId < 0 || score > bestScore || (score == bestScore && agentId < bestId);
+    }
+
+    private static final class Entry {
+        private final long agentId;
+        private final AgentType agentType;
+        private final CapabilityMask capabilities;
+        private final int maxConcurrentTasks;
+        private final double staticScore;
+        private int load;
+        private int band = -1;
+        private int slot;
+
+        Entry(long agentId, AgentType agentType, CapabilityMask capabilities, int maxConcurrentTasks, double staticScore) {
+            this.agentId = agentId;
+            this.agentType = agentType;
+            this.capabilities = capabilities;
+            this.maxConcurrentTasks = maxConcurrentTasks;
+            this.staticScore = staticScore;
+        }
+    }
+
+    /**
+     * Agents of one type and load band in dense slots; postings[c] has bit s
+     * set when the agent in slot s holds capability c, and heap orders the
+     * occupied slots best score first
+     */
+    private static final class Bucket {
+        private long[] agentIds = new long[64];
+        private double[] scores = new double[64];
+        private int[] heap = new int[64];
+        private int[] heapPositions = new int[64];
+        private long[] occupied = new long[1];
+        private long[] generalists = new long[1];
+        private long[][] postings = new long[0][];
+        private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+        private int nextSlot;
+        private int size;
+        private double maxStaticScore = Double.NEGATIVE_INFINITY;
+
+        int add(Entry entry, double score) {
+            int slot = freeSlots.isEmpty() ? nextSlot++ : freeSlots.pop();
+            if (slot >= agentIds.length) {
+                agentIds = Arrays.copyOf(agentIds, agentIds.length * 2);
+                scores = Arrays.copyOf(scores, scores.length * 2);
+                heap = Arrays.copyOf(heap, heap.length * 2);
+                heapPositions = Arrays.copyOf(heapPositions, heapPositions.length * 2);
+            }
+            agentIds[slot] = entry.agentId;
+            scores[slot] = score;
+            occupied = set(occupied, slot);
+            if (entry.capabilities.isEmpty()) {
+                generalists = set(generalists, slot);
+            }
+            CapabilityMask capabilities = entry.capabilities;
+            for (int w = 0; w < capabilities.wordCount(); w++) {
+                for (long word = capabilities.word(w); word != 0; word &= word - 1) {
+                    int capability = (w << 6) + Long.numberOfTrailingZeros(word);
+                    if (capability >= postings.length) {
+                        postings = Arrays.copyOf(postings, capability + 1);
+                    }
+                    postings[capability] = set(postings[capability] == null ? new long[1] : postings[capability], slot);
+                }
+            }
+            place(slot, size);
+            siftUp(size++);
+            maxStaticScore = Math.max(maxStaticScore, entry.staticScore);
+            return slot;
+        }
+
+        void remove(Entry entry) {
+            int slot = entry.slot;
+            clear(occupied, slot);
+            clear(generalists, slot);
+            CapabilityMask capabilities = entry.capabilities;
+            for (int w = 0; w < capabilities.wordCount(); w++) {
+                for (long word = capabilities.word(w); word != 0; word &= word - 1) {
+                    clear(postings[(w << 6) + Long.numberOfTrailingZeros(word)], slot);
+                }
+            }
+            freeSlots.push(slot);
+
+            int position = heapPositions[slot];
+            if (position < --size) {
+                place(heap[size], position);
+                siftDown(position);
+                siftUp(position);
+            }
+            if (size == 0) {
+                maxStaticScore = Double.NEGATIVE_INFINITY;
+            }
+        }
+
+        /**
+         * Slot of the best agent holding every required capability, or -1
+         */
+        int best(CapabilityMask required) {
+            if (size == 0) {
+                return -1;
+            }
+            if (required.isEmpty()) {
+                return heap[0];
+            }
+
+            // Sized to both bitsets: a generalist word past the occupied words must not be dropped
+            long[] candidates = Arrays.copyOf(occupied, Math.max(occupied.length, generalists.length));
+            for (int w = 0; w < required.wordCount(); w++) {
+                for (long word = required.word(w); word != 0; word &= word - 1) {
+                    int capability = (w << 6) + Long.numberOfTrailingZeros(word);
+                    long[] posting = capability < postings.length ? postings[capability] : null;
+                    for (int i = 0; i < candidates.length; i++) {
+                        candidates[i] &= posting != null && i < posting.length ? posting[i] : 0L;
+                    }
+                }
+            }
+            boolean anyCandidate = false;
+            for (int i = 0; i < candidates.length; i++) {
+                if (i < generalists.length) {
+                    candidates[i] |= generalists[i];
+                }
+                anyCandidate |= candidates[i] != 0;
+            }
+            if (!anyCandidate) {
+                return -1;
+            }
+
+            // Pop the score heap in order: a frontier heap holds the children of
+            // every slot popped so far, so the first candidate popped is the best
+            int[] frontier = new int[16];
+            int frontierSize = 0;
+            frontier[frontierSize++] = 0;
+            while (frontierSize > 0) {
+                int position = frontier[0];
+                frontier[0] = frontier[--frontierSize];
+                siftDownFrontier(frontier, frontierSize);
+
+                int slot = heap[position];
+                if ((candidates[slot >>> 6] & (1L << slot)) != 0) {
+                    return slot;
+                }
+                for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+                    if (frontierSize == frontier.length) {
+                        frontier = Arrays.copyOf(frontier, frontier.length * 2);
+                    }
+                    frontier[frontierSize] = child;
+                    siftUpFrontier(frontier, frontierSize++);
+                }
+            }
+            return -1;
+        }
+
+        // ========== Score Heap ==========
+
+        private boolean higher(int slot, int other) {
+            return isBetter(scores[slot], agentIds[slot], scores[other], agentIds[other]);
+        }
+
+        private void place(int slot, int position) {
+            heap[position] = slot;
+            heapPositions[slot] = position;
+        }
+
+        private void siftUp(int position) {
+            int slot = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (!higher(slot, heap[parent])) {
+                    break;
+                }
+                place(heap[parent], position);
+                position = parent;
+            }
+            place(slot, position);
+        }
+
+        private void siftDown(int position) {
+            int slot = heap[position];
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && higher(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!higher(heap[child], slot)) {
+                    break;
+                }
+                place(heap[child], position);
+                position = child;
+            }
+            place(slot, position);
+        }
+
+        private void siftUpFrontier(int[] frontier, int index) {
+            int position = frontier[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!higher(heap[position], heap[frontier[parent]])) {
+                    break;
+                }
+                frontier[index] = frontier[parent];
+                index = parent;
+            }
+            frontier[index] = position;
+        }
+
+        private void siftDownFrontier(int[] frontier, int frontierSize) {
+            if (frontierSize == 0) {
+                return;
+            }
+            int index = 0;
+            int position = frontier[0];
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= frontierSize) {
+                    break;
+                }
+                if (child + 1 < frontierSize && higher(heap[frontier[child + 1]], heap[frontier[child]])) {
+                    child++;
+                }
+                if (!higher(heap[frontier[child]], heap[position])) {
+                    break;
+                }
+                frontier[index] = frontier[child];
+                index = child;
+            }
+            frontier[index] = position;
+        }
+
+        private static long[] set(long[] bits, int index) {
+            long[] target = (index >>> 6) < bits.length ? bits : Arrays.copyOf(bits, Math.max(bits.length * 2, (index >>> 6) + 1));
+            target[index >>> 6] |= 1L << index;
+            return target;
+        }
+
+        private static void clear(long[] bits, int index) {
+            if (bits != null && (index >>> 6) < bits.length) {
+                bits[index >>> 6] &= ~(1L << index);
+            }
+        }
+    }
+}
@@ -136,35 +136,52 @@ public interface AgentSelectionStrategy extends Function<List<Agent>, Optional<A
      */
     class Builder {
         private final List<WeightedStrategy> strategies = new java.util.ArrayList<>();
+        private final List<WeightedStrategy> loadIndependent = new java.util.ArrayList<>();
+        private double loadBalanceWeight;
         
         public Builder withLoadBalance(double weight) {
             strategies.add(WeightedStrategy.loadWeight(weight));
+            loadBalanceWeight += weight;
             return this;
         }
         
         public Builder withPerformance(double weight) {
-            strategies.add(WeightedStrategy.performanceWeight(weight));
-            return this;
+            return withLoadIndependent(WeightedStrategy.performanceWeight(weight));
         }
         
         public Builder withResponseTime(double weight) {
-            strategies.add(WeightedStrategy.responseTimeWeight(weight));
-            return this;
+            return withLoadIndependent(WeightedStrategy.responseTimeWeight(weight));
         }
         
         public Builder withExperience(double weight) {
-            strategies.add(WeightedStrategy.experienceWeight(weight));
-            return this;
+            return withLoadIndependent(WeightedStrategy.experienceWeight(weight));
         }
         
+        /**
+         * Custom components must depend only on agent metrics, not on current load,
+         * so that buildIndex() can precompute them
+         */
         public Builder withCustom(Function<Agent, Double> scoreFunction, double weight) {
-            strategies.add(new WeightedStrategy(scoreFunction, weight));
+            return withLoadIndependent(new WeightedStrategy(scoreFunction, weight));
+        }
+        
+        private Builder withLoadIndependent(WeightedStrategy strategy) {
+            strategies.add(strategy);
+            loadIndependent.add(strategy);
             return this;
         }
         
         public AgentSelectionStrategy build() {
             return composite(List.copyOf(strategies));
         }
+        
+        /**
+         * ✅ INDEXED SELECTION: Same weighted score, precomputed per agent and
+         * looked up by type and capability bitset instead of scanning candidates
+         */
+        public AgentSelectionIndex buildIndex() {
+            return new AgentSelectionIndex(loadIndependent, loadBalanceWeight);
+        }
     }
     
     /**
@@ -0,0 +1,97 @@
+package com.trademaster.agentos.service.strategy;
+
+import com.trademaster.agentos.domain.entity.AgentCapability;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.IntStream;
+
+/**
+ * ✅ IMMUTABLE VALUE: Capability set encoded as a bitset
+ *
+ * Bit i is set when the capability with ordinal i is present, so containment
+ * is a word-wise AND instead of a list scan. Arbitrary bit positions are
+ * accepted so the selection index is not limited to the size of the enum.
+ */
+public final class CapabilityMask {
+
+    public static final CapabilityMask EMPTY = new CapabilityMask(new long[0]);
+
+    private final long[] words;
+
+    private CapabilityMask(long[] words) {
+        this.words = words;
+    }
+
+    public static CapabilityMask of(Collection<AgentCapability> capabilities) {
+        return capabilities == null || capabilities.isEmpty()
+            ? EMPTY
+            : ofBits(capabilities.stream().mapToInt(AgentCapability::ordinal).toArray());
+    }
+
+    public static CapabilityMask ofBits(int... bits) {
+        if (bits.length == 0) {
+            return EMPTY;
+        }
+        long[] words = new long[(IntStream.of(bits).max().getAsInt() >>> 6) + 1];
+        for (int bit : bits) {
+            if (bit < 0) {
+                throw new IllegalArgumentException("Capability bit must be non-negative: " + bit);
+            }
+            words[bit >>> 6] |= 1L << bit;
+        }
+        return new CapabilityMask(words);
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    /**
+     * True when every capability in {@code required} is also in this mask
+     */
+    public boolean containsAll(CapabilityMask required) {
+        for (int i = 0; i < required.words.length; i++) {
+            long word = i < words.length ? words[i] : 0L;
+            if ((required.words[i] & ~word) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Set bit positions in ascending order
+     */
+    public IntStream bits() {
+        return IntStream.range(0, words.length << 6)
+            .filter(bit -> (words[bit >>> 6] & (1L << bit)) != 0);
+    }
+
+    public int cardinality() {
+        return Arrays.stream(words).mapToInt(Long::bitCount).sum();
+    }
+
+    int wordCount() {
+        return words.length;
+    }
+
+    long word(int index) {
+        return index < words.length ? words[index] : 0L;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof CapabilityMask other && Arrays.equals(words, other.words));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return "CapabilityMask" + Arrays.toString(bits().toArray());
+    }
+}
@@ -0,0 +1,27 @@
+-- TradeMaster Agent OS - Database Schema Migration
+-- Version 2.0.0 - Transactional outbox and consumer deduplication
+
+-- Event outbox - events written with the state change they describe,
+-- drained to Kafka by the outbox relay and deleted once acknowledged
+CREATE TABLE event_outbox (
+    outbox_id BIGSERIAL PRIMARY KEY,
+    event_id VARCHAR(64) NOT NULL UNIQUE,
+    topic VARCHAR(100) NOT NULL,
+    message_key VARCHAR(100) NOT NULL,
+    event_type VARCHAR(100) NOT NULL,
+    payload_type VARCHAR(200) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Processed events - one row per consumer group and event, so redelivered
+-- events are applied once
+CREATE TABLE processed_events (
+    consumer_group VARCHAR(100) NOT NULL,
+    event_id VARCHAR(64) NOT NULL,
+    processed_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (consumer_group, event_id)
+);
+
+CREATE INDEX idx_processed_events_processed_at ON processed_events(processed_at);
@@ -0,0 +1,107 @@
+package com.trademaster.agentos.domain.immutable;
+
+import com.trademaster.agentos.domain.dto.TaskDto;
+import com.trademaster.agentos.domain.entity.TaskPriority;
+import com.trademaster.agentos.domain.entity.TaskStatus;
+import com.trademaster.agentos.domain.entity.TaskType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ✅ BENCHMARK: Persistent Task Queue Throughput
+ *
+ * Enqueue, dequeue and status-update throughput against a queue that already
+ * holds 1k or 100k tasks. Every operation is applied to the same base
+ * version, which is only possible because versions share structure; the
+ * previous copy-on-write implementation paid O(n) per operation here.
+ *
+ * Run with: {@code java -cp <test classpath> com.trademaster.agentos.domain.immutable.ImmutableTaskQueueBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImmutableTaskQueueBenchmark {
+
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+    private static final int PROBES = 1024;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private ImmutableTaskQueue base;
+    private TaskDto[] newTasks;
+    private long[] existingIds;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<TaskDto> tasks = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            tasks.add(task(id));
+        }
+        base = ImmutableTaskQueue.of(tasks, size + PROBES);
+
+        newTasks = new TaskDto[PROBES];
+        existingIds = new long[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            newTasks[i] = task(size + 1L + i);
+            existingIds[i] = 1L + (long) i * size / PROBES;
+        }
+    }
+
+    @Benchmark
+    public ImmutableTaskQueue enqueue() {
+        return base.enqueue(newTasks[next()]).queue();
+    }
+
+    @Benchmark
+    public ImmutableTaskQueue.DequeueResult dequeue() {
+        return base.dequeue();
+    }
+
+    @Benchmark
+    public ImmutableTaskQueue enqueueThenDequeue() {
+        return base.enqueue(newTasks[next()]).queue().dequeue().queue();
+    }
+
+    @Benchmark
+    public ImmutableTaskQueue updateTaskStatus() {
+        return base.updateTaskStatus(existingIds[next()], TaskStatus.CANCELLED).queue();
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (PROBES - 1);
+        return cursor;
+    }
+
+    private static TaskDto task(long id) {
+        return TaskDto.minimal(id, "task-" + id, TaskType.MARKET_ANALYSIS, TaskStatus.PENDING,
+            PRIORITIES[(int) (id % PRIORITIES.length)], 0);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(ImmutableTaskQueueBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
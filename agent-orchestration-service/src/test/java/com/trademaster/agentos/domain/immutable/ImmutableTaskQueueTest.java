@@ -0,0 +1,188 @@
+package com.trademaster.agentos.domain.immutable;
+
+import com.trademaster.agentos.domain.dto.AgentDto;
+import com.trademaster.agentos.domain.dto.TaskDto;
+import com.trademaster.agentos.domain.entity.AgentStatus;
+import com.trademaster.agentos.domain.entity.AgentType;
+import com.trademaster.agentos.domain.entity.TaskPriority;
+import com.trademaster.agentos.domain.entity.TaskStatus;
+import com.trademaster.agentos.domain.entity.TaskType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ✅ MANDATORY: Unit Tests for Persistent Queue and Registry Structures
+ *
+ * Validates the persistent collections against java.util references and
+ * checks that earlier versions are untouched by later operations.
+ */
+class ImmutableTaskQueueTest {
+
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+
+    @Test
+    void persistentHashMapMatchesHashMapUnderRandomOperations() {
+        Random random = new Random(42);
+        Map<Long, Integer> reference = new HashMap<>();
+        PersistentHashMap<Long, Integer> map = PersistentHashMap.empty();
+
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                reference.remove(key);
+                map = map.minus(key);
+            } else {
+                reference.put(key, i);
+                map = map.plus(key, i);
+            }
+        }
+
+        PersistentHashMap<Long, Integer> result = map;
+        assertThat(result.size()).isEqualTo(reference.size());
+        reference.forEach((key, value) -> assertThat(result.get(key)).isEqualTo(value));
+        assertThat(result.keys().toList()).containsExactlyInAnyOrderElementsOf(reference.keySet());
+    }
+
+    @Test
+    void persistentHashMapHandlesFullHashCollisions() {
+        PersistentHashMap<CollidingKey, String> map = PersistentHashMap.empty();
+        for (int i = 0; i < 10; i++) {
+            map = map.plus(new CollidingKey(i), "v" + i);
+        }
+        PersistentHashMap<CollidingKey, String> pruned = map;
+        for (int i = 0; i < 9; i++) {
+            pruned = pruned.minus(new CollidingKey(i));
+        }
+
+        assertThat(map.size()).isEqualTo(10);
+        assertThat(map.get(new CollidingKey(7))).isEqualTo("v7");
+        assertThat(pruned.size()).isEqualTo(1);
+        assertThat(pruned.get(new CollidingKey(9))).isEqualTo("v9");
+        assertThat(pruned).isEqualTo(PersistentHashMap.<CollidingKey, String>empty().plus(new CollidingKey(9), "v9"));
+    }
+
+    @Test
+    void persistentSortedMapMatchesTreeMapUnderRandomOperations() {
+        Random random = new Random(7);
+        TreeMap<Integer, Integer> reference = new TreeMap<>();
+        PersistentSortedMap<Integer, Integer> map = PersistentSortedMap.empty();
+
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(5_000);
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    reference.remove(key);
+                    map = map.minus(key);
+                }
+                case 1 -> {
+                    if (!reference.isEmpty()) {
+                        reference.pollFirstEntry();
+                    }
+                    map = map.minusFirst();
+                }
+                default -> {
+                    reference.put(key, i);
+                    map = map.plus(key, i);
+                }
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(reference.size());
+        assertThat(map.firstEntry()).isEqualTo(reference.firstEntry());
+        assertThat(map.stream().toList()).containsExactlyElementsOf(reference.entrySet());
+    }
+
+    @Test
+    void dequeueFollowsPriorityThenFifoOrder() {
+        ImmutableTaskQueue queue = ImmutableTaskQueue.empty(100);
+        List<TaskDto> tasks = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            TaskDto task = pendingTask(id, PRIORITIES[(int) (id % PRIORITIES.length)]);
+            tasks.add(task);
+            queue = queue.enqueue(task).queue();
+        }
+
+        List<Long> dequeued = new ArrayList<>();
+        ImmutableTaskQueue.DequeueResult result = queue.dequeue();
+        while (result.hasTask()) {
+            dequeued.add(result.task().get().taskId());
+            result = result.queue().dequeue();
+        }
+
+        List<Long> expected = tasks.stream()
+            .sorted((a, b) -> ImmutableTaskQueue.QueueKey.of(a).compareTo(ImmutableTaskQueue.QueueKey.of(b)))
+            .map(TaskDto::taskId)
+            .toList();
+        assertThat(dequeued).containsExactlyElementsOf(expected);
+        assertThat(result.queue().pendingSize()).isZero();
+        assertThat(result.queue().getTasksByStatus(TaskStatus.IN_PROGRESS)).hasSize(20);
+    }
+
+    @Test
+    void earlierVersionsAreUnchangedByLaterOperations() {
+        ImmutableTaskQueue v1 = ImmutableTaskQueue.of(
+            List.of(pendingTask(1L, TaskPriority.NORMAL), pendingTask(2L, TaskPriority.HIGH)), 10);
+        ImmutableTaskQueue v2 = v1.enqueue(pendingTask(3L, TaskPriority.CRITICAL)).queue();
+        ImmutableTaskQueue v3 = v2.dequeue().queue();
+        ImmutableTaskQueue v4 = v3.updateTaskStatus(1L, TaskStatus.CANCELLED).queue();
+
+        assertThat(v1.size()).isEqualTo(2);
+        assertThat(v1.peek()).map(TaskDto::taskId).contains(2L);
+        assertThat(v2.peek()).map(TaskDto::taskId).contains(3L);
+        assertThat(v3.getTask(3L)).map(TaskDto::status).contains(TaskStatus.IN_PROGRESS);
+        assertThat(v3.getTasksByStatus(TaskStatus.PENDING)).hasSize(2);
+        assertThat(v4.getPendingTasks()).extracting(TaskDto::taskId).containsExactly(2L);
+        assertThat(v4.getTasksByStatus(TaskStatus.CANCELLED)).extracting(TaskDto::taskId).containsExactly(1L);
+        assertThat(List.of(v1.getVersion(), v2.getVersion(), v3.getVersion(), v4.getVersion()))
+            .containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    void enqueueRejectsDuplicatesAndOverflow() {
+        ImmutableTaskQueue queue = ImmutableTaskQueue.empty(1).enqueue(pendingTask(1L, TaskPriority.LOW)).queue();
+
+        ImmutableTaskQueue.QueueOperationResult<ImmutableTaskQueue> duplicate = queue.enqueue(pendingTask(1L, TaskPriority.LOW));
+        ImmutableTaskQueue.QueueOperationResult<ImmutableTaskQueue> overflow = queue.enqueue(pendingTask(2L, TaskPriority.LOW));
+
+        assertThat(duplicate.queue()).isSameAs(queue);
+        assertThat(overflow.success()).isFalse();
+        assertThat(overflow.queue()).isSameAs(queue);
+    }
+
+    @Test
+    void agentRegistryKeepsIndexesConsistent() {
+        ImmutableAgentRegistry registry = ImmutableAgentRegistry.empty();
+        for (long id = 1; id <= 100; id++) {
+            AgentType type = AgentType.values()[(int) (id % AgentType.values().length)];
+            registry = registry.withAgent(AgentDto.forResponse(id, "agent-" + id, type, AgentStatus.ACTIVE, 0, 10, 1.0));
+        }
+        ImmutableAgentRegistry before = registry;
+        ImmutableAgentRegistry after = registry.withAgentStatus(5L, AgentStatus.ERROR).withoutAgent(6L);
+
+        assertThat(before.size()).isEqualTo(100);
+        assertThat(before.getAgentsByStatus(AgentStatus.ACTIVE)).hasSize(100);
+        assertThat(after.size()).isEqualTo(99);
+        assertThat(after.getAgentsByStatus(AgentStatus.ERROR)).extracting(AgentDto::agentId).containsExactly(5L);
+        assertThat(after.getAgentCountsByStatus()).containsEntry(AgentStatus.ACTIVE, 98);
+        assertThat(after.getAgentCountsByType().values().stream().mapToInt(Integer::intValue).sum()).isEqualTo(99);
+    }
+
+    private static TaskDto pendingTask(long id, TaskPriority priority) {
+        return TaskDto.minimal(id, "task-" + id, TaskType.MARKET_ANALYSIS, TaskStatus.PENDING, priority, 0);
+    }
+
+    private record CollidingKey(int id) {
+        @Override
+        public int hashCode() {
+            return 0xCAFE;
+        }
+    }
+}
@@ -52,6 +52,9 @@ class AgentRegistryServiceTest {
     @Mock
     private SetOperations<String, String> setOperations;
     
+    @Mock
+    private HeartbeatAggregator heartbeatAggregator;
+    
     @InjectMocks
     private AgentRegistryService agentRegistryService;
     
@@ -0,0 +1,197 @@
+package com.trademaster.agentos.service;
+
+import com.trademaster.agentos.config.AgentOSMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ✅ MANDATORY: Unit Tests for Bounded Structured Concurrency
+ *
+ * Validates the per-scope concurrency limit, streaming in completion order,
+ * fail-fast vs partial failure, deadline handling across nested scopes and
+ * the in-flight / queue-wait metrics.
+ */
+class BoundedStructuredExecutorTest {
+
+    private AgentOSMetrics metrics;
+    private BoundedStructuredExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new AgentOSMetrics(new SimpleMeterRegistry());
+        executor = new BoundedStructuredExecutor(metrics);
+    }
+
+    @Test
+    void neverRunsMoreSubtasksThanTheLimit() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<Integer> items = IntStream.range(0, 1_000).boxed().toList();
+        List<Integer> results = new ArrayList<>();
+
+        BoundedStructuredExecutor.BatchOutcome outcome = executor.execute(
+            items,
+            item -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(1);
+                running.decrementAndGet();
+                return item * 2;
+            },
+            BoundedStructuredExecutor.BatchOptions.tolerant(16, Duration.ofSeconds(30)),
+            result -> results.add(result.value()));
+
+        assertThat(outcome.isComplete()).isTrue();
+        assertThat(outcome.succeeded()).isEqualTo(1_000);
+        assertThat(results).hasSize(1_000).containsAll(items.stream().map(i -> i * 2).toList());
+        assertThat(peak.get()).isBetween(1, 16);
+        assertThat(metrics.getStructuredSubtasksInFlight()).isZero();
+        assertThat(metrics.getStructuredQueueWait().count()).isEqualTo(1_000);
+    }
+
+    @Test
+    void streamsResultsInCompletionOrder() throws Exception {
+        List<Integer> order = new ArrayList<>();
+
+        executor.execute(
+            List.of(300, 10, 150),
+            delay -> {
+                sleep(delay);
+                return delay;
+            },
+            BoundedStructuredExecutor.BatchOptions.tolerant(3, Duration.ofSeconds(5)),
+            result -> order.add(result.value()));
+
+        assertThat(order).containsExactly(10, 150, 300);
+    }
+
+    @Test
+    void failFastCancelsRemainingSubtasks() throws Exception {
+        CountDownLatch never = new CountDownLatch(1);
+        AtomicInteger interrupted = new AtomicInteger();
+
+        BoundedStructuredExecutor.BatchOutcome outcome = executor.execute(
+            List.of(0, 1, 2, 3),
+            item -> {
+                if (item == 0) {
+                    throw new IllegalStateException("boom");
+                }
+                try {
+                    never.await();
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                }
+                return item;
+            },
+            BoundedStructuredExecutor.BatchOptions.failFast(4, Duration.ofSeconds(5)),
+            result -> { });
+
+        assertThat(outcome.failed()).isEqualTo(1);
+        assertThat(outcome.succeeded()).isZero();
+        assertThat(outcome.notCompleted()).isEqualTo(3);
+        assertThat(outcome.deadlineExceeded()).isFalse();
+        assertThat(outcome.firstFailure()).get().isInstanceOf(IllegalStateException.class);
+        assertThat(interrupted.get()).isEqualTo(3);
+        assertThat(metrics.getStructuredSubtasksInFlight()).isZero();
+    }
+
+    @Test
+    void tolerantPolicyReportsFailuresAndKeepsGoing() throws Exception {
+        List<Integer> failedIndexes = new ArrayList<>();
+
+        BoundedStructuredExecutor.BatchOutcome outcome = executor.execute(
+            IntStream.range(0, 50).boxed().toList(),
+            item -> {
+                if (item % 10 == 0) {
+                    throw new IllegalArgumentException("bad item " + item);
+                }
+                return item;
+            },
+            BoundedStructuredExecutor.BatchOptions.tolerant(8, Duration.ofSeconds(5)),
+            result -> {
+                if (!result.isSuccess()) {
+                    failedIndexes.add(result.index());
+                }
+            });
+
+        assertThat(outcome.succeeded()).isEqualTo(45);
+        assertThat(outcome.failed()).isEqualTo(5);
+        assertThat(outcome.isComplete()).isTrue();
+        assertThat(failedIndexes).containsExactlyInAnyOrder(0, 10, 20, 30, 40);
+    }
+
+    @Test
+    void deadlineStopsTheBatchAndCountsUnfinishedItems() throws Exception {
+        long start = System.nanoTime();
+
+        BoundedStructuredExecutor.BatchOutcome outcome = executor.execute(
+            IntStream.range(0, 20).boxed().toList(),
+            item -> {
+                sleep(item < 2 ? 5 : 5_000);
+                return item;
+            },
+            BoundedStructuredExecutor.BatchOptions.tolerant(4, Duration.ofMillis(200)),
+            result -> { });
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(3));
+        assertThat(outcome.deadlineExceeded()).isTrue();
+        assertThat(outcome.succeeded()).isEqualTo(2);
+        assertThat(outcome.notCompleted()).isEqualTo(18);
+        assertThat(metrics.getStructuredSubtasksInFlight()).isZero();
+    }
+
+    @Test
+    void nestedScopeInheritsTheEarlierDeadline() throws Exception {
+        assertThat(BoundedStructuredExecutor.currentDeadline()).isEmpty();
+        ConcurrentHashMap<String, Instant> deadlines = new ConcurrentHashMap<>();
+        long start = System.nanoTime();
+
+        BoundedStructuredExecutor.BatchOutcome outer = executor.execute(
+            List.of("outer"),
+            item -> {
+                deadlines.put("outer", BoundedStructuredExecutor.currentDeadline().orElseThrow());
+                try {
+                    // Asks for a minute but must end with the outer scope's 300 ms
+                    executor.execute(
+                        List.of(1, 2),
+                        value -> {
+                            deadlines.put("inner", BoundedStructuredExecutor.currentDeadline().orElseThrow());
+                            sleep(10_000);
+                            return value;
+                        },
+                        BoundedStructuredExecutor.BatchOptions.tolerant(2, Duration.ofMinutes(1)),
+                        result -> { });
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return item;
+            },
+            BoundedStructuredExecutor.BatchOptions.tolerant(1, Duration.ofMillis(300)),
+            result -> { });
+
+        assertThat(deadlines.get("inner")).isEqualTo(deadlines.get("outer"));
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        assertThat(outer.notCompleted() + outer.succeeded()).isEqualTo(1);
+        assertThat(BoundedStructuredExecutor.currentDeadline()).isEqualTo(Optional.empty());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
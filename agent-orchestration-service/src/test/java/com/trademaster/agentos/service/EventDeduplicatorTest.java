@@ -0,0 +1,69 @@
+package com.trademaster.agentos.service;
+
+import com.trademaster.agentos.config.AgentOSMetrics;
+import com.trademaster.agentos.events.TaskEvent;
+import com.trademaster.agentos.repository.ProcessedEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * ✅ MANDATORY: Unit Tests for Consumer Deduplication
+ *
+ * Validates that redelivered events are applied once per consumer group.
+ */
+class EventDeduplicatorTest {
+
+    private final Set<String> markers = ConcurrentHashMap.newKeySet();
+
+    private AgentOSMetrics metrics;
+    private EventDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        ProcessedEventRepository repository = mock(ProcessedEventRepository.class);
+        when(repository.markProcessed(anyString(), anyString(), any(Instant.class))).thenAnswer(invocation ->
+            markers.add(invocation.getArgument(0) + "/" + invocation.getArgument(1)) ? 1 : 0);
+
+        metrics = new AgentOSMetrics(new SimpleMeterRegistry());
+        deduplicator = new EventDeduplicator(repository, metrics);
+    }
+
+    @Test
+    void redeliveredEventsAreAppliedOnce() {
+        List<TaskEvent> events = new ArrayList<>();
+        for (long taskId = 1; taskId <= 100; taskId++) {
+            events.add(TaskEvent.taskCompleted(taskId, "task-" + taskId, 1L, "agent-1", 10L));
+        }
+        List<Long> applied = new ArrayList<>();
+
+        // Every event delivered three times
+        for (int delivery = 0; delivery < 3; delivery++) {
+            events.forEach(event -> deduplicator.handleOnce("billing", event, e -> applied.add(e.getTaskId())));
+        }
+
+        assertThat(applied).hasSize(100).doesNotHaveDuplicates();
+        assertThat(metrics.getDuplicateEventsSkipped()).isEqualTo(200);
+    }
+
+    @Test
+    void consumerGroupsDeduplicateIndependently() {
+        TaskEvent event = TaskEvent.taskFailed(1L, "task-1", 1L, "agent-1", "timeout");
+
+        assertThat(deduplicator.handleOnce("billing", event, e -> { })).isTrue();
+        assertThat(deduplicator.handleOnce("audit", event, e -> { })).isTrue();
+        assertThat(deduplicator.handleOnce("billing", event, e -> { })).isFalse();
+    }
+}
@@ -0,0 +1,274 @@
+package com.trademaster.agentos.service;
+
+import com.trademaster.agentos.config.AgentOSMetrics;
+import com.trademaster.agentos.domain.entity.Agent;
+import com.trademaster.agentos.domain.entity.AgentStatus;
+import com.trademaster.agentos.domain.entity.AgentType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ✅ MANDATORY: Unit Tests for Heartbeat Aggregation
+ *
+ * Validates coalescing into one pipelined flush, timer wheel expiry and
+ * rescheduling, cross-instance liveness through the shared heartbeat hash,
+ * task lease renewal for beating agents, and the write reduction metric under concurrent heartbeat traffic.
+ */
+class HeartbeatAggregatorTest {
+
+    private static final long TIMEOUT_MS = 120_000;
+    private static final long TICK_MS = 1_000;
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private final Map<String, String> sharedHeartbeats = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> loadHashes = new ConcurrentHashMap<>();
+    private final List<Collection<Long>> heartbeatBatches = new ArrayList<>();
+
+    private RedisTemplate<String, String> stringRedisTemplate;
+    private AgentService agentService;
+    private TaskDispatcher taskDispatcher;
+    private TaskQueueService taskQueueService;
+    private AgentOSMetrics metrics;
+    private HeartbeatAggregator aggregator;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        stringRedisTemplate = mock(RedisTemplate.class);
+        agentService = mock(AgentService.class);
+        taskDispatcher = mock(TaskDispatcher.class);
+        taskQueueService = mock(TaskQueueService.class);
+        metrics = new AgentOSMetrics(new SimpleMeterRegistry());
+
+        HashOperations<String, Object, Object> templateHashes = mock(HashOperations.class);
+        when(stringRedisTemplate.opsForHash()).thenReturn(templateHashes);
+        when(templateHashes.get(eq(HeartbeatAggregator.HEARTBEATS_KEY), any()))
+            .thenAnswer(invocation -> sharedHeartbeats.get(invocation.getArgument(1).toString()));
+        when(templateHashes.multiGet(eq(HeartbeatAggregator.HEARTBEATS_KEY), anyCollection()))
+            .thenAnswer(invocation -> {
+                Collection<Object> fields = invocation.getArgument(1);
+                return fields.stream().map(field -> (Object) sharedHeartbeats.get(field.toString())).toList();
+            });
+
+        // Run pipelined callbacks against an in-memory stand-in for Redis
+        RedisOperations<String, String> pipeline = mock(RedisOperations.class);
+        HashOperations<String, Object, Object> pipelineHashes = mock(HashOperations.class);
+        when(pipeline.opsForHash()).thenReturn(pipelineHashes);
+        doAnswer(invocation -> {
+            Map<Object, Object> fields = invocation.getArgument(1);
+            fields.forEach((field, value) -> sharedHeartbeats.put(field.toString(), value.toString()));
+            return null;
+        }).when(pipelineHashes).putAll(eq(HeartbeatAggregator.HEARTBEATS_KEY), any());
+        doAnswer(invocation -> {
+            loadHashes.computeIfAbsent(invocation.getArgument(0), key -> new HashMap<>())
+                .put(invocation.getArgument(1).toString(), invocation.getArgument(2).toString());
+            return null;
+        }).when(pipelineHashes).put(anyString(), any(), any());
+        when(stringRedisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            SessionCallback<Object> callback = invocation.getArgument(0);
+            callback.execute(pipeline);
+            return List.of();
+        });
+
+        when(agentService.recordHeartbeats(anyCollection(), any(Instant.class))).thenAnswer(invocation -> {
+            synchronized (heartbeatBatches) {
+                heartbeatBatches.add(new ArrayList<>(invocation.<Collection<Long>>getArgument(0)));
+            }
+            return List.of();
+        });
+
+        aggregator = new HeartbeatAggregator(stringRedisTemplate, mock(RedisTemplate.class), agentService,
+            taskDispatcher, taskQueueService, metrics, 16, TIMEOUT_MS, TICK_MS, now::get);
+    }
+
+    @Test
+    void coalescesEventsIntoOnePipelinedFlush() {
+        for (int beat = 0; beat < 5; beat++) {
+            for (long agentId = 1; agentId <= 1_000; agentId++) {
+                aggregator.recordHeartbeat(agentId);
+                aggregator.recordLoad(agentId, beat);
+            }
+            now.addAndGet(200);
+        }
+
+        HeartbeatAggregator.FlushResult result = aggregator.flush();
+
+        verify(stringRedisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+        verify(agentService, times(1)).recordHeartbeats(anyCollection(), any(Instant.class));
+        assertThat(heartbeatBatches.get(0)).hasSize(1_000);
+        assertThat(sharedHeartbeats).hasSize(1_000);
+        assertThat(loadHashes.get("agentos:agent:load:42")).containsEntry("current", "4");
+        assertThat(result.agentsWritten()).isEqualTo(1_000);
+        // 1 HSET for all heartbeats + HSET/EXPIRE per load + 1 database update + 1 lease renewal
+        assertThat(result.writes()).isEqualTo(1 + 2_000 + 1 + 1);
+        assertThat(metrics.getHeartbeatWriteReduction()).isGreaterThan(4.9);
+
+        // Nothing new, nothing written
+        assertThat(aggregator.flush().writes()).isZero();
+    }
+
+    @Test
+    void timerWheelReschedulesBeatingAgentsAndExpiresSilentOnes() {
+        aggregator.recordHeartbeat(1L);
+        aggregator.recordHeartbeat(2L);
+        aggregator.flush();
+
+        now.addAndGet(60_000);
+        aggregator.recordHeartbeat(1L);
+        sharedHeartbeats.clear();
+
+        now.addAndGet(TIMEOUT_MS - 60_000 + TICK_MS);
+        HeartbeatAggregator.FlushResult result = aggregator.flush();
+
+        assertThat(result.agentsExpired()).isEqualTo(1);
+        verify(agentService).markUnresponsive(List.of(2L));
+        verify(taskDispatcher).removeAgent(2L);
+        assertThat(aggregator.isAlive(1L)).isTrue();
+        assertThat(aggregator.isAlive(2L)).isFalse();
+        assertThat(aggregator.getLiveAgentIds()).containsExactly(1L);
+
+        // Agent 1 was rescheduled from its second heartbeat and expires a minute later
+        now.addAndGet(60_000);
+        aggregator.flush();
+        verify(agentService).markUnresponsive(List.of(1L));
+    }
+
+    @Test
+    void heartbeatSeenByAnotherInstanceKeepsAgentAlive() {
+        aggregator.recordHeartbeat(7L);
+        aggregator.flush();
+
+        now.addAndGet(TIMEOUT_MS + TICK_MS);
+        sharedHeartbeats.put("7", Long.toString(now.get() - 5_000));
+
+        assertThat(aggregator.flush().agentsExpired()).isZero();
+        verify(agentService, never()).markUnresponsive(anyList());
+        assertThat(aggregator.isAlive(7L)).isTrue();
+
+        // Unknown locally, known through the shared hash
+        sharedHeartbeats.put("99", Long.toString(now.get()));
+        assertThat(aggregator.isAlive(99L)).isTrue();
+    }
+
+    @Test
+    void forgottenAgentIsNeitherWrittenNorExpired() {
+        aggregator.recordHeartbeat(3L);
+        aggregator.forget(3L);
+
+        assertThat(aggregator.flush().agentsWritten()).isZero();
+        aggregator.recordHeartbeat(3L);
+        aggregator.forget(3L);
+        aggregator.recordHeartbeat(3L);
+        aggregator.flush();
+
+        now.addAndGet(TIMEOUT_MS + TICK_MS);
+        aggregator.flush();
+        // One expiry despite the leftover wheel entry from before forget
+        verify(agentService, times(1)).markUnresponsive(List.of(3L));
+    }
+
+    @Test
+    void activatedAgentsAreHandedToTheDispatcher() {
+        Agent agent = Agent.builder()
+            .agentId(5L)
+            .agentName("agent-5")
+            .agentType(AgentType.MARKET_ANALYSIS)
+            .status(AgentStatus.ACTIVE)
+            .userId(1L)
+            .capabilities(new ArrayList<>())
+            .maxConcurrentTasks(4)
+            .currentLoad(0)
+            .successRate(0.9)
+            .averageResponseTime(100L)
+            .totalTasksCompleted(0L)
+            .build();
+        when(agentService.recordHeartbeats(anyCollection(), any(Instant.class))).thenReturn(List.of(agent));
+
+        aggregator.recordHeartbeat(5L);
+        aggregator.flush();
+
+        verify(taskDispatcher).syncAgent(agent);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void leasesAreRenewedOnlyForBeatingAgents() {
+        aggregator.recordHeartbeat(1L);
+        aggregator.recordHeartbeat(2L);
+        aggregator.recordLoad(3L, 2);
+        aggregator.flush();
+
+        ArgumentCaptor<Collection<String>> renewed = ArgumentCaptor.forClass(Collection.class);
+        verify(taskQueueService).extendLeases(renewed.capture());
+        assertThat(renewed.getValue()).containsExactlyInAnyOrder("1", "2");
+
+        // A silent agent's leases are left to expire
+        aggregator.flush();
+        verify(taskQueueService, times(1)).extendLeases(anyCollection());
+    }
+
+    @Test
+    void concurrentHeartbeatsAreAllFlushedAndReported() throws Exception {
+        int threads = 8;
+        int agentsPerThread = 500;
+        int beatsPerAgent = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            long firstAgent = (long) t * agentsPerThread;
+            executor.submit(() -> {
+                for (int beat = 0; beat < beatsPerAgent; beat++) {
+                    for (long agentId = firstAgent; agentId < firstAgent + agentsPerThread; agentId++) {
+                        aggregator.recordHeartbeat(agentId);
+                    }
+                    Thread.yield();
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        HeartbeatAggregator.FlushResult result = aggregator.flush();
+
+        int events = threads * agentsPerThread * beatsPerAgent;
+        assertThat(result.agentsWritten()).isEqualTo(threads * agentsPerThread);
+        assertThat(sharedHeartbeats).hasSize(threads * agentsPerThread);
+        // 1 HSET for all heartbeats + 4 database updates and 4 lease renewals of 1000 agents each
+        assertThat(result.writes()).isEqualTo(9);
+        assertThat(metrics.getHeartbeatWriteReduction()).isEqualTo(events / 9.0);
+        System.out.printf("Heartbeat ingestion: %d events in %.3f s (%.0f/s), %d writes, reduction %.0fx%n",
+            events, seconds, events / seconds, result.writes(), metrics.getHeartbeatWriteReduction());
+    }
+}
@@ -0,0 +1,170 @@
+package com.trademaster.agentos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.trademaster.agentos.config.AgentOSMetrics;
+import com.trademaster.agentos.config.KafkaConfig;
+import com.trademaster.agentos.domain.entity.OutboxEvent;
+import com.trademaster.agentos.events.TaskEvent;
+import com.trademaster.agentos.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ✅ MANDATORY: Unit Tests for the Transactional Outbox
+ *
+ * Validates that published events land in the outbox rather than on Kafka,
+ * that the relay drains them in large batches keeping per-key order, and that
+ * an unacknowledged batch stays in the outbox and is sent again.
+ */
+class OutboxRelayTest {
+
+    private final ConcurrentSkipListMap<Long, OutboxEvent> outbox = new ConcurrentSkipListMap<>();
+    private final AtomicLong outboxIds = new AtomicLong();
+    private final List<ProducerRecord<String, String>> sent = new ArrayList<>();
+    private final AtomicBoolean failNextBatch = new AtomicBoolean();
+
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private PlatformTransactionManager transactionManager;
+    private AgentOSMetrics metrics;
+    private EventPublishingService publisher;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        OutboxEventRepository repository = mock(OutboxEventRepository.class);
+        when(repository.save(any(OutboxEvent.class))).thenAnswer(invocation -> {
+            OutboxEvent event = invocation.getArgument(0);
+            long id = outboxIds.incrementAndGet();
+            OutboxEvent stored = new OutboxEvent(id, event.getEventId(), event.getTopic(), event.getMessageKey(),
+                event.getEventType(), event.getPayloadType(), event.getPayload(), event.getCreatedAt());
+            outbox.put(id, stored);
+            return stored;
+        });
+        when(repository.tryRelayLock(anyLong())).thenReturn(true);
+        when(repository.findNextBatch(anyInt())).thenAnswer(invocation ->
+            outbox.values().stream().limit(invocation.<Integer>getArgument(0)).toList());
+        when(repository.deleteByOutboxIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            ids.forEach(outbox::remove);
+            return ids.size();
+        });
+
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            ProducerRecord<String, String> record = invocation.getArgument(0);
+            sent.add(record);
+            if (failNextBatch.get()) {
+                return CompletableFuture.failedFuture(new IllegalStateException("broker unavailable"));
+            }
+            return CompletableFuture.completedFuture(new SendResult<>(record, null));
+        });
+
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+
+        metrics = new AgentOSMetrics(new SimpleMeterRegistry());
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        publisher = new EventPublishingService(repository, objectMapper);
+        relay = new OutboxRelay(repository, kafkaTemplate, transactionManager, metrics);
+    }
+
+    @Test
+    void publishingOnlyWritesTheOutbox() {
+        publisher.publishTaskCreated(1L, "task-1", "MARKET_ANALYSIS", "HIGH", 7L);
+
+        assertThat(sent).isEmpty();
+        assertThat(outbox).hasSize(1);
+        OutboxEvent event = outbox.firstEntry().getValue();
+        assertThat(event.getTopic()).isEqualTo(KafkaConfig.TASK_EVENTS_TOPIC);
+        assertThat(event.getMessageKey()).isEqualTo("1");
+        assertThat(event.getPayloadType()).isEqualTo(TaskEvent.class.getName());
+        assertThat(event.getPayload()).contains("\"taskName\":\"task-1\"");
+    }
+
+    @Test
+    void relaysInBatchesKeepingPerKeyOrder() {
+        int tasks = 100;
+        int eventsPerTask = 100;
+        for (int step = 0; step < eventsPerTask; step++) {
+            for (long taskId = 1; taskId <= tasks; taskId++) {
+                publisher.publishTaskStarted(taskId, "step-" + step, 1L, "agent-1");
+            }
+        }
+        int events = tasks * eventsPerTask;
+
+        long start = System.nanoTime();
+        int relayed = relay.relay();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        assertThat(relayed).isEqualTo(events);
+        assertThat(outbox).isEmpty();
+        // 10 transactions of 1000 events, one flush each, then an empty read ends the run
+        verify(transactionManager, times(11)).commit(any());
+        verify(kafkaTemplate, times(10)).flush();
+        assertThat(metrics.getOutboxEventsPublished()).isEqualTo(events);
+
+        Map<String, Integer> lastStep = new HashMap<>();
+        for (ProducerRecord<String, String> record : sent) {
+            int step = Integer.parseInt(record.value().replaceAll(".*\"taskName\":\"step-(\\d+)\".*", "$1"));
+            Integer previous = lastStep.put(record.key(), step);
+            assertThat(previous == null ? -1 : previous).isLessThan(step);
+            assertThat(new String(record.headers().lastHeader("__TypeId__").value(), StandardCharsets.UTF_8))
+                .isEqualTo(TaskEvent.class.getName());
+            assertThat(record.headers().lastHeader(OutboxRelay.EVENT_ID_HEADER)).isNotNull();
+        }
+        assertThat(lastStep).hasSize(tasks).allSatisfy((key, step) -> assertThat(step).isEqualTo(eventsPerTask - 1));
+        System.out.printf("Outbox relay: %d events in %.3f s (%.0f/s)%n", events, seconds, events / seconds);
+    }
+
+    @Test
+    void unacknowledgedBatchStaysInOutboxAndIsResent() {
+        for (long taskId = 1; taskId <= 10; taskId++) {
+            publisher.publishTaskCancelled(taskId, "task-" + taskId);
+        }
+
+        failNextBatch.set(true);
+        assertThat(relay.relay()).isZero();
+        assertThat(outbox).hasSize(10);
+        verify(transactionManager).rollback(any());
+
+        failNextBatch.set(false);
+        assertThat(relay.relay()).isEqualTo(10);
+        assertThat(outbox).isEmpty();
+
+        // Every event went out twice with the same id; consumers deduplicate on it
+        Map<String, Integer> deliveries = new HashMap<>();
+        sent.forEach(record -> deliveries.merge(
+            new String(record.headers().lastHeader(OutboxRelay.EVENT_ID_HEADER).value(), StandardCharsets.UTF_8),
+            1, Integer::sum));
+        assertThat(deliveries).hasSize(10).allSatisfy((eventId, count) -> assertThat(count).isEqualTo(2));
+    }
+}
@@ -0,0 +1,366 @@
+package com.trademaster.agentos.service;
+
+import com.trademaster.agentos.config.AgentOSMetrics;
+import com.trademaster.agentos.domain.entity.Agent;
+import com.trademaster.agentos.domain.entity.AgentCapability;
+import com.trademaster.agentos.domain.entity.AgentStatus;
+import com.trademaster.agentos.domain.entity.AgentType;
+import com.trademaster.agentos.domain.entity.Task;
+import com.trademaster.agentos.domain.entity.TaskPriority;
+import com.trademaster.agentos.domain.entity.TaskStatus;
+import com.trademaster.agentos.domain.entity.TaskType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ✅ MANDATORY: Unit Tests for Event-Driven Task Dispatch
+ *
+ * Validates agent ordering, capability matching, waiting-task priority,
+ * batched assignment writes with backed-off, bounded retries, re-dispatch of a removed
+ * agent's unwritten assignments, then reports dispatch p99 latency and
+ * throughput under concurrent submit/complete traffic.
+ */
+class TaskDispatcherTest {
+
+    private TaskService taskService;
+    private AgentService agentService;
+    private TaskDispatcher dispatcher;
+
+    /** Assignments seen by the mocked batch writer, task id -> agent id */
+    private final Map<Long, Long> recorded = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        taskService = mock(TaskService.class);
+        agentService = mock(AgentService.class);
+        dispatcher = new TaskDispatcher(taskService, agentService, new AgentOSMetrics(new SimpleMeterRegistry()));
+
+        when(taskService.recordAssignments(anyMap())).thenAnswer(invocation -> {
+            Map<Long, Long> batch = invocation.getArgument(0);
+            recorded.putAll(batch);
+            return new HashSet<>(batch.keySet());
+        });
+    }
+
+    @Test
+    void submitPicksHighestWeightedScoreAndTracksLoad() {
+        dispatcher.syncAgent(agent(1L, 2, 5, 0.99));
+        dispatcher.syncAgent(agent(2L, 1, 5, 0.50));
+        dispatcher.syncAgent(agent(3L, 1, 5, 0.90));
+
+        assertThat(dispatcher.submit(task(10L, TaskPriority.NORMAL), AgentType.MARKET_ANALYSIS)).isTrue();
+        assertThat(dispatcher.submit(task(11L, TaskPriority.NORMAL), AgentType.MARKET_ANALYSIS)).isTrue();
+        assertThat(dispatcher.submit(task(12L, TaskPriority.NORMAL), AgentType.MARKET_ANALYSIS)).isTrue();
+        dispatcher.flushAssignments();
+
+        // 0.4 load + 0.4 success rate: agent 3 scores 0.68 at 1/5, then 0.60 at 2/5, behind agent 1's 0.636;
+        // agent 1 at 3/5 drops to 0.556 and agent 2 (0.52) is still last
+        assertThat(recorded).containsEntry(10L, 3L).containsEntry(11L, 1L).containsEntry(12L, 3L);
+    }
+
+    @Test
+    void capabilityIndexMatchesSpecialistsAndGeneralists() {
+        dispatcher.syncAgent(agent(1L, 0, 5, 0.9, AgentCapability.TECHNICAL_ANALYSIS));
+        dispatcher.syncAgent(agent(2L, 0, 5, 0.8,
+            AgentCapability.TECHNICAL_ANALYSIS, AgentCapability.SENTIMENT_ANALYSIS));
+
+        assertThat(dispatcher.submit(task(10L, TaskPriority.NORMAL,
+            AgentCapability.TECHNICAL_ANALYSIS, AgentCapability.SENTIMENT_ANALYSIS), AgentType.MARKET_ANALYSIS)).isTrue();
+        assertThat(dispatcher.submit(task(11L, TaskPriority.NORMAL, AgentCapability.PRICE_PREDICTION),
+            AgentType.MARKET_ANALYSIS)).isFalse();
+
+        // An agent without declared capabilities accepts any task of its type
+        dispatcher.syncAgent(agent(3L, 0, 5, 0.1));
+        dispatcher.flushAssignments();
+
+        assertThat(recorded).containsEntry(10L, 2L).containsEntry(11L, 3L);
+        assertThat(dispatcher.submit(task(12L, TaskPriority.NORMAL), AgentType.RISK_MANAGEMENT)).isFalse();
+    }
+
+    @Test
+    void freedSlotServesWaitingTasksByPriority() {
+        dispatcher.syncAgent(agent(1L, 1, 1, 0.9));
+        dispatcher.submit(task(10L, TaskPriority.LOW), AgentType.MARKET_ANALYSIS);
+        dispatcher.submit(task(11L, TaskPriority.CRITICAL), AgentType.MARKET_ANALYSIS);
+        dispatcher.submit(task(12L, TaskPriority.NORMAL), AgentType.MARKET_ANALYSIS);
+        assertThat(dispatcher.snapshotStats().waitingTasks()).isEqualTo(3);
+
+        List<Long> order = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            dispatcher.releaseSlot(1L);
+            dispatcher.flushAssignments();
+            recorded.keySet().stream().filter(id -> !order.contains(id)).forEach(order::add);
+        }
+
+        assertThat(order).containsExactly(11L, 12L, 10L);
+        assertThat(dispatcher.snapshotStats().waitingTasks()).isZero();
+    }
+
+    @Test
+    void flushWritesOneBatchAndReturnsSlotsForStaleTasks() {
+        dispatcher.syncAgent(agent(1L, 0, 2, 0.9));
+        dispatcher.syncAgent(agent(2L, 0, 2, 0.9));
+        for (long id = 10; id < 14; id++) {
+            dispatcher.submit(task(id, TaskPriority.NORMAL), AgentType.MARKET_ANALYSIS);
+        }
+        // Task 13 was cancelled before the batch was written
+        when(taskService.recordAssignments(anyMap())).thenAnswer(invocation -> {
+            Map<Long, Long> batch = invocation.getArgument(0);
+            recorded.putAll(batch);
+            Set<Long> applied = new HashSet<>(batch.keySet());
+            applied.remove(13L);
+            return applied;
+        });
+
+        assertThat(dispatcher.flushAssignments()).isEqualTo(3);
+
+        verify(taskService, times(1)).recordAssignments(anyMap());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Long, Integer>> deltas = ArgumentCaptor.forClass(Map.class);
+        verify(agentService).adjustAgentLoads(deltas.capture());
+        assertThat(deltas.getValue().values().stream().mapToInt(Integer::intValue).sum()).isEqualTo(3);
+        assertThat(dispatcher.snapshotStats().readyAgents()).isEqualTo(1);
+        assertThat(dispatcher.submit(task(14L, TaskPriority.NORMAL), AgentType.MARKET_ANALYSIS)).isTrue();
+    }
+
+    @Test
+    void failedWriteKeepsAssignmentsForNextFlush() {
+        ReflectionTestUtils.setField(dispatcher, "flushRetryBackoffMillis", 0L);
+        dispatcher.syncAgent(agent(1L, 0, 5, 0.9));
+        dispatcher.submit(task(10L, TaskPriority.NORMAL), AgentType.MARKET_ANALYSIS);
+        when(taskService.recordAssignments(anyMap())).thenThrow(new IllegalStateException("db down"));
+
+        assertThat(dispatcher.flushAssignments()).isZero();
+        verify(agentService, never()).adjustAgentLoads(anyMap());
+        assertThat(dispatcher.snapshotStats().pendingAssignments()).isEqualTo(1);
+
+        doAnswer(invocation -> {
+            Map<Long, Long> batch = invocation.getArgument(0);
+            return new HashSet<>(batch.keySet());
+        }).when(taskService).recordAssignments(anyMap());
+        assertThat(dispatcher.flushAssignments()).isEqualTo(1);
+        assertThat(dispatcher.snapshotStats().pendingAssignments()).isZero();
+    }
+
+    @Test
+    void failingBatchIsRetriedBehindNewerAssignmentsThenDeadLettered() {
+        AgentOSMetrics metrics = new AgentOSMetrics(new SimpleMeterRegistry());
+        dispatcher = new TaskDispatcher(taskService, agentService, metrics);
+        ReflectionTestUtils.setField(dispatcher, "maxFlushAttempts", 5);
+        ReflectionTestUtils.setField(dispatcher, "flushRetryBackoffMillis", 0L);
+        dispatcher.syncAgent(agent(1L, 0, 5, 0.9));
+        dispatcher.submit(task(10L, TaskPriority.NORMAL), AgentType.MARKET_ANALYSIS);
+        when(taskService.recordAssignments(anyMap())).thenAnswer(invocation -> {
+            Map<Long, Long> batch = invocation.getArgument(0);
+            if (batch.containsKey(10L)) {
+                throw new IllegalStateException("constraint violation");
+            }
+            recorded.putAll(batch);
+            return new HashSet<>(batch.keySet());
+        });
+
+        assertThat(dispatcher.flushAssignments()).isZero();
+        dispatcher.submit(task(11L, TaskPriority.NORMAL), AgentType.MARKET_ANALYSIS);
+        // The newer assignment is written before the failing batch is tried again
+        assertThat(dispatcher.flushAssignments()).isEqualTo(1);
+        assertThat(recorded).containsOnlyKeys(11L);
+        assertThat(dispatcher.snapshotStats().pendingAssignments()).isEqualTo(1);
+
+        for (int flush = 3; flush <= 5; flush++) {
+            dispatcher.flushAssignments();
+        }
+        verify(taskService, times(6)).recordAssignments(anyMap());
+        assertThat(dispatcher.snapshotStats().pendingAssignments()).isZero();
+        assertThat(metrics.getAssignmentsDeadLettered().count()).isEqualTo(1.0);
+
+        // Nothing is retried any more; the task can be submitted again by reconciliation
+        dispatcher.flushAssignments();
+        verify(taskService, times(6)).recordAssignments(anyMap());
+        assertThat(dispatcher.submit(task(10L, TaskPriority.NORMAL), AgentType.MARKET_ANALYSIS)).isTrue();
+    }
+
+    @Test
+    void removedAgentsUnwrittenAssignmentsAreDispatchedAgain() {
+        dispatcher.syncAgent(agent(1L, 0, 5, 0.9));
+        dispatcher.submit(task(10L, TaskPriority.NORMAL), AgentType.MARKET_ANALYSIS);
+        dispatcher.submit(task(11L, TaskPriority.HIGH), AgentType.MARKET_ANALYSIS);
+
+        // No other agent yet: the tasks wait
+        dispatcher.removeAgent(1L);
+        assertThat(dispatcher.snapshotStats().pendingAssignments()).isZero();
+        assertThat(dispatcher.snapshotStats().waitingTasks()).isEqualTo(2);
+
+        dispatcher.syncAgent(agent(2L, 0, 5, 0.9));
+        dispatcher.syncAgent(agent(3L, 0, 5, 0.8));
+        dispatcher.removeAgent(2L);
+        assertThat(dispatcher.flushAssignments()).isEqualTo(2);
+        assertThat(recorded).containsEntry(10L, 3L).containsEntry(11L, 3L);
+        assertThat(dispatcher.snapshotStats().waitingTasks()).isZero();
+    }
+
+    @Test
+    void failedBatchWaitsForItsBackoff() {
+        dispatcher.syncAgent(agent(1L, 0, 5, 0.9));
+        dispatcher.submit(task(10L, TaskPriority.NORMAL), AgentType.MARKET_ANALYSIS);
+        when(taskService.recordAssignments(anyMap())).thenThrow(new IllegalStateException("db down"));
+
+        dispatcher.flushAssignments();
+        dispatcher.flushAssignments();
+
+        verify(taskService, times(1)).recordAssignments(anyMap());
+        assertThat(dispatcher.snapshotStats().pendingAssignments()).isEqualTo(1);
+    }
+
+    @Test
+    void removedAgentsFailedAssignmentsAreDispatchedAgain() {
+        dispatcher.syncAgent(agent(1L, 0, 5, 0.9));
+        dispatcher.submit(task(10L, TaskPriority.NORMAL), AgentType.MARKET_ANALYSIS);
+        when(taskService.recordAssignments(anyMap())).thenThrow(new IllegalStateException("db down"));
+        dispatcher.flushAssignments();
+
+        dispatcher.syncAgent(agent(2L, 0, 5, 0.9));
+        dispatcher.removeAgent(1L);
+        doAnswer(invocation -> {
+            Map<Long, Long> batch = invocation.getArgument(0);
+            recorded.putAll(batch);
+            return new HashSet<>(batch.keySet());
+        }).when(taskService).recordAssignments(anyMap());
+
+        // Written straight away as a new assignment, without waiting for the failed batch's backoff
+        assertThat(dispatcher.flushAssignments()).isEqualTo(1);
+        assertThat(recorded).containsEntry(10L, 2L);
+        assertThat(dispatcher.snapshotStats().pendingAssignments()).isZero();
+    }
+
+    @Test
+    void duplicateSubmitAndUnavailableAgentsAreIgnored() {
+        Agent inactive = agent(1L, 0, 5, 0.9);
+        inactive.setStatus(AgentStatus.UNRESPONSIVE);
+        dispatcher.syncAgent(inactive);
+        assertThat(dispatcher.isTracking(1L)).isFalse();
+
+        dispatcher.syncAgent(agent(2L, 0, 5, 0.9));
+        assertThat(dispatcher.submit(task(10L, TaskPriority.NORMAL), AgentType.MARKET_ANALYSIS)).isTrue();
+        assertThat(dispatcher.submit(task(10L, TaskPriority.NORMAL), AgentType.MARKET_ANALYSIS)).isFalse();
+
+        dispatcher.reconcileAgents(List.of());
+        assertThat(dispatcher.isTracking(2L)).isFalse();
+    }
+
+    @Test
+    void reportsDispatchLatencyAndThroughputUnderConcurrentLoad() throws Exception {
+        int agents = 200;
+        int slots = 4;
+        int tasks = 200_000;
+        for (long id = 1; id <= agents; id++) {
+            dispatcher.syncAgent(agent(id, 0, slots, 0.5 + (id % 50) / 100.0));
+        }
+
+        // Each simulated agent completes its tasks as soon as they are recorded
+        Map<Long, AtomicInteger> inFlight = new HashMap<>();
+        for (long id = 1; id <= agents; id++) {
+            inFlight.put(id, new AtomicInteger());
+        }
+        AtomicInteger overCapacity = new AtomicInteger();
+        AtomicLong submitted = new AtomicLong();
+        AtomicLong completed = new AtomicLong();
+        when(taskService.recordAssignments(anyMap())).thenAnswer(invocation -> {
+            Map<Long, Long> batch = invocation.getArgument(0);
+            batch.values().forEach(agentId -> {
+                if (inFlight.get(agentId).incrementAndGet() > slots) {
+                    overCapacity.incrementAndGet();
+                }
+            });
+            return new HashSet<>(batch.keySet());
+        });
+
+        dispatcher.snapshotStats();
+        long start = System.nanoTime();
+        try (ExecutorService workers = Executors.newFixedThreadPool(9)) {
+            for (int producer = 0; producer < 8; producer++) {
+                int offset = producer;
+                workers.submit(() -> {
+                    for (long id = offset; id < tasks; id += 8) {
+                        // Closed loop: keep outstanding work within agent capacity so latency is pure dispatch time
+                        while (submitted.get() - completed.get() >= (long) agents * slots) {
+                            Thread.yield();
+                        }
+                        submitted.incrementAndGet();
+                        dispatcher.submit(task(id, TaskPriority.values()[(int) (id % 5)]), AgentType.MARKET_ANALYSIS);
+                    }
+                });
+            }
+            workers.submit(() -> {
+                while (completed.get() < tasks) {
+                    dispatcher.flushAssignments();
+                    inFlight.forEach((agentId, count) -> {
+                        for (int done = count.getAndSet(0); done > 0; done--) {
+                            dispatcher.releaseSlot(agentId);
+                            completed.incrementAndGet();
+                        }
+                    });
+                    Thread.yield();
+                }
+            });
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        TaskDispatcher.DispatchStats stats = dispatcher.snapshotStats();
+
+        System.out.printf("Dispatched %d tasks over %d agents: %.0f tasks/s, p99 dispatch latency %.3f ms%n",
+            stats.dispatchedTasks(), agents, tasks / (elapsedNanos / 1e9), stats.p99LatencyMillis());
+        assertThat(stats.dispatchedTasks()).isEqualTo(tasks);
+        assertThat(overCapacity).hasValue(0);
+        assertThat(stats.waitingTasks()).isZero();
+        assertThat(stats.pendingAssignments()).isZero();
+    }
+
+    private static Agent agent(Long id, int load, int maxConcurrentTasks, double successRate,
+                               AgentCapability... capabilities) {
+        return Agent.builder()
+            .agentId(id)
+            .agentName("agent-" + id)
+            .agentType(AgentType.MARKET_ANALYSIS)
+            .status(AgentStatus.ACTIVE)
+            .userId(1L)
+            .capabilities(new ArrayList<>(List.of(capabilities)))
+            .maxConcurrentTasks(maxConcurrentTasks)
+            .currentLoad(load)
+            .successRate(successRate)
+            .averageResponseTime(0L)
+            .totalTasksCompleted(0L)
+            .build();
+    }
+
+    private static Task task(Long id, TaskPriority priority, AgentCapability... capabilities) {
+        Task task = new Task("task-" + id, TaskType.MARKET_ANALYSIS, 1L);
+        task.setTaskId(id);
+        task.setStatus(TaskStatus.PENDING);
+        task.setPriority(priority);
+        task.setRequiredCapabilities(new ArrayList<>(List.of(capabilities)));
+        return task;
+    }
+}
@@ -0,0 +1,328 @@
+package com.trademaster.agentos.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.trademaster.agentos.config.AgentOSMetrics;
+import com.trademaster.agentos.domain.entity.Task;
+import com.trademaster.agentos.domain.entity.TaskPriority;
+import com.trademaster.agentos.domain.entity.TaskStatus;
+import com.trademaster.agentos.domain.entity.TaskType;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * ✅ BENCHMARK: Reliable Redis Task Queue
+ *
+ * Runs the scripted queue against a throwaway local Redis and checks the
+ * reliability guarantees (exactly-once lease under contention, atomic
+ * capacity, per-task lease expiry, heartbeat renewal, redelivery and
+ * dead-lettering, the legacy layout drain), then compares throughput with
+ * the previous multi-round-trip list pattern.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class TaskQueueRedisBenchmarkTest {
+
+    private static final int BENCHMARK_TASKS = 5_000;
+
+    @Container
+    private static final GenericContainer<?> REDIS =
+        new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static RedisTemplate<String, String> redisTemplate;
+
+    private TaskQueueService taskQueueService;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+            new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        StringRedisSerializer serializer = new StringRedisSerializer();
+        redisTemplate.setKeySerializer(serializer);
+        redisTemplate.setValueSerializer(serializer);
+        redisTemplate.setHashKeySerializer(serializer);
+        redisTemplate.setHashValueSerializer(serializer);
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute((org.springframework.data.redis.core.RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+
+        AgentOSMetrics metrics = mock(AgentOSMetrics.class);
+        when(metrics.startApiTimer()).thenAnswer(invocation -> mock(Timer.Sample.class));
+        ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        taskQueueService = new TaskQueueService(redisTemplate, objectMapper, metrics, mock(StructuredLoggingService.class));
+        ReflectionTestUtils.setField(taskQueueService, "maxQueueSize", 100_000);
+        ReflectionTestUtils.setField(taskQueueService, "maxRetryAttempts", 3);
+        ReflectionTestUtils.setField(taskQueueService, "visibilityTimeoutMs", 300_000L);
+        ReflectionTestUtils.setField(taskQueueService, "maxLeaseBatch", 10);
+        ReflectionTestUtils.setField(taskQueueService, "redeliveryBatchSize", 500);
+    }
+
+    @Test
+    void concurrentConsumersLeaseEachTaskExactlyOnce() {
+        for (long id = 1; id <= 2_000; id++) {
+            assertThat(taskQueueService.enqueueTask(task(id, TaskPriority.NORMAL)).join()).isTrue();
+        }
+
+        Set<Long> leased = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        try (ExecutorService consumers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < 16; c++) {
+                String agentId = "agent-" + c;
+                consumers.submit(() -> {
+                    List<Task> batch;
+                    while (!(batch = taskQueueService.dequeueTasks(agentId, 10).join()).isEmpty()) {
+                        batch.forEach(task -> {
+                            if (!leased.add(task.getTaskId())) {
+                                duplicates.incrementAndGet();
+                            }
+                        });
+                    }
+                });
+            }
+        }
+
+        assertThat(leased).hasSize(2_000);
+        assertThat(duplicates).hasValue(0);
+        assertThat(taskQueueService.getQueueStats().getInFlightTasks()).isEqualTo(2_000);
+    }
+
+    @Test
+    void concurrentEnqueueNeverExceedsCapacity() {
+        ReflectionTestUtils.setField(taskQueueService, "maxQueueSize", 100);
+
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (long id = 1; id <= 400; id++) {
+            results.add(taskQueueService.enqueueTask(task(id, TaskPriority.HIGH)));
+        }
+        long accepted = results.stream().filter(CompletableFuture::join).count();
+
+        assertThat(accepted).isEqualTo(100);
+        assertThat(taskQueueService.getQueueStats().getTotalTasks()).isEqualTo(100);
+    }
+
+    @Test
+    void batchLeaseFollowsPriorityOrder() {
+        taskQueueService.enqueueTask(task(1L, TaskPriority.LOW)).join();
+        taskQueueService.enqueueTask(task(2L, TaskPriority.CRITICAL)).join();
+        taskQueueService.enqueueTask(task(3L, TaskPriority.NORMAL)).join();
+        taskQueueService.enqueueTask(task(4L, TaskPriority.HIGH)).join();
+
+        List<Task> batch = taskQueueService.dequeueTasks("agent-1", 10).join();
+
+        assertThat(batch).extracting(Task::getTaskId).containsExactly(2L, 4L, 3L, 1L);
+    }
+
+    @Test
+    void expiredLeaseIsRedeliveredAndStaleCompletionRejected() throws Exception {
+        taskQueueService.enqueueTask(shortTask(1L)).join();
+
+        Optional<Task> first = taskQueueService.dequeueTask("agent-a").join();
+        assertThat(first).isPresent();
+        assertThat(taskQueueService.redeliverExpiredLeases()).isZero();
+
+        Thread.sleep(1_100);
+        assertThat(taskQueueService.redeliverExpiredLeases()).isEqualTo(1);
+
+        Optional<Task> second = taskQueueService.dequeueTask("agent-b").join();
+        assertThat(second).map(Task::getTaskId).contains(1L);
+        assertThat(taskQueueService.completeTask(1L, "agent-a", "late").join()).isFalse();
+        assertThat(taskQueueService.completeTask(1L, "agent-b", "done").join()).isTrue();
+        assertThat(redisTemplate.opsForSet().members("agentos:{task}:processing:agent-a")).isEmpty();
+        assertThat(taskQueueService.getQueueStats().getInFlightTasks()).isZero();
+    }
+
+    @Test
+    void heartbeatRenewalKeepsLeaseAlive() throws Exception {
+        taskQueueService.enqueueTask(shortTask(1L)).join();
+        taskQueueService.dequeueTask("agent-a").join();
+
+        for (int beat = 0; beat < 3; beat++) {
+            Thread.sleep(600);
+            assertThat(taskQueueService.extendLeases(List.of("agent-a", "agent-b"))).isEqualTo(1);
+        }
+        assertThat(taskQueueService.redeliverExpiredLeases()).isZero();
+
+        // Once the agent stops beating the lease lapses after the task's timeout
+        Thread.sleep(1_100);
+        assertThat(taskQueueService.redeliverExpiredLeases()).isEqualTo(1);
+    }
+
+    @Test
+    void leaseThatKeepsExpiringIsDeadLettered() throws Exception {
+        ReflectionTestUtils.setField(taskQueueService, "maxRetryAttempts", 1);
+        taskQueueService.enqueueTask(shortTask(1L)).join();
+
+        taskQueueService.dequeueTask("agent-a").join();
+        Thread.sleep(1_100);
+        assertThat(taskQueueService.redeliverExpiredLeases()).isEqualTo(1);
+
+        assertThat(taskQueueService.dequeueTask("agent-b").join()).map(Task::getRetryCount).contains(1);
+        Thread.sleep(1_100);
+        assertThat(taskQueueService.redeliverExpiredLeases()).isZero();
+
+        TaskQueueService.TaskQueueStats stats = taskQueueService.getQueueStats();
+        assertThat(stats.getDeadLetteredTasks()).isEqualTo(1);
+        assertThat(stats.getTotalTasks()).isZero();
+        assertThat(stats.getInFlightTasks()).isZero();
+        assertThat(redisTemplate.opsForValue().get("agentos:{task}:data:1")).contains("\"status\":\"FAILED\"");
+        assertThat(taskQueueService.dequeueTask("agent-c").join()).isEmpty();
+    }
+
+    @Test
+    void legacyQueuesAreDrainedIntoTheScriptedQueue() {
+        for (long id = 1; id <= 3; id++) {
+            redisTemplate.opsForValue().set("agentos:task:data:" + id, "{\"taskId\":" + id + ",\"priority\":\"HIGH\"}");
+            redisTemplate.opsForList().rightPush("agentos:task:queue:normal", Long.toString(id));
+        }
+        redisTemplate.opsForValue().set("agentos:task:data:4", "{\"taskId\":4,\"priority\":\"LOW\"}");
+        redisTemplate.opsForZSet().add("agentos:task:queue:inflight", "4", 1);
+
+        assertThat(taskQueueService.drainLegacyTasks()).isEqualTo(4);
+        assertThat(taskQueueService.drainLegacyTasks()).isZero();
+
+        assertThat(taskQueueService.dequeueTasks("agent-1", 10).join())
+            .extracting(Task::getTaskId).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(redisTemplate.keys("agentos:task:*")).isEmpty();
+    }
+
+    @Test
+    void failedTaskIsRequeuedFromItsLease() {
+        taskQueueService.enqueueTask(task(1L, TaskPriority.NORMAL)).join();
+        taskQueueService.dequeueTask("agent-a").join();
+
+        assertThat(taskQueueService.failTask(1L, "agent-a", "boom").join()).isTrue();
+
+        Optional<Task> retried = taskQueueService.dequeueTask("agent-b").join();
+        assertThat(retried).map(Task::getRetryCount).contains(1);
+    }
+
+    @Test
+    void scriptedQueueOutperformsRoundTripPattern() {
+        long legacyNanos = runLegacyPattern();
+        redisTemplate.execute((org.springframework.data.redis.core.RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+
+        long scriptedStart = System.nanoTime();
+        for (long id = 1; id <= BENCHMARK_TASKS; id++) {
+            taskQueueService.enqueueTask(task(id, TaskPriority.values()[(int) (id % 5)])).join();
+        }
+        long enqueueNanos = System.nanoTime() - scriptedStart;
+        long batchStart = System.nanoTime();
+        int leased = 0;
+        List<Task> batch;
+        while (!(batch = taskQueueService.dequeueTasks("agent-1", 10).join()).isEmpty()) {
+            leased += batch.size();
+        }
+        long batchNanos = System.nanoTime() - batchStart;
+        long scriptedNanos = enqueueNanos + batchNanos;
+
+        assertThat(leased).isEqualTo(BENCHMARK_TASKS);
+        System.out.printf(
+            "Task queue over %d tasks: round-trip pattern %.0f tasks/s, scripted %.0f tasks/s "
+                + "(enqueue %.0f/s, batch lease %.0f/s)%n",
+            BENCHMARK_TASKS, perSecond(legacyNanos), perSecond(scriptedNanos),
+            perSecond(enqueueNanos), perSecond(batchNanos));
+        assertThat(scriptedNanos).isLessThan(legacyNanos);
+    }
+
+    /**
+     * The previous implementation: three LLENs, SET and RPUSH per enqueue;
+     * LPOP per list, GET, SADD and EXPIRE per dequeue
+     */
+    private long runLegacyPattern() {
+        String[] queues = {"agentos:task:queue:high", "agentos:task:queue:normal", "agentos:task:queue:low"};
+        long start = System.nanoTime();
+        for (long id = 1; id <= BENCHMARK_TASKS; id++) {
+            long size = 0;
+            for (String queue : queues) {
+                size += redisTemplate.opsForList().size(queue);
+            }
+            assertThat(size).isLessThan(100_000);
+            redisTemplate.opsForValue().set("agentos:task:data:" + id, "{\"taskId\":" + id + "}", Duration.ofHours(24));
+            redisTemplate.opsForList().rightPush(queues[(int) (id % 3)], Long.toString(id));
+        }
+        for (int i = 0; i < BENCHMARK_TASKS; i++) {
+            String id = null;
+            for (String queue : queues) {
+                if ((id = redisTemplate.opsForList().leftPop(queue)) != null) {
+                    break;
+                }
+            }
+            redisTemplate.opsForValue().get("agentos:task:data:" + id);
+            redisTemplate.opsForSet().add("agentos:task:processing:agent-1", id);
+            redisTemplate.expire("agentos:task:processing:agent-1", Duration.ofHours(2));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static double perSecond(long nanos) {
+        return BENCHMARK_TASKS / (nanos / 1e9);
+    }
+
+    private static Task shortTask(Long taskId) {
+        Task task = task(taskId, TaskPriority.HIGH);
+        task.setTimeoutSeconds(1);
+        return task;
+    }
+
+    private static Task task(Long taskId, TaskPriority priority) {
+        Task task = new Task("task-" + taskId, TaskType.MARKET_ANALYSIS, 1L);
+        task.setTaskId(taskId);
+        task.setStatus(TaskStatus.PENDING);
+        task.setPriority(priority);
+        task.setProgressPercentage(0);
+        task.setRetryCount(0);
+        task.setMaxRetries(3);
+        task.setCreatedAt(Instant.now());
+        return task;
+    }
+}
@@ -12,14 +12,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ListOperations;
-import org.springframework.data.redis.core.SetOperations;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -32,6 +35,8 @@ import static org.mockito.Mockito.*;
  * 
  * Validates Redis-based task queue with priority handling
  * Tests Virtual Threads async operations
+ * Each queue operation must be exactly one atomic script call
+ * Every script key shares the {task} hash tag for Redis Cluster
  */
 @ExtendWith(MockitoExtension.class)
 class TaskQueueServiceTest {
@@ -52,10 +57,10 @@ class TaskQueueServiceTest {
     private ValueOperations<String, String> valueOperations;
     
     @Mock
-    private ListOperations<String, String> listOperations;
+    private ZSetOperations<String, String> zSetOperations;
     
     @Mock
-    private SetOperations<String, String> setOperations;
+    private HashOperations<String, Object, Object> hashOperations;
     
     @InjectMocks
     private TaskQueueService taskQueueService;
@@ -64,26 +69,19 @@ class TaskQueueServiceTest {
     
     @BeforeEach
     void setUp() {
-        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
-        when(redisTemplate.opsForList()).thenReturn(listOperations);
-        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        lenient().when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        lenient().when(metrics.startApiTimer()).thenReturn(mock(io.micrometer.core.instrument.Timer.Sample.class));
         
         // Set test configuration
         ReflectionTestUtils.setField(taskQueueService, "maxQueueSize", 1000);
         ReflectionTestUtils.setField(taskQueueService, "maxRetryAttempts", 3);
+        ReflectionTestUtils.setField(taskQueueService, "visibilityTimeoutMs", 300_000L);
+        ReflectionTestUtils.setField(taskQueueService, "maxLeaseBatch", 10);
+        ReflectionTestUtils.setField(taskQueueService, "redeliveryBatchSize", 500);
         
-        testTask = Task.builder()
-            .taskId(1L)
-            .taskName("test-task")
-            .taskType(TaskType.MARKET_ANALYSIS)
-            .status(TaskStatus.PENDING)
-            .priority(TaskPriority.HIGH)
-            .progressPercentage(0)
-            .retryCount(0)
-            .maxRetries(3)
-            .userId(1L)
-            .createdAt(Instant.now())
-            .build();
+        testTask = task(1L, 0);
     }
     
     /**
@@ -93,10 +91,8 @@ class TaskQueueServiceTest {
     void enqueueTask_ShouldEnqueueToPriorityQueue() throws Exception {
         // Given
         String taskJson = "{\"taskId\":1,\"priority\":\"HIGH\"}";
-        when(listOperations.size(anyString())).thenReturn(100L); // Queue not full
         when(objectMapper.writeValueAsString(testTask)).thenReturn(taskJson);
-        when(listOperations.rightPush("agentos:task:queue:high", "1")).thenReturn(1L);
-        when(metrics.startApiTimer()).thenReturn(mock(io.micrometer.core.instrument.Timer.Sample.class));
+        when(redisTemplate.execute(eq(TaskQueueScripts.ENQUEUE), anyList(), any(Object[].class))).thenReturn(1L);
         
         // When
         CompletableFuture<Boolean> result = taskQueueService.enqueueTask(testTask);
@@ -105,9 +101,54 @@ class TaskQueueServiceTest {
         assertAll(
             () -> assertThat(result).succeedsWithin(java.time.Duration.ofSeconds(1)),
             () -> assertThat(result.get()).isTrue(),
-            () -> verify(valueOperations).set(eq("agentos:task:data:1"), eq(taskJson), any()),
-            () -> verify(listOperations).rightPush(eq("agentos:task:queue:high"), eq("1")),
-            () -> verify(structuredLogger).logBusinessTransaction(anyString(), anyString(), anyString(), anyString(), anyMap())
+            () -> verify(redisTemplate).execute(
+                eq(TaskQueueScripts.ENQUEUE),
+                eq(List.of("agentos:{task}:queue:ready", "agentos:{task}:queue:inflight",
+                    "agentos:{task}:queue:scores", "agentos:{task}:data:1", "agentos:{task}:queue:timeouts",
+                    "agentos:{task}:queue:retries", "agentos:{task}:queue:dead")),
+                any(), any(), any(), any(), any(), eq("300000"), eq("0")),
+            () -> verify(structuredLogger).logBusinessTransaction(anyString(), anyString(), anyString(), anyString(), anyMap()),
+            () -> verify(redisTemplate, never()).opsForList()
+        );
+    }
+    
+    /**
+     * ✅ TEST: Queue full handling
+     */
+    @Test
+    void enqueueTask_ShouldRejectWhenQueueFull() throws Exception {
+        // Given
+        when(objectMapper.writeValueAsString(testTask)).thenReturn("{}");
+        when(redisTemplate.execute(eq(TaskQueueScripts.ENQUEUE), anyList(), any(Object[].class))).thenReturn(-1L);
+        
+        // When
+        CompletableFuture<Boolean> result = taskQueueService.enqueueTask(testTask);
+        
+        // Then
+        assertAll(
+            () -> assertThat(result).succeedsWithin(java.time.Duration.ofSeconds(1)),
+            () -> assertThat(result.get()).isFalse(),
+            () -> verify(metrics).recordError(eq("task_enqueue"), anyString()),
+            () -> verify(structuredLogger).logError(anyString(), anyString(), any(Exception.class), anyMap())
+        );
+    }
+    
+    /**
+     * ✅ TEST: Duplicate enqueue is idempotent
+     */
+    @Test
+    void enqueueTask_ShouldIgnoreTaskAlreadyQueued() throws Exception {
+        // Given
+        when(objectMapper.writeValueAsString(testTask)).thenReturn("{}");
+        when(redisTemplate.execute(eq(TaskQueueScripts.ENQUEUE), anyList(), any(Object[].class))).thenReturn(-2L);
+        
+        // When
+        CompletableFuture<Boolean> result = taskQueueService.enqueueTask(testTask);
+        
+        // Then
+        assertAll(
+            () -> assertThat(result.get()).isTrue(),
+            () -> verify(structuredLogger, never()).logBusinessTransaction(anyString(), anyString(), anyString(), anyString(), anyMap())
         );
     }
     
@@ -118,12 +159,10 @@ class TaskQueueServiceTest {
     void dequeueTask_ShouldReturnHighestPriorityTask() throws Exception {
         // Given
         String agentId = "agent-1";
-        when(listOperations.leftPop("agentos:task:queue:high")).thenReturn("1");
-        when(listOperations.leftPop("agentos:task:queue:normal")).thenReturn(null);
-        when(listOperations.leftPop("agentos:task:queue:low")).thenReturn(null);
-        when(valueOperations.get("agentos:task:data:1")).thenReturn("{\"taskId\":1}");
+        when(zSetOperations.range("agentos:{task}:queue:ready", 0, 3)).thenReturn(Set.of("1"));
+        when(redisTemplate.execute(eq(TaskQueueScripts.LEASE), anyList(), any(Object[].class)))
+            .thenReturn(List.of("1", "{\"taskId\":1}", "2"));
         when(objectMapper.readValue(anyString(), eq(Task.class))).thenReturn(testTask);
-        when(metrics.startApiTimer()).thenReturn(mock(io.micrometer.core.instrument.Timer.Sample.class));
         
         // When
         CompletableFuture<Optional<Task>> result = taskQueueService.dequeueTask(agentId);
@@ -133,11 +172,81 @@ class TaskQueueServiceTest {
             () -> assertThat(result).succeedsWithin(java.time.Duration.ofSeconds(1)),
             () -> assertThat(result.get()).isPresent(),
             () -> assertThat(result.get().get().getTaskId()).isEqualTo(1L),
-            () -> verify(setOperations).add(eq("agentos:task:processing:agent-1"), eq("1")),
+            () -> assertThat(result.get().get().getRetryCount()).isEqualTo(2),
+            () -> verify(redisTemplate).execute(
+                eq(TaskQueueScripts.LEASE),
+                eq(List.of("agentos:{task}:queue:ready", "agentos:{task}:queue:inflight", "agentos:{task}:queue:owners",
+                    "agentos:{task}:processing:agent-1", "agentos:{task}:queue:scores", "agentos:{task}:queue:timeouts",
+                    "agentos:{task}:queue:retries", "agentos:{task}:data:1")),
+                any(), any(), any(), eq(agentId), any(), eq("1")),
             () -> verify(structuredLogger).logBusinessTransaction(anyString(), anyString(), anyString(), eq(agentId), anyMap())
         );
     }
     
+    /**
+     * ✅ TEST: Batch lease in a single round trip
+     */
+    @Test
+    void dequeueTasks_ShouldLeaseBatchInOneScriptCall() throws Exception {
+        // Given
+        Task second = task(2L, 0);
+        when(zSetOperations.range("agentos:{task}:queue:ready", 0, 39))
+            .thenReturn(new LinkedHashSet<>(List.of("1", "2", "3")));
+        when(redisTemplate.execute(eq(TaskQueueScripts.LEASE), anyList(), any(Object[].class)))
+            .thenReturn(List.of("1", "{\"taskId\":1}", "0", "2", "{\"taskId\":2}", "0"));
+        when(objectMapper.readValue("{\"taskId\":1}", Task.class)).thenReturn(testTask);
+        when(objectMapper.readValue("{\"taskId\":2}", Task.class)).thenReturn(second);
+        
+        // When
+        List<Task> leased = taskQueueService.dequeueTasks("agent-1", 50).get();
+        
+        // Then
+        assertAll(
+            () -> assertThat(leased).extracting(Task::getTaskId).containsExactly(1L, 2L),
+            () -> verify(redisTemplate, times(1)).execute(eq(TaskQueueScripts.LEASE), anyList(),
+                any(), any(), eq("10"), eq("agent-1"), any(), eq("1"), eq("2"), eq("3"))
+        );
+    }
+    
+    /**
+     * ✅ TEST: A window taken entirely by other agents is read again
+     */
+    @Test
+    void dequeueTask_ShouldRetryWhenCandidatesWereTakenByOthers() throws Exception {
+        // Given
+        when(zSetOperations.range("agentos:{task}:queue:ready", 0, 3)).thenReturn(Set.of("1"), Set.of("2"));
+        when(redisTemplate.execute(eq(TaskQueueScripts.LEASE), anyList(), any(Object[].class)))
+            .thenReturn(List.of(), List.of("2", "{\"taskId\":2}", "0"));
+        when(objectMapper.readValue(anyString(), eq(Task.class))).thenReturn(task(2L, 0));
+        
+        // When
+        Optional<Task> leased = taskQueueService.dequeueTask("agent-1").get();
+        
+        // Then
+        assertAll(
+            () -> assertThat(leased).map(Task::getTaskId).contains(2L),
+            () -> verify(redisTemplate, times(2)).execute(eq(TaskQueueScripts.LEASE), anyList(), any(Object[].class))
+        );
+    }
+    
+    /**
+     * ✅ TEST: Empty ready set costs no script call
+     */
+    @Test
+    void dequeueTask_ShouldSkipScriptWhenQueueEmpty() throws Exception {
+        // Given
+        when(zSetOperations.range(anyString(), anyLong(), anyLong())).thenReturn(Set.of());
+        
+        // When
+        Optional<Task> leased = taskQueueService.dequeueTask("agent-1").get();
+        
+        // Then
+        assertAll(
+            () -> assertThat(leased).isEmpty(),
+            () -> verify(redisTemplate, never()).execute(eq(TaskQueueScripts.LEASE), anyList(), any(Object[].class))
+        );
+    }
+    
     /**
      * ✅ TEST: Task completion with cleanup
      */
@@ -147,10 +256,10 @@ class TaskQueueServiceTest {
         Long taskId = 1L;
         String agentId = "agent-1";
         String result = "Task completed successfully";
-        when(valueOperations.get("agentos:task:data:1")).thenReturn("{\"taskId\":1}");
+        when(valueOperations.get("agentos:{task}:data:1")).thenReturn("{\"taskId\":1}");
         when(objectMapper.readValue(anyString(), eq(Task.class))).thenReturn(testTask);
         when(objectMapper.writeValueAsString(any(Task.class))).thenReturn("{\"taskId\":1,\"status\":\"COMPLETED\"}");
-        when(metrics.startApiTimer()).thenReturn(mock(io.micrometer.core.instrument.Timer.Sample.class));
+        when(redisTemplate.execute(eq(TaskQueueScripts.RELEASE), anyList(), any(Object[].class))).thenReturn(1L);
         
         // When
         CompletableFuture<Boolean> taskResult = taskQueueService.completeTask(taskId, agentId, result);
@@ -159,12 +268,34 @@ class TaskQueueServiceTest {
         assertAll(
             () -> assertThat(taskResult).succeedsWithin(java.time.Duration.ofSeconds(1)),
             () -> assertThat(taskResult.get()).isTrue(),
-            () -> verify(setOperations).remove(eq("agentos:task:processing:agent-1"), eq("1")),
-            () -> verify(valueOperations).set(eq("agentos:task:data:1"), anyString(), any()),
+            () -> assertThat(testTask.getStatus()).isEqualTo(TaskStatus.COMPLETED),
+            () -> verify(redisTemplate).execute(eq(TaskQueueScripts.RELEASE), anyList(),
+                eq("1"), eq(agentId), anyString(), anyString(), eq(""), anyString()),
             () -> verify(structuredLogger).logTaskExecution(anyString(), anyString(), eq(agentId), anyString(), anyLong())
         );
     }
     
+    /**
+     * ✅ TEST: Completion after the lease expired is rejected
+     */
+    @Test
+    void completeTask_ShouldRejectWhenLeaseLost() throws Exception {
+        // Given
+        when(valueOperations.get("agentos:{task}:data:1")).thenReturn("{\"taskId\":1}");
+        when(objectMapper.readValue(anyString(), eq(Task.class))).thenReturn(testTask);
+        when(objectMapper.writeValueAsString(any(Task.class))).thenReturn("{}");
+        when(redisTemplate.execute(eq(TaskQueueScripts.RELEASE), anyList(), any(Object[].class))).thenReturn(0L);
+        
+        // When
+        CompletableFuture<Boolean> taskResult = taskQueueService.completeTask(1L, "agent-1", "done");
+        
+        // Then
+        assertAll(
+            () -> assertThat(taskResult.get()).isFalse(),
+            () -> verify(structuredLogger, never()).logTaskExecution(anyString(), anyString(), anyString(), anyString(), anyLong())
+        );
+    }
+    
     /**
      * ✅ TEST: Task failure with retry logic
      */
@@ -174,11 +305,12 @@ class TaskQueueServiceTest {
         Long taskId = 1L;
         String agentId = "agent-1";
         String errorMessage = "Task failed";
-        Task taskWithRetries = testTask.toBuilder().retryCount(1).build();
+        Task taskWithRetries = task(1L, 1);
         
-        when(valueOperations.get("agentos:task:data:1")).thenReturn("{\"taskId\":1}");
+        when(valueOperations.get("agentos:{task}:data:1")).thenReturn("{\"taskId\":1}");
         when(objectMapper.readValue(anyString(), eq(Task.class))).thenReturn(taskWithRetries);
-        when(metrics.startApiTimer()).thenReturn(mock(io.micrometer.core.instrument.Timer.Sample.class));
+        when(objectMapper.writeValueAsString(any(Task.class))).thenReturn("{}");
+        when(redisTemplate.execute(eq(TaskQueueScripts.RELEASE), anyList(), any(Object[].class))).thenReturn(1L);
         
         // When
         CompletableFuture<Boolean> result = taskQueueService.failTask(taskId, agentId, errorMessage);
@@ -187,8 +319,59 @@ class TaskQueueServiceTest {
         assertAll(
             () -> assertThat(result).succeedsWithin(java.time.Duration.ofSeconds(1)),
             () -> assertThat(result.get()).isTrue(),
+            () -> assertThat(taskWithRetries.getRetryCount()).isEqualTo(2),
             () -> verify(structuredLogger).logBusinessTransaction(eq("task_retry"), anyString(), eq("retry"), eq(agentId), anyMap()),
-            () -> verify(setOperations).remove(eq("agentos:task:processing:agent-1"), eq("1"))
+            () -> verify(redisTemplate).execute(eq(TaskQueueScripts.RELEASE), anyList(),
+                eq("1"), eq(agentId), anyString(), anyString(), argThat(score -> !"".equals(score)), eq("2"))
+        );
+    }
+    
+    /**
+     * ✅ TEST: Expired leases count against the retry limit
+     */
+    @Test
+    void failTask_ShouldFailFinallyWhenLeaseExpiriesUsedTheRetries() throws Exception {
+        // Given
+        Task task = task(1L, 0);
+        when(valueOperations.get("agentos:{task}:data:1")).thenReturn("{\"taskId\":1}");
+        when(objectMapper.readValue(anyString(), eq(Task.class))).thenReturn(task);
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(hashOperations.get("agentos:{task}:queue:retries", "1")).thenReturn("3");
+        when(redisTemplate.execute(eq(TaskQueueScripts.RELEASE), anyList(), any(Object[].class))).thenReturn(1L);
+        
+        // When
+        boolean failed = taskQueueService.failTask(1L, "agent-1", "boom").get();
+        
+        // Then
+        assertAll(
+            () -> assertThat(failed).isTrue(),
+            () -> assertThat(task.getStatus()).isEqualTo(TaskStatus.FAILED),
+            () -> verify(redisTemplate).execute(eq(TaskQueueScripts.RELEASE), anyList(),
+                eq("1"), eq("agent-1"), anyString(), anyString(), eq(""), eq("3")),
+            () -> verify(structuredLogger).logTaskFailure(eq("1"), anyString(), eq("agent-1"), eq("boom"), anyLong())
+        );
+    }
+    
+    /**
+     * ✅ TEST: Lease renewal uses the task's own timeout held in Redis
+     */
+    @Test
+    void extendLeases_ShouldRenewEveryAgentInOneScriptCall() {
+        // Given
+        when(redisTemplate.execute(eq(TaskQueueScripts.EXTEND_AGENTS), anyList(), any(Object[].class))).thenReturn(3L);
+        
+        // When
+        int extended = taskQueueService.extendLeases(List.of("7", "8"));
+        
+        // Then
+        assertAll(
+            () -> assertThat(extended).isEqualTo(3),
+            () -> assertThat(taskQueueService.extendLeases(List.of())).isZero(),
+            () -> verify(redisTemplate, times(1)).execute(
+                eq(TaskQueueScripts.EXTEND_AGENTS),
+                eq(List.of("agentos:{task}:queue:inflight", "agentos:{task}:queue:owners",
+                    "agentos:{task}:queue:timeouts", "agentos:{task}:processing:7", "agentos:{task}:processing:8")),
+                anyString(), eq("300000"), eq("7"), eq("8"))
         );
     }
     
@@ -198,9 +381,8 @@ class TaskQueueServiceTest {
     @Test
     void getQueueStats_ShouldReturnCorrectStatistics() {
         // Given
-        when(listOperations.size("agentos:task:queue:high")).thenReturn(5L);
-        when(listOperations.size("agentos:task:queue:normal")).thenReturn(10L);
-        when(listOperations.size("agentos:task:queue:low")).thenReturn(3L);
+        when(redisTemplate.execute(eq(TaskQueueScripts.STATS), anyList(), any(Object[].class)))
+            .thenReturn(List.of(5L, 10L, 3L, 2L, 4L));
         
         // When
         TaskQueueService.TaskQueueStats stats = taskQueueService.getQueueStats();
@@ -210,29 +392,104 @@ class TaskQueueServiceTest {
             () -> assertThat(stats.getHighPriorityTasks()).isEqualTo(5L),
             () -> assertThat(stats.getNormalPriorityTasks()).isEqualTo(10L),
             () -> assertThat(stats.getLowPriorityTasks()).isEqualTo(3L),
+            () -> assertThat(stats.getInFlightTasks()).isEqualTo(2L),
+            () -> assertThat(stats.getDeadLetteredTasks()).isEqualTo(4L),
             () -> assertThat(stats.getTotalTasks()).isEqualTo(18L),
             () -> assertThat(stats.getUtilizationPercent()).isEqualTo(1.8) // 18/1000 * 100
         );
     }
     
     /**
-     * ✅ TEST: Queue full handling
+     * ✅ TEST: Expired leases are redelivered in batches until drained
      */
     @Test
-    void enqueueTask_ShouldRejectWhenQueueFull() throws Exception {
+    void redeliverExpiredLeases_ShouldDrainInBatches() {
         // Given
-        when(listOperations.size(anyString())).thenReturn(1000L); // Queue full
-        when(metrics.startApiTimer()).thenReturn(mock(io.micrometer.core.instrument.Timer.Sample.class));
+        when(redisTemplate.execute(eq(TaskQueueScripts.REDELIVER), anyList(), any(Object[].class)))
+            .thenReturn(List.of(500L), List.of(42L));
         
         // When
-        CompletableFuture<Boolean> result = taskQueueService.enqueueTask(testTask);
+        int redelivered = taskQueueService.redeliverExpiredLeases();
         
         // Then
         assertAll(
-            () -> assertThat(result).succeedsWithin(java.time.Duration.ofSeconds(1)),
-            () -> assertThat(result.get()).isFalse(),
-            () -> verify(metrics).recordError(eq("task_enqueue"), anyString()),
-            () -> verify(structuredLogger).logError(anyString(), anyString(), any(Exception.class), anyMap())
+            () -> assertThat(redelivered).isEqualTo(542),
+            () -> verify(redisTemplate, times(2)).execute(eq(TaskQueueScripts.REDELIVER), anyList(), any(Object[].class)),
+            () -> verify(zSetOperations, never()).removeRangeByScore(anyString(), anyDouble(), anyDouble())
+        );
+    }
+    
+    /**
+     * ✅ TEST: Tasks whose leases expired past the retry limit are dead-lettered and failed
+     */
+    @Test
+    void redeliverExpiredLeases_ShouldFailDeadLetteredTasks() throws Exception {
+        // Given
+        Task task = task(1L, 0);
+        when(redisTemplate.execute(eq(TaskQueueScripts.REDELIVER), anyList(), any(Object[].class)))
+            .thenReturn(List.of(3L, "1"));
+        when(valueOperations.get("agentos:{task}:data:1")).thenReturn("{\"taskId\":1}");
+        when(objectMapper.readValue(anyString(), eq(Task.class))).thenReturn(task);
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        
+        // When
+        int redelivered = taskQueueService.redeliverExpiredLeases();
+        
+        // Then
+        assertAll(
+            () -> assertThat(redelivered).isEqualTo(2),
+            () -> assertThat(task.getStatus()).isEqualTo(TaskStatus.FAILED),
+            () -> assertThat(task.getRetryCount()).isEqualTo(3),
+            () -> verify(redisTemplate).execute(eq(TaskQueueScripts.REDELIVER),
+                eq(List.of("agentos:{task}:queue:inflight", "agentos:{task}:queue:ready", "agentos:{task}:queue:owners",
+                    "agentos:{task}:queue:scores", "agentos:{task}:queue:timeouts", "agentos:{task}:queue:retries",
+                    "agentos:{task}:queue:dead")),
+                anyString(), eq("500"), anyString(), eq("3")),
+            () -> verify(valueOperations).set(eq("agentos:{task}:data:1"), eq("{}"), any(java.time.Duration.class)),
+            () -> verify(structuredLogger).logTaskFailure(eq("1"), anyString(), eq("unknown"), anyString(), anyLong()),
+            () -> verify(zSetOperations).removeRangeByScore(eq("agentos:{task}:queue:dead"), eq(0.0), anyDouble())
+        );
+    }
+    
+    /**
+     * ✅ TEST: Tasks in the legacy per-priority lists move into the scripted queue
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void drainLegacyQueues_ShouldRequeueLegacyTasks() throws Exception {
+        // Given
+        org.springframework.data.redis.core.ListOperations<String, String> listOperations =
+            mock(org.springframework.data.redis.core.ListOperations.class);
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(listOperations.index(anyString(), eq(0L))).thenReturn(null);
+        when(listOperations.index("agentos:task:queue:high", 0L)).thenReturn("1", (String) null);
+        when(zSetOperations.range(anyString(), eq(0L), eq(99L))).thenReturn(Set.of());
+        when(valueOperations.get("agentos:task:data:1")).thenReturn("{\"taskId\":1}");
+        when(objectMapper.readValue(anyString(), eq(Task.class))).thenReturn(testTask);
+        when(objectMapper.writeValueAsString(testTask)).thenReturn("{}");
+        when(redisTemplate.execute(eq(TaskQueueScripts.ENQUEUE), anyList(), any(Object[].class))).thenReturn(1L);
+        
+        // When
+        int moved = taskQueueService.drainLegacyTasks();
+        
+        // Then
+        assertAll(
+            () -> assertThat(moved).isEqualTo(1),
+            () -> verify(redisTemplate).execute(eq(TaskQueueScripts.ENQUEUE), anyList(), any(Object[].class)),
+            () -> verify(listOperations).remove("agentos:task:queue:high", 1, "1"),
+            () -> verify(redisTemplate).delete("agentos:task:data:1")
         );
     }
-}
\ No newline at end of file
+    
+    private static Task task(Long taskId, int retryCount) {
+        Task task = new Task("test-task", TaskType.MARKET_ANALYSIS, 1L);
+        task.setTaskId(taskId);
+        task.setStatus(TaskStatus.PENDING);
+        task.setPriority(TaskPriority.HIGH);
+        task.setProgressPercentage(0);
+        task.setRetryCount(retryCount);
+        task.setMaxRetries(3);
+        task.setCreatedAt(Instant.now());
+        return task;
+    }
+}
@@ -0,0 +1,86 @@
+package com.trademaster.agentos.service;
+
+import com.trademaster.agentos.domain.entity.Task;
+import com.trademaster.agentos.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ✅ MANDATORY: Unit Tests for Task Claiming
+ *
+ * Validates that dispatcher assignments are claimed only for tasks whose
+ * conditional PENDING update hit a row, that each claimed task is delivered to
+ * its agent through a task started event, and that reconciliation re-stamps
+ * the stale tasks it adopts.
+ */
+class TaskServiceTest {
+
+    private TaskRepository taskRepository;
+    private EventPublishingService eventPublishingService;
+    private TaskService taskService;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository = mock(TaskRepository.class);
+        eventPublishingService = mock(EventPublishingService.class);
+        taskService = new TaskService(taskRepository, eventPublishingService);
+    }
+
+    @Test
+    void onlyTasksWonByTheConditionalUpdateAreClaimedAndDelivered() {
+        when(taskRepository.claimPendingTask(eq(1L), eq(10L), any(Instant.class))).thenReturn(1);
+        // Claimed by another instance between match and flush
+        when(taskRepository.claimPendingTask(eq(2L), eq(20L), any(Instant.class))).thenReturn(0);
+        when(taskRepository.findAllById(Set.of(1L))).thenReturn(List.of(task(1L, "claimed")));
+
+        Map<Long, Long> batch = new LinkedHashMap<>();
+        batch.put(1L, 10L);
+        batch.put(2L, 20L);
+
+        assertThat(taskService.recordAssignments(batch)).containsExactly(1L);
+        verify(eventPublishingService).publishTaskStarted(1L, "claimed", 10L, null);
+        verify(eventPublishingService, never()).publishTaskStarted(eq(2L), any(), anyLong(), any());
+    }
+
+    @Test
+    void adoptedStaleTasksAreRestamped() {
+        Instant staleBefore = Instant.now().minusSeconds(60);
+        when(taskRepository.lockStalePendingTasks(staleBefore, 100))
+            .thenReturn(List.of(task(1L, "first"), task(2L, "second")));
+
+        assertThat(taskService.adoptStalePendingTasks(staleBefore, 100)).extracting(Task::getTaskId).containsExactly(1L, 2L);
+        verify(taskRepository).touchTasks(eq(List.of(1L, 2L)), any(Instant.class));
+    }
+
+    @Test
+    void nothingIsRestampedWhenNoTaskIsStale() {
+        Instant staleBefore = Instant.now().minusSeconds(60);
+        when(taskRepository.lockStalePendingTasks(staleBefore, 100)).thenReturn(List.of());
+
+        assertThat(taskService.adoptStalePendingTasks(staleBefore, 100)).isEmpty();
+        verify(taskRepository, never()).touchTasks(anyCollection(), any(Instant.class));
+    }
+
+    private static Task task(Long taskId, String taskName) {
+        Task task = new Task();
+        task.setTaskId(taskId);
+        task.setTaskName(taskName);
+        return task;
+    }
+}
@@ -0,0 +1,148 @@
+package com.trademaster.agentos.service.strategy;
+
+import com.trademaster.agentos.domain.entity.Agent;
+import com.trademaster.agentos.domain.entity.AgentStatus;
+import com.trademaster.agentos.domain.entity.AgentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * ✅ BENCHMARK: Indexed vs Scanned Agent Selection
+ *
+ * 10k agents over 100 capabilities (12 per agent, skewed towards common
+ * ones), tasks requiring 1-3 capabilities. Compares the index lookup with
+ * filtering the full agent list and scoring it through the composite
+ * strategy, and measures the cost of the load update that keeps the index
+ * current.
+ *
+ * Run with: {@code java -cp <test classpath> com.trademaster.agentos.service.strategy.AgentSelectionIndexBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AgentSelectionIndexBenchmark {
+
+    private static final int AGENTS = 10_000;
+    private static final int CAPABILITIES = 100;
+    private static final int CAPABILITIES_PER_AGENT = 12;
+    private static final int PROBES = 1024;
+    private static final AgentType[] TYPES = AgentType.values();
+
+    private final AgentSelectionStrategy.Builder weights = AgentSelectionStrategy.builder()
+        .withLoadBalance(0.4)
+        .withPerformance(0.4)
+        .withResponseTime(0.15)
+        .withExperience(0.05);
+
+    private AgentSelectionIndex index;
+    private AgentSelectionStrategy composite;
+    private List<Agent> agents;
+    private CapabilityMask[] agentMasks;
+    private AgentType[] queryTypes;
+    private CapabilityMask[] queryMasks;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(2024);
+        index = weights.buildIndex();
+        composite = weights.build();
+        agents = new ArrayList<>(AGENTS);
+        agentMasks = new CapabilityMask[AGENTS];
+
+        for (int i = 0; i < AGENTS; i++) {
+            int maxConcurrentTasks = 4 + random.nextInt(8);
+            Agent agent = Agent.builder()
+                .agentId((long) i)
+                .agentName("agent-" + i)
+                .agentType(TYPES[i % TYPES.length])
+                .status(AgentStatus.ACTIVE)
+                .maxConcurrentTasks(maxConcurrentTasks)
+                .currentLoad(random.nextInt(maxConcurrentTasks))
+                .successRate(random.nextDouble())
+                .averageResponseTime((long) random.nextInt(1_500))
+                .totalTasksCompleted((long) random.nextInt(100_000))
+                .build();
+            agentMasks[i] = randomMask(random, CAPABILITIES_PER_AGENT);
+            agents.add(agent);
+            index.upsert(agent, agentMasks[i]);
+        }
+
+        queryTypes = new AgentType[PROBES];
+        queryMasks = new CapabilityMask[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            queryTypes[i] = TYPES[random.nextInt(TYPES.length)];
+            queryMasks[i] = randomMask(random, 1 + random.nextInt(3));
+        }
+    }
+
+    @Benchmark
+    public Optional<Long> indexedSelect() {
+        int probe = next();
+        return index.selectAgent(queryTypes[probe], queryMasks[probe]);
+    }
+
+    @Benchmark
+    public Optional<Agent> scannedSelect() {
+        int probe = next();
+        AgentType type = queryTypes[probe];
+        CapabilityMask required = queryMasks[probe];
+        List<Agent> candidates = IntStream.range(0, AGENTS)
+            .filter(i -> agents.get(i).getAgentType() == type)
+            .filter(i -> agents.get(i).getCurrentLoad() < agents.get(i).getMaxConcurrentTasks())
+            .filter(i -> agentMasks[i].containsAll(required))
+            .mapToObj(agents::get)
+            .toList();
+        return composite.selectAgent(candidates);
+    }
+
+    @Benchmark
+    public boolean loadUpdate() {
+        int probe = next();
+        Agent agent = agents.get(probe * (AGENTS / PROBES));
+        return index.updateLoad(agent.getAgentId(), (agent.getCurrentLoad() + probe) % agent.getMaxConcurrentTasks());
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (PROBES - 1);
+        return cursor;
+    }
+
+    /**
+     * Quadratic skew: low bit positions are common, high ones rare
+     */
+    private static CapabilityMask randomMask(Random random, int count) {
+        return CapabilityMask.ofBits(IntStream.generate(() -> (int) (Math.pow(random.nextDouble(), 2) * CAPABILITIES))
+            .distinct()
+            .limit(count)
+            .toArray());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(AgentSelectionIndexBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,237 @@
+package com.trademaster.agentos.service.strategy;
+
+import com.trademaster.agentos.domain.entity.Agent;
+import com.trademaster.agentos.domain.entity.AgentCapability;
+import com.trademaster.agentos.domain.entity.AgentStatus;
+import com.trademaster.agentos.domain.entity.AgentType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * ✅ MANDATORY: Unit Tests for Indexed Agent Selection
+ *
+ * Checks the index against the composite strategy it precomputes, over the
+ * candidates findOptimalAgentForTask would return, under random updates.
+ */
+class AgentSelectionIndexTest {
+
+    private static final AgentCapability[] CAPABILITIES = AgentCapability.values();
+    private static final AgentType[] TYPES = AgentType.values();
+
+    private final AgentSelectionStrategy.Builder weights = AgentSelectionStrategy.builder()
+        .withLoadBalance(0.4)
+        .withPerformance(0.4)
+        .withResponseTime(0.15)
+        .withExperience(0.05);
+
+    @Test
+    void selectsSameScoreAsCompositeStrategyUnderRandomUpdates() {
+        Random random = new Random(11);
+        AgentSelectionIndex index = weights.buildIndex();
+        AgentSelectionStrategy composite = weights.build();
+        Map<Long, Agent> reference = new HashMap<>();
+
+        for (int op = 0; op < 20_000; op++) {
+            long agentId = 1 + random.nextInt(1_500);
+            switch (random.nextInt(5)) {
+                case 0 -> {
+                    index.remove(agentId);
+                    reference.remove(agentId);
+                }
+                case 1 -> {
+                    Agent agent = reference.get(agentId);
+                    if (agent != null) {
+                        agent.setCurrentLoad(random.nextInt(agent.getMaxConcurrentTasks() + 1));
+                        index.updateLoad(agentId, agent.getCurrentLoad());
+                    }
+                }
+                default -> {
+                    Agent agent = randomAgent(agentId, random);
+                    index.upsert(agent);
+                    reference.put(agentId, agent);
+                }
+            }
+        }
+
+        for (int query = 0; query < 2_000; query++) {
+            AgentType type = TYPES[random.nextInt(TYPES.length)];
+            List<AgentCapability> required = randomCapabilities(random, random.nextInt(3));
+            List<Agent> candidates = reference.values().stream()
+                .filter(agent -> agent.getAgentType() == type)
+                .filter(Agent::canAcceptNewTask)
+                .filter(agent -> agent.getCapabilities().isEmpty() || agent.getCapabilities().containsAll(required))
+                .toList();
+
+            Optional<Long> selected = index.selectAgent(type, required);
+            Optional<Agent> expected = composite.selectAgent(candidates);
+
+            assertThat(selected.isPresent()).isEqualTo(expected.isPresent());
+            selected.ifPresent(agentId -> assertThat(score(reference.get(agentId)))
+                .isCloseTo(score(expected.get()), within(1e-9)));
+        }
+    }
+
+    @Test
+    void loadChangesMoveAgentsBetweenBandsAndOutAtCapacity() {
+        AgentSelectionIndex index = weights.buildIndex();
+        index.upsert(agent(1L, AgentType.RISK_MANAGEMENT, 0, 4, 0.6));
+        index.upsert(agent(2L, AgentType.RISK_MANAGEMENT, 2, 4, 0.9));
+
+        assertThat(index.selectAgent(AgentType.RISK_MANAGEMENT, List.of())).contains(1L);
+
+        index.updateLoad(1L, 3);
+        assertThat(index.selectAgent(AgentType.RISK_MANAGEMENT, List.of())).contains(2L);
+
+        index.updateLoad(2L, 4);
+        assertThat(index.selectAgent(AgentType.RISK_MANAGEMENT, List.of())).contains(1L);
+
+        index.updateLoad(1L, 4);
+        assertThat(index.selectAgent(AgentType.RISK_MANAGEMENT, List.of())).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void busyAgentsAreIndexedAtAnExplicitLoad() {
+        AgentSelectionIndex index = weights.buildIndex();
+        Agent busy = agent(1L, AgentType.RISK_MANAGEMENT, 4, 4, 0.9);
+        busy.setStatus(AgentStatus.BUSY);
+
+        // The row says full, the dispatcher knows a slot was released since
+        index.upsert(busy, CapabilityMask.EMPTY, 3);
+        assertThat(index.selectAgent(AgentType.RISK_MANAGEMENT, List.of())).contains(1L);
+
+        index.updateLoad(1L, 4);
+        assertThat(index.selectAgent(AgentType.RISK_MANAGEMENT, List.of())).isEmpty();
+    }
+
+    @Test
+    void requiresEveryCapabilityButAcceptsGeneralists() {
+        AgentSelectionIndex index = weights.buildIndex();
+        Agent specialist = agent(1L, AgentType.MARKET_ANALYSIS, 0, 5, 0.9,
+            AgentCapability.TECHNICAL_ANALYSIS, AgentCapability.SENTIMENT_ANALYSIS);
+        index.upsert(specialist);
+
+        assertThat(index.selectAgent(AgentType.MARKET_ANALYSIS, List.of(AgentCapability.TECHNICAL_ANALYSIS))).contains(1L);
+        assertThat(index.selectAgent(AgentType.MARKET_ANALYSIS,
+            List.of(AgentCapability.TECHNICAL_ANALYSIS, AgentCapability.PRICE_PREDICTION))).isEmpty();
+
+        index.upsert(agent(2L, AgentType.MARKET_ANALYSIS, 0, 5, 0.1));
+        assertThat(index.selectAgent(AgentType.MARKET_ANALYSIS,
+            List.of(AgentCapability.TECHNICAL_ANALYSIS, AgentCapability.PRICE_PREDICTION))).contains(2L);
+
+        specialist.setStatus(AgentStatus.UNRESPONSIVE);
+        index.upsert(specialist);
+        assertThat(index.selectAgent(AgentType.MARKET_ANALYSIS, List.of(AgentCapability.TECHNICAL_ANALYSIS))).contains(2L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void generalistsBeyondTheFirstBitsetWordsAreSelectable() {
+        AgentSelectionIndex index = weights.buildIndex();
+        // 130 specialists fill the first three words of the bucket, then generalists take slots 130 and up
+        for (long agentId = 1; agentId <= 130; agentId++) {
+            index.upsert(agent(agentId, AgentType.MARKET_ANALYSIS, 0, 5, 0.9, AgentCapability.TECHNICAL_ANALYSIS));
+        }
+        index.upsert(agent(500L, AgentType.MARKET_ANALYSIS, 0, 5, 0.2));
+        index.upsert(agent(501L, AgentType.MARKET_ANALYSIS, 0, 5, 0.3));
+
+        // Only a generalist holds PRICE_PREDICTION implicitly
+        assertThat(index.selectAgent(AgentType.MARKET_ANALYSIS, List.of(AgentCapability.PRICE_PREDICTION))).contains(501L);
+
+        // Freed low slots are reused by specialists while the generalists keep their high slots
+        for (long agentId = 1; agentId <= 130; agentId++) {
+            index.remove(agentId);
+        }
+        index.upsert(agent(7L, AgentType.MARKET_ANALYSIS, 0, 5, 0.9, AgentCapability.TECHNICAL_ANALYSIS));
+        assertThat(index.selectAgent(AgentType.MARKET_ANALYSIS, List.of(AgentCapability.PRICE_PREDICTION))).contains(501L);
+        assertThat(index.selectAgent(AgentType.MARKET_ANALYSIS, List.of(AgentCapability.TECHNICAL_ANALYSIS))).contains(7L);
+    }
+
+    @Test
+    void relativeLoadChangesAndReloadKeepIndexCurrent() {
+        AgentSelectionIndex index = weights.buildIndex();
+        index.upsert(agent(1L, AgentType.RISK_MANAGEMENT, 0, 2, 0.9));
+        index.upsert(agent(2L, AgentType.RISK_MANAGEMENT, 0, 2, 0.5));
+
+        assertThat(index.adjustLoad(1L, 2)).isTrue();
+        assertThat(index.selectAgent(AgentType.RISK_MANAGEMENT, List.of())).contains(2L);
+        assertThat(index.adjustLoad(1L, -2)).isTrue();
+        assertThat(index.selectAgent(AgentType.RISK_MANAGEMENT, List.of())).contains(1L);
+        assertThat(index.adjustLoad(3L, 1)).isFalse();
+
+        index.retainOnly(List.of(2L));
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.selectAgent(AgentType.RISK_MANAGEMENT, List.of())).contains(2L);
+    }
+
+    @Test
+    void capabilityMaskSpansMultipleWords() {
+        CapabilityMask agent = CapabilityMask.ofBits(3, 64, 99);
+
+        assertThat(agent.containsAll(CapabilityMask.ofBits(64, 99))).isTrue();
+        assertThat(agent.containsAll(CapabilityMask.ofBits(3, 98))).isFalse();
+        assertThat(agent.containsAll(CapabilityMask.EMPTY)).isTrue();
+        assertThat(CapabilityMask.ofBits(3).containsAll(agent)).isFalse();
+        assertThat(agent.bits().toArray()).containsExactly(3, 64, 99);
+        assertThat(CapabilityMask.of(List.of(AgentCapability.values()[5], AgentCapability.values()[1])))
+            .isEqualTo(CapabilityMask.ofBits(1, 5));
+    }
+
+    private double score(Agent agent) {
+        return 0.4 * (1.0 - (double) agent.getCurrentLoad() / agent.getMaxConcurrentTasks())
+            + 0.4 * agent.getSuccessRate()
+            + 0.15 * Math.max(0, 1000.0 - agent.getAverageResponseTime()) / 1000.0
+            + 0.05 * Math.log10(Math.max(1, agent.getTotalTasksCompleted()));
+    }
+
+    private static Agent randomAgent(long agentId, Random random) {
+        int maxConcurrentTasks = 1 + random.nextInt(8);
+        Agent agent = agent(agentId, TYPES[random.nextInt(TYPES.length)], random.nextInt(maxConcurrentTasks + 1),
+            maxConcurrentTasks, random.nextDouble());
+        agent.setCapabilities(random.nextInt(10) == 0 ? new ArrayList<>() : randomCapabilities(random, 1 + random.nextInt(8)));
+        agent.setAverageResponseTime((long) random.nextInt(1_500));
+        agent.setTotalTasksCompleted((long) random.nextInt(100_000));
+        if (random.nextInt(8) == 0) {
+            agent.setStatus(AgentStatus.UNRESPONSIVE);
+        }
+        return agent;
+    }
+
+    private static List<AgentCapability> randomCapabilities(Random random, int count) {
+        List<AgentCapability> capabilities = new ArrayList<>();
+        while (capabilities.size() < count) {
+            // Skewed towards the first capabilities so multi-capability queries still match
+            AgentCapability capability = CAPABILITIES[(int) (Math.pow(random.nextDouble(), 2) * 12)];
+            if (!capabilities.contains(capability)) {
+                capabilities.add(capability);
+            }
+        }
+        return capabilities;
+    }
+
+    private static Agent agent(Long agentId, AgentType type, int load, int maxConcurrentTasks, double successRate,
+                               AgentCapability... capabilities) {
+        return Agent.builder()
+            .agentId(agentId)
+            .agentName("agent-" + agentId)
+            .agentType(type)
+            .status(AgentStatus.ACTIVE)
+            .userId(1L)
+            .capabilities(new ArrayList<>(List.of(capabilities)))
+            .maxConcurrentTasks(maxConcurrentTasks)
+            .currentLoad(load)
+            .successRate(successRate)
+            .averageResponseTime(100L)
+            .totalTasksCompleted(10L)
+            .build();
+    }
+}
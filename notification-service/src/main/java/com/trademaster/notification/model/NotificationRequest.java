@@ -1,10 +1,13 @@
 package com.trademaster.notification.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
@@ -53,6 +56,12 @@ public class NotificationRequest {
     @Column(columnDefinition = "TEXT")
     private String templateVariables; // JSON string of variables
     
+    @Transient
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Map<String, Object> templateModel; // Parsed templateVariables, in memory only
+    
     @NotNull
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
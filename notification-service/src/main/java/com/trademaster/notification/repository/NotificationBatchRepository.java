@@ -0,0 +1,119 @@
+package com.trademaster.notification.repository;
+
+import com.trademaster.notification.model.NotificationRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batched JDBC writes for the notification pipeline
+ *
+ * NotificationRequest uses IDENTITY ids, which stops Hibernate from batching
+ * inserts, so the pipeline writes whole Kafka batches through JDBC: one
+ * batched insert per intake batch and one batched update per set of failures.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationBatchRepository {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO notification_requests (type, recipient, email_recipient, phone_recipient, subject, content,
+            template_name, template_variables, priority, status, scheduled_at, created_at, updated_at,
+            error_message, retry_count, max_retry_attempts, reference_id, reference_type)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String FAILED_ATTEMPT_SQL = """
+        UPDATE notification_requests SET status = ?, retry_count = ?, error_message = ?, scheduled_at = ?, updated_at = ?
+        WHERE id = ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert a batch of notifications in one round trip and assign their generated ids
+     */
+    @Transactional
+    public void insertAll(List<NotificationRequest> requests) {
+        if (requests.isEmpty()) {
+            return;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+            connection -> connection.prepareStatement(INSERT_SQL, new String[] {"id"}),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    NotificationRequest request = requests.get(i);
+                    ps.setString(1, request.getType().name());
+                    ps.setString(2, request.getRecipient());
+                    ps.setString(3, request.getEmailRecipient());
+                    ps.setString(4, request.getPhoneRecipient());
+                    ps.setString(5, request.getSubject());
+                    ps.setString(6, request.getContent());
+                    ps.setString(7, request.getTemplateName());
+                    ps.setString(8, request.getTemplateVariables());
+                    ps.setString(9, request.getPriority().name());
+                    ps.setString(10, request.getStatus().name());
+                    ps.setTimestamp(11, Timestamp.valueOf(request.getScheduledAt()));
+                    ps.setTimestamp(12, Timestamp.valueOf(request.getCreatedAt()));
+                    ps.setTimestamp(13, Timestamp.valueOf(request.getCreatedAt()));
+                    ps.setString(14, request.getErrorMessage());
+                    ps.setInt(15, request.getRetryCount());
+                    ps.setInt(16, request.getMaxRetryAttempts());
+                    ps.setString(17, request.getReferenceId());
+                    ps.setString(18, request.getReferenceType());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return requests.size();
+                }
+            },
+            keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < requests.size(); i++) {
+            requests.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+        }
+    }
+
+    /**
+     * Record failed delivery attempts; status, retry count, error and next
+     * attempt time are taken from each request
+     */
+    @Transactional
+    public void recordFailedAttempts(List<NotificationRequest> requests, LocalDateTime now) {
+        if (requests.isEmpty()) {
+            return;
+        }
+        Timestamp updatedAt = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(FAILED_ATTEMPT_SQL, requests, requests.size(), (ps, request) -> {
+            ps.setString(1, request.getStatus().name());
+            ps.setInt(2, request.getRetryCount());
+            ps.setString(3, request.getErrorMessage());
+            if (request.getScheduledAt() != null) {
+                ps.setTimestamp(4, Timestamp.valueOf(request.getScheduledAt()));
+            } else {
+                ps.setNull(4, Types.TIMESTAMP);
+            }
+            ps.setTimestamp(5, updatedAt);
+            ps.setLong(6, request.getId());
+        });
+    }
+}
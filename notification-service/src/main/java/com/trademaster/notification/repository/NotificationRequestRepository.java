@@ -4,12 +4,15 @@ import com.trademaster.notification.model.NotificationRequest;
 import com.trademaster.notification.model.NotificationStatus;
 import com.trademaster.notification.model.NotificationType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -69,4 +72,71 @@ public interface NotificationRequestRepository extends JpaRepository<Notificatio
      * Delete old notifications
      */
     int deleteByCreatedAtBefore(LocalDateTime cutoff);
-}
\ No newline at end of file
+    
+    /**
+     * Claim notifications due before the horizon for this instance's timing wheel.
+     * Claimed rows move to PROCESSING with updated_at as the lease start; rows
+     * locked by another instance are skipped, and PROCESSING rows whose lease
+     * expired (their instance died and stopped renewing it) are claimed again.
+     */
+    @Transactional
+    @Query(value = """
+        UPDATE notification_requests SET status = 'PROCESSING', updated_at = :now
+        WHERE id IN (
+            SELECT id FROM notification_requests
+            WHERE scheduled_at <= :horizon
+              AND (status = 'PENDING'
+                   OR (status = 'FAILED' AND retry_count < max_retry_attempts)
+                   OR (status = 'PROCESSING' AND updated_at < :leaseExpiredBefore))
+            ORDER BY scheduled_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED)
+        RETURNING *
+        """, nativeQuery = true)
+    List<NotificationRequest> claimDueNotifications(@Param("now") LocalDateTime now,
+                                                    @Param("horizon") LocalDateTime horizon,
+                                                    @Param("leaseExpiredBefore") LocalDateTime leaseExpiredBefore,
+                                                    @Param("limit") int limit);
+    
+    /**
+     * Mark a batch of delivered notifications SENT
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE notification_requests SET status = 'SENT', sent_at = :sentAt, updated_at = :sentAt, " +
+                   "error_message = NULL WHERE id IN (:ids)", nativeQuery = true)
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+    
+    /**
+     * Record a failed attempt and when the next one is due
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE notification_requests SET status = :status, retry_count = :retryCount, " +
+                   "error_message = :errorMessage, scheduled_at = :nextAttemptAt, updated_at = :now WHERE id = :id",
+           nativeQuery = true)
+    int recordFailedAttempt(@Param("id") Long id,
+                            @Param("status") String status,
+                            @Param("retryCount") int retryCount,
+                            @Param("errorMessage") String errorMessage,
+                            @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                            @Param("now") LocalDateTime now);
+    
+    /**
+     * Extend the leases on rows this instance is still working on
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE notification_requests SET updated_at = :now " +
+                   "WHERE id IN (:ids) AND status = 'PROCESSING'", nativeQuery = true)
+    int renewLeases(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    /**
+     * Give up leases held by a stopping instance so others claim the rows at once
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE notification_requests SET updated_at = :expiredAt " +
+                   "WHERE id IN (:ids) AND status = 'PROCESSING'", nativeQuery = true)
+    int releaseLeases(@Param("ids") Collection<Long> ids, @Param("expiredAt") LocalDateTime expiredAt);
+}
@@ -0,0 +1,151 @@
+package com.trademaster.notification.service;
+
+import com.trademaster.notification.model.NotificationRequest;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded worker pool for one delivery channel
+ *
+ * Each channel gets its own queue and its own fixed set of workers, so a slow
+ * SMS provider cannot hold up email and each provider sees a bounded number of
+ * concurrent connections. A worker takes up to a batch of queued notifications
+ * and hands them to the channel sender in one call, which lets the sender
+ * reuse a connection across the batch. The queue is bounded: when a channel
+ * falls behind, intake blocks and Kafka consumption slows down with it.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Slf4j
+final class ChannelWorkerPool {
+
+    /**
+     * Sends a batch for one channel and returns the notifications that failed,
+     * keyed by identity
+     */
+    @FunctionalInterface
+    interface ChannelSender {
+        Map<NotificationRequest, Exception> send(List<NotificationRequest> batch);
+    }
+
+    private static final long POLL_TIMEOUT_MS = 200;
+
+    private final String channel;
+    private final int concurrency;
+    private final int batchSize;
+    private final BlockingQueue<PipelineItem> queue;
+    private final ChannelSender sender;
+    private final NotificationStatusWriter statusWriter;
+    private final Timer queueTimer;
+    private final Timer sendTimer;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    ChannelWorkerPool(String channel, int concurrency, int queueCapacity, int batchSize,
+                      ChannelSender sender, NotificationStatusWriter statusWriter, MeterRegistry meterRegistry) {
+        this.channel = channel;
+        this.concurrency = concurrency;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.sender = sender;
+        this.statusWriter = statusWriter;
+        this.queueTimer = Timer.builder("notification.pipeline.stage")
+            .description("Time spent in each notification pipeline stage")
+            .tags("stage", "queue", "channel", channel)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.sendTimer = Timer.builder("notification.pipeline.stage")
+            .description("Time spent in each notification pipeline stage")
+            .tags("stage", "send", "channel", channel)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        Gauge.builder("notification.pipeline.queued", queue, BlockingQueue::size)
+            .description("Notifications waiting for a channel worker")
+            .tag("channel", channel)
+            .register(meterRegistry);
+    }
+
+    void start() {
+        running = true;
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(Thread.ofVirtual().name("notification-" + channel + "-", i).start(this::runWorker));
+        }
+        log.info("Started {} {} notification workers", concurrency, channel);
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * Queue a notification, waiting while the channel is full
+     */
+    void submit(PipelineItem item) throws InterruptedException {
+        queue.put(item);
+    }
+
+    private void runWorker() {
+        List<PipelineItem> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PipelineItem first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                deliver(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in {} notification worker: {}", channel, e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(List<PipelineItem> batch) {
+        long start = System.nanoTime();
+        List<NotificationRequest> requests = new ArrayList<>(batch.size());
+        for (PipelineItem item : batch) {
+            queueTimer.record(start - item.enqueuedNanos(), TimeUnit.NANOSECONDS);
+            requests.add(item.request());
+        }
+
+        Map<NotificationRequest, Exception> failures;
+        try {
+            failures = sender.send(requests);
+        } catch (RuntimeException e) {
+            failures = new IdentityHashMap<>();
+            for (NotificationRequest request : requests) {
+                failures.put(request, e);
+            }
+        }
+        sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        for (PipelineItem item : batch) {
+            Exception failure = failures.get(item.request());
+            if (failure == null) {
+                statusWriter.recordSent(item);
+            } else {
+                statusWriter.recordFailed(item, failure);
+            }
+        }
+    }
+}
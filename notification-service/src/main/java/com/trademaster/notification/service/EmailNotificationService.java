@@ -6,19 +6,21 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Service
@@ -28,15 +30,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public class EmailNotificationService {
     
     private final JavaMailSender emailSender;
-    private final TemplateEngine templateEngine;
+    private final EmailTemplateRenderer templateRenderer;
     private final ObjectMapper objectMapper;
     
     @Value("${notification.email.default-sender}")
     private String defaultSender;
     
-    @Value("${notification.email.templates-path}")
-    private String templatesPath;
-    
     @Retryable(
         retryFor = {MailException.class, MessagingException.class},
         maxAttempts = 3,
@@ -47,7 +46,7 @@ public class EmailNotificationService {
                 request.getEmailRecipient(), request.getSubject());
         
         try {
-            if (request.getTemplateName() != null && !request.getTemplateName().isEmpty()) {
+            if (isTemplated(request)) {
                 sendTemplatedEmail(request);
             } else {
                 sendSimpleEmail(request);
@@ -71,67 +70,148 @@ public class EmailNotificationService {
     }
     
     private void sendTemplatedEmail(NotificationRequest request) throws MessagingException {
+        emailSender.send(buildMessage(request, templateRenderer.render(request)));
+    }
+    
+    /**
+     * Send a batch of emails over a single SMTP connection
+     * 
+     * @return the requests that could not be sent, keyed by identity
+     */
+    public Map<NotificationRequest, Exception> sendBatch(List<NotificationRequest> requests) {
+        Map<NotificationRequest, Exception> failures = new IdentityHashMap<>();
+        Map<NotificationRequest, String> htmlContent = renderTemplates(requests, failures);
+        Map<MimeMessage, NotificationRequest> messages = new LinkedHashMap<>();
+        for (NotificationRequest request : requests) {
+            if (failures.containsKey(request)) {
+                continue;
+            }
+            try {
+                messages.put(buildMessage(request, htmlContent.get(request)), request);
+            } catch (Exception e) {
+                failures.put(request, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return failures;
+        }
+        
+        try {
+            emailSender.send(messages.keySet().toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            // Only the listed messages failed; the rest went out on the same connection
+            e.getFailedMessages().forEach((message, cause) -> {
+                NotificationRequest request = messages.get(message);
+                if (request != null) {
+                    failures.put(request, cause);
+                }
+            });
+            if (e.getFailedMessages().isEmpty()) {
+                messages.values().forEach(request -> failures.put(request, e));
+            }
+        } catch (MailException e) {
+            messages.values().forEach(request -> failures.put(request, e));
+        }
+        log.debug("Sent email batch of {} ({} failed)", requests.size(), failures.size());
+        return failures;
+    }
+    
+    /**
+     * Render the templated requests of a batch, one template at a time; a
+     * template that fails for the group is retried per request so only the
+     * failing requests are lost
+     */
+    private Map<NotificationRequest, String> renderTemplates(List<NotificationRequest> requests,
+                                                             Map<NotificationRequest, Exception> failures) {
+        Map<String, List<NotificationRequest>> byTemplate = new LinkedHashMap<>();
+        for (NotificationRequest request : requests) {
+            if (isTemplated(request)) {
+                byTemplate.computeIfAbsent(request.getTemplateName(), name -> new ArrayList<>()).add(request);
+            }
+        }
+        
+        Map<NotificationRequest, String> rendered = new IdentityHashMap<>();
+        byTemplate.forEach((templateName, group) -> {
+            try {
+                List<Map<String, Object>> models = new ArrayList<>(group.size());
+                for (NotificationRequest request : group) {
+                    models.add(templateRenderer.modelOf(request));
+                }
+                List<String> html = templateRenderer.renderBatch(templateName, models);
+                for (int i = 0; i < group.size(); i++) {
+                    rendered.put(group.get(i), html.get(i));
+                }
+            } catch (RuntimeException batchFailure) {
+                for (NotificationRequest request : group) {
+                    try {
+                        rendered.put(request, templateRenderer.render(request));
+                    } catch (RuntimeException e) {
+                        failures.put(request, e);
+                    }
+                }
+            }
+        });
+        return rendered;
+    }
+    
+    private static boolean isTemplated(NotificationRequest request) {
+        return request.getTemplateName() != null && !request.getTemplateName().isEmpty();
+    }
+    
+    /**
+     * Build the message; htmlContent is the rendered template, or null for a
+     * plain-text request
+     */
+    private MimeMessage buildMessage(NotificationRequest request, String htmlContent) throws MessagingException {
+        boolean templated = htmlContent != null;
         MimeMessage mimeMessage = emailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, templated, "UTF-8");
         
         helper.setFrom(defaultSender);
         helper.setTo(request.getEmailRecipient());
         helper.setSubject(request.getSubject());
         
-        // Process template with variables
-        String htmlContent = processTemplate(request.getTemplateName(), request.getTemplateVariables());
-        helper.setText(htmlContent, true);
-        
-        emailSender.send(mimeMessage);
-    }
-    
-    private String processTemplate(String templateName, String variablesJson) {
-        try {
-            Context context = new Context();
-            
-            if (variablesJson != null && !variablesJson.isEmpty()) {
-                Map<String, Object> variables = objectMapper.readValue(
-                    variablesJson, new TypeReference<Map<String, Object>>() {}
-                );
-                context.setVariables(variables);
-            }
-            
-            return templateEngine.process(templateName, context);
-        } catch (Exception e) {
-            log.error("Failed to process email template: {}, error: {}", templateName, e.getMessage());
-            throw new RuntimeException("Template processing failed", e);
+        if (templated) {
+            helper.setText(htmlContent, true);
+        } else {
+            helper.setText(request.getContent());
         }
+        return mimeMessage;
     }
     
     // Pre-built email templates for common scenarios
     public NotificationRequest createWelcomeEmail(String email, String firstName, String lastName) {
+        Map<String, Object> variables = Map.of(
+            "firstName", firstName,
+            "lastName", lastName,
+            "dashboardUrl", "https://app.trademaster.com/dashboard"
+        );
         return NotificationRequest.builder()
             .type(NotificationRequest.NotificationType.EMAIL)
             .emailRecipient(email)
             .recipient(email)
             .subject("Welcome to TradeMaster - Your Trading Journey Begins!")
             .templateName("welcome")
-            .templateVariables(createTemplateVariables(Map.of(
-                "firstName", firstName,
-                "lastName", lastName,
-                "dashboardUrl", "https://app.trademaster.com/dashboard"
-            )))
+            .templateVariables(createTemplateVariables(variables))
+            .templateModel(variables)
             .priority(NotificationRequest.Priority.MEDIUM)
             .referenceType("USER_REGISTRATION")
             .build();
     }
     
     public NotificationRequest createKycApprovalEmail(String email, String firstName) {
+        Map<String, Object> variables = Map.of(
+            "firstName", firstName,
+            "tradingUrl", "https://app.trademaster.com/trading"
+        );
         return NotificationRequest.builder()
             .type(NotificationRequest.NotificationType.EMAIL)
             .emailRecipient(email)
             .recipient(email)
             .subject("KYC Verification Approved - Start Trading Now!")
             .templateName("kyc-approved")
-            .templateVariables(createTemplateVariables(Map.of(
-                "firstName", firstName,
-                "tradingUrl", "https://app.trademaster.com/trading"
-            )))
+            .templateVariables(createTemplateVariables(variables))
+            .templateModel(variables)
             .priority(NotificationRequest.Priority.HIGH)
             .referenceType("KYC_APPROVAL")
             .build();
@@ -140,20 +220,22 @@ public class EmailNotificationService {
     public NotificationRequest createTradeExecutionEmail(String email, String firstName, 
                                                         String symbol, String action, 
                                                         String quantity, String price) {
+        Map<String, Object> variables = Map.of(
+            "firstName", firstName,
+            "symbol", symbol,
+            "action", action,
+            "quantity", quantity,
+            "price", price,
+            "portfolioUrl", "https://app.trademaster.com/portfolio"
+        );
         return NotificationRequest.builder()
             .type(NotificationRequest.NotificationType.EMAIL)
             .emailRecipient(email)
             .recipient(email)
             .subject("Trade Executed: " + action + " " + quantity + " " + symbol)
             .templateName("trade-execution")
-            .templateVariables(createTemplateVariables(Map.of(
-                "firstName", firstName,
-                "symbol", symbol,
-                "action", action,
-                "quantity", quantity,
-                "price", price,
-                "portfolioUrl", "https://app.trademaster.com/portfolio"
-            )))
+            .templateVariables(createTemplateVariables(variables))
+            .templateModel(variables)
             .priority(NotificationRequest.Priority.HIGH)
             .referenceType("TRADE_EXECUTION")
             .build();
@@ -161,18 +243,20 @@ public class EmailNotificationService {
     
     public NotificationRequest createSecurityAlertEmail(String email, String firstName, 
                                                        String alertType, String details) {
+        Map<String, Object> variables = Map.of(
+            "firstName", firstName,
+            "alertType", alertType,
+            "details", details,
+            "securityUrl", "https://app.trademaster.com/security"
+        );
         return NotificationRequest.builder()
             .type(NotificationRequest.NotificationType.EMAIL)
             .emailRecipient(email)
             .recipient(email)
             .subject("Security Alert: " + alertType)
             .templateName("security-alert")
-            .templateVariables(createTemplateVariables(Map.of(
-                "firstName", firstName,
-                "alertType", alertType,
-                "details", details,
-                "securityUrl", "https://app.trademaster.com/security"
-            )))
+            .templateVariables(createTemplateVariables(variables))
+            .templateModel(variables)
             .priority(NotificationRequest.Priority.URGENT)
             .referenceType("SECURITY_ALERT")
             .build();
@@ -0,0 +1,231 @@
+package com.trademaster.notification.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.trademaster.notification.model.NotificationRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.AbstractConfigurableTemplateResolver;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.templateresolver.FileTemplateResolver;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Email Template Renderer
+ *
+ * Renders email templates from notification.email.templates-path with its own
+ * Thymeleaf engine:
+ * - Templates are parsed once and cached, and expressions are compiled by the
+ *   SpEL compiler; cached templates expire after cache-ttl-ms, so edited
+ *   templates are picked up without a restart
+ * - Output is written into pooled buffers instead of a new StringWriter per
+ *   message
+ * - Variables are taken as a map; a request's JSON templateVariables are
+ *   parsed at most once and kept on the request as its templateModel
+ * - {@link #renderBatch} renders one template for many recipients with one
+ *   context and one buffer
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class EmailTemplateRenderer {
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+    private static final String FILE_PREFIX = "file:";
+    private static final int INITIAL_BUFFER_CHARS = 8 * 1024;
+    private static final int MAX_RETAINED_BUFFER_CHARS = 256 * 1024;
+
+    private final SpringTemplateEngine templateEngine;
+    private final ObjectReader variablesReader;
+    private final BlockingQueue<RenderBuffer> buffers;
+
+    public EmailTemplateRenderer(
+            ObjectMapper objectMapper,
+            @Value("${notification.email.templates-path}") String templatesPath,
+            @Value("${notification.email.templates.cache-ttl-ms:60000}") long cacheTtlMillis,
+            @Value("${notification.email.templates.buffer-pool-size:64}") int bufferPoolSize) {
+        this.variablesReader = objectMapper.readerFor(new TypeReference<Map<String, Object>>() {});
+        this.buffers = new ArrayBlockingQueue<>(bufferPoolSize);
+
+        AbstractConfigurableTemplateResolver resolver = templatesPath.startsWith(CLASSPATH_PREFIX)
+            ? new ClassLoaderTemplateResolver()
+            : new FileTemplateResolver();
+        resolver.setPrefix(stripPrefix(templatesPath));
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(true);
+        resolver.setCacheTTLMs(cacheTtlMillis);
+
+        this.templateEngine = new SpringTemplateEngine();
+        this.templateEngine.setEnableSpringELCompiler(true);
+        this.templateEngine.setTemplateResolver(resolver);
+    }
+
+    private static String stripPrefix(String templatesPath) {
+        if (templatesPath.startsWith(CLASSPATH_PREFIX)) {
+            String path = templatesPath.substring(CLASSPATH_PREFIX.length());
+            return path.startsWith("/") ? path.substring(1) : path;
+        }
+        return templatesPath.startsWith(FILE_PREFIX) ? templatesPath.substring(FILE_PREFIX.length()) : templatesPath;
+    }
+
+    // ========== Rendering ==========
+
+    /**
+     * Render the request's template with its variables
+     */
+    public String render(NotificationRequest request) {
+        return render(request.getTemplateName(), modelOf(request));
+    }
+
+    /**
+     * Render a template with the given variables
+     */
+    public String render(String templateName, Map<String, Object> model) {
+        RenderBuffer buffer = acquireBuffer();
+        try {
+            Context context = new Context();
+            context.setVariables(model);
+            templateEngine.process(templateName, context, buffer);
+            return buffer.toString();
+        } catch (RuntimeException e) {
+            log.error("Failed to process email template: {}, error: {}", templateName, e.getMessage());
+            throw new RuntimeException("Template processing failed", e);
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    /**
+     * Render one template for many recipients, in the order of the models
+     */
+    public List<String> renderBatch(String templateName, List<Map<String, Object>> models) {
+        List<String> rendered = new ArrayList<>(models.size());
+        RenderBuffer buffer = acquireBuffer();
+        try {
+            Context context = new Context();
+            for (Map<String, Object> model : models) {
+                context.clearVariables();
+                context.setVariables(model);
+                buffer.reset();
+                templateEngine.process(templateName, context, buffer);
+                rendered.add(buffer.toString());
+            }
+            return rendered;
+        } catch (RuntimeException e) {
+            log.error("Failed to process email template: {} for batch of {}, error: {}",
+                     templateName, models.size(), e.getMessage());
+            throw new RuntimeException("Template processing failed", e);
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    /**
+     * The request's template variables as a map, parsed from JSON only the
+     * first time
+     */
+    public Map<String, Object> modelOf(NotificationRequest request) {
+        Map<String, Object> model = request.getTemplateModel();
+        if (model != null) {
+            return model;
+        }
+        String variablesJson = request.getTemplateVariables();
+        try {
+            model = variablesJson == null || variablesJson.isEmpty() ? Map.of() : variablesReader.readValue(variablesJson);
+        } catch (Exception e) {
+            log.error("Failed to parse template variables for template: {}, error: {}",
+                     request.getTemplateName(), e.getMessage());
+            throw new RuntimeException("Template processing failed", e);
+        }
+        request.setTemplateModel(model);
+        return model;
+    }
+
+    /**
+     * Drop all cached templates; the next render parses them again
+     */
+    public void reload() {
+        templateEngine.clearTemplateCache();
+        log.info("Email template cache cleared");
+    }
+
+    // ========== Buffers ==========
+
+    private RenderBuffer acquireBuffer() {
+        RenderBuffer buffer = buffers.poll();
+        return buffer != null ? buffer : new RenderBuffer();
+    }
+
+    private void releaseBuffer(RenderBuffer buffer) {
+        // Buffers grown by an unusually large email are left for the GC
+        if (buffer.capacity() <= MAX_RETAINED_BUFFER_CHARS) {
+            buffer.reset();
+            buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * Unsynchronized, reusable writer; StringWriter locks on every write
+     */
+    private static final class RenderBuffer extends Writer {
+
+        private final StringBuilder chars = new StringBuilder(INITIAL_BUFFER_CHARS);
+
+        @Override
+        public void write(int c) {
+            chars.append((char) c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            chars.append(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            chars.append(str, off, off + len);
+        }
+
+        @Override
+        public Writer append(CharSequence csq) {
+            chars.append(csq);
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        void reset() {
+            chars.setLength(0);
+        }
+
+        int capacity() {
+            return chars.capacity();
+        }
+
+        @Override
+        public String toString() {
+            return chars.toString();
+        }
+    }
+}
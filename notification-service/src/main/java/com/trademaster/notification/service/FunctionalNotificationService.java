@@ -5,14 +5,12 @@ import com.trademaster.notification.repository.NotificationRequestRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.task.AsyncTaskExecutor;
-import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
@@ -153,7 +151,7 @@ public class FunctionalNotificationService {
     }
 
     // Command Pattern - Notification Commands
-    public sealed interface NotificationCommand<T> permits ProcessNotificationCommand, RetryNotificationCommand, ScheduledNotificationCommand {
+    public sealed interface NotificationCommand<T> permits ProcessNotificationCommand, RetryNotificationCommand {
         CompletableFuture<NotificationResult<T, String>> execute();
         
         default <U> NotificationCommand<U> map(Function<T, U> mapper) {
@@ -187,15 +185,6 @@ public class FunctionalNotificationService {
         }
     }
 
-    public record ScheduledNotificationCommand(List<NotificationRequest> notifications) implements NotificationCommand<List<NotificationRequest>> {
-        @Override
-        public CompletableFuture<NotificationResult<List<NotificationRequest>, String>> execute() {
-            return CompletableFuture.supplyAsync(() -> {
-                return processScheduledNotificationsFunctional(notifications);
-            }, virtualExecutor);
-        }
-    }
-
     // Helper command wrappers
     public record MappedNotificationCommand<T, U>(NotificationCommand<T> original, Function<T, U> mapper) implements NotificationCommand<U> {
         @Override
@@ -227,22 +216,6 @@ public class FunctionalNotificationService {
 
     // Public API Methods using Command Pattern
 
-    @KafkaListener(topics = "notification-requests")
-    @Async
-    public CompletableFuture<Void> processNotificationFromKafka(NotificationRequest request) {
-        log.info("Received notification request from Kafka: {}", request.getId());
-        
-        return new ProcessNotificationCommand(request)
-            .withRetry(3)
-            .execute()
-            .thenApply(result -> {
-                if (!result.isSuccess()) {
-                    log.error("Failed to process Kafka notification: {}", result);
-                }
-                return null;
-            });
-    }
-
     @Async
     @Transactional
     public CompletableFuture<NotificationResult<NotificationRequest, String>> processNotificationAsync(NotificationRequest request) {
@@ -413,58 +386,6 @@ public class FunctionalNotificationService {
         request.setStatus(status);
     }
 
-    // Scheduled Methods using Virtual Threads
-    @Scheduled(fixedRate = 60000) // Run every minute
-    @Transactional
-    public CompletableFuture<Void> processScheduledNotifications() {
-        return CompletableFuture.runAsync(() -> {
-            LocalDateTime now = LocalDateTime.now();
-            List<NotificationRequest> scheduledNotifications = 
-                notificationRepository.findByStatusAndScheduledAtLessThanEqual(
-                    NotificationRequest.NotificationStatus.PENDING, now);
-            
-            log.info("Found {} scheduled notifications to process", scheduledNotifications.size());
-            
-            new ScheduledNotificationCommand(scheduledNotifications)
-                .execute()
-                .thenApply(result -> {
-                    if (!result.isSuccess()) {
-                        log.error("Failed to process scheduled notifications: {}", result);
-                    }
-                    return null;
-                });
-        }, virtualExecutor);
-    }
-
-    @Scheduled(fixedRate = 300000) // Run every 5 minutes
-    @Transactional
-    public CompletableFuture<Void> retryFailedNotifications() {
-        return CompletableFuture.runAsync(() -> {
-            List<NotificationRequest> failedNotifications = 
-                notificationRepository.findRetryableNotifications();
-            
-            log.info("Found {} failed notifications to retry", failedNotifications.size());
-            
-            // Process retries in parallel using virtual threads
-            List<CompletableFuture<Void>> retryFutures = failedNotifications.stream()
-                .filter(NotificationRequest::canRetry)
-                .map(notification -> {
-                    log.info("Retrying notification {}, attempt: {}", 
-                            notification.getId(), notification.getRetryCount() + 1);
-                    return processNotificationAsync(notification)
-                        .thenApply(result -> {
-                            if (!result.isSuccess()) {
-                                log.error("Retry failed for notification {}: {}", notification.getId(), result);
-                            }
-                            return null;
-                        });
-                })
-                .toList();
-            
-            CompletableFuture.allOf(retryFutures.toArray(new CompletableFuture[0])).join();
-        }, virtualExecutor);
-    }
-
     @Scheduled(cron = "0 0 2 * * ?") // Run daily at 2 AM
     @Transactional
     public CompletableFuture<Void> cleanupOldNotifications() {
@@ -475,23 +396,6 @@ public class FunctionalNotificationService {
         }, virtualExecutor);
     }
 
-    private NotificationResult<List<NotificationRequest>, String> processScheduledNotificationsFunctional(List<NotificationRequest> notifications) {
-        try {
-            // Process notifications in parallel using virtual threads
-            List<CompletableFuture<NotificationResult<NotificationRequest, String>>> futures = 
-                notifications.stream()
-                    .map(notification -> processNotificationAsync(notification))
-                    .toList();
-            
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-            
-            return NotificationResult.success(notifications);
-        } catch (Exception e) {
-            log.error("Failed to process scheduled notifications: {}", e.getMessage());
-            return NotificationResult.failure("Failed to process scheduled notifications: " + e.getMessage());
-        }
-    }
-
     // Synchronous wrapper methods for backward compatibility
     @Transactional
     public void processNotification(NotificationRequest request) {
@@ -0,0 +1,143 @@
+package com.trademaster.notification.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-key GCRA (generic cell rate algorithm) limiter for one channel
+ *
+ * Each key's whole state is one long, its theoretical arrival time (TAT) on
+ * the {@link System#nanoTime()} clock. A send is allowed if pushing the TAT
+ * forward by one emission interval (period / limit) leaves it no more than
+ * one period ahead of now. That allows a burst of the full limit and then
+ * limit sends per period, the same as a sliding window, and it is decided
+ * with a single compare-and-set and no lock. A denied attempt does not move
+ * the TAT.
+ *
+ * The key table is bounded. A key whose TAT has passed behaves exactly like
+ * an absent key, so a sweep drops those without changing any decision. If
+ * the table is still over its limit after that, keys closest to idle are
+ * dropped next; those keys get back at most their remaining backlog.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+final class GcraLimiter {
+
+    /** Marks a state that has been removed from the table; callers retry with a fresh entry */
+    private static final long EVICTED = Long.MIN_VALUE;
+
+    private final long periodNanos;
+    private final long intervalNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, AtomicLong> states = new ConcurrentHashMap<>();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+
+    GcraLimiter(int limit, long periodNanos, int maxKeys) {
+        if (limit <= 0 || periodNanos <= 0 || maxKeys <= 0) {
+            throw new IllegalArgumentException("limit, period and maxKeys must be positive");
+        }
+        this.periodNanos = periodNanos;
+        this.intervalNanos = periodNanos / limit;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Take one send for the key if it is under its limit
+     */
+    boolean tryAcquire(String key, long now) {
+        while (true) {
+            AtomicLong state = stateFor(key, now);
+            long tat = state.get();
+            while (tat != EVICTED) {
+                long newTat = Math.max(tat, now) + intervalNanos;
+                if (newTat - now > periodNanos) {
+                    return false;
+                }
+                if (state.compareAndSet(tat, newTat)) {
+                    return true;
+                }
+                tat = state.get();
+            }
+            states.remove(key, state);
+        }
+    }
+
+    /**
+     * Give back a send taken by {@link #tryAcquire}, e.g. when a global limit
+     * rejected it afterwards
+     */
+    void release(String key) {
+        AtomicLong state = states.get(key);
+        if (state == null) {
+            return;
+        }
+        long tat;
+        do {
+            tat = state.get();
+            if (tat == EVICTED) {
+                return;
+            }
+        } while (!state.compareAndSet(tat, tat - intervalNanos));
+    }
+
+    /**
+     * Drop idle keys, then near-idle keys while the table is over its limit
+     *
+     * @return the number of keys dropped
+     */
+    int sweep(long now) {
+        if (!sweepLock.tryLock()) {
+            return 0;
+        }
+        try {
+            int evicted = evictIdleBefore(now, Integer.MAX_VALUE);
+            // Over the limit with every key active: drop the keys with the least backlog first
+            for (int quarter = 1; quarter <= 4 && states.size() > lowWaterMark(); quarter++) {
+                evicted += evictIdleBefore(now + periodNanos * quarter / 4, states.size() - lowWaterMark());
+            }
+            return evicted;
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    int size() {
+        return states.size();
+    }
+
+    private AtomicLong stateFor(String key, long now) {
+        AtomicLong state = states.get(key);
+        if (state != null) {
+            return state;
+        }
+        if (states.size() >= maxKeys) {
+            sweep(now);
+        }
+        AtomicLong created = new AtomicLong(now);
+        state = states.putIfAbsent(key, created);
+        return state != null ? state : created;
+    }
+
+    private int evictIdleBefore(long threshold, int max) {
+        int evicted = 0;
+        Iterator<Map.Entry<String, AtomicLong>> entries = states.entrySet().iterator();
+        while (entries.hasNext() && evicted < max) {
+            Map.Entry<String, AtomicLong> entry = entries.next();
+            AtomicLong state = entry.getValue();
+            long tat = state.get();
+            if (tat != EVICTED && tat - threshold <= 0 && state.compareAndSet(tat, EVICTED)) {
+                states.remove(entry.getKey(), state);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private int lowWaterMark() {
+        return maxKeys - maxKeys / 10;
+    }
+}
@@ -0,0 +1,200 @@
+package com.trademaster.notification.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Hierarchical Timing Wheel
+ *
+ * Millisecond-resolution delay queue for scheduled notifications and retries.
+ * The lowest wheel has one bucket per tick; each overflow wheel has one bucket
+ * per full turn of the wheel below it, so far-off deadlines sit in a coarse
+ * bucket and cascade down as their time approaches. Adding an item is O(1).
+ * Only non-empty buckets go into a {@link DelayQueue}, so the timer thread
+ * sleeps until the next bucket is due instead of ticking through empty ones.
+ *
+ * @param <T> scheduled item
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+public final class HierarchicalTimingWheel<T> {
+
+    private final DelayQueue<Bucket<T>> dueBuckets = new DelayQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Wheel<T> root;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize) {
+        this(tickMillis, wheelSize, System::currentTimeMillis);
+    }
+
+    HierarchicalTimingWheel(long tickMillis, int wheelSize, LongSupplier clock) {
+        this.root = new Wheel<>(tickMillis, wheelSize, clock.getAsLong(), dueBuckets, clock);
+    }
+
+    /**
+     * Schedule an item to fire at the given epoch millisecond
+     *
+     * @return false if the deadline is already due; the caller should fire it now
+     */
+    public boolean schedule(T item, long deadlineMillis) {
+        lock.lock();
+        try {
+            if (!root.add(new Entry<>(item, deadlineMillis))) {
+                return false;
+            }
+            size.incrementAndGet();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait up to the timeout for the next due bucket and hand every item that
+     * has come due to the consumer
+     *
+     * @return the number of items fired
+     */
+    public int poll(long timeoutMillis, Consumer<T> fired) throws InterruptedException {
+        Bucket<T> bucket = dueBuckets.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (bucket == null) {
+            return 0;
+        }
+        List<T> due = new ArrayList<>();
+        lock.lock();
+        try {
+            while (bucket != null) {
+                root.advanceClock(bucket.getExpiration());
+                for (Entry<T> entry : bucket.drain()) {
+                    // Re-adding cascades the entry into a finer wheel, or reports it due
+                    if (!root.add(entry)) {
+                        due.add(entry.item());
+                    }
+                }
+                bucket = dueBuckets.poll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        size.addAndGet(-due.size());
+        due.forEach(fired);
+        return due.size();
+    }
+
+    /**
+     * Items waiting in the wheel
+     */
+    public int size() {
+        return size.get();
+    }
+
+    // ========== Internals ==========
+
+    private record Entry<T>(T item, long deadlineMillis) {}
+
+    private static final class Wheel<T> {
+        private final long tickMillis;
+        private final int wheelSize;
+        private final long intervalMillis;
+        private final Bucket<T>[] buckets;
+        private final DelayQueue<Bucket<T>> dueBuckets;
+        private final LongSupplier clock;
+        private long currentTime;
+        private Wheel<T> overflow;
+
+        @SuppressWarnings("unchecked")
+        Wheel(long tickMillis, int wheelSize, long startMillis, DelayQueue<Bucket<T>> dueBuckets, LongSupplier clock) {
+            this.tickMillis = tickMillis;
+            this.wheelSize = wheelSize;
+            this.intervalMillis = tickMillis * wheelSize;
+            this.dueBuckets = dueBuckets;
+            this.clock = clock;
+            this.currentTime = startMillis - (startMillis % tickMillis);
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>(clock);
+            }
+        }
+
+        boolean add(Entry<T> entry) {
+            long deadline = entry.deadlineMillis();
+            if (deadline < currentTime + tickMillis) {
+                return false;
+            }
+            if (deadline < currentTime + intervalMillis) {
+                long virtualId = deadline / tickMillis;
+                Bucket<T> bucket = buckets[(int) (virtualId % wheelSize)];
+                bucket.add(entry);
+                if (bucket.setExpiration(virtualId * tickMillis)) {
+                    dueBuckets.offer(bucket);
+                }
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Wheel<>(intervalMillis, wheelSize, currentTime, dueBuckets, clock);
+            }
+            return overflow.add(entry);
+        }
+
+        void advanceClock(long timeMillis) {
+            if (timeMillis >= currentTime + tickMillis) {
+                currentTime = timeMillis - (timeMillis % tickMillis);
+                if (overflow != null) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+
+    private static final class Bucket<T> implements Delayed {
+        private final AtomicLong expiration = new AtomicLong(-1L);
+        private final LongSupplier clock;
+        private List<Entry<T>> entries = new ArrayList<>();
+
+        Bucket(LongSupplier clock) {
+            this.clock = clock;
+        }
+
+        void add(Entry<T> entry) {
+            entries.add(entry);
+        }
+
+        /**
+         * @return true if the bucket now expires at a new time and must be queued again
+         */
+        boolean setExpiration(long expirationMillis) {
+            return expiration.getAndSet(expirationMillis) != expirationMillis;
+        }
+
+        long getExpiration() {
+            return expiration.get();
+        }
+
+        List<Entry<T>> drain() {
+            List<Entry<T>> drained = entries;
+            entries = new ArrayList<>();
+            expiration.set(-1L);
+            return drained;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Math.max(0, expiration.get() - clock.getAsLong()), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiration.get(), ((Bucket<?>) other).expiration.get());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.trademaster.notification.service;
+
+import com.trademaster.notification.repository.NotificationRequestRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lease renewal for notifications this instance holds
+ *
+ * A PROCESSING row's updated_at is its lease: the scheduler claims the row
+ * again once the lease is older than the lease timeout. Rows that are still
+ * being worked on here - waiting in the scheduler's timing wheel, or queued
+ * behind a slow channel in the pipeline - would otherwise be claimed by
+ * another instance and sent twice. Holders register the ids they own, and
+ * every renewal interval (well inside the lease timeout) their leases are
+ * moved forward in batched updates. Ids are released once their outcome is
+ * written. When an instance dies renewal stops, and its rows are claimed
+ * again after one lease timeout.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class NotificationLeaseKeeper {
+
+    private final NotificationRequestRepository notificationRepository;
+    private final Set<Long> held = ConcurrentHashMap.newKeySet();
+
+    @Value("${notification.scheduler.lease-renew-batch-size:1000}")
+    private int renewBatchSize = 1000;
+
+    public NotificationLeaseKeeper(NotificationRequestRepository notificationRepository) {
+        this.notificationRepository = notificationRepository;
+    }
+
+    /**
+     * Keep renewing the lease on a PROCESSING row until it is released
+     */
+    public void hold(Long id) {
+        held.add(id);
+    }
+
+    public void holdAll(Collection<Long> ids) {
+        held.addAll(ids);
+    }
+
+    /**
+     * Stop renewing a row whose outcome has been written or handed back
+     */
+    public void release(Long id) {
+        held.remove(id);
+    }
+
+    public void releaseAll(Collection<Long> ids) {
+        held.removeAll(ids);
+    }
+
+    /**
+     * Move the lease of every held row forward
+     *
+     * @return the number of leases renewed
+     */
+    @Scheduled(fixedDelayString = "${notification.scheduler.lease-renew-interval-ms:60000}")
+    public int renewLeases() {
+        if (held.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = List.copyOf(held);
+        LocalDateTime now = LocalDateTime.now();
+        int renewed = 0;
+        try {
+            for (int from = 0; from < ids.size(); from += renewBatchSize) {
+                renewed += notificationRepository.renewLeases(
+                    ids.subList(from, Math.min(from + renewBatchSize, ids.size())), now);
+            }
+        } catch (RuntimeException e) {
+            // Retried on the next interval; a lease only lapses if renewal keeps failing for the whole timeout
+            log.error("Failed to renew notification leases: {}", e.getMessage(), e);
+        }
+        log.debug("Renewed {} of {} held notification leases", renewed, ids.size());
+        return renewed;
+    }
+
+    /**
+     * Notifications whose leases this instance is renewing
+     */
+    public int getHeldCount() {
+        return held.size();
+    }
+}
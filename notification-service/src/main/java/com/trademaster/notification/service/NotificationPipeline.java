@@ -0,0 +1,197 @@
+package com.trademaster.notification.service;
+
+import com.trademaster.notification.model.NotificationRequest;
+import com.trademaster.notification.repository.NotificationBatchRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notification Pipeline
+ *
+ * Staged processing for notification requests arriving from Kafka:
+ * 1. Intake - a whole Kafka batch is validated, rate limited and written with
+ *    one batched insert; immediate notifications go in as PROCESSING, later
+ *    ones as PENDING for the scheduler, rate-limited ones as FAILED with a
+ *    retry time; the PROCESSING rows' leases are renewed by
+ *    {@link NotificationLeaseKeeper} until their status is written, so the
+ *    scheduler never reclaims a row still queued here
+ * 2. Channel queues - each notification is queued for its channel's bounded
+ *    worker pool (email, SMS, other), which sends in batches over reused
+ *    connections
+ * 3. Status - outcomes are collected by {@link NotificationStatusWriter} and
+ *    written in batched updates
+ *
+ * A notification costs one share of a batched insert and one share of a
+ * batched status update, instead of up to four single-row saves. Stage
+ * latencies are published as notification.pipeline.stage histograms tagged
+ * by stage and channel.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class NotificationPipeline {
+
+    private static final String RATE_LIMITED = "Rate limit exceeded";
+
+    private final NotificationBatchRepository batchRepository;
+    private final RateLimitService rateLimitService;
+    private final NotificationRetryPolicy retryPolicy;
+    private final NotificationLeaseKeeper leaseKeeper;
+    private final Timer intakeTimer;
+    private final Map<NotificationRequest.NotificationType, ChannelWorkerPool> pools =
+        new EnumMap<>(NotificationRequest.NotificationType.class);
+    private final List<ChannelWorkerPool> distinctPools = new ArrayList<>();
+
+    public NotificationPipeline(
+            NotificationBatchRepository batchRepository,
+            RateLimitService rateLimitService,
+            NotificationRetryPolicy retryPolicy,
+            EmailNotificationService emailService,
+            SmsNotificationService smsService,
+            NotificationProcessingService processingService,
+            NotificationStatusWriter statusWriter,
+            NotificationLeaseKeeper leaseKeeper,
+            MeterRegistry meterRegistry,
+            @Value("${notification.pipeline.email.concurrency:8}") int emailConcurrency,
+            @Value("${notification.pipeline.email.batch-size:50}") int emailBatchSize,
+            @Value("${notification.pipeline.sms.concurrency:16}") int smsConcurrency,
+            @Value("${notification.pipeline.sms.batch-size:20}") int smsBatchSize,
+            @Value("${notification.pipeline.other.concurrency:4}") int otherConcurrency,
+            @Value("${notification.pipeline.queue-capacity:10000}") int queueCapacity) {
+        this.batchRepository = batchRepository;
+        this.rateLimitService = rateLimitService;
+        this.retryPolicy = retryPolicy;
+        this.leaseKeeper = leaseKeeper;
+        this.intakeTimer = Timer.builder("notification.pipeline.stage")
+            .description("Time spent in each notification pipeline stage")
+            .tag("stage", "intake")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+
+        ChannelWorkerPool email = new ChannelWorkerPool("email", emailConcurrency, queueCapacity, emailBatchSize,
+            emailService::sendBatch, statusWriter, meterRegistry);
+        ChannelWorkerPool sms = new ChannelWorkerPool("sms", smsConcurrency, queueCapacity, smsBatchSize,
+            smsService::sendBatch, statusWriter, meterRegistry);
+        ChannelWorkerPool other = new ChannelWorkerPool("other", otherConcurrency, queueCapacity, 1,
+            batch -> deliverEach(processingService, batch), statusWriter, meterRegistry);
+        pools.put(NotificationRequest.NotificationType.EMAIL, email);
+        pools.put(NotificationRequest.NotificationType.SMS, sms);
+        pools.put(NotificationRequest.NotificationType.PUSH, other);
+        pools.put(NotificationRequest.NotificationType.IN_APP, other);
+        distinctPools.addAll(List.of(email, sms, other));
+    }
+
+    @PostConstruct
+    public void start() {
+        distinctPools.forEach(ChannelWorkerPool::start);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        for (ChannelWorkerPool pool : distinctPools) {
+            pool.stop();
+        }
+    }
+
+    @KafkaListener(topics = "notification-requests", batch = "true")
+    public void processNotificationsFromKafka(List<NotificationRequest> requests) throws InterruptedException {
+        log.debug("Received {} notification requests from Kafka", requests.size());
+        submit(requests);
+    }
+
+    /**
+     * Persist a batch of new notifications and queue the due ones for delivery
+     *
+     * @return the number of notifications queued for immediate delivery
+     */
+    public int submit(List<NotificationRequest> requests) throws InterruptedException {
+        long received = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<NotificationRequest> accepted = new ArrayList<>(requests.size());
+        List<NotificationRequest> immediate = new ArrayList<>(requests.size());
+        for (NotificationRequest request : requests) {
+            if (request.getType() == null || request.getRecipient() == null) {
+                log.error("Dropping invalid notification request without type or recipient: {}", request);
+                continue;
+            }
+            prepare(request, now);
+            accepted.add(request);
+            if (request.getStatus() == NotificationRequest.NotificationStatus.PROCESSING) {
+                immediate.add(request);
+            }
+        }
+
+        batchRepository.insertAll(accepted);
+        immediate.forEach(request -> leaseKeeper.hold(request.getId()));
+        long enqueued = System.nanoTime();
+        intakeTimer.record(enqueued - received, TimeUnit.NANOSECONDS);
+
+        for (NotificationRequest request : immediate) {
+            pools.get(request.getType()).submit(new PipelineItem(request, received, System.nanoTime()));
+        }
+        return immediate.size();
+    }
+
+    /**
+     * Fill in what the entity's lifecycle callbacks would have set and decide
+     * the initial status, so the row is written once
+     */
+    private void prepare(NotificationRequest request, LocalDateTime now) {
+        request.setCreatedAt(now);
+        if (request.getScheduledAt() == null) {
+            request.setScheduledAt(now);
+        }
+        if (request.getPriority() == null) {
+            request.setPriority(NotificationRequest.Priority.MEDIUM);
+        }
+        if (request.getContent() == null) {
+            request.setContent("");
+        }
+        if (request.getRetryCount() == null) {
+            request.setRetryCount(0);
+        }
+        if (request.getMaxRetryAttempts() == null) {
+            request.setMaxRetryAttempts(3);
+        }
+
+        if (request.getScheduledAt().isAfter(now)) {
+            request.setStatus(NotificationRequest.NotificationStatus.PENDING);
+        } else if (!rateLimitService.isAllowed(request)) {
+            request.setStatus(NotificationRequest.NotificationStatus.FAILED);
+            request.setErrorMessage(RATE_LIMITED);
+            request.setScheduledAt(now.plus(retryPolicy.delayAfter(1)));
+        } else {
+            request.setStatus(NotificationRequest.NotificationStatus.PROCESSING);
+        }
+    }
+
+    private static Map<NotificationRequest, Exception> deliverEach(NotificationProcessingService processingService,
+                                                                   List<NotificationRequest> batch) {
+        Map<NotificationRequest, Exception> failures = new IdentityHashMap<>();
+        for (NotificationRequest request : batch) {
+            try {
+                processingService.deliver(request);
+            } catch (Exception e) {
+                failures.put(request, e);
+            }
+        }
+        return failures;
+    }
+}
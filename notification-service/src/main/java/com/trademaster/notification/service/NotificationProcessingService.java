@@ -4,14 +4,11 @@ import com.trademaster.notification.model.NotificationRequest;
 import com.trademaster.notification.repository.NotificationRequestRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -22,13 +19,7 @@ public class NotificationProcessingService {
     private final EmailNotificationService emailService;
     private final SmsNotificationService smsService;
     private final RateLimitService rateLimitService;
-    
-    @KafkaListener(topics = "notification-requests")
-    @Async
-    public void processNotificationFromKafka(NotificationRequest request) {
-        log.info("Received notification request from Kafka: {}", request.getId());
-        processNotification(request);
-    }
+    private final NotificationRetryPolicy retryPolicy;
     
     @Transactional
     public void processNotification(NotificationRequest request) {
@@ -38,7 +29,7 @@ public class NotificationProcessingService {
                 request = notificationRepository.save(request);
             }
             
-            // Check if notification is scheduled for later
+            // Scheduled for later: NotificationScheduler claims it shortly before it is due
             if (request.getScheduledAt().isAfter(LocalDateTime.now())) {
                 log.info("Notification {} scheduled for later: {}", 
                         request.getId(), request.getScheduledAt());
@@ -58,35 +49,24 @@ public class NotificationProcessingService {
             request.setStatus(NotificationRequest.NotificationStatus.PROCESSING);
             notificationRepository.save(request);
             
-            // Process based on notification type
-            switch (request.getType()) {
-                case EMAIL -> processEmailNotification(request);
-                case SMS -> processSmsNotification(request);
-                case PUSH -> log.warn("Push notifications not implemented yet");
-                case IN_APP -> log.warn("In-app notifications not implemented yet");
-                default -> throw new IllegalArgumentException("Unknown notification type: " + request.getType());
-            }
-            
-        } catch (Exception e) {
-            handleNotificationError(request, e);
-        }
-    }
-    
-    private void processEmailNotification(NotificationRequest request) {
-        try {
-            emailService.sendEmail(request);
+            deliver(request);
             markNotificationAsSent(request);
+            
         } catch (Exception e) {
             handleNotificationError(request, e);
         }
     }
     
-    private void processSmsNotification(NotificationRequest request) {
-        try {
-            smsService.sendSms(request);
-            markNotificationAsSent(request);
-        } catch (Exception e) {
-            handleNotificationError(request, e);
+    /**
+     * Send a notification through its channel without touching its database row
+     */
+    public void deliver(NotificationRequest request) throws Exception {
+        switch (request.getType()) {
+            case EMAIL -> emailService.sendEmail(request);
+            case SMS -> smsService.sendSms(request);
+            case PUSH -> log.warn("Push notifications not implemented yet");
+            case IN_APP -> log.warn("In-app notifications not implemented yet");
+            default -> throw new IllegalArgumentException("Unknown notification type: " + request.getType());
         }
     }
     
@@ -105,8 +85,9 @@ public class NotificationProcessingService {
         
         if (request.canRetry()) {
             request.setStatus(NotificationRequest.NotificationStatus.FAILED);
-            log.info("Notification {} will be retried. Attempt: {}/{}", 
-                    request.getId(), request.getRetryCount(), request.getMaxRetryAttempts());
+            request.setScheduledAt(LocalDateTime.now().plus(retryPolicy.delayAfter(request.getRetryCount())));
+            log.info("Notification {} will be retried at {}. Attempt: {}/{}", 
+                    request.getId(), request.getScheduledAt(), request.getRetryCount(), request.getMaxRetryAttempts());
         } else {
             request.setStatus(NotificationRequest.NotificationStatus.FAILED);
             log.error("Notification {} failed permanently after {} attempts", 
@@ -116,44 +97,7 @@ public class NotificationProcessingService {
         notificationRepository.save(request);
     }
     
-    // Scheduled task to process scheduled notifications
-    @Scheduled(fixedRate = 60000) // Run every minute
-    @Transactional
-    public void processScheduledNotifications() {
-        LocalDateTime now = LocalDateTime.now();
-        List<NotificationRequest> scheduledNotifications = 
-            notificationRepository.findByStatusAndScheduledAtLessThanEqual(
-                NotificationRequest.NotificationStatus.PENDING, now);
-        
-        log.info("Found {} scheduled notifications to process", scheduledNotifications.size());
-        
-        for (NotificationRequest notification : scheduledNotifications) {
-            try {
-                processNotification(notification);
-            } catch (Exception e) {
-                log.error("Failed to process scheduled notification {}: {}", 
-                         notification.getId(), e.getMessage(), e);
-            }
-        }
-    }
-    
-    // Scheduled task to retry failed notifications
-    @Scheduled(fixedRate = 300000) // Run every 5 minutes
-    @Transactional
-    public void retryFailedNotifications() {
-        List<NotificationRequest> failedNotifications = 
-            notificationRepository.findRetryableNotifications();
-        
-        log.info("Found {} failed notifications to retry", failedNotifications.size());
-        
-        for (NotificationRequest notification : failedNotifications) {
-            if (notification.canRetry()) {
-                log.info("Retrying notification {}, attempt: {}", 
-                        notification.getId(), notification.getRetryCount() + 1);
-                processNotification(notification);
-            }
-        }
-    }
+    // Scheduled and retried notifications are fired by NotificationScheduler
     
     // Cleanup old notifications
     @Scheduled(cron = "0 0 2 * * ?") // Run daily at 2 AM
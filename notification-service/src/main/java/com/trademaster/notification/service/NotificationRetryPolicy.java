@@ -0,0 +1,51 @@
+package com.trademaster.notification.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff between notification delivery attempts
+ *
+ * The delay doubles with every failed attempt, starting from the base delay
+ * and capped at the maximum, so a failing provider is not hammered while a
+ * transient failure is still retried quickly. Up to the jitter fraction is
+ * taken off each delay at random, so notifications that failed together
+ * during a provider outage do not all retry in the same millisecond.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Component
+public class NotificationRetryPolicy {
+
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final double jitter;
+
+    public NotificationRetryPolicy(
+            @Value("${notification.scheduler.retry.base-delay-ms:5000}") long baseDelayMillis,
+            @Value("${notification.scheduler.retry.max-delay-ms:900000}") long maxDelayMillis,
+            @Value("${notification.scheduler.retry.jitter:0.2}") double jitter) {
+        if (jitter < 0.0 || jitter >= 1.0) {
+            throw new IllegalArgumentException("Retry jitter must be in [0, 1): " + jitter);
+        }
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Delay before the next attempt after the given number of failed attempts,
+     * between (1 - jitter) and 1 times the backoff
+     */
+    public Duration delayAfter(int failedAttempts) {
+        int doublings = Math.min(Math.max(failedAttempts - 1, 0), 30);
+        long backoff = Math.min(baseDelayMillis << doublings, maxDelayMillis);
+        long spread = (long) (backoff * jitter);
+        long delay = spread > 0 ? backoff - ThreadLocalRandom.current().nextLong(spread + 1) : backoff;
+        return Duration.ofMillis(delay);
+    }
+}
@@ -0,0 +1,275 @@
+package com.trademaster.notification.service;
+
+import com.trademaster.notification.model.NotificationRequest;
+import com.trademaster.notification.repository.NotificationRequestRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Notification Scheduler
+ *
+ * Fires scheduled notifications and delivery retries on time, with millisecond
+ * resolution, instead of polling the database every minute:
+ * - Every claim interval, notifications due within the horizon are claimed in
+ *   batches with SELECT ... FOR UPDATE SKIP LOCKED, so several instances share
+ *   the backlog without claiming the same row twice
+ * - Claimed notifications wait in a {@link HierarchicalTimingWheel}; one timer
+ *   thread sleeps until the next bucket is due
+ * - Each batch that comes due is delivered on virtual threads, then all sent
+ *   notifications are marked in one update
+ * - A failed attempt is rescheduled with exponential backoff; retries due
+ *   within the horizon go straight back into the wheel
+ *
+ * Per notification that is one share of a batched claim, one delivery and one
+ * status update, however large the backlog. A claimed row stays PROCESSING
+ * with updated_at as its lease, renewed by {@link NotificationLeaseKeeper}
+ * while the row waits here; if an instance dies, its rows are claimed again
+ * once the lease expires.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class NotificationScheduler {
+
+    private static final long POLL_TIMEOUT_MS = 200;
+
+    private final NotificationRequestRepository notificationRepository;
+    private final NotificationProcessingService processingService;
+    private final RateLimitService rateLimitService;
+    private final NotificationRetryPolicy retryPolicy;
+    private final NotificationLeaseKeeper leaseKeeper;
+
+    private final HierarchicalTimingWheel<NotificationRequest> wheel;
+    private final Map<Long, NotificationRequest> scheduled = new ConcurrentHashMap<>();
+    private final ExecutorService deliveryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private Thread timerThread;
+    private volatile boolean running;
+
+    @Value("${notification.scheduler.horizon-ms:60000}")
+    private long horizonMillis = 60000;
+
+    @Value("${notification.scheduler.claim-batch-size:500}")
+    private int claimBatchSize = 500;
+
+    @Value("${notification.scheduler.max-scheduled:20000}")
+    private int maxScheduled = 20000;
+
+    @Value("${notification.scheduler.lease-timeout-ms:300000}")
+    private long leaseTimeoutMillis = 300000;
+
+    public NotificationScheduler(
+            NotificationRequestRepository notificationRepository,
+            NotificationProcessingService processingService,
+            RateLimitService rateLimitService,
+            NotificationRetryPolicy retryPolicy,
+            NotificationLeaseKeeper leaseKeeper,
+            @Value("${notification.scheduler.tick-ms:1}") long tickMillis,
+            @Value("${notification.scheduler.wheel-size:512}") int wheelSize) {
+        this.notificationRepository = notificationRepository;
+        this.processingService = processingService;
+        this.rateLimitService = rateLimitService;
+        this.retryPolicy = retryPolicy;
+        this.leaseKeeper = leaseKeeper;
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, wheelSize);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        timerThread = Thread.ofPlatform().name("notification-timer").daemon().start(this::runTimer);
+        log.info("Notification scheduler started (horizon: {} ms)", horizonMillis);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        timerThread.interrupt();
+        timerThread.join(5000);
+        deliveryExecutor.shutdown();
+        if (!scheduled.isEmpty()) {
+            leaseKeeper.releaseAll(scheduled.keySet());
+            int released = notificationRepository.releaseLeases(scheduled.keySet(), LocalDateTime.of(1970, 1, 1, 0, 0));
+            log.info("Released {} scheduled notifications for other instances", released);
+        }
+    }
+
+    // ========== Claiming ==========
+
+    /**
+     * Claim notifications coming due within the horizon into the timing wheel
+     *
+     * @return the number of notifications claimed
+     */
+    @Scheduled(fixedDelayString = "${notification.scheduler.claim-interval-ms:1000}")
+    public int claimDueNotifications() {
+        int claimed = 0;
+        while (scheduled.size() < maxScheduled) {
+            LocalDateTime now = LocalDateTime.now();
+            List<NotificationRequest> batch = notificationRepository.claimDueNotifications(
+                now, now.plus(Duration.ofMillis(horizonMillis)),
+                now.minus(Duration.ofMillis(leaseTimeoutMillis)), claimBatchSize);
+            batch.forEach(this::schedule);
+            claimed += batch.size();
+            if (batch.size() < claimBatchSize) {
+                break;
+            }
+        }
+        if (claimed > 0) {
+            log.debug("Claimed {} notifications ({} scheduled)", claimed, scheduled.size());
+        }
+        return claimed;
+    }
+
+    private void schedule(NotificationRequest request) {
+        scheduled.put(request.getId(), request);
+        leaseKeeper.hold(request.getId());
+        if (!wheel.schedule(request, toEpochMillis(request.getScheduledAt()))) {
+            deliveryExecutor.execute(() -> deliverBatch(List.of(request)));
+        }
+    }
+
+    // ========== Firing ==========
+
+    private void runTimer() {
+        List<NotificationRequest> due = new ArrayList<>();
+        while (running) {
+            try {
+                wheel.poll(POLL_TIMEOUT_MS, due::add);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!due.isEmpty()) {
+                List<NotificationRequest> batch = List.copyOf(due);
+                due.clear();
+                deliveryExecutor.execute(() -> deliverBatch(batch));
+            }
+        }
+    }
+
+    /**
+     * Deliver a batch that came due together, then write the outcomes
+     */
+    private void deliverBatch(List<NotificationRequest> batch) {
+        List<Future<Exception>> attempts = new ArrayList<>(batch.size());
+        for (NotificationRequest request : batch) {
+            attempts.add(deliveryExecutor.submit(() -> attempt(request)));
+        }
+
+        List<Long> sent = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            NotificationRequest request = batch.get(i);
+            Exception failure;
+            try {
+                failure = attempts.get(i).get();
+            } catch (Exception e) {
+                failure = e;
+            }
+            if (failure == null) {
+                sent.add(request.getId());
+            } else {
+                try {
+                    recordFailure(request, failure);
+                } catch (RuntimeException e) {
+                    // Left PROCESSING; claimed again once the unrenewed lease expires
+                    log.error("Failed to record failed attempt for notification {}: {}", request.getId(), e.getMessage(), e);
+                    forget(List.of(request.getId()));
+                }
+            }
+        }
+
+        if (!sent.isEmpty()) {
+            try {
+                notificationRepository.markSent(sent, LocalDateTime.now());
+                log.info("Delivered {} scheduled notifications", sent.size());
+            } finally {
+                // Unwritten rows stay PROCESSING and are claimed again once the lease expires
+                forget(sent);
+            }
+        }
+    }
+
+    private Exception attempt(NotificationRequest request) {
+        try {
+            if (!rateLimitService.isAllowed(request)) {
+                return new IllegalStateException("Rate limit exceeded");
+            }
+            processingService.deliver(request);
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    // ========== Retries ==========
+
+    private void recordFailure(NotificationRequest request, Exception failure) {
+        request.incrementRetryCount();
+        request.setErrorMessage(failure.getMessage());
+        LocalDateTime now = LocalDateTime.now();
+
+        if (request.getRetryCount() >= request.getMaxRetryAttempts()) {
+            notificationRepository.recordFailedAttempt(request.getId(), NotificationRequest.NotificationStatus.FAILED.name(),
+                request.getRetryCount(), request.getErrorMessage(), request.getScheduledAt(), now);
+            forget(List.of(request.getId()));
+            log.error("Notification {} failed permanently after {} attempts: {}",
+                     request.getId(), request.getRetryCount(), failure.getMessage());
+            return;
+        }
+
+        Duration delay = retryPolicy.delayAfter(request.getRetryCount());
+        LocalDateTime nextAttemptAt = now.plus(delay);
+        request.setScheduledAt(nextAttemptAt);
+        boolean keepInWheel = delay.toMillis() <= horizonMillis;
+        NotificationRequest.NotificationStatus status = keepInWheel
+            ? NotificationRequest.NotificationStatus.PROCESSING
+            : NotificationRequest.NotificationStatus.FAILED;
+        notificationRepository.recordFailedAttempt(request.getId(), status.name(),
+            request.getRetryCount(), request.getErrorMessage(), nextAttemptAt, now);
+        log.warn("Notification {} attempt {}/{} failed, retrying in {} ms: {}", request.getId(),
+                request.getRetryCount(), request.getMaxRetryAttempts(), delay.toMillis(), failure.getMessage());
+
+        if (keepInWheel) {
+            schedule(request);
+        } else {
+            // Released; claimed again by any instance once it is within the horizon
+            forget(List.of(request.getId()));
+        }
+    }
+
+    /**
+     * Drop notifications whose outcome is written; their leases are no longer renewed
+     */
+    private void forget(List<Long> ids) {
+        ids.forEach(scheduled::remove);
+        leaseKeeper.releaseAll(ids);
+    }
+
+    /**
+     * Notifications claimed and waiting in this instance's wheel
+     */
+    public int getScheduledCount() {
+        return scheduled.size();
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,155 @@
+package com.trademaster.notification.service;
+
+import com.trademaster.notification.model.NotificationRequest;
+import com.trademaster.notification.repository.NotificationBatchRepository;
+import com.trademaster.notification.repository.NotificationRequestRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Batched status updates for the notification pipeline
+ *
+ * Channel workers report outcomes here instead of saving each row. Sent
+ * notifications are marked in one update per chunk; failures are written in
+ * one batched update with their next attempt time, and the scheduler picks
+ * them up when it is due. A flush runs every interval, or as soon as a full
+ * batch is waiting. Once a row's status is written its lease is no longer
+ * renewed.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class NotificationStatusWriter {
+
+    private final NotificationRequestRepository notificationRepository;
+    private final NotificationBatchRepository batchRepository;
+    private final NotificationRetryPolicy retryPolicy;
+    private final NotificationLeaseKeeper leaseKeeper;
+    private final Timer statusTimer;
+    private final Timer endToEndTimer;
+
+    private final Queue<PipelineItem> sent = new ConcurrentLinkedQueue<>();
+    private final Queue<PipelineItem> failed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Value("${notification.pipeline.status-batch-size:1000}")
+    private int batchSize = 1000;
+
+    public NotificationStatusWriter(
+            NotificationRequestRepository notificationRepository,
+            NotificationBatchRepository batchRepository,
+            NotificationRetryPolicy retryPolicy,
+            NotificationLeaseKeeper leaseKeeper,
+            MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.batchRepository = batchRepository;
+        this.retryPolicy = retryPolicy;
+        this.leaseKeeper = leaseKeeper;
+        this.statusTimer = Timer.builder("notification.pipeline.stage")
+            .description("Time spent in each notification pipeline stage")
+            .tag("stage", "status")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.endToEndTimer = Timer.builder("notification.pipeline.end_to_end")
+            .description("Time from Kafka intake to the notification's status being written")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    void recordSent(PipelineItem item) {
+        sent.add(item);
+        flushIfFull();
+    }
+
+    void recordFailed(PipelineItem item, Exception failure) {
+        NotificationRequest request = item.request();
+        request.incrementRetryCount();
+        request.setErrorMessage(failure.getMessage());
+        request.setStatus(NotificationRequest.NotificationStatus.FAILED);
+        if (request.getRetryCount() < request.getMaxRetryAttempts()) {
+            request.setScheduledAt(LocalDateTime.now().plus(retryPolicy.delayAfter(request.getRetryCount())));
+        }
+        log.warn("Notification {} attempt {}/{} failed: {}", request.getId(),
+                request.getRetryCount(), request.getMaxRetryAttempts(), failure.getMessage());
+        failed.add(item);
+        flushIfFull();
+    }
+
+    private void flushIfFull() {
+        if (pending.incrementAndGet() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Write every outcome reported so far
+     *
+     * @return the number of notifications written
+     */
+    @Scheduled(fixedDelayString = "${notification.pipeline.status-flush-interval-ms:100}")
+    public int flush() {
+        if (!flushLock.tryLock()) {
+            return 0;
+        }
+        List<PipelineItem> sentItems = List.of();
+        List<PipelineItem> failedItems = List.of();
+        try {
+            long start = System.nanoTime();
+            sentItems = drain(sent);
+            failedItems = drain(failed);
+            if (sentItems.isEmpty() && failedItems.isEmpty()) {
+                return 0;
+            }
+            pending.addAndGet(-(sentItems.size() + failedItems.size()));
+
+            LocalDateTime now = LocalDateTime.now();
+            for (int from = 0; from < sentItems.size(); from += batchSize) {
+                List<Long> ids = sentItems.subList(from, Math.min(from + batchSize, sentItems.size())).stream()
+                    .map(item -> item.request().getId())
+                    .toList();
+                notificationRepository.markSent(ids, now);
+            }
+            batchRepository.recordFailedAttempts(failedItems.stream().map(PipelineItem::request).toList(), now);
+
+            long end = System.nanoTime();
+            statusTimer.record(end - start, TimeUnit.NANOSECONDS);
+            sentItems.forEach(item -> endToEndTimer.record(end - item.receivedNanos(), TimeUnit.NANOSECONDS));
+            failedItems.forEach(item -> endToEndTimer.record(end - item.receivedNanos(), TimeUnit.NANOSECONDS));
+            log.debug("Wrote status for {} sent and {} failed notifications", sentItems.size(), failedItems.size());
+            return sentItems.size() + failedItems.size();
+        } catch (RuntimeException e) {
+            // The rows stay PROCESSING; the scheduler claims them again once their lease expires
+            log.error("Failed to write notification statuses: {}", e.getMessage(), e);
+            return 0;
+        } finally {
+            sentItems.forEach(item -> leaseKeeper.release(item.request().getId()));
+            failedItems.forEach(item -> leaseKeeper.release(item.request().getId()));
+            flushLock.unlock();
+        }
+    }
+
+    private static List<PipelineItem> drain(Queue<PipelineItem> queue) {
+        List<PipelineItem> items = new ArrayList<>();
+        PipelineItem item;
+        while ((item = queue.poll()) != null) {
+            items.add(item);
+        }
+        return items;
+    }
+}
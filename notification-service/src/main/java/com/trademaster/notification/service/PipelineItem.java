@@ -0,0 +1,17 @@
+package com.trademaster.notification.service;
+
+import com.trademaster.notification.model.NotificationRequest;
+
+/**
+ * A notification travelling through the pipeline, with the stage timestamps
+ * used for the latency histograms
+ *
+ * @param request       the persisted notification
+ * @param receivedNanos when its Kafka batch arrived
+ * @param enqueuedNanos when it was queued for its channel
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+record PipelineItem(NotificationRequest request, long receivedNanos, long enqueuedNanos) {
+}
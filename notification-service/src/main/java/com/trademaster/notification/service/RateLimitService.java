@@ -2,109 +2,141 @@ package com.trademaster.notification.service;
 
 import com.trademaster.notification.model.NotificationRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Rate Limiting Service for Notifications
- * 
- * Implements rate limiting using sliding window approach to prevent notification spam
- * and comply with external service rate limits.
- * 
+ *
+ * Limits notifications per channel and recipient to prevent notification spam
+ * and comply with external service rate limits. Each channel has a
+ * {@link GcraLimiter}: one long of state per recipient, updated with a single
+ * compare-and-set, in a key table bounded by max-keys. An allowed check takes
+ * the send; there is no separate attempt to record.
+ *
+ * With notification.rate-limit.global.enabled, a send allowed locally is also
+ * checked against the same GCRA limit in Redis, so the limit holds across all
+ * instances. If Redis cannot be reached, the local decision stands.
+ *
  * @author TradeMaster Development Team
  * @version 1.0.0
  */
 @Service
 @Slf4j
 public class RateLimitService {
-    
-    // Rate limits per notification type (per minute)
-    private static final int EMAIL_RATE_LIMIT = 60;
-    private static final int SMS_RATE_LIMIT = 10; 
-    private static final int PUSH_RATE_LIMIT = 100;
-    private static final int IN_APP_RATE_LIMIT = 200;
-    
-    // Sliding window counters
-    private final ConcurrentHashMap<String, AtomicInteger> windowCounts = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, LocalDateTime> windowStarts = new ConcurrentHashMap<>();
-    
+
+    private static final long PERIOD_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final String GLOBAL_KEY_PREFIX = "notification:rate-limit:";
+
     /**
-     * Check if a notification request is allowed under current rate limits
+     * GCRA in Redis, with the TAT in milliseconds; the key expires once idle
      */
-    public boolean isAllowed(NotificationRequest request) {
-        String rateLimitKey = getRateLimitKey(request);
-        int limit = getRateLimitForType(request.getType());
-        
-        return checkRateLimit(rateLimitKey, limit);
+    private static final RedisScript<Long> GLOBAL_GCRA_SCRIPT = new DefaultRedisScript<>("""
+        local now = tonumber(ARGV[1])
+        local interval = tonumber(ARGV[2])
+        local period = tonumber(ARGV[3])
+        local tat = tonumber(redis.call('GET', KEYS[1]) or now)
+        if tat < now then tat = now end
+        local new_tat = tat + interval
+        if new_tat - now > period then return 0 end
+        redis.call('SET', KEYS[1], new_tat, 'PX', new_tat - now)
+        return 1
+        """, Long.class);
+
+    private final Map<NotificationRequest.NotificationType, GcraLimiter> limiters =
+        new EnumMap<>(NotificationRequest.NotificationType.class);
+    private final Map<NotificationRequest.NotificationType, Integer> limits =
+        new EnumMap<>(NotificationRequest.NotificationType.class);
+    private final StringRedisTemplate redisTemplate;
+
+    public RateLimitService(
+            Optional<StringRedisTemplate> redisTemplate,
+            @Value("${notification.rate-limit.global.enabled:false}") boolean globalEnabled,
+            @Value("${notification.rate-limit.email.requests-per-minute:60}") int emailLimit,
+            @Value("${notification.rate-limit.sms.requests-per-minute:10}") int smsLimit,
+            @Value("${notification.rate-limit.push.requests-per-minute:100}") int pushLimit,
+            @Value("${notification.rate-limit.in-app.requests-per-minute:200}") int inAppLimit,
+            @Value("${notification.rate-limit.max-keys:500000}") int maxKeys) {
+        this.redisTemplate = globalEnabled ? redisTemplate.orElseThrow(
+            () -> new IllegalStateException("Global rate limits need Redis")) : null;
+        register(NotificationRequest.NotificationType.EMAIL, emailLimit, maxKeys);
+        register(NotificationRequest.NotificationType.SMS, smsLimit, maxKeys);
+        register(NotificationRequest.NotificationType.PUSH, pushLimit, maxKeys);
+        register(NotificationRequest.NotificationType.IN_APP, inAppLimit, maxKeys);
+    }
+
+    private void register(NotificationRequest.NotificationType type, int limit, int maxKeys) {
+        limits.put(type, limit);
+        limiters.put(type, new GcraLimiter(limit, PERIOD_NANOS, maxKeys));
     }
-    
+
     /**
-     * Record a notification attempt (regardless of success/failure)
+     * Check if a notification request is allowed under current rate limits,
+     * taking one send from the recipient's allowance if it is
      */
-    public void recordAttempt(NotificationRequest request) {
-        String rateLimitKey = getRateLimitKey(request);
-        incrementCounter(rateLimitKey);
-    }
-    
-    private String getRateLimitKey(NotificationRequest request) {
-        // Rate limit by type and recipient to prevent spam to specific users
-        return request.getType().name() + ":" + request.getRecipient();
-    }
-    
-    private int getRateLimitForType(NotificationRequest.NotificationType type) {
-        return switch (type) {
-            case EMAIL -> EMAIL_RATE_LIMIT;
-            case SMS -> SMS_RATE_LIMIT;
-            case PUSH -> PUSH_RATE_LIMIT;
-            case IN_APP -> IN_APP_RATE_LIMIT;
-        };
-    }
-    
-    private boolean checkRateLimit(String key, int limit) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime windowStart = windowStarts.get(key);
-        
-        // Initialize or reset window if more than a minute has passed
-        if (windowStart == null || windowStart.isBefore(now.minusMinutes(1))) {
-            windowStarts.put(key, now);
-            windowCounts.put(key, new AtomicInteger(0));
-            return true;
+    public boolean isAllowed(NotificationRequest request) {
+        NotificationRequest.NotificationType type = request.getType();
+        String recipient = Objects.requireNonNullElse(request.getRecipient(), "");
+        GcraLimiter limiter = limiters.get(type);
+
+        if (!limiter.tryAcquire(recipient, System.nanoTime())) {
+            log.warn("Rate limit exceeded for {} recipient {} (limit: {}/min)", type, recipient, limits.get(type));
+            return false;
         }
-        
-        // Check current count against limit
-        AtomicInteger currentCount = windowCounts.get(key);
-        int count = currentCount != null ? currentCount.get() : 0;
-        
-        if (count >= limit) {
-            log.warn("Rate limit exceeded for key: {} (current: {}, limit: {})", key, count, limit);
+        if (redisTemplate != null && !isAllowedGlobally(type, recipient)) {
+            limiter.release(recipient);
+            log.warn("Global rate limit exceeded for {} recipient {} (limit: {}/min)", type, recipient, limits.get(type));
             return false;
         }
-        
         return true;
     }
-    
-    private void incrementCounter(String key) {
-        windowCounts.computeIfAbsent(key, k -> new AtomicInteger(0)).incrementAndGet();
+
+    private boolean isAllowedGlobally(NotificationRequest.NotificationType type, String recipient) {
+        long periodMillis = TimeUnit.NANOSECONDS.toMillis(PERIOD_NANOS);
+        try {
+            Long allowed = redisTemplate.execute(GLOBAL_GCRA_SCRIPT,
+                List.of(GLOBAL_KEY_PREFIX + type.name() + ":" + recipient),
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(periodMillis / limits.get(type)),
+                String.valueOf(periodMillis));
+            return allowed == null || allowed == 1L;
+        } catch (RuntimeException e) {
+            log.warn("Global rate limit check failed, using local limit only: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Drop rate limit state for recipients that have gone idle
+     *
+     * @return the number of entries dropped
+     */
+    @Scheduled(fixedDelayString = "${notification.rate-limit.cleanup-interval-ms:30000}")
+    public int cleanup() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (GcraLimiter limiter : limiters.values()) {
+            evicted += limiter.sweep(now);
+        }
+        log.debug("Cleaned up {} idle rate limit entries", evicted);
+        return evicted;
     }
-    
+
     /**
-     * Clean up old rate limit entries (should be called periodically)
+     * Recipients currently tracked across all channels
      */
-    public void cleanup() {
-        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(2);
-        
-        windowStarts.entrySet().removeIf(entry -> entry.getValue().isBefore(cutoff));
-        
-        // Remove counters for cleaned up windows
-        windowStarts.keySet().forEach(key -> {
-            if (!windowStarts.containsKey(key)) {
-                windowCounts.remove(key);
-            }
-        });
-        
-        log.debug("Cleaned up rate limit entries older than 2 minutes");
+    public int getTrackedKeyCount() {
+        return limiters.values().stream().mapToInt(GcraLimiter::size).sum();
     }
-}
\ No newline at end of file
+}
@@ -12,6 +12,9 @@ import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
@@ -57,6 +60,29 @@ public class SmsNotificationService {
         }
     }
     
+    /**
+     * Send a batch of SMS messages one after another on the calling worker;
+     * the Twilio client's pooled HTTP connections are reused across the batch
+     * 
+     * @return the requests that could not be sent, keyed by identity
+     */
+    public Map<NotificationRequest, Exception> sendBatch(List<NotificationRequest> requests) {
+        Map<NotificationRequest, Exception> failures = new IdentityHashMap<>();
+        for (NotificationRequest request : requests) {
+            try {
+                Message message = Message.creator(
+                    new PhoneNumber(request.getPhoneRecipient()),
+                    new PhoneNumber(twilioPhoneNumber),
+                    request.getContent()
+                ).create();
+                log.debug("SMS sent to: {}, SID: {}", request.getPhoneRecipient(), message.getSid());
+            } catch (Exception e) {
+                failures.put(request, e);
+            }
+        }
+        return failures;
+    }
+    
     // Pre-built SMS templates for common scenarios
     public NotificationRequest createWelcomeSms(String phoneNumber, String firstName) {
         String content = String.format(
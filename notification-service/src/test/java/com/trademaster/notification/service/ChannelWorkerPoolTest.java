@@ -0,0 +1,143 @@
+package com.trademaster.notification.service;
+
+import com.trademaster.notification.model.NotificationRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Channel Worker Pool Test
+ *
+ * A full channel queue blocks intake until a worker frees a slot; per-message
+ * failures reported by the sender and a sender that throws for the whole
+ * batch are both recorded per notification, and the worker keeps going.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+class ChannelWorkerPoolTest {
+
+    private final NotificationStatusWriter statusWriter = mock(NotificationStatusWriter.class);
+    private ChannelWorkerPool pool;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (pool != null) {
+            pool.stop();
+        }
+    }
+
+    @Test
+    void fullQueueBlocksIntakeUntilAWorkerCatchesUp() throws Exception {
+        CountDownLatch providerStalled = new CountDownLatch(1);
+        CountDownLatch releaseProvider = new CountDownLatch(1);
+        List<Long> delivered = Collections.synchronizedList(new ArrayList<>());
+        pool = new ChannelWorkerPool("email", 1, 2, 1, batch -> {
+            providerStalled.countDown();
+            await(releaseProvider);
+            batch.forEach(request -> delivered.add(request.getId()));
+            return Map.of();
+        }, statusWriter, new SimpleMeterRegistry());
+        pool.start();
+
+        pool.submit(item(1L));
+        assertThat(providerStalled.await(5, TimeUnit.SECONDS)).isTrue();
+        // The worker holds item 1; items 2 and 3 fill the queue
+        pool.submit(item(2L));
+        pool.submit(item(3L));
+
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> {
+            try {
+                pool.submit(item(4L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(200);
+        assertThat(blocked).isNotDone();
+
+        releaseProvider.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        waitUntil(() -> delivered.size() == 4);
+        assertThat(delivered).containsExactly(1L, 2L, 3L, 4L);
+        verify(statusWriter, timeout(5000).times(4)).recordSent(any());
+        verify(statusWriter, never()).recordFailed(any(), any());
+    }
+
+    @Test
+    void failuresAreRecordedPerNotificationAndWorkersSurviveAThrowingSender() throws Exception {
+        RuntimeException rejected = new IllegalStateException("mailbox unavailable");
+        RuntimeException outage = new IllegalStateException("connection refused");
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        pool = new ChannelWorkerPool("sms", 1, 100, 3, batch -> {
+            batchSizes.add(batch.size());
+            if (batch.stream().anyMatch(request -> request.getId() == 4L)) {
+                throw outage;
+            }
+            Map<NotificationRequest, Exception> failures = new IdentityHashMap<>();
+            batch.stream().filter(request -> request.getId() == 2L).forEach(request -> failures.put(request, rejected));
+            return failures;
+        }, statusWriter, new SimpleMeterRegistry());
+
+        // Queued before the worker starts, so the batches are exactly [1, 2, 3], [4, 5, 6], [7]
+        List<PipelineItem> items = new ArrayList<>();
+        for (long id = 1; id <= 7; id++) {
+            PipelineItem item = item(id);
+            items.add(item);
+            pool.submit(item);
+        }
+        pool.start();
+
+        verify(statusWriter, timeout(5000)).recordSent(items.get(6));
+        assertThat(batchSizes).containsExactly(3, 3, 1);
+        verify(statusWriter).recordSent(items.get(0));
+        verify(statusWriter).recordFailed(items.get(1), rejected);
+        verify(statusWriter).recordSent(items.get(2));
+        for (int i = 3; i < 6; i++) {
+            verify(statusWriter).recordFailed(eq(items.get(i)), eq(outage));
+        }
+    }
+
+    private static PipelineItem item(Long id) {
+        NotificationRequest request = NotificationRequest.builder()
+            .id(id)
+            .type(NotificationRequest.NotificationType.EMAIL)
+            .recipient("user-" + id + "@example.com")
+            .build();
+        return new PipelineItem(request, System.nanoTime(), System.nanoTime());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
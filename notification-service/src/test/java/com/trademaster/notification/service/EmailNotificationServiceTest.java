@@ -0,0 +1,143 @@
+package com.trademaster.notification.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trademaster.notification.model.NotificationRequest;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Email Notification Service Test
+ *
+ * A batch sent over one connection loses only the messages the mail server
+ * refused, as listed by {@link MailSendException#getFailedMessages()}; a
+ * failure with no per-message detail fails the whole batch, and a template
+ * that fails for one request does not hold back the rest.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+class EmailNotificationServiceTest {
+
+    private final JavaMailSender mailSender = mock(JavaMailSender.class);
+    private final EmailTemplateRenderer templateRenderer = mock(EmailTemplateRenderer.class);
+
+    @Test
+    void onlyMessagesTheServerRefusedFail() {
+        when(mailSender.createMimeMessage()).thenAnswer(call -> new MimeMessage((Session) null));
+        List<MimeMessage> attempted = new ArrayList<>();
+        doAnswer(call -> {
+            // Mockito spreads the varargs array into the invocation's arguments
+            Object[] messages = call.getArguments();
+            for (Object message : messages) {
+                attempted.add((MimeMessage) message);
+            }
+            throw new MailSendException(Map.of(messages[1], new IllegalStateException("550 mailbox unavailable")));
+        }).when(mailSender).send(any(MimeMessage[].class));
+        List<NotificationRequest> batch = List.of(email("a@example.com"), email("b@example.com"), email("c@example.com"));
+
+        Map<NotificationRequest, Exception> failures = service(mailSender).sendBatch(batch);
+
+        assertThat(attempted).hasSize(3);
+        assertThat(failures).containsOnlyKeys(batch.get(1));
+        assertThat(failures.get(batch.get(1))).hasMessage("550 mailbox unavailable");
+    }
+
+    @Test
+    void failureWithoutPerMessageDetailFailsTheWholeBatch() {
+        when(mailSender.createMimeMessage()).thenAnswer(call -> new MimeMessage((Session) null));
+        MailSendException refused = new MailSendException("connection refused");
+        doThrow(refused).when(mailSender).send(any(MimeMessage[].class));
+        List<NotificationRequest> batch = List.of(email("a@example.com"), email("b@example.com"));
+
+        Map<NotificationRequest, Exception> failures = service(mailSender).sendBatch(batch);
+
+        assertThat(failures).containsOnlyKeys(batch);
+        assertThat(failures.values()).containsOnly(refused);
+    }
+
+    @Test
+    void templateFailureOnlyFailsItsOwnRequest() {
+        when(mailSender.createMimeMessage()).thenAnswer(call -> new MimeMessage((Session) null));
+        List<MimeMessage> attempted = new ArrayList<>();
+        doAnswer(call -> {
+            for (Object message : call.getArguments()) {
+                attempted.add((MimeMessage) message);
+            }
+            return null;
+        }).when(mailSender).send(any(MimeMessage[].class));
+        NotificationRequest good = templated("good@example.com");
+        NotificationRequest broken = templated("broken@example.com");
+        when(templateRenderer.modelOf(any())).thenReturn(Map.of());
+        when(templateRenderer.renderBatch(eq("trade-execution"), anyList()))
+            .thenThrow(new IllegalStateException("template error"));
+        when(templateRenderer.render(good)).thenReturn("<p>filled</p>");
+        when(templateRenderer.render(broken)).thenThrow(new IllegalStateException("missing variable"));
+
+        Map<NotificationRequest, Exception> failures = service(mailSender)
+            .sendBatch(List.of(good, broken, email("plain@example.com")));
+
+        assertThat(failures).containsOnlyKeys(broken);
+        assertThat(attempted).hasSize(2);
+    }
+
+    @Test
+    void refusedRecipientFailsOnlyItsMessageAgainstARealSmtpServer() throws Exception {
+        try (MockSmtpServer smtp = new MockSmtpServer(0)) {
+            JavaMailSenderImpl sender = new JavaMailSenderImpl();
+            sender.setHost("127.0.0.1");
+            sender.setPort(smtp.port());
+            Properties properties = new Properties();
+            properties.put("mail.smtp.timeout", "5000");
+            sender.setJavaMailProperties(properties);
+            List<NotificationRequest> batch = List.of(
+                email("a@example.com"), email("reject@example.com"), email("c@example.com"));
+
+            Map<NotificationRequest, Exception> failures = service(sender).sendBatch(batch);
+
+            assertThat(failures).containsOnlyKeys(batch.get(1));
+            assertThat(smtp.messagesReceived()).isEqualTo(2);
+            assertThat(smtp.connectionsOpened()).isEqualTo(1);
+        }
+    }
+
+    private EmailNotificationService service(JavaMailSender sender) {
+        EmailNotificationService service = new EmailNotificationService(sender, templateRenderer, new ObjectMapper());
+        ReflectionTestUtils.setField(service, "defaultSender", "noreply@trademaster.com");
+        return service;
+    }
+
+    private static NotificationRequest email(String address) {
+        return NotificationRequest.builder()
+            .type(NotificationRequest.NotificationType.EMAIL)
+            .recipient(address)
+            .emailRecipient(address)
+            .subject("Trade executed")
+            .content("Your order was filled")
+            .build();
+    }
+
+    private static NotificationRequest templated(String address) {
+        NotificationRequest request = email(address);
+        request.setTemplateName("trade-execution");
+        return request;
+    }
+}
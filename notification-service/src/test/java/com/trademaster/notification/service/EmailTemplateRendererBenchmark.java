@@ -0,0 +1,154 @@
+package com.trademaster.notification.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.FileTemplateResolver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark: 100k Daily P&L Email Renders
+ *
+ * One invocation renders a P&L statement (greeting plus a ten-row positions
+ * table) for 100k recipients. Compares the previous path, which parsed each
+ * request's JSON variables and rendered into a new String through a cached
+ * engine, with typed per-message rendering and batch rendering through
+ * {@link EmailTemplateRenderer}.
+ *
+ * Run with: {@code java -cp <test classpath> com.trademaster.notification.service.EmailTemplateRendererBenchmark}
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx2g", "--enable-preview"})
+public class EmailTemplateRendererBenchmark {
+
+    private static final int RENDERS = 100_000;
+    private static final int DISTINCT_MODELS = 1_000;
+    private static final String TEMPLATE = "daily-pnl";
+
+    private static final String TEMPLATE_HTML = """
+        <!DOCTYPE html>
+        <html xmlns:th="http://www.thymeleaf.org">
+        <body>
+          <p>Hello <span th:text="${firstName}">Trader</span>,</p>
+          <p>Your P&amp;L for <span th:text="${date}">today</span>:
+             <strong th:text="${totalPnl}">0.00</strong></p>
+          <table>
+            <tr><th>Symbol</th><th>Quantity</th><th>Close</th><th>P&amp;L</th></tr>
+            <tr th:each="position : ${positions}">
+              <td th:text="${position.symbol}">SYM</td>
+              <td th:text="${position.quantity}">0</td>
+              <td th:text="${position.close}">0.00</td>
+              <td th:text="${position.pnl}">0.00</td>
+            </tr>
+          </table>
+          <a th:href="${portfolioUrl}">View portfolio</a>
+        </body>
+        </html>
+        """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TypeReference<Map<String, Object>> variablesType = new TypeReference<>() {};
+    private final List<Map<String, Object>> models = new ArrayList<>(RENDERS);
+    private final List<String> variablesJson = new ArrayList<>(RENDERS);
+
+    private SpringTemplateEngine previousEngine;
+    private EmailTemplateRenderer renderer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path templates = Files.createTempDirectory("email-templates");
+        Files.writeString(templates.resolve(TEMPLATE + ".html"), TEMPLATE_HTML);
+        renderer = new EmailTemplateRenderer(objectMapper, templates + "/", 60_000, 64);
+
+        FileTemplateResolver resolver = new FileTemplateResolver();
+        resolver.setPrefix(templates + "/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCacheable(true);
+        previousEngine = new SpringTemplateEngine();
+        previousEngine.setTemplateResolver(resolver);
+
+        List<Map<String, Object>> distinct = new ArrayList<>(DISTINCT_MODELS);
+        List<String> distinctJson = new ArrayList<>(DISTINCT_MODELS);
+        for (int i = 0; i < DISTINCT_MODELS; i++) {
+            List<Map<String, Object>> positions = new ArrayList<>();
+            for (int p = 0; p < 10; p++) {
+                positions.add(Map.of(
+                    "symbol", "SYM" + ((i + p) % 50),
+                    "quantity", 10 + p * i % 90,
+                    "close", String.format("%.2f", 100 + (i * 7 + p) % 400 / 3.0),
+                    "pnl", String.format("%.2f", ((i * 13 + p * 5) % 200 - 100) / 4.0)));
+            }
+            Map<String, Object> model = Map.of(
+                "firstName", "Trader" + i,
+                "date", "2026-10-16",
+                "totalPnl", String.format("%.2f", (i % 500 - 250) / 2.0),
+                "positions", positions,
+                "portfolioUrl", "https://app.trademaster.com/portfolio");
+            distinct.add(model);
+            distinctJson.add(objectMapper.writeValueAsString(model));
+        }
+        for (int i = 0; i < RENDERS; i++) {
+            models.add(distinct.get(i % DISTINCT_MODELS));
+            variablesJson.add(distinctJson.get(i % DISTINCT_MODELS));
+        }
+    }
+
+    @Benchmark
+    public void previousJsonPerMessage(Blackhole blackhole) throws IOException {
+        for (String json : variablesJson) {
+            Context context = new Context();
+            context.setVariables(objectMapper.readValue(json, variablesType));
+            blackhole.consume(previousEngine.process(TEMPLATE, context));
+        }
+    }
+
+    @Benchmark
+    public void typedPerMessage(Blackhole blackhole) {
+        for (Map<String, Object> model : models) {
+            blackhole.consume(renderer.render(TEMPLATE, model));
+        }
+    }
+
+    @Benchmark
+    public void batch(Blackhole blackhole) {
+        blackhole.consume(renderer.renderBatch(TEMPLATE, models));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(EmailTemplateRendererBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
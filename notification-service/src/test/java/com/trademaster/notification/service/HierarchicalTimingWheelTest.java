@@ -0,0 +1,98 @@
+package com.trademaster.notification.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hierarchical Timing Wheel Test
+ *
+ * Deadlines in the lowest wheel and in one and two levels of overflow fire
+ * exactly on their millisecond, after cascading down through the finer
+ * wheels, and never early. Driven by a manual clock so the timing is exact.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_000L;
+
+    @Test
+    void overflowDeadlinesCascadeAndFireOnTime() throws InterruptedException {
+        AtomicLong clock = new AtomicLong(START);
+        // 1ms x 8 buckets: the root covers 8ms, the first overflow 64ms, the second 512ms
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, 8, clock::get);
+
+        assertThat(wheel.schedule("due", START)).isFalse();
+        assertThat(wheel.schedule("root", START + 3)).isTrue();
+        assertThat(wheel.schedule("overflow", START + 20)).isTrue();
+        assertThat(wheel.schedule("second-overflow", START + 200)).isTrue();
+        assertThat(wheel.size()).isEqualTo(3);
+
+        List<String> fired = new ArrayList<>();
+        assertThat(wheel.poll(0, fired::add)).isZero();
+
+        clock.set(START + 3);
+        wheel.poll(0, fired::add);
+        assertThat(fired).containsExactly("root");
+
+        // The overflow bucket comes due at 1016 and cascades into the root, which fires at 1020
+        clock.set(START + 19);
+        wheel.poll(0, fired::add);
+        assertThat(fired).containsExactly("root");
+        clock.set(START + 20);
+        wheel.poll(0, fired::add);
+        assertThat(fired).containsExactly("root", "overflow");
+
+        // Second level: due at 1152, cascades to the first overflow, then fires at 1200
+        for (long now = START + 21; now < START + 200; now++) {
+            clock.set(now);
+            wheel.poll(0, fired::add);
+        }
+        assertThat(fired).hasSize(2);
+        clock.set(START + 200);
+        wheel.poll(0, fired::add);
+        assertThat(fired).containsExactly("root", "overflow", "second-overflow");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void randomDeadlinesFireOnTheirMillisecond() throws InterruptedException {
+        AtomicLong clock = new AtomicLong(START);
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(1, 16, clock::get);
+        SplittableRandom random = new SplittableRandom(41L);
+
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            long deadline = START + 1 + random.nextLong(5_000);
+            deadlines.put(i, deadline);
+            assertThat(wheel.schedule(i, deadline)).isTrue();
+        }
+
+        Map<Integer, Long> firedAt = new HashMap<>();
+        for (long now = START; now <= START + 5_000; now++) {
+            long current = now;
+            clock.set(now);
+            wheel.poll(0, item -> firedAt.put(item, current));
+            // Items scheduled while the wheel is running land in whichever level covers them
+            if (now % 500 == 0 && now <= START + 3_000) {
+                int item = 10_000 + (int) (now / 500);
+                long deadline = now + 1 + random.nextLong(2_000);
+                deadlines.put(item, deadline);
+                wheel.schedule(item, deadline);
+            }
+        }
+
+        assertThat(firedAt).hasSameSizeAs(deadlines);
+        assertThat(firedAt).isEqualTo(deadlines);
+        assertThat(wheel.size()).isZero();
+    }
+}
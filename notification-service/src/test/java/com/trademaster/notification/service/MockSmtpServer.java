@@ -0,0 +1,124 @@
+package com.trademaster.notification.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mock SMTP Server
+ *
+ * Speaks just enough SMTP on a local port for JavaMail to deliver to it:
+ * every command is accepted, messages are counted and discarded. Each
+ * connection gets a platform thread, so the mock never competes with the
+ * service's virtual threads for carriers. Each accepted message can be held
+ * for a fixed latency to stand in for a real relay. Recipients starting with
+ * "reject" are refused, so a batch can be made to fail partially.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+final class MockSmtpServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final long messageLatencyNanos;
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Thread acceptor;
+
+    MockSmtpServer(long messageLatencyMicros) {
+        try {
+            this.serverSocket = new ServerSocket(0, 512, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.messageLatencyNanos = TimeUnit.MICROSECONDS.toNanos(messageLatencyMicros);
+        this.acceptor = Thread.ofPlatform().name("mock-smtp-acceptor").daemon().start(this::accept);
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    long messagesReceived() {
+        return messages.get();
+    }
+
+    int connectionsOpened() {
+        return connections.get();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                Thread.ofPlatform().name("mock-smtp-session").daemon().start(() -> session(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            reply(out, "220 mock ESMTP ready");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 mock");
+                    case "RCPT" -> reply(out, line.toLowerCase().contains("<reject")
+                        ? "550 mailbox unavailable" : "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 end data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // message body is discarded
+                        }
+                        hold();
+                        messages.incrementAndGet();
+                        reply(out, "250 OK queued");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 bye");
+                        return;
+                    }
+                    default -> reply(out, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    private void hold() {
+        if (messageLatencyNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(messageLatencyNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        acceptor.interrupt();
+    }
+}
@@ -0,0 +1,157 @@
+package com.trademaster.notification.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.twilio.http.HttpClient;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mock Twilio SMS Server
+ *
+ * A local HTTP server answering the Messages resource the way Twilio does,
+ * after a fixed latency that stands in for the provider's response time.
+ * {@link #restClient()} returns a Twilio client whose requests are sent to
+ * this server over pooled keep-alive connections instead of api.twilio.com.
+ * Recipients starting with "+1555" are rejected with a 400, so a batch can be
+ * made to fail partially.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+final class MockTwilioServer implements AutoCloseable {
+
+    static final String ACCOUNT_SID = "AC00000000000000000000000000000000";
+    private static final String REJECTED_PREFIX = "+1555";
+
+    private final HttpServer server;
+    private final long latencyNanos;
+    private final AtomicLong messages = new AtomicLong();
+
+    MockTwilioServer(long latencyMicros) {
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 512);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+        // Platform threads, so the mock never competes with the service's virtual threads for carriers
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    long messagesReceived() {
+        return messages.get();
+    }
+
+    /**
+     * A Twilio client that talks to this server
+     */
+    TwilioRestClient restClient() {
+        return new TwilioRestClient.Builder(ACCOUNT_SID, "token")
+            .httpClient(new LocalHttpClient("http://" + server.getAddress().getAddress().getHostAddress()
+                + ":" + server.getAddress().getPort()))
+            .build();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            String form = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            String to = formValue(form, "To");
+            if (latencyNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(latencyNanos);
+            }
+            int status;
+            String json;
+            if (to != null && to.startsWith(REJECTED_PREFIX)) {
+                status = 400;
+                json = "{\"code\": 21211, \"message\": \"The 'To' number " + to + " is not a valid phone number.\", "
+                    + "\"status\": 400}";
+            } else {
+                status = 201;
+                json = "{\"sid\": \"SM" + String.format("%032d", messages.incrementAndGet()) + "\", "
+                    + "\"account_sid\": \"" + ACCOUNT_SID + "\", \"to\": \"" + to + "\", \"status\": \"queued\"}";
+            }
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String formValue(String form, String name) {
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    /**
+     * Sends Twilio requests to the mock server, keeping the path and form body
+     */
+    private static final class LocalHttpClient extends HttpClient {
+
+        private final String baseUrl;
+        private final java.net.http.HttpClient client = java.net.http.HttpClient.newBuilder()
+            .version(java.net.http.HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+        LocalHttpClient(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        @Override
+        public Response makeRequest(Request request) {
+            try {
+                URL url = request.constructURL();
+                HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + url.getPath()))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .method(request.getMethod().name(), HttpRequest.BodyPublishers.ofString(request.encodeFormBody()));
+                if (request.requiresAuthentication()) {
+                    builder.header("Authorization", "Basic " + Base64.getEncoder().encodeToString(
+                        (request.getUsername() + ":" + request.getPassword()).getBytes(StandardCharsets.UTF_8)));
+                }
+                HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+                return new Response(response.body(), response.statusCode());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.trademaster.notification.service;
+
+import com.trademaster.notification.repository.NotificationRequestRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Notification Lease Keeper Test
+ *
+ * Held rows are renewed in batches until released, so a notification waiting
+ * in this instance is never claimed by another; a failed renewal is retried
+ * on the next interval.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+class NotificationLeaseKeeperTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void renewsHeldLeasesInBatchesUntilReleased() {
+        NotificationRequestRepository repository = mock(NotificationRequestRepository.class);
+        when(repository.renewLeases(anyCollection(), any())).thenAnswer(call -> ((Collection<Long>) call.getArgument(0)).size());
+        NotificationLeaseKeeper keeper = new NotificationLeaseKeeper(repository);
+
+        assertThat(keeper.renewLeases()).isZero();
+        verify(repository, never()).renewLeases(anyCollection(), any());
+
+        keeper.holdAll(LongStream.rangeClosed(1, 2_500).boxed().toList());
+        assertThat(keeper.renewLeases()).isEqualTo(2_500);
+        ArgumentCaptor<Collection<Long>> batches = ArgumentCaptor.forClass(Collection.class);
+        verify(repository, times(3)).renewLeases(batches.capture(), any(LocalDateTime.class));
+        assertThat(batches.getAllValues()).extracting(Collection::size).containsExactly(1000, 1000, 500);
+
+        // Released rows, whose status has been written, are no longer renewed
+        keeper.releaseAll(LongStream.rangeClosed(1, 2_000).boxed().toList());
+        keeper.release(2_001L);
+        keeper.hold(9_999L);
+        assertThat(keeper.getHeldCount()).isEqualTo(500);
+        assertThat(keeper.renewLeases()).isEqualTo(500);
+        verify(repository, times(4)).renewLeases(batches.capture(), any(LocalDateTime.class));
+        List<Long> renewed = new ArrayList<>(batches.getValue());
+        assertThat(renewed).hasSize(500).contains(9_999L).doesNotContain(1L, 2_000L, 2_001L);
+    }
+
+    @Test
+    void failedRenewalKeepsLeasesHeldForTheNextInterval() {
+        NotificationRequestRepository repository = mock(NotificationRequestRepository.class);
+        when(repository.renewLeases(anyCollection(), any()))
+            .thenThrow(new IllegalStateException("database unavailable"))
+            .thenReturn(2);
+        NotificationLeaseKeeper keeper = new NotificationLeaseKeeper(repository);
+        keeper.holdAll(List.of(1L, 2L));
+
+        assertThat(keeper.renewLeases()).isZero();
+        assertThat(keeper.getHeldCount()).isEqualTo(2);
+        assertThat(keeper.renewLeases()).isEqualTo(2);
+    }
+}
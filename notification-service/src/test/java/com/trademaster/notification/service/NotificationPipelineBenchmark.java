@@ -0,0 +1,221 @@
+package com.trademaster.notification.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trademaster.notification.model.NotificationRequest;
+import com.trademaster.notification.repository.NotificationBatchRepository;
+import com.trademaster.notification.repository.NotificationRequestRepository;
+import com.twilio.Twilio;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmark: Notification Pipeline at 5,000 Notifications per Second
+ *
+ * Open-loop load through {@link NotificationPipeline}: every 100ms a Kafka
+ * sized batch arrives (80% email, 20% SMS) at the target rate, for the
+ * configured duration. Email goes over real SMTP connections to a
+ * {@link MockSmtpServer} holding each message for 500us, SMS over HTTP to a
+ * {@link MockTwilioServer} answering after 10ms, so connection reuse and
+ * per-channel concurrency are exercised as in production. Database writes
+ * are stubbed out; the status stage measures the batching around them.
+ *
+ * Reports the sustained delivery rate and the p50/p99/max of every
+ * notification.pipeline.stage timer (intake, queue and send per channel,
+ * status) and of end-to-end latency, and exits non-zero if the target rate
+ * is not sustained.
+ *
+ * Run with: {@code java -cp <test classpath> com.trademaster.notification.service.NotificationPipelineBenchmark}
+ * (optionally {@code -Dbenchmark.rate=5000 -Dbenchmark.seconds=30})
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+public class NotificationPipelineBenchmark {
+
+    private static final int BATCHES_PER_SECOND = 10;
+    private static final long SMTP_LATENCY_MICROS = 500;
+    private static final long SMS_LATENCY_MICROS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int rate = Integer.getInteger("benchmark.rate", 5_000);
+        int seconds = Integer.getInteger("benchmark.seconds", 30);
+        int batchSize = rate / BATCHES_PER_SECOND;
+        long total = (long) batchSize * BATCHES_PER_SECOND * seconds;
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder().percentiles(0.5, 0.99).build().merge(config);
+            }
+        });
+
+        try (MockSmtpServer smtp = new MockSmtpServer(SMTP_LATENCY_MICROS);
+             MockTwilioServer twilio = new MockTwilioServer(SMS_LATENCY_MICROS)) {
+            AtomicLong sent = new AtomicLong();
+            AtomicLong failed = new AtomicLong();
+            Harness harness = harness(smtp, twilio, registry, sent, failed);
+            NotificationPipeline pipeline = harness.pipeline();
+            // Stands in for the @Scheduled status flush
+            ScheduledExecutorService timers = Executors.newSingleThreadScheduledExecutor();
+            timers.scheduleWithFixedDelay(harness.statusWriter()::flush, 100, 100, TimeUnit.MILLISECONDS);
+            pipeline.start();
+
+            System.out.printf("Offering %d notifications/s for %ds (%d total) in batches of %d%n",
+                              rate, seconds, total, batchSize);
+            AtomicLong sequence = new AtomicLong();
+            long start = System.nanoTime();
+            long periodNanos = TimeUnit.SECONDS.toNanos(1) / BATCHES_PER_SECOND;
+            for (int batch = 0; batch < BATCHES_PER_SECOND * seconds; batch++) {
+                long due = start + batch * periodNanos;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                // Blocks when a channel queue is full, as the Kafka listener would
+                pipeline.submit(kafkaBatch(batchSize, sequence));
+            }
+            long offered = System.nanoTime() - start;
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (sent.get() + failed.get() < total && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            long elapsed = System.nanoTime() - start;
+            pipeline.stop();
+            timers.shutdownNow();
+            Twilio.destroy();
+
+            double sustained = sent.get() / (elapsed / 1e9);
+            System.out.printf("Sent %d, failed %d of %d in %.2fs (offering took %.2fs): %.0f notifications/s%n",
+                              sent.get(), failed.get(), total, elapsed / 1e9, offered / 1e9, sustained);
+            System.out.printf("SMTP: %d messages over %d connections; SMS: %d messages%n",
+                              smtp.messagesReceived(), smtp.connectionsOpened(), twilio.messagesReceived());
+            report(registry);
+
+            boolean kept = sent.get() == total && sustained >= rate * 0.95;
+            System.out.println(kept ? "Target rate sustained" : "Target rate NOT sustained");
+            System.exit(kept ? 0 : 1);
+        }
+    }
+
+    private record Harness(NotificationPipeline pipeline, NotificationStatusWriter statusWriter) {}
+
+    private static Harness harness(MockSmtpServer smtp, MockTwilioServer twilio, SimpleMeterRegistry registry,
+                                   AtomicLong sent, AtomicLong failed) {
+        NotificationRequestRepository notificationRepository = mock(NotificationRequestRepository.class);
+        when(notificationRepository.markSent(anyCollection(), any())).thenAnswer(call -> {
+            int count = call.<Collection<?>>getArgument(0).size();
+            sent.addAndGet(count);
+            return count;
+        });
+        AtomicLong ids = new AtomicLong();
+        NotificationBatchRepository batchRepository = new NotificationBatchRepository(null) {
+            @Override
+            public void insertAll(List<NotificationRequest> requests) {
+                requests.forEach(request -> request.setId(ids.incrementAndGet()));
+            }
+
+            @Override
+            public void recordFailedAttempts(List<NotificationRequest> requests, LocalDateTime now) {
+                failed.addAndGet(requests.size());
+            }
+        };
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.port());
+        Properties mailProperties = new Properties();
+        mailProperties.put("mail.smtp.connectiontimeout", "5000");
+        mailProperties.put("mail.smtp.timeout", "5000");
+        mailSender.setJavaMailProperties(mailProperties);
+        EmailNotificationService emailService = new EmailNotificationService(mailSender,
+            new EmailTemplateRenderer(objectMapper, "classpath:templates/email/", 60_000, 64), objectMapper);
+        ReflectionTestUtils.setField(emailService, "defaultSender", "noreply@trademaster.com");
+
+        Twilio.setRestClient(twilio.restClient());
+        SmsNotificationService smsService = new SmsNotificationService();
+        ReflectionTestUtils.setField(smsService, "twilioPhoneNumber", "+15005550006");
+
+        NotificationRetryPolicy retryPolicy = new NotificationRetryPolicy(5_000, 900_000, 0.2);
+        NotificationLeaseKeeper leaseKeeper = new NotificationLeaseKeeper(notificationRepository);
+        NotificationStatusWriter statusWriter = new NotificationStatusWriter(notificationRepository, batchRepository, retryPolicy,
+                                                    leaseKeeper, registry);
+        RateLimitService rateLimitService = new RateLimitService(Optional.empty(), false, 60, 10, 100, 200, 1_000_000);
+        NotificationPipeline pipeline = new NotificationPipeline(batchRepository, rateLimitService, retryPolicy,
+            emailService, smsService, mock(NotificationProcessingService.class), statusWriter, leaseKeeper, registry,
+            8, 50, 16, 20, 4, 10_000);
+        return new Harness(pipeline, statusWriter);
+    }
+
+    private static List<NotificationRequest> kafkaBatch(int size, AtomicLong sequence) {
+        List<NotificationRequest> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long n = sequence.incrementAndGet();
+            NotificationRequest.NotificationRequestBuilder request = NotificationRequest.builder()
+                .subject("Trade executed")
+                .content("Your order " + n + " was filled");
+            if (n % 5 == 0) {
+                String phone = String.format("+9198%08d", n);
+                request.type(NotificationRequest.NotificationType.SMS).recipient(phone).phoneRecipient(phone);
+            } else {
+                String email = "trader-" + n + "@example.com";
+                request.type(NotificationRequest.NotificationType.EMAIL).recipient(email).emailRecipient(email);
+            }
+            batch.add(request.build());
+        }
+        return batch;
+    }
+
+    private static void report(SimpleMeterRegistry registry) {
+        System.out.printf("%-22s %9s %10s %10s %10s%n", "stage", "count", "p50 ms", "p99 ms", "max ms");
+        List<Timer> stages = new ArrayList<>(registry.find("notification.pipeline.stage").timers());
+        stages.sort(Comparator.comparing((Timer timer) -> timer.getId().getTag("stage"))
+                              .thenComparing(timer -> String.valueOf(timer.getId().getTag("channel"))));
+        for (Timer timer : stages) {
+            String channel = timer.getId().getTag("channel");
+            print(timer.getId().getTag("stage") + (channel != null ? " (" + channel + ")" : ""), timer);
+        }
+        print("end to end", registry.get("notification.pipeline.end_to_end").timer());
+    }
+
+    private static void print(String label, Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        double p50 = Double.NaN;
+        double p99 = Double.NaN;
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == 0.5) {
+                p50 = value.value(TimeUnit.MILLISECONDS);
+            } else if (value.percentile() == 0.99) {
+                p99 = value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        System.out.printf("%-22s %9d %10.2f %10.2f %10.2f%n", label, snapshot.count(), p50, p99,
+                          snapshot.max(TimeUnit.MILLISECONDS));
+    }
+}
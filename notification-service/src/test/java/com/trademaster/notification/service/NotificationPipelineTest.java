@@ -0,0 +1,165 @@
+package com.trademaster.notification.service;
+
+import com.trademaster.notification.model.NotificationRequest;
+import com.trademaster.notification.repository.NotificationBatchRepository;
+import com.trademaster.notification.repository.NotificationRequestRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Notification Pipeline Test
+ *
+ * A Kafka batch is written with one batched insert, with each notification's
+ * initial status decided up front; due notifications reach their channel
+ * sender in batches no larger than the channel's batch size, and their
+ * outcomes are written in one batched update per kind.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+class NotificationPipelineTest {
+
+    private final NotificationBatchRepository batchRepository = mock(NotificationBatchRepository.class);
+    private final NotificationRequestRepository notificationRepository = mock(NotificationRequestRepository.class);
+    private final RateLimitService rateLimitService = mock(RateLimitService.class);
+    private final EmailNotificationService emailService = mock(EmailNotificationService.class);
+    private final SmsNotificationService smsService = mock(SmsNotificationService.class);
+    private final NotificationRetryPolicy retryPolicy = new NotificationRetryPolicy(5_000, 900_000, 0.0);
+    private final NotificationLeaseKeeper leaseKeeper = new NotificationLeaseKeeper(notificationRepository);
+    private final NotificationStatusWriter statusWriter = new NotificationStatusWriter(
+        notificationRepository, batchRepository, retryPolicy, leaseKeeper, new SimpleMeterRegistry());
+    private NotificationPipeline pipeline;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void kafkaBatchIsInsertedOnceAndDeliveredInChannelBatches() throws Exception {
+        AtomicLong ids = new AtomicLong();
+        doAnswer(call -> {
+            call.<List<NotificationRequest>>getArgument(0).forEach(request -> request.setId(ids.incrementAndGet()));
+            return null;
+        }).when(batchRepository).insertAll(anyList());
+        when(rateLimitService.isAllowed(any())).thenAnswer(call ->
+            !call.<NotificationRequest>getArgument(0).getRecipient().startsWith("limited"));
+        List<Integer> emailBatches = Collections.synchronizedList(new ArrayList<>());
+        when(emailService.sendBatch(anyList())).thenAnswer(call -> {
+            emailBatches.add(call.<List<?>>getArgument(0).size());
+            return new IdentityHashMap<>();
+        });
+        when(smsService.sendBatch(anyList())).thenAnswer(call -> {
+            Map<NotificationRequest, Exception> failures = new IdentityHashMap<>();
+            for (NotificationRequest request : call.<List<NotificationRequest>>getArgument(0)) {
+                if (request.getRecipient().equals("+15550000000")) {
+                    failures.put(request, new IllegalStateException("invalid number"));
+                }
+            }
+            return failures;
+        });
+        pipeline = new NotificationPipeline(batchRepository, rateLimitService, retryPolicy, emailService, smsService,
+            mock(NotificationProcessingService.class), statusWriter, leaseKeeper, new SimpleMeterRegistry(),
+            1, 10, 1, 20, 1, 100);
+
+        List<NotificationRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 35; i++) {
+            batch.add(email("user-" + i + "@example.com"));
+        }
+        batch.add(sms("+919800000001"));
+        batch.add(sms("+15550000000"));
+        NotificationRequest later = email("later@example.com");
+        later.setScheduledAt(LocalDateTime.now().plusHours(1));
+        batch.add(later);
+        NotificationRequest limited = email("limited@example.com");
+        batch.add(limited);
+        batch.add(NotificationRequest.builder().type(NotificationRequest.NotificationType.EMAIL).build());
+
+        // Queued before the workers start, so the email worker drains full batches
+        assertThat(pipeline.submit(batch)).isEqualTo(37);
+        ArgumentCaptor<List<NotificationRequest>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(batchRepository, times(1)).insertAll(inserted.capture());
+        assertThat(inserted.getValue()).hasSize(39).doesNotContainNull();
+        assertThat(later.getStatus()).isEqualTo(NotificationRequest.NotificationStatus.PENDING);
+        assertThat(limited.getStatus()).isEqualTo(NotificationRequest.NotificationStatus.FAILED);
+        assertThat(limited.getScheduledAt()).isAfter(LocalDateTime.now());
+        assertThat(leaseKeeper.getHeldCount()).isEqualTo(37);
+
+        pipeline.start();
+        waitUntil(() -> emailBatches.stream().mapToInt(Integer::intValue).sum() == 35);
+        assertThat(emailBatches).containsExactly(10, 10, 10, 5);
+        verify(smsService, timeout(5000).times(1)).sendBatch(anyList());
+
+        // Both SMS outcomes reach the writer once the SMS worker has reported
+        waitUntil(() -> {
+            statusWriter.flush();
+            return leaseKeeper.getHeldCount() == 0;
+        });
+        ArgumentCaptor<Collection<Long>> sent = ArgumentCaptor.forClass(Collection.class);
+        verify(notificationRepository, atLeastOnce()).markSent(sent.capture(), any());
+        assertThat(sent.getAllValues().stream().mapToInt(Collection::size).sum()).isEqualTo(36);
+        ArgumentCaptor<List<NotificationRequest>> failed = ArgumentCaptor.forClass(List.class);
+        verify(batchRepository, atLeastOnce()).recordFailedAttempts(failed.capture(), any());
+        assertThat(failed.getAllValues().stream().flatMap(List::stream))
+            .singleElement()
+            .satisfies(request -> {
+                assertThat(request.getRecipient()).isEqualTo("+15550000000");
+                assertThat(request.getRetryCount()).isEqualTo(1);
+                assertThat(request.getStatus()).isEqualTo(NotificationRequest.NotificationStatus.FAILED);
+            });
+    }
+
+    private static NotificationRequest email(String address) {
+        return NotificationRequest.builder()
+            .type(NotificationRequest.NotificationType.EMAIL)
+            .recipient(address)
+            .emailRecipient(address)
+            .subject("Trade executed")
+            .content("Your order was filled")
+            .build();
+    }
+
+    private static NotificationRequest sms(String phone) {
+        return NotificationRequest.builder()
+            .type(NotificationRequest.NotificationType.SMS)
+            .recipient(phone)
+            .phoneRecipient(phone)
+            .content("Your order was filled")
+            .build();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
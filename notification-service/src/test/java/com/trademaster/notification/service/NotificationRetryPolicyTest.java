@@ -0,0 +1,59 @@
+package com.trademaster.notification.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Notification Retry Policy Test
+ *
+ * The backoff doubles per failed attempt up to the cap, and jitter only ever
+ * shortens a delay, by at most the configured fraction.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+class NotificationRetryPolicyTest {
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        NotificationRetryPolicy policy = new NotificationRetryPolicy(5_000, 900_000, 0.0);
+
+        assertThat(policy.delayAfter(0).toMillis()).isEqualTo(5_000);
+        assertThat(policy.delayAfter(1).toMillis()).isEqualTo(5_000);
+        assertThat(policy.delayAfter(2).toMillis()).isEqualTo(10_000);
+        assertThat(policy.delayAfter(5).toMillis()).isEqualTo(80_000);
+        assertThat(policy.delayAfter(8).toMillis()).isEqualTo(640_000);
+        assertThat(policy.delayAfter(9).toMillis()).isEqualTo(900_000);
+        // Far past the cap the shift saturates instead of overflowing
+        assertThat(policy.delayAfter(Integer.MAX_VALUE).toMillis()).isEqualTo(900_000);
+    }
+
+    @Test
+    void jitterStaysWithinBoundsAndSpreadsRetries() {
+        NotificationRetryPolicy policy = new NotificationRetryPolicy(5_000, 900_000, 0.2);
+
+        for (int attempt = 1; attempt <= 12; attempt++) {
+            long backoff = Math.min(5_000L << (attempt - 1), 900_000L);
+            Set<Long> delays = new HashSet<>();
+            for (int i = 0; i < 1_000; i++) {
+                long delay = policy.delayAfter(attempt).toMillis();
+                assertThat(delay).isBetween(backoff - backoff / 5, backoff);
+                delays.add(delay);
+            }
+            assertThat(delays).hasSizeGreaterThan(100);
+        }
+    }
+
+    @Test
+    void rejectsJitterOutsideTheUnitInterval() {
+        assertThatThrownBy(() -> new NotificationRetryPolicy(5_000, 900_000, 1.0))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new NotificationRetryPolicy(5_000, 900_000, -0.1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,5 +1,7 @@
 package com.trademaster.payment.controller;
 
+import com.trademaster.payment.enums.PaymentGateway;
+import com.trademaster.payment.enums.WebhookEventStatus;
 import com.trademaster.payment.service.WebhookService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -7,14 +9,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.time.Instant;
 
 /**
  * Webhook Controller
  * 
  * Handles payment gateway webhooks for real-time payment status updates.
+ * Callbacks are acknowledged once stored; status changes are applied asynchronously.
  * 
  * @author TradeMaster Development Team
  * @version 1.0.0
@@ -40,14 +45,15 @@ public class WebhookController {
             HttpServletRequest request,
             @RequestBody String payload,
             @Parameter(description = "Razorpay signature header") 
-            @RequestHeader("X-Razorpay-Signature") String signature) {
+            @RequestHeader("X-Razorpay-Signature") String signature,
+            @Parameter(description = "Razorpay event ID header")
+            @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId) {
         
         log.info("Received Razorpay webhook with signature: {}", 
                 signature.substring(0, Math.min(signature.length(), 10)) + "...");
         
         try {
-            webhookService.processRazorpayWebhook(payload, signature);
-            return ResponseEntity.ok("Webhook processed successfully");
+            return accepted(webhookService.processRazorpayWebhook(payload, signature, eventId));
             
         } catch (Exception e) {
             log.error("Failed to process Razorpay webhook", e);
@@ -73,8 +79,7 @@ public class WebhookController {
                 signature.substring(0, Math.min(signature.length(), 10)) + "...");
         
         try {
-            webhookService.processStripeWebhook(payload, signature);
-            return ResponseEntity.ok("Webhook processed successfully");
+            return accepted(webhookService.processStripeWebhook(payload, signature));
             
         } catch (Exception e) {
             log.error("Failed to process Stripe webhook", e);
@@ -93,13 +98,13 @@ public class WebhookController {
     public ResponseEntity<String> handleUpiWebhook(
             HttpServletRequest request,
             @RequestBody String payload,
-            @RequestHeader("X-Razorpay-Signature") String signature) {
+            @RequestHeader("X-Razorpay-Signature") String signature,
+            @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId) {
         
         log.info("Received UPI webhook");
         
         try {
-            webhookService.processUpiWebhook(payload, signature);
-            return ResponseEntity.ok("UPI webhook processed successfully");
+            return accepted(webhookService.processUpiWebhook(payload, signature, eventId));
             
         } catch (Exception e) {
             log.error("Failed to process UPI webhook", e);
@@ -107,6 +112,33 @@ public class WebhookController {
         }
     }
     
+    /**
+     * Replay stored webhook events
+     */
+    @PostMapping("/replay")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+        summary = "Replay Webhook Events",
+        description = "Queue stored webhook events received in a time window to be applied again"
+    )
+    public ResponseEntity<String> replayWebhookEvents(
+            @RequestParam Instant from,
+            @RequestParam Instant to,
+            @RequestParam(required = false) PaymentGateway gateway,
+            @RequestParam(required = false) WebhookEventStatus status) {
+        
+        int queued = webhookService.replayEvents(from, to, gateway, status);
+        return ResponseEntity.ok("Queued " + queued + " webhook events for replay");
+    }
+    
+    /**
+     * Acknowledge a stored callback; duplicates are acknowledged too, so the
+     * gateway stops retrying
+     */
+    private static ResponseEntity<String> accepted(boolean stored) {
+        return ResponseEntity.ok(stored ? "Webhook accepted" : "Duplicate webhook ignored");
+    }
+    
     /**
      * Generic webhook health check
      */
@@ -0,0 +1,88 @@
+package com.trademaster.payment.entity;
+
+import com.trademaster.payment.enums.PaymentGateway;
+import com.trademaster.payment.enums.WebhookEventStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Webhook Event Entity
+ *
+ * A verified gateway callback, stored once per gateway event id. The
+ * controller acknowledges the gateway as soon as the row is written;
+ * WebhookEventProcessor applies it to the payment transaction afterwards.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Entity
+@Table(name = "webhook_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(of = "id")
+public class WebhookEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Event Identity
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PaymentGateway gateway;
+
+    @Column(name = "event_id", nullable = false)
+    private String eventId;
+
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+
+    // Transaction Lookup
+    @Column(name = "gateway_payment_id")
+    private String gatewayPaymentId;
+
+    @Column(name = "gateway_order_id")
+    private String gatewayOrderId;
+
+    // Raw Event
+    @Column(nullable = false, columnDefinition = "TEXT")
+    @ToString.Exclude
+    private String payload;
+
+    @Column(name = "gateway_created_at")
+    private Instant gatewayCreatedAt;
+
+    // Processing
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private WebhookEventStatus status = WebhookEventStatus.RECEIVED;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private Instant receivedAt;
+
+    @Column(name = "claimed_at")
+    private Instant claimedAt;
+
+    @Column(name = "applied_at")
+    private Instant appliedAt;
+
+    /**
+     * Key that orders events of the same payment: the gateway payment id,
+     * or the order id for events that arrive before a payment exists
+     */
+    public String getTransactionKey() {
+        return gatewayPaymentId != null ? gatewayPaymentId : gatewayOrderId;
+    }
+}
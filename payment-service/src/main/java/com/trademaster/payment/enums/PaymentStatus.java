@@ -12,18 +12,32 @@ import lombok.Getter;
  */
 @Getter
 public enum PaymentStatus {
-    PENDING("Payment initiated but not processed"),
-    PROCESSING("Payment being processed by gateway"),
-    COMPLETED("Payment successfully completed"),
-    FAILED("Payment failed"),
-    CANCELLED("Payment cancelled by user"),
-    REFUNDED("Payment fully refunded"),
-    PARTIALLY_REFUNDED("Payment partially refunded");
+    PENDING("Payment initiated but not processed", 0),
+    PROCESSING("Payment being processed by gateway", 1),
+    COMPLETED("Payment successfully completed", 3),
+    FAILED("Payment failed", 2),
+    CANCELLED("Payment cancelled by user", 2),
+    REFUNDED("Payment fully refunded", 5),
+    PARTIALLY_REFUNDED("Payment partially refunded", 4);
     
     private final String description;
     
-    PaymentStatus(String description) {
+    /**
+     * Position in the payment lifecycle; a payment only ever moves to a
+     * higher rank, so a late or repeated gateway event cannot move it back
+     */
+    private final int rank;
+    
+    PaymentStatus(String description, int rank) {
         this.description = description;
+        this.rank = rank;
+    }
+    
+    /**
+     * Check if a payment in this status may move to the given status
+     */
+    public boolean canTransitionTo(PaymentStatus next) {
+        return next.rank > this.rank;
     }
     
     /**
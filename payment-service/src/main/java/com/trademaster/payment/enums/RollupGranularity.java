@@ -0,0 +1,42 @@
+package com.trademaster.payment.enums;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Rollup Granularity Enumeration
+ * 
+ * Bucket sizes of the materialized payment event statistics.
+ * 
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Getter
+public enum RollupGranularity {
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS);
+    
+    private final ChronoUnit unit;
+    
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+    
+    /**
+     * Start of the bucket holding the given instant
+     */
+    public Instant bucketOf(Instant instant) {
+        return instant.truncatedTo(unit);
+    }
+    
+    /**
+     * Start of the first bucket at or after the given instant
+     */
+    public Instant nextBucketFrom(Instant instant) {
+        Instant bucket = bucketOf(instant);
+        return bucket.equals(instant) ? bucket : bucket.plus(Duration.of(1, unit));
+    }
+}
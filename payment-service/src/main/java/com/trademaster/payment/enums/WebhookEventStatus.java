@@ -0,0 +1,33 @@
+package com.trademaster.payment.enums;
+
+import lombok.Getter;
+
+/**
+ * Webhook Event Status Enumeration
+ * 
+ * Represents where a received webhook event is in asynchronous processing.
+ * 
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Getter
+public enum WebhookEventStatus {
+    RECEIVED("Event stored and waiting to be applied"),
+    PROCESSING("Event claimed by a processor"),
+    APPLIED("Event moved the transaction to a new status"),
+    IGNORED("Event was stale or carried no status change"),
+    FAILED("Event could not be applied after all attempts");
+    
+    private final String description;
+    
+    WebhookEventStatus(String description) {
+        this.description = description;
+    }
+    
+    /**
+     * Check if processing of the event has finished
+     */
+    public boolean isFinal() {
+        return this == APPLIED || this == IGNORED || this == FAILED;
+    }
+}
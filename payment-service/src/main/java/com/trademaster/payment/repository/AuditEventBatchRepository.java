@@ -0,0 +1,173 @@
+package com.trademaster.payment.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trademaster.payment.entity.PaymentEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Batched JDBC writes and partition maintenance for the audit trail
+ *
+ * Audit events are written many rows per statement instead of one entity
+ * save per event, together with their statistics rollups. payment_events is
+ * partitioned by month on created_at; partitions are created ahead of time
+ * and dropped whole for retention.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Repository
+@RequiredArgsConstructor
+public class AuditEventBatchRepository {
+
+    private static final String INSERT_PREFIX = """
+        INSERT INTO payment_events (id, transaction_id, subscription_id, event_type, event_source, event_data,
+            previous_status, new_status, gateway_event_id, created_at)
+        VALUES\s""";
+    private static final String ROW_VALUES = "(?, ?, ?, ?, ?, CAST(? AS jsonb), ?, ?, ?, ?)";
+    private static final int COLUMNS = 10;
+
+    // Events are written with their own id, so a batch replayed from the spill file inserts nothing twice
+    private static final String INSERT_SUFFIX = " ON CONFLICT DO NOTHING";
+
+    private static final String PARTITION_PREFIX = "payment_events_";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String PARTITIONS_SQL = """
+        SELECT child.relname FROM pg_inherits
+        JOIN pg_class parent ON pg_inherits.inhparent = parent.oid
+        JOIN pg_class child ON pg_inherits.inhrelid = child.oid
+        WHERE parent.relname = 'payment_events'
+        ORDER BY child.relname
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final PaymentEventRollupRepository rollupRepository;
+    private final Map<Integer, String> insertSql = new ConcurrentHashMap<>();
+
+    /**
+     * Insert a batch of audit events in one multi-row statement, and add
+     * them to the statistics rollups in the same transaction
+     *
+     * @return the number of rows inserted
+     */
+    @Transactional
+    public int insertAll(List<PaymentEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        int inserted = insert(events);
+        rollupRepository.add(PaymentEventRollup.of(events));
+        return inserted;
+    }
+
+    /**
+     * Insert the events of a batch that are not stored yet. Used when a
+     * batch may have been written before, so no event is counted twice in
+     * the rollups.
+     *
+     * @return the number of rows inserted
+     */
+    @Transactional
+    public int insertNew(List<PaymentEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        Set<UUID> stored = new HashSet<>(jdbcTemplate.queryForList(
+            "SELECT id FROM payment_events WHERE id = ANY (?)", UUID.class,
+            (Object) events.stream().map(PaymentEvent::getId).toArray(UUID[]::new)));
+        return insertAll(events.stream().filter(event -> !stored.contains(event.getId())).toList());
+    }
+
+    private int insert(List<PaymentEvent> events) {
+        return jdbcTemplate.update(insertSql(events.size()), ps -> {
+            int index = 1;
+            for (PaymentEvent event : events) {
+                ps.setObject(index++, event.getId());
+                ps.setObject(index++, event.getTransaction() != null ? event.getTransaction().getId() : null,
+                             Types.OTHER);
+                ps.setObject(index++, event.getSubscription() != null ? event.getSubscription().getId() : null,
+                             Types.OTHER);
+                ps.setString(index++, event.getEventType());
+                ps.setString(index++, event.getEventSource());
+                ps.setString(index++, toJson(event.getEventData()));
+                ps.setString(index++, event.getPreviousStatus());
+                ps.setString(index++, event.getNewStatus());
+                ps.setString(index++, event.getGatewayEventId());
+                ps.setTimestamp(index++, Timestamp.from(event.getCreatedAt()));
+            }
+        });
+    }
+
+    private String insertSql(int rows) {
+        return insertSql.computeIfAbsent(rows, count -> {
+            StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + count * (ROW_VALUES.length() + 2));
+            sql.append(INSERT_PREFIX);
+            for (int i = 0; i < count; i++) {
+                sql.append(i == 0 ? "" : ", ").append(ROW_VALUES);
+            }
+            return sql.append(INSERT_SUFFIX).toString();
+        });
+    }
+
+    private String toJson(Map<String, Object> eventData) {
+        try {
+            return objectMapper.writeValueAsString(eventData != null ? eventData : Map.of());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Audit event data is not serializable", e);
+        }
+    }
+
+    /**
+     * Maximum number of events per insert statement
+     */
+    public static int maxBatchSize() {
+        // PostgreSQL accepts at most 65535 bind parameters per statement
+        return 65535 / COLUMNS;
+    }
+
+    // ========== Partitions ==========
+
+    /**
+     * Create the monthly partition holding the given day, if it does not exist
+     *
+     * @return the partition name
+     */
+    public String createPartition(LocalDate month) {
+        return jdbcTemplate.queryForObject("SELECT create_payment_events_partition(?)", String.class,
+                                           month.withDayOfMonth(1));
+    }
+
+    /**
+     * Months that currently have a partition, oldest first
+     */
+    public List<LocalDate> findPartitionMonths() {
+        return jdbcTemplate.queryForList(PARTITIONS_SQL, String.class).stream()
+            .filter(name -> name.startsWith(PARTITION_PREFIX))
+            .map(name -> LocalDate.parse(name.substring(PARTITION_PREFIX.length()) + "_01",
+                                         DateTimeFormatter.ofPattern("yyyy_MM_dd")))
+            .toList();
+    }
+
+    /**
+     * Drop a monthly partition and every event in it
+     */
+    public void dropPartition(LocalDate month) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + PARTITION_PREFIX + PARTITION_MONTH.format(month));
+    }
+}
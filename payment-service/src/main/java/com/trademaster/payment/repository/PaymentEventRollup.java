@@ -0,0 +1,117 @@
+package com.trademaster.payment.repository;
+
+import com.trademaster.payment.entity.PaymentEvent;
+import com.trademaster.payment.enums.RollupGranularity;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Payment Event Rollup
+ *
+ * Totals of the payment events in one time bucket with the same type,
+ * source and status: one row of payment_event_rollups, or the increment a
+ * batch of inserted events adds to it.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+public record PaymentEventRollup(
+        RollupGranularity granularity,
+        Instant bucketStart,
+        String eventType,
+        String eventSource,
+        String status,
+        long eventCount,
+        BigDecimal amountTotal,
+        long processedCount,
+        long failedCount,
+        double processingSeconds) {
+
+    /**
+     * Order in which rollup rows are locked, so concurrent upserts cannot deadlock
+     */
+    static final Comparator<PaymentEventRollup> KEY_ORDER = Comparator
+        .comparing(PaymentEventRollup::granularity)
+        .thenComparing(PaymentEventRollup::bucketStart)
+        .thenComparing(PaymentEventRollup::eventType)
+        .thenComparing(PaymentEventRollup::eventSource)
+        .thenComparing(PaymentEventRollup::status);
+
+    /**
+     * Identity of a rollup row
+     */
+    public record Key(RollupGranularity granularity, Instant bucketStart, String eventType, String eventSource,
+                      String status) {}
+
+    public Key key() {
+        return new Key(granularity, bucketStart, eventType, eventSource, status);
+    }
+
+    /**
+     * Per-minute and per-hour increments for a batch of events, one per bucket and dimension
+     */
+    public static List<PaymentEventRollup> of(Collection<PaymentEvent> events) {
+        Map<Key, PaymentEventRollup> rollups = new HashMap<>();
+        for (PaymentEvent event : events) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                PaymentEventRollup rollup = of(event, granularity);
+                rollups.merge(rollup.key(), rollup, PaymentEventRollup::plus);
+            }
+        }
+        return rollups.values().stream().sorted(KEY_ORDER).toList();
+    }
+
+    private static PaymentEventRollup of(PaymentEvent event, RollupGranularity granularity) {
+        boolean processed = Boolean.TRUE.equals(event.getProcessed());
+        boolean failed = event.getProcessingAttempts() != null && event.getProcessingAttempts() >= 3;
+        double processingSeconds = processed && event.getProcessedAt() != null
+            ? Duration.between(event.getCreatedAt(), event.getProcessedAt()).toNanos() / 1e9
+            : 0;
+        return new PaymentEventRollup(granularity, granularity.bucketOf(event.getCreatedAt()),
+            event.getEventType(), event.getEventSource(), statusOf(event), 1, amountOf(event),
+            processed ? 1 : 0, failed ? 1 : 0, processingSeconds);
+    }
+
+    /**
+     * Rollup status dimension: the event's new status, or empty when it has none
+     */
+    public static String statusOf(PaymentEvent event) {
+        return event.getNewStatus() != null ? event.getNewStatus() : "";
+    }
+
+    /**
+     * Amount an event carries in its data: the payment amount, or the refund amount
+     */
+    public static BigDecimal amountOf(PaymentEvent event) {
+        Map<String, Object> data = event.getEventData();
+        if (data == null) {
+            return BigDecimal.ZERO;
+        }
+        Object amount = data.containsKey("amount") ? data.get("amount") : data.get("refundAmount");
+        if (amount == null) {
+            return BigDecimal.ZERO;
+        }
+        try {
+            return amount instanceof BigDecimal decimal ? decimal : new BigDecimal(amount.toString());
+        } catch (NumberFormatException e) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    /**
+     * Sum of two rollups; the result keeps this rollup's key
+     */
+    public PaymentEventRollup plus(PaymentEventRollup other) {
+        return new PaymentEventRollup(granularity, bucketStart, eventType, eventSource, status,
+            eventCount + other.eventCount, amountTotal.add(other.amountTotal),
+            processedCount + other.processedCount, failedCount + other.failedCount,
+            processingSeconds + other.processingSeconds);
+    }
+}
@@ -0,0 +1,112 @@
+package com.trademaster.payment.repository;
+
+import com.trademaster.payment.enums.RollupGranularity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Payment Event Rollup Repository
+ *
+ * Data access for the materialized payment event statistics. Increments are
+ * added with one multi-row upsert per batch of inserted events, and must run
+ * in the transaction that inserts them.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentEventRollupRepository {
+
+    private static final String UPSERT_PREFIX = """
+        INSERT INTO payment_event_rollups AS r (granularity, bucket_start, event_type, event_source, status,
+            event_count, amount_total, processed_count, failed_count, processing_seconds)
+        VALUES\s""";
+    private static final String ROW_VALUES = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // PostgreSQL accepts at most 65535 bind parameters per statement
+    private static final int MAX_ROWS = 65535 / 10;
+    private static final String UPSERT_SUFFIX = """
+         ON CONFLICT (granularity, bucket_start, event_type, event_source, status) DO UPDATE SET
+            event_count = r.event_count + EXCLUDED.event_count,
+            amount_total = r.amount_total + EXCLUDED.amount_total,
+            processed_count = r.processed_count + EXCLUDED.processed_count,
+            failed_count = r.failed_count + EXCLUDED.failed_count,
+            processing_seconds = r.processing_seconds + EXCLUDED.processing_seconds
+        """;
+
+    private static final String FIND_SQL = """
+        SELECT granularity, bucket_start, event_type, event_source, status,
+            event_count, amount_total, processed_count, failed_count, processing_seconds
+        FROM payment_event_rollups
+        WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Integer, String> upsertSql = new ConcurrentHashMap<>();
+
+    /**
+     * Add increments to their rollup rows, creating rows that do not exist yet
+     */
+    public void add(List<PaymentEventRollup> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        List<PaymentEventRollup> ordered = increments.stream().sorted(PaymentEventRollup.KEY_ORDER).toList();
+        for (int from = 0; from < ordered.size(); from += MAX_ROWS) {
+            upsert(ordered.subList(from, Math.min(from + MAX_ROWS, ordered.size())));
+        }
+    }
+
+    private void upsert(List<PaymentEventRollup> rows) {
+        jdbcTemplate.update(upsertSql(rows.size()), ps -> {
+            int index = 1;
+            for (PaymentEventRollup rollup : rows) {
+                ps.setString(index++, rollup.granularity().name());
+                ps.setTimestamp(index++, Timestamp.from(rollup.bucketStart()));
+                ps.setString(index++, rollup.eventType());
+                ps.setString(index++, rollup.eventSource());
+                ps.setString(index++, rollup.status());
+                ps.setLong(index++, rollup.eventCount());
+                ps.setBigDecimal(index++, rollup.amountTotal());
+                ps.setLong(index++, rollup.processedCount());
+                ps.setLong(index++, rollup.failedCount());
+                ps.setDouble(index++, rollup.processingSeconds());
+            }
+        });
+    }
+
+    private String upsertSql(int rows) {
+        return upsertSql.computeIfAbsent(rows, count -> {
+            StringBuilder sql = new StringBuilder(UPSERT_PREFIX);
+            for (int i = 0; i < count; i++) {
+                sql.append(i == 0 ? "" : ", ").append(ROW_VALUES);
+            }
+            return sql.append(UPSERT_SUFFIX).toString();
+        });
+    }
+
+    /**
+     * Rollup rows of one granularity whose buckets start in [from, to)
+     */
+    public List<PaymentEventRollup> findBuckets(RollupGranularity granularity, Instant from, Instant to) {
+        return jdbcTemplate.query(FIND_SQL, (rs, rowNum) -> new PaymentEventRollup(
+                RollupGranularity.valueOf(rs.getString("granularity")),
+                rs.getTimestamp("bucket_start").toInstant(),
+                rs.getString("event_type"),
+                rs.getString("event_source"),
+                rs.getString("status"),
+                rs.getLong("event_count"),
+                rs.getBigDecimal("amount_total"),
+                rs.getLong("processed_count"),
+                rs.getLong("failed_count"),
+                rs.getDouble("processing_seconds")),
+            granularity.name(), Timestamp.from(from), Timestamp.from(to));
+    }
+}
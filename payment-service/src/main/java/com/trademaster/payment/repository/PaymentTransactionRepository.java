@@ -2,9 +2,11 @@ package com.trademaster.payment.repository;
 
 import com.trademaster.payment.entity.PaymentTransaction;
 import com.trademaster.payment.enums.PaymentStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -46,6 +48,21 @@ public interface PaymentTransactionRepository extends JpaRepository<PaymentTrans
      */
     Optional<PaymentTransaction> findByGatewayOrderId(String gatewayOrderId);
     
+    /**
+     * Find and lock a transaction by gateway payment ID, so webhook events
+     * for the same payment are applied one at a time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT pt FROM PaymentTransaction pt WHERE pt.gatewayPaymentId = :gatewayPaymentId")
+    Optional<PaymentTransaction> findByGatewayPaymentIdForUpdate(@Param("gatewayPaymentId") String gatewayPaymentId);
+    
+    /**
+     * Find and lock a transaction by gateway order ID
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT pt FROM PaymentTransaction pt WHERE pt.gatewayOrderId = :gatewayOrderId")
+    Optional<PaymentTransaction> findByGatewayOrderIdForUpdate(@Param("gatewayOrderId") String gatewayOrderId);
+    
     /**
      * Find transactions for a subscription
      */
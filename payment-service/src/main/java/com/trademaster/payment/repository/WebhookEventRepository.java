@@ -0,0 +1,114 @@
+package com.trademaster.payment.repository;
+
+import com.trademaster.payment.entity.WebhookEvent;
+import com.trademaster.payment.enums.PaymentGateway;
+import com.trademaster.payment.enums.WebhookEventStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Webhook Event Repository
+ *
+ * Data access layer for the webhook event inbox: deduplicated inserts,
+ * lease-based claiming for asynchronous processing, and replay.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Repository
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long> {
+
+    /**
+     * Store an event unless the gateway already delivered it
+     *
+     * @return 1 if the event is new, 0 for a duplicate delivery
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO webhook_events (gateway, event_id, event_type, gateway_payment_id, gateway_order_id,
+            payload, gateway_created_at, status, attempts, received_at)
+        VALUES (:gateway, :eventId, :eventType, :gatewayPaymentId, :gatewayOrderId,
+            :payload, :gatewayCreatedAt, 'RECEIVED', 0, :receivedAt)
+        ON CONFLICT (gateway, event_id) DO NOTHING
+        """, nativeQuery = true)
+    int insertIfAbsent(@Param("gateway") String gateway,
+                       @Param("eventId") String eventId,
+                       @Param("eventType") String eventType,
+                       @Param("gatewayPaymentId") String gatewayPaymentId,
+                       @Param("gatewayOrderId") String gatewayOrderId,
+                       @Param("payload") String payload,
+                       @Param("gatewayCreatedAt") Instant gatewayCreatedAt,
+                       @Param("receivedAt") Instant receivedAt);
+
+    /**
+     * Claim a batch of events waiting to be applied, plus events whose
+     * processor lease has expired. SKIP LOCKED lets several instances claim
+     * concurrently without taking the same event twice.
+     */
+    @Transactional
+    @Query(value = """
+        UPDATE webhook_events SET status = 'PROCESSING', attempts = attempts + 1, claimed_at = :now
+        WHERE id IN (
+            SELECT id FROM webhook_events
+            WHERE status = 'RECEIVED' OR (status = 'PROCESSING' AND claimed_at < :leaseExpiredBefore)
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED)
+        RETURNING *
+        """, nativeQuery = true)
+    List<WebhookEvent> claimBatch(@Param("now") Instant now,
+                                  @Param("leaseExpiredBefore") Instant leaseExpiredBefore,
+                                  @Param("limit") int limit);
+
+    /**
+     * Record the outcome of applying an event
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE webhook_events SET status = :status, last_error = :lastError, applied_at = :appliedAt " +
+                   "WHERE id = :id", nativeQuery = true)
+    int recordOutcome(@Param("id") Long id,
+                      @Param("status") String status,
+                      @Param("lastError") String lastError,
+                      @Param("appliedAt") Instant appliedAt);
+
+    /**
+     * Put events back in the queue to be applied again
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE webhook_events SET status = 'RECEIVED', attempts = 0, last_error = NULL, " +
+                   "claimed_at = NULL, applied_at = NULL WHERE id IN (:ids)", nativeQuery = true)
+    int requeue(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Find events received in a window, optionally filtered by gateway and
+     * status, for replay
+     */
+    @Query("SELECT we.id FROM WebhookEvent we WHERE " +
+           "we.receivedAt >= :from AND we.receivedAt < :to AND " +
+           "(:gateway IS NULL OR we.gateway = :gateway) AND " +
+           "(:status IS NULL OR we.status = :status) " +
+           "ORDER BY we.id")
+    List<Long> findIdsForReplay(@Param("from") Instant from,
+                                @Param("to") Instant to,
+                                @Param("gateway") PaymentGateway gateway,
+                                @Param("status") WebhookEventStatus status);
+
+    /**
+     * Find all events for one payment, in the order they were received
+     */
+    @Query("SELECT we FROM WebhookEvent we WHERE " +
+           "we.gatewayPaymentId = :key OR we.gatewayOrderId = :key " +
+           "ORDER BY we.id")
+    List<WebhookEvent> findByTransactionKey(@Param("key") String key);
+}
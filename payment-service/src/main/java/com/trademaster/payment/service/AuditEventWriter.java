@@ -0,0 +1,310 @@
+package com.trademaster.payment.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trademaster.payment.entity.PaymentEvent;
+import com.trademaster.payment.entity.PaymentTransaction;
+import com.trademaster.payment.entity.UserSubscription;
+import com.trademaster.payment.repository.AuditEventBatchRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffered audit trail writer
+ *
+ * Audit calls on the payment path only enqueue the event. A single writer
+ * thread drains the bounded buffer and inserts up to a batch of events per
+ * statement. When the buffer is full, or a batch cannot be written, events
+ * are appended to a spill file and forced to disk; the spill file is
+ * written back to the database once it is reachable again. Events carry
+ * their own id, so a batch written twice is stored and counted once.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class AuditEventWriter {
+
+    private final AuditEventBatchRepository batchRepository;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<PaymentEvent> buffer;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final Path spillFile;
+    private final Path replayFile;
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AuditEventWriter(
+            AuditEventBatchRepository batchRepository,
+            ObjectMapper objectMapper,
+            @Value("${payment.audit.buffer-size:65536}") int bufferSize,
+            @Value("${payment.audit.batch-size:500}") int batchSize,
+            @Value("${payment.audit.flush-interval-ms:50}") long flushIntervalMillis,
+            @Value("${payment.audit.spill-file:data/audit-spill.jsonl}") String spillFile) {
+        this.batchRepository = batchRepository;
+        this.objectMapper = objectMapper;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.batchSize = Math.min(batchSize, AuditEventBatchRepository.maxBatchSize());
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.spillFile = Path.of(spillFile);
+        this.replayFile = Path.of(spillFile + ".replay");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = Thread.ofPlatform().name("audit-writer").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writerThread.interrupt();
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        // Whatever the writer thread did not get to is kept on disk
+        List<PaymentEvent> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        spill(remaining);
+    }
+
+    // ========== Enqueue ==========
+
+    /**
+     * Queue an audit event for writing; never blocks the caller on the database.
+     * Inside a transaction the event is queued once it commits, so a rolled
+     * back operation leaves no audit row, as when the event joined the
+     * caller's transaction.
+     */
+    public void write(PaymentEvent event) {
+        if (event.getId() == null) {
+            event.setId(UUID.randomUUID());
+        }
+        if (event.getCreatedAt() == null) {
+            event.setCreatedAt(Instant.now());
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else {
+            enqueue(event);
+        }
+    }
+
+    private void enqueue(PaymentEvent event) {
+        if (!buffer.offer(event)) {
+            spill(List.of(event));
+        }
+    }
+
+    // ========== Writer Thread ==========
+
+    private void run() {
+        List<PaymentEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PaymentEvent first = buffer.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                writeOrSpill(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        // Write what is left before the buffer is spilled on shutdown
+        buffer.drainTo(batch);
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            writeOrSpill(batch.subList(from, Math.min(from + batchSize, batch.size())));
+        }
+        batch.clear();
+    }
+
+    private void writeOrSpill(List<PaymentEvent> batch) {
+        try {
+            batchRepository.insertAll(batch);
+            written.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to write {} audit events, spilling to {}: {}", batch.size(), spillFile, e.getMessage());
+            spill(batch);
+        }
+    }
+
+    /**
+     * Number of events in the buffer waiting to be written
+     */
+    public int pending() {
+        return buffer.size();
+    }
+
+    /**
+     * Number of events written to the database since startup
+     */
+    public long writtenCount() {
+        return written.get();
+    }
+
+    /**
+     * Number of events spilled to disk since startup
+     */
+    public long spilledCount() {
+        return spilled.get();
+    }
+
+    // ========== Spill File ==========
+
+    /**
+     * Audit rows as stored in the spill file, one JSON object per line
+     */
+    private record SpilledEvent(UUID id, UUID transactionId, UUID subscriptionId, String eventType,
+                                String eventSource, Map<String, Object> eventData, String previousStatus,
+                                String newStatus, String gatewayEventId, Instant createdAt) {
+
+        static SpilledEvent of(PaymentEvent event) {
+            return new SpilledEvent(event.getId(),
+                event.getTransaction() != null ? event.getTransaction().getId() : null,
+                event.getSubscription() != null ? event.getSubscription().getId() : null,
+                event.getEventType(), event.getEventSource(), event.getEventData(), event.getPreviousStatus(),
+                event.getNewStatus(), event.getGatewayEventId(), event.getCreatedAt());
+        }
+
+        PaymentEvent toEvent() {
+            return PaymentEvent.builder()
+                .id(id)
+                .transaction(transactionId != null ? PaymentTransaction.builder().id(transactionId).build() : null)
+                .subscription(subscriptionId != null ? UserSubscription.builder().id(subscriptionId).build() : null)
+                .eventType(eventType)
+                .eventSource(eventSource)
+                .eventData(eventData)
+                .previousStatus(previousStatus)
+                .newStatus(newStatus)
+                .gatewayEventId(gatewayEventId)
+                .createdAt(createdAt)
+                .build();
+        }
+    }
+
+    private void spill(List<PaymentEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        spillLock.lock();
+        try {
+            for (PaymentEvent event : events) {
+                lines.append(objectMapper.writeValueAsString(SpilledEvent.of(event))).append('\n');
+            }
+            Path parent = spillFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(spillFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(false);
+            }
+            spilled.addAndGet(events.size());
+        } catch (IOException e) {
+            // Nowhere left to keep them; the log line is the last record of these events
+            log.error("Failed to spill {} audit events to {}: {} - {}", events.size(), spillFile, e.getMessage(), lines);
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    /**
+     * Write spilled events back to the database
+     *
+     * @return the number of events written
+     */
+    @Scheduled(fixedDelayString = "${payment.audit.spill-replay-interval-ms:30000}")
+    public int replaySpilled() {
+        spillLock.lock();
+        try {
+            // A replay that failed part way leaves its file behind; finish that one first
+            if (!Files.exists(replayFile)) {
+                if (!Files.exists(spillFile) || Files.size(spillFile) == 0) {
+                    return 0;
+                }
+                Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            log.error("Failed to prepare audit spill file {} for replay: {}", spillFile, e.getMessage());
+            return 0;
+        } finally {
+            spillLock.unlock();
+        }
+
+        int replayed = 0;
+        List<PaymentEvent> batch = new ArrayList<>(batchSize);
+        try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                batch.add(objectMapper.readValue(line, SpilledEvent.class).toEvent());
+                if (batch.size() == batchSize) {
+                    replayed += replay(batch);
+                }
+            }
+            replayed += replay(batch);
+            Files.delete(replayFile);
+            log.info("Wrote {} spilled audit events to the database", replayed);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Audit spill replay stopped after {} events, will retry: {}", replayed, e.getMessage());
+        }
+        return replayed;
+    }
+
+    private int replay(List<PaymentEvent> batch) {
+        int size = batch.size();
+        // Part of the file may have been written before a failed replay
+        batchRepository.insertNew(batch);
+        batch.clear();
+        written.addAndGet(size);
+        return size;
+    }
+}
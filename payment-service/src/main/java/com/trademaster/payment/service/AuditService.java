@@ -3,26 +3,42 @@ package com.trademaster.payment.service;
 import com.trademaster.payment.entity.PaymentEvent;
 import com.trademaster.payment.entity.PaymentTransaction;
 import com.trademaster.payment.enums.PaymentMethod;
+import com.trademaster.payment.enums.RollupGranularity;
+import com.trademaster.payment.repository.AuditEventBatchRepository;
 import com.trademaster.payment.repository.PaymentEventRepository;
+import com.trademaster.payment.repository.PaymentEventRollup;
+import com.trademaster.payment.repository.PaymentEventRollupRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Function;
 
 /**
  * Audit Service
  * 
  * Comprehensive audit logging for payment operations and compliance reporting.
  * Maintains detailed audit trail for financial regulations and internal monitoring.
+ * Events are handed to AuditEventWriter and written in batches off the payment
+ * path; the trail is partitioned by month, and retention drops whole months.
+ * Statistics are served from per-minute and per-hour rollups maintained with
+ * each insert rather than by scanning the trail.
  * 
  * @author TradeMaster Development Team
  * @version 1.0.0
@@ -33,10 +49,15 @@ import java.util.UUID;
 public class AuditService {
 
     private final PaymentEventRepository paymentEventRepository;
+    private final AuditEventWriter auditEventWriter;
+    private final AuditEventBatchRepository batchRepository;
+    private final PaymentEventRollupRepository rollupRepository;
+    
+    @Value("${payment.audit.partitions-ahead:3}")
+    private int partitionsAhead = 3;
     
     // Payment Transaction Audit Events
     
-    @Transactional
     public void logPaymentInitiated(UUID userId, UUID transactionId, BigDecimal amount, String currency) {
         Map<String, Object> eventData = Map.of(
                 "userId", userId.toString(),
@@ -51,11 +72,10 @@ public class AuditService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.info("Audit: Payment initiated for user: {} amount: {} {}", userId, amount, currency);
     }
     
-    @Transactional
     public void logPaymentCompleted(PaymentTransaction transaction) {
         Map<String, Object> eventData = Map.of(
                 "transactionId", transaction.getId().toString(),
@@ -76,11 +96,10 @@ public class AuditService {
                 .newStatus(transaction.getStatus().name())
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.info("Audit: Payment completed for transaction: {}", transaction.getId());
     }
     
-    @Transactional
     public void logPaymentFailed(PaymentTransaction transaction, String failureReason) {
         Map<String, Object> eventData = Map.of(
                 "transactionId", transaction.getId().toString(),
@@ -100,13 +119,12 @@ public class AuditService {
                 .newStatus(transaction.getStatus().name())
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.warn("Audit: Payment failed for transaction: {} - {}", transaction.getId(), failureReason);
     }
     
     // Refund Audit Events
     
-    @Transactional
     public void logRefundProcessed(UUID userId, UUID transactionId, BigDecimal refundAmount, 
                                   boolean isFullRefund, String refundId) {
         Map<String, Object> eventData = Map.of(
@@ -124,11 +142,10 @@ public class AuditService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.info("Audit: Refund processed for transaction: {} amount: {}", transactionId, refundAmount);
     }
     
-    @Transactional
     public void logRefundFailed(UUID userId, UUID transactionId, BigDecimal refundAmount, String errorMessage) {
         Map<String, Object> eventData = Map.of(
                 "userId", userId.toString(),
@@ -144,11 +161,10 @@ public class AuditService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.warn("Audit: Refund failed for transaction: {} - {}", transactionId, errorMessage);
     }
     
-    @Transactional
     public void logRefundCancelled(UUID userId, UUID transactionId, String refundId, String reason) {
         Map<String, Object> eventData = Map.of(
                 "userId", userId.toString(),
@@ -164,13 +180,12 @@ public class AuditService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.info("Audit: Refund cancelled for transaction: {} - {}", transactionId, reason);
     }
     
     // Payment Method Audit Events
     
-    @Transactional
     public void logPaymentMethodAdded(UUID userId, UUID paymentMethodId, PaymentMethod paymentMethodType) {
         Map<String, Object> eventData = Map.of(
                 "userId", userId.toString(),
@@ -185,11 +200,10 @@ public class AuditService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.info("Audit: Payment method added for user: {} type: {}", userId, paymentMethodType);
     }
     
-    @Transactional
     public void logPaymentMethodRemoved(UUID userId, UUID paymentMethodId) {
         Map<String, Object> eventData = Map.of(
                 "userId", userId.toString(),
@@ -203,11 +217,10 @@ public class AuditService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.info("Audit: Payment method removed for user: {}", userId);
     }
     
-    @Transactional
     public void logPaymentMethodDefaultSet(UUID userId, UUID paymentMethodId) {
         Map<String, Object> eventData = Map.of(
                 "userId", userId.toString(),
@@ -221,11 +234,10 @@ public class AuditService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.info("Audit: Default payment method set for user: {}", userId);
     }
     
-    @Transactional
     public void logPaymentMethodVerified(UUID userId, UUID paymentMethodId) {
         Map<String, Object> eventData = Map.of(
                 "userId", userId.toString(),
@@ -239,11 +251,10 @@ public class AuditService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.info("Audit: Payment method verified for user: {}", userId);
     }
     
-    @Transactional
     public void logPaymentMethodExpired(UUID userId, UUID paymentMethodId) {
         Map<String, Object> eventData = Map.of(
                 "userId", userId.toString(),
@@ -257,11 +268,10 @@ public class AuditService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.info("Audit: Payment method expired for user: {}", userId);
     }
     
-    @Transactional
     public void logPaymentMethodInactive(UUID userId, UUID paymentMethodId) {
         Map<String, Object> eventData = Map.of(
                 "userId", userId.toString(),
@@ -275,13 +285,12 @@ public class AuditService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.info("Audit: Payment method marked as inactive for user: {}", userId);
     }
     
     // Subscription Audit Events
     
-    @Transactional
     public void logSubscriptionCreated(UUID userId, UUID subscriptionId, UUID planId, BigDecimal amount) {
         Map<String, Object> eventData = Map.of(
                 "userId", userId.toString(),
@@ -297,11 +306,10 @@ public class AuditService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.info("Audit: Subscription created for user: {} plan: {}", userId, planId);
     }
     
-    @Transactional
     public void logSubscriptionCancelled(UUID userId, UUID subscriptionId, String reason) {
         Map<String, Object> eventData = Map.of(
                 "userId", userId.toString(),
@@ -316,11 +324,10 @@ public class AuditService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.info("Audit: Subscription cancelled for user: {} - {}", userId, reason);
     }
     
-    @Transactional
     public void logSubscriptionRenewed(UUID userId, UUID subscriptionId, BigDecimal amount) {
         Map<String, Object> eventData = Map.of(
                 "userId", userId.toString(),
@@ -335,13 +342,12 @@ public class AuditService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.info("Audit: Subscription renewed for user: {} amount: {}", userId, amount);
     }
     
     // Security Audit Events
     
-    @Transactional
     public void logSecurityViolation(String violationType, String details, String ipAddress, String userAgent) {
         Map<String, Object> eventData = Map.of(
                 "violationType", violationType,
@@ -357,11 +363,10 @@ public class AuditService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.warn("Audit: Security violation - {} from {}", violationType, ipAddress);
     }
     
-    @Transactional
     public void logSuspiciousActivity(UUID userId, String activityType, String details) {
         Map<String, Object> eventData = Map.of(
                 "userId", userId.toString(),
@@ -376,7 +381,7 @@ public class AuditService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        auditEventWriter.write(event);
         log.warn("Audit: Suspicious activity for user: {} - {}", userId, activityType);
     }
     
@@ -400,37 +405,100 @@ public class AuditService {
      * Get processing statistics
      */
     public Map<String, Object> getProcessingStatistics(Instant since) {
-        Object[] stats = paymentEventRepository.getProcessingStatistics(since);
-        
-        if (stats != null && stats.length >= 4) {
-            Map<String, Object> result = new HashMap<>();
-            result.put("processedCount", stats[0] != null ? ((Number) stats[0]).longValue() : 0L);
-            result.put("pendingCount", stats[1] != null ? ((Number) stats[1]).longValue() : 0L);
-            result.put("failedCount", stats[2] != null ? ((Number) stats[2]).longValue() : 0L);
-            result.put("avgProcessingTime", stats[3] != null ? ((Number) stats[3]).doubleValue() : 0.0);
-            return result;
+        return getProcessingStatistics(since, Instant.now());
+    }
+    
+    /**
+     * Get processing statistics for events created in a time range
+     */
+    public Map<String, Object> getProcessingStatistics(Instant from, Instant to) {
+        long eventCount = 0;
+        long processedCount = 0;
+        long failedCount = 0;
+        double processingSeconds = 0;
+        for (PaymentEventRollup totals : getEventTotals(from, to)) {
+            eventCount += totals.eventCount();
+            processedCount += totals.processedCount();
+            failedCount += totals.failedCount();
+            processingSeconds += totals.processingSeconds();
         }
         
-        return Map.of(
-                "processedCount", 0L,
-                "pendingCount", 0L,
-                "failedCount", 0L,
-                "avgProcessingTime", 0.0
-        );
+        Map<String, Object> result = new HashMap<>();
+        result.put("processedCount", processedCount);
+        result.put("pendingCount", eventCount - processedCount);
+        result.put("failedCount", failedCount);
+        result.put("avgProcessingTime", processedCount > 0 ? processingSeconds / processedCount : 0.0);
+        return result;
     }
     
     /**
      * Get event count by type
      */
     public List<Object[]> getEventCountByType(Instant since) {
-        return paymentEventRepository.countEventsByType(since);
+        return getEventCountByType(since, Instant.now());
+    }
+    
+    /**
+     * Get event count by type for events created in a time range
+     */
+    public List<Object[]> getEventCountByType(Instant from, Instant to) {
+        return countBy(getEventTotals(from, to), PaymentEventRollup::eventType);
     }
     
     /**
      * Get event count by source
      */
     public List<Object[]> getEventCountBySource(Instant since) {
-        return paymentEventRepository.countEventsBySource(since);
+        return getEventCountBySource(since, Instant.now());
+    }
+    
+    /**
+     * Get event count by source for events created in a time range
+     */
+    public List<Object[]> getEventCountBySource(Instant from, Instant to) {
+        return countBy(getEventTotals(from, to), PaymentEventRollup::eventSource);
+    }
+    
+    /**
+     * Get event counts and amounts by type, source and status for events
+     * created in a time range. The range is widened to whole minutes; whole
+     * hours are read from the hourly rollups and the minutes at either end
+     * from the per-minute rollups. Each result row has no granularity and
+     * starts at the beginning of the widened range.
+     */
+    public List<PaymentEventRollup> getEventTotals(Instant from, Instant to) {
+        Instant start = RollupGranularity.MINUTE.bucketOf(from);
+        Instant end = RollupGranularity.MINUTE.nextBucketFrom(to);
+        Instant firstHour = RollupGranularity.HOUR.nextBucketFrom(start);
+        Instant lastHour = RollupGranularity.HOUR.bucketOf(end);
+        
+        List<PaymentEventRollup> buckets = new ArrayList<>();
+        if (firstHour.isBefore(lastHour)) {
+            buckets.addAll(rollupRepository.findBuckets(RollupGranularity.MINUTE, start, firstHour));
+            buckets.addAll(rollupRepository.findBuckets(RollupGranularity.HOUR, firstHour, lastHour));
+            buckets.addAll(rollupRepository.findBuckets(RollupGranularity.MINUTE, lastHour, end));
+        } else {
+            buckets.addAll(rollupRepository.findBuckets(RollupGranularity.MINUTE, start, end));
+        }
+        
+        Map<List<String>, PaymentEventRollup> totals = new LinkedHashMap<>();
+        for (PaymentEventRollup bucket : buckets) {
+            PaymentEventRollup merged = new PaymentEventRollup(null, start, bucket.eventType(),
+                    bucket.eventSource(), bucket.status(), bucket.eventCount(), bucket.amountTotal(),
+                    bucket.processedCount(), bucket.failedCount(), bucket.processingSeconds());
+            totals.merge(List.of(bucket.eventType(), bucket.eventSource(), bucket.status()), merged,
+                    PaymentEventRollup::plus);
+        }
+        return new ArrayList<>(totals.values());
+    }
+    
+    private static List<Object[]> countBy(List<PaymentEventRollup> totals,
+                                          Function<PaymentEventRollup, String> dimension) {
+        Map<String, Long> counts = new TreeMap<>();
+        totals.forEach(row -> counts.merge(dimension.apply(row), row.eventCount(), Long::sum));
+        return counts.entrySet().stream()
+                .map(entry -> new Object[] {entry.getKey(), entry.getValue()})
+                .toList();
     }
     
     /**
@@ -441,17 +509,37 @@ public class AuditService {
     }
     
     /**
-     * Cleanup old processed events
+     * Drop audit partitions for months that ended before the retention window.
+     * A month still partly inside the window is kept whole.
+     *
+     * @return the number of monthly partitions dropped
      */
-    @Transactional
     public int cleanupOldEvents(int daysToRetain) {
-        Instant cutoffDate = Instant.now().minus(daysToRetain, java.time.temporal.ChronoUnit.DAYS);
-        List<PaymentEvent> oldEvents = paymentEventRepository.findOldProcessedEvents(cutoffDate);
-        
-        int deletedCount = oldEvents.size();
-        paymentEventRepository.deleteAll(oldEvents);
+        Instant cutoffDate = Instant.now().minus(daysToRetain, ChronoUnit.DAYS);
+        LocalDate cutoffMonth = cutoffDate.atZone(ZoneOffset.UTC).toLocalDate();
+        
+        int droppedCount = 0;
+        for (LocalDate month : batchRepository.findPartitionMonths()) {
+            if (month.plusMonths(1).isAfter(cutoffMonth)) {
+                break;
+            }
+            batchRepository.dropPartition(month);
+            droppedCount++;
+            log.info("Audit cleanup: Dropped audit partition for {}", month);
+        }
         
-        log.info("Audit cleanup: Deleted {} old processed events older than {} days", deletedCount, daysToRetain);
-        return deletedCount;
+        log.info("Audit cleanup: Dropped {} monthly partitions older than {} days", droppedCount, daysToRetain);
+        return droppedCount;
+    }
+    
+    /**
+     * Keep partitions in place for the current month and the months ahead
+     */
+    @Scheduled(cron = "${payment.audit.partition-cron:0 0 1 * * *}")
+    public void createUpcomingPartitions() {
+        LocalDate month = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+        for (int i = 0; i <= partitionsAhead; i++) {
+            batchRepository.createPartition(month.plusMonths(i));
+        }
     }
-}
\ No newline at end of file
+}
@@ -4,12 +4,15 @@ import com.trademaster.payment.entity.PaymentEvent;
 import com.trademaster.payment.entity.PaymentTransaction;
 import com.trademaster.payment.entity.UserSubscription;
 import com.trademaster.payment.repository.PaymentEventRepository;
+import com.trademaster.payment.repository.PaymentEventRollup;
+import com.trademaster.payment.repository.PaymentEventRollupRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -26,6 +29,7 @@ import java.util.Map;
 public class PaymentEventService {
 
     private final PaymentEventRepository paymentEventRepository;
+    private final PaymentEventRollupRepository rollupRepository;
     
     /**
      * Create payment completed event
@@ -33,7 +37,7 @@ public class PaymentEventService {
     @Transactional
     public void createPaymentCompletedEvent(PaymentTransaction transaction, String previousStatus) {
         PaymentEvent event = PaymentEvent.paymentCompleted(transaction, previousStatus);
-        paymentEventRepository.save(event);
+        save(event);
         log.debug("Payment completed event created for transaction: {}", transaction.getId());
     }
     
@@ -58,7 +62,7 @@ public class PaymentEventService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        save(event);
         log.debug("Payment failed event created for transaction: {}", transaction.getId());
     }
     
@@ -81,7 +85,7 @@ public class PaymentEventService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        save(event);
         log.debug("Refund completed event created for transaction: {}", transaction.getId());
     }
     
@@ -105,7 +109,7 @@ public class PaymentEventService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        save(event);
         log.debug("Partial refund event created for transaction: {}", transaction.getId());
     }
     
@@ -128,7 +132,7 @@ public class PaymentEventService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        save(event);
         log.debug("Refund cancelled event created for transaction: {}", transaction.getId());
     }
     
@@ -138,7 +142,7 @@ public class PaymentEventService {
     @Transactional
     public void createSubscriptionActivatedEvent(UserSubscription subscription, PaymentTransaction transaction) {
         PaymentEvent event = PaymentEvent.subscriptionActivated(subscription, transaction);
-        paymentEventRepository.save(event);
+        save(event);
         log.debug("Subscription activated event created for subscription: {}", subscription.getId());
     }
     
@@ -164,7 +168,7 @@ public class PaymentEventService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        save(event);
         log.debug("Subscription cancelled event created for subscription: {}", subscription.getId());
     }
     
@@ -193,7 +197,7 @@ public class PaymentEventService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        save(event);
         log.debug("Subscription renewed event created for subscription: {}", subscription.getId());
     }
     
@@ -218,7 +222,7 @@ public class PaymentEventService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        save(event);
         log.debug("Subscription expired event created for subscription: {}", subscription.getId());
     }
     
@@ -228,7 +232,7 @@ public class PaymentEventService {
     @Transactional
     public void createWebhookReceivedEvent(String eventType, String gatewayEventId, String signature, Map<String, Object> data) {
         PaymentEvent event = PaymentEvent.webhookReceived(eventType, gatewayEventId, signature, data);
-        paymentEventRepository.save(event);
+        save(event);
         log.debug("Webhook received event created for event type: {}", eventType);
     }
     
@@ -249,7 +253,7 @@ public class PaymentEventService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        save(event);
         log.debug("Webhook processed event created for event type: {}", eventType);
     }
     
@@ -270,7 +274,15 @@ public class PaymentEventService {
                 .eventData(eventData)
                 .build();
         
-        paymentEventRepository.save(event);
+        save(event);
         log.debug("Webhook failed event created for event type: {}", eventType);
     }
-}
\ No newline at end of file
+    
+    /**
+     * Store an event and add it to the statistics rollups in the same transaction
+     */
+    private void save(PaymentEvent event) {
+        PaymentEvent saved = paymentEventRepository.save(event);
+        rollupRepository.add(PaymentEventRollup.of(List.of(saved)));
+    }
+}
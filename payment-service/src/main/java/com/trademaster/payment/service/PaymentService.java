@@ -46,6 +46,7 @@ public class PaymentService {
     private final PaymentMetricsService metricsService;
     private final StructuredLoggingService loggingService;
     private final ApplicationEventPublisher eventPublisher;
+    private final AuditService auditService;
     
     /**
      * Process a payment request through the appropriate gateway
@@ -72,6 +73,8 @@ public class PaymentService {
         try {
             // Create payment transaction record
             PaymentTransaction transaction = createPaymentTransaction(request);
+            auditService.logPaymentInitiated(request.getUserId(), transaction.getId(),
+                                             request.getAmount(), request.getCurrency());
             
             // Route to appropriate payment gateway
             PaymentResponse response = routeToGateway(request, transaction);
@@ -107,6 +110,7 @@ public class PaymentService {
                     )
                 );
                 
+                auditService.logPaymentCompleted(transaction);
                 handleSuccessfulPayment(transaction, request);
             }
             
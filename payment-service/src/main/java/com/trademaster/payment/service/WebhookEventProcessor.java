@@ -0,0 +1,330 @@
+package com.trademaster.payment.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trademaster.payment.entity.PaymentTransaction;
+import com.trademaster.payment.entity.WebhookEvent;
+import com.trademaster.payment.enums.PaymentGateway;
+import com.trademaster.payment.enums.PaymentStatus;
+import com.trademaster.payment.enums.WebhookEventStatus;
+import com.trademaster.payment.events.PaymentCompletedEvent;
+import com.trademaster.payment.events.PaymentFailedEvent;
+import com.trademaster.payment.exception.PaymentProcessingException;
+import com.trademaster.payment.repository.PaymentTransactionRepository;
+import com.trademaster.payment.repository.WebhookEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Webhook Event Processor
+ *
+ * Applies stored webhook events to payment transactions:
+ * - Events are claimed in batches with FOR UPDATE SKIP LOCKED, so several
+ *   instances can share the backlog
+ * - A batch is grouped by payment; each payment's events are applied one at
+ *   a time in gateway event time order, and different payments in parallel
+ *   on virtual threads
+ * - Each event is applied in its own transaction with the payment row
+ *   locked, through a monotonic state machine: the payment only moves to a
+ *   later lifecycle status ({@link PaymentStatus#canTransitionTo}). A stale
+ *   or repeated event changes nothing and publishes nothing, so
+ *   PaymentCompletedEvent is published once per payment.
+ * - An event whose payment is not found yet (the callback beat our own
+ *   commit) stays claimed and is retried when its lease expires, up to the
+ *   configured number of attempts
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class WebhookEventProcessor {
+
+    private static final Comparator<WebhookEvent> GATEWAY_ORDER = Comparator
+        .comparing(WebhookEvent::getGatewayCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+        .thenComparing(WebhookEvent::getId);
+
+    private final WebhookEventRepository eventRepository;
+    private final PaymentTransactionRepository paymentRepository;
+    private final SubscriptionService subscriptionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PaymentMetricsService metricsService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${payment.webhook.batch-size:200}")
+    private int batchSize = 200;
+
+    @Value("${payment.webhook.lease-timeout-ms:30000}")
+    private long leaseTimeoutMillis = 30000;
+
+    @Value("${payment.webhook.retry-attempts:3}")
+    private int maxAttempts = 3;
+
+    public WebhookEventProcessor(
+            WebhookEventRepository eventRepository,
+            PaymentTransactionRepository paymentRepository,
+            SubscriptionService subscriptionService,
+            ApplicationEventPublisher eventPublisher,
+            PaymentMetricsService metricsService,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper) {
+        this.eventRepository = eventRepository;
+        this.paymentRepository = paymentRepository;
+        this.subscriptionService = subscriptionService;
+        this.eventPublisher = eventPublisher;
+        this.metricsService = metricsService;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    // ========== Claiming ==========
+
+    /**
+     * Apply every event waiting in the inbox
+     *
+     * @return the number of events processed
+     */
+    @Scheduled(fixedDelayString = "${payment.webhook.poll-interval-ms:500}")
+    public int processPendingEvents() {
+        int processed = 0;
+        while (true) {
+            Instant now = Instant.now();
+            List<WebhookEvent> batch = eventRepository.claimBatch(
+                now, now.minus(Duration.ofMillis(leaseTimeoutMillis)), batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            processed += processBatch(batch);
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        return processed;
+    }
+
+    private int processBatch(List<WebhookEvent> batch) {
+        Map<String, List<WebhookEvent>> byPayment = new LinkedHashMap<>();
+        for (WebhookEvent event : batch) {
+            byPayment.computeIfAbsent(event.getTransactionKey(), key -> new ArrayList<>()).add(event);
+        }
+
+        AtomicInteger processed = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<WebhookEvent> events : byPayment.values()) {
+                events.sort(GATEWAY_ORDER);
+                executor.execute(() -> events.forEach(event -> {
+                    process(event);
+                    processed.incrementAndGet();
+                }));
+            }
+        }
+        log.debug("Processed {} webhook events for {} payments", processed.get(), byPayment.size());
+        return processed.get();
+    }
+
+    // ========== Applying ==========
+
+    private void process(WebhookEvent event) {
+        Instant now = Instant.now();
+        try {
+            WebhookEventStatus outcome = transactionTemplate.execute(status -> apply(event));
+            eventRepository.recordOutcome(event.getId(), outcome.name(), null, now);
+            metricsService.recordWebhookProcessed(event.getGateway().name(), event.getEventType(), true,
+                Duration.between(event.getReceivedAt(), now).toMillis());
+        } catch (Exception e) {
+            boolean exhausted = event.getAttempts() >= maxAttempts;
+            // A retryable event stays PROCESSING; it is claimed again when its lease expires
+            WebhookEventStatus next = exhausted ? WebhookEventStatus.FAILED : WebhookEventStatus.PROCESSING;
+            eventRepository.recordOutcome(event.getId(), next.name(), e.getMessage(), exhausted ? now : null);
+            if (exhausted) {
+                metricsService.recordWebhookProcessed(event.getGateway().name(), event.getEventType(), false,
+                    Duration.between(event.getReceivedAt(), now).toMillis());
+                log.error("Webhook event {} ({} {}) failed after {} attempts: {}", event.getId(),
+                         event.getGateway(), event.getEventType(), event.getAttempts(), e.getMessage());
+            } else {
+                log.warn("Webhook event {} ({} {}) attempt {}/{} failed: {}", event.getId(), event.getGateway(),
+                        event.getEventType(), event.getAttempts(), maxAttempts, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Apply one event inside the caller's transaction
+     */
+    WebhookEventStatus apply(WebhookEvent event) {
+        JsonNode entity = entityOf(event);
+        PaymentTransaction transaction = findTransaction(event)
+            .orElseThrow(() -> new PaymentProcessingException(
+                "Transaction not found for payment: " + event.getTransactionKey()));
+
+        PaymentStatus oldStatus = transaction.getStatus();
+        PaymentStatus newStatus = targetStatus(event, entity);
+        if (transaction.getGatewayPaymentId() == null && event.getGatewayPaymentId() != null) {
+            transaction.setGatewayPaymentId(event.getGatewayPaymentId());
+        }
+        if (!oldStatus.canTransitionTo(newStatus)) {
+            log.info("Ignored {} webhook {} for transaction {}: {} does not follow {}", event.getGateway(),
+                    event.getEventType(), transaction.getId(), newStatus, oldStatus);
+            return WebhookEventStatus.IGNORED;
+        }
+
+        switch (newStatus) {
+            case COMPLETED -> {
+                transaction.markAsCompleted();
+                handlePaymentSuccess(transaction);
+            }
+            case FAILED -> {
+                Failure failure = failureOf(event, entity);
+                transaction.markAsFailed(failure.reason(), failure.code());
+                handlePaymentFailure(transaction, failure.reason());
+            }
+            default -> transaction.setStatus(newStatus);
+        }
+        paymentRepository.save(transaction);
+
+        log.info("Updated transaction {} status from {} to {} via {} webhook {}",
+                transaction.getId(), oldStatus, newStatus, event.getGateway(), event.getEventType());
+        return WebhookEventStatus.APPLIED;
+    }
+
+    private Optional<PaymentTransaction> findTransaction(WebhookEvent event) {
+        Optional<PaymentTransaction> byPaymentId = event.getGatewayPaymentId() != null
+            ? paymentRepository.findByGatewayPaymentIdForUpdate(event.getGatewayPaymentId())
+            : Optional.empty();
+        return byPaymentId.or(() -> event.getGatewayOrderId() != null
+            ? paymentRepository.findByGatewayOrderIdForUpdate(event.getGatewayOrderId())
+            : Optional.empty());
+    }
+
+    private JsonNode entityOf(WebhookEvent event) {
+        try {
+            JsonNode root = objectMapper.readTree(event.getPayload());
+            return event.getGateway() == PaymentGateway.STRIPE
+                ? root.path("data").path("object")
+                : root.path("payload").path("payment").path("entity");
+        } catch (Exception e) {
+            throw new PaymentProcessingException("Malformed stored webhook payload", e);
+        }
+    }
+
+    /**
+     * The status an event moves the payment to: the event type where it is
+     * decisive, otherwise the gateway's own status field
+     */
+    private PaymentStatus targetStatus(WebhookEvent event, JsonNode entity) {
+        String status = entity.path("status").asText("");
+        if (event.getGateway() == PaymentGateway.STRIPE) {
+            return switch (event.getEventType()) {
+                case "payment_intent.succeeded" -> PaymentStatus.COMPLETED;
+                case "payment_intent.payment_failed" -> PaymentStatus.FAILED;
+                case "payment_intent.processing" -> PaymentStatus.PROCESSING;
+                default -> mapStripeStatusToPaymentStatus(status);
+            };
+        }
+        return switch (event.getEventType()) {
+            case "payment.captured" -> PaymentStatus.COMPLETED;
+            case "payment.failed" -> PaymentStatus.FAILED;
+            case "payment.authorized" -> PaymentStatus.PROCESSING;
+            default -> mapRazorpayStatusToPaymentStatus(status);
+        };
+    }
+
+    /**
+     * Failure reason and code reported by the gateway
+     */
+    private record Failure(String reason, String code) {}
+
+    private static Failure failureOf(WebhookEvent event, JsonNode entity) {
+        if (event.getGateway() == PaymentGateway.STRIPE) {
+            JsonNode error = entity.path("last_payment_error");
+            return new Failure(
+                error.path("message").asText("Payment failed"),
+                error.hasNonNull("code") ? error.get("code").asText() : null);
+        }
+        return new Failure(
+            entity.path("error_description").asText("Payment failed"),
+            entity.hasNonNull("error_code") ? entity.get("error_code").asText() : null);
+    }
+
+    /**
+     * Handle successful payment
+     */
+    private void handlePaymentSuccess(PaymentTransaction transaction) {
+        try {
+            // Activate subscription if applicable
+            if (transaction.getSubscriptionId() != null) {
+                subscriptionService.activateSubscriptionFromPayment(transaction);
+            }
+
+            // Publish success event
+            eventPublisher.publishEvent(new PaymentCompletedEvent(
+                transaction.getId(),
+                transaction.getUserId(),
+                transaction.getAmount(),
+                transaction.getCurrency(),
+                transaction.getSubscriptionId()
+            ));
+
+        } catch (Exception e) {
+            log.error("Failed to handle payment success for transaction: {}", transaction.getId(), e);
+        }
+    }
+
+    /**
+     * Handle payment failure
+     */
+    private void handlePaymentFailure(PaymentTransaction transaction, String reason) {
+        // Publish failure event
+        eventPublisher.publishEvent(new PaymentFailedEvent(
+            transaction.getUserId(),
+            transaction.getAmount(),
+            transaction.getCurrency(),
+            reason
+        ));
+    }
+
+    /**
+     * Map Razorpay status to internal payment status
+     */
+    private PaymentStatus mapRazorpayStatusToPaymentStatus(String razorpayStatus) {
+        return switch (razorpayStatus.toLowerCase()) {
+            case "created" -> PaymentStatus.PENDING;
+            case "authorized" -> PaymentStatus.PROCESSING;
+            case "captured" -> PaymentStatus.COMPLETED;
+            case "refunded" -> PaymentStatus.REFUNDED;
+            case "failed" -> PaymentStatus.FAILED;
+            default -> PaymentStatus.PENDING;
+        };
+    }
+
+    /**
+     * Map Stripe status to internal payment status
+     */
+    private PaymentStatus mapStripeStatusToPaymentStatus(String stripeStatus) {
+        return switch (stripeStatus.toLowerCase()) {
+            case "requires_payment_method", "requires_confirmation" -> PaymentStatus.PENDING;
+            case "processing" -> PaymentStatus.PROCESSING;
+            case "succeeded" -> PaymentStatus.COMPLETED;
+            case "canceled" -> PaymentStatus.CANCELLED;
+            case "requires_action" -> PaymentStatus.PENDING;
+            default -> PaymentStatus.PENDING;
+        };
+    }
+}
@@ -0,0 +1,35 @@
+-- Webhook event inbox
+-- Every verified gateway callback is stored once per (gateway, event_id) and
+-- acknowledged; state transitions are applied from here asynchronously.
+
+CREATE TABLE webhook_events (
+    id BIGSERIAL PRIMARY KEY,
+
+    -- Event Identity
+    gateway VARCHAR(20) NOT NULL,
+    event_id VARCHAR(255) NOT NULL,
+    event_type VARCHAR(100) NOT NULL,
+
+    -- Transaction Lookup
+    gateway_payment_id VARCHAR(255),
+    gateway_order_id VARCHAR(255),
+
+    -- Raw Event
+    payload TEXT NOT NULL,
+    gateway_created_at TIMESTAMP WITH TIME ZONE,
+
+    -- Processing
+    status VARCHAR(20) NOT NULL DEFAULT 'RECEIVED',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error TEXT,
+    received_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+    claimed_at TIMESTAMP WITH TIME ZONE,
+    applied_at TIMESTAMP WITH TIME ZONE,
+
+    CONSTRAINT uk_webhook_events_gateway_event UNIQUE (gateway, event_id)
+);
+
+CREATE INDEX idx_webhook_events_pending ON webhook_events(id) WHERE status IN ('RECEIVED', 'PROCESSING');
+CREATE INDEX idx_webhook_events_received_at ON webhook_events(received_at);
+
+COMMENT ON TABLE webhook_events IS 'Deduplicated gateway webhook events awaiting or after application';
@@ -0,0 +1,82 @@
+-- TradeMaster Payment Service - Partitioned Audit Trail
+-- payment_events becomes a table partitioned by month on created_at, so
+-- retention drops whole partitions instead of deleting rows
+
+ALTER TABLE payment_events RENAME TO payment_events_legacy;
+
+DROP INDEX IF EXISTS idx_payment_events_transaction_id;
+DROP INDEX IF EXISTS idx_payment_events_subscription_id;
+DROP INDEX IF EXISTS idx_payment_events_created_at;
+DROP INDEX IF EXISTS idx_payment_events_processed;
+
+CREATE TABLE payment_events (
+    id UUID NOT NULL DEFAULT uuid_generate_v4(),
+    transaction_id UUID REFERENCES payment_transactions(id),
+    subscription_id UUID REFERENCES user_subscriptions(id),
+
+    -- Event Details
+    event_type VARCHAR(100) NOT NULL,
+    event_source VARCHAR(50) NOT NULL,
+
+    -- Event Data
+    event_data JSONB NOT NULL DEFAULT '{}',
+    previous_status VARCHAR(50),
+    new_status VARCHAR(50),
+
+    -- Gateway Information
+    gateway_event_id VARCHAR(255),
+    gateway_signature VARCHAR(500),
+
+    -- Processing Information
+    processed BOOLEAN DEFAULT false,
+    processing_attempts INTEGER DEFAULT 0,
+    processing_error TEXT,
+
+    -- Audit
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+    processed_at TIMESTAMP WITH TIME ZONE,
+
+    -- The partition key has to be part of the primary key
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Monthly partition named payment_events_YYYY_MM, created if missing
+CREATE OR REPLACE FUNCTION create_payment_events_partition(month_start DATE)
+RETURNS TEXT AS $$
+DECLARE
+    partition_name TEXT := 'payment_events_' || to_char(month_start, 'YYYY_MM');
+BEGIN
+    EXECUTE format(
+        'CREATE TABLE IF NOT EXISTS %I PARTITION OF payment_events FOR VALUES FROM (%L) TO (%L)',
+        partition_name,
+        date_trunc('month', month_start)::date,
+        (date_trunc('month', month_start) + INTERVAL '1 month')::date);
+    RETURN partition_name;
+END;
+$$ language 'plpgsql';
+
+-- Partitions for existing events through three months ahead
+DO $$
+DECLARE
+    month_start DATE;
+BEGIN
+    FOR month_start IN
+        SELECT generate_series(
+            date_trunc('month', COALESCE((SELECT MIN(created_at) FROM payment_events_legacy), NOW())),
+            date_trunc('month', NOW()) + INTERVAL '3 months',
+            INTERVAL '1 month')::date
+    LOOP
+        PERFORM create_payment_events_partition(month_start);
+    END LOOP;
+END $$;
+
+INSERT INTO payment_events SELECT * FROM payment_events_legacy;
+DROP TABLE payment_events_legacy;
+
+-- Partitioned indexes, created on every partition
+CREATE INDEX idx_payment_events_transaction_id ON payment_events(transaction_id);
+CREATE INDEX idx_payment_events_subscription_id ON payment_events(subscription_id);
+CREATE INDEX idx_payment_events_created_at ON payment_events(created_at);
+CREATE INDEX idx_payment_events_processed ON payment_events(processed) WHERE processed = false;
+
+COMMENT ON TABLE payment_events IS 'Audit trail of all payment-related events, partitioned by month';
@@ -0,0 +1,39 @@
+-- TradeMaster Payment Service - Materialized Payment Event Statistics
+-- Per-minute and per-hour totals by event type, source and status, kept up
+-- to date in the same transaction as each audit event insert
+
+CREATE TABLE payment_event_rollups (
+    granularity VARCHAR(10) NOT NULL, -- MINUTE, HOUR
+    bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    event_type VARCHAR(100) NOT NULL,
+    event_source VARCHAR(50) NOT NULL,
+    status VARCHAR(50) NOT NULL DEFAULT '', -- new_status of the event, '' when it has none
+
+    -- Totals
+    event_count BIGINT NOT NULL DEFAULT 0,
+    amount_total NUMERIC NOT NULL DEFAULT 0,
+    processed_count BIGINT NOT NULL DEFAULT 0,
+    failed_count BIGINT NOT NULL DEFAULT 0,
+    processing_seconds DOUBLE PRECISION NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (granularity, bucket_start, event_type, event_source, status)
+);
+
+-- Backfill from the events already stored
+INSERT INTO payment_event_rollups (granularity, bucket_start, event_type, event_source, status,
+    event_count, amount_total, processed_count, failed_count, processing_seconds)
+SELECT buckets.granularity,
+       date_trunc(lower(buckets.granularity), pe.created_at),
+       pe.event_type,
+       pe.event_source,
+       COALESCE(pe.new_status, ''),
+       COUNT(*),
+       COALESCE(SUM(COALESCE((pe.event_data->>'amount')::numeric, (pe.event_data->>'refundAmount')::numeric)), 0),
+       COUNT(*) FILTER (WHERE pe.processed),
+       COUNT(*) FILTER (WHERE pe.processing_attempts >= 3),
+       COALESCE(SUM(EXTRACT(EPOCH FROM (pe.processed_at - pe.created_at))), 0)
+FROM payment_events pe
+CROSS JOIN (VALUES ('MINUTE'), ('HOUR')) AS buckets(granularity)
+GROUP BY 1, 2, 3, 4, 5;
+
+COMMENT ON TABLE payment_event_rollups IS 'Per-minute and per-hour payment event totals for statistics queries';
@@ -0,0 +1,205 @@
+package com.trademaster.payment.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trademaster.payment.entity.PaymentEvent;
+import com.trademaster.payment.repository.AuditEventBatchRepository;
+import com.trademaster.payment.repository.PaymentEventRepository;
+import com.trademaster.payment.repository.PaymentEventRollupRepository;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Audit Partition Maintenance Test
+ *
+ * Runs the Flyway migrations against PostgreSQL with audit events already
+ * stored before V3, and checks that V3 moves them into their monthly
+ * partitions, that create_payment_events_partition is idempotent and routes
+ * inserts, that AuditService creates the partitions ahead, and that
+ * cleanupOldEvents drops exactly the months that ended before the retention
+ * window together with their events.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class AuditPartitionMaintenanceTest {
+
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final YearMonth CURRENT_MONTH = YearMonth.now(ZoneOffset.UTC);
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+
+    // Events stored before V3, and the partition each one was moved to
+    private static final Map<UUID, YearMonth> LEGACY_EVENTS = new HashMap<>();
+    private static final Map<UUID, String> LEGACY_PARTITIONS = new HashMap<>();
+
+    private AuditEventBatchRepository batchRepository;
+    private AuditService auditService;
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure()
+            .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+            .locations("classpath:db/migration")
+            .target("2")
+            .load()
+            .migrate();
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(POSTGRES.getJdbcUrl());
+        config.setUsername(POSTGRES.getUsername());
+        config.setPassword(POSTGRES.getPassword());
+        config.setMaximumPoolSize(2);
+        dataSource = new HikariDataSource(config);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        for (YearMonth month : List.of(CURRENT_MONTH.minusMonths(14), CURRENT_MONTH.minusMonths(2))) {
+            UUID id = UUID.randomUUID();
+            jdbcTemplate.update("""
+                INSERT INTO payment_events (id, event_type, event_source, event_data, created_at)
+                VALUES (?, 'payment.completed', 'API', '{}', ?)
+                """, id, Timestamp.from(month.atDay(15).atStartOfDay().toInstant(ZoneOffset.UTC)));
+            LEGACY_EVENTS.put(id, month);
+        }
+
+        Flyway.configure()
+            .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+            .locations("classpath:db/migration")
+            .load()
+            .migrate();
+
+        // Captured before any test drops a partition
+        LEGACY_EVENTS.keySet().forEach(id -> LEGACY_PARTITIONS.put(id, partitionOf(id)));
+    }
+
+    @AfterAll
+    static void closeDataSource() {
+        dataSource.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        batchRepository = new AuditEventBatchRepository(jdbcTemplate, new ObjectMapper().findAndRegisterModules(),
+                                                        new PaymentEventRollupRepository(jdbcTemplate));
+        auditService = new AuditService(mock(PaymentEventRepository.class), mock(AuditEventWriter.class),
+                                        batchRepository, new PaymentEventRollupRepository(jdbcTemplate));
+    }
+
+    @Test
+    void migrationMovesLegacyEventsIntoTheirMonthlyPartitions() {
+        LEGACY_EVENTS.forEach((id, month) ->
+            assertThat(LEGACY_PARTITIONS.get(id)).isEqualTo(partitionName(month)));
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('payment_events_legacy')::text", String.class))
+            .isNull();
+
+        // One partition per month from the oldest event through three months ahead
+        assertThat(batchRepository.findPartitionMonths())
+            .contains(CURRENT_MONTH.minusMonths(14).atDay(1), CURRENT_MONTH.plusMonths(3).atDay(1));
+    }
+
+    @Test
+    void createPartitionIsIdempotentAndRoutesInserts() {
+        YearMonth month = CURRENT_MONTH.plusMonths(24);
+        PaymentEvent event = event(month.atDay(10).atTime(12, 0).toInstant(ZoneOffset.UTC));
+
+        // No partition holds the month yet
+        assertThatThrownBy(() -> batchRepository.insertAll(List.of(event))).isInstanceOf(DataAccessException.class);
+
+        assertThat(batchRepository.createPartition(month.atDay(17))).isEqualTo(partitionName(month));
+        assertThat(batchRepository.createPartition(month.atDay(1))).isEqualTo(partitionName(month));
+
+        assertThat(batchRepository.insertAll(List.of(event))).isEqualTo(1);
+        assertThat(partitionOf(event.getId())).isEqualTo(partitionName(month));
+    }
+
+    @Test
+    void upcomingPartitionsAreCreatedAhead() {
+        ReflectionTestUtils.setField(auditService, "partitionsAhead", 6);
+
+        auditService.createUpcomingPartitions();
+
+        assertThat(batchRepository.findPartitionMonths())
+            .contains(CURRENT_MONTH.atDay(1), CURRENT_MONTH.plusMonths(5).atDay(1), CURRENT_MONTH.plusMonths(6).atDay(1));
+    }
+
+    @Test
+    void cleanupDropsOnlyMonthsThatEndedBeforeTheRetentionWindow() {
+        LocalDate cutoff = Instant.now().minus(Duration.ofDays(90)).atZone(ZoneOffset.UTC).toLocalDate();
+        YearMonth firstKept = YearMonth.from(cutoff);
+        UUID recent = UUID.randomUUID();
+        PaymentEvent recentEvent = event(firstKept.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC));
+        recentEvent.setId(recent);
+        batchRepository.insertAll(List.of(recentEvent));
+
+        List<LocalDate> before = batchRepository.findPartitionMonths();
+        long expired = before.stream().filter(month -> month.isBefore(firstKept.atDay(1))).count();
+
+        assertThat(auditService.cleanupOldEvents(90)).isEqualTo((int) expired);
+
+        List<LocalDate> after = batchRepository.findPartitionMonths();
+        assertThat(after).allSatisfy(month -> assertThat(month).isAfterOrEqualTo(firstKept.atDay(1)));
+        assertThat(after).hasSize(before.size() - (int) expired);
+
+        // The fourteen month old event went with its partition; the newer ones are kept
+        LEGACY_EVENTS.forEach((id, month) -> assertThat(exists(id)).isEqualTo(!month.isBefore(firstKept)));
+        assertThat(exists(recent)).isTrue();
+
+        // A second run has nothing left to drop
+        assertThat(auditService.cleanupOldEvents(90)).isZero();
+    }
+
+    private static PaymentEvent event(Instant createdAt) {
+        PaymentEvent event = PaymentEvent.builder()
+            .eventType("payment.completed")
+            .eventSource(PaymentEvent.EventSources.API)
+            .eventData(Map.of())
+            .build();
+        event.setId(UUID.randomUUID());
+        event.setCreatedAt(createdAt);
+        return event;
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "payment_events_" + PARTITION_MONTH.format(month);
+    }
+
+    private static String partitionOf(UUID id) {
+        return jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM payment_events WHERE id = ?",
+                                           String.class, id);
+    }
+
+    private static boolean exists(UUID id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payment_events WHERE id = ?", Long.class, id) > 0;
+    }
+}
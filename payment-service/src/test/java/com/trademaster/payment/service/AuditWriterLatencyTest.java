@@ -0,0 +1,262 @@
+package com.trademaster.payment.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trademaster.payment.dto.PaymentRequest;
+import com.trademaster.payment.dto.PaymentResponse;
+import com.trademaster.payment.entity.PaymentEvent;
+import com.trademaster.payment.entity.PaymentTransaction;
+import com.trademaster.payment.enums.PaymentGateway;
+import com.trademaster.payment.enums.PaymentMethod;
+import com.trademaster.payment.repository.AuditEventBatchRepository;
+import com.trademaster.payment.repository.PaymentEventRepository;
+import com.trademaster.payment.repository.PaymentEventRollupRepository;
+import com.trademaster.payment.repository.PaymentTransactionRepository;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Audit Writer Latency Test
+ *
+ * Measures the latency PaymentService.processPayment sees from its two audit
+ * events, against PostgreSQL migrated with the real Flyway scripts, so every
+ * insert goes into the monthly partition and adds to the rollups with the
+ * production upsert. Before: each audit event is a single-row insert
+ * committed on the caller's thread, as the per-method @Transactional save
+ * did. After: events are queued to AuditEventWriter and written in batches.
+ * Gateways and the transaction repository are mocks, so the difference is
+ * the audit cost. Also covers the spill file when the buffer is full.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class AuditWriterLatencyTest {
+
+    private static final int WARMUP_PAYMENTS = 5_000;
+    private static final int MEASURED_PAYMENTS = 20_000;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private AuditEventBatchRepository batchRepository;
+    private AuditEventWriter writer;
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure()
+            .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+            .locations("classpath:db/migration")
+            .load()
+            .migrate();
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(POSTGRES.getJdbcUrl());
+        config.setUsername(POSTGRES.getUsername());
+        config.setPassword(POSTGRES.getPassword());
+        config.setMaximumPoolSize(4);
+        dataSource = new HikariDataSource(config);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // Transactions are mocks, so the audit rows reference ids that are never stored
+        dropForeignKeys(jdbcTemplate);
+    }
+
+    @AfterAll
+    static void closeDataSource() {
+        dataSource.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE payment_events, payment_event_rollups");
+        batchRepository = new AuditEventBatchRepository(jdbcTemplate, objectMapper,
+                                                        new PaymentEventRollupRepository(jdbcTemplate));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void batchedWriterCutsProcessPaymentTailLatency() throws Exception {
+        // Before: one committed single-row insert per audit event, on the caller's thread
+        TransactionTemplate perEventTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        AuditEventWriter synchronousWriter = new AuditEventWriter(batchRepository, objectMapper, 1, 1, 50,
+                                                                  directory.resolve("unused.jsonl").toString()) {
+            @Override
+            public void write(PaymentEvent event) {
+                event.setId(UUID.randomUUID());
+                event.setCreatedAt(Instant.now());
+                perEventTransaction.executeWithoutResult(status -> batchRepository.insertAll(List.of(event)));
+            }
+        };
+        long[] before = measure(paymentService(synchronousWriter));
+        assertThat(auditRows()).isEqualTo(2L * (WARMUP_PAYMENTS + MEASURED_PAYMENTS));
+
+        jdbcTemplate.execute("TRUNCATE payment_events, payment_event_rollups");
+
+        // After: queued to the batched writer
+        writer = new AuditEventWriter(batchRepository, objectMapper, 65_536, 500, 50,
+                                      directory.resolve("audit-spill.jsonl").toString());
+        writer.start();
+        long[] after = measure(paymentService(writer));
+        awaitDrained();
+        assertThat(auditRows()).isEqualTo(2L * (WARMUP_PAYMENTS + MEASURED_PAYMENTS));
+        assertThat(writer.spilledCount()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT SUM(event_count) FROM payment_event_rollups WHERE granularity = 'HOUR'", Long.class))
+            .isEqualTo(2L * (WARMUP_PAYMENTS + MEASURED_PAYMENTS));
+
+        System.out.printf("processPayment latency (us) before: p50 %.1f p99 %.1f p99.9 %.1f%n",
+                          percentile(before, 50), percentile(before, 99), percentile(before, 99.9));
+        System.out.printf("processPayment latency (us) after:  p50 %.1f p99 %.1f p99.9 %.1f%n",
+                          percentile(after, 50), percentile(after, 99), percentile(after, 99.9));
+        // The tail is reported rather than asserted: it is dominated by GC and scheduling noise on small runners
+        assertThat(percentile(after, 50)).isLessThan(percentile(before, 50));
+    }
+
+    @Test
+    void overflowSpillsToDiskAndIsReplayedOnce() throws Exception {
+        Path spillFile = directory.resolve("audit-spill.jsonl");
+        // Writer thread not started: the buffer fills up after four events
+        AuditEventWriter stalled = new AuditEventWriter(batchRepository, objectMapper, 4, 500, 50, spillFile.toString());
+        UUID transactionId = UUID.randomUUID();
+        List<PaymentEvent> events = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            PaymentEvent event = PaymentEvent.builder()
+                .transaction(PaymentTransaction.builder().id(transactionId).build())
+                .eventType("payment.initiated")
+                .eventSource(PaymentEvent.EventSources.API)
+                .eventData(Map.of("sequence", i, "amount", new BigDecimal("499.00")))
+                .build();
+            events.add(event);
+            stalled.write(event);
+        }
+        assertThat(stalled.pending()).isEqualTo(4);
+        assertThat(stalled.spilledCount()).isEqualTo(6);
+        assertThat(Files.readAllLines(spillFile)).hasSize(6);
+
+        assertThat(stalled.replaySpilled()).isEqualTo(6);
+        assertThat(Files.exists(spillFile)).isFalse();
+        assertThat(auditRows()).isEqualTo(6);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM payment_events WHERE transaction_id = ?", Long.class, transactionId)).isEqualTo(6);
+
+        // A batch written twice, as after a replay that failed part way, is stored once
+        assertThat(batchRepository.insertAll(events.subList(4, 10))).isZero();
+        assertThat(auditRows()).isEqualTo(6);
+    }
+
+    private long[] measure(PaymentService paymentService) {
+        for (int i = 0; i < WARMUP_PAYMENTS; i++) {
+            assertThat(paymentService.processPayment(request()).isSuccessful()).isTrue();
+        }
+        long[] micros = new long[MEASURED_PAYMENTS];
+        for (int i = 0; i < MEASURED_PAYMENTS; i++) {
+            PaymentRequest request = request();
+            long start = System.nanoTime();
+            paymentService.processPayment(request);
+            micros[i] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(micros);
+        return micros;
+    }
+
+    /**
+     * Drop the payment_events foreign keys, whatever name V3 gave them while
+     * the legacy table still held the default ones
+     */
+    static void dropForeignKeys(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.queryForList("""
+            SELECT conname FROM pg_constraint
+            WHERE conrelid = 'payment_events'::regclass AND contype = 'f'
+            """, String.class)
+            .forEach(name -> jdbcTemplate.execute("ALTER TABLE payment_events DROP CONSTRAINT \"" + name + "\""));
+    }
+
+    private PaymentService paymentService(AuditEventWriter auditEventWriter) {
+        PaymentTransactionRepository paymentRepository = mock(PaymentTransactionRepository.class);
+        when(paymentRepository.save(any(PaymentTransaction.class))).thenAnswer(invocation -> {
+            PaymentTransaction transaction = invocation.getArgument(0);
+            if (transaction.getId() == null) {
+                transaction.setId(UUID.randomUUID());
+            }
+            return transaction;
+        });
+        RazorpayService razorpayService = mock(RazorpayService.class);
+        when(razorpayService.processPayment(any(), any())).thenAnswer(invocation -> {
+            PaymentTransaction transaction = invocation.getArgument(1);
+            return PaymentResponse.success(transaction.getId(), transaction.getAmount(), transaction.getCurrency());
+        });
+        AuditService auditService = new AuditService(mock(PaymentEventRepository.class), auditEventWriter,
+                                                     batchRepository, new PaymentEventRollupRepository(jdbcTemplate));
+        return new PaymentService(paymentRepository, razorpayService, mock(StripeService.class),
+                                  mock(SubscriptionService.class), mock(PaymentMetricsService.class),
+                                  mock(StructuredLoggingService.class), event -> { }, auditService);
+    }
+
+    private static PaymentRequest request() {
+        return PaymentRequest.builder()
+            .userId(UUID.randomUUID())
+            .amount(new BigDecimal("499.00"))
+            .paymentGateway(PaymentGateway.RAZORPAY)
+            .paymentMethod(PaymentMethod.CARD)
+            .build();
+    }
+
+    private void awaitDrained() throws InterruptedException {
+        long expected = 2L * (WARMUP_PAYMENTS + MEASURED_PAYMENTS);
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (writer.writtenCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private long auditRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payment_events", Long.class);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
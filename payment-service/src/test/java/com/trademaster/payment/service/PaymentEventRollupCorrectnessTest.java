@@ -0,0 +1,252 @@
+package com.trademaster.payment.service;
+
+import com.trademaster.payment.entity.PaymentEvent;
+import com.trademaster.payment.enums.RollupGranularity;
+import com.trademaster.payment.repository.AuditEventBatchRepository;
+import com.trademaster.payment.repository.PaymentEventRepository;
+import com.trademaster.payment.repository.PaymentEventRollup;
+import com.trademaster.payment.repository.PaymentEventRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Payment Event Rollup Correctness Test
+ *
+ * Generates a million audit events over three days, adds them to the
+ * rollups in shuffled batches as the audit writer does, and checks the
+ * statistics AuditService serves from the rollups against a full
+ * recomputation over the raw events, for ranges that fall inside one hour,
+ * span hour boundaries, and cover the whole dataset. The rollup table is an
+ * in-memory map with the upsert's add-on-conflict semantics; the real upsert
+ * SQL and the V4 backfill are covered by PaymentEventRollupPostgresTest.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+class PaymentEventRollupCorrectnessTest {
+
+    private static final int EVENTS = 1_000_000;
+    private static final int BATCH_SIZE = 500;
+    private static final Instant START = Instant.parse("2026-03-01T00:00:00Z");
+    private static final long SPAN_MILLIS = Duration.ofDays(3).toMillis();
+
+    private static final String[] TYPES = {
+        "payment.initiated", "payment.completed", "payment.failed", "refund.processed", "refund.failed",
+        "subscription.created", "subscription.renewed", "security.violation"
+    };
+    private static final String[] SOURCES = {
+        PaymentEvent.EventSources.API, PaymentEvent.EventSources.WEBHOOK, PaymentEvent.EventSources.INTERNAL,
+        PaymentEvent.EventSources.SCHEDULED, PaymentEvent.EventSources.ADMIN
+    };
+    private static final String[] STATUSES = {null, "PENDING", "COMPLETED", "FAILED", "REFUNDED"};
+
+    // Raw events, column-wise
+    private final long[] createdAt = new long[EVENTS];
+    private final byte[] type = new byte[EVENTS];
+    private final byte[] source = new byte[EVENTS];
+    private final byte[] status = new byte[EVENTS];
+    private final long[] amountPaise = new long[EVENTS];
+    private final boolean[] refund = new boolean[EVENTS];
+    private final boolean[] processed = new boolean[EVENTS];
+    private final long[] processingMillis = new long[EVENTS];
+    private final byte[] attempts = new byte[EVENTS];
+
+    private final Map<PaymentEventRollup.Key, PaymentEventRollup> rollupTable = new HashMap<>();
+    private AuditService auditService;
+
+    @BeforeEach
+    void setUp() {
+        PaymentEventRollupRepository rollupRepository = mock(PaymentEventRollupRepository.class);
+        doAnswer(invocation -> {
+            List<PaymentEventRollup> increments = invocation.getArgument(0);
+            increments.forEach(rollup -> rollupTable.merge(rollup.key(), rollup, PaymentEventRollup::plus));
+            return null;
+        }).when(rollupRepository).add(any());
+        when(rollupRepository.findBuckets(any(), any(), any())).thenAnswer(invocation -> {
+            RollupGranularity granularity = invocation.getArgument(0);
+            Instant from = invocation.getArgument(1);
+            Instant to = invocation.getArgument(2);
+            return rollupTable.values().stream()
+                .filter(rollup -> rollup.granularity() == granularity)
+                .filter(rollup -> !rollup.bucketStart().isBefore(from) && rollup.bucketStart().isBefore(to))
+                .toList();
+        });
+        auditService = new AuditService(mock(PaymentEventRepository.class), mock(AuditEventWriter.class),
+                                         mock(AuditEventBatchRepository.class), rollupRepository);
+
+        generate(new SplittableRandom(7));
+        List<PaymentEvent> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i : shuffledOrder(new SplittableRandom(11))) {
+            batch.add(event(i));
+            if (batch.size() == BATCH_SIZE) {
+                rollupRepository.add(PaymentEventRollup.of(batch));
+                batch.clear();
+            }
+        }
+        rollupRepository.add(PaymentEventRollup.of(batch));
+    }
+
+    @Test
+    void rollupsMatchFullRecomputation() {
+        List<Instant[]> ranges = new ArrayList<>();
+        // Whole dataset, one exact hour, one exact minute
+        ranges.add(range(START, START.plusMillis(SPAN_MILLIS)));
+        ranges.add(range(Instant.parse("2026-03-02T10:00:00Z"), Instant.parse("2026-03-02T11:00:00Z")));
+        ranges.add(range(Instant.parse("2026-03-02T10:15:00Z"), Instant.parse("2026-03-02T10:16:00Z")));
+        // Inside one hour, across one hour boundary, across many, and open-ended "since" style
+        ranges.add(range(Instant.parse("2026-03-01T05:07:31.250Z"), Instant.parse("2026-03-01T05:48:02Z")));
+        ranges.add(range(Instant.parse("2026-03-01T05:59:59.999Z"), Instant.parse("2026-03-01T06:00:00.001Z")));
+        ranges.add(range(Instant.parse("2026-03-01T07:42:10Z"), Instant.parse("2026-03-03T16:03:59.500Z")));
+        ranges.add(range(Instant.parse("2026-03-03T20:30:00Z"), Instant.parse("2026-03-05T00:00:00Z")));
+        SplittableRandom random = new SplittableRandom(13);
+        for (int i = 0; i < 20; i++) {
+            long from = random.nextLong(SPAN_MILLIS);
+            ranges.add(range(START.plusMillis(from), START.plusMillis(from + random.nextLong(SPAN_MILLIS - from + 1))));
+        }
+
+        for (Instant[] range : ranges) {
+            assertMatchesRecomputation(range[0], range[1]);
+        }
+    }
+
+    private void assertMatchesRecomputation(Instant from, Instant to) {
+        // Rollups resolve ranges to whole minutes
+        long start = RollupGranularity.MINUTE.bucketOf(from).toEpochMilli();
+        long end = RollupGranularity.MINUTE.nextBucketFrom(to).toEpochMilli();
+
+        Map<List<String>, long[]> expected = new HashMap<>();
+        Map<String, Long> expectedByType = new TreeMap<>();
+        Map<String, Long> expectedBySource = new TreeMap<>();
+        long expectedProcessed = 0;
+        long expectedFailed = 0;
+        long expectedProcessingMillis = 0;
+        long expectedCount = 0;
+        for (int i = 0; i < EVENTS; i++) {
+            if (createdAt[i] < start || createdAt[i] >= end) {
+                continue;
+            }
+            long[] totals = expected.computeIfAbsent(
+                List.of(TYPES[type[i]], SOURCES[source[i]], statusOf(i)), key -> new long[2]);
+            totals[0]++;
+            totals[1] += amountPaise[i];
+            expectedByType.merge(TYPES[type[i]], 1L, Long::sum);
+            expectedBySource.merge(SOURCES[source[i]], 1L, Long::sum);
+            expectedCount++;
+            if (processed[i]) {
+                expectedProcessed++;
+                expectedProcessingMillis += processingMillis[i];
+            }
+            if (attempts[i] >= 3) {
+                expectedFailed++;
+            }
+        }
+
+        Map<List<String>, long[]> actual = new HashMap<>();
+        for (PaymentEventRollup totals : auditService.getEventTotals(from, to)) {
+            long[] previous = actual.put(List.of(totals.eventType(), totals.eventSource(), totals.status()),
+                new long[] {totals.eventCount(), totals.amountTotal().movePointRight(2).longValueExact()});
+            assertThat(previous).as("one row per type, source and status").isNull();
+        }
+        assertThat(actual).as("totals for [%s, %s)", from, to).containsOnlyKeys(expected.keySet());
+        expected.forEach((key, totals) -> assertThat(actual.get(key)).as("%s in [%s, %s)", key, from, to)
+            .containsExactly(totals));
+
+        assertThat(asMap(auditService.getEventCountByType(from, to))).isEqualTo(expectedByType);
+        assertThat(asMap(auditService.getEventCountBySource(from, to))).isEqualTo(expectedBySource);
+
+        Map<String, Object> statistics = auditService.getProcessingStatistics(from, to);
+        assertThat(statistics.get("processedCount")).isEqualTo(expectedProcessed);
+        assertThat(statistics.get("pendingCount")).isEqualTo(expectedCount - expectedProcessed);
+        assertThat(statistics.get("failedCount")).isEqualTo(expectedFailed);
+        double expectedAverage = expectedProcessed > 0 ? expectedProcessingMillis / 1000.0 / expectedProcessed : 0.0;
+        assertThat((double) statistics.get("avgProcessingTime")).isCloseTo(expectedAverage, within(1e-6));
+    }
+
+    // ========== Dataset ==========
+
+    private void generate(SplittableRandom random) {
+        for (int i = 0; i < EVENTS; i++) {
+            // Denser during the day, like real payment traffic
+            long millis = random.nextLong(SPAN_MILLIS);
+            if (random.nextInt(3) == 0) {
+                long day = millis / Duration.ofDays(1).toMillis();
+                millis = day * Duration.ofDays(1).toMillis() + Duration.ofHours(9).toMillis()
+                    + random.nextLong(Duration.ofHours(8).toMillis());
+            }
+            createdAt[i] = START.toEpochMilli() + millis;
+            type[i] = (byte) random.nextInt(TYPES.length);
+            source[i] = (byte) random.nextInt(SOURCES.length);
+            status[i] = (byte) random.nextInt(STATUSES.length);
+            refund[i] = TYPES[type[i]].startsWith("refund");
+            // Security events carry no amount
+            amountPaise[i] = TYPES[type[i]].startsWith("security") ? 0 : 100 + random.nextLong(5_000_000);
+            processed[i] = random.nextInt(4) != 0;
+            processingMillis[i] = processed[i] ? random.nextLong(120_000) : 0;
+            attempts[i] = (byte) random.nextInt(5);
+        }
+    }
+
+    private int[] shuffledOrder(SplittableRandom random) {
+        int[] order = new int[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            order[i] = i;
+        }
+        for (int i = EVENTS - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+
+    private PaymentEvent event(int i) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("currency", "INR");
+        if (amountPaise[i] > 0) {
+            data.put(refund[i] ? "refundAmount" : "amount", BigDecimal.valueOf(amountPaise[i], 2));
+        }
+        Instant created = Instant.ofEpochMilli(createdAt[i]);
+        return PaymentEvent.builder()
+            .eventType(TYPES[type[i]])
+            .eventSource(SOURCES[source[i]])
+            .newStatus(STATUSES[status[i]])
+            .eventData(data)
+            .processed(processed[i])
+            .processedAt(processed[i] ? created.plusMillis(processingMillis[i]) : null)
+            .processingAttempts((int) attempts[i])
+            .createdAt(created)
+            .build();
+    }
+
+    private String statusOf(int i) {
+        return STATUSES[status[i]] != null ? STATUSES[status[i]] : "";
+    }
+
+    private static Instant[] range(Instant from, Instant to) {
+        return new Instant[] {from, to};
+    }
+
+    private static Map<String, Long> asMap(List<Object[]> rows) {
+        Map<String, Long> map = new TreeMap<>();
+        rows.forEach(row -> map.put((String) row[0], (Long) row[1]));
+        return map;
+    }
+}
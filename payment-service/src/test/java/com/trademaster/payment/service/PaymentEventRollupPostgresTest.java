@@ -0,0 +1,258 @@
+package com.trademaster.payment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trademaster.payment.entity.PaymentEvent;
+import com.trademaster.payment.enums.RollupGranularity;
+import com.trademaster.payment.repository.AuditEventBatchRepository;
+import com.trademaster.payment.repository.PaymentEventRepository;
+import com.trademaster.payment.repository.PaymentEventRollup;
+import com.trademaster.payment.repository.PaymentEventRollupRepository;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Payment Event Rollup PostgreSQL Test
+ *
+ * Runs the real rollup SQL against PostgreSQL. Half of the events are stored
+ * before V4 and reach the rollups through its backfill; the other half are
+ * inserted afterwards by the audit batch repository from several threads,
+ * so their increments go through the ON CONFLICT upsert into buckets the
+ * backfill already created. The statistics AuditService serves are then
+ * checked against a recomputation over the generated events.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PaymentEventRollupPostgresTest {
+
+    private static final int EVENTS = 100_000;
+    private static final int BATCH_SIZE = 500;
+    private static final int WRITERS = 4;
+    private static final Instant START = Instant.parse("2026-03-01T00:00:00Z");
+    private static final long SPAN_MILLIS = Duration.ofDays(3).toMillis();
+
+    private static final String[] TYPES = {
+        "payment.initiated", "payment.completed", "payment.failed", "refund.processed", "security.violation"
+    };
+    private static final String[] SOURCES = {
+        PaymentEvent.EventSources.API, PaymentEvent.EventSources.WEBHOOK, PaymentEvent.EventSources.INTERNAL
+    };
+    private static final String[] STATUSES = {null, "PENDING", "COMPLETED", "FAILED"};
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules();
+    private static final List<PaymentEvent> GENERATED = new ArrayList<>(EVENTS);
+
+    private static HikariDataSource dataSource;
+    private static AuditService auditService;
+
+    @BeforeAll
+    static void loadEvents() throws Exception {
+        flyway("3").migrate();
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(POSTGRES.getJdbcUrl());
+        config.setUsername(POSTGRES.getUsername());
+        config.setPassword(POSTGRES.getPassword());
+        config.setMaximumPoolSize(WRITERS);
+        dataSource = new HikariDataSource(config);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < EVENTS; i++) {
+            GENERATED.add(event(random));
+        }
+        List<PaymentEvent> shuffled = new ArrayList<>(GENERATED);
+        Collections.shuffle(shuffled, new Random(11));
+        List<PaymentEvent> backfilled = shuffled.subList(0, EVENTS / 2);
+        List<PaymentEvent> upserted = shuffled.subList(EVENTS / 2, EVENTS);
+
+        // Before V4: events stored with their processing outcome, as the trail holds them
+        AuditEventBatchRepository rawRepository = new AuditEventBatchRepository(jdbcTemplate, OBJECT_MAPPER,
+            mock(PaymentEventRollupRepository.class));
+        // The events fall in one month, older than the partitions V3 created
+        rawRepository.createPartition(LocalDate.ofInstant(START, ZoneOffset.UTC));
+        jdbcTemplate.batchUpdate("""
+            INSERT INTO payment_events (id, event_type, event_source, event_data, new_status, processed,
+                processing_attempts, created_at, processed_at)
+            VALUES (?, ?, ?, CAST(? AS jsonb), ?, ?, ?, ?, ?)
+            """, backfilled, BATCH_SIZE, (ps, event) -> {
+                ps.setObject(1, event.getId());
+                ps.setString(2, event.getEventType());
+                ps.setString(3, event.getEventSource());
+                ps.setString(4, json(event.getEventData()));
+                ps.setString(5, event.getNewStatus());
+                ps.setBoolean(6, event.getProcessed());
+                ps.setInt(7, event.getProcessingAttempts());
+                ps.setTimestamp(8, Timestamp.from(event.getCreatedAt()));
+                ps.setTimestamp(9, event.getProcessedAt() != null ? Timestamp.from(event.getProcessedAt()) : null);
+            });
+
+        flyway(null).migrate();
+
+        // After V4: the audit writer path, concurrent batches adding to the backfilled buckets
+        PaymentEventRollupRepository rollupRepository = new PaymentEventRollupRepository(jdbcTemplate);
+        AuditEventBatchRepository batchRepository = new AuditEventBatchRepository(jdbcTemplate, OBJECT_MAPPER,
+                                                                                  rollupRepository);
+        ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<Integer>> inserted = new ArrayList<>();
+            for (int from = 0; from < upserted.size(); from += BATCH_SIZE) {
+                List<PaymentEvent> batch = upserted.subList(from, Math.min(from + BATCH_SIZE, upserted.size()));
+                inserted.add(writers.submit(() -> batchRepository.insertAll(batch)));
+            }
+            for (Future<Integer> batch : inserted) {
+                batch.get();
+            }
+        } finally {
+            writers.shutdown();
+        }
+
+        auditService = new AuditService(mock(PaymentEventRepository.class), mock(AuditEventWriter.class),
+                                        batchRepository, rollupRepository);
+    }
+
+    @AfterAll
+    static void closeDataSource() {
+        dataSource.close();
+    }
+
+    @Test
+    void backfillAndUpsertMatchFullRecomputation() {
+        List<Instant[]> ranges = new ArrayList<>();
+        ranges.add(new Instant[] {START, START.plusMillis(SPAN_MILLIS)});
+        ranges.add(new Instant[] {Instant.parse("2026-03-02T10:00:00Z"), Instant.parse("2026-03-02T11:00:00Z")});
+        ranges.add(new Instant[] {Instant.parse("2026-03-02T10:15:00Z"), Instant.parse("2026-03-02T10:16:00Z")});
+        ranges.add(new Instant[] {Instant.parse("2026-03-01T05:07:31.250Z"), Instant.parse("2026-03-01T05:48:02Z")});
+        ranges.add(new Instant[] {Instant.parse("2026-03-01T07:42:10Z"), Instant.parse("2026-03-03T16:03:59.500Z")});
+        SplittableRandom random = new SplittableRandom(13);
+        for (int i = 0; i < 10; i++) {
+            long from = random.nextLong(SPAN_MILLIS);
+            ranges.add(new Instant[] {
+                START.plusMillis(from), START.plusMillis(from + random.nextLong(SPAN_MILLIS - from + 1))});
+        }
+
+        for (Instant[] range : ranges) {
+            assertMatchesRecomputation(range[0], range[1]);
+        }
+    }
+
+    private void assertMatchesRecomputation(Instant from, Instant to) {
+        // Rollups resolve ranges to whole minutes
+        Instant start = RollupGranularity.MINUTE.bucketOf(from);
+        Instant end = RollupGranularity.MINUTE.nextBucketFrom(to);
+
+        Map<List<String>, PaymentEventRollup> expected = new HashMap<>();
+        Map<String, Long> expectedByType = new TreeMap<>();
+        long expectedProcessed = 0;
+        long expectedFailed = 0;
+        for (PaymentEvent event : GENERATED) {
+            if (event.getCreatedAt().isBefore(start) || !event.getCreatedAt().isBefore(end)) {
+                continue;
+            }
+            PaymentEventRollup increment = PaymentEventRollup.of(List.of(event)).get(0);
+            expected.merge(List.of(increment.eventType(), increment.eventSource(), increment.status()),
+                           increment, PaymentEventRollup::plus);
+            expectedByType.merge(event.getEventType(), 1L, Long::sum);
+            expectedProcessed += increment.processedCount();
+            expectedFailed += increment.failedCount();
+        }
+
+        Map<List<String>, PaymentEventRollup> actual = new HashMap<>();
+        auditService.getEventTotals(from, to).forEach(totals ->
+            actual.put(List.of(totals.eventType(), totals.eventSource(), totals.status()), totals));
+        assertThat(actual).as("totals for [%s, %s)", from, to).containsOnlyKeys(expected.keySet());
+        expected.forEach((key, totals) -> {
+            PaymentEventRollup stored = actual.get(key);
+            assertThat(stored.eventCount()).as("%s count in [%s, %s)", key, from, to).isEqualTo(totals.eventCount());
+            assertThat(stored.amountTotal()).as("%s amount in [%s, %s)", key, from, to)
+                .isEqualByComparingTo(totals.amountTotal());
+            assertThat(stored.processedCount()).isEqualTo(totals.processedCount());
+            assertThat(stored.failedCount()).isEqualTo(totals.failedCount());
+            assertThat(stored.processingSeconds()).isCloseTo(totals.processingSeconds(), within(1e-3));
+        });
+
+        Map<String, Long> byType = new TreeMap<>();
+        auditService.getEventCountByType(from, to).forEach(row -> byType.put((String) row[0], (Long) row[1]));
+        assertThat(byType).isEqualTo(expectedByType);
+
+        Map<String, Object> statistics = auditService.getProcessingStatistics(from, to);
+        assertThat(statistics.get("processedCount")).isEqualTo(expectedProcessed);
+        assertThat(statistics.get("failedCount")).isEqualTo(expectedFailed);
+    }
+
+    private static PaymentEvent event(SplittableRandom random) {
+        Instant created = START.plusMillis(random.nextLong(SPAN_MILLIS));
+        String eventType = TYPES[random.nextInt(TYPES.length)];
+        Map<String, Object> data = new HashMap<>();
+        data.put("currency", "INR");
+        // Security events carry no amount
+        if (!eventType.startsWith("security")) {
+            data.put(eventType.startsWith("refund") ? "refundAmount" : "amount",
+                     BigDecimal.valueOf(100 + random.nextLong(5_000_000), 2));
+        }
+        boolean processed = random.nextInt(4) != 0;
+        PaymentEvent event = PaymentEvent.builder()
+            .eventType(eventType)
+            .eventSource(SOURCES[random.nextInt(SOURCES.length)])
+            .newStatus(STATUSES[random.nextInt(STATUSES.length)])
+            .eventData(data)
+            .processed(processed)
+            .processedAt(processed ? created.plusMillis(random.nextLong(120_000)) : null)
+            .processingAttempts(random.nextInt(5))
+            .createdAt(created)
+            .build();
+        event.setId(UUID.randomUUID());
+        return event;
+    }
+
+    private static String json(Map<String, Object> eventData) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(eventData);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Flyway flyway(String target) {
+        var configuration = Flyway.configure()
+            .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+            .locations("classpath:db/migration");
+        return (target != null ? configuration.target(target) : configuration).load();
+    }
+}
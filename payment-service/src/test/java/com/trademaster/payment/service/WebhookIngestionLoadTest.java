@@ -0,0 +1,396 @@
+package com.trademaster.payment.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trademaster.payment.entity.PaymentTransaction;
+import com.trademaster.payment.entity.WebhookEvent;
+import com.trademaster.payment.enums.PaymentGateway;
+import com.trademaster.payment.enums.PaymentStatus;
+import com.trademaster.payment.enums.WebhookEventStatus;
+import com.trademaster.payment.events.PaymentCompletedEvent;
+import com.trademaster.payment.repository.PaymentTransactionRepository;
+import com.trademaster.payment.repository.WebhookEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Webhook Ingestion Load Test
+ *
+ * Pushes 10k Razorpay and Stripe callbacks through mock gateways: every
+ * event is delivered five times, in shuffled order, from concurrent senders
+ * while two processors drain the inbox. The webhook inbox and payment table
+ * are in-memory fakes; the payment row lock is a per-payment lock held for
+ * the processing transaction.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+class WebhookIngestionLoadTest {
+
+    private static final int PAYMENTS = 1_000;
+    private static final int DELIVERIES = 5;
+    private static final int SENDERS = 8;
+    private static final int PROCESSORS = 2;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final InMemoryInbox inbox = new InMemoryInbox();
+    private final InMemoryPayments payments = new InMemoryPayments();
+    private final List<Object> publishedEvents = Collections.synchronizedList(new ArrayList<>());
+
+    private WebhookService webhookService;
+    private WebhookEventProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        RazorpayService razorpayService = mock(RazorpayService.class);
+        when(razorpayService.verifyWebhookSignature(anyString(), anyString())).thenReturn(true);
+        StripeService stripeService = mock(StripeService.class);
+        when(stripeService.verifyWebhookSignature(anyString(), anyString())).thenReturn(true);
+
+        ApplicationEventPublisher eventPublisher = publishedEvents::add;
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            try {
+                return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+            } finally {
+                payments.releaseLocks();
+            }
+        });
+
+        webhookService = new WebhookService(inbox.repository, razorpayService, stripeService, objectMapper);
+        processor = new WebhookEventProcessor(inbox.repository, payments.repository,
+            mock(SubscriptionService.class), eventPublisher, mock(PaymentMetricsService.class),
+            transactionTemplate, objectMapper);
+    }
+
+    @Test
+    void duplicateAndOutOfOrderCallbacksCompleteEachPaymentOnce() throws Exception {
+        List<Callback> callbacks = new ArrayList<>();
+        for (int i = 0; i < PAYMENTS; i++) {
+            long created = 1_700_000_000L + i;
+            if (i % 2 == 0) {
+                String paymentId = "pay_" + i;
+                payments.add(PaymentGateway.RAZORPAY, "order_" + i, paymentId);
+                // Every other Razorpay payment omits the event id header, exercising the payload hash
+                String header = i % 4 == 0 ? null : "evt_";
+                addDeliveries(callbacks, Callback.razorpay(
+                    razorpayPayload("payment.authorized", "authorized", paymentId, i, created),
+                    header == null ? null : header + paymentId + "_authorized"));
+                addDeliveries(callbacks, Callback.razorpay(
+                    razorpayPayload("payment.captured", "captured", paymentId, i, created + 5),
+                    header == null ? null : header + paymentId + "_captured"));
+            } else {
+                String intentId = "pi_" + i;
+                payments.add(PaymentGateway.STRIPE, null, intentId);
+                addDeliveries(callbacks, Callback.stripe(
+                    stripePayload("evt_" + intentId + "_processing", "payment_intent.processing",
+                                  "processing", intentId, created)));
+                addDeliveries(callbacks, Callback.stripe(
+                    stripePayload("evt_" + intentId + "_succeeded", "payment_intent.succeeded",
+                                  "succeeded", intentId, created + 5)));
+            }
+        }
+        Collections.shuffle(callbacks, new Random(42));
+        assertThat(callbacks).hasSize(10_000);
+
+        long start = System.nanoTime();
+        AtomicBoolean ingesting = new AtomicBoolean(true);
+        try (ExecutorService processors = Executors.newFixedThreadPool(PROCESSORS)) {
+            List<Future<?>> drains = new ArrayList<>();
+            for (int p = 0; p < PROCESSORS; p++) {
+                drains.add(processors.submit(() -> {
+                    while (ingesting.get() || inbox.hasPending()) {
+                        if (processor.processPendingEvents() == 0) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                }));
+            }
+
+            try (ExecutorService senders = Executors.newFixedThreadPool(SENDERS)) {
+                for (Callback callback : callbacks) {
+                    senders.execute(() -> callback.send(webhookService));
+                }
+            }
+            ingesting.set(false);
+            for (Future<?> drain : drains) {
+                drain.get();
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Each distinct event is stored once; every delivery was acknowledged
+        assertThat(inbox.events).hasSize(PAYMENTS * 2);
+        assertThat(inbox.events.values())
+            .allSatisfy(event -> assertThat(event.getStatus())
+                .isIn(WebhookEventStatus.APPLIED, WebhookEventStatus.IGNORED));
+
+        // Every payment ends completed, whichever event arrived first
+        assertThat(payments.byId.values())
+            .allSatisfy(transaction -> assertThat(transaction.getStatus()).isEqualTo(PaymentStatus.COMPLETED));
+
+        // ...and PaymentCompletedEvent is published exactly once per payment
+        List<UUID> completed = publishedEvents.stream()
+            .filter(PaymentCompletedEvent.class::isInstance)
+            .map(event -> ((PaymentCompletedEvent) event).getTransactionId())
+            .toList();
+        assertThat(completed).hasSize(PAYMENTS).doesNotHaveDuplicates();
+
+        System.out.printf("Ingested %d callbacks (%d events) for %d payments in %d ms%n",
+                          callbacks.size(), inbox.events.size(), PAYMENTS, elapsedMillis);
+    }
+
+    @Test
+    void replayReappliesWithoutRepublishing() {
+        payments.add(PaymentGateway.RAZORPAY, "order_1", "pay_1");
+        Instant from = Instant.now();
+        webhookService.processRazorpayWebhook(
+            razorpayPayload("payment.captured", "captured", "pay_1", 1, 1_700_000_000L), "sig", "evt_1");
+        processor.processPendingEvents();
+
+        int queued = webhookService.replayEvents(from, Instant.now().plusSeconds(1), PaymentGateway.RAZORPAY, null);
+        processor.processPendingEvents();
+
+        assertThat(queued).isEqualTo(1);
+        assertThat(inbox.events.values()).singleElement()
+            .satisfies(event -> assertThat(event.getStatus()).isEqualTo(WebhookEventStatus.IGNORED));
+        assertThat(publishedEvents).filteredOn(PaymentCompletedEvent.class::isInstance).hasSize(1);
+    }
+
+    private static void addDeliveries(List<Callback> callbacks, Callback callback) {
+        for (int d = 0; d < DELIVERIES; d++) {
+            callbacks.add(callback);
+        }
+    }
+
+    private static String razorpayPayload(String event, String status, String paymentId, int order, long createdAt) {
+        return """
+            {"event":"%s","created_at":%d,"payload":{"payment":{"entity":\
+            {"id":"%s","order_id":"order_%d","status":"%s","amount":49900}}}}"""
+            .formatted(event, createdAt, paymentId, order, status);
+    }
+
+    private static String stripePayload(String eventId, String type, String status, String intentId, long created) {
+        return """
+            {"id":"%s","type":"%s","created":%d,"data":{"object":\
+            {"id":"%s","status":"%s","amount":49900}}}"""
+            .formatted(eventId, type, created, intentId, status);
+    }
+
+    // ========== Mock Gateways ==========
+
+    private record Callback(PaymentGateway gateway, String payload, String eventId) {
+
+        static Callback razorpay(String payload, String eventId) {
+            return new Callback(PaymentGateway.RAZORPAY, payload, eventId);
+        }
+
+        static Callback stripe(String payload) {
+            return new Callback(PaymentGateway.STRIPE, payload, null);
+        }
+
+        void send(WebhookService webhookService) {
+            if (gateway == PaymentGateway.STRIPE) {
+                webhookService.processStripeWebhook(payload, "sig");
+            } else {
+                webhookService.processRazorpayWebhook(payload, "sig", eventId);
+            }
+        }
+    }
+
+    // ========== In-Memory Stores ==========
+
+    /**
+     * Webhook inbox with the unique (gateway, event id) key and lease claiming
+     */
+    private static final class InMemoryInbox {
+
+        final WebhookEventRepository repository = mock(WebhookEventRepository.class);
+        final Map<Long, WebhookEvent> events = new ConcurrentHashMap<>();
+        private final Map<String, Long> keys = new ConcurrentHashMap<>();
+        private final AtomicLong ids = new AtomicLong();
+
+        InMemoryInbox() {
+            when(repository.insertIfAbsent(anyString(), anyString(), anyString(), any(), any(), anyString(),
+                                           any(), any())).thenAnswer(invocation -> {
+                String key = invocation.getArgument(0) + ":" + invocation.getArgument(1);
+                long id = ids.incrementAndGet();
+                if (keys.putIfAbsent(key, id) != null) {
+                    return 0;
+                }
+                events.put(id, WebhookEvent.builder()
+                    .id(id)
+                    .gateway(PaymentGateway.valueOf(invocation.getArgument(0)))
+                    .eventId(invocation.getArgument(1))
+                    .eventType(invocation.getArgument(2))
+                    .gatewayPaymentId(invocation.getArgument(3))
+                    .gatewayOrderId(invocation.getArgument(4))
+                    .payload(invocation.getArgument(5))
+                    .gatewayCreatedAt(invocation.getArgument(6))
+                    .receivedAt(invocation.getArgument(7))
+                    .build());
+                return 1;
+            });
+            when(repository.claimBatch(any(), any(), anyInt())).thenAnswer(invocation ->
+                claim(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+            when(repository.recordOutcome(anyLong(), anyString(), any(), any())).thenAnswer(invocation -> {
+                WebhookEvent event = events.get(invocation.<Long>getArgument(0));
+                synchronized (this) {
+                    event.setStatus(WebhookEventStatus.valueOf(invocation.getArgument(1)));
+                    event.setLastError(invocation.getArgument(2));
+                    event.setAppliedAt(invocation.getArgument(3));
+                }
+                return 1;
+            });
+            when(repository.findIdsForReplay(any(), any(), any(), any())).thenAnswer(invocation -> {
+                Instant from = invocation.getArgument(0);
+                Instant to = invocation.getArgument(1);
+                PaymentGateway gateway = invocation.getArgument(2);
+                return events.values().stream()
+                    .filter(event -> !event.getReceivedAt().isBefore(from) && event.getReceivedAt().isBefore(to))
+                    .filter(event -> gateway == null || event.getGateway() == gateway)
+                    .map(WebhookEvent::getId)
+                    .sorted()
+                    .toList();
+            });
+            when(repository.requeue(any())).thenAnswer(invocation -> {
+                Collection<Long> requeued = invocation.getArgument(0);
+                synchronized (this) {
+                    requeued.forEach(id -> {
+                        WebhookEvent event = events.get(id);
+                        event.setStatus(WebhookEventStatus.RECEIVED);
+                        event.setAttempts(0);
+                        event.setClaimedAt(null);
+                        event.setAppliedAt(null);
+                    });
+                }
+                return requeued.size();
+            });
+        }
+
+        private synchronized List<WebhookEvent> claim(Instant now, Instant leaseExpiredBefore, int limit) {
+            List<WebhookEvent> claimed = new ArrayList<>();
+            for (WebhookEvent event : events.values().stream()
+                    .sorted((a, b) -> Long.compare(a.getId(), b.getId())).toList()) {
+                if (claimed.size() == limit) {
+                    break;
+                }
+                boolean waiting = event.getStatus() == WebhookEventStatus.RECEIVED
+                    || (event.getStatus() == WebhookEventStatus.PROCESSING
+                        && event.getClaimedAt().isBefore(leaseExpiredBefore));
+                if (waiting) {
+                    event.setStatus(WebhookEventStatus.PROCESSING);
+                    event.setAttempts(event.getAttempts() + 1);
+                    event.setClaimedAt(now);
+                    claimed.add(copyOf(event));
+                }
+            }
+            return claimed;
+        }
+
+        /**
+         * A detached copy, as a RETURNING row would be
+         */
+        private static WebhookEvent copyOf(WebhookEvent event) {
+            return WebhookEvent.builder()
+                .id(event.getId())
+                .gateway(event.getGateway())
+                .eventId(event.getEventId())
+                .eventType(event.getEventType())
+                .gatewayPaymentId(event.getGatewayPaymentId())
+                .gatewayOrderId(event.getGatewayOrderId())
+                .payload(event.getPayload())
+                .gatewayCreatedAt(event.getGatewayCreatedAt())
+                .status(event.getStatus())
+                .attempts(event.getAttempts())
+                .receivedAt(event.getReceivedAt())
+                .claimedAt(event.getClaimedAt())
+                .build();
+        }
+
+        synchronized boolean hasPending() {
+            return events.values().stream().anyMatch(event -> !event.getStatus().isFinal());
+        }
+    }
+
+    /**
+     * Payment table with a per-row lock held until the transaction ends
+     */
+    private static final class InMemoryPayments {
+
+        final PaymentTransactionRepository repository = mock(PaymentTransactionRepository.class);
+        final Map<UUID, PaymentTransaction> byId = new ConcurrentHashMap<>();
+        private final Map<String, PaymentTransaction> byGatewayKey = new ConcurrentHashMap<>();
+        private final Map<UUID, ReentrantLock> rowLocks = new ConcurrentHashMap<>();
+        private final ThreadLocal<List<ReentrantLock>> held = ThreadLocal.withInitial(ArrayList::new);
+
+        InMemoryPayments() {
+            when(repository.findByGatewayPaymentIdForUpdate(anyString())).thenAnswer(invocation ->
+                lock(byGatewayKey.get("payment:" + invocation.getArgument(0))));
+            when(repository.findByGatewayOrderIdForUpdate(anyString())).thenAnswer(invocation ->
+                lock(byGatewayKey.get("order:" + invocation.getArgument(0))));
+            doAnswer(invocation -> invocation.getArgument(0)).when(repository).save(any(PaymentTransaction.class));
+        }
+
+        void add(PaymentGateway gateway, String orderId, String paymentId) {
+            PaymentTransaction transaction = PaymentTransaction.builder()
+                .id(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .amount(new BigDecimal("499.00"))
+                .paymentGateway(gateway)
+                .gatewayOrderId(orderId)
+                .gatewayPaymentId(paymentId)
+                .build();
+            byId.put(transaction.getId(), transaction);
+            rowLocks.put(transaction.getId(), new ReentrantLock());
+            if (orderId != null) {
+                byGatewayKey.put("order:" + orderId, transaction);
+            }
+            byGatewayKey.put("payment:" + paymentId, transaction);
+        }
+
+        private Optional<PaymentTransaction> lock(PaymentTransaction transaction) {
+            if (transaction == null) {
+                return Optional.empty();
+            }
+            ReentrantLock lock = rowLocks.get(transaction.getId());
+            lock.lock();
+            held.get().add(lock);
+            return Optional.of(transaction);
+        }
+
+        void releaseLocks() {
+            held.get().forEach(ReentrantLock::unlock);
+            held.get().clear();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.trademaster.subscription.dto.UsageCheckResponse;
 import com.trademaster.subscription.dto.UsageIncrementRequest;
 import com.trademaster.subscription.dto.UsageStatsResponse;
 import com.trademaster.subscription.entity.UsageTracking;
+import com.trademaster.subscription.service.UsageArchiveService;
 import com.trademaster.subscription.service.UsageTrackingService;
 import io.micrometer.core.annotation.Timed;
 import io.swagger.v3.oas.annotations.Operation;
@@ -23,6 +24,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
@@ -43,6 +45,7 @@ import java.util.concurrent.CompletableFuture;
 public class UsageController {
 
     private final UsageTrackingService usageTrackingService;
+    private final UsageArchiveService usageArchiveService;
 
     /**
      * Check if user has access to a feature
@@ -251,28 +254,28 @@ public class UsageController {
     }
 
     /**
-     * Reset monthly usage (Admin endpoint)
+     * Archive closed usage periods (Admin endpoint)
      */
-    @PostMapping("/admin/reset-monthly")
-    @Timed(value = "usage.reset.monthly", description = "Time taken to reset monthly usage")
+    @PostMapping("/admin/archive")
+    @Timed(value = "usage.archive", description = "Time taken to archive closed usage periods")
     @Operation(
-        summary = "Reset monthly usage",
-        description = "Resets usage for all users for a specific month (Admin only)"
+        summary = "Archive closed usage periods",
+        description = "Moves usage of periods that ended before the given date to the usage summaries (Admin only)"
     )
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Monthly usage reset completed"),
+        @ApiResponse(responseCode = "200", description = "Closed usage periods archived"),
         @ApiResponse(responseCode = "400", description = "Invalid date format"),
         @ApiResponse(responseCode = "403", description = "Admin access required"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public CompletableFuture<ResponseEntity<Void>> resetMonthlyUsage(
-            @Parameter(description = "Period to reset (YYYY-MM-DD)") 
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate period) {
+    public ResponseEntity<Map<String, Long>> archiveClosedPeriods(
+            @Parameter(description = "Archive periods that ended on or before this date (YYYY-MM-DD)") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate closedBefore) {
         
-        log.info("Admin requesting monthly usage reset for period: {}", period);
+        log.info("Admin requesting usage archive for periods closed by: {}", closedBefore);
         
-        return usageTrackingService.resetMonthlyUsage(period)
-            .thenApply(result -> ResponseEntity.ok().build());
+        long archived = usageArchiveService.archiveClosedPeriods(closedBefore.atStartOfDay());
+        return ResponseEntity.ok(Map.of("archived", archived));
     }
 
     /**
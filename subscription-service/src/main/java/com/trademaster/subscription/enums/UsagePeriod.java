@@ -0,0 +1,65 @@
+package com.trademaster.subscription.enums;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Usage Period Enumeration
+ *
+ * Calendar periods usage is counted in. Each period of a feature has its own
+ * usage_tracking row, keyed by the period start, so a new period starts from
+ * zero without resetting anything.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+public enum UsagePeriod {
+
+    DAILY {
+        @Override
+        public LocalDateTime startOf(LocalDateTime time) {
+            return time.toLocalDate().atStartOfDay();
+        }
+
+        @Override
+        public LocalDateTime endOf(LocalDateTime periodStart) {
+            return periodStart.plusDays(1);
+        }
+    },
+
+    MONTHLY {
+        @Override
+        public LocalDateTime startOf(LocalDateTime time) {
+            return time.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        }
+
+        @Override
+        public LocalDateTime endOf(LocalDateTime periodStart) {
+            return periodStart.plusMonths(1);
+        }
+    };
+
+    /**
+     * Start of the period containing the given time
+     */
+    public abstract LocalDateTime startOf(LocalDateTime time);
+
+    /**
+     * End (exclusive) of the period starting at periodStart
+     */
+    public abstract LocalDateTime endOf(LocalDateTime periodStart);
+
+    /**
+     * Length of the period in days, as stored in reset_frequency_days
+     */
+    public int lengthInDays(LocalDateTime periodStart) {
+        return (int) Duration.between(periodStart, endOf(periodStart)).toDays();
+    }
+
+    /**
+     * Period a feature's limit applies to: API calls are limited per day, everything else per month
+     */
+    public static UsagePeriod forFeature(String featureName) {
+        return "api_calls".equalsIgnoreCase(featureName) ? DAILY : MONTHLY;
+    }
+}
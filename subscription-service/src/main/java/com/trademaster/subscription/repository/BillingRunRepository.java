@@ -0,0 +1,195 @@
+package com.trademaster.subscription.repository;
+
+import com.trademaster.subscription.enums.BillingCycle;
+import com.trademaster.subscription.enums.SubscriptionTier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Billing Run Repository
+ *
+ * Claims due subscriptions for a billing run and records the outcome of
+ * each charge. A claim locks a chunk of due rows with FOR UPDATE SKIP
+ * LOCKED and stamps them with a lease, so concurrent runs on other pods
+ * take disjoint chunks; a lease that runs out (e.g. its pod died) makes
+ * the subscription claimable again. Every write that ends a lease is
+ * fenced on the lease owner.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Repository
+public class BillingRunRepository {
+
+    private static final String CLAIM_SELECT = """
+        SELECT id, user_id, tier, billing_cycle, billing_amount, currency, payment_method_id,
+               next_billing_date, failed_billing_attempts
+        FROM subscriptions
+        WHERE status = 'ACTIVE' AND auto_renewal = true AND next_billing_date <= ?
+          AND (billing_lease_until IS NULL OR billing_lease_until < ?)
+        ORDER BY next_billing_date
+        LIMIT ?
+        FOR UPDATE SKIP LOCKED
+        """;
+    private static final String CLAIM_UPDATE = """
+        UPDATE subscriptions SET billing_lease_owner = ?, billing_lease_until = ?
+        WHERE id = ANY (?)
+        """;
+    private static final String INSERT_ATTEMPT = """
+        INSERT INTO billing_attempts (idempotency_key, subscription_id, billing_date, attempt, amount, currency,
+            status, created_at)
+        VALUES (?, ?, ?, ?, ?, ?, 'PENDING', ?)
+        ON CONFLICT DO NOTHING
+        """;
+    private static final String COMPLETE_ATTEMPT = """
+        UPDATE billing_attempts SET status = ?, transaction_id = ?, failure_reason = ?, completed_at = ?
+        WHERE idempotency_key = ? AND status = 'PENDING'
+        """;
+    private static final String RENEW_SUBSCRIPTION = """
+        UPDATE subscriptions SET next_billing_date = ?, last_billing_date = ?, failed_billing_attempts = 0,
+            billing_lease_owner = NULL, billing_lease_until = NULL, updated_at = ?, version = version + 1
+        WHERE id = ? AND billing_lease_owner = ?
+        """;
+    private static final String FAIL_SUBSCRIPTION = """
+        UPDATE subscriptions SET failed_billing_attempts = failed_billing_attempts + 1,
+            status = CASE WHEN ? AND status = 'ACTIVE' THEN 'SUSPENDED' ELSE status END,
+            billing_lease_owner = NULL, billing_lease_until = ?, updated_at = ?, version = version + 1
+        WHERE id = ? AND billing_lease_owner = ?
+        """;
+    private static final String RELEASE_SUBSCRIPTION = """
+        UPDATE subscriptions SET billing_lease_owner = NULL, billing_lease_until = ?
+        WHERE id = ? AND billing_lease_owner = ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public BillingRunRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Status of a billing attempt
+     */
+    public enum AttemptStatus {
+        PENDING, SUCCEEDED, FAILED
+    }
+
+    /**
+     * A subscription claimed for billing, with what is needed to charge it
+     */
+    public record DueSubscription(
+            UUID id,
+            UUID userId,
+            SubscriptionTier tier,
+            BillingCycle billingCycle,
+            BigDecimal billingAmount,
+            String currency,
+            UUID paymentMethodId,
+            LocalDateTime nextBillingDate,
+            int failedBillingAttempts) {
+
+        /**
+         * Key of this charge: one per billing cycle and declined attempt, so a charge whose
+         * outcome is unknown is retried under the same key and the gateway charges it once
+         */
+        public String idempotencyKey() {
+            return id + ":" + nextBillingDate + ":" + failedBillingAttempts;
+        }
+    }
+
+    // ========== Claims ==========
+
+    /**
+     * Lease up to limit due subscriptions, oldest billing date first, skipping those leased elsewhere
+     */
+    public List<DueSubscription> claimDue(String owner, LocalDateTime now, LocalDateTime leaseUntil, int limit) {
+        return transactionTemplate.execute(status -> {
+            Timestamp nowTimestamp = Timestamp.valueOf(now);
+            List<DueSubscription> claimed = jdbcTemplate.query(CLAIM_SELECT, (rs, rowNum) -> new DueSubscription(
+                rs.getObject("id", UUID.class),
+                rs.getObject("user_id", UUID.class),
+                SubscriptionTier.valueOf(rs.getString("tier")),
+                BillingCycle.valueOf(rs.getString("billing_cycle")),
+                rs.getBigDecimal("billing_amount"),
+                rs.getString("currency"),
+                rs.getObject("payment_method_id", UUID.class),
+                rs.getTimestamp("next_billing_date").toLocalDateTime(),
+                rs.getInt("failed_billing_attempts")),
+                nowTimestamp, nowTimestamp, limit);
+            if (!claimed.isEmpty()) {
+                jdbcTemplate.update(CLAIM_UPDATE, owner, Timestamp.valueOf(leaseUntil),
+                                    claimed.stream().map(DueSubscription::id).toArray(UUID[]::new));
+            }
+            return claimed;
+        });
+    }
+
+    // ========== Attempts ==========
+
+    /**
+     * Record the start of a charge, or find the attempt of an earlier run under the same key
+     *
+     * @return the status of the attempt
+     */
+    public AttemptStatus startAttempt(DueSubscription subscription, LocalDateTime now) {
+        String key = subscription.idempotencyKey();
+        jdbcTemplate.update(INSERT_ATTEMPT, key, subscription.id(), Timestamp.valueOf(subscription.nextBillingDate()),
+                            subscription.failedBillingAttempts() + 1, subscription.billingAmount(),
+                            subscription.currency(), Timestamp.valueOf(now));
+        return AttemptStatus.valueOf(jdbcTemplate.queryForObject(
+            "SELECT status FROM billing_attempts WHERE idempotency_key = ?", String.class, key));
+    }
+
+    /**
+     * Record a successful charge and move the subscription to its next billing date
+     *
+     * @return false if the lease was lost; the new lease holder finds the attempt succeeded
+     */
+    public boolean recordSuccess(DueSubscription subscription, String owner, String transactionId, LocalDateTime now) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Timestamp nowTimestamp = Timestamp.valueOf(now);
+            jdbcTemplate.update(COMPLETE_ATTEMPT, AttemptStatus.SUCCEEDED.name(), transactionId, null, nowTimestamp,
+                                subscription.idempotencyKey());
+            return jdbcTemplate.update(RENEW_SUBSCRIPTION,
+                Timestamp.valueOf(subscription.billingCycle().getNextBillingDate(subscription.nextBillingDate())),
+                nowTimestamp, nowTimestamp, subscription.id(), owner) == 1;
+        }));
+    }
+
+    /**
+     * Record a declined charge; the subscription is retried at retryAt, or suspended if suspend is set
+     *
+     * @return false if the lease was lost, in which case nothing is recorded and the attempt stays
+     *         pending, so the new lease holder replays it and counts the decline once
+     */
+    public boolean recordFailure(DueSubscription subscription, String owner, String failureReason, boolean suspend,
+                                 LocalDateTime retryAt, LocalDateTime now) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Timestamp nowTimestamp = Timestamp.valueOf(now);
+            if (jdbcTemplate.update(FAIL_SUBSCRIPTION, suspend, Timestamp.valueOf(retryAt), nowTimestamp,
+                                    subscription.id(), owner) != 1) {
+                return false;
+            }
+            jdbcTemplate.update(COMPLETE_ATTEMPT, AttemptStatus.FAILED.name(), null, failureReason, nowTimestamp,
+                                subscription.idempotencyKey());
+            return true;
+        }));
+    }
+
+    /**
+     * Give up the lease without an outcome; the attempt stays pending and is retried at retryAt
+     */
+    public boolean release(DueSubscription subscription, String owner, LocalDateTime retryAt) {
+        return jdbcTemplate.update(RELEASE_SUBSCRIPTION, Timestamp.valueOf(retryAt), subscription.id(), owner) == 1;
+    }
+}
@@ -0,0 +1,173 @@
+package com.trademaster.subscription.repository;
+
+import com.trademaster.subscription.entity.UsageTracking;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Usage Archive Repository
+ *
+ * Moves closed usage periods from usage_tracking to usage_period_summaries
+ * in pages keyed on the unique (user_id, feature_name, period_start) index.
+ * Each page is located by its last key and moved with one MERGE and one
+ * DELETE, so no usage row is ever read into the application. A row for a
+ * period that was already archived (usage flushed after the period was
+ * moved) is added to its summary rather than dropped. Archived periods
+ * are read back as detached {@link UsageTracking} rows for usage reports.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Repository
+public class UsageArchiveRepository {
+
+    private static final String CLOSED = "period_end <= ?";
+    private static final String AFTER = " AND (user_id, feature_name, period_start) > (?, ?, ?)";
+    private static final String UP_TO = " AND (user_id, feature_name, period_start) <= (?, ?, ?)";
+
+    private static final String LAST_KEY_OF_PAGE = """
+        SELECT user_id, feature_name, period_start FROM (
+            SELECT user_id, feature_name, period_start FROM usage_tracking
+            WHERE %s
+            ORDER BY user_id, feature_name, period_start
+            LIMIT ?) page
+        ORDER BY user_id DESC, feature_name DESC, period_start DESC
+        LIMIT 1
+        """;
+    // MERGE rather than INSERT ... ON CONFLICT, so late usage is added to an existing summary
+    private static final String COPY_PAGE = """
+        MERGE INTO usage_period_summaries s
+        USING (SELECT user_id, feature_name, period_start, period_end, subscription_id,
+                   usage_count, usage_limit, exceeded_count
+               FROM usage_tracking
+               WHERE %s) u
+        ON s.user_id = u.user_id AND s.feature_name = u.feature_name AND s.period_start = u.period_start
+        WHEN MATCHED THEN UPDATE SET
+            usage_count = s.usage_count + u.usage_count,
+            usage_limit = u.usage_limit,
+            subscription_id = u.subscription_id,
+            exceeded_count = s.exceeded_count + u.exceeded_count,
+            archived_at = ?
+        WHEN NOT MATCHED THEN INSERT (user_id, feature_name, period_start, period_end, subscription_id,
+            usage_count, usage_limit, exceeded_count, archived_at)
+        VALUES (u.user_id, u.feature_name, u.period_start, u.period_end, u.subscription_id,
+            u.usage_count, u.usage_limit, u.exceeded_count, ?)
+        """;
+    private static final String DELETE_PAGE = "DELETE FROM usage_tracking WHERE %s";
+    private static final String FIND_SUMMARIES = """
+        SELECT user_id, feature_name, period_start, period_end, subscription_id,
+            usage_count, usage_limit, exceeded_count, archived_at
+        FROM usage_period_summaries
+        WHERE %s
+        ORDER BY period_start DESC, feature_name
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public UsageArchiveRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Last key of the next page of periods that ended by closedBefore
+     *
+     * @param after last key of the previous page, or null for the first page
+     * @return empty when no closed period is left after the given key
+     */
+    public Optional<UsageDelta.Key> findPageEnd(LocalDateTime closedBefore, UsageDelta.Key after, int pageSize) {
+        List<Object> args = new ArrayList<>();
+        String where = closedAfter(closedBefore, after, args);
+        args.add(pageSize);
+        return jdbcTemplate.query(LAST_KEY_OF_PAGE.formatted(where), (rs, rowNum) -> new UsageDelta.Key(
+                rs.getObject("user_id", UUID.class),
+                rs.getString("feature_name"),
+                rs.getTimestamp("period_start").toLocalDateTime()),
+            args.toArray()).stream().findFirst();
+    }
+
+    /**
+     * Move the closed periods after the previous page, up to and including last, to the summaries
+     *
+     * @return the number of usage rows moved
+     */
+    public int archivePage(LocalDateTime closedBefore, UsageDelta.Key after, UsageDelta.Key last) {
+        List<Object> args = new ArrayList<>();
+        String where = closedAfter(closedBefore, after, args) + UP_TO;
+        args.add(last.userId());
+        args.add(last.featureName());
+        args.add(Timestamp.valueOf(last.periodStart()));
+
+        Integer moved = transactionTemplate.execute(status -> {
+            Timestamp archivedAt = Timestamp.valueOf(LocalDateTime.now());
+            List<Object> copyArgs = new ArrayList<>(args.size() + 2);
+            copyArgs.addAll(args);
+            copyArgs.add(archivedAt);
+            copyArgs.add(archivedAt);
+            jdbcTemplate.update(COPY_PAGE.formatted(where), copyArgs.toArray());
+            return jdbcTemplate.update(DELETE_PAGE.formatted(where), args.toArray());
+        });
+        return moved == null ? 0 : moved;
+    }
+
+    // ========== Reads ==========
+
+    /**
+     * All archived periods of a user, latest period first
+     */
+    public List<UsageTracking> findByUserId(UUID userId) {
+        return jdbcTemplate.query(FIND_SUMMARIES.formatted("user_id = ?"), UsageArchiveRepository::toUsage, userId);
+    }
+
+    /**
+     * Archived periods of a user starting in [from, to)
+     */
+    public List<UsageTracking> findByUserIdAndPeriodStartIn(UUID userId, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(FIND_SUMMARIES.formatted("user_id = ? AND period_start >= ? AND period_start < ?"),
+                                  UsageArchiveRepository::toUsage,
+                                  userId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * A summary as a usage row that is not attached to usage_tracking
+     */
+    private static UsageTracking toUsage(ResultSet rs, int rowNum) throws SQLException {
+        int exceededCount = rs.getInt("exceeded_count");
+        LocalDateTime archivedAt = rs.getTimestamp("archived_at").toLocalDateTime();
+        return UsageTracking.builder()
+            .userId(rs.getObject("user_id", UUID.class))
+            .subscriptionId(rs.getObject("subscription_id", UUID.class))
+            .featureName(rs.getString("feature_name"))
+            .usageCount(rs.getLong("usage_count"))
+            .usageLimit(rs.getLong("usage_limit"))
+            .periodStart(rs.getTimestamp("period_start").toLocalDateTime())
+            .periodEnd(rs.getTimestamp("period_end").toLocalDateTime())
+            .limitExceeded(exceededCount > 0)
+            .exceededCount(exceededCount)
+            .updatedAt(archivedAt)
+            .build();
+    }
+
+    private static String closedAfter(LocalDateTime closedBefore, UsageDelta.Key after, List<Object> args) {
+        args.add(Timestamp.valueOf(closedBefore));
+        if (after == null) {
+            return CLOSED;
+        }
+        args.add(after.userId());
+        args.add(after.featureName());
+        args.add(Timestamp.valueOf(after.periodStart()));
+        return CLOSED + AFTER;
+    }
+}
@@ -0,0 +1,36 @@
+package com.trademaster.subscription.repository;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Usage Delta
+ *
+ * Usage counted in memory since the last flush, to be added to one
+ * usage_tracking row.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+public record UsageDelta(
+        Key key,
+        UUID subscriptionId,
+        LocalDateTime periodEnd,
+        long usageLimit,
+        long amount,
+        int exceeded) {
+
+    /**
+     * Identity of a usage_tracking row: one per user, feature and period
+     */
+    public record Key(UUID userId, String featureName, LocalDateTime periodStart) {}
+
+    /**
+     * Order in which rows are locked, so concurrent flushes cannot deadlock
+     */
+    static final Comparator<UsageDelta> KEY_ORDER = Comparator
+        .comparing((UsageDelta delta) -> delta.key().userId())
+        .thenComparing(delta -> delta.key().featureName())
+        .thenComparing(delta -> delta.key().periodStart());
+}
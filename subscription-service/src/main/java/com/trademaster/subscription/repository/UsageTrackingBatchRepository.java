@@ -0,0 +1,140 @@
+package com.trademaster.subscription.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Usage Tracking Batch Repository
+ *
+ * Adds metered usage to usage_tracking with one multi-row upsert per
+ * batch, creating the rows of new periods as it goes, and reads back the
+ * resulting totals so each instance sees the usage the others flushed.
+ * Rows an instance has nothing to add to are read back in batches too.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Repository
+@RequiredArgsConstructor
+public class UsageTrackingBatchRepository {
+
+    private static final String UPSERT_PREFIX = """
+        INSERT INTO usage_tracking AS u (user_id, subscription_id, feature_name, usage_count, usage_limit,
+            period_start, period_end, reset_date, reset_frequency_days, limit_exceeded, exceeded_count,
+            first_exceeded_at, updated_at)
+        VALUES\s""";
+    private static final String ROW_VALUES = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int COLUMNS = 13;
+    // PostgreSQL accepts at most 65535 bind parameters per statement
+    private static final int MAX_ROWS = 65535 / COLUMNS;
+    private static final String UPSERT_SUFFIX = """
+         ON CONFLICT (user_id, feature_name, period_start) DO UPDATE SET
+            usage_count = u.usage_count + EXCLUDED.usage_count,
+            usage_limit = EXCLUDED.usage_limit,
+            subscription_id = EXCLUDED.subscription_id,
+            limit_exceeded = u.limit_exceeded OR EXCLUDED.limit_exceeded,
+            exceeded_count = u.exceeded_count + EXCLUDED.exceeded_count,
+            first_exceeded_at = COALESCE(u.first_exceeded_at, EXCLUDED.first_exceeded_at),
+            updated_at = EXCLUDED.updated_at
+        RETURNING user_id, feature_name, period_start, usage_count
+        """;
+
+    private static final String FIND_PREFIX = """
+        SELECT user_id, feature_name, period_start, usage_count
+        FROM usage_tracking
+        WHERE (user_id, feature_name, period_start) IN (VALUES\s""";
+    private static final String KEY_VALUES = "(?, ?, ?)";
+    private static final int MAX_KEYS = 65535 / 3;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Add deltas to their usage rows; deltas must have distinct keys
+     *
+     * @return the usage count of each row after the update
+     */
+    public Map<UsageDelta.Key, Long> addUsage(List<UsageDelta> deltas) {
+        Map<UsageDelta.Key, Long> totals = new HashMap<>();
+        List<UsageDelta> ordered = deltas.stream().sorted(UsageDelta.KEY_ORDER).toList();
+        for (int from = 0; from < ordered.size(); from += MAX_ROWS) {
+            upsert(ordered.subList(from, Math.min(from + MAX_ROWS, ordered.size())), totals);
+        }
+        return totals;
+    }
+
+    private void upsert(List<UsageDelta> rows, Map<UsageDelta.Key, Long> totals) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.query(upsertSql(rows.size()), ps -> {
+            int index = 1;
+            for (UsageDelta delta : rows) {
+                Timestamp periodEnd = Timestamp.valueOf(delta.periodEnd());
+                ps.setObject(index++, delta.key().userId());
+                ps.setObject(index++, delta.subscriptionId());
+                ps.setString(index++, delta.key().featureName());
+                ps.setLong(index++, delta.amount());
+                ps.setLong(index++, delta.usageLimit());
+                ps.setTimestamp(index++, Timestamp.valueOf(delta.key().periodStart()));
+                ps.setTimestamp(index++, periodEnd);
+                ps.setTimestamp(index++, periodEnd);
+                ps.setInt(index++, (int) Duration.between(delta.key().periodStart(), delta.periodEnd()).toDays());
+                ps.setBoolean(index++, delta.exceeded() > 0);
+                ps.setInt(index++, delta.exceeded());
+                ps.setTimestamp(index++, delta.exceeded() > 0 ? now : null);
+                ps.setTimestamp(index++, now);
+            }
+        }, rs -> {
+            totals.put(new UsageDelta.Key(rs.getObject("user_id", UUID.class), rs.getString("feature_name"),
+                                          rs.getTimestamp("period_start").toLocalDateTime()),
+                       rs.getLong("usage_count"));
+        });
+    }
+
+    /**
+     * Current usage count of the rows with the given keys; keys without a row are left out
+     */
+    public Map<UsageDelta.Key, Long> findUsage(Collection<UsageDelta.Key> keys) {
+        Map<UsageDelta.Key, Long> totals = new HashMap<>();
+        List<UsageDelta.Key> ordered = List.copyOf(keys);
+        for (int from = 0; from < ordered.size(); from += MAX_KEYS) {
+            find(ordered.subList(from, Math.min(from + MAX_KEYS, ordered.size())), totals);
+        }
+        return totals;
+    }
+
+    private void find(List<UsageDelta.Key> keys, Map<UsageDelta.Key, Long> totals) {
+        StringBuilder sql = new StringBuilder(FIND_PREFIX);
+        for (int i = 0; i < keys.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(KEY_VALUES);
+        }
+        jdbcTemplate.query(sql.append(")").toString(), ps -> {
+            int index = 1;
+            for (UsageDelta.Key key : keys) {
+                ps.setObject(index++, key.userId());
+                ps.setString(index++, key.featureName());
+                ps.setTimestamp(index++, Timestamp.valueOf(key.periodStart()));
+            }
+        }, rs -> {
+            totals.put(new UsageDelta.Key(rs.getObject("user_id", UUID.class), rs.getString("feature_name"),
+                                          rs.getTimestamp("period_start").toLocalDateTime()),
+                       rs.getLong("usage_count"));
+        });
+    }
+
+    private static String upsertSql(int rows) {
+        StringBuilder sql = new StringBuilder(UPSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "" : ", ").append(ROW_VALUES);
+        }
+        return sql.append(UPSERT_SUFFIX).toString();
+    }
+}
@@ -32,6 +32,26 @@ public interface UsageTrackingRepository extends JpaRepository<UsageTracking, UU
                                            @Param("featureName") String featureName,
                                            @Param("currentDate") LocalDateTime currentDate);
 
+    /**
+     * Find the usage row of one user, feature and period
+     */
+    Optional<UsageTracking> findByUserIdAndFeatureNameAndPeriodStart(UUID userId, String featureName,
+                                                                      LocalDateTime periodStart);
+
+    /**
+     * Find a user's usage rows for periods starting in [from, to)
+     */
+    @Query("SELECT ut FROM UsageTracking ut WHERE ut.userId = :userId " +
+           "AND ut.periodStart >= :from AND ut.periodStart < :to ORDER BY ut.featureName, ut.periodStart")
+    List<UsageTracking> findByUserIdAndPeriodStartIn(@Param("userId") UUID userId,
+                                                     @Param("from") LocalDateTime from,
+                                                     @Param("to") LocalDateTime to);
+
+    /**
+     * Find all usage rows of a user, latest period first
+     */
+    List<UsageTracking> findByUserIdOrderByPeriodStartDesc(UUID userId);
+
     /**
      * Find all current usage for user
      */
@@ -5,9 +5,10 @@ import com.trademaster.subscription.enums.SubscriptionStatus;
 import com.trademaster.subscription.event.SubscriptionEvent;
 import com.trademaster.subscription.event.SubscriptionEventPublisher;
 import com.trademaster.subscription.repository.SubscriptionRepository;
+import com.trademaster.subscription.service.BillingRunner;
 import com.trademaster.subscription.service.BillingService;
 import com.trademaster.subscription.service.StructuredLoggingService;
-import com.trademaster.subscription.service.UsageTrackingService;
+import com.trademaster.subscription.service.UsageArchiveService;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -19,12 +20,10 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -34,7 +33,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * - Recurring billing processing
  * - Trial expiration checks
  * - Subscription cleanup
- * - Usage reset
+ * - Usage archival
  * - Health monitoring
  * 
  * @author TradeMaster Development Team
@@ -47,7 +46,8 @@ public class SubscriptionScheduler {
 
     private final SubscriptionRepository subscriptionRepository;
     private final BillingService billingService;
-    private final UsageTrackingService usageTrackingService;
+    private final BillingRunner billingRunner;
+    private final UsageArchiveService usageArchiveService;
     private final SubscriptionEventPublisher eventPublisher;
     private final StructuredLoggingService loggingService;
     private final MeterRegistry meterRegistry;
@@ -58,8 +58,8 @@ public class SubscriptionScheduler {
     @Value("${app.scheduler.trial-expiration.enabled:true}")
     private boolean trialExpirationEnabled;
 
-    @Value("${app.scheduler.usage-reset.enabled:true}")
-    private boolean usageResetEnabled;
+    @Value("${app.scheduler.usage-archive.enabled:true}")
+    private boolean usageArchiveEnabled;
 
     @Value("${app.scheduler.cleanup.enabled:true}")
     private boolean cleanupEnabled;
@@ -76,17 +76,19 @@ public class SubscriptionScheduler {
     private final Counter trialExpiredCounter;
     private final Counter cleanupProcessedCounter;
     private final AtomicLong lastBillingRun = new AtomicLong(0);
-    private final AtomicLong lastUsageReset = new AtomicLong(0);
+    private final AtomicLong lastUsageArchive = new AtomicLong(0);
 
     public SubscriptionScheduler(SubscriptionRepository subscriptionRepository,
                                 BillingService billingService,
-                                UsageTrackingService usageTrackingService,
+                                BillingRunner billingRunner,
+                                UsageArchiveService usageArchiveService,
                                 SubscriptionEventPublisher eventPublisher,
                                 StructuredLoggingService loggingService,
                                 MeterRegistry meterRegistry) {
         this.subscriptionRepository = subscriptionRepository;
         this.billingService = billingService;
-        this.usageTrackingService = usageTrackingService;
+        this.billingRunner = billingRunner;
+        this.usageArchiveService = usageArchiveService;
         this.eventPublisher = eventPublisher;
         this.loggingService = loggingService;
         this.meterRegistry = meterRegistry;
@@ -113,17 +115,20 @@ public class SubscriptionScheduler {
             .description("Timestamp of last billing run")
             .register(meterRegistry, this, s -> s.lastBillingRun.get());
             
-        Gauge.builder("subscription.scheduler.usage.reset.last.run")
-            .description("Timestamp of last usage reset run")
-            .register(meterRegistry, this, s -> s.lastUsageReset.get());
+        Gauge.builder("subscription.scheduler.usage.archive.last.run")
+            .description("Timestamp of last usage archive run")
+            .register(meterRegistry, this, s -> s.lastUsageArchive.get());
     }
 
     /**
      * Process recurring billing - runs every hour
+     *
+     * The runner claims due subscriptions in leased chunks and commits each
+     * charge on its own, so overlapping runs on other pods bill disjoint
+     * subscriptions.
      */
     @Scheduled(cron = "0 0 * * * *") // Every hour at minute 0
     @Async("subscriptionProcessingExecutor")
-    @Transactional
     public void processRecurringBilling() {
         if (!billingSchedulerEnabled) {
             return;
@@ -133,47 +138,9 @@ public class SubscriptionScheduler {
         lastBillingRun.set(System.currentTimeMillis());
         
         try {
-            List<Subscription> dueSubscriptions = subscriptionRepository
-                .findByNextBillingDateBeforeAndStatus(LocalDateTime.now(), SubscriptionStatus.ACTIVE);
-            
-            log.info("Found {} subscriptions due for billing", dueSubscriptions.size());
-            
-            for (Subscription subscription : dueSubscriptions) {
-                try {
-                    CompletableFuture<Boolean> billingResult = billingService
-                        .processRecurringBilling(subscription.getId());
-                    
-                    billingResult.thenAccept(success -> {
-                        if (success) {
-                            billingProcessedCounter.increment();
-                            log.info("Successfully processed billing for subscription: {}", subscription.getId());
-                        } else {
-                            billingFailedCounter.increment();
-                            log.warn("Failed to process billing for subscription: {}", subscription.getId());
-                        }
-                    });
-                    
-                } catch (Exception e) {
-                    billingFailedCounter.increment();
-                    log.error("Error processing billing for subscription: {}", subscription.getId(), e);
-                    
-                    loggingService.logError(
-                        "recurring_billing_error",
-                        e.getMessage(),
-                        "BILLING_ERROR",
-                        e,
-                        Map.of("subscriptionId", subscription.getId().toString())
-                    );
-                }
-            }
-            
-            loggingService.logSystemEvent(
-                "recurring_billing_completed",
-                "info",
-                "Recurring billing processing completed",
-                "SCHEDULER",
-                Map.of("subscriptionsProcessed", dueSubscriptions.size())
-            );
+            BillingRunner.BillingRunReport report = billingRunner.run();
+            billingProcessedCounter.increment(report.succeeded());
+            billingFailedCounter.increment(report.failed());
             
         } catch (Exception e) {
             log.error("Error in recurring billing scheduler", e);
@@ -291,49 +258,28 @@ public class SubscriptionScheduler {
     }
 
     /**
-     * Reset monthly usage - runs on first day of each month at 2 AM
+     * Archive closed usage periods - runs daily at 2 AM
+     *
+     * Usage rows are keyed by period, so a new month starts from zero
+     * without a reset; this only moves old periods to the summaries.
      */
-    @Scheduled(cron = "0 0 2 1 * *") // 2 AM on 1st day of each month
+    @Scheduled(cron = "0 0 2 * * *") // 2 AM daily
     @Async("subscriptionProcessingExecutor")
-    public void resetMonthlyUsage() {
-        if (!usageResetEnabled) {
+    public void archiveClosedUsagePeriods() {
+        if (!usageArchiveEnabled) {
             return;
         }
 
-        log.info("Starting monthly usage reset");
-        lastUsageReset.set(System.currentTimeMillis());
+        log.info("Starting usage archive");
+        lastUsageArchive.set(System.currentTimeMillis());
         
         try {
-            LocalDate lastMonth = LocalDate.now().minusMonths(1);
-            
-            usageTrackingService.resetMonthlyUsage(lastMonth)
-                .thenRun(() -> {
-                    loggingService.logSystemEvent(
-                        "monthly_usage_reset_completed",
-                        "info",
-                        "Monthly usage reset completed",
-                        "SCHEDULER",
-                        Map.of("period", lastMonth.toString())
-                    );
-                    
-                    log.info("Monthly usage reset completed for period: {}", lastMonth);
-                })
-                .exceptionally(throwable -> {
-                    log.error("Error during monthly usage reset", throwable);
-                    loggingService.logError(
-                        "monthly_usage_reset_error",
-                        throwable.getMessage(),
-                        "SCHEDULER_ERROR",
-                        (Exception) throwable,
-                        Map.of("period", lastMonth.toString())
-                    );
-                    return null;
-                });
+            usageArchiveService.archiveClosedPeriods();
                 
         } catch (Exception e) {
-            log.error("Error in monthly usage reset scheduler", e);
+            log.error("Error in usage archive scheduler", e);
             loggingService.logError(
-                "monthly_usage_reset_scheduler_error",
+                "usage_archive_scheduler_error",
                 e.getMessage(),
                 "SCHEDULER_ERROR",
                 e,
@@ -453,10 +399,10 @@ public class SubscriptionScheduler {
         return Map.of(
             "billingEnabled", billingSchedulerEnabled,
             "trialExpirationEnabled", trialExpirationEnabled,
-            "usageResetEnabled", usageResetEnabled,
+            "usageArchiveEnabled", usageArchiveEnabled,
             "cleanupEnabled", cleanupEnabled,
             "lastBillingRun", lastBillingRun.get(),
-            "lastUsageReset", lastUsageReset.get()
+            "lastUsageArchive", lastUsageArchive.get()
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,241 @@
+package com.trademaster.subscription.service;
+
+import com.trademaster.subscription.repository.BillingRunRepository;
+import com.trademaster.subscription.repository.BillingRunRepository.AttemptStatus;
+import com.trademaster.subscription.repository.BillingRunRepository.DueSubscription;
+import com.trademaster.subscription.service.PaymentGatewayClient.ChargeRequest;
+import com.trademaster.subscription.service.PaymentGatewayClient.ChargeResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Billing Runner
+ *
+ * Runs recurring billing in chunks. Each chunk of due subscriptions is
+ * claimed under a lease, so runs on several pods bill disjoint
+ * subscriptions, and charged on virtual threads with at most the
+ * configured number of charges in flight against the payment gateway.
+ * Charges carry an idempotency key per billing cycle and attempt; a charge
+ * with an unknown outcome keeps its key, so retrying it cannot charge twice.
+ * Outcomes are recorded through {@link BillingService}, which writes the
+ * subscription history, applies dunning and suspension, and publishes the
+ * renewal and suspension events once the outcome is committed.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class BillingRunner {
+
+    private final BillingRunRepository billingRunRepository;
+    private final BillingService billingService;
+    private final PaymentGatewayClient paymentGatewayClient;
+    private final StructuredLoggingService loggingService;
+
+    private final int chunkSize;
+    private final int concurrency;
+    private final Duration leaseDuration;
+    private final Duration retryInterval;
+    private final String instanceId;
+
+    // Metrics
+    private final Timer chargeTimer;
+    private final Counter succeededCounter;
+    private final Counter failedCounter;
+    private final Counter deferredCounter;
+
+    public BillingRunner(BillingRunRepository billingRunRepository,
+                         BillingService billingService,
+                         PaymentGatewayClient paymentGatewayClient,
+                         StructuredLoggingService loggingService,
+                         MeterRegistry meterRegistry,
+                         @Value("${subscription.billing.run.chunk-size:500}") int chunkSize,
+                         @Value("${subscription.billing.run.concurrency:64}") int concurrency,
+                         @Value("${subscription.billing.run.lease-minutes:15}") long leaseMinutes,
+                         @Value("${subscription.billing.dunning-retry-interval:24}") long retryIntervalHours) {
+        this.billingRunRepository = billingRunRepository;
+        this.billingService = billingService;
+        this.paymentGatewayClient = paymentGatewayClient;
+        this.loggingService = loggingService;
+        this.chunkSize = chunkSize;
+        this.concurrency = concurrency;
+        this.leaseDuration = Duration.ofMinutes(leaseMinutes);
+        this.retryInterval = Duration.ofHours(retryIntervalHours);
+        this.instanceId = System.getenv().getOrDefault("HOSTNAME", "subscription-service");
+
+        this.chargeTimer = Timer.builder("billing.processing.duration")
+            .description("Time to charge and record one recurring billing")
+            .register(meterRegistry);
+
+        this.succeededCounter = Counter.builder("subscription.billing.run.charges")
+            .description("Recurring billing charges by outcome")
+            .tag("outcome", "succeeded")
+            .register(meterRegistry);
+
+        this.failedCounter = Counter.builder("subscription.billing.run.charges")
+            .description("Recurring billing charges by outcome")
+            .tag("outcome", "failed")
+            .register(meterRegistry);
+
+        this.deferredCounter = Counter.builder("subscription.billing.run.charges")
+            .description("Recurring billing charges by outcome")
+            .tag("outcome", "deferred")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Outcome of a billing run
+     *
+     * @param deferred charges whose outcome was unknown, retried by a later run with the same key
+     */
+    public record BillingRunReport(int claimed, int succeeded, int failed, int deferred, Duration elapsed) {
+
+        public double throughputPerSecond() {
+            return elapsed.isZero() ? 0 : claimed * 1_000_000_000.0 / elapsed.toNanos();
+        }
+    }
+
+    private static final class Progress {
+        private final AtomicInteger claimed = new AtomicInteger();
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger deferred = new AtomicInteger();
+    }
+
+    // ========== Run ==========
+
+    /**
+     * Bill every subscription that is due and not leased by another run
+     */
+    public BillingRunReport run() {
+        return run(LocalDateTime.now());
+    }
+
+    /**
+     * Bill as if the run started at the given time; leases and retries are timed from it
+     */
+    BillingRunReport run(LocalDateTime startTime) {
+        String owner = instanceId + ":" + UUID.randomUUID().toString().substring(0, 8);
+        long started = System.nanoTime();
+        Progress progress = new Progress();
+        Semaphore inFlight = new Semaphore(concurrency);
+
+        log.info("Billing run {} started: chunk size {}, concurrency {}", owner, chunkSize, concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                LocalDateTime now = clock(startTime, started);
+                List<DueSubscription> chunk = billingRunRepository.claimDue(owner, now, now.plus(leaseDuration),
+                                                                            chunkSize);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                progress.claimed.addAndGet(chunk.size());
+                for (DueSubscription subscription : chunk) {
+                    inFlight.acquireUninterruptibly();
+                    executor.execute(() -> {
+                        try {
+                            bill(subscription, owner, startTime, started, progress);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+                log.info("Billing run {}: claimed {}, succeeded {}, failed {}, deferred {}, {}/s", owner,
+                         progress.claimed.get(), progress.succeeded.get(), progress.failed.get(),
+                         progress.deferred.get(), Math.round(report(progress, started).throughputPerSecond()));
+            }
+        }
+
+        BillingRunReport report = report(progress, started);
+        log.info("Billing run {} completed: {}", owner, report);
+        loggingService.logInfo("recurring_billing_completed", "Recurring billing run completed", Map.of(
+            "runId", owner,
+            "claimed", report.claimed(),
+            "succeeded", report.succeeded(),
+            "failed", report.failed(),
+            "deferred", report.deferred(),
+            "elapsedMs", report.elapsed().toMillis(),
+            "throughputPerSecond", Math.round(report.throughputPerSecond())));
+        return report;
+    }
+
+    private void bill(DueSubscription subscription, String owner, LocalDateTime startTime, long started,
+                      Progress progress) {
+        Timer.Sample sample = Timer.start();
+        try {
+            AttemptStatus attempt = billingRunRepository.startAttempt(subscription, clock(startTime, started));
+            if (attempt == AttemptStatus.SUCCEEDED) {
+                // Charged by a run whose lease ran out before it renewed the subscription
+                billingService.recordRecurringPayment(subscription, owner, null, clock(startTime, started));
+                progress.succeeded.incrementAndGet();
+                succeededCounter.increment();
+                return;
+            }
+
+            ChargeResult result = paymentGatewayClient.charge(new ChargeRequest(
+                subscription.idempotencyKey(),
+                subscription.id(),
+                subscription.userId(),
+                subscription.paymentMethodId(),
+                subscription.billingAmount(),
+                subscription.currency(),
+                "TradeMaster " + subscription.tier() + " Subscription Renewal"));
+
+            LocalDateTime now = clock(startTime, started);
+            if (result.succeeded()) {
+                if (!billingService.recordRecurringPayment(subscription, owner, result.transactionId(), now)) {
+                    log.warn("Billing lease on subscription {} ran out before its renewal was recorded",
+                             subscription.id());
+                }
+                progress.succeeded.incrementAndGet();
+                succeededCounter.increment();
+            } else {
+                if (!billingService.recordRecurringPaymentFailure(subscription, owner, result.failureReason(),
+                                                                  now.plus(retryInterval), now)) {
+                    log.warn("Billing lease on subscription {} ran out before its decline was recorded",
+                             subscription.id());
+                }
+                progress.failed.incrementAndGet();
+                failedCounter.increment();
+            }
+        } catch (RuntimeException e) {
+            // Outcome unknown: the attempt stays pending and is retried later under the same key
+            progress.deferred.incrementAndGet();
+            deferredCounter.increment();
+            log.warn("Billing of subscription {} deferred: {}", subscription.id(), e.getMessage());
+            try {
+                LocalDateTime now = clock(startTime, started);
+                billingRunRepository.release(subscription, owner, now.plus(retryInterval));
+            } catch (RuntimeException releaseFailure) {
+                // The lease runs out on its own
+                log.warn("Failed to release billing lease on subscription {}", subscription.id(), releaseFailure);
+            }
+        } finally {
+            sample.stop(chargeTimer);
+        }
+    }
+
+    private static LocalDateTime clock(LocalDateTime startTime, long started) {
+        return startTime.plusNanos(System.nanoTime() - started);
+    }
+
+    private static BillingRunReport report(Progress progress, long started) {
+        return new BillingRunReport(progress.claimed.get(), progress.succeeded.get(), progress.failed.get(),
+                                    progress.deferred.get(), Duration.ofNanos(System.nanoTime() - started));
+    }
+}
@@ -1,12 +1,16 @@
 package com.trademaster.subscription.service;
 
 import com.trademaster.subscription.entity.Subscription;
+import com.trademaster.subscription.entity.SubscriptionHistory;
 import com.trademaster.subscription.enums.BillingCycle;
 import com.trademaster.subscription.enums.SubscriptionStatus;
 import com.trademaster.subscription.enums.SubscriptionTier;
 import com.trademaster.subscription.event.SubscriptionEvent;
 import com.trademaster.subscription.event.SubscriptionEventPublisher;
 import com.trademaster.subscription.exception.SubscriptionNotFoundException;
+import com.trademaster.subscription.repository.BillingRunRepository;
+import com.trademaster.subscription.repository.BillingRunRepository.DueSubscription;
+import com.trademaster.subscription.repository.SubscriptionHistoryRepository;
 import com.trademaster.subscription.repository.SubscriptionRepository;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -21,6 +25,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
@@ -46,6 +52,8 @@ import java.util.concurrent.CompletableFuture;
 public class BillingService {
 
     private final SubscriptionRepository subscriptionRepository;
+    private final SubscriptionHistoryRepository historyRepository;
+    private final BillingRunRepository billingRunRepository;
     private final SubscriptionEventPublisher eventPublisher;
     private final StructuredLoggingService loggingService;
     private final RestTemplate restTemplate;
@@ -70,11 +78,15 @@ public class BillingService {
     private final Timer billingTimer;
 
     public BillingService(SubscriptionRepository subscriptionRepository,
+                         SubscriptionHistoryRepository historyRepository,
+                         BillingRunRepository billingRunRepository,
                          SubscriptionEventPublisher eventPublisher,
                          StructuredLoggingService loggingService,
                          RestTemplate restTemplate,
                          MeterRegistry meterRegistry) {
         this.subscriptionRepository = subscriptionRepository;
+        this.historyRepository = historyRepository;
+        this.billingRunRepository = billingRunRepository;
         this.eventPublisher = eventPublisher;
         this.loggingService = loggingService;
         this.restTemplate = restTemplate;
@@ -174,88 +186,70 @@ public class BillingService {
     }
 
     /**
-     * Process recurring billing
+     * Record a successful recurring charge made by the billing run
+     *
+     * Moves the subscription to its next billing date under the run's lease,
+     * writes its history and publishes SUBSCRIPTION_RENEWED once committed.
+     *
+     * @return false if the lease was lost; the new lease holder records the renewal
      */
-    @Async("subscriptionProcessingExecutor")
     @Transactional
-    public CompletableFuture<Boolean> processRecurringBilling(UUID subscriptionId) {
-        return CompletableFuture.supplyAsync(() -> {
-            Timer.Sample sample = Timer.start(meterRegistry);
-            
-            try {
-                Subscription subscription = subscriptionRepository.findById(subscriptionId)
-                    .orElseThrow(() -> new SubscriptionNotFoundException("Subscription not found: " + subscriptionId));
-
-                if (subscription.getStatus() != SubscriptionStatus.ACTIVE) {
-                    log.warn("Cannot process billing for non-active subscription: {}", subscriptionId);
-                    return false;
-                }
-
-                BigDecimal amount = calculateBillingAmount(subscription.getTier(), subscription.getBillingCycle());
-
-                PaymentRequest paymentRequest = PaymentRequest.builder()
-                    .amount(amount)
-                    .currency("USD")
-                    .paymentMethodId(subscription.getPaymentMethodId())
-                    .customerId(subscription.getUserId().toString())
-                    .description("TradeMaster " + subscription.getTier() + " Subscription Renewal")
-                    .metadata(Map.of(
-                        "subscriptionId", subscriptionId.toString(),
-                        "tier", subscription.getTier().toString(),
-                        "billingCycle", subscription.getBillingCycle().toString(),
-                        "recurringPayment", "true"
-                    ))
-                    .build();
-
-                try {
-                    UUID transactionId = processPayment(paymentRequest);
-                    
-                    // Update subscription with successful payment
-                    subscription.setNextBillingDate(calculateNextBillingDate(subscription.getBillingCycle()));
-                    subscription.setFailedBillingAttempts(0);
-                    subscription.setLastBillingDate(LocalDateTime.now());
-                    subscriptionRepository.save(subscription);
-
-                    billingSuccessCounter.increment();
-                    
-                    loggingService.logBusinessEvent(
-                        "recurring_payment_processed",
-                        subscription.getUserId().toString(),
-                        subscriptionId.toString(),
-                        "billing_success",
-                        Map.of("transactionId", transactionId.toString(), "amount", amount.toString())
-                    );
-
-                    // Publish subscription renewed event
-                    eventPublisher.publishSubscriptionEvent(
-                        SubscriptionEvent.builder()
-                            .eventId(UUID.randomUUID().toString())
-                            .eventType(SubscriptionEvent.SUBSCRIPTION_RENEWED)
-                            .subscriptionId(subscriptionId)
-                            .userId(subscription.getUserId())
-                            .tier(subscription.getTier())
-                            .status(SubscriptionStatus.ACTIVE)
-                            .timestamp(LocalDateTime.now())
-                            .source("subscription-service")
-                            .version("1.0")
-                            .payload(Map.of("transactionId", transactionId.toString()))
-                            .build()
-                    );
-
-                    return true;
-
-                } catch (PaymentException e) {
-                    return handlePaymentFailure(subscription, e);
-                }
+    public boolean recordRecurringPayment(DueSubscription subscription, String leaseOwner, String transactionId,
+                                          LocalDateTime now) {
+        if (!billingRunRepository.recordSuccess(subscription, leaseOwner, transactionId, now)) {
+            return false;
+        }
+        billingSuccessCounter.increment();
+        recordHistory(subscription, SubscriptionHistory.ChangeType.PAYMENT_SUCCEEDED, SubscriptionStatus.ACTIVE,
+                      "Recurring payment processed", now);
+
+        loggingService.logBillingEvent("recurring_payment_processed", subscription.id().toString(),
+                                       subscription.userId().toString(), subscription.tier().name(),
+                                       subscription.billingAmount().toPlainString(), subscription.currency(),
+                                       "SUCCEEDED", String.valueOf(subscription.paymentMethodId()),
+                                       Map.of("transactionId", String.valueOf(transactionId)));
+
+        // Publish subscription renewed event
+        afterCommit(() -> eventPublisher.publishSubscriptionEvent(
+            SubscriptionEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .eventType(SubscriptionEvent.SUBSCRIPTION_RENEWED)
+                .subscriptionId(subscription.id())
+                .userId(subscription.userId())
+                .tier(subscription.tier())
+                .status(SubscriptionStatus.ACTIVE)
+                .timestamp(now)
+                .source("subscription-service")
+                .version("1.0")
+                .payload(Map.of(
+                    "transactionId", String.valueOf(transactionId),
+                    "amount", subscription.billingAmount().toPlainString(),
+                    "nextBillingDate",
+                    subscription.billingCycle().getNextBillingDate(subscription.nextBillingDate()).toString()
+                ))
+                .build()
+        ));
+        return true;
+    }
 
-            } catch (Exception e) {
-                billingFailureCounter.increment();
-                log.error("Failed to process recurring billing for subscription: {}", subscriptionId, e);
-                return false;
-            } finally {
-                sample.stop(billingTimer);
-            }
-        });
+    /**
+     * Record a declined recurring charge made by the billing run
+     *
+     * The subscription is retried at retryAt, or suspended once it has been
+     * declined maxRetryAttempts times.
+     *
+     * @return false if the lease was lost, in which case nothing is recorded
+     */
+    @Transactional
+    public boolean recordRecurringPaymentFailure(DueSubscription subscription, String leaseOwner,
+                                                 String failureReason, LocalDateTime retryAt, LocalDateTime now) {
+        int failedAttempts = subscription.failedBillingAttempts() + 1;
+        boolean suspend = failedAttempts >= maxRetryAttempts;
+        if (!billingRunRepository.recordFailure(subscription, leaseOwner, failureReason, suspend, retryAt, now)) {
+            return false;
+        }
+        handlePaymentFailure(subscription, failedAttempts, suspend, failureReason, now);
+        return true;
     }
 
     /**
@@ -364,59 +358,114 @@ public class BillingService {
     /**
      * Handle payment failure
      */
-    private boolean handlePaymentFailure(Subscription subscription, PaymentException e) {
-        subscription.setFailedBillingAttempts(subscription.getFailedBillingAttempts() + 1);
-        
-        if (subscription.getFailedBillingAttempts() >= maxRetryAttempts) {
+    private void handlePaymentFailure(DueSubscription subscription, int failedAttempts, boolean suspended,
+                                      String failureReason, LocalDateTime now) {
+        billingFailureCounter.increment();
+        String errorMessage = String.valueOf(failureReason);
+
+        if (suspended) {
             // Suspend subscription after max retries
-            subscription.setStatus(SubscriptionStatus.SUSPENDED);
-            subscription.setSuspensionReason("Payment failed after " + maxRetryAttempts + " attempts");
-            
-            loggingService.logBusinessEvent(
-                "subscription_suspended_payment_failure",
-                subscription.getUserId().toString(),
-                subscription.getId().toString(),
-                "billing_failure",
-                Map.of("failedAttempts", subscription.getFailedBillingAttempts())
-            );
+            String suspensionReason = "Payment failed after " + failedAttempts + " attempts";
+            recordHistory(subscription, SubscriptionHistory.ChangeType.SUSPENDED, SubscriptionStatus.SUSPENDED,
+                          suspensionReason, now);
+
+            loggingService.logBillingEvent("subscription_suspended_payment_failure", subscription.id().toString(),
+                                           subscription.userId().toString(), subscription.tier().name(),
+                                           subscription.billingAmount().toPlainString(), subscription.currency(),
+                                           "SUSPENDED", String.valueOf(subscription.paymentMethodId()),
+                                           Map.of("failedAttempts", failedAttempts, "reason", errorMessage));
 
             // Publish suspension event
-            eventPublisher.publishSubscriptionEvent(
+            afterCommit(() -> eventPublisher.publishSubscriptionEvent(
                 SubscriptionEvent.builder()
                     .eventId(UUID.randomUUID().toString())
                     .eventType(SubscriptionEvent.SUBSCRIPTION_SUSPENDED)
-                    .subscriptionId(subscription.getId())
-                    .userId(subscription.getUserId())
-                    .tier(subscription.getTier())
+                    .subscriptionId(subscription.id())
+                    .userId(subscription.userId())
+                    .tier(subscription.tier())
                     .status(SubscriptionStatus.SUSPENDED)
-                    .timestamp(LocalDateTime.now())
+                    .previousStatus(SubscriptionStatus.ACTIVE)
+                    .timestamp(now)
                     .source("subscription-service")
                     .version("1.0")
-                    .payload(Map.of("reason", "payment_failure"))
+                    .payload(Map.of(
+                        "reason", "payment_failure",
+                        "failedAttempts", failedAttempts,
+                        "suspensionReason", suspensionReason
+                    ))
                     .build()
-            );
-            
+            ));
+
         } else {
             // Mark for retry
-            subscription.setStatus(SubscriptionStatus.PAYMENT_FAILED);
             retryAttemptCounter.increment();
-            
+            recordHistory(subscription, SubscriptionHistory.ChangeType.PAYMENT_FAILED, SubscriptionStatus.ACTIVE,
+                          errorMessage, now);
+
+            loggingService.logBillingEvent("recurring_payment_failed", subscription.id().toString(),
+                                           subscription.userId().toString(), subscription.tier().name(),
+                                           subscription.billingAmount().toPlainString(), subscription.currency(),
+                                           "FAILED", String.valueOf(subscription.paymentMethodId()),
+                                           Map.of("failedAttempts", failedAttempts, "reason", errorMessage));
+
             // Publish payment failed event
-            eventPublisher.publishPaymentFailed(
-                SubscriptionEvent.paymentFailed(
-                    subscription.getId(),
-                    subscription.getUserId(),
-                    subscription.getTier(),
-                    subscription.getFailedBillingAttempts(),
-                    e.getMessage(),
-                    UUID.randomUUID().toString()
-                )
-            );
+            afterCommit(() -> eventPublisher.publishPaymentFailed(
+                SubscriptionEvent.builder()
+                    .eventId(UUID.randomUUID().toString())
+                    .eventType(SubscriptionEvent.SUBSCRIPTION_PAYMENT_FAILED)
+                    .subscriptionId(subscription.id())
+                    .userId(subscription.userId())
+                    .tier(subscription.tier())
+                    .status(SubscriptionStatus.ACTIVE)
+                    .timestamp(now)
+                    .source("subscription-service")
+                    .version("1.0")
+                    .correlationId(UUID.randomUUID().toString())
+                    .payload(Map.of(
+                        "subscriptionId", subscription.id().toString(),
+                        "userId", subscription.userId().toString(),
+                        "tier", subscription.tier().toString(),
+                        "failedAttempts", failedAttempts,
+                        "errorMessage", errorMessage,
+                        "failedAt", now.toString()
+                    ))
+                    .build()
+            ));
+        }
+    }
+
+    private void recordHistory(DueSubscription subscription, SubscriptionHistory.ChangeType changeType,
+                               SubscriptionStatus newStatus, String reason, LocalDateTime now) {
+        historyRepository.save(SubscriptionHistory.builder()
+            .subscriptionId(subscription.id())
+            .userId(subscription.userId())
+            .changeType(changeType)
+            .oldStatus(SubscriptionStatus.ACTIVE)
+            .newStatus(newStatus)
+            .newTier(subscription.tier())
+            .newBillingCycle(subscription.billingCycle())
+            .newBillingAmount(subscription.billingAmount())
+            .changeReason(reason)
+            .initiatedBy(SubscriptionHistory.InitiatedBy.SYSTEM)
+            .effectiveDate(now)
+            .build());
+    }
+
+    /**
+     * Run an action once the current transaction commits, or now if there is none,
+     * so consumers never see an event for a change that was rolled back
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
         }
-        
-        subscriptionRepository.save(subscription);
-        billingFailureCounter.increment();
-        return false;
     }
 
     /**
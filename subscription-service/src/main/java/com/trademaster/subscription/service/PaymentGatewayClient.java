@@ -0,0 +1,46 @@
+package com.trademaster.subscription.service;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Payment Gateway Client
+ *
+ * Charges a payment method through the payment gateway. Charges carry an
+ * idempotency key: the gateway performs at most one charge per key and
+ * answers a repeated key with the original outcome, so a charge whose
+ * response was lost can be retried safely.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+public interface PaymentGatewayClient {
+
+    /**
+     * Charge a payment method
+     *
+     * @return the outcome when the gateway answered; declines are not exceptions
+     * @throws RuntimeException when the outcome is unknown, e.g. the request timed out
+     */
+    ChargeResult charge(ChargeRequest request);
+
+    record ChargeRequest(
+            String idempotencyKey,
+            UUID subscriptionId,
+            UUID userId,
+            UUID paymentMethodId,
+            BigDecimal amount,
+            String currency,
+            String description) {}
+
+    record ChargeResult(boolean succeeded, String transactionId, String failureReason) {
+
+        public static ChargeResult succeeded(String transactionId) {
+            return new ChargeResult(true, transactionId, null);
+        }
+
+        public static ChargeResult declined(String failureReason) {
+            return new ChargeResult(false, null, failureReason);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.trademaster.subscription.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * REST Payment Gateway Client
+ *
+ * Posts charges to the payment gateway service with the idempotency key in
+ * the Idempotency-Key header. A 2xx or 4xx answer is a definite outcome;
+ * server errors, throttling and timeouts leave the outcome unknown and are
+ * thrown so the charge is retried with the same key.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Component
+public class RestPaymentGatewayClient implements PaymentGatewayClient {
+
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final RestClient restClient;
+
+    public RestPaymentGatewayClient(RestClient.Builder restClientBuilder,
+                                    @Value("${app.services.payment-gateway.url}") String paymentGatewayUrl,
+                                    @Value("${app.services.payment-gateway.api-key}") String paymentGatewayApiKey,
+                                    @Value("${app.services.payment-gateway.timeout:10s}") Duration timeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        this.restClient = restClientBuilder
+            .baseUrl(paymentGatewayUrl)
+            .requestFactory(requestFactory)
+            .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + paymentGatewayApiKey)
+            .build();
+    }
+
+    @Override
+    public ChargeResult charge(ChargeRequest request) {
+        PaymentRequest body = new PaymentRequest(
+            request.amount(),
+            request.currency(),
+            request.paymentMethodId(),
+            request.userId().toString(),
+            request.description(),
+            Map.of("subscriptionId", request.subscriptionId().toString(), "recurringPayment", "true"));
+
+        return restClient.post()
+            .uri("/api/v1/payments")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(IDEMPOTENCY_KEY_HEADER, request.idempotencyKey())
+            .body(body)
+            .exchange((httpRequest, response) -> {
+                if (response.getStatusCode().is5xxServerError()
+                        || response.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)) {
+                    throw new IllegalStateException("Payment gateway returned " + response.getStatusCode());
+                }
+                PaymentResponse payment = response.bodyTo(PaymentResponse.class);
+                if (response.getStatusCode().is2xxSuccessful() && payment != null
+                        && "succeeded".equals(payment.status())) {
+                    return ChargeResult.succeeded(String.valueOf(payment.transactionId()));
+                }
+                return ChargeResult.declined(payment != null && payment.errorMessage() != null
+                    ? payment.errorMessage()
+                    : "Payment gateway returned " + response.getStatusCode());
+            });
+    }
+
+    private record PaymentRequest(
+            BigDecimal amount,
+            String currency,
+            UUID paymentMethodId,
+            String customerId,
+            String description,
+            Map<String, String> metadata) {}
+
+    private record PaymentResponse(UUID transactionId, String status, String errorMessage) {}
+}
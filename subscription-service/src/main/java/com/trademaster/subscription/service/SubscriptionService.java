@@ -6,6 +6,7 @@ import com.trademaster.subscription.entity.UsageTracking;
 import com.trademaster.subscription.enums.BillingCycle;
 import com.trademaster.subscription.enums.SubscriptionStatus;
 import com.trademaster.subscription.enums.SubscriptionTier;
+import com.trademaster.subscription.enums.UsagePeriod;
 import com.trademaster.subscription.repository.SubscriptionHistoryRepository;
 import com.trademaster.subscription.repository.SubscriptionRepository;
 import com.trademaster.subscription.repository.UsageTrackingRepository;
@@ -495,17 +496,24 @@ public class SubscriptionService {
     }
     
     private void createUsageTrackingRecord(Subscription subscription, String feature, long limit) {
-        LocalDateTime now = LocalDateTime.now();
+        // Same calendar period rows the usage meter counts into
+        UsagePeriod period = UsagePeriod.forFeature(feature);
+        LocalDateTime periodStart = period.startOf(LocalDateTime.now());
+        if (usageTrackingRepository.findByUserIdAndFeatureNameAndPeriodStart(
+                subscription.getUserId(), feature, periodStart).isPresent()) {
+            return;
+        }
+        LocalDateTime periodEnd = period.endOf(periodStart);
         
         UsageTracking usage = UsageTracking.builder()
             .userId(subscription.getUserId())
             .subscriptionId(subscription.getId())
             .featureName(feature)
             .usageLimit(limit)
-            .periodStart(now)
-            .periodEnd(now.plusDays(30)) // Default monthly period
-            .resetDate(now.plusDays(30))
-            .resetFrequencyDays(30)
+            .periodStart(periodStart)
+            .periodEnd(periodEnd)
+            .resetDate(periodEnd)
+            .resetFrequencyDays(period.lengthInDays(periodStart))
             .build();
         
         usageTrackingRepository.save(usage);
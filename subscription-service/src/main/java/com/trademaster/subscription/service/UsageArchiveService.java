@@ -0,0 +1,95 @@
+package com.trademaster.subscription.service;
+
+import com.trademaster.subscription.repository.UsageArchiveRepository;
+import com.trademaster.subscription.repository.UsageDelta;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Usage Archive Service
+ *
+ * Usage is counted in one usage_tracking row per user, feature and period,
+ * so a new period starts from zero without any reset. Periods that closed
+ * more than the retention period ago are moved to usage_period_summaries
+ * in keyset-paginated batches; memory use does not depend on the number of
+ * rows archived.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class UsageArchiveService {
+
+    private static final int PROGRESS_LOG_BATCHES = 100;
+
+    private final UsageArchiveRepository usageArchiveRepository;
+    private final StructuredLoggingService loggingService;
+    private final int retentionDays;
+    private final int batchSize;
+    private final Counter archivedCounter;
+
+    public UsageArchiveService(UsageArchiveRepository usageArchiveRepository,
+                               StructuredLoggingService loggingService,
+                               MeterRegistry meterRegistry,
+                               @Value("${subscription.usage.retention-days:90}") int retentionDays,
+                               @Value("${subscription.usage.archive-batch-size:5000}") int batchSize) {
+        this.usageArchiveRepository = usageArchiveRepository;
+        this.loggingService = loggingService;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+        this.archivedCounter = Counter.builder("subscription.usage.archived")
+            .description("Number of closed usage periods moved to the summaries")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Archive periods that closed more than the retention period ago
+     *
+     * @return the number of usage rows archived
+     */
+    public long archiveClosedPeriods() {
+        return archiveClosedPeriods(LocalDateTime.now().minusDays(retentionDays));
+    }
+
+    /**
+     * Archive periods that ended by closedBefore
+     *
+     * @return the number of usage rows archived
+     */
+    public long archiveClosedPeriods(LocalDateTime closedBefore) {
+        long started = System.nanoTime();
+        long archived = 0;
+        int batches = 0;
+        UsageDelta.Key after = null;
+
+        Optional<UsageDelta.Key> last;
+        while ((last = usageArchiveRepository.findPageEnd(closedBefore, after, batchSize)).isPresent()) {
+            int moved = usageArchiveRepository.archivePage(closedBefore, after, last.get());
+            archived += moved;
+            archivedCounter.increment(moved);
+            after = last.get();
+            if (++batches % PROGRESS_LOG_BATCHES == 0) {
+                log.info("Usage archive: {} rows in {} batches so far", archived, batches);
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        loggingService.logInfo(
+            "usage_periods_archived",
+            "Closed usage periods archived",
+            Map.of("closedBefore", closedBefore.toString(), "rows", archived, "batches", batches,
+                   "elapsedMs", elapsedMs)
+        );
+        log.info("Archived {} usage rows of periods closed by {} in {} batches, {} ms",
+                 archived, closedBefore, batches, elapsedMs);
+        return archived;
+    }
+}
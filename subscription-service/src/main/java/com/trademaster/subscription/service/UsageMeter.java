@@ -0,0 +1,258 @@
+package com.trademaster.subscription.service;
+
+import com.trademaster.subscription.entity.UsageTracking;
+import com.trademaster.subscription.enums.UsagePeriod;
+import com.trademaster.subscription.repository.UsageDelta;
+import com.trademaster.subscription.repository.UsageTrackingBatchRepository;
+import com.trademaster.subscription.repository.UsageTrackingRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Usage Meter
+ *
+ * In-memory usage counters, one per user, feature and period. Checking the
+ * limit and counting the usage is a single compare-and-set on the counter,
+ * so concurrent increments are neither lost nor able to overshoot the limit.
+ * Counted usage is flushed to usage_tracking in batches; each flush also
+ * brings in the usage other instances flushed to the same rows, so across
+ * instances a limit holds to within one flush interval of traffic. Counters
+ * with nothing to flush are re-read from their rows every refresh interval,
+ * so an idle instance does not keep enforcing a stale count.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class UsageMeter {
+
+    // Closed periods are kept a while so in-flight increments still find their counter
+    private static final Duration CLOSED_PERIOD_RETENTION = Duration.ofMinutes(5);
+
+    private final UsageTrackingRepository usageTrackingRepository;
+    private final UsageTrackingBatchRepository batchRepository;
+    private final long refreshIntervalNanos;
+
+    private final Map<UsageDelta.Key, Counter> counters = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // When idle counters were last re-read; only touched by the flush
+    private long lastRefreshNanos = System.nanoTime();
+
+    public UsageMeter(UsageTrackingRepository usageTrackingRepository,
+                      UsageTrackingBatchRepository batchRepository,
+                      @Value("${subscription.usage.refresh-interval-ms:30000}") long refreshIntervalMillis) {
+        this.usageTrackingRepository = usageTrackingRepository;
+        this.batchRepository = batchRepository;
+        this.refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis);
+    }
+
+    /**
+     * Outcome of an increment: whether it was counted, and the usage after it
+     */
+    public record Result(boolean accepted, long usageCount) {}
+
+    private static final class Counter {
+        private final LocalDateTime periodEnd;
+        // Usage this instance enforces the limit against
+        private final AtomicLong used;
+        private final AtomicLong unflushed = new AtomicLong();
+        private final AtomicInteger rejected = new AtomicInteger();
+        private volatile UUID subscriptionId;
+        private volatile long limit;
+        // Row total as last read from the database; only touched by the flush
+        private long synced;
+
+        private Counter(long stored, LocalDateTime periodEnd, UUID subscriptionId, long limit) {
+            this.used = new AtomicLong(stored);
+            this.synced = stored;
+            this.periodEnd = periodEnd;
+            this.subscriptionId = subscriptionId;
+            this.limit = limit;
+        }
+
+        private Result tryAdd(long amount, long limit) {
+            while (true) {
+                long current = used.get();
+                long next = current + amount;
+                if (limit != -1 && next > limit) {
+                    rejected.incrementAndGet();
+                    return new Result(false, current);
+                }
+                if (used.compareAndSet(current, next)) {
+                    unflushed.addAndGet(amount);
+                    return new Result(true, next);
+                }
+            }
+        }
+    }
+
+    // ========== Metering ==========
+
+    /**
+     * Count usage of a feature unless it would take the current period over the limit
+     *
+     * @param limit the feature's limit for the subscription's tier, -1 for unlimited
+     */
+    public Result tryIncrement(UUID userId, String featureName, UUID subscriptionId, long limit, long amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Usage increment must be positive: " + amount);
+        }
+        return counter(userId, featureName, subscriptionId, limit).tryAdd(amount, limit);
+    }
+
+    /**
+     * Usage of a feature in the current period
+     */
+    public long usage(UUID userId, String featureName, UUID subscriptionId, long limit) {
+        return counter(userId, featureName, subscriptionId, limit).used.get();
+    }
+
+    /**
+     * Number of counters held in memory
+     */
+    public int activeCount() {
+        return counters.size();
+    }
+
+    private Counter counter(UUID userId, String featureName, UUID subscriptionId, long limit) {
+        UsagePeriod period = UsagePeriod.forFeature(featureName);
+        UsageDelta.Key key = new UsageDelta.Key(userId, featureName, period.startOf(LocalDateTime.now()));
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            // Loaded outside the map so a slow read does not block other keys; a losing duplicate is discarded
+            long stored = usageTrackingRepository
+                .findByUserIdAndFeatureNameAndPeriodStart(userId, featureName, key.periodStart())
+                .map(UsageTracking::getUsageCount)
+                .orElse(0L);
+            Counter loaded = new Counter(stored, period.endOf(key.periodStart()), subscriptionId, limit);
+            counter = counters.putIfAbsent(key, loaded);
+            if (counter == null) {
+                return loaded;
+            }
+        }
+        // Tier changes and renewals move the row to the latest subscription and limit
+        if (counter.limit != limit) {
+            counter.limit = limit;
+        }
+        if (!subscriptionId.equals(counter.subscriptionId)) {
+            counter.subscriptionId = subscriptionId;
+        }
+        return counter;
+    }
+
+    // ========== Flush ==========
+
+    /**
+     * Add the usage counted since the last flush to usage_tracking
+     *
+     * @return the number of rows written
+     */
+    @Scheduled(fixedDelayString = "${subscription.usage.flush-interval-ms:5000}")
+    public int flush() {
+        flushLock.lock();
+        try {
+            List<UsageDelta> deltas = new ArrayList<>();
+            List<Counter> flushed = new ArrayList<>();
+            counters.forEach((key, counter) -> {
+                long amount = counter.unflushed.getAndSet(0);
+                int exceeded = counter.rejected.getAndSet(0);
+                if (amount != 0 || exceeded != 0) {
+                    deltas.add(new UsageDelta(key, counter.subscriptionId, counter.periodEnd, counter.limit,
+                                              amount, exceeded));
+                    flushed.add(counter);
+                }
+            });
+
+            if (!deltas.isEmpty()) {
+                Map<UsageDelta.Key, Long> totals;
+                try {
+                    totals = batchRepository.addUsage(deltas);
+                } catch (RuntimeException e) {
+                    // Kept for the next flush
+                    for (int i = 0; i < deltas.size(); i++) {
+                        flushed.get(i).unflushed.addAndGet(deltas.get(i).amount());
+                        flushed.get(i).rejected.addAndGet(deltas.get(i).exceeded());
+                    }
+                    log.warn("Failed to flush usage of {} counters, will retry: {}", deltas.size(), e.getMessage());
+                    return 0;
+                }
+                for (int i = 0; i < deltas.size(); i++) {
+                    Long total = totals.get(deltas.get(i).key());
+                    if (total != null) {
+                        sync(flushed.get(i), total, deltas.get(i).amount());
+                    }
+                }
+            }
+
+            if (System.nanoTime() - lastRefreshNanos >= refreshIntervalNanos) {
+                refreshIdle(deltas);
+            }
+            evictClosedPeriods();
+            return deltas.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Re-read the rows of the counters this flush had nothing to write for
+     */
+    private void refreshIdle(List<UsageDelta> deltas) {
+        Map<UsageDelta.Key, Counter> idle = new HashMap<>(counters);
+        deltas.forEach(delta -> idle.remove(delta.key()));
+        if (!idle.isEmpty()) {
+            Map<UsageDelta.Key, Long> totals;
+            try {
+                totals = batchRepository.findUsage(idle.keySet());
+            } catch (RuntimeException e) {
+                log.warn("Failed to refresh usage of {} idle counters, will retry: {}", idle.size(), e.getMessage());
+                return;
+            }
+            // Rows that are gone were archived with their period; the counter keeps its count
+            totals.forEach((key, total) -> sync(idle.get(key), total, 0));
+        }
+        lastRefreshNanos = System.nanoTime();
+    }
+
+    /**
+     * Bring a counter up to a row total read after this instance added {@code flushed} to it
+     */
+    private static void sync(Counter counter, long total, long flushed) {
+        // Usage other instances added to the row since this one last saw it
+        long others = total - counter.synced - flushed;
+        counter.synced = total;
+        if (others != 0) {
+            counter.used.addAndGet(others);
+        }
+    }
+
+    private void evictClosedPeriods() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(CLOSED_PERIOD_RETENTION);
+        counters.values().removeIf(counter -> counter.periodEnd.isBefore(cutoff)
+            && counter.unflushed.get() == 0 && counter.rejected.get() == 0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flush() == 0 && counters.values().stream().anyMatch(counter -> counter.unflushed.get() != 0)) {
+            log.error("Usage counted since the last flush could not be written on shutdown");
+        }
+    }
+}
@@ -4,45 +4,69 @@ import com.trademaster.subscription.entity.Subscription;
 import com.trademaster.subscription.entity.UsageTracking;
 import com.trademaster.subscription.enums.SubscriptionLimits;
 import com.trademaster.subscription.enums.SubscriptionStatus;
+import com.trademaster.subscription.enums.SubscriptionTier;
+import com.trademaster.subscription.enums.UsagePeriod;
 import com.trademaster.subscription.exception.SubscriptionNotFoundException;
 import com.trademaster.subscription.exception.UsageLimitExceededException;
 import com.trademaster.subscription.repository.SubscriptionRepository;
+import com.trademaster.subscription.repository.UsageArchiveRepository;
 import com.trademaster.subscription.repository.UsageTrackingRepository;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Usage Tracking Service
  * 
  * Provides comprehensive usage tracking and limit enforcement for subscription tiers.
- * Uses Virtual Threads for high-performance concurrent operations.
+ * Usage is metered in memory by UsageMeter, which checks the limit and counts
+ * the usage in one atomic step and flushes to usage_tracking in batches.
+ * Limits are resolved per tier once; a user's active subscription is cached
+ * for a short time, so metering a request does not touch the database.
+ * Reports read archived periods from usage_period_summaries alongside the
+ * live rows, so archiving does not drop history from them.
  * 
  * @author TradeMaster Development Team
  * @version 1.0.0
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class UsageTrackingService {
 
+    private static final List<SubscriptionStatus> ACTIVE_STATUSES = List.of(
+        SubscriptionStatus.ACTIVE,
+        SubscriptionStatus.TRIAL,
+        SubscriptionStatus.EXPIRED
+    );
+
     private final SubscriptionRepository subscriptionRepository;
     private final UsageTrackingRepository usageTrackingRepository;
+    private final UsageArchiveRepository usageArchiveRepository;
+    private final UsageMeter usageMeter;
     private final StructuredLoggingService loggingService;
     private final MeterRegistry meterRegistry;
+    private final long subscriptionCacheTtlNanos;
+
+    private final Map<SubscriptionTier, SubscriptionLimits> limitsByTier = new EnumMap<>(SubscriptionTier.class);
+    private final Map<UUID, CachedSubscription> subscriptions = new ConcurrentHashMap<>();
 
     // Metrics
     private final Counter usageCheckCounter;
@@ -51,14 +75,31 @@ public class UsageTrackingService {
     private final Timer usageCheckTimer;
     private final Timer usageIncrementTimer;
 
+    /**
+     * The part of a user's active subscription usage checks need
+     */
+    private record CachedSubscription(UUID subscriptionId, SubscriptionTier tier, boolean active,
+                                      long expiresAtNanos) {}
+
     public UsageTrackingService(SubscriptionRepository subscriptionRepository,
                                UsageTrackingRepository usageTrackingRepository,
+                               UsageArchiveRepository usageArchiveRepository,
+                               UsageMeter usageMeter,
                                StructuredLoggingService loggingService,
-                               MeterRegistry meterRegistry) {
+                               MeterRegistry meterRegistry,
+                               @Value("${subscription.usage.subscription-cache-ttl-ms:30000}") long subscriptionCacheTtlMillis) {
         this.subscriptionRepository = subscriptionRepository;
         this.usageTrackingRepository = usageTrackingRepository;
+        this.usageArchiveRepository = usageArchiveRepository;
+        this.usageMeter = usageMeter;
         this.loggingService = loggingService;
         this.meterRegistry = meterRegistry;
+        this.subscriptionCacheTtlNanos = TimeUnit.MILLISECONDS.toNanos(subscriptionCacheTtlMillis);
+
+        // Tiers build their limits on every call; resolve them once
+        for (SubscriptionTier tier : SubscriptionTier.values()) {
+            limitsByTier.put(tier, tier.getLimits());
+        }
         
         // Initialize metrics
         this.usageCheckCounter = Counter.builder("subscription.usage.checks")
@@ -82,157 +123,122 @@ public class UsageTrackingService {
             .register(meterRegistry);
         
         // Register gauges for active usage tracking
-        Gauge.builder("subscription.usage.active.tracks")
-            .description("Number of active usage tracking records")
-            .register(meterRegistry, this, UsageTrackingService::getActiveUsageTrackingCount);
+        Gauge.builder("subscription.usage.active.tracks", usageMeter, UsageMeter::activeCount)
+            .description("Number of usage counters held in memory")
+            .register(meterRegistry);
     }
 
     /**
      * Check if a user has access to a feature based on their subscription limits
      */
-    @Transactional(readOnly = true)
     public CompletableFuture<Boolean> checkFeatureAccess(UUID userId, String featureName) {
-        return CompletableFuture.supplyAsync(() -> {
-            Timer.Sample sample = Timer.start(meterRegistry);
-            
-            try {
-                usageCheckCounter.increment();
-                
-                Subscription subscription = subscriptionRepository.findActiveSubscriptionByUserId(userId)
-                    .orElseThrow(() -> new SubscriptionNotFoundException("No active subscription found for user: " + userId));
-
-                if (subscription.getStatus() != SubscriptionStatus.ACTIVE) {
-                    loggingService.logBusinessEvent(
-                        "feature_access_denied",
-                        userId.toString(),
-                        subscription.getId().toString(),
-                        "subscription_inactive",
-                        null
-                    );
-                    return false;
-                }
-
-                SubscriptionLimits limits = subscription.getTier().getLimits();
-                Long featureLimit = getFeatureLimit(limits, featureName);
-                
-                if (featureLimit == null || featureLimit == -1) {
-                    // Unlimited access
-                    return true;
-                }
-
-                UsageTracking currentUsage = getCurrentUsageTracking(userId, featureName);
-                boolean hasAccess = currentUsage.getUsageCount() < featureLimit;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            usageCheckCounter.increment();
 
-                if (!hasAccess) {
-                    limitExceededCounter.increment();
-                    loggingService.logBusinessEvent(
-                        "feature_limit_exceeded",
-                        userId.toString(),
-                        subscription.getId().toString(),
-                        featureName,
-                        null
-                    );
-                }
+            CachedSubscription subscription = activeSubscription(userId);
+            if (!subscription.active()) {
+                loggingService.logUsageEvent("feature_access_denied", userId.toString(),
+                    subscription.subscriptionId().toString(), featureName, null, null, "subscription_inactive", null);
+                return CompletableFuture.completedFuture(false);
+            }
 
-                loggingService.logBusinessEvent(
-                    "feature_access_check",
-                    userId.toString(),
-                    subscription.getId().toString(),
-                    featureName,
-                    null
-                );
+            long featureLimit = getFeatureLimit(subscription.tier(), featureName);
+            if (featureLimit == -1) {
+                // Unlimited access
+                return CompletableFuture.completedFuture(true);
+            }
 
-                return hasAccess;
-                
-            } catch (Exception e) {
-                log.error("Error checking feature access for user: {} and feature: {}", userId, featureName, e);
-                throw e;
-            } finally {
-                sample.stop(usageCheckTimer);
+            long usage = usageMeter.usage(userId, featureName, subscription.subscriptionId(), featureLimit);
+            boolean hasAccess = usage < featureLimit;
+            if (!hasAccess) {
+                limitExceededCounter.increment();
+                loggingService.logUsageEvent("feature_limit_exceeded", userId.toString(),
+                    subscription.subscriptionId().toString(), featureName, String.valueOf(usage),
+                    String.valueOf(featureLimit), "denied", null);
             }
-        });
+            return CompletableFuture.completedFuture(hasAccess);
+
+        } catch (RuntimeException e) {
+            log.error("Error checking feature access for user: {} and feature: {}", userId, featureName, e);
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            sample.stop(usageCheckTimer);
+        }
     }
 
     /**
-     * Increment usage for a specific feature
+     * Increment usage for a specific feature; fails with UsageLimitExceededException,
+     * counting nothing, if the increment would take usage over the limit
      */
-    @Async("subscriptionProcessingExecutor")
-    @Transactional
     public CompletableFuture<Void> incrementUsage(UUID userId, String featureName, Long incrementBy) {
-        return CompletableFuture.runAsync(() -> {
-            Timer.Sample sample = Timer.start(meterRegistry);
-            
-            try {
-                usageIncrementCounter.increment();
-                
-                Subscription subscription = subscriptionRepository.findActiveSubscriptionByUserId(userId)
-                    .orElseThrow(() -> new SubscriptionNotFoundException("No active subscription found for user: " + userId));
-
-                SubscriptionLimits limits = subscription.getTier().getLimits();
-                Long featureLimit = getFeatureLimit(limits, featureName);
-                
-                UsageTracking usageTracking = getCurrentUsageTracking(userId, featureName);
-                Long newUsageCount = usageTracking.getUsageCount() + incrementBy;
-                
-                // Check if increment would exceed limit
-                if (featureLimit != null && featureLimit != -1 && newUsageCount > featureLimit) {
-                    throw new UsageLimitExceededException(
-                        userId, 
-                        featureName, 
-                        newUsageCount, 
-                        featureLimit
-                    );
-                }
-                
-                // Update usage
-                usageTracking.setUsageCount(newUsageCount);
-                usageTracking.setLastUpdated(LocalDateTime.now());
-                usageTrackingRepository.save(usageTracking);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            usageIncrementCounter.increment();
 
-                loggingService.logBusinessEvent(
-                    "usage_incremented",
-                    userId.toString(),
-                    subscription.getId().toString(),
-                    featureName,
-                    null
-                );
+            CachedSubscription subscription = activeSubscription(userId);
+            long featureLimit = getFeatureLimit(subscription.tier(), featureName);
 
-                log.info("Usage incremented for user: {}, feature: {}, new count: {}", 
-                        userId, featureName, newUsageCount);
-                        
-            } catch (Exception e) {
-                log.error("Error incrementing usage for user: {} and feature: {}", userId, featureName, e);
-                throw e;
-            } finally {
-                sample.stop(usageIncrementTimer);
+            UsageMeter.Result result = usageMeter.tryIncrement(
+                userId, featureName, subscription.subscriptionId(), featureLimit, incrementBy);
+            if (!result.accepted()) {
+                limitExceededCounter.increment();
+                loggingService.logUsageEvent("feature_limit_exceeded", userId.toString(),
+                    subscription.subscriptionId().toString(), featureName, String.valueOf(result.usageCount()),
+                    String.valueOf(featureLimit), "rejected", null);
+                return CompletableFuture.failedFuture(new UsageLimitExceededException(
+                    userId, featureName, result.usageCount() + incrementBy, featureLimit));
             }
-        });
+
+            log.debug("Usage incremented for user: {}, feature: {}, new count: {}",
+                    userId, featureName, result.usageCount());
+            return CompletableFuture.completedFuture(null);
+
+        } catch (RuntimeException e) {
+            log.error("Error incrementing usage for user: {} and feature: {}", userId, featureName, e);
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            sample.stop(usageIncrementTimer);
+        }
+    }
+
+    /**
+     * Validate usage before performing an operation; the limit check and the
+     * increment are one atomic step
+     */
+    public CompletableFuture<Void> validateAndIncrementUsage(UUID userId, String featureName) {
+        return incrementUsage(userId, featureName, 1L);
     }
 
     /**
      * Get current usage for a user and feature
      */
-    @Transactional(readOnly = true)
     public CompletableFuture<Long> getCurrentUsage(UUID userId, String featureName) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                UsageTracking usageTracking = getCurrentUsageTracking(userId, featureName);
-                return usageTracking.getUsageCount();
-            } catch (Exception e) {
-                log.error("Error getting current usage for user: {} and feature: {}", userId, featureName, e);
-                return 0L;
-            }
-        });
+        try {
+            CachedSubscription subscription = activeSubscription(userId);
+            return CompletableFuture.completedFuture(usageMeter.usage(userId, featureName,
+                subscription.subscriptionId(), getFeatureLimit(subscription.tier(), featureName)));
+        } catch (RuntimeException e) {
+            log.error("Error getting current usage for user: {} and feature: {}", userId, featureName, e);
+            return CompletableFuture.completedFuture(0L);
+        }
     }
 
     /**
-     * Get usage statistics for a user
+     * Get usage statistics for a user, archived periods included; rows lag the meter by up to one flush interval
      */
     @Transactional(readOnly = true)
     public CompletableFuture<List<UsageTracking>> getUserUsageStats(UUID userId, LocalDate month) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                return usageTrackingRepository.findByUserIdAndUsagePeriod(userId, month);
+                LocalDateTime monthStart = UsagePeriod.MONTHLY.startOf(month.atStartOfDay());
+                LocalDateTime monthEnd = UsagePeriod.MONTHLY.endOf(monthStart);
+                List<UsageTracking> usage = new ArrayList<>(
+                    usageTrackingRepository.findByUserIdAndPeriodStartIn(userId, monthStart, monthEnd));
+                usage.addAll(usageArchiveRepository.findByUserIdAndPeriodStartIn(userId, monthStart, monthEnd));
+                usage.sort(Comparator.comparing(UsageTracking::getFeatureName)
+                                     .thenComparing(UsageTracking::getPeriodStart));
+                return usage;
             } catch (Exception e) {
                 log.error("Error getting usage stats for user: {} and month: {}", userId, month, e);
                 return List.of();
@@ -241,128 +247,61 @@ public class UsageTrackingService {
     }
 
     /**
-     * Reset usage for a specific period (called monthly)
+     * Get comprehensive usage report for a user, archived periods included, latest period first
      */
-    @Async("subscriptionProcessingExecutor")
-    @Transactional
-    public CompletableFuture<Void> resetMonthlyUsage(LocalDate period) {
-        return CompletableFuture.runAsync(() -> {
+    @Transactional(readOnly = true)
+    public CompletableFuture<List<UsageTracking>> getComprehensiveUsageReport(UUID userId) {
+        return CompletableFuture.supplyAsync(() -> {
             try {
-                List<UsageTracking> usageRecords = usageTrackingRepository.findByUsagePeriod(period);
-                
-                for (UsageTracking usage : usageRecords) {
-                    usage.setUsageCount(0L);
-                    usage.setLastUpdated(LocalDateTime.now());
-                }
-                
-                usageTrackingRepository.saveAll(usageRecords);
-                
-                loggingService.logSystemEvent(
-                    "monthly_usage_reset",
-                    "info",
-                    "Monthly usage reset completed",
-                    "SYSTEM",
-                    null
-                );
-
-                log.info("Monthly usage reset completed for period: {}, records updated: {}", 
-                        period, usageRecords.size());
-                        
+                List<UsageTracking> usage = new ArrayList<>(
+                    usageTrackingRepository.findByUserIdOrderByPeriodStartDesc(userId));
+                usage.addAll(usageArchiveRepository.findByUserId(userId));
+                usage.sort(Comparator.comparing(UsageTracking::getPeriodStart).reversed());
+                return usage;
             } catch (Exception e) {
-                log.error("Error resetting monthly usage for period: {}", period, e);
-                loggingService.logError(
-                    "monthly_usage_reset_error",
-                    e.getMessage(),
-                    "USAGE_RESET_ERROR",
-                    e,
-                    null
-                );
-                throw e;
+                log.error("Error getting comprehensive usage report for user: {}", userId, e);
+                return List.of();
             }
         });
     }
 
-    /**
-     * Get feature limit from subscription limits
-     */
-    private Long getFeatureLimit(SubscriptionLimits limits, String featureName) {
-        return switch (featureName.toLowerCase()) {
-            case "api_calls" -> limits.getApiCallsPerMonth();
-            case "portfolios" -> limits.getMaxPortfolios();
-            case "watchlists" -> limits.getMaxWatchlists();
-            case "alerts" -> limits.getMaxAlerts();
-            case "backtests" -> limits.getMaxBacktests();
-            case "ai_insights" -> limits.getAiInsightsPerMonth();
-            case "advanced_analytics" -> limits.getAdvancedAnalyticsAccess() ? -1L : 0L;
-            case "priority_support" -> limits.getPrioritySupportAccess() ? -1L : 0L;
-            case "data_export" -> limits.getDataExportAccess() ? -1L : 0L;
-            case "api_access" -> limits.getApiAccess() ? -1L : 0L;
-            default -> {
-                log.warn("Unknown feature name: {}", featureName);
-                yield 0L;
-            }
-        };
-    }
+    // ========== Limits and Subscriptions ==========
 
     /**
-     * Get or create usage tracking record
+     * Get feature limit for a tier: -1 for unlimited, 0 for no access
      */
-    private UsageTracking getCurrentUsageTracking(UUID userId, String featureName) {
-        LocalDate currentPeriod = LocalDate.now();
-        
-        return usageTrackingRepository.findByUserIdAndFeatureNameAndUsagePeriod(
-            userId, featureName, currentPeriod
-        ).orElseGet(() -> {
-            UsageTracking newUsageTracking = new UsageTracking();
-            newUsageTracking.setUserId(userId);
-            newUsageTracking.setFeatureName(featureName);
-            newUsageTracking.setUsagePeriod(currentPeriod);
-            newUsageTracking.setUsageCount(0L);
-            newUsageTracking.setLastUpdated(LocalDateTime.now());
-            return usageTrackingRepository.save(newUsageTracking);
-        });
+    private long getFeatureLimit(SubscriptionTier tier, String featureName) {
+        SubscriptionLimits limits = limitsByTier.get(tier);
+        return limits.isUnlimited(featureName) ? -1L : limits.getLimitValue(featureName);
     }
 
     /**
-     * Get count of active usage tracking records for metrics
+     * The user's active subscription, from the cache while it is fresh
      */
-    private double getActiveUsageTrackingCount() {
-        try {
-            return usageTrackingRepository.countByUsagePeriod(LocalDate.now()).doubleValue();
-        } catch (Exception e) {
-            log.warn("Error getting active usage tracking count", e);
-            return 0.0;
+    private CachedSubscription activeSubscription(UUID userId) {
+        long now = System.nanoTime();
+        CachedSubscription cached = subscriptions.get(userId);
+        if (cached != null && now - cached.expiresAtNanos() < 0) {
+            return cached;
         }
+        Subscription subscription = subscriptionRepository.findActiveByUserId(userId, ACTIVE_STATUSES)
+            .orElseThrow(() -> new SubscriptionNotFoundException("No active subscription found for user: " + userId));
+        CachedSubscription loaded = new CachedSubscription(subscription.getId(), subscription.getTier(),
+            subscription.getStatus() == SubscriptionStatus.ACTIVE, now + subscriptionCacheTtlNanos);
+        subscriptions.put(userId, loaded);
+        return loaded;
     }
 
     /**
-     * Validate usage before performing an operation
+     * Drop a user's cached subscription, e.g. after a tier change
      */
-    @Transactional
-    public CompletableFuture<Void> validateAndIncrementUsage(UUID userId, String featureName) {
-        return checkFeatureAccess(userId, featureName)
-            .thenCompose(hasAccess -> {
-                if (!hasAccess) {
-                    return CompletableFuture.failedFuture(
-                        new UsageLimitExceededException(userId, featureName, "Usage limit exceeded")
-                    );
-                }
-                return incrementUsage(userId, featureName, 1L);
-            });
+    public void evictSubscription(UUID userId) {
+        subscriptions.remove(userId);
     }
 
-    /**
-     * Get comprehensive usage report for a user
-     */
-    @Transactional(readOnly = true)
-    public CompletableFuture<List<UsageTracking>> getComprehensiveUsageReport(UUID userId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return usageTrackingRepository.findByUserIdOrderByUsagePeriodDesc(userId);
-            } catch (Exception e) {
-                log.error("Error getting comprehensive usage report for user: {}", userId, e);
-                return List.of();
-            }
-        });
+    @Scheduled(fixedDelayString = "${subscription.usage.subscription-cache-ttl-ms:30000}")
+    public void evictExpiredSubscriptions() {
+        long now = System.nanoTime();
+        subscriptions.values().removeIf(cached -> now - cached.expiresAtNanos() >= 0);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+-- V002__Add_billing_leases.sql
+-- TradeMaster Subscription Service Billing Run Leases and Attempts
+-- Author: TradeMaster Development Team
+-- Version: 1.0.0
+
+-- Lease taken by the billing run that is charging a subscription
+ALTER TABLE subscriptions ADD COLUMN billing_lease_owner VARCHAR(100);
+ALTER TABLE subscriptions ADD COLUMN billing_lease_until TIMESTAMP;
+
+-- Due subscriptions in billing order; covers the billing run's claim query
+CREATE INDEX idx_subscription_billing_due ON subscriptions(next_billing_date)
+    WHERE status = 'ACTIVE' AND auto_renewal = true;
+
+-- Create billing_attempts table
+CREATE TABLE billing_attempts (
+    idempotency_key VARCHAR(120) PRIMARY KEY,
+    subscription_id UUID NOT NULL,
+    billing_date TIMESTAMP NOT NULL,
+    attempt INTEGER NOT NULL,
+    amount DECIMAL(10,2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'SUCCEEDED', 'FAILED')),
+    transaction_id VARCHAR(100),
+    failure_reason TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP,
+    CONSTRAINT fk_billing_attempt_subscription FOREIGN KEY (subscription_id) REFERENCES subscriptions(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_billing_attempt_subscription ON billing_attempts(subscription_id, billing_date);
+
+-- Add comments for documentation
+COMMENT ON TABLE billing_attempts IS 'One row per charge of a billing cycle, keyed by the idempotency key sent to the gateway';
+
+COMMENT ON COLUMN subscriptions.billing_lease_owner IS 'Billing run currently charging the subscription';
+COMMENT ON COLUMN subscriptions.billing_lease_until IS 'Lease expiry; after it another run may claim the subscription';
+COMMENT ON COLUMN billing_attempts.idempotency_key IS 'subscription id, billing date and attempt number; retries of an unanswered charge reuse it';
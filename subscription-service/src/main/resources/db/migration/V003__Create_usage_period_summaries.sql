@@ -0,0 +1,24 @@
+-- V003__Create_usage_period_summaries.sql
+-- TradeMaster Subscription Service Usage Archive
+-- Author: TradeMaster Development Team
+-- Version: 1.0.0
+
+-- Create usage_period_summaries table: closed usage periods moved out of usage_tracking
+CREATE TABLE usage_period_summaries (
+    user_id UUID NOT NULL,
+    feature_name VARCHAR(50) NOT NULL,
+    period_start TIMESTAMP NOT NULL,
+    period_end TIMESTAMP NOT NULL,
+    subscription_id UUID NOT NULL,
+    usage_count BIGINT NOT NULL,
+    usage_limit BIGINT NOT NULL,
+    exceeded_count INTEGER NOT NULL DEFAULT 0,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id, feature_name, period_start)
+);
+
+CREATE INDEX idx_usage_summary_subscription ON usage_period_summaries(subscription_id);
+
+-- Add comments for documentation
+COMMENT ON TABLE usage_period_summaries IS 'Final usage of closed periods, archived from usage_tracking after the retention period';
+COMMENT ON COLUMN usage_period_summaries.usage_count IS 'Usage at the close of the period';
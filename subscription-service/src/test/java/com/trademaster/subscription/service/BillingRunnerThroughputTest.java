@@ -0,0 +1,350 @@
+package com.trademaster.subscription.service;
+
+import com.trademaster.subscription.entity.SubscriptionHistory;
+import com.trademaster.subscription.event.SubscriptionEvent;
+import com.trademaster.subscription.event.SubscriptionEventPublisher;
+import com.trademaster.subscription.repository.BillingRunRepository;
+import com.trademaster.subscription.repository.BillingRunRepository.DueSubscription;
+import com.trademaster.subscription.repository.SubscriptionHistoryRepository;
+import com.trademaster.subscription.repository.SubscriptionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Billing Runner Throughput Test
+ *
+ * Bills 100,000 due subscriptions with two BillingRunners running at once,
+ * standing in for two pods, against an in-memory H2 database in PostgreSQL
+ * mode and a local mock gateway with a fixed latency per charge. The mock
+ * declines some cards, loses the response to some charges after making
+ * them, and counts the charges it makes per subscription, so the test can
+ * check that every subscription is charged exactly once per billing cycle,
+ * and that each outcome is recorded in the history and published once.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+class BillingRunnerThroughputTest {
+
+    private static final int SUBSCRIPTIONS = 100_000;
+    private static final long GATEWAY_LATENCY_MS = 2;
+    private static final int DECLINE_EVERY = 50;
+    private static final int LOST_RESPONSE_EVERY = 200;
+
+    private static final String SCHEMA = """
+        CREATE TABLE subscriptions (
+            id UUID PRIMARY KEY,
+            user_id UUID NOT NULL,
+            tier VARCHAR(50) NOT NULL,
+            status VARCHAR(50) NOT NULL,
+            billing_cycle VARCHAR(20) NOT NULL,
+            billing_amount DECIMAL(10,2) NOT NULL,
+            currency VARCHAR(3) NOT NULL,
+            next_billing_date TIMESTAMP,
+            last_billing_date TIMESTAMP,
+            failed_billing_attempts INTEGER NOT NULL DEFAULT 0,
+            auto_renewal BOOLEAN NOT NULL DEFAULT true,
+            payment_method_id UUID,
+            billing_lease_owner VARCHAR(100),
+            billing_lease_until TIMESTAMP,
+            updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+            version BIGINT NOT NULL DEFAULT 0
+        );
+        CREATE INDEX idx_subscription_billing_due ON subscriptions(next_billing_date);
+        CREATE TABLE billing_attempts (
+            idempotency_key VARCHAR(120) PRIMARY KEY,
+            subscription_id UUID NOT NULL REFERENCES subscriptions(id),
+            billing_date TIMESTAMP NOT NULL,
+            attempt INTEGER NOT NULL,
+            amount DECIMAL(10,2) NOT NULL,
+            currency VARCHAR(3) NOT NULL,
+            status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+            transaction_id VARCHAR(100),
+            failure_reason VARCHAR(1000),
+            created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+            completed_at TIMESTAMP
+        )
+        """;
+
+    private final LocalDateTime now = LocalDateTime.of(2026, 10, 1, 2, 0);
+
+    private JdbcConnectionPool dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private BillingRunRepository repository;
+    private final SubscriptionHistoryRepository historyRepository = mock(SubscriptionHistoryRepository.class);
+    private final SubscriptionEventPublisher eventPublisher = mock(SubscriptionEventPublisher.class);
+    private BillingService billingService;
+    private MockGateway gateway;
+    private final List<UUID> ids = new ArrayList<>();
+    private final Set<UUID> declined = new HashSet<>();
+    private final Set<UUID> lostResponses = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        dataSource = JdbcConnectionPool.create(
+            "jdbc:h2:mem:billing-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        dataSource.setMaxConnections(32);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(SCHEMA);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        repository = new BillingRunRepository(jdbcTemplate, transactionManager);
+        billingService = new BillingService(mock(SubscriptionRepository.class), historyRepository, repository,
+                                            eventPublisher, new StructuredLoggingService(), null,
+                                            new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(billingService, "maxRetryAttempts", 3);
+        gateway = new MockGateway();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.dispose();
+    }
+
+    @Test
+    void twoPodsBillHundredThousandSubscriptionsOnce() throws Exception {
+        seed(SUBSCRIPTIONS);
+
+        List<BillingRunner.BillingRunReport> reports = runConcurrently(runner(), runner());
+        BillingRunner.BillingRunReport first = reports.get(0);
+        BillingRunner.BillingRunReport second = reports.get(1);
+        int claimed = first.claimed() + second.claimed();
+        double elapsedSeconds = Math.max(first.elapsed().toNanos(), second.elapsed().toNanos()) / 1e9;
+        System.out.printf("Billed %d subscriptions in %.2f s (%.0f/s) across two runners: %s, %s%n",
+                          claimed, elapsedSeconds, claimed / elapsedSeconds, first, second);
+
+        assertThat(claimed).isEqualTo(SUBSCRIPTIONS);
+        assertThat(first.claimed()).isPositive();
+        assertThat(second.claimed()).isPositive();
+        assertThat(first.succeeded() + second.succeeded())
+            .isEqualTo(SUBSCRIPTIONS - declined.size() - lostResponses.size());
+        assertThat(first.failed() + second.failed()).isEqualTo(declined.size());
+        assertThat(first.deferred() + second.deferred()).isEqualTo(lostResponses.size());
+
+        // Every subscription was charged exactly once, and only the charged ones moved on
+        assertThat(gateway.charges).hasSize(SUBSCRIPTIONS);
+        assertThat(gateway.charges.values()).allMatch(count -> count.get() == 1);
+        assertThat(count("SELECT COUNT(*) FROM subscriptions WHERE last_billing_date IS NOT NULL"))
+            .isEqualTo(SUBSCRIPTIONS - declined.size() - lostResponses.size());
+        assertThat(count("SELECT COUNT(*) FROM subscriptions WHERE failed_billing_attempts = 1"))
+            .isEqualTo(declined.size());
+        assertThat(count("SELECT COUNT(*) FROM subscriptions WHERE billing_lease_owner IS NOT NULL")).isZero();
+        assertThat(count("SELECT COUNT(*) FROM billing_attempts WHERE status = 'PENDING'"))
+            .isEqualTo(lostResponses.size());
+        int renewed = SUBSCRIPTIONS - declined.size() - lostResponses.size();
+        verify(eventPublisher, times(renewed)).publishSubscriptionEvent(event(SubscriptionEvent.SUBSCRIPTION_RENEWED));
+        verify(eventPublisher, times(declined.size())).publishPaymentFailed(any());
+        verify(historyRepository, times(renewed)).save(history(SubscriptionHistory.ChangeType.PAYMENT_SUCCEEDED));
+        verify(historyRepository, times(declined.size())).save(history(SubscriptionHistory.ChangeType.PAYMENT_FAILED));
+
+        // The next run retries declines under a new key and lost responses under the old one
+        BillingRunner.BillingRunReport retry = runner().run(now.plusHours(25));
+        assertThat(retry.claimed()).isEqualTo(declined.size() + lostResponses.size());
+        assertThat(retry.succeeded()).isEqualTo(lostResponses.size());
+        for (UUID id : ids) {
+            assertThat(gateway.charges.get(id).get()).isEqualTo(declined.contains(id) ? 2 : 1);
+        }
+        assertThat(count("SELECT COUNT(*) FROM billing_attempts WHERE status = 'PENDING'")).isZero();
+        assertThat(count("SELECT COUNT(*) FROM subscriptions WHERE last_billing_date IS NOT NULL"))
+            .isEqualTo(SUBSCRIPTIONS - declined.size());
+
+        // A third decline suspends the subscription
+        runner().run(now.plusHours(50));
+        assertThat(count("SELECT COUNT(*) FROM subscriptions WHERE status = 'SUSPENDED'")).isEqualTo(declined.size());
+        verify(eventPublisher, times(declined.size()))
+            .publishSubscriptionEvent(event(SubscriptionEvent.SUBSCRIPTION_SUSPENDED));
+        verify(historyRepository, times(declined.size())).save(history(SubscriptionHistory.ChangeType.SUSPENDED));
+        verify(eventPublisher, times(declined.size() * 2)).publishPaymentFailed(any());
+        assertThat(runner().run(now.plusHours(75)).claimed()).isZero();
+    }
+
+    @Test
+    void expiredLeaseOfDeadRunIsTakenOverWithoutChargingTwice() {
+        seed(1_000);
+
+        // A run claims a chunk, charges half of it and dies before recording anything
+        List<DueSubscription> orphaned = repository.claimDue("dead-pod", now, now.plusMinutes(15), 100);
+        gateway.loseResponses.set(false);
+        for (DueSubscription subscription : orphaned.subList(0, 50)) {
+            repository.startAttempt(subscription, now);
+            gateway.charge(new PaymentGatewayClient.ChargeRequest(subscription.idempotencyKey(), subscription.id(),
+                subscription.userId(), subscription.paymentMethodId(), subscription.billingAmount(),
+                subscription.currency(), "renewal"));
+        }
+
+        // While the lease holds, another run leaves the chunk alone
+        assertThat(runner().run(now.plusMinutes(1)).claimed()).isEqualTo(900);
+        // Once it runs out, the chunk is billed, replaying the charges already made
+        BillingRunner.BillingRunReport takeover = runner().run(now.plusMinutes(20));
+        assertThat(takeover.claimed()).isEqualTo(100);
+
+        for (DueSubscription subscription : orphaned) {
+            assertThat(gateway.charges.get(subscription.id()).get()).isEqualTo(1);
+        }
+        assertThat(count("SELECT COUNT(*) FROM billing_attempts")).isEqualTo(1_000);
+        assertThat(count("SELECT COUNT(*) FROM billing_attempts WHERE status = 'SUCCEEDED'"))
+            .isEqualTo(1_000 - declined.size());
+    }
+
+    @Test
+    void outcomesArePublishedOnlyOnceCommitted() {
+        seed(3);
+        List<DueSubscription> claimed = repository.claimDue("pod", now, now.plusMinutes(15), 3);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        // A rolled back renewal publishes nothing
+        transaction.executeWithoutResult(status -> {
+            assertThat(billingService.recordRecurringPayment(claimed.get(0), "pod", "txn-1", now)).isTrue();
+            status.setRollbackOnly();
+        });
+        verify(eventPublisher, never()).publishSubscriptionEvent(any());
+        assertThat(count("SELECT COUNT(*) FROM subscriptions WHERE last_billing_date IS NOT NULL")).isZero();
+
+        // A committed one publishes after the commit, not before
+        transaction.executeWithoutResult(status -> {
+            assertThat(billingService.recordRecurringPayment(claimed.get(0), "pod", "txn-1", now)).isTrue();
+            verify(eventPublisher, never()).publishSubscriptionEvent(any());
+        });
+        verify(eventPublisher).publishSubscriptionEvent(event(SubscriptionEvent.SUBSCRIPTION_RENEWED));
+
+        // A decline under a lost lease records and publishes nothing
+        transaction.executeWithoutResult(status ->
+            assertThat(billingService.recordRecurringPaymentFailure(claimed.get(1), "other-pod", "card_declined",
+                                                                    now.plusDays(1), now)).isFalse());
+        verify(eventPublisher, never()).publishPaymentFailed(any());
+        assertThat(count("SELECT COUNT(*) FROM subscriptions WHERE failed_billing_attempts > 0")).isZero();
+    }
+
+    private BillingRunner runner() {
+        return new BillingRunner(repository, billingService, gateway, new StructuredLoggingService(),
+                                 new SimpleMeterRegistry(), 500, 64, 15, 24);
+    }
+
+    private static SubscriptionEvent event(String eventType) {
+        return argThat(event -> event != null && eventType.equals(event.getEventType()));
+    }
+
+    private static SubscriptionHistory history(SubscriptionHistory.ChangeType changeType) {
+        return argThat(history -> history != null && history.getChangeType() == changeType);
+    }
+
+    private List<BillingRunner.BillingRunReport> runConcurrently(BillingRunner... runners) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(runners.length);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<BillingRunner.BillingRunReport>> futures = new ArrayList<>();
+            for (BillingRunner runner : runners) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return runner.run(now);
+                }));
+            }
+            start.countDown();
+            List<BillingRunner.BillingRunReport> reports = new ArrayList<>();
+            for (Future<BillingRunner.BillingRunReport> future : futures) {
+                reports.add(future.get());
+            }
+            return reports;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void seed(int subscriptions) {
+        String[] cycles = {"MONTHLY", "MONTHLY", "MONTHLY", "QUARTERLY", "ANNUAL"};
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < subscriptions; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            if (i % DECLINE_EVERY == 0) {
+                declined.add(id);
+            } else if (i % LOST_RESPONSE_EVERY == 1) {
+                lostResponses.add(id);
+            }
+            rows.add(new Object[] {
+                id, UUID.randomUUID(), "PRO", "ACTIVE", cycles[i % cycles.length], new BigDecimal("999.00"), "INR",
+                Timestamp.valueOf(now.minusDays(1).minusSeconds(i)), UUID.randomUUID()
+            });
+            if (rows.size() == 1_000 || i == subscriptions - 1) {
+                jdbcTemplate.batchUpdate("""
+                    INSERT INTO subscriptions (id, user_id, tier, status, billing_cycle, billing_amount, currency,
+                        next_billing_date, payment_method_id)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                    """, rows);
+                rows.clear();
+            }
+        }
+        gateway.declined.addAll(declined);
+        gateway.lostResponses.addAll(lostResponses);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    /**
+     * Gateway stand-in: idempotent per key, with a fixed latency per call
+     */
+    private static final class MockGateway implements PaymentGatewayClient {
+
+        private final Map<String, ChargeResult> results = new ConcurrentHashMap<>();
+        private final Map<UUID, AtomicInteger> charges = new ConcurrentHashMap<>();
+        private final Set<UUID> declined = ConcurrentHashMap.newKeySet();
+        private final Set<UUID> lostResponses = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean loseResponses = new AtomicBoolean(true);
+
+        @Override
+        public ChargeResult charge(ChargeRequest request) {
+            try {
+                Thread.sleep(GATEWAY_LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            AtomicBoolean charged = new AtomicBoolean();
+            ChargeResult result = results.computeIfAbsent(request.idempotencyKey(), key -> {
+                charged.set(true);
+                charges.computeIfAbsent(request.subscriptionId(), id -> new AtomicInteger()).incrementAndGet();
+                return declined.contains(request.subscriptionId())
+                    ? ChargeResult.declined("card_declined")
+                    : ChargeResult.succeeded(UUID.randomUUID().toString());
+            });
+            if (charged.get() && loseResponses.get() && lostResponses.contains(request.subscriptionId())) {
+                throw new IllegalStateException("Payment gateway timed out");
+            }
+            return result;
+        }
+    }
+}
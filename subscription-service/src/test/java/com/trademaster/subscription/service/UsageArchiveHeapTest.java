@@ -0,0 +1,165 @@
+package com.trademaster.subscription.service;
+
+import com.trademaster.subscription.repository.UsageArchiveRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Usage Archive Heap Test
+ *
+ * Archives 5,000,000 closed usage rows from a file-backed H2 database in
+ * PostgreSQL mode and samples the live heap after forced collections while
+ * it runs. Rows never pass through the application, so the live heap stays
+ * within a small bound while loading the rows as entities, as the monthly
+ * reset did, would need gigabytes.
+ *
+ * Seeding takes minutes, so the test is left out of the default run; enable
+ * it with {@code ./gradlew test -Pusage.archive.heap-test}.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+@EnabledIfSystemProperty(named = "usage.archive.heap-test", matches = "true")
+class UsageArchiveHeapTest {
+
+    private static final int ROWS = 5_000_000;
+    private static final int SEED_CHUNK = 250_000;
+    // Every 100th row belongs to the current, still open period
+    private static final int OPEN_EVERY = 100;
+    private static final long HEAP_BOUND_BYTES = 64L * 1024 * 1024;
+
+    private static final String SCHEMA = """
+        CREATE TABLE usage_tracking (
+            id UUID PRIMARY KEY,
+            user_id UUID NOT NULL,
+            subscription_id UUID NOT NULL,
+            feature_name VARCHAR(50) NOT NULL,
+            usage_count BIGINT NOT NULL DEFAULT 0,
+            usage_limit BIGINT NOT NULL,
+            period_start TIMESTAMP NOT NULL,
+            period_end TIMESTAMP NOT NULL,
+            exceeded_count INTEGER NOT NULL DEFAULT 0
+        );
+        CREATE UNIQUE INDEX uk_usage_user_feature_period ON usage_tracking(user_id, feature_name, period_start);
+        CREATE TABLE usage_period_summaries (
+            user_id UUID NOT NULL,
+            feature_name VARCHAR(50) NOT NULL,
+            period_start TIMESTAMP NOT NULL,
+            period_end TIMESTAMP NOT NULL,
+            subscription_id UUID NOT NULL,
+            usage_count BIGINT NOT NULL,
+            usage_limit BIGINT NOT NULL,
+            exceeded_count INTEGER NOT NULL DEFAULT 0,
+            archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+            PRIMARY KEY (user_id, feature_name, period_start)
+        )
+        """;
+
+    private static final String SEED = """
+        INSERT INTO usage_tracking (id, user_id, subscription_id, feature_name, usage_count, usage_limit,
+            period_start, period_end, exceeded_count)
+        SELECT CAST('00000000-0000-0000-0000-' || LPAD(CAST(X AS VARCHAR), 12, '0') AS UUID),
+            CAST('00000000-0000-0000-0000-' || LPAD(CAST(X / 5 AS VARCHAR), 12, '0') AS UUID),
+            RANDOM_UUID(), 'feature_' || MOD(X, 5), MOD(X, 1000), 1000,
+            CASE WHEN MOD(X, %1$d) = 0 THEN TIMESTAMP '2026-10-01 00:00:00' ELSE TIMESTAMP '2026-08-01 00:00:00' END,
+            CASE WHEN MOD(X, %1$d) = 0 THEN TIMESTAMP '2026-11-01 00:00:00' ELSE TIMESTAMP '2026-09-01 00:00:00' END,
+            MOD(X, 3)
+        FROM SYSTEM_RANGE(?, ?)
+        """.formatted(OPEN_EVERY);
+
+    @TempDir
+    Path directory;
+
+    private JdbcConnectionPool dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // File-backed with a small page cache, so the table itself is not on the heap
+        dataSource = JdbcConnectionPool.create(
+            "jdbc:h2:" + directory.resolve("usage") + ";MODE=PostgreSQL;CACHE_SIZE=16384;RETENTION_TIME=0", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(SCHEMA);
+        for (int from = 1; from <= ROWS; from += SEED_CHUNK) {
+            jdbcTemplate.update(SEED, from, from + SEED_CHUNK - 1);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.dispose();
+    }
+
+    @Test
+    void archivingFiveMillionRowsKeepsHeapBounded() throws Exception {
+        long openRows = ROWS / OPEN_EVERY;
+        long closedRows = ROWS - openRows;
+        long usageBefore = count("SELECT SUM(usage_count) FROM usage_tracking");
+        UsageArchiveService archiveService = new UsageArchiveService(
+            new UsageArchiveRepository(jdbcTemplate, new DataSourceTransactionManager(dataSource)),
+            new StructuredLoggingService(), new SimpleMeterRegistry(), 90, 5_000);
+
+        long baseline = liveHeap();
+        AtomicLong peak = new AtomicLong(baseline);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+            while (running.get()) {
+                peak.accumulateAndGet(liveHeap(), Math::max);
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        long started = System.nanoTime();
+        long archived;
+        try {
+            archived = archiveService.archiveClosedPeriods(LocalDateTime.of(2026, 9, 15, 0, 0));
+        } finally {
+            running.set(false);
+            sampler.join();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        long growth = peak.get() - baseline;
+        System.out.printf("Archived %d usage rows in %.1f s (%.0f rows/s); live heap grew by at most %.1f MB%n",
+                          archived, seconds, archived / seconds, growth / (1024.0 * 1024));
+
+        assertThat(archived).isEqualTo(closedRows);
+        assertThat(count("SELECT COUNT(*) FROM usage_period_summaries")).isEqualTo(closedRows);
+        assertThat(count("SELECT COUNT(*) FROM usage_tracking")).isEqualTo(openRows);
+        assertThat(count("SELECT COUNT(*) FROM usage_tracking WHERE period_end <= TIMESTAMP '2026-09-15 00:00:00'"))
+            .isZero();
+        assertThat(count("SELECT SUM(usage_count) FROM usage_tracking")
+                   + count("SELECT SUM(usage_count) FROM usage_period_summaries")).isEqualTo(usageBefore);
+        assertThat(growth).isLessThan(HEAP_BOUND_BYTES);
+
+        // A second run finds nothing left to move
+        assertThat(archiveService.archiveClosedPeriods(LocalDateTime.of(2026, 9, 15, 0, 0))).isZero();
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private static long liveHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,155 @@
+package com.trademaster.subscription.service;
+
+import com.trademaster.subscription.entity.UsageTracking;
+import com.trademaster.subscription.repository.SubscriptionRepository;
+import com.trademaster.subscription.repository.UsageArchiveRepository;
+import com.trademaster.subscription.repository.UsageTrackingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Usage Archive Service Test
+ *
+ * Usage flushed for a period after it was archived is added to the period's
+ * summary by the next run instead of being dropped, and the usage report and
+ * monthly stats read archived periods alongside the live rows.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+class UsageArchiveServiceTest {
+
+    private static final String SCHEMA = """
+        CREATE TABLE usage_tracking (
+            id UUID PRIMARY KEY,
+            user_id UUID NOT NULL,
+            subscription_id UUID NOT NULL,
+            feature_name VARCHAR(50) NOT NULL,
+            usage_count BIGINT NOT NULL DEFAULT 0,
+            usage_limit BIGINT NOT NULL,
+            period_start TIMESTAMP NOT NULL,
+            period_end TIMESTAMP NOT NULL,
+            exceeded_count INTEGER NOT NULL DEFAULT 0
+        );
+        CREATE UNIQUE INDEX uk_usage_user_feature_period ON usage_tracking(user_id, feature_name, period_start);
+        CREATE TABLE usage_period_summaries (
+            user_id UUID NOT NULL,
+            feature_name VARCHAR(50) NOT NULL,
+            period_start TIMESTAMP NOT NULL,
+            period_end TIMESTAMP NOT NULL,
+            subscription_id UUID NOT NULL,
+            usage_count BIGINT NOT NULL,
+            usage_limit BIGINT NOT NULL,
+            exceeded_count INTEGER NOT NULL DEFAULT 0,
+            archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+            PRIMARY KEY (user_id, feature_name, period_start)
+        )
+        """;
+
+    private static final LocalDateTime AUGUST = LocalDateTime.of(2026, 8, 1, 0, 0);
+    private static final LocalDateTime SEPTEMBER = LocalDateTime.of(2026, 9, 1, 0, 0);
+    private static final LocalDateTime OCTOBER = LocalDateTime.of(2026, 10, 1, 0, 0);
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID subscriptionId = UUID.randomUUID();
+
+    private JdbcConnectionPool dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private UsageArchiveRepository archiveRepository;
+    private UsageArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = JdbcConnectionPool.create(
+            "jdbc:h2:mem:usage-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(SCHEMA);
+        archiveRepository = new UsageArchiveRepository(jdbcTemplate, new DataSourceTransactionManager(dataSource));
+        archiveService = new UsageArchiveService(archiveRepository, new StructuredLoggingService(),
+                                                 new SimpleMeterRegistry(), 90, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.dispose();
+    }
+
+    @Test
+    void lateUsageIsAddedToTheArchivedSummary() {
+        usage("api_calls", AUGUST, 40, 1);
+        usage("reports", AUGUST, 5, 0);
+        usage("api_calls", SEPTEMBER, 7, 0);
+        assertThat(archiveService.archiveClosedPeriods(OCTOBER)).isEqualTo(3);
+
+        // A delta flushed after the period was archived recreates its row
+        usage("api_calls", AUGUST, 3, 1);
+        assertThat(archiveService.archiveClosedPeriods(OCTOBER)).isEqualTo(1);
+
+        assertThat(count("SELECT COUNT(*) FROM usage_tracking")).isZero();
+        assertThat(count("SELECT COUNT(*) FROM usage_period_summaries")).isEqualTo(3);
+        assertThat(count("SELECT usage_count FROM usage_period_summaries "
+                         + "WHERE feature_name = 'api_calls' AND period_start = TIMESTAMP '2026-08-01 00:00:00'"))
+            .isEqualTo(43);
+        assertThat(count("SELECT exceeded_count FROM usage_period_summaries "
+                         + "WHERE feature_name = 'api_calls' AND period_start = TIMESTAMP '2026-08-01 00:00:00'"))
+            .isEqualTo(2);
+    }
+
+    @Test
+    void reportsIncludeArchivedPeriods() throws Exception {
+        usage("api_calls", AUGUST, 40, 1);
+        usage("api_calls", SEPTEMBER, 7, 0);
+        archiveService.archiveClosedPeriods(OCTOBER);
+
+        UsageTrackingRepository usageTrackingRepository = mock(UsageTrackingRepository.class);
+        UsageTracking live = UsageTracking.builder()
+            .userId(userId).subscriptionId(subscriptionId).featureName("api_calls")
+            .usageCount(12L).usageLimit(1_000L).periodStart(OCTOBER).periodEnd(OCTOBER.plusMonths(1))
+            .build();
+        when(usageTrackingRepository.findByUserIdOrderByPeriodStartDesc(userId)).thenReturn(List.of(live));
+        when(usageTrackingRepository.findByUserIdAndPeriodStartIn(userId, AUGUST, SEPTEMBER)).thenReturn(List.of());
+        UsageTrackingService usageTrackingService = new UsageTrackingService(mock(SubscriptionRepository.class),
+            usageTrackingRepository, archiveRepository, mock(UsageMeter.class), new StructuredLoggingService(),
+            new SimpleMeterRegistry(), 30_000);
+
+        List<UsageTracking> report = usageTrackingService.getComprehensiveUsageReport(userId).get();
+        assertThat(report).extracting(UsageTracking::getPeriodStart).containsExactly(OCTOBER, SEPTEMBER, AUGUST);
+        assertThat(report).extracting(UsageTracking::getUsageCount).containsExactly(12L, 7L, 40L);
+        assertThat(report.get(2).getLimitExceeded()).isTrue();
+
+        List<UsageTracking> august = usageTrackingService.getUserUsageStats(userId, LocalDate.of(2026, 8, 15)).get();
+        assertThat(august).singleElement().satisfies(usage -> {
+            assertThat(usage.getUsageCount()).isEqualTo(40L);
+            assertThat(usage.getSubscriptionId()).isEqualTo(subscriptionId);
+            assertThat(usage.getPeriodEnd()).isEqualTo(SEPTEMBER);
+        });
+    }
+
+    private void usage(String featureName, LocalDateTime periodStart, long usageCount, int exceededCount) {
+        jdbcTemplate.update("""
+            INSERT INTO usage_tracking (id, user_id, subscription_id, feature_name, usage_count, usage_limit,
+                period_start, period_end, exceeded_count)
+            VALUES (?, ?, ?, ?, ?, 1000, ?, ?, ?)
+            """, UUID.randomUUID(), userId, subscriptionId, featureName, usageCount,
+            Timestamp.valueOf(periodStart), Timestamp.valueOf(periodStart.plusMonths(1)), exceededCount);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,283 @@
+package com.trademaster.subscription.service;
+
+import com.trademaster.subscription.entity.UsageTracking;
+import com.trademaster.subscription.enums.UsagePeriod;
+import com.trademaster.subscription.repository.UsageDelta;
+import com.trademaster.subscription.repository.UsageTrackingBatchRepository;
+import com.trademaster.subscription.repository.UsageTrackingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Usage Meter Concurrency Test
+ *
+ * Drives UsageMeter from 64 threads while a flusher writes to a stand-in
+ * for usage_tracking with the upsert's add-on-conflict semantics, and checks
+ * that no increment is lost, that a limit is never overshot, and that each
+ * instance picks up the usage other instances flush, including for counters
+ * it has nothing to flush for.
+ *
+ * @author TradeMaster Development Team
+ * @version 1.0.0
+ */
+class UsageMeterConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final String FEATURE = "alerts";
+    private static final long NO_REFRESH = 3_600_000;
+
+    private final Map<UsageDelta.Key, long[]> rows = new HashMap<>();
+    private final AtomicInteger failingFlushes = new AtomicInteger();
+    private UsageTrackingRepository usageTrackingRepository;
+    private UsageTrackingBatchRepository batchRepository;
+
+    @BeforeEach
+    void setUp() {
+        usageTrackingRepository = mock(UsageTrackingRepository.class);
+        when(usageTrackingRepository.findByUserIdAndFeatureNameAndPeriodStart(any(), anyString(), any()))
+            .thenAnswer(invocation -> {
+                synchronized (rows) {
+                    long[] row = rows.get(new UsageDelta.Key(invocation.getArgument(0), invocation.getArgument(1),
+                                                             invocation.getArgument(2)));
+                    return Optional.ofNullable(row).map(r -> UsageTracking.builder().usageCount(r[0]).build());
+                }
+            });
+        batchRepository = mock(UsageTrackingBatchRepository.class);
+        when(batchRepository.addUsage(any())).thenAnswer(invocation -> {
+            if (failingFlushes.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new DataAccessResourceFailureException("database unavailable");
+            }
+            List<UsageDelta> deltas = invocation.getArgument(0);
+            Map<UsageDelta.Key, Long> totals = new HashMap<>();
+            synchronized (rows) {
+                for (UsageDelta delta : deltas) {
+                    long[] row = rows.computeIfAbsent(delta.key(), key -> new long[2]);
+                    row[0] += delta.amount();
+                    row[1] += delta.exceeded();
+                    totals.put(delta.key(), row[0]);
+                }
+            }
+            return totals;
+        });
+        when(batchRepository.findUsage(any())).thenAnswer(invocation -> {
+            Collection<UsageDelta.Key> keys = invocation.getArgument(0);
+            Map<UsageDelta.Key, Long> totals = new HashMap<>();
+            synchronized (rows) {
+                keys.stream().filter(rows::containsKey).forEach(key -> totals.put(key, rows.get(key)[0]));
+            }
+            return totals;
+        });
+    }
+
+    @Test
+    void sixtyFourThreadsLoseNoIncrements() throws Exception {
+        // Idle counters are re-read on every flush, racing the increments too
+        UsageMeter meter = new UsageMeter(usageTrackingRepository, batchRepository, 0);
+        List<UUID> users = users(8);
+        UUID subscriptionId = UUID.randomUUID();
+        int incrementsPerThread = 20_000;
+        // The first flushes fail, so deltas also go through the retry path
+        failingFlushes.set(3);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread flusher = Thread.ofPlatform().start(() -> {
+            while (running.get()) {
+                meter.flush();
+                Thread.onSpinWait();
+            }
+        });
+        AtomicLong[] counted = new AtomicLong[users.size()];
+        for (int i = 0; i < counted.length; i++) {
+            counted[i] = new AtomicLong();
+        }
+        runConcurrently(thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < incrementsPerThread; i++) {
+                int user = random.nextInt(users.size());
+                long amount = 1 + random.nextInt(3);
+                assertThat(meter.tryIncrement(users.get(user), FEATURE, subscriptionId, -1, amount).accepted()).isTrue();
+                counted[user].addAndGet(amount);
+            }
+        });
+        running.set(false);
+        flusher.join();
+        meter.flush();
+
+        long total = 0;
+        for (int i = 0; i < users.size(); i++) {
+            long expected = counted[i].get();
+            total += expected;
+            assertThat(meter.usage(users.get(i), FEATURE, subscriptionId, -1)).isEqualTo(expected);
+            assertThat(storedUsage(users.get(i))).isEqualTo(expected);
+        }
+        assertThat(total).isGreaterThanOrEqualTo((long) THREADS * incrementsPerThread);
+        assertThat(meter.flush()).isZero();
+    }
+
+    @Test
+    void limitIsNeverOvershot() throws Exception {
+        UsageMeter meter = new UsageMeter(usageTrackingRepository, batchRepository, NO_REFRESH);
+        UUID user = UUID.randomUUID();
+        UUID subscriptionId = UUID.randomUUID();
+        long limit = 10_000;
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+
+        runConcurrently(thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 1_000; i++) {
+                long amount = 1 + random.nextInt(3);
+                UsageMeter.Result result = meter.tryIncrement(user, FEATURE, subscriptionId, limit, amount);
+                if (result.accepted()) {
+                    accepted.addAndGet(amount);
+                    assertThat(result.usageCount()).isLessThanOrEqualTo(limit);
+                } else {
+                    rejected.incrementAndGet();
+                }
+                if (i % 100 == 0) {
+                    meter.flush();
+                }
+            }
+        });
+        meter.flush();
+
+        // 64,000 attempts of 1-3 against 10,000: the limit is reached to within the largest increment
+        assertThat(accepted.get()).isBetween(limit - 2, limit);
+        assertThat(meter.usage(user, FEATURE, subscriptionId, limit)).isEqualTo(accepted.get());
+        assertThat(storedUsage(user)).isEqualTo(accepted.get());
+        assertThat(storedExceeded(user)).isEqualTo(rejected.get());
+    }
+
+    @Test
+    void flushBringsInUsageOfOtherInstances() {
+        UsageMeter first = new UsageMeter(usageTrackingRepository, batchRepository, NO_REFRESH);
+        UsageMeter second = new UsageMeter(usageTrackingRepository, batchRepository, NO_REFRESH);
+        UUID user = UUID.randomUUID();
+        UUID subscriptionId = UUID.randomUUID();
+
+        first.tryIncrement(user, FEATURE, subscriptionId, 20, 10);
+        second.tryIncrement(user, FEATURE, subscriptionId, 20, 5);
+        first.flush();
+        second.flush();
+        assertThat(storedUsage(user)).isEqualTo(15);
+        assertThat(second.usage(user, FEATURE, subscriptionId, 20)).isEqualTo(15);
+
+        // The first instance catches up with its next flush
+        first.tryIncrement(user, FEATURE, subscriptionId, 20, 1);
+        first.flush();
+        assertThat(first.usage(user, FEATURE, subscriptionId, 20)).isEqualTo(16);
+        assertThat(first.tryIncrement(user, FEATURE, subscriptionId, 20, 5).accepted()).isFalse();
+        assertThat(first.tryIncrement(user, FEATURE, subscriptionId, 20, 4).accepted()).isTrue();
+
+        // A counter created later starts from the stored usage
+        UsageMeter third = new UsageMeter(usageTrackingRepository, batchRepository, NO_REFRESH);
+        first.flush();
+        assertThat(third.usage(user, FEATURE, subscriptionId, 20)).isEqualTo(20);
+    }
+
+    @Test
+    void idleCountersAreRefreshedFromTheirRows() throws Exception {
+        UsageMeter idle = new UsageMeter(usageTrackingRepository, batchRepository, 500);
+        UsageMeter busy = new UsageMeter(usageTrackingRepository, batchRepository, NO_REFRESH);
+        UUID user = UUID.randomUUID();
+        UUID subscriptionId = UUID.randomUUID();
+
+        assertThat(idle.usage(user, FEATURE, subscriptionId, 20)).isZero();
+        busy.tryIncrement(user, FEATURE, subscriptionId, 20, 18);
+        busy.flush();
+
+        // Nothing to flush, and the refresh interval has not passed yet
+        idle.flush();
+        assertThat(idle.usage(user, FEATURE, subscriptionId, 20)).isZero();
+
+        Thread.sleep(600);
+        idle.flush();
+        assertThat(idle.usage(user, FEATURE, subscriptionId, 20)).isEqualTo(18);
+        assertThat(idle.tryIncrement(user, FEATURE, subscriptionId, 20, 3).accepted()).isFalse();
+
+        // Usage counted between refreshes is kept, and not counted twice once flushed
+        assertThat(idle.tryIncrement(user, FEATURE, subscriptionId, 20, 2).accepted()).isTrue();
+        Thread.sleep(600);
+        idle.flush();
+        assertThat(storedUsage(user)).isEqualTo(20);
+        assertThat(idle.usage(user, FEATURE, subscriptionId, 20)).isEqualTo(20);
+        Thread.sleep(600);
+        idle.flush();
+        assertThat(idle.usage(user, FEATURE, subscriptionId, 20)).isEqualTo(20);
+    }
+
+    private void runConcurrently(ThrowingConsumer<Integer> work) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    work.accept(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingConsumer<T> {
+        void accept(T value) throws Exception;
+    }
+
+    private static List<UUID> users(int count) {
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(UUID.randomUUID());
+        }
+        return users;
+    }
+
+    private long storedUsage(UUID user) {
+        return storedRow(user)[0];
+    }
+
+    private long storedExceeded(UUID user) {
+        return storedRow(user)[1];
+    }
+
+    private long[] storedRow(UUID user) {
+        UsageDelta.Key key = new UsageDelta.Key(user, FEATURE,
+            UsagePeriod.forFeature(FEATURE).startOf(LocalDateTime.now()));
+        synchronized (rows) {
+            return rows.getOrDefault(key, new long[2]).clone();
+        }
+    }
+}
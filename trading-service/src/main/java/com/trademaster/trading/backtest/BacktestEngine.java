@@ -0,0 +1,323 @@
+package com.trademaster.trading.backtest;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * Backtest Engine
+ *
+ * Event-driven replay of memory-mapped bar history through strategy signal
+ * logic:
+ * - Each symbol sleeve replays bar by bar: fill the order decided on the
+ *   previous close at this bar's open ({@link FillModel}), mark to market at
+ *   the close, then ask the {@link SignalModel} for the next target
+ * - Metrics stream into a per-task {@link StreamingMetrics} (daily P&L array
+ *   and running trade statistics); nothing is kept per bar or per trade
+ * - Symbols, parameter sets and walk-forward windows are split into
+ *   fork/join tasks on one bounded pool sized to the machine, so a sweep
+ *   never oversubscribes the CPU however many requests arrive
+ *
+ * Performance Targets:
+ * - >50M bars/second/core for the built-in signal models
+ * - 10 years of 1-minute bars for 500 symbols (~470M bars) in well under a
+ *   minute on an 8-core laptop
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+@Component
+@Slf4j
+public class BacktestEngine {
+
+    private static final int MINUTES_PER_DAY = 1_440;
+    private static final int TASKS_PER_WORKER = 4;
+
+    private final ForkJoinPool pool;
+
+    public BacktestEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BacktestEngine(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    // ========== Runs ==========
+
+    /**
+     * Replay every symbol of the spec over its window
+     */
+    public BacktestReport run(BarFile file, BacktestSpec spec) {
+        long start = System.nanoTime();
+        BacktestReport report = replay(file, spec).report(spec.parameters(), spec.initialCapital());
+        long elapsedNanos = System.nanoTime() - start;
+        log.info("Backtest {} {} replayed {} bars in {} ms ({} bars/s)", spec.strategyType(), spec.parameters(),
+                 report.barsProcessed(), elapsedNanos / 1_000_000,
+                 elapsedNanos > 0 ? report.barsProcessed() * 1_000_000_000L / elapsedNanos : 0);
+        return report;
+    }
+
+    /**
+     * Run every parameter set in the grid over the same window, in parallel
+     *
+     * @return Reports in grid order
+     */
+    public List<BacktestReport> sweep(BarFile file, BacktestSpec base, List<Map<String, Double>> grid) {
+        List<Callable<BacktestReport>> tasks = new ArrayList<>(grid.size());
+        for (Map<String, Double> parameters : grid) {
+            BacktestSpec spec = base.withParameters(parameters);
+            tasks.add(() -> replay(file, spec).report(spec.parameters(), spec.initialCapital()));
+        }
+        return invokeAll(tasks);
+    }
+
+    /**
+     * Rolling walk-forward: optimise on each training window, then trade the
+     * winning parameters on the following test window. Windows advance by
+     * {@code testDays} and run in parallel.
+     */
+    public WalkForwardReport walkForward(BarFile file, BacktestSpec base, List<Map<String, Double>> grid,
+                                         int trainDays, int testDays) {
+        if (trainDays <= 0 || testDays <= 0 || grid.isEmpty()) {
+            throw new IllegalArgumentException("Walk-forward needs positive train/test days and a parameter grid");
+        }
+        LocalDate firstTest = base.startDate().plusDays(trainDays);
+        List<Callable<WindowRun>> tasks = new ArrayList<>();
+        for (LocalDate trainStart = base.startDate();
+             !trainStart.plusDays(trainDays + testDays).isAfter(base.endDate());
+             trainStart = trainStart.plusDays(testDays)) {
+            LocalDate testStart = trainStart.plusDays(trainDays);
+            LocalDate testEnd = testStart.plusDays(testDays);
+            BacktestSpec train = base.withWindow(trainStart, testStart);
+            tasks.add(() -> runWindow(file, train, grid, testEnd));
+        }
+        if (tasks.isEmpty()) {
+            throw new IllegalArgumentException("Backtest range shorter than one train/test window");
+        }
+
+        List<WindowRun> runs = invokeAll(tasks);
+        LocalDate lastTest = runs.get(runs.size() - 1).window().testEnd();
+        StreamingMetrics stitched = new StreamingMetrics(firstTest.toEpochDay(),
+                                                         (int) (lastTest.toEpochDay() - firstTest.toEpochDay()));
+        List<WalkForwardReport.Window> windows = new ArrayList<>(runs.size());
+        double inSampleSharpe = 0.0;
+        double outOfSampleSharpe = 0.0;
+        for (WindowRun run : runs) {
+            stitched.merge(run.metrics());
+            windows.add(run.window());
+            inSampleSharpe += run.window().inSample().sharpeRatio();
+            outOfSampleSharpe += run.window().outOfSample().sharpeRatio();
+        }
+        double efficiency = inSampleSharpe != 0.0 ? outOfSampleSharpe / inSampleSharpe : 0.0;
+        return new WalkForwardReport(windows, stitched.report(Map.of(), base.initialCapital()), efficiency);
+    }
+
+    /**
+     * Cartesian product of parameter ranges, first key varying slowest
+     */
+    public static List<Map<String, Double>> grid(Map<String, double[]> ranges) {
+        List<Map<String, Double>> grid = new ArrayList<>();
+        grid.add(Map.of());
+        for (Map.Entry<String, double[]> range : ranges.entrySet()) {
+            List<Map<String, Double>> expanded = new ArrayList<>(grid.size() * range.getValue().length);
+            for (Map<String, Double> partial : grid) {
+                for (double value : range.getValue()) {
+                    Map<String, Double> next = new LinkedHashMap<>(partial);
+                    next.put(range.getKey(), value);
+                    expanded.add(next);
+                }
+            }
+            grid = expanded;
+        }
+        return grid;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // ========== Internal ==========
+
+    private record WindowRun(WalkForwardReport.Window window, StreamingMetrics metrics) {}
+
+    private WindowRun runWindow(BarFile file, BacktestSpec train, List<Map<String, Double>> grid, LocalDate testEnd) {
+        BacktestReport best = sweep(file, train, grid).stream()
+            .max(Comparator.comparingDouble(BacktestReport::sharpeRatio))
+            .orElseThrow();
+        BacktestSpec test = train.withParameters(best.parameters()).withWindow(train.endDate(), testEnd);
+        StreamingMetrics metrics = replay(file, test);
+        WalkForwardReport.Window window = new WalkForwardReport.Window(train.startDate(), test.startDate(), testEnd,
+            best.parameters(), best, metrics.report(best.parameters(), test.initialCapital()));
+        return new WindowRun(window, metrics);
+    }
+
+    /**
+     * Replay all symbols of the spec, chunked into fork/join tasks
+     */
+    private StreamingMetrics replay(BarFile file, BacktestSpec spec) {
+        List<String> symbols = spec.symbols().isEmpty() ? file.symbols() : spec.symbols();
+        if (symbols.isEmpty()) {
+            throw new IllegalArgumentException("No symbols to backtest");
+        }
+        Supplier<SignalModel> signals = SignalModels.factory(spec.strategyType(), spec.parameters());
+        double sleeveCapital = spec.initialCapital() / symbols.size();
+        long firstDay = spec.startDate().toEpochDay();
+        int days = spec.days();
+
+        int chunks = Math.min(symbols.size(), pool.getParallelism() * TASKS_PER_WORKER);
+        List<Callable<StreamingMetrics>> tasks = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            List<String> chunk = symbols.subList(c * symbols.size() / chunks, (c + 1) * symbols.size() / chunks);
+            tasks.add(() -> {
+                StreamingMetrics metrics = new StreamingMetrics(firstDay, days);
+                for (String symbol : chunk) {
+                    simulate(file.bars(symbol), spec, signals.get(), sleeveCapital, metrics);
+                }
+                return metrics;
+            });
+        }
+
+        List<StreamingMetrics> parts = invokeAll(tasks);
+        StreamingMetrics total = parts.get(0);
+        for (int i = 1; i < parts.size(); i++) {
+            total.merge(parts.get(i));
+        }
+        return total;
+    }
+
+    /**
+     * Replay one symbol sleeve. Orders decided on bar i's close fill at bar
+     * i+1's open, so a signal never trades on the price that produced it.
+     */
+    static void simulate(BarFile.SymbolBars bars, BacktestSpec spec, SignalModel model,
+                         double capital, StreamingMetrics metrics) {
+        int from = bars.indexAtOrAfter(spec.startMinute());
+        int to = bars.indexAtOrAfter(spec.endMinute());
+        if (from >= to) {
+            return;
+        }
+        metrics.startSymbol();
+        Sleeve sleeve = new Sleeve(spec.fillModel(), metrics, capital);
+        double budget = capital * spec.positionFraction();
+
+        long day = bars.minute(from) / MINUTES_PER_DAY;
+        double dayStartEquity = capital;
+        double equity = capital;
+        int target = 0;
+
+        for (int i = from; i < to; i++) {
+            int minute = bars.minute(i);
+            long barDay = minute / MINUTES_PER_DAY;
+            if (barDay != day) {
+                metrics.addDailyPnl(day, equity - dayStartEquity);
+                dayStartEquity = equity;
+                day = barDay;
+            }
+
+            if (target != sleeve.direction) {
+                float open = bars.open(i);
+                if (sleeve.direction != 0) {
+                    sleeve.close(open, minute);
+                }
+                if (target != 0) {
+                    long desired = (long) (budget / sleeve.fills.executionPrice(target, open));
+                    long quantity = sleeve.fills.capQuantity(desired, bars.volume(i));
+                    if (quantity > 0) {
+                        sleeve.open(target, quantity, open, minute);
+                    }
+                }
+            }
+
+            float close = bars.close(i);
+            equity = sleeve.cash + sleeve.position * (double) close;
+            target = model.onBar(close);
+        }
+
+        if (sleeve.direction != 0) {
+            sleeve.close(bars.close(to - 1), bars.minute(to - 1));
+            equity = sleeve.cash;
+        }
+        metrics.addDailyPnl(day, equity - dayStartEquity);
+        metrics.addBars(to - from);
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        List<ForkJoinTask<T>> forked = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            forked.add(ForkJoinTask.adapt(task));
+        }
+        if (ForkJoinTask.getPool() == pool) {
+            // Nested level (sweep -> symbols): fork in place and help while joining
+            ForkJoinTask.invokeAll(forked);
+        } else {
+            pool.invoke(ForkJoinTask.adapt(() -> { ForkJoinTask.invokeAll(forked); }));
+        }
+        List<T> results = new ArrayList<>(forked.size());
+        for (ForkJoinTask<T> task : forked) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    /**
+     * Cash and position of one symbol sleeve
+     */
+    private static final class Sleeve {
+        private final FillModel fills;
+        private final StreamingMetrics metrics;
+        private double cash;
+        private long position;
+        private int direction;
+        private double entryCashOut;
+        private int entryMinute;
+
+        Sleeve(FillModel fills, StreamingMetrics metrics, double cash) {
+            this.fills = fills;
+            this.metrics = metrics;
+            this.cash = cash;
+        }
+
+        void open(int side, long quantity, double reference, int minute) {
+            double price = fills.executionPrice(side, reference);
+            double notional = quantity * price;
+            double commission = fills.commission(notional);
+            entryCashOut = side * notional + commission;
+            cash -= entryCashOut;
+            position = side * quantity;
+            direction = side;
+            entryMinute = minute;
+            metrics.addCosts(commission, quantity * Math.abs(price - reference));
+        }
+
+        // Exits always take the full position; the participation cap applies to entries
+        void close(double reference, int minute) {
+            long quantity = Math.abs(position);
+            double price = fills.executionPrice(-direction, reference);
+            double notional = quantity * price;
+            double commission = fills.commission(notional);
+            double cashIn = direction * notional - commission;
+            cash += cashIn;
+            metrics.recordTrade(direction, cashIn - entryCashOut, minute - entryMinute);
+            metrics.addCosts(commission, quantity * Math.abs(price - reference));
+            position = 0;
+            direction = 0;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.trademaster.trading.backtest;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Backtest Report
+ *
+ * Metrics of one backtest run, computed in a single pass over the merged
+ * daily P&L series and the streamed trade statistics. Ratios are fractions
+ * (0.12 = 12%), amounts are in account currency.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public record BacktestReport(Map<String, Double> parameters,
+                             LocalDate startDate,
+                             LocalDate endDate,
+                             double initialCapital,
+                             double finalEquity,
+                             int tradingDays,
+                             long barsProcessed,
+                             // Returns and risk
+                             double totalReturn,
+                             double annualizedReturn,
+                             double cagr,
+                             double volatility,
+                             double sharpeRatio,
+                             double sortinoRatio,
+                             double calmarRatio,
+                             double maxDrawdown,
+                             LocalDate maxDrawdownStart,
+                             LocalDate maxDrawdownEnd,
+                             double dailyVaR95,
+                             double dailyVaR99,
+                             double expectedShortfall95,
+                             double maxDailyLoss,
+                             double maxDailyGain,
+                             // Trades
+                             int totalTrades,
+                             int longTrades,
+                             int shortTrades,
+                             int winningTrades,
+                             int losingTrades,
+                             double averageWin,
+                             double averageLoss,
+                             double largestWin,
+                             double largestLoss,
+                             double grossProfit,
+                             double grossLoss,
+                             int maxConsecutiveWins,
+                             int maxConsecutiveLosses,
+                             double averageHoldingMinutes,
+                             double longestHoldingMinutes,
+                             double totalCommissions,
+                             double totalSlippageCost) {
+
+    public double winRate() {
+        return totalTrades > 0 ? (double) winningTrades / totalTrades : 0.0;
+    }
+
+    public double profitFactor() {
+        return grossLoss > 0 ? grossProfit / grossLoss : grossProfit > 0 ? Double.POSITIVE_INFINITY : 0.0;
+    }
+
+    public double payoffRatio() {
+        return averageLoss > 0 ? averageWin / averageLoss : 0.0;
+    }
+
+    public double netProfit() {
+        return finalEquity - initialCapital;
+    }
+}
@@ -0,0 +1,63 @@
+package com.trademaster.trading.backtest;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Backtest Spec
+ *
+ * One backtest run: strategy logic and parameters, the replay window and
+ * capital. Capital is split equally across symbols and each symbol sleeve
+ * trades {@code positionFraction} of its capital per entry.
+ *
+ * @param symbols Symbols to replay; empty means every symbol in the file
+ * @param endDate Exclusive
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public record BacktestSpec(String strategyType,
+                           Map<String, Double> parameters,
+                           List<String> symbols,
+                           LocalDate startDate,
+                           LocalDate endDate,
+                           double initialCapital,
+                           double positionFraction,
+                           FillModel fillModel) {
+
+    public BacktestSpec {
+        if (!startDate.isBefore(endDate)) {
+            throw new IllegalArgumentException("Backtest start must be before end");
+        }
+        if (initialCapital <= 0 || positionFraction <= 0 || positionFraction > 1) {
+            throw new IllegalArgumentException("Capital must be positive and position fraction in (0, 1]");
+        }
+        parameters = parameters != null ? Map.copyOf(parameters) : Map.of();
+        symbols = symbols != null ? List.copyOf(symbols) : List.of();
+        fillModel = fillModel != null ? fillModel : FillModel.DEFAULT;
+    }
+
+    public BacktestSpec withParameters(Map<String, Double> replacement) {
+        return new BacktestSpec(strategyType, replacement, symbols, startDate, endDate,
+                                initialCapital, positionFraction, fillModel);
+    }
+
+    public BacktestSpec withWindow(LocalDate start, LocalDate end) {
+        return new BacktestSpec(strategyType, parameters, symbols, start, end,
+                                initialCapital, positionFraction, fillModel);
+    }
+
+    long startMinute() {
+        return startDate.atStartOfDay().toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    long endMinute() {
+        return endDate.atStartOfDay().toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    int days() {
+        return (int) (endDate.toEpochDay() - startDate.toEpochDay());
+    }
+}
@@ -0,0 +1,185 @@
+package com.trademaster.trading.backtest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bar File
+ *
+ * Read-only, memory-mapped columnar bar history. Layout (little endian):
+ * <pre>
+ * header     magic "TMBR" (int), version (int), symbolCount (int), reserved (int)
+ * directory  symbolCount x [name (16 bytes ASCII, zero padded), offset (long), count (int), reserved (int)]
+ * blocks     per symbol at offset: minute[count] (int, epoch minutes, ascending),
+ *            open[count], high[count], low[count], close[count], volume[count] (float)
+ * </pre>
+ * Each symbol block is mapped on first use, so a 10-year, 500-symbol file
+ * (~11 GB) only occupies page cache for the symbols and ranges replayed.
+ * Instances are safe for concurrent readers.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public final class BarFile implements AutoCloseable {
+
+    static final int MAGIC = 0x52424D54; // "TMBR" little endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int NAME_BYTES = 16;
+    static final int DIRECTORY_ENTRY_BYTES = 32;
+    static final int BYTES_PER_BAR = 24;
+
+    private final FileChannel channel;
+    private final Map<String, Entry> directory;
+    private final Map<String, SymbolBars> mapped = new ConcurrentHashMap<>();
+
+    private record Entry(long offset, int count) {}
+
+    private BarFile(FileChannel channel, Map<String, Entry> directory) {
+        this.channel = channel;
+        this.directory = directory;
+    }
+
+    public static BarFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0L);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not a bar file (or unsupported version): " + path);
+            }
+            int symbolCount = header.getInt(8);
+
+            ByteBuffer entries = ByteBuffer.allocate(symbolCount * DIRECTORY_ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, entries, HEADER_BYTES);
+            Map<String, Entry> directory = new LinkedHashMap<>();
+            byte[] name = new byte[NAME_BYTES];
+            for (int i = 0; i < symbolCount; i++) {
+                int base = i * DIRECTORY_ENTRY_BYTES;
+                entries.get(base, name);
+                int length = 0;
+                while (length < NAME_BYTES && name[length] != 0) {
+                    length++;
+                }
+                directory.put(new String(name, 0, length, StandardCharsets.US_ASCII),
+                              new Entry(entries.getLong(base + NAME_BYTES), entries.getInt(base + NAME_BYTES + 8)));
+            }
+            return new BarFile(channel, Collections.unmodifiableMap(directory));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public List<String> symbols() {
+        return new ArrayList<>(directory.keySet());
+    }
+
+    public long totalBars() {
+        return directory.values().stream().mapToLong(Entry::count).sum();
+    }
+
+    /**
+     * Columnar view of one symbol, mapped on first access
+     */
+    public SymbolBars bars(String symbol) {
+        return mapped.computeIfAbsent(symbol, s -> {
+            Entry entry = directory.get(s);
+            if (entry == null) {
+                throw new IllegalArgumentException("Symbol not in bar file: " + s);
+            }
+            try {
+                MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, entry.offset(),
+                                                     (long) entry.count() * BYTES_PER_BAR);
+                return new SymbolBars(s, block, entry.count());
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to map bars for " + s, e);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        mapped.clear();
+        channel.close();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated bar file");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Column views over one symbol's mapped block
+     */
+    public static final class SymbolBars {
+        private final String symbol;
+        private final int count;
+        private final IntBuffer minutes;
+        private final FloatBuffer open;
+        private final FloatBuffer high;
+        private final FloatBuffer low;
+        private final FloatBuffer close;
+        private final FloatBuffer volume;
+
+        SymbolBars(String symbol, ByteBuffer block, int count) {
+            this.symbol = symbol;
+            this.count = count;
+            int column = count * 4;
+            this.minutes = column(block, 0, column).asIntBuffer();
+            this.open = column(block, 1, column).asFloatBuffer();
+            this.high = column(block, 2, column).asFloatBuffer();
+            this.low = column(block, 3, column).asFloatBuffer();
+            this.close = column(block, 4, column).asFloatBuffer();
+            this.volume = column(block, 5, column).asFloatBuffer();
+        }
+
+        private static ByteBuffer column(ByteBuffer block, int index, int columnBytes) {
+            return block.slice(index * columnBytes, columnBytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        public String symbol() { return symbol; }
+        public int size() { return count; }
+        public int minute(int i) { return minutes.get(i); }
+        public float open(int i) { return open.get(i); }
+        public float high(int i) { return high.get(i); }
+        public float low(int i) { return low.get(i); }
+        public float close(int i) { return close.get(i); }
+        public float volume(int i) { return volume.get(i); }
+
+        /**
+         * First bar index with minute >= the given epoch minute (size() if none)
+         */
+        public int indexAtOrAfter(long epochMinute) {
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (minutes.get(mid) < epochMinute) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.trademaster.trading.backtest;
+
+/**
+ * Fill Model
+ *
+ * Simulated execution for backtests. Orders decided on a bar's close fill at
+ * the next bar's open, adjusted against the trader by slippage, charged
+ * commission on notional, and capped at a fraction of that bar's volume.
+ *
+ * @param slippageBps      Adverse price adjustment in basis points
+ * @param commissionBps    Commission on traded notional in basis points
+ * @param maxParticipation Maximum fraction of bar volume per fill (0 = uncapped)
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public record FillModel(double slippageBps, double commissionBps, double maxParticipation) {
+
+    public static final FillModel DEFAULT = new FillModel(2.0, 1.0, 0.1);
+
+    public FillModel {
+        if (slippageBps < 0 || commissionBps < 0 || maxParticipation < 0) {
+            throw new IllegalArgumentException("Fill model costs must be non-negative");
+        }
+    }
+
+    /**
+     * Execution price for a buy (+1) or sell (-1) at the reference price
+     */
+    public double executionPrice(int side, double referencePrice) {
+        return referencePrice * (1.0 + side * slippageBps / 10_000.0);
+    }
+
+    public double commission(double notional) {
+        return Math.abs(notional) * commissionBps / 10_000.0;
+    }
+
+    public long capQuantity(long desired, float barVolume) {
+        if (maxParticipation <= 0.0) {
+            return desired;
+        }
+        return Math.min(desired, (long) (barVolume * maxParticipation));
+    }
+}
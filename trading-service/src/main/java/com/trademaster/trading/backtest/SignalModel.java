@@ -0,0 +1,20 @@
+package com.trademaster.trading.backtest;
+
+/**
+ * Signal Model
+ *
+ * Stateful per-symbol signal logic replayed bar by bar. Implementations keep
+ * rolling state so each bar is O(1); one instance is created per symbol run
+ * and is never shared between threads.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public interface SignalModel {
+
+    /**
+     * Consume the bar's close and return the target direction:
+     * +1 long, -1 short, 0 flat
+     */
+    int onBar(float close);
+}
@@ -0,0 +1,189 @@
+package com.trademaster.trading.backtest;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Signal Models
+ *
+ * Builds {@link SignalModel}s from a strategy type and numeric parameters:
+ * - TREND_FOLLOWING: fast/slow simple moving average crossover
+ *   (fastPeriod, slowPeriod)
+ * - MEAN_REVERSION: rolling z-score with entry/exit bands
+ *   (lookback, entryZ, exitZ)
+ * - MOMENTUM: trailing return over a lookback against a threshold
+ *   (lookback, threshold)
+ * All accept allowShort (1 or 0). Unknown types fall back to trend following.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public final class SignalModels {
+
+    private SignalModels() {
+    }
+
+    /**
+     * Factory producing a fresh model per symbol run
+     */
+    public static Supplier<SignalModel> factory(String strategyType, Map<String, Double> parameters) {
+        String type = strategyType != null ? strategyType.toUpperCase(Locale.ROOT) : "TREND_FOLLOWING";
+        boolean allowShort = parameter(parameters, "allowShort", 1.0) != 0.0;
+        return switch (type) {
+            case "MEAN_REVERSION" -> {
+                int lookback = (int) parameter(parameters, "lookback", 60);
+                double entry = parameter(parameters, "entryZ", 2.0);
+                double exit = parameter(parameters, "exitZ", 0.5);
+                yield () -> new ZScoreReversion(lookback, entry, exit, allowShort);
+            }
+            case "MOMENTUM" -> {
+                int lookback = (int) parameter(parameters, "lookback", 30);
+                double threshold = parameter(parameters, "threshold", 0.002);
+                yield () -> new Momentum(lookback, threshold, allowShort);
+            }
+            default -> {
+                int fast = (int) parameter(parameters, "fastPeriod", 20);
+                int slow = (int) parameter(parameters, "slowPeriod", 100);
+                if (fast >= slow) {
+                    throw new IllegalArgumentException("fastPeriod must be below slowPeriod");
+                }
+                yield () -> new MovingAverageCrossover(fast, slow, allowShort);
+            }
+        };
+    }
+
+    private static double parameter(Map<String, Double> parameters, String name, double defaultValue) {
+        Double value = parameters != null ? parameters.get(name) : null;
+        return value != null ? value : defaultValue;
+    }
+
+    // ========== Models ==========
+
+    /**
+     * Fixed-length ring of closes with a running sum (and sum of squares)
+     */
+    private static final class RollingWindow {
+        private final float[] values;
+        private int next;
+        private int filled;
+        private double sum;
+        private double sumSquares;
+
+        RollingWindow(int length) {
+            if (length < 1) {
+                throw new IllegalArgumentException("Window length must be positive");
+            }
+            this.values = new float[length];
+        }
+
+        /**
+         * Push a value and return the one it displaced (NaN while filling)
+         */
+        float push(float value) {
+            float evicted = filled == values.length ? values[next] : Float.NaN;
+            if (!Float.isNaN(evicted)) {
+                sum -= evicted;
+                sumSquares -= (double) evicted * evicted;
+            } else {
+                filled++;
+            }
+            values[next] = value;
+            next = next + 1 == values.length ? 0 : next + 1;
+            sum += value;
+            sumSquares += (double) value * value;
+            return evicted;
+        }
+
+        boolean full() { return filled == values.length; }
+        double mean() { return sum / filled; }
+
+        double standardDeviation() {
+            double mean = mean();
+            return Math.sqrt(Math.max(0.0, sumSquares / filled - mean * mean));
+        }
+
+        float oldest() { return values[next]; }
+    }
+
+    private static final class MovingAverageCrossover implements SignalModel {
+        private final RollingWindow fast;
+        private final RollingWindow slow;
+        private final boolean allowShort;
+
+        MovingAverageCrossover(int fastPeriod, int slowPeriod, boolean allowShort) {
+            this.fast = new RollingWindow(fastPeriod);
+            this.slow = new RollingWindow(slowPeriod);
+            this.allowShort = allowShort;
+        }
+
+        @Override
+        public int onBar(float close) {
+            fast.push(close);
+            slow.push(close);
+            if (!slow.full()) {
+                return 0;
+            }
+            double spread = fast.mean() - slow.mean();
+            return spread > 0 ? 1 : spread < 0 && allowShort ? -1 : 0;
+        }
+    }
+
+    private static final class ZScoreReversion implements SignalModel {
+        private final RollingWindow window;
+        private final double entryZ;
+        private final double exitZ;
+        private final boolean allowShort;
+        private int state;
+
+        ZScoreReversion(int lookback, double entryZ, double exitZ, boolean allowShort) {
+            this.window = new RollingWindow(lookback);
+            this.entryZ = entryZ;
+            this.exitZ = exitZ;
+            this.allowShort = allowShort;
+        }
+
+        @Override
+        public int onBar(float close) {
+            window.push(close);
+            if (!window.full()) {
+                return 0;
+            }
+            double deviation = window.standardDeviation();
+            if (deviation <= 0.0) {
+                return state;
+            }
+            double z = (close - window.mean()) / deviation;
+            if (z <= -entryZ) {
+                state = 1;
+            } else if (z >= entryZ && allowShort) {
+                state = -1;
+            } else if (Math.abs(z) <= exitZ) {
+                state = 0;
+            }
+            return state;
+        }
+    }
+
+    private static final class Momentum implements SignalModel {
+        private final RollingWindow window;
+        private final double threshold;
+        private final boolean allowShort;
+
+        Momentum(int lookback, double threshold, boolean allowShort) {
+            this.window = new RollingWindow(lookback + 1);
+            this.threshold = threshold;
+            this.allowShort = allowShort;
+        }
+
+        @Override
+        public int onBar(float close) {
+            window.push(close);
+            if (!window.full()) {
+                return 0;
+            }
+            double change = close / window.oldest() - 1.0;
+            return change > threshold ? 1 : change < -threshold && allowShort ? -1 : 0;
+        }
+    }
+}
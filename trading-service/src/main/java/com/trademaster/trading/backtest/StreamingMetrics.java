@@ -0,0 +1,212 @@
+package com.trademaster.trading.backtest;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Streaming Metrics
+ *
+ * Mergeable accumulator for one backtest task: daily P&L indexed by day of
+ * the window plus running trade statistics. Each fork/join task owns one
+ * instance, so nothing here is synchronised; results are combined with
+ * {@link #merge(StreamingMetrics)} and reduced to a {@link BacktestReport}.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+final class StreamingMetrics {
+
+    private static final double TRADING_DAYS_PER_YEAR = 252.0;
+
+    private final long firstEpochDay;
+    private final double[] dailyPnl;
+    private final boolean[] activeDays;
+
+    private int trades;
+    private int longTrades;
+    private int winningTrades;
+    private int losingTrades;
+    private double grossProfit;
+    private double grossLoss;
+    private double largestWin;
+    private double largestLoss;
+    private int winStreak;
+    private int lossStreak;
+    private int maxWinStreak;
+    private int maxLossStreak;
+    private double holdingMinutes;
+    private double longestHoldingMinutes;
+    private double commissions;
+    private double slippage;
+    private long barsProcessed;
+
+    StreamingMetrics(long firstEpochDay, int days) {
+        this.firstEpochDay = firstEpochDay;
+        this.dailyPnl = new double[days];
+        this.activeDays = new boolean[days];
+    }
+
+    // ========== Accumulation ==========
+
+    void addDailyPnl(long epochDay, double pnl) {
+        int index = (int) (epochDay - firstEpochDay);
+        dailyPnl[index] += pnl;
+        activeDays[index] = true;
+    }
+
+    /**
+     * Streaks are tracked per symbol; call before replaying the next one
+     */
+    void startSymbol() {
+        winStreak = 0;
+        lossStreak = 0;
+    }
+
+    void recordTrade(int direction, double netPnl, long heldMinutes) {
+        trades++;
+        if (direction > 0) {
+            longTrades++;
+        }
+        if (netPnl > 0) {
+            winningTrades++;
+            grossProfit += netPnl;
+            largestWin = Math.max(largestWin, netPnl);
+            lossStreak = 0;
+            maxWinStreak = Math.max(maxWinStreak, ++winStreak);
+        } else {
+            losingTrades++;
+            grossLoss -= netPnl;
+            largestLoss = Math.max(largestLoss, -netPnl);
+            winStreak = 0;
+            maxLossStreak = Math.max(maxLossStreak, ++lossStreak);
+        }
+        holdingMinutes += heldMinutes;
+        longestHoldingMinutes = Math.max(longestHoldingMinutes, heldMinutes);
+    }
+
+    void addCosts(double commission, double slippageCost) {
+        commissions += commission;
+        slippage += slippageCost;
+    }
+
+    void addBars(long bars) {
+        barsProcessed += bars;
+    }
+
+    /**
+     * Fold another accumulator in; its window must lie within this one
+     */
+    StreamingMetrics merge(StreamingMetrics other) {
+        int offset = (int) (other.firstEpochDay - firstEpochDay);
+        if (offset < 0 || offset + other.dailyPnl.length > dailyPnl.length) {
+            throw new IllegalArgumentException("Merged window lies outside this window");
+        }
+        for (int i = 0; i < other.dailyPnl.length; i++) {
+            dailyPnl[offset + i] += other.dailyPnl[i];
+            activeDays[offset + i] |= other.activeDays[i];
+        }
+        trades += other.trades;
+        longTrades += other.longTrades;
+        winningTrades += other.winningTrades;
+        losingTrades += other.losingTrades;
+        grossProfit += other.grossProfit;
+        grossLoss += other.grossLoss;
+        largestWin = Math.max(largestWin, other.largestWin);
+        largestLoss = Math.max(largestLoss, other.largestLoss);
+        maxWinStreak = Math.max(maxWinStreak, other.maxWinStreak);
+        maxLossStreak = Math.max(maxLossStreak, other.maxLossStreak);
+        holdingMinutes += other.holdingMinutes;
+        longestHoldingMinutes = Math.max(longestHoldingMinutes, other.longestHoldingMinutes);
+        commissions += other.commissions;
+        slippage += other.slippage;
+        barsProcessed += other.barsProcessed;
+        return this;
+    }
+
+    // ========== Reduction ==========
+
+    BacktestReport report(Map<String, Double> parameters, double initialCapital) {
+        int days = dailyPnl.length;
+        double[] returns = new double[days];
+        int tradingDays = 0;
+
+        double equity = initialCapital;
+        double peak = initialCapital;
+        int peakDay = 0;
+        double maxDrawdown = 0.0;
+        int drawdownStart = 0;
+        int drawdownEnd = 0;
+        double mean = 0.0;
+        double m2 = 0.0;
+        double downsideSquares = 0.0;
+        double maxDailyLoss = 0.0;
+        double maxDailyGain = 0.0;
+
+        for (int d = 0; d < days; d++) {
+            double pnl = dailyPnl[d];
+            if (activeDays[d]) {
+                // Welford update of the daily return moments
+                double r = equity > 0 ? pnl / equity : 0.0;
+                returns[tradingDays++] = r;
+                double delta = r - mean;
+                mean += delta / tradingDays;
+                m2 += delta * (r - mean);
+                if (r < 0) {
+                    downsideSquares += r * r;
+                }
+                maxDailyLoss = Math.max(maxDailyLoss, -pnl);
+                maxDailyGain = Math.max(maxDailyGain, pnl);
+            }
+            equity += pnl;
+            if (equity > peak) {
+                peak = equity;
+                peakDay = d;
+            } else if (peak > 0 && (peak - equity) / peak > maxDrawdown) {
+                maxDrawdown = (peak - equity) / peak;
+                drawdownStart = peakDay;
+                drawdownEnd = d;
+            }
+        }
+
+        double dailyStdDev = tradingDays > 1 ? Math.sqrt(m2 / (tradingDays - 1)) : 0.0;
+        double downsideDev = tradingDays > 0 ? Math.sqrt(downsideSquares / tradingDays) : 0.0;
+        double annualization = Math.sqrt(TRADING_DAYS_PER_YEAR);
+        double totalReturn = equity / initialCapital - 1.0;
+        double years = days / 365.25;
+        double cagr = equity > 0 && years > 0 ? Math.pow(equity / initialCapital, 1.0 / years) - 1.0 : -1.0;
+
+        double[] sorted = Arrays.copyOf(returns, tradingDays);
+        Arrays.sort(sorted);
+        double var95 = -quantile(sorted, 0.05) * initialCapital;
+        double var99 = -quantile(sorted, 0.01) * initialCapital;
+        int tail = Math.max(1, (int) Math.floor(tradingDays * 0.05));
+        double tailSum = 0.0;
+        for (int i = 0; i < Math.min(tail, tradingDays); i++) {
+            tailSum += sorted[i];
+        }
+        double es95 = tradingDays > 0 ? -tailSum / Math.min(tail, tradingDays) * initialCapital : 0.0;
+
+        LocalDate start = LocalDate.ofEpochDay(firstEpochDay);
+        return new BacktestReport(parameters, start, start.plusDays(days), initialCapital, equity,
+            tradingDays, barsProcessed,
+            totalReturn, mean * TRADING_DAYS_PER_YEAR, cagr, dailyStdDev * annualization,
+            dailyStdDev > 0 ? mean / dailyStdDev * annualization : 0.0,
+            downsideDev > 0 ? mean / downsideDev * annualization : 0.0,
+            maxDrawdown > 0 ? cagr / maxDrawdown : 0.0,
+            maxDrawdown, start.plusDays(drawdownStart), start.plusDays(drawdownEnd),
+            Math.max(0.0, var95), Math.max(0.0, var99), Math.max(0.0, es95), maxDailyLoss, maxDailyGain,
+            trades, longTrades, trades - longTrades, winningTrades, losingTrades,
+            winningTrades > 0 ? grossProfit / winningTrades : 0.0,
+            losingTrades > 0 ? grossLoss / losingTrades : 0.0,
+            largestWin, largestLoss, grossProfit, grossLoss, maxWinStreak, maxLossStreak,
+            trades > 0 ? holdingMinutes / trades : 0.0, longestHoldingMinutes, commissions, slippage);
+    }
+
+    private static double quantile(double[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.floor(p * sorted.length))];
+    }
+}
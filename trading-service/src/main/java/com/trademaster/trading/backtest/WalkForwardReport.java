@@ -0,0 +1,30 @@
+package com.trademaster.trading.backtest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Walk Forward Report
+ *
+ * Rolling optimisation result: per window, the parameter set with the best
+ * in-sample Sharpe ratio and its out-of-sample performance, plus the
+ * out-of-sample windows stitched into one continuous report.
+ *
+ * @param efficiency Mean out-of-sample Sharpe over mean in-sample Sharpe
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public record WalkForwardReport(List<Window> windows, BacktestReport outOfSample, double efficiency) {
+
+    /**
+     * One train/test split; the test period starts where training ends
+     */
+    public record Window(LocalDate trainStart,
+                         LocalDate testStart,
+                         LocalDate testEnd,
+                         Map<String, Double> parameters,
+                         BacktestReport inSample,
+                         BacktestReport outOfSample) {}
+}
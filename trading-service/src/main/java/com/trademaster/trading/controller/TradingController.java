@@ -1,5 +1,7 @@
 package com.trademaster.trading.controller;
 
+import com.trademaster.trading.dto.DailyOrderStats;
+import com.trademaster.trading.dto.OrderHistoryPage;
 import com.trademaster.trading.dto.OrderRequest;
 import com.trademaster.trading.dto.OrderResponse;
 import com.trademaster.trading.model.OrderStatus;
@@ -16,12 +18,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -166,6 +170,29 @@ public class TradingController {
         }
     }
     
+    /**
+     * Get order history by cursor (Keyset pagination)
+     */
+    @GetMapping("/history")
+    @Operation(summary = "Get order history by cursor", 
+               description = "Retrieve order history newest first; pass nextCursor back to continue")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Orders retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor"),
+        @ApiResponse(responseCode = "401", description = "Authentication required")
+    })
+    public OrderHistoryPage getOrderHistoryPage(
+            @Parameter(description = "Cursor from the previous page") 
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 100)") 
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Filter by symbol") 
+            @RequestParam(required = false) String symbol,
+            @AuthenticationPrincipal TradingUserPrincipal principal) {
+        
+        return orderService.getOrderHistory(principal.getUserId(), symbol, cursor, Math.min(size, 100));
+    }
+    
     /**
      * Get active orders for user (Optimized query)
      */
@@ -291,7 +318,8 @@ public class TradingController {
      */
     @GetMapping("/count")
     @Operation(summary = "Get order counts", 
-               description = "Get count of orders by status for user dashboard")
+               description = "Get count of orders by status for user dashboard, read from the " +
+                             "trigger-maintained daily stats; statuses with no orders are omitted")
     @ApiResponse(responseCode = "200", description = "Order counts retrieved")
     public ResponseEntity<Map<String, Long>> getOrderCounts(
             @AuthenticationPrincipal TradingUserPrincipal principal) {
@@ -304,6 +332,24 @@ public class TradingController {
         return ResponseEntity.ok(counts);
     }
     
+    /**
+     * Get daily order stats for user (Pre-aggregated)
+     */
+    @GetMapping("/stats/daily")
+    @Operation(summary = "Get daily order stats", 
+               description = "Get per-day order counts and quantities by status; trading days " +
+                             "are Asia/Kolkata calendar days of the order creation time")
+    @ApiResponse(responseCode = "200", description = "Daily stats retrieved")
+    public ResponseEntity<List<DailyOrderStats>> getDailyOrderStats(
+            @Parameter(description = "First trading day (inclusive, Asia/Kolkata)") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last trading day (inclusive, Asia/Kolkata)") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @AuthenticationPrincipal TradingUserPrincipal principal) {
+        
+        return ResponseEntity.ok(orderService.getDailyOrderStats(principal.getUserId(), from, to));
+    }
+    
     /**
      * Bulk order operations (Virtual Thread optimization)
      */
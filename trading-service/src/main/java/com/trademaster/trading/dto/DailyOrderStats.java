@@ -0,0 +1,27 @@
+package com.trademaster.trading.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Daily Order Stats Projection
+ *
+ * One row of {@code order_daily_stats}: orders a user created on a trading
+ * day, bucketed by their current status. The table is maintained by the
+ * {@code trg_orders_daily_stats} trigger on every insert and state
+ * transition, so reads never scan {@code orders}.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public interface DailyOrderStats {
+
+    LocalDate getTradeDate();
+
+    String getStatus();
+
+    Long getOrderCount();
+
+    Long getTotalQuantity();
+
+    Long getFilledQuantity();
+}
@@ -0,0 +1,56 @@
+package com.trademaster.trading.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Order History Page
+ *
+ * One keyset page of order history, newest first. {@code nextCursor} is an
+ * opaque token encoding the (created_at, id) of the last row; passing it back
+ * resumes strictly after that row, so page N costs the same as page 1 and
+ * rows inserted meanwhile never shift or duplicate entries.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public record OrderHistoryPage(List<OrderResponse> orders, String nextCursor) {
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Seek position: rows strictly older than (createdAt, id) in
+     * (created_at DESC, id DESC) order
+     */
+    public record Cursor(Instant createdAt, long id) {
+
+        // Upper bound representable by a PostgreSQL timestamptz column
+        public static final Cursor START = new Cursor(Instant.parse("9999-12-31T23:59:59Z"), Long.MAX_VALUE);
+
+        public static Cursor of(OrderSummary last) {
+            return new Cursor(last.createdAt(), last.id());
+        }
+
+        public String encode() {
+            String raw = createdAt.getEpochSecond() + ":" + createdAt.getNano() + ":" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        public static Cursor decode(String token) {
+            if (token == null || token.isBlank()) {
+                return START;
+            }
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split(":");
+                return new Cursor(Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])),
+                                  Long.parseLong(parts[2]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid order history cursor: " + token, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.trademaster.trading.dto;
+
+/**
+ * Order Status Count Projection
+ *
+ * Row of a grouped status count: one status and how many orders hold it.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public interface OrderStatusCount {
+
+    String getStatus();
+
+    Long getOrderCount();
+}
@@ -0,0 +1,39 @@
+package com.trademaster.trading.dto;
+
+import com.trademaster.trading.model.OrderSide;
+import com.trademaster.trading.model.OrderStatus;
+import com.trademaster.trading.model.OrderType;
+import com.trademaster.trading.model.TimeInForce;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Order Summary Projection
+ *
+ * Read-only order row for history and analytics. Every column is carried by
+ * {@code idx_orders_user_created_id}, so pages of summaries are served by an
+ * index-only scan instead of hydrating full {@code Order} entities.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public record OrderSummary(Long id,
+                           String orderId,
+                           String symbol,
+                           OrderSide side,
+                           OrderType orderType,
+                           Integer quantity,
+                           Integer filledQuantity,
+                           BigDecimal limitPrice,
+                           BigDecimal stopPrice,
+                           BigDecimal averagePrice,
+                           TimeInForce timeInForce,
+                           OrderStatus status,
+                           Instant createdAt,
+                           Instant updatedAt) {
+
+    public int remainingQuantity() {
+        return quantity - (filledQuantity != null ? filledQuantity : 0);
+    }
+}
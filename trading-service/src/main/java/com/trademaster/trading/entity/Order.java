@@ -45,7 +45,9 @@ import java.util.UUID;
     @Index(name = "idx_orders_created_at", columnList = "created_at"),
     @Index(name = "idx_orders_user_symbol_status", columnList = "user_id, symbol, status"),
     @Index(name = "idx_orders_broker_order_id", columnList = "broker_order_id"),
-    @Index(name = "idx_orders_active", columnList = "user_id, status")
+    @Index(name = "idx_orders_active", columnList = "user_id, status"),
+    @Index(name = "idx_orders_user_created_id", columnList = "user_id, created_at DESC, id DESC"),
+    @Index(name = "idx_orders_user_symbol_created_id", columnList = "user_id, symbol, created_at DESC, id DESC")
 })
 @EntityListeners(AuditingEntityListener.class)
 @Data
@@ -215,6 +217,14 @@ public class Order {
     @Column("executed_at")
     private Instant executedAt;
     
+    /**
+     * Optimistic lock version; a write from a stale copy of the order fails
+     * instead of overwriting a concurrent fill or cancel
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     /**
      * Generate unique order ID
      */
@@ -0,0 +1,87 @@
+package com.trademaster.trading.execution;
+
+/**
+ * Adaptive Concurrency Limit
+ *
+ * Gradient limit on in-flight broker work driven by measured latency. A fast
+ * EWMA tracks current service time and a slow EWMA tracks the uncongested
+ * baseline; their ratio (the gradient) shrinks the limit as queues build at
+ * the broker and lets it grow by roughly sqrt(limit) per sample while latency
+ * stays at baseline. A hard latency target caps the gradient so the limit
+ * also falls when the broker is uniformly slow.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private static final double SHORT_ALPHA = 0.1;
+    private static final double LONG_ALPHA = 0.005;
+    private static final double SMOOTHING = 0.2;
+    private static final double TOLERANCE = 1.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double targetNanos;
+
+    private double limit;
+    private double shortNanos;
+    private double longNanos;
+    private volatile int currentLimit;
+    private volatile long serviceNanos;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long targetLatencyNanos) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Require 1 <= min <= initial <= max concurrency limit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetNanos = targetLatencyNanos;
+        this.limit = initialLimit;
+        this.currentLimit = initialLimit;
+    }
+
+    /**
+     * Feed one completed request's service time
+     *
+     * @param inFlight Requests in flight when it completed
+     */
+    synchronized void onSample(long latencyNanos, int inFlight) {
+        if (shortNanos == 0.0) {
+            shortNanos = latencyNanos;
+            longNanos = latencyNanos;
+        } else {
+            shortNanos += SHORT_ALPHA * (latencyNanos - shortNanos);
+            longNanos += LONG_ALPHA * (latencyNanos - longNanos);
+        }
+        // Sustained overload drags the baseline up; pull it back so the gradient stays meaningful
+        if (longNanos > 2.0 * shortNanos) {
+            longNanos *= 0.95;
+        }
+        serviceNanos = (long) shortNanos;
+
+        // Not limited by us: no evidence the limit is too low
+        if (inFlight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longNanos / shortNanos));
+        if (shortNanos > targetNanos) {
+            gradient = Math.min(gradient, Math.max(0.5, targetNanos / shortNanos));
+        }
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+        currentLimit = (int) limit;
+    }
+
+    int limit() {
+        return currentLimit;
+    }
+
+    /**
+     * Smoothed service time, 0 before the first sample
+     */
+    long serviceNanos() {
+        return serviceNanos;
+    }
+}
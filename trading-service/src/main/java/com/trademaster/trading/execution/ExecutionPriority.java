@@ -0,0 +1,55 @@
+package com.trademaster.trading.execution;
+
+/**
+ * Execution Priority
+ *
+ * Scheduling classes for the execution queue, highest first. Risk-reducing
+ * work (cancels, position-reducing orders) is always served first and never
+ * shed; the other classes share capacity by weight and are shed when their
+ * projected queueing delay exceeds the class budget.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public enum ExecutionPriority {
+
+    RISK_REDUCING(0, 50_000, Long.MAX_VALUE, ShedAction.REJECT),
+    MANUAL(6, 20_000, 2_000, ShedAction.REJECT),
+    ALGO_CHILD(3, 20_000, 500, ShedAction.DEFER),
+    BACKFILL(1, 10_000, 250, ShedAction.DEFER);
+
+    /**
+     * What happens to work the queue will not accept
+     */
+    public enum ShedAction {
+        /** Fail the request; the caller decides whether to resubmit */
+        REJECT,
+        /** Hand the work back with a retry-after hint; TWAP/VWAP re-submit the slice after it */
+        DEFER
+    }
+
+    private final int weight;
+    private final int capacity;
+    private final long maxWaitMillis;
+    private final ShedAction shedAction;
+
+    ExecutionPriority(int weight, int capacity, long maxWaitMillis, ShedAction shedAction) {
+        this.weight = weight;
+        this.capacity = capacity;
+        this.maxWaitMillis = maxWaitMillis;
+        this.shedAction = shedAction;
+    }
+
+    /** Share of dispatches among the weighted classes (0 = strict priority) */
+    public int weight() { return weight; }
+
+    /** Hard bound on queued work in this class */
+    public int capacity() { return capacity; }
+
+    /** Projected queueing delay above which new work is shed */
+    public long maxWaitMillis() { return maxWaitMillis; }
+
+    public ShedAction shedAction() { return shedAction; }
+
+    public boolean isSheddable() { return maxWaitMillis != Long.MAX_VALUE; }
+}
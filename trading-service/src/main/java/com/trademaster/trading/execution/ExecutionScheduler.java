@@ -0,0 +1,400 @@
+package com.trademaster.trading.execution;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Execution Scheduler
+ *
+ * Admission-controlled execution queue in front of the broker:
+ * - One queue per {@link ExecutionPriority}; risk-reducing work is served
+ *   strictly first, the remaining classes by weight (virtual-time WFQ)
+ * - Within a class each user has a lock-free MPSC lane and lanes are served
+ *   round-robin, so one user's burst of algo children cannot starve another
+ *   user's orders in the same class; lanes idle for a minute are evicted
+ * - A single virtual dispatcher thread releases work while in-flight requests
+ *   are below an {@link AdaptiveConcurrencyLimit} fed by measured service
+ *   time; with nothing to release it parks until a producer or a finishing
+ *   task wakes it, waking on its own only to sweep idle lanes
+ * - Admission reserves a slot in the class before anything else, so
+ *   concurrent submitters can never overfill it, then projects the queueing
+ *   delay from depth ahead, service time and the current limit; work that
+ *   would blow its class budget, or find its class full, gives the slot back
+ *   and is rejected or deferred immediately rather than buffered
+ *
+ * Metrics (tag {@code priority}): trading.execution.queue.depth,
+ * trading.execution.queue.wait, trading.execution.queue.shed (tag
+ * {@code action}), trading.execution.queue.lanes, plus trading.execution.inflight,
+ * trading.execution.concurrency_limit and trading.execution.service_time.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+@Component
+@Slf4j
+public class ExecutionScheduler {
+
+    private static final int INITIAL_LIMIT = 64;
+    private static final int MIN_LIMIT = 4;
+    private static final int MAX_LIMIT = 2_048;
+    private static final long TARGET_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long LANE_IDLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final ExecutionPriority[] PRIORITIES = ExecutionPriority.values();
+
+    private final AdaptiveConcurrencyLimit limiter;
+    private final ClassQueue[] queues = new ClassQueue[PRIORITIES.length];
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+    private volatile boolean dispatcherParked;
+    private final long laneIdleNanos;
+    private long lastLaneSweepNanos = System.nanoTime();
+
+    // Dispatcher-owned weighted fair queueing state
+    private final double[] virtualTime = new double[PRIORITIES.length];
+    private double lastVirtualTime;
+
+    private final Map<ExecutionPriority, Timer> waitTimers = new EnumMap<>(ExecutionPriority.class);
+    private final Map<ExecutionPriority, Counter> rejected = new EnumMap<>(ExecutionPriority.class);
+    private final Map<ExecutionPriority, Counter> deferred = new EnumMap<>(ExecutionPriority.class);
+    private final Timer serviceTimer;
+
+    /**
+     * Outcome handed to the caller's shed handler when work is not admitted
+     */
+    public record Shed(ExecutionPriority priority, ExecutionPriority.ShedAction action,
+                       String reason, long retryAfterMillis) {}
+
+    /**
+     * Point-in-time view for performance endpoints
+     */
+    public record Snapshot(Map<ExecutionPriority, Integer> depth, int inFlight, int concurrencyLimit,
+                           long serviceMicros, Map<ExecutionPriority, Long> shed) {}
+
+    @Autowired
+    public ExecutionScheduler(MeterRegistry meterRegistry) {
+        this(meterRegistry, INITIAL_LIMIT, MIN_LIMIT, MAX_LIMIT, TARGET_LATENCY_NANOS);
+    }
+
+    public ExecutionScheduler(MeterRegistry meterRegistry, int initialLimit, int minLimit, int maxLimit,
+                              long targetLatencyNanos) {
+        this(meterRegistry, initialLimit, minLimit, maxLimit, targetLatencyNanos, LANE_IDLE_NANOS);
+    }
+
+    public ExecutionScheduler(MeterRegistry meterRegistry, int initialLimit, int minLimit, int maxLimit,
+                              long targetLatencyNanos, long laneIdleNanos) {
+        this.laneIdleNanos = laneIdleNanos;
+        this.limiter = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, targetLatencyNanos);
+        for (ExecutionPriority priority : PRIORITIES) {
+            ClassQueue queue = new ClassQueue();
+            queues[priority.ordinal()] = queue;
+            String tag = priority.name();
+            Gauge.builder("trading.execution.queue.depth", queue.depth, AtomicInteger::get)
+                .description("Queued executions").tag("priority", tag).register(meterRegistry);
+            waitTimers.put(priority, Timer.builder("trading.execution.queue.wait")
+                .description("Time from admission to dispatch").tag("priority", tag).register(meterRegistry));
+            rejected.put(priority, Counter.builder("trading.execution.queue.shed")
+                .description("Executions not admitted").tag("priority", tag).tag("action", "reject")
+                .register(meterRegistry));
+            deferred.put(priority, Counter.builder("trading.execution.queue.shed")
+                .description("Executions not admitted").tag("priority", tag).tag("action", "defer")
+                .register(meterRegistry));
+        }
+        Gauge.builder("trading.execution.queue.lanes", this, ExecutionScheduler::laneCount)
+            .description("Per-user lanes held across classes").register(meterRegistry);
+        Gauge.builder("trading.execution.inflight", inFlight, AtomicInteger::get)
+            .description("Executions in flight at brokers").register(meterRegistry);
+        Gauge.builder("trading.execution.concurrency_limit", limiter, AdaptiveConcurrencyLimit::limit)
+            .description("Adaptive in-flight limit").register(meterRegistry);
+        this.serviceTimer = Timer.builder("trading.execution.service_time")
+            .description("Dispatch to completion").register(meterRegistry);
+
+        this.dispatcher = Thread.ofVirtual().name("execution-dispatcher").unstarted(this::dispatchLoop);
+        this.dispatcher.start();
+    }
+
+    // ========== Submission ==========
+
+    /**
+     * Queue work for a user at a priority
+     *
+     * @param work   Runs on a worker once dispatched; its duration feeds the limit
+     * @param onShed Builds the caller's result when the work is not admitted
+     */
+    public <T> CompletableFuture<T> submit(Long userId, ExecutionPriority priority, Callable<T> work,
+                                           Function<Shed, T> onShed) {
+        ClassQueue queue = queues[priority.ordinal()];
+
+        Shed shed = admit(priority, queue);
+        if (shed != null) {
+            (shed.action() == ExecutionPriority.ShedAction.DEFER ? deferred : rejected).get(priority).increment();
+            return CompletableFuture.completedFuture(onShed.apply(shed));
+        }
+
+        Task<T> task = new Task<>(priority, work, new CompletableFuture<>(), System.nanoTime());
+        queue.offer(userId != null ? userId : 0L, task);
+        if (dispatcherParked) {
+            LockSupport.unpark(dispatcher);
+        }
+        return task.future;
+    }
+
+    /**
+     * Null when admitted with a slot reserved in the class, otherwise why not
+     */
+    private Shed admit(ExecutionPriority priority, ClassQueue queue) {
+        if (!running) {
+            return new Shed(priority, ExecutionPriority.ShedAction.REJECT, "Execution queue shut down", 0L);
+        }
+        if (queue.depth.incrementAndGet() > priority.capacity()) {
+            queue.depth.decrementAndGet();
+            return new Shed(priority, priority.shedAction(), "Execution queue full", retryAfterMillis(priority, 0));
+        }
+        if (!priority.isSheddable()) {
+            return null;
+        }
+        long projectedMillis = projectedWaitMillis(priority, 1);
+        if (projectedMillis > priority.maxWaitMillis()) {
+            queue.depth.decrementAndGet();
+            return new Shed(priority, priority.shedAction(),
+                            "Projected queue wait " + projectedMillis + "ms exceeds " + priority.maxWaitMillis() + "ms",
+                            projectedMillis);
+        }
+        return null;
+    }
+
+    /**
+     * Work queued at this priority or above, drained limit-wide at the measured service time
+     *
+     * @param reserved Slots the caller holds in the counted depth, not ahead of it
+     */
+    private long projectedWaitMillis(ExecutionPriority priority, int reserved) {
+        long ahead = Math.max(0, inFlight.get() - limiter.limit() + 1) - reserved;
+        for (int p = 0; p <= priority.ordinal(); p++) {
+            ahead += queues[p].depth.get();
+        }
+        return TimeUnit.NANOSECONDS.toMillis(ahead * limiter.serviceNanos() / Math.max(1, limiter.limit()));
+    }
+
+    private long retryAfterMillis(ExecutionPriority priority, int reserved) {
+        return Math.max(priority.isSheddable() ? priority.maxWaitMillis() : 0L, projectedWaitMillis(priority, reserved));
+    }
+
+    // ========== Dispatch ==========
+
+    private void dispatchLoop() {
+        while (running) {
+            long now = System.nanoTime();
+            if (now - lastLaneSweepNanos >= laneIdleNanos / 4) {
+                lastLaneSweepNanos = now;
+                for (ClassQueue queue : queues) {
+                    queue.evictIdleLanes(now, laneIdleNanos);
+                }
+            }
+            if (inFlight.get() >= limiter.limit()) {
+                park();
+                continue;
+            }
+            Task<?> task = next();
+            if (task == null) {
+                if (totalDepth() == 0) {
+                    park();
+                } else {
+                    Thread.yield(); // A producer holds a reserved slot and is still linking
+                }
+                continue;
+            }
+            inFlight.incrementAndGet();
+            waitTimers.get(task.priority).record(System.nanoTime() - task.enqueuedNanos, TimeUnit.NANOSECONDS);
+            try {
+                workers.execute(() -> run(task));
+            } catch (RuntimeException e) {
+                inFlight.decrementAndGet();
+                task.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private <T> void run(Task<T> task) {
+        long start = System.nanoTime();
+        try {
+            task.future.complete(task.work.call());
+        } catch (Throwable e) {
+            task.future.completeExceptionally(e);
+        } finally {
+            long latency = System.nanoTime() - start;
+            serviceTimer.record(latency, TimeUnit.NANOSECONDS);
+            limiter.onSample(latency, inFlight.getAndDecrement());
+            if (dispatcherParked) {
+                LockSupport.unpark(dispatcher);
+            }
+        }
+    }
+
+    /**
+     * Strict priority for the first class, weighted fair share for the rest
+     */
+    private Task<?> next() {
+        ClassQueue first = queues[0];
+        if (first.depth.get() > 0) {
+            Task<?> task = first.poll();
+            if (task != null) {
+                return task;
+            }
+        }
+        int chosen = -1;
+        for (int p = 1; p < queues.length; p++) {
+            if (queues[p].depth.get() == 0) {
+                continue;
+            }
+            // A class returning from idle may not bank more than one round of credit
+            virtualTime[p] = Math.max(virtualTime[p], lastVirtualTime - 1.0);
+            if (chosen < 0 || virtualTime[p] < virtualTime[chosen]) {
+                chosen = p;
+            }
+        }
+        if (chosen < 0) {
+            return null;
+        }
+        Task<?> task = queues[chosen].poll();
+        if (task != null) {
+            lastVirtualTime = virtualTime[chosen];
+            virtualTime[chosen] += 1.0 / PRIORITIES[chosen].weight();
+        }
+        return task;
+    }
+
+    /**
+     * Block until a producer queues work or a task finishes; the timeout only
+     * keeps the idle-lane sweep running while the scheduler is quiet
+     */
+    private void park() {
+        dispatcherParked = true;
+        // Re-check after publishing the flag; producers check the flag after publishing work
+        if (running && (inFlight.get() >= limiter.limit() || totalDepth() == 0)) {
+            LockSupport.parkNanos(this, Math.max(1L, laneIdleNanos / 4));
+        }
+        dispatcherParked = false;
+    }
+
+    private int totalDepth() {
+        int depth = 0;
+        for (ClassQueue queue : queues) {
+            depth += queue.depth.get();
+        }
+        return depth;
+    }
+
+    // ========== Monitoring ==========
+
+    public Snapshot snapshot() {
+        Map<ExecutionPriority, Integer> depth = new EnumMap<>(ExecutionPriority.class);
+        Map<ExecutionPriority, Long> shed = new EnumMap<>(ExecutionPriority.class);
+        for (ExecutionPriority priority : PRIORITIES) {
+            depth.put(priority, queues[priority.ordinal()].depth.get());
+            shed.put(priority, (long) (rejected.get(priority).count() + deferred.get(priority).count()));
+        }
+        return new Snapshot(depth, inFlight.get(), limiter.limit(), limiter.serviceNanos() / 1_000, shed);
+    }
+
+    /**
+     * Per-user lanes currently held across all classes
+     */
+    public int laneCount() {
+        int lanes = 0;
+        for (ClassQueue queue : queues) {
+            lanes += queue.lanes.size();
+        }
+        return lanes;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        workers.shutdown();
+    }
+
+    // ========== Queues ==========
+
+    private record Task<T>(ExecutionPriority priority, Callable<T> work, CompletableFuture<T> future,
+                           long enqueuedNanos) {}
+
+    /**
+     * One priority class: per-user lanes plus a ready ring of lanes with work
+     */
+    private static final class ClassQueue {
+        private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+        private final MpscQueue<Lane> ready = new MpscQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+
+        /**
+         * Link a task whose slot admission already reserved in {@code depth}
+         */
+        void offer(Long userId, Task<?> task) {
+            Lane lane = lanes.computeIfAbsent(userId, id -> new Lane());
+            lane.lastOfferNanos = task.enqueuedNanos();
+            lane.tasks.offer(task);
+            // The producer that takes a lane from empty puts it on the ready ring
+            if (lane.pending.getAndIncrement() == 0) {
+                ready.offer(lane);
+            }
+        }
+
+        /**
+         * Dispatcher only: one task from the lane at the head of the ring
+         */
+        Task<?> poll() {
+            Lane lane = ready.poll();
+            if (lane == null) {
+                return null;
+            }
+            Task<?> task = lane.tasks.poll();
+            if (task == null) {
+                ready.offer(lane); // Producer still linking; try the lane again next round
+                return null;
+            }
+            depth.decrementAndGet();
+            if (lane.pending.decrementAndGet() > 0) {
+                ready.offer(lane);
+            }
+            return task;
+        }
+
+        /**
+         * Dispatcher only: drop lanes with no work and no offer within the idle period
+         *
+         * A producer that looked the lane up just before removal still links its
+         * task and puts the lane on the ready ring, so the task is served; the
+         * user's next offer simply creates a fresh lane.
+         */
+        void evictIdleLanes(long nowNanos, long idleNanos) {
+            lanes.values().removeIf(lane -> lane.pending.get() == 0 && nowNanos - lane.lastOfferNanos > idleNanos);
+        }
+    }
+
+    private static final class Lane {
+        private final MpscQueue<Task<?>> tasks = new MpscQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile long lastOfferNanos;
+    }
+}
@@ -0,0 +1,362 @@
+package com.trademaster.trading.execution;
+
+import com.trademaster.trading.dto.OrderExecution;
+import com.trademaster.trading.entity.Order;
+import com.trademaster.trading.exception.BrokerIntegrationException;
+import com.trademaster.trading.model.OrderStatus;
+import com.trademaster.trading.repository.OrderJpaRepository;
+import com.trademaster.trading.service.BrokerIntegrationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Iceberg Order Manager
+ *
+ * Native iceberg execution driven by fill events:
+ * - Hidden quantity lives only in memory, never at the broker
+ * - One visible child order (tranche) is working at a time
+ * - When a tranche is fully filled the next one is released,
+ *   optionally after a refresh delay
+ * - Parent future completes when the full quantity is filled or
+ *   the iceberg is cancelled
+ *
+ * Fills reach the manager through {@link #onChildFill} once the fill
+ * transaction has committed. Per-iceberg state is only read and updated under
+ * its monitor; broker calls and order writes happen outside it, with a
+ * release in flight marked by a reservation flag so only one tranche is ever
+ * being released. Tranches are released on the task scheduler, never on the
+ * thread that applied the fill, and a working tranche is cancelled under its
+ * own order lock.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+@Component
+@Slf4j
+public class IcebergOrderManager {
+
+    private final OrderJpaRepository orderRepository;
+    private final BrokerIntegrationService brokerIntegrationService;
+    private final OrderLockRegistry orderLockRegistry;
+    private final ThreadPoolTaskScheduler taskScheduler;
+
+    // Parent order ID -> iceberg state
+    private final Map<String, IcebergState> icebergs = new ConcurrentHashMap<>();
+
+    // Child order database ID -> parent order ID
+    private final Map<Long, String> childToParent = new ConcurrentHashMap<>();
+
+    public IcebergOrderManager(OrderJpaRepository orderRepository,
+                               BrokerIntegrationService brokerIntegrationService,
+                               OrderLockRegistry orderLockRegistry,
+                               @Qualifier("taskScheduler") ThreadPoolTaskScheduler taskScheduler) {
+        this.orderRepository = orderRepository;
+        this.brokerIntegrationService = brokerIntegrationService;
+        this.orderLockRegistry = orderLockRegistry;
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Mutable per-iceberg state; all access is synchronized on the instance
+     */
+    private static final class IcebergState {
+        private final Long userId;
+        private final Order parent;
+        private final int visibleQuantity;
+        private final long refreshMillis;
+        private final List<OrderExecution> executions = new ArrayList<>();
+        private final CompletableFuture<List<OrderExecution>> completion = new CompletableFuture<>();
+        private int hiddenRemaining;
+        private int trancheRemaining;
+        private Long activeChildId;
+        private boolean releasing; // A tranche is being saved and submitted outside the monitor
+        private boolean cancelled;
+
+        private IcebergState(Long userId, Order parent, int visibleQuantity, long refreshMillis) {
+            this.userId = userId;
+            this.parent = parent;
+            this.visibleQuantity = visibleQuantity;
+            this.refreshMillis = refreshMillis;
+            this.hiddenRemaining = parent.getQuantity();
+        }
+
+        private boolean isDone() {
+            return cancelled || (hiddenRemaining == 0 && trancheRemaining == 0);
+        }
+    }
+
+    /**
+     * Start an iceberg for the parent order and release the first tranche
+     *
+     * @param userId The user ID
+     * @param parent The parent order (full quantity)
+     * @param visibleQuantity Quantity shown per tranche
+     * @param refreshTimeMillis Delay before the next tranche is released
+     * @return Future completing with one execution per tranche
+     */
+    public CompletableFuture<List<OrderExecution>> start(Long userId, Order parent,
+                                                         int visibleQuantity, long refreshTimeMillis) {
+        if (visibleQuantity <= 0 || visibleQuantity > parent.getQuantity()) {
+            return CompletableFuture.completedFuture(
+                List.of(OrderExecution.rejected(parent.getId(), "Invalid iceberg visible quantity")));
+        }
+
+        IcebergState state = new IcebergState(userId, parent, visibleQuantity, Math.max(0, refreshTimeMillis));
+        if (icebergs.putIfAbsent(parent.getOrderId(), state) != null) {
+            return CompletableFuture.completedFuture(
+                List.of(OrderExecution.rejected(parent.getId(), "Iceberg already active for order")));
+        }
+
+        releaseNextTranche(state);
+
+        log.info("Iceberg started for order {}: {} total, {} visible",
+                parent.getOrderId(), parent.getQuantity(), visibleQuantity);
+
+        return state.completion;
+    }
+
+    /**
+     * Apply a committed fill on a child order; schedules the next tranche when the current one is exhausted
+     *
+     * @return true if the order was an iceberg child
+     */
+    public boolean onChildFill(Order child, int fillQuantity, BigDecimal fillPrice) {
+        String parentOrderId = childToParent.get(child.getId());
+        if (parentOrderId == null) {
+            return false;
+        }
+
+        IcebergState state = icebergs.get(parentOrderId);
+        if (state == null) {
+            childToParent.remove(child.getId());
+            return false;
+        }
+
+        synchronized (state) {
+            if (!child.getId().equals(state.activeChildId)) {
+                return true; // Tranche no longer active, fill belongs to a cancelled iceberg
+            }
+
+            int applied = Math.min(fillQuantity, state.trancheRemaining);
+            state.trancheRemaining -= applied;
+            state.executions.add(fillExecution(state, child, applied, fillPrice));
+
+            if (state.trancheRemaining > 0) {
+                return true;
+            }
+
+            childToParent.remove(child.getId());
+            state.activeChildId = null;
+
+            if (state.hiddenRemaining == 0) {
+                complete(state);
+            } else if (!state.releasing) {
+                scheduleRelease(state); // Otherwise the in-flight release schedules it when it finishes
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cancel an active iceberg, including its working tranche
+     *
+     * @return true if an active iceberg was cancelled
+     */
+    public boolean cancel(String parentOrderId) {
+        IcebergState state = icebergs.get(parentOrderId);
+        if (state == null) {
+            return false;
+        }
+
+        Long workingChildId;
+        synchronized (state) {
+            if (state.isDone()) {
+                return false;
+            }
+            state.cancelled = true;
+            // A tranche still being released is cancelled by the releasing thread once submitted
+            workingChildId = state.releasing ? null : state.activeChildId;
+            if (state.activeChildId != null) {
+                childToParent.remove(state.activeChildId);
+            }
+            complete(state);
+        }
+
+        if (workingChildId != null) {
+            cancelChild(workingChildId);
+        }
+        return true;
+    }
+
+    /**
+     * Parent order ID of the iceberg the order is the working tranche of
+     */
+    public Optional<String> findParentOrderId(Long childId) {
+        return Optional.ofNullable(childToParent.get(childId));
+    }
+
+    /**
+     * Hidden quantity not yet released to the market
+     */
+    public int getHiddenQuantity(String parentOrderId) {
+        IcebergState state = icebergs.get(parentOrderId);
+        if (state == null) {
+            return 0;
+        }
+        synchronized (state) {
+            return state.hiddenRemaining;
+        }
+    }
+
+    private void scheduleRelease(IcebergState state) {
+        taskScheduler.schedule(() -> releaseNextTranche(state), Instant.now().plusMillis(state.refreshMillis));
+    }
+
+    private void releaseNextTranche(IcebergState state) {
+        // Reserve the tranche under the monitor
+        Order child;
+        synchronized (state) {
+            if (state.isDone() || state.releasing || state.activeChildId != null) {
+                return;
+            }
+            state.releasing = true;
+            int trancheQuantity = Math.min(state.visibleQuantity, state.hiddenRemaining);
+            state.hiddenRemaining -= trancheQuantity;
+            state.trancheRemaining = trancheQuantity;
+            child = newTranche(state, trancheQuantity);
+        }
+
+        // Persist first so fills arriving right after the broker acknowledges find the tranche registered
+        boolean submitted = false;
+        try {
+            child = orderRepository.save(child);
+            synchronized (state) {
+                state.activeChildId = child.getId();
+                childToParent.put(child.getId(), state.parent.getOrderId());
+            }
+
+            child.setBrokerOrderId(brokerIntegrationService.submitOrder(child));
+            child.setStatus(OrderStatus.ACKNOWLEDGED);
+            child.setSubmittedAt(Instant.now());
+            child.setUpdatedAt(Instant.now());
+            child = orderRepository.save(child);
+            submitted = true;
+        } catch (RuntimeException e) {
+            log.error("Iceberg tranche submission failed for order {}: {}", state.parent.getOrderId(), e.getMessage());
+            if (child.getId() != null && child.getBrokerOrderId() == null) {
+                child.setStatus(OrderStatus.REJECTED);
+                child.setRejectionReason("Broker submission failed: " + e.getMessage());
+                child.setUpdatedAt(Instant.now());
+                orderRepository.save(child);
+            }
+        }
+
+        boolean cancelTranche = false;
+        synchronized (state) {
+            state.releasing = false;
+            if (!submitted) {
+                if (child.getId() != null) {
+                    childToParent.remove(child.getId());
+                }
+                state.activeChildId = null;
+                state.trancheRemaining = 0;
+                state.executions.add(OrderExecution.rejected(state.parent.getId(), "Tranche submission failed"));
+                if (!state.cancelled) {
+                    state.cancelled = true;
+                    complete(state);
+                }
+            } else if (state.cancelled) {
+                // Cancelled while the tranche was being submitted
+                childToParent.remove(child.getId());
+                cancelTranche = true;
+            } else if (state.activeChildId == null && !state.isDone()) {
+                // Filled before the release finished
+                scheduleRelease(state);
+            }
+        }
+
+        if (cancelTranche) {
+            cancelChild(child.getId());
+        }
+    }
+
+    private Order newTranche(IcebergState state, int trancheQuantity) {
+        Order parent = state.parent;
+        Instant now = Instant.now();
+        return Order.builder()
+            .userId(state.userId)
+            .symbol(parent.getSymbol())
+            .exchange(parent.getExchange())
+            .side(parent.getSide())
+            .orderType(parent.getOrderType())
+            .quantity(trancheQuantity)
+            .limitPrice(parent.getLimitPrice())
+            .timeInForce(parent.getTimeInForce())
+            .brokerName(parent.getBrokerName())
+            .metadata("{\"icebergParent\":\"" + parent.getOrderId() + "\"}")
+            .status(OrderStatus.PENDING)
+            .createdAt(now)
+            .updatedAt(now)
+            .build();
+    }
+
+    private void cancelChild(Long childId) {
+        // Under the child's order lock so the cancel is serialized with its fills
+        orderLockRegistry.withOrderLock(childId, () -> {
+            orderRepository.findById(childId)
+                .filter(child -> !child.getStatus().isTerminal())
+                .ifPresent(child -> {
+                    try {
+                        if (child.getBrokerOrderId() != null) {
+                            brokerIntegrationService.cancelOrder(child.getBrokerOrderId());
+                        }
+                        child.setStatus(OrderStatus.CANCELLED);
+                        child.setUpdatedAt(Instant.now());
+                        orderRepository.save(child);
+                    } catch (BrokerIntegrationException e) {
+                        log.error("Failed to cancel iceberg tranche {}: {}", child.getOrderId(), e.getMessage());
+                    }
+                });
+            return null;
+        });
+    }
+
+    private OrderExecution fillExecution(IcebergState state, Order child, int quantity, BigDecimal price) {
+        int remaining = state.hiddenRemaining + state.trancheRemaining;
+        return OrderExecution.builder()
+            .orderId(child.getId())
+            .parentOrderId(state.parent.getOrderId())
+            .userId(state.userId)
+            .symbol(child.getSymbol())
+            .venue(child.getExchange())
+            .executionStatus(remaining == 0 ? "FILLED" : "PARTIAL")
+            .originalQuantity(state.parent.getQuantity())
+            .executedQuantity(quantity)
+            .remainingQuantity(remaining)
+            .executionPrice(price)
+            .averagePrice(price)
+            .totalValue(price.multiply(BigDecimal.valueOf(quantity)).setScale(4, RoundingMode.HALF_UP))
+            .executionAlgorithm("ICEBERG")
+            .executionCompleted(Instant.now())
+            .build();
+    }
+
+    private void complete(IcebergState state) {
+        icebergs.remove(state.parent.getOrderId());
+        state.completion.complete(List.copyOf(state.executions));
+        log.info("Iceberg {} for order {}: {} executions",
+                state.cancelled ? "cancelled" : "completed", state.parent.getOrderId(), state.executions.size());
+    }
+}
@@ -0,0 +1,56 @@
+package com.trademaster.trading.execution;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * MPSC Queue
+ *
+ * Unbounded lock-free multi-producer, single-consumer linked queue
+ * (Vyukov). {@link #offer} is wait-free: one atomic swap of the tail, then a
+ * link store. {@link #poll} must only be called by the single consumer and
+ * may briefly return null while a producer is between the swap and the link;
+ * callers that track counts separately treat that as "try again".
+ * Bounding is the caller's job (see {@link ExecutionScheduler}).
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+final class MpscQueue<E> {
+
+    private static final class Node<E> {
+        private E value;
+        private volatile Node<E> next;
+
+        Node(E value) {
+            this.value = value;
+        }
+    }
+
+    private final AtomicReference<Node<E>> tail;
+    private Node<E> head; // Consumer-owned stub
+
+    MpscQueue() {
+        Node<E> stub = new Node<>(null);
+        this.head = stub;
+        this.tail = new AtomicReference<>(stub);
+    }
+
+    void offer(E value) {
+        Node<E> node = new Node<>(value);
+        tail.getAndSet(node).next = node;
+    }
+
+    /**
+     * Consumer only
+     */
+    E poll() {
+        Node<E> next = head.next;
+        if (next == null) {
+            return null;
+        }
+        E value = next.value;
+        next.value = null;
+        head = next;
+        return value;
+    }
+}
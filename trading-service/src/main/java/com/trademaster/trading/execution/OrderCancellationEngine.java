@@ -0,0 +1,238 @@
+package com.trademaster.trading.execution;
+
+import com.trademaster.trading.dto.OrderExecution;
+import com.trademaster.trading.entity.Order;
+import com.trademaster.trading.exception.BrokerIntegrationException;
+import com.trademaster.trading.model.OrderStatus;
+import com.trademaster.trading.repository.OrderJpaRepository;
+import com.trademaster.trading.service.BrokerIntegrationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Order Cancellation Engine
+ *
+ * Bulk cancel and cancel-replace for market makers re-quoting at high rates:
+ * - One broker round trip per (broker, venue) group via mass-cancel
+ * - One UPDATE statement per group for the status change
+ * - Groups processed concurrently on Virtual Threads
+ * - Bulk cancel and cancel-replace serialized with fill processing through
+ *   OrderLockRegistry, reading orders only once their locks are held
+ * - Iceberg tranches cancelled through IcebergOrderManager so the iceberg
+ *   completes instead of releasing its next tranche
+ *
+ * Performance Targets:
+ * - Bulk cancel: 10,000+ cancels/second against a stub broker
+ * - Cancel-replace: single lock acquisition, no lost fills
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+@Component
+@Slf4j
+public class OrderCancellationEngine {
+
+    private final OrderJpaRepository orderRepository;
+    private final BrokerIntegrationService brokerIntegrationService;
+    private final OrderLockRegistry orderLockRegistry;
+    private final IcebergOrderManager icebergOrderManager;
+    private final AsyncTaskExecutor brokerIntegrationExecutor;
+
+    private record VenueKey(String brokerName, String exchange) {}
+
+    public OrderCancellationEngine(OrderJpaRepository orderRepository,
+                                   BrokerIntegrationService brokerIntegrationService,
+                                   OrderLockRegistry orderLockRegistry,
+                                   IcebergOrderManager icebergOrderManager,
+                                   @Qualifier("brokerIntegrationExecutor") AsyncTaskExecutor brokerIntegrationExecutor) {
+        this.orderRepository = orderRepository;
+        this.brokerIntegrationService = brokerIntegrationService;
+        this.orderLockRegistry = orderLockRegistry;
+        this.icebergOrderManager = icebergOrderManager;
+        this.brokerIntegrationExecutor = brokerIntegrationExecutor;
+    }
+
+    /**
+     * Cancel all given orders, batching broker calls and status updates per venue
+     *
+     * An iceberg tranche cancels its whole iceberg. Orders the broker has not
+     * acknowledged yet may still be in flight to it and are left live.
+     *
+     * @param orderIds Database IDs of the orders to cancel
+     * @return Map of order ID to cancellation result (unknown IDs map to false)
+     */
+    public Map<Long, Boolean> bulkCancel(List<Long> orderIds) {
+        Map<Long, Boolean> results = new ConcurrentHashMap<>(orderIds.size() * 2);
+        orderIds.forEach(id -> results.put(id, false));
+
+        // Iceberg tranches go through the manager, which takes each tranche's lock itself
+        List<Long> plainIds = new ArrayList<>(orderIds.size());
+        for (Long id : orderIds) {
+            icebergOrderManager.findParentOrderId(id).ifPresentOrElse(
+                parentOrderId -> results.put(id, icebergOrderManager.cancel(parentOrderId)),
+                () -> plainIds.add(id));
+        }
+
+        int groups = orderLockRegistry.withOrderLocks(plainIds, () -> {
+            // One query to load every order in the batch, once no fill can be in flight for it
+            Map<VenueKey, List<Order>> byVenue = orderRepository.findAllById(plainIds).stream()
+                .filter(order -> order.getStatus() != null && !order.getStatus().isTerminal())
+                .collect(Collectors.groupingBy(order -> new VenueKey(order.getBrokerName(), order.getExchange())));
+
+            List<CompletableFuture<Void>> groupFutures = new ArrayList<>(byVenue.size());
+            byVenue.forEach((venue, orders) -> groupFutures.add(CompletableFuture.runAsync(
+                () -> cancelVenueGroup(venue, orders, results), brokerIntegrationExecutor)));
+
+            CompletableFuture.allOf(groupFutures.toArray(CompletableFuture[]::new)).join();
+            return byVenue.size();
+        });
+
+        log.info("Bulk cancelled {}/{} orders across {} venue groups",
+                results.values().stream().filter(Boolean::booleanValue).count(), orderIds.size(), groups);
+
+        return results;
+    }
+
+    /**
+     * Atomically cancel an order and submit its replacement
+     *
+     * Holds the order lock for the whole operation so a concurrent fill is
+     * applied either before the replacement is sized or after the original
+     * is cancelled, never in between. The replacement only carries the
+     * quantity that is still open on the original order. The lock is held
+     * until the transaction completes, like the fill path's.
+     *
+     * Iceberg tranches are rejected: replacing one would leave the iceberg
+     * releasing further tranches on the old terms.
+     *
+     * @param orderId Database ID of the order to replace
+     * @param newOrder Replacement terms (total quantity, prices)
+     * @return OrderExecution for the replacement, or a rejection
+     */
+    @Transactional
+    public OrderExecution cancelReplace(Long orderId, Order newOrder) {
+        return orderLockRegistry.withOrderLockUntilCompletion(orderId, () -> {
+            if (icebergOrderManager.findParentOrderId(orderId).isPresent()) {
+                return OrderExecution.rejected(orderId, "Order is an iceberg tranche; cancel the iceberg instead");
+            }
+
+            Order original = orderRepository.findById(orderId).orElse(null);
+            if (original == null) {
+                return OrderExecution.rejected(orderId, "Order not found: " + orderId);
+            }
+
+            if (original.getStatus().isTerminal()) {
+                return OrderExecution.rejected(orderId, "Order already " + original.getStatus());
+            }
+
+            int filled = original.getFilledQuantity() != null ? original.getFilledQuantity() : 0;
+            int leavesQuantity = newOrder.getQuantity() - filled;
+            if (leavesQuantity <= 0) {
+                return OrderExecution.rejected(orderId, "Replacement quantity already filled");
+            }
+
+            // Cancel at broker first; a failed cancel (e.g. filled in flight) keeps the original live
+            if (original.getBrokerOrderId() != null) {
+                try {
+                    brokerIntegrationService.cancelOrder(original.getBrokerOrderId());
+                } catch (BrokerIntegrationException e) {
+                    log.warn("Cancel-replace rejected for order {}: {}", orderId, e.getMessage());
+                    return OrderExecution.rejected(orderId, "Cancel failed: " + e.getMessage());
+                }
+            }
+
+            Instant now = Instant.now();
+            original.setStatus(OrderStatus.CANCELLED);
+            original.setUpdatedAt(now);
+            orderRepository.save(original);
+
+            Order replacement = Order.builder()
+                .userId(original.getUserId())
+                .symbol(original.getSymbol())
+                .exchange(original.getExchange())
+                .side(original.getSide())
+                .orderType(newOrder.getOrderType() != null ? newOrder.getOrderType() : original.getOrderType())
+                .quantity(leavesQuantity)
+                .limitPrice(newOrder.getLimitPrice() != null ? newOrder.getLimitPrice() : original.getLimitPrice())
+                .stopPrice(newOrder.getStopPrice() != null ? newOrder.getStopPrice() : original.getStopPrice())
+                .timeInForce(original.getTimeInForce())
+                .expiryDate(original.getExpiryDate())
+                .brokerName(original.getBrokerName())
+                .status(OrderStatus.PENDING)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+
+            try {
+                replacement.setBrokerOrderId(brokerIntegrationService.submitOrder(replacement));
+                replacement.setStatus(OrderStatus.ACKNOWLEDGED);
+                replacement.setSubmittedAt(Instant.now());
+            } catch (BrokerIntegrationException e) {
+                replacement.setStatus(OrderStatus.REJECTED);
+                replacement.setRejectionReason("Broker submission failed: " + e.getMessage());
+            }
+            replacement = orderRepository.save(replacement);
+
+            if (replacement.getStatus() == OrderStatus.REJECTED) {
+                return OrderExecution.rejected(replacement.getId(), replacement.getRejectionReason());
+            }
+
+            OrderExecution execution = OrderExecution.pending(replacement.getId(), replacement.getUserId(),
+                                                              replacement.getSymbol());
+            execution.setParentOrderId(original.getOrderId());
+            execution.setOriginalQuantity(leavesQuantity);
+            execution.setRemainingQuantity(leavesQuantity);
+            execution.setLimitPrice(replacement.getLimitPrice());
+            return execution;
+        });
+    }
+
+    private void cancelVenueGroup(VenueKey venue, List<Order> orders, Map<Long, Boolean> results) {
+        // Only broker-confirmed cancels are marked; an order without a broker ID may still be
+        // in flight to the broker, so cancelling it locally could leave it live at the broker
+        Map<String, Long> brokerIdToOrderId = new HashMap<>(orders.size() * 2);
+        for (Order order : orders) {
+            if (order.getBrokerOrderId() != null) {
+                brokerIdToOrderId.put(order.getBrokerOrderId(), order.getId());
+            } else {
+                log.warn("Order {} not yet acknowledged by broker {}, not cancelled", order.getId(), venue.brokerName());
+            }
+        }
+
+        if (brokerIdToOrderId.isEmpty()) {
+            return;
+        }
+
+        List<Long> cancelIds = new ArrayList<>(brokerIdToOrderId.size());
+        try {
+            brokerIntegrationService.cancelOrders(venue.brokerName(), new ArrayList<>(brokerIdToOrderId.keySet()))
+                .forEach((brokerOrderId, cancelled) -> {
+                    if (Boolean.TRUE.equals(cancelled)) {
+                        cancelIds.add(brokerIdToOrderId.get(brokerOrderId));
+                    }
+                });
+        } catch (BrokerIntegrationException e) {
+            log.error("Mass cancel failed for broker {} venue {}: {}",
+                     venue.brokerName(), venue.exchange(), e.getMessage());
+        }
+
+        if (cancelIds.isEmpty()) {
+            return;
+        }
+
+        orderRepository.markCancelled(cancelIds, Instant.now());
+        cancelIds.forEach(id -> results.put(id, true));
+    }
+}
@@ -0,0 +1,114 @@
+package com.trademaster.trading.execution;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Order Lock Registry
+ *
+ * Striped per-order locks shared by every code path that mutates an order's
+ * fill state. Cancel-replace, bulk cancel and fill processing all take the
+ * lock for the order ID, so a replacement can never be sized from a filled
+ * quantity that is about to change underneath it. Fill processing runs in a
+ * transaction and holds the lock until that transaction completes, so
+ * cancel-replace never reads an order whose fill is written but not yet
+ * committed.
+ *
+ * Lock stripes are allocated once at startup; lookup is a single mask on the
+ * order ID hash with no allocation on the hot path.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+@Component
+public class OrderLockRegistry {
+
+    private static final int STRIPES = 1024; // Must be a power of two
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public OrderLockRegistry() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Run action while holding the lock for the given order
+     */
+    public <T> T withOrderLock(Long orderId, Supplier<T> action) {
+        ReentrantLock lock = lockFor(orderId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run action while holding the locks for all given orders
+     *
+     * Stripes are taken in ascending index order, so two batches, or a batch and a
+     * single-order caller, can never deadlock on each other.
+     */
+    public <T> T withOrderLocks(Collection<Long> orderIds, Supplier<T> action) {
+        BitSet stripes = new BitSet(STRIPES);
+        orderIds.forEach(orderId -> stripes.set(stripeFor(orderId)));
+
+        int[] held = stripes.stream().toArray();
+        int locked = 0;
+        try {
+            for (int stripe : held) {
+                locks[stripe].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                locks[held[i]].unlock();
+            }
+        }
+    }
+    
+    /**
+     * Run action under the lock for the given order and keep holding it until the current
+     * transaction completes; without an active transaction the lock is released after action
+     */
+    public <T> T withOrderLockUntilCompletion(Long orderId, Supplier<T> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return withOrderLock(orderId, action);
+        }
+
+        ReentrantLock lock = lockFor(orderId);
+        lock.lock();
+        try {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    lock.unlock(); // Commit and rollback complete on the thread that took the lock
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+        return action.get();
+    }
+
+    private ReentrantLock lockFor(Long orderId) {
+        return locks[stripeFor(orderId)];
+    }
+    
+    private static int stripeFor(Long orderId) {
+        int hash = orderId == null ? 0 : Long.hashCode(orderId);
+        hash ^= (hash >>> 16); // Mix high bits into the stripe index
+        return hash & (STRIPES - 1);
+    }
+}
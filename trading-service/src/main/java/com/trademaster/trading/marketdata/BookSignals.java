@@ -0,0 +1,77 @@
+package com.trademaster.trading.marketdata;
+
+/**
+ * Book Signals
+ *
+ * Immutable microstructure state published by an {@link L2Book} after every
+ * update, so readers (router, pre-trade risk) get imbalance, microprice and
+ * impact in O(1) without touching the book.
+ *
+ * Impact follows the square-root law: a parent order of Q shares moves the
+ * price by about Y * sigma_daily * sqrt(Q / ADV); {@code impactCoefficient}
+ * folds Y * sigma / sqrt(ADV) so {@link #impactFraction(long)} is one sqrt.
+ *
+ * @param imbalance Depth imbalance (bid - ask) / (bid + ask) within the
+ *                  imbalance band around the touch, in [-1, 1]
+ * @param dailyVolatility Time-scaled EWMA of microprice returns (fraction)
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public record BookSignals(String symbol,
+                          String venue,
+                          long sequence,
+                          long timestampMillis,
+                          double bestBid,
+                          long bestBidSize,
+                          double bestAsk,
+                          long bestAskSize,
+                          long bidDepth,
+                          long askDepth,
+                          double imbalance,
+                          double microprice,
+                          double dailyVolatility,
+                          double averageDailyVolume,
+                          double impactCoefficient) {
+
+    public static BookSignals empty(String symbol, String venue) {
+        return new BookSignals(symbol, venue, 0L, 0L, 0.0, 0L, 0.0, 0L, 0L, 0L, 0.0, 0.0, 0.0, 0.0, 0.0);
+    }
+
+    public boolean isTwoSided() {
+        return bestBidSize > 0 && bestAskSize > 0;
+    }
+
+    public double mid() {
+        return isTwoSided() ? (bestBid + bestAsk) / 2.0 : 0.0;
+    }
+
+    public double spread() {
+        return isTwoSided() ? bestAsk - bestBid : 0.0;
+    }
+
+    /**
+     * Expected permanent + temporary price move for a parent order, as a
+     * fraction of price
+     */
+    public double impactFraction(long quantity) {
+        return quantity > 0 ? impactCoefficient * Math.sqrt(quantity) : 0.0;
+    }
+
+    /**
+     * Half spread plus square-root impact, as a fraction of mid
+     */
+    public double expectedCostFraction(long quantity) {
+        double mid = mid();
+        return (mid > 0 ? spread() / (2.0 * mid) : 0.0) + impactFraction(quantity);
+    }
+
+    /**
+     * Share of the displayed depth on the side the order takes from
+     * (1 = the order alone would exhaust the visible book band)
+     */
+    public double depthConsumed(boolean buy, long quantity) {
+        long depth = buy ? askDepth : bidDepth;
+        return depth > 0 ? Math.min(1.0, (double) quantity / depth) : 1.0;
+    }
+}
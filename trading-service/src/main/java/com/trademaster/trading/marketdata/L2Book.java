@@ -0,0 +1,273 @@
+package com.trademaster.trading.marketdata;
+
+import java.util.Arrays;
+
+/**
+ * L2 Book
+ *
+ * Price-level book for one symbol on one venue. Sizes live in two
+ * {@code long[]} rings indexed by price tick (tick mod capacity) over a
+ * window of {@code capacity} ticks, so an update is an array store and there
+ * are no per-level objects. The window re-centres when a level arrives
+ * outside it; levels that fall off are far from the touch by construction.
+ *
+ * After each update the book recomputes its {@link BookSignals} from the
+ * touch and the {@code band} ticks behind it, which bounds the work per
+ * update independently of book size, and publishes them through a volatile
+ * field. Writers are serialised on the instance; readers never lock.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+final class L2Book {
+
+    static final double IMPACT_FACTOR = 0.7;
+    static final double DEFAULT_DAILY_VOLATILITY = 0.02;
+    static final double TRADING_SECONDS_PER_DAY = 22_500.0; // 09:15-15:30
+    static final double DEPTH_TURNOVER_PER_DAY = 200.0;
+    private static final double VOLATILITY_HALF_LIFE_SECONDS = 300.0;
+    private static final int MIN_VOLATILITY_SAMPLES = 20;
+
+    final String symbol;
+    final String venue;
+    private final double tickSize;
+    private final int capacity;
+    private final int band;
+
+    private final long[] bids;
+    private final long[] asks;
+    private long baseTick = Long.MIN_VALUE; // Lowest tick in the window
+    private long bestBidTick = Long.MIN_VALUE;
+    private long bestAskTick = Long.MAX_VALUE;
+
+    // Time-decayed variance of microprice log returns per second
+    private double lastMicroprice;
+    private long lastMicropriceMillis;
+    private double varianceSum;
+    private double varianceTime;
+    private int volatilitySamples;
+    private double averageDailyVolume;
+    private long sequence;
+
+    private volatile BookSignals signals;
+
+    L2Book(String symbol, String venue, double tickSize, int capacity, int band) {
+        if (tickSize <= 0 || capacity < 2 * band || band < 1) {
+            throw new IllegalArgumentException("Invalid book geometry");
+        }
+        this.symbol = symbol;
+        this.venue = venue;
+        this.tickSize = tickSize;
+        this.capacity = capacity;
+        this.band = band;
+        this.bids = new long[capacity];
+        this.asks = new long[capacity];
+        this.signals = BookSignals.empty(symbol, venue);
+    }
+
+    BookSignals signals() {
+        return signals;
+    }
+
+    // ========== Updates ==========
+
+    /**
+     * Set the resting size at one price level (0 removes the level)
+     */
+    synchronized BookSignals applyLevel(boolean bid, double price, long size, long timestampMillis) {
+        setLevel(bid, toTick(price), Math.max(0L, size));
+        return publish(timestampMillis);
+    }
+
+    /**
+     * Replace the book with full depth (levels may be in any order)
+     */
+    synchronized BookSignals applySnapshot(double[] bidPrices, long[] bidSizes, int bidCount,
+                                           double[] askPrices, long[] askSizes, int askCount,
+                                           long timestampMillis) {
+        Arrays.fill(bids, 0L);
+        Arrays.fill(asks, 0L);
+        bestBidTick = Long.MIN_VALUE;
+        bestAskTick = Long.MAX_VALUE;
+        baseTick = Long.MIN_VALUE;
+        // Centre the window on the touch so the inside levels are never dropped
+        double anchor = bidCount > 0 ? max(bidPrices, bidCount) : askCount > 0 ? min(askPrices, askCount) : 0.0;
+        if (anchor > 0) {
+            baseTick = toTick(anchor) - capacity / 2;
+        }
+        for (int i = 0; i < bidCount; i++) {
+            setLevel(true, toTick(bidPrices[i]), Math.max(0L, bidSizes[i]));
+        }
+        for (int i = 0; i < askCount; i++) {
+            setLevel(false, toTick(askPrices[i]), Math.max(0L, askSizes[i]));
+        }
+        return publish(timestampMillis);
+    }
+
+    synchronized void setAverageDailyVolume(double volume) {
+        this.averageDailyVolume = Math.max(0.0, volume);
+    }
+
+    private void setLevel(boolean bid, long tick, long size) {
+        if (baseTick == Long.MIN_VALUE) {
+            if (size == 0) {
+                return;
+            }
+            baseTick = tick - capacity / 2;
+        }
+        if (tick < baseTick || tick >= baseTick + capacity) {
+            if (size == 0) {
+                return; // Removing a level we never held
+            }
+            recentre(tick);
+        }
+        long[] sizes = bid ? bids : asks;
+        sizes[slot(tick)] = size;
+
+        if (bid) {
+            if (size > 0 && tick > bestBidTick) {
+                bestBidTick = tick;
+            } else if (size == 0 && tick == bestBidTick) {
+                bestBidTick = scanDown(bids, tick - 1);
+            }
+        } else {
+            if (size > 0 && tick < bestAskTick) {
+                bestAskTick = tick;
+            } else if (size == 0 && tick == bestAskTick) {
+                bestAskTick = scanUp(asks, tick + 1);
+            }
+        }
+    }
+
+    /**
+     * Slide the window so the tick sits in the middle, zeroing vacated slots
+     */
+    private void recentre(long tick) {
+        long newBase = tick - capacity / 2;
+        long shift = newBase - baseTick;
+        if (Math.abs(shift) >= capacity) {
+            Arrays.fill(bids, 0L);
+            Arrays.fill(asks, 0L);
+        } else if (shift > 0) {
+            for (long t = baseTick; t < newBase; t++) {
+                bids[slot(t)] = 0L;
+                asks[slot(t)] = 0L;
+            }
+        } else {
+            for (long t = newBase + capacity; t < baseTick + capacity; t++) {
+                bids[slot(t)] = 0L;
+                asks[slot(t)] = 0L;
+            }
+        }
+        baseTick = newBase;
+        bestBidTick = bestBidTick >= newBase + capacity ? scanDown(bids, newBase + capacity - 1)
+            : bestBidTick < newBase ? Long.MIN_VALUE : bestBidTick;
+        bestAskTick = bestAskTick < newBase ? scanUp(asks, newBase)
+            : bestAskTick >= newBase + capacity ? Long.MAX_VALUE : bestAskTick;
+    }
+
+    private long scanDown(long[] sizes, long fromTick) {
+        for (long t = Math.min(fromTick, baseTick + capacity - 1); t >= baseTick; t--) {
+            if (sizes[slot(t)] > 0) {
+                return t;
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
+    private long scanUp(long[] sizes, long fromTick) {
+        for (long t = Math.max(fromTick, baseTick); t < baseTick + capacity; t++) {
+            if (sizes[slot(t)] > 0) {
+                return t;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    // ========== Signals ==========
+
+    private BookSignals publish(long timestampMillis) {
+        boolean hasBid = bestBidTick != Long.MIN_VALUE;
+        boolean hasAsk = bestAskTick != Long.MAX_VALUE;
+        double bestBid = hasBid ? bestBidTick * tickSize : 0.0;
+        double bestAsk = hasAsk ? bestAskTick * tickSize : 0.0;
+        long bidSize = hasBid ? bids[slot(bestBidTick)] : 0L;
+        long askSize = hasAsk ? asks[slot(bestAskTick)] : 0L;
+
+        long bidDepth = 0;
+        long askDepth = 0;
+        if (hasBid) {
+            for (long t = bestBidTick, end = Math.max(baseTick, bestBidTick - band + 1); t >= end; t--) {
+                bidDepth += bids[slot(t)];
+            }
+        }
+        if (hasAsk) {
+            for (long t = bestAskTick, end = Math.min(baseTick + capacity - 1, bestAskTick + band - 1); t <= end; t++) {
+                askDepth += asks[slot(t)];
+            }
+        }
+        double imbalance = bidDepth + askDepth > 0 ? (double) (bidDepth - askDepth) / (bidDepth + askDepth) : 0.0;
+
+        // Size-weighted: the price leans toward the side about to be depleted
+        double microprice = hasBid && hasAsk
+            ? (bestBid * askSize + bestAsk * bidSize) / (bidSize + askSize)
+            : hasBid ? bestBid : bestAsk;
+        updateVolatility(microprice, timestampMillis);
+
+        double dailyVolatility = volatilitySamples >= MIN_VOLATILITY_SAMPLES && varianceTime > 0
+            ? Math.sqrt(varianceSum / varianceTime * TRADING_SECONDS_PER_DAY)
+            : DEFAULT_DAILY_VOLATILITY;
+        // Without a volume feed, visible depth turning over through the day stands in for ADV
+        double adv = averageDailyVolume > 0 ? averageDailyVolume
+            : (bidDepth + askDepth) / 2.0 * DEPTH_TURNOVER_PER_DAY;
+        double coefficient = adv > 0 ? IMPACT_FACTOR * dailyVolatility / Math.sqrt(adv) : 0.0;
+
+        BookSignals published = new BookSignals(symbol, venue, ++sequence, timestampMillis,
+            bestBid, bidSize, bestAsk, askSize, bidDepth, askDepth, imbalance, microprice,
+            dailyVolatility, adv, coefficient);
+        signals = published;
+        return published;
+    }
+
+    private void updateVolatility(double microprice, long timestampMillis) {
+        if (microprice <= 0) {
+            return;
+        }
+        if (lastMicroprice > 0 && microprice != lastMicroprice) {
+            double elapsed = Math.max(0.001, (timestampMillis - lastMicropriceMillis) / 1000.0);
+            double decay = Math.exp(-elapsed * Math.log(2) / VOLATILITY_HALF_LIFE_SECONDS);
+            double r = Math.log(microprice / lastMicroprice);
+            varianceSum = varianceSum * decay + r * r;
+            varianceTime = varianceTime * decay + elapsed;
+            volatilitySamples++;
+        }
+        if (microprice != lastMicroprice) {
+            lastMicroprice = microprice;
+            lastMicropriceMillis = timestampMillis;
+        }
+    }
+
+    private long toTick(double price) {
+        return Math.round(price / tickSize);
+    }
+
+    private int slot(long tick) {
+        return (int) Math.floorMod(tick, (long) capacity);
+    }
+
+    private static double max(double[] values, int count) {
+        double result = values[0];
+        for (int i = 1; i < count; i++) {
+            result = Math.max(result, values[i]);
+        }
+        return result;
+    }
+
+    private static double min(double[] values, int count) {
+        double result = values[0];
+        for (int i = 1; i < count; i++) {
+            result = Math.min(result, values[i]);
+        }
+        return result;
+    }
+}
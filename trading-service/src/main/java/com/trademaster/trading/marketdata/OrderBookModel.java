@@ -0,0 +1,314 @@
+package com.trademaster.trading.marketdata;
+
+import com.trademaster.trading.dto.MarketDataSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Order Book Model
+ *
+ * Real-time L2 books per symbol and venue:
+ * - Each venue book is a pair of price-indexed size arrays ({@link L2Book});
+ *   a level update is an array store plus a walk of the imbalance band
+ * - Imbalance, microprice and the square-root impact coefficient are
+ *   recomputed on every update and published as immutable {@link BookSignals}
+ * - A consolidated view per symbol is folded from the venue signals on each
+ *   update, so {@link #signals(String)} and {@link #signals(String, String)}
+ *   are single map lookups for the router and pre-trade risk
+ *
+ * Performance Targets:
+ * - Level update including signal recompute: <1 microsecond
+ * - Signal read: O(1), lock-free
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+@Component
+@Slf4j
+public class OrderBookModel {
+
+    public static final String CONSOLIDATED = "CONSOLIDATED";
+
+    private static final double DEFAULT_TICK_SIZE = 0.05;
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final int DEFAULT_BAND = 10;
+
+    private final double tickSize;
+    private final int capacity;
+    private final int band;
+
+    private final Map<String, SymbolBooks> books = new ConcurrentHashMap<>();
+    private final List<Consumer<BookSignals>> listeners = new CopyOnWriteArrayList<>();
+
+    public OrderBookModel() {
+        this(DEFAULT_TICK_SIZE, DEFAULT_CAPACITY, DEFAULT_BAND);
+    }
+
+    /**
+     * @param tickSize Price increment levels are keyed by
+     * @param capacity Price levels held per side (window around the touch)
+     * @param band Ticks behind each touch counted into imbalance and depth
+     */
+    public OrderBookModel(double tickSize, int capacity, int band) {
+        this.tickSize = tickSize;
+        this.capacity = capacity;
+        this.band = band;
+    }
+
+    // ========== Updates ==========
+
+    /**
+     * Apply one incremental level change (size 0 deletes the level)
+     */
+    public BookSignals onLevelUpdate(String symbol, String venue, boolean bid, double price, long size,
+                                     long timestampMillis) {
+        SymbolBooks symbolBooks = symbolBooks(symbol);
+        BookSignals signals = symbolBooks.book(venue).applyLevel(bid, price, size, timestampMillis);
+        symbolBooks.consolidate();
+        notifyListeners(signals);
+        return signals;
+    }
+
+    /**
+     * Replace one venue's book with a full-depth snapshot
+     */
+    public BookSignals onSnapshot(String symbol, String venue,
+                                  List<MarketDataSnapshot.OrderBookLevel> bids,
+                                  List<MarketDataSnapshot.OrderBookLevel> asks,
+                                  long timestampMillis) {
+        Levels bidLevels = Levels.of(bids);
+        Levels askLevels = Levels.of(asks);
+        SymbolBooks symbolBooks = symbolBooks(symbol);
+        BookSignals signals = symbolBooks.book(venue).applySnapshot(
+            bidLevels.prices, bidLevels.sizes, bidLevels.count,
+            askLevels.prices, askLevels.sizes, askLevels.count, timestampMillis);
+        symbolBooks.consolidate();
+        notifyListeners(signals);
+        return signals;
+    }
+
+    /**
+     * Rebuild the venue books carried by a market data snapshot. Depth levels
+     * are grouped by venue; venues that only report top of book become
+     * one-level books.
+     */
+    public void onMarketData(MarketDataSnapshot snapshot) {
+        if (snapshot == null || snapshot.getSymbol() == null) {
+            return;
+        }
+        String symbol = snapshot.getSymbol();
+        long timestamp = Optional.ofNullable(snapshot.getTimestamp()).map(Instant::toEpochMilli)
+            .orElseGet(System::currentTimeMillis);
+        SymbolBooks symbolBooks = symbolBooks(symbol);
+
+        Optional.ofNullable(snapshot.getVolumeData())
+            .map(MarketDataSnapshot.VolumeData::getAverageVolume)
+            .map(BigDecimal::doubleValue)
+            .ifPresent(symbolBooks::setAverageDailyVolume);
+
+        String defaultVenue = Optional.ofNullable(snapshot.getExchange()).orElse(CONSOLIDATED);
+        MarketDataSnapshot.OrderBookData orderBook = snapshot.getOrderBook();
+        Map<String, List<MarketDataSnapshot.OrderBookLevel>[]> byVenue = new LinkedHashMap<>();
+        if (orderBook != null) {
+            group(byVenue, orderBook.getBids(), 0, defaultVenue);
+            group(byVenue, orderBook.getAsks(), 1, defaultVenue);
+        }
+        byVenue.forEach((venue, sides) -> onSnapshot(symbol, venue, sides[0], sides[1], timestamp));
+
+        if (snapshot.getVenueData() != null) {
+            for (MarketDataSnapshot.VenueData venue : snapshot.getVenueData()) {
+                if (venue.getVenueName() == null || byVenue.containsKey(venue.getVenueName())) {
+                    continue;
+                }
+                List<MarketDataSnapshot.OrderBookLevel> bid = topOfBook(venue.getBidPrice(), venue.getBidVolume());
+                List<MarketDataSnapshot.OrderBookLevel> ask = topOfBook(venue.getAskPrice(), venue.getAskVolume());
+                long venueTimestamp = venue.getLastUpdate() != null ? venue.getLastUpdate().toEpochMilli() : timestamp;
+                onSnapshot(symbol, venue.getVenueName(), bid, ask, venueTimestamp);
+            }
+        }
+    }
+
+    // ========== Signals ==========
+
+    /**
+     * Latest signals for one venue, or empty signals when the book is unknown
+     */
+    public BookSignals signals(String symbol, String venue) {
+        SymbolBooks symbolBooks = books.get(symbol);
+        L2Book book = symbolBooks != null ? symbolBooks.venues.get(venue) : null;
+        return book != null ? book.signals() : BookSignals.empty(symbol, venue);
+    }
+
+    /**
+     * Latest signals consolidated across venues
+     */
+    public BookSignals signals(String symbol) {
+        SymbolBooks symbolBooks = books.get(symbol);
+        return symbolBooks != null ? symbolBooks.consolidated : BookSignals.empty(symbol, CONSOLIDATED);
+    }
+
+    public void addListener(Consumer<BookSignals> listener) {
+        listeners.add(listener);
+    }
+
+    public int getSymbolCount() {
+        return books.size();
+    }
+
+    // ========== Internal ==========
+
+    private SymbolBooks symbolBooks(String symbol) {
+        return books.computeIfAbsent(symbol, SymbolBooks::new);
+    }
+
+    private void notifyListeners(BookSignals signals) {
+        for (Consumer<BookSignals> listener : listeners) {
+            try {
+                listener.accept(signals);
+            } catch (Exception e) {
+                log.warn("Book listener failed for {} on {}", signals.symbol(), signals.venue(), e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void group(Map<String, List<MarketDataSnapshot.OrderBookLevel>[]> byVenue,
+                              List<MarketDataSnapshot.OrderBookLevel> levels, int side, String defaultVenue) {
+        if (levels == null) {
+            return;
+        }
+        for (MarketDataSnapshot.OrderBookLevel level : levels) {
+            String venue = level.getVenue() != null ? level.getVenue() : defaultVenue;
+            List<MarketDataSnapshot.OrderBookLevel>[] sides = byVenue.computeIfAbsent(venue,
+                v -> new List[] {new ArrayList<>(), new ArrayList<>()});
+            sides[side].add(level);
+        }
+    }
+
+    private static List<MarketDataSnapshot.OrderBookLevel> topOfBook(BigDecimal price, Long volume) {
+        if (price == null || volume == null || volume <= 0) {
+            return List.of();
+        }
+        return List.of(MarketDataSnapshot.OrderBookLevel.builder().price(price).volume(volume).build());
+    }
+
+    /**
+     * Venue books for one symbol plus their consolidated signals
+     */
+    private final class SymbolBooks {
+
+        private final String symbol;
+        private final Map<String, L2Book> venues = new ConcurrentHashMap<>();
+        private volatile double averageDailyVolume;
+        private volatile BookSignals consolidated;
+
+        SymbolBooks(String symbol) {
+            this.symbol = symbol;
+            this.consolidated = BookSignals.empty(symbol, CONSOLIDATED);
+        }
+
+        L2Book book(String venue) {
+            return venues.computeIfAbsent(venue, v -> {
+                L2Book book = new L2Book(symbol, v, tickSize, capacity, band);
+                book.setAverageDailyVolume(averageDailyVolume);
+                return book;
+            });
+        }
+
+        void setAverageDailyVolume(double volume) {
+            averageDailyVolume = volume;
+            venues.values().forEach(book -> book.setAverageDailyVolume(volume));
+        }
+
+        /**
+         * Fold venue signals: best prices across venues, sizes summed at the
+         * consolidated touch, depths summed, volatility from the deepest venue
+         */
+        synchronized void consolidate() {
+            double bestBid = 0.0;
+            double bestAsk = Double.MAX_VALUE;
+            for (L2Book book : venues.values()) {
+                BookSignals s = book.signals();
+                if (s.bestBidSize() > 0) {
+                    bestBid = Math.max(bestBid, s.bestBid());
+                }
+                if (s.bestAskSize() > 0) {
+                    bestAsk = Math.min(bestAsk, s.bestAsk());
+                }
+            }
+            long bidSize = 0, askSize = 0, bidDepth = 0, askDepth = 0, deepest = -1, sequence = 0, timestamp = 0;
+            double volatility = L2Book.DEFAULT_DAILY_VOLATILITY;
+            double halfTick = tickSize / 2.0;
+            for (L2Book book : venues.values()) {
+                BookSignals s = book.signals();
+                if (s.bestBidSize() > 0 && Math.abs(s.bestBid() - bestBid) < halfTick) {
+                    bidSize += s.bestBidSize();
+                }
+                if (s.bestAskSize() > 0 && Math.abs(s.bestAsk() - bestAsk) < halfTick) {
+                    askSize += s.bestAskSize();
+                }
+                bidDepth += s.bidDepth();
+                askDepth += s.askDepth();
+                if (s.bidDepth() + s.askDepth() > deepest) {
+                    deepest = s.bidDepth() + s.askDepth();
+                    volatility = s.dailyVolatility();
+                }
+                sequence += s.sequence();
+                timestamp = Math.max(timestamp, s.timestampMillis());
+            }
+            if (bestAsk == Double.MAX_VALUE) {
+                bestAsk = 0.0;
+            }
+            double adv = averageDailyVolume > 0 ? averageDailyVolume
+                : (bidDepth + askDepth) / 2.0 * L2Book.DEPTH_TURNOVER_PER_DAY;
+            double imbalance = bidDepth + askDepth > 0 ? (double) (bidDepth - askDepth) / (bidDepth + askDepth) : 0.0;
+            double microprice = bidSize > 0 && askSize > 0
+                ? (bestBid * askSize + bestAsk * bidSize) / (bidSize + askSize)
+                : bidSize > 0 ? bestBid : bestAsk;
+            double coefficient = adv > 0 ? L2Book.IMPACT_FACTOR * volatility / Math.sqrt(adv) : 0.0;
+
+            consolidated = new BookSignals(symbol, CONSOLIDATED, sequence, timestamp,
+                bestBid, bidSize, bestAsk, askSize, bidDepth, askDepth, imbalance, microprice,
+                volatility, adv, coefficient);
+        }
+    }
+
+    /**
+     * Price and size columns unpacked from DTO levels
+     */
+    private static final class Levels {
+
+        final double[] prices;
+        final long[] sizes;
+        int count;
+
+        private Levels(int capacity) {
+            prices = new double[capacity];
+            sizes = new long[capacity];
+        }
+
+        static Levels of(List<MarketDataSnapshot.OrderBookLevel> levels) {
+            Levels result = new Levels(levels == null ? 0 : levels.size());
+            if (levels != null) {
+                for (MarketDataSnapshot.OrderBookLevel level : levels) {
+                    if (level.getPrice() != null && level.getVolume() != null && level.getVolume() > 0) {
+                        result.prices[result.count] = level.getPrice().doubleValue();
+                        result.sizes[result.count++] = level.getVolume();
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.trademaster.trading.position;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Live Position
+ *
+ * Mutable per-(user, symbol) position state owned by {@link PositionBook}.
+ * All state is guarded by the instance monitor. Fills open lots at the tail
+ * and relieve them FIFO from the head, so each lot is touched at most twice
+ * and a fill is amortised O(1); open cost is kept as a running sum so the
+ * average cost never needs a scan.
+ *
+ * A fill that leaves the position flat retires it: the book drops it and a
+ * later fill in the symbol opens a fresh instance, starting from the retired
+ * one's realized P&L.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+final class LivePosition {
+
+    final Long userId;
+    final String symbol;
+    final PositionBook.UserAggregate aggregate;
+
+    private final ArrayDeque<Lot> lots = new ArrayDeque<>();
+    private long quantity;
+    private double openCost;
+    private double realizedPnL;
+    private double lastPrice;
+    private double unrealizedPnL;
+    private long firstFillMillis;
+    private long lastFillMillis;
+    private long updatedAtMillis;
+    private volatile boolean evicted;
+
+    LivePosition(Long userId, String symbol, PositionBook.UserAggregate aggregate, double lastPrice,
+                 double realizedPnL) {
+        this.userId = userId;
+        this.symbol = symbol;
+        this.aggregate = aggregate;
+        this.lastPrice = lastPrice;
+        this.realizedPnL = realizedPnL;
+    }
+
+    /**
+     * Load a stored holding as one lot at its average cost and push it into
+     * the user aggregate
+     */
+    synchronized void restore(long storedQuantity, double averageCost, double storedRealizedPnL,
+                              long timestampMillis) {
+        if (quantity != 0) {
+            throw new IllegalStateException("Position " + symbol + " for user " + userId + " is already open");
+        }
+        open(Math.abs(storedQuantity), averageCost, timestampMillis);
+        quantity = storedQuantity;
+        realizedPnL += storedRealizedPnL;
+        firstFillMillis = timestampMillis;
+        lastFillMillis = timestampMillis;
+        if (lastPrice == 0.0) {
+            lastPrice = averageCost;
+        }
+        revalue(timestampMillis);
+        aggregate.add(lastPrice * quantity, unrealizedPnL, storedRealizedPnL, 1);
+    }
+
+    /**
+     * Apply a signed fill, re-mark at the last known price and push the
+     * change into the user aggregate
+     *
+     * @return The change, or null when the position was already retired
+     */
+    synchronized PositionDelta applyFill(long fillQuantity, double price, long timestampMillis) {
+        if (evicted) {
+            return null;
+        }
+        boolean wasOpen = quantity != 0;
+        double previousUnrealized = unrealizedPnL;
+        double previousMarketValue = lastPrice * quantity;
+        double previousRealized = realizedPnL;
+
+        if (quantity == 0 || Long.signum(quantity) == Long.signum(fillQuantity)) {
+            open(Math.abs(fillQuantity), price, timestampMillis);
+            quantity += fillQuantity;
+        } else {
+            long sign = Long.signum(quantity);
+            long remaining = Math.abs(fillQuantity);
+            while (remaining > 0 && !lots.isEmpty()) {
+                Lot lot = lots.peekFirst();
+                long relieved = Math.min(lot.quantity, remaining);
+                realizedPnL += (price - lot.price) * relieved * sign;
+                openCost -= lot.price * relieved;
+                lot.quantity -= relieved;
+                if (lot.quantity == 0) {
+                    lots.pollFirst();
+                }
+                remaining -= relieved;
+                quantity -= sign * relieved;
+            }
+            if (lots.isEmpty()) {
+                openCost = 0.0; // Drop accumulated rounding once fully closed
+            }
+            if (remaining > 0) {
+                // Fill crossed through flat: the rest opens in the opposite direction
+                open(remaining, price, timestampMillis);
+                quantity = -sign * remaining;
+            }
+        }
+
+        if (firstFillMillis == 0 || !wasOpen) {
+            firstFillMillis = timestampMillis;
+        }
+        lastFillMillis = timestampMillis;
+        if (lastPrice == 0.0) {
+            lastPrice = price;
+        }
+        revalue(timestampMillis);
+
+        double realizedChange = realizedPnL - previousRealized;
+        double unrealizedChange = unrealizedPnL - previousUnrealized;
+        aggregate.add(lastPrice * quantity - previousMarketValue, unrealizedChange, realizedChange,
+                      (quantity != 0 ? 1 : 0) - (wasOpen ? 1 : 0));
+        evicted = quantity == 0;
+        return new PositionDelta(PositionDelta.Kind.FILL, view(), fillQuantity, realizedChange + unrealizedChange);
+    }
+
+    /**
+     * Re-mark at a new price and push the change into the user aggregate
+     *
+     * @return Change in unrealized P&L, or NaN when nothing changed
+     */
+    synchronized double mark(double price, long timestampMillis) {
+        if (price == lastPrice) {
+            return Double.NaN;
+        }
+        double previousUnrealized = unrealizedPnL;
+        double previousMarketValue = lastPrice * quantity;
+        lastPrice = price;
+        if (quantity == 0) {
+            return Double.NaN;
+        }
+        revalue(timestampMillis);
+        double unrealizedChange = unrealizedPnL - previousUnrealized;
+        aggregate.add(lastPrice * quantity - previousMarketValue, unrealizedChange, 0.0, 0);
+        return unrealizedChange;
+    }
+
+    /**
+     * Whether a fill closed this position and the book has retired it
+     */
+    boolean isEvicted() {
+        return evicted;
+    }
+
+    synchronized PositionView view() {
+        long absolute = Math.abs(quantity);
+        return new PositionView(userId, symbol, quantity,
+                                absolute > 0 ? openCost / absolute : 0.0, openCost,
+                                lastPrice, lastPrice * quantity, unrealizedPnL, realizedPnL,
+                                lots.size(), firstFillMillis, lastFillMillis, updatedAtMillis);
+    }
+
+    synchronized List<TaxLot> taxLots() {
+        List<TaxLot> result = new ArrayList<>(lots.size());
+        for (Lot lot : lots) {
+            result.add(new TaxLot(lot.quantity, lot.price, lot.openedAtMillis));
+        }
+        return result;
+    }
+
+    private void open(long lotQuantity, double price, long timestampMillis) {
+        lots.addLast(new Lot(lotQuantity, price, timestampMillis));
+        openCost += lotQuantity * price;
+    }
+
+    private void revalue(long timestampMillis) {
+        long absolute = Math.abs(quantity);
+        unrealizedPnL = quantity == 0 ? 0.0 : (lastPrice * absolute - openCost) * Long.signum(quantity);
+        updatedAtMillis = timestampMillis;
+    }
+
+    private static final class Lot {
+        long quantity;
+        final double price;
+        final long openedAtMillis;
+
+        Lot(long quantity, double price, long openedAtMillis) {
+            this.quantity = quantity;
+            this.price = price;
+            this.openedAtMillis = openedAtMillis;
+        }
+    }
+}
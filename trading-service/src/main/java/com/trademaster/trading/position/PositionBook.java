@@ -0,0 +1,364 @@
+package com.trademaster.trading.position;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.Consumer;
+
+/**
+ * Position Book
+ *
+ * Event-driven position and P&L engine:
+ * - Fills update quantity, FIFO tax lots and average cost in amortised O(1)
+ * - Market ticks mark only the positions in that symbol, found through a
+ *   symbol → positions reverse index (copy-on-write array, lock-free to read)
+ * - Per-user market value, unrealized and realized P&L are maintained as
+ *   running sums from each position's change; nothing is recomputed on read
+ * - Subscribers receive {@link PositionDelta}s as they happen; when a user
+ *   has no subscriber, ticks allocate nothing beyond the mark itself
+ * - A fill that closes a position evicts it from both indexes, so the book
+ *   holds open positions only; its final flat view is kept per user so the
+ *   symbol's realized P&L is still readable and carries into the next position
+ * - Fills carry an execution id; a redelivered fill within the last
+ *   {@value #EXECUTION_WINDOW} executions is ignored
+ * - On startup the book is seeded from the stored holdings through
+ *   {@link #restore}, before any fill is applied
+ *
+ * Performance Targets:
+ * - Fill: <5 microseconds
+ * - Tick to updated user P&L: <10 microseconds for ~100 positions per symbol
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+@Component
+@Slf4j
+public class PositionBook {
+
+    static final int EXECUTION_WINDOW = 100_000;
+
+    private final Map<Long, Map<String, LivePosition>> byUser = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, PositionView>> closed = new ConcurrentHashMap<>();
+    private final Map<String, SymbolPositions> bySymbol = new ConcurrentHashMap<>();
+    private final Map<Long, UserAggregate> aggregates = new ConcurrentHashMap<>();
+    private final Map<Long, Sinks.Many<PositionDelta>> subscribers = new ConcurrentHashMap<>();
+    private final List<Consumer<PositionDelta>> fillListeners = new CopyOnWriteArrayList<>();
+    private final Set<String> appliedExecutions = ConcurrentHashMap.newKeySet();
+    private final Queue<String> executionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger executionCount = new AtomicInteger();
+
+    // ========== Events ==========
+
+    /**
+     * Apply an execution to the user's position
+     *
+     * @param executionId Unique id of the execution; a fill already applied under it is ignored
+     * @param quantity Signed quantity (positive buy, negative sell)
+     * @return The change, or empty when the execution was already applied
+     */
+    public Optional<PositionDelta> applyFill(Long userId, String symbol, String executionId,
+                                             long quantity, double price, long timestampMillis) {
+        if (quantity == 0 || price <= 0.0) {
+            throw new IllegalArgumentException("Fill must have non-zero quantity and positive price");
+        }
+        if (executionId == null || executionId.isBlank()) {
+            throw new IllegalArgumentException("Fill must carry an execution id");
+        }
+        if (!rememberExecution(executionId)) {
+            log.debug("Execution {} already applied to user {} symbol {}", executionId, userId, symbol);
+            return Optional.empty();
+        }
+        LivePosition position;
+        PositionDelta delta;
+        do {
+            // A position closed by a concurrent fill is retired; retry on its replacement
+            position = positionFor(userId, symbol);
+            delta = position.applyFill(quantity, price, timestampMillis);
+        } while (delta == null);
+        if (position.isEvicted()) {
+            evict(position);
+        }
+
+        for (Consumer<PositionDelta> listener : fillListeners) {
+            try {
+                listener.accept(delta);
+            } catch (RuntimeException e) {
+                log.warn("Fill listener failed for user {} symbol {}", userId, symbol, e);
+            }
+        }
+        emit(userId, delta);
+        return Optional.of(delta);
+    }
+
+    /**
+     * Seed a stored holding into the book at startup
+     *
+     * A flat holding only restores its realized P&L; an open one becomes a
+     * single lot at its average cost, marked at its last stored price.
+     *
+     * @param quantity Signed quantity (negative = short)
+     */
+    public void restore(Long userId, String symbol, long quantity, double averageCost,
+                        double realizedPnL, double lastPrice, long updatedAtMillis) {
+        UserAggregate aggregate = aggregates.computeIfAbsent(userId, id -> new UserAggregate());
+        if (quantity == 0) {
+            aggregate.add(0.0, 0.0, realizedPnL, 0);
+            closed.computeIfAbsent(userId, id -> new ConcurrentHashMap<>()).put(symbol,
+                new PositionView(userId, symbol, 0L, 0.0, 0.0, lastPrice, 0.0, 0.0, realizedPnL,
+                                 0, 0L, updatedAtMillis, updatedAtMillis));
+            return;
+        }
+        if (averageCost <= 0.0) {
+            throw new IllegalArgumentException("Open holding must have a positive average cost");
+        }
+        if (lastPrice > 0.0) {
+            bySymbol.computeIfAbsent(symbol, s -> new SymbolPositions()).lastPrice = lastPrice;
+        }
+        positionFor(userId, symbol).restore(quantity, averageCost, realizedPnL, updatedAtMillis);
+    }
+
+    /**
+     * Mark every position in the symbol at a new price
+     *
+     * @return Number of positions re-marked
+     */
+    public int onTick(String symbol, double price, long timestampMillis) {
+        if (price <= 0.0) {
+            return 0;
+        }
+        SymbolPositions entry = bySymbol.computeIfAbsent(symbol, s -> new SymbolPositions());
+        entry.lastPrice = price;
+
+        int marked = 0;
+        for (LivePosition position : entry.positions) {
+            double change = position.mark(price, timestampMillis);
+            if (Double.isNaN(change)) {
+                continue;
+            }
+            marked++;
+            Sinks.Many<PositionDelta> sink = subscribers.get(position.userId);
+            if (sink != null) {
+                emit(sink, new PositionDelta(PositionDelta.Kind.MARK, position.view(), 0L, change));
+            }
+        }
+        return marked;
+    }
+
+    // ========== Queries ==========
+
+    /**
+     * The live position, or the flat view of the last one closed in the symbol
+     */
+    public Optional<PositionView> getPosition(Long userId, String symbol) {
+        Map<String, LivePosition> positions = byUser.get(userId);
+        LivePosition position = positions != null ? positions.get(symbol) : null;
+        if (position != null) {
+            return Optional.of(position.view());
+        }
+        Map<String, PositionView> userClosed = closed.get(userId);
+        return Optional.ofNullable(userClosed != null ? userClosed.get(symbol) : null);
+    }
+
+    /**
+     * Open positions for the user
+     */
+    public List<PositionView> getOpenPositions(Long userId) {
+        Map<String, LivePosition> positions = byUser.get(userId);
+        if (positions == null) {
+            return List.of();
+        }
+        List<PositionView> open = new ArrayList<>(positions.size());
+        for (LivePosition position : positions.values()) {
+            PositionView view = position.view();
+            if (!view.isFlat()) {
+                open.add(view);
+            }
+        }
+        return open;
+    }
+
+    public List<TaxLot> getTaxLots(Long userId, String symbol) {
+        Map<String, LivePosition> positions = byUser.get(userId);
+        LivePosition position = positions != null ? positions.get(symbol) : null;
+        return position != null ? position.taxLots() : List.of();
+    }
+
+    public UserPnL getUserPnL(Long userId) {
+        UserAggregate aggregate = aggregates.get(userId);
+        return aggregate != null ? aggregate.view(userId) : UserPnL.empty(userId);
+    }
+
+    public double getLastPrice(String symbol) {
+        SymbolPositions entry = bySymbol.get(symbol);
+        return entry != null ? entry.lastPrice : 0.0;
+    }
+
+    public int getPositionCount() {
+        return byUser.values().stream().mapToInt(Map::size).sum();
+    }
+
+    // ========== Streaming ==========
+
+    /**
+     * Live deltas for one user, emitted as fills and ticks are applied
+     */
+    public Flux<PositionDelta> streamDeltas(Long userId) {
+        Sinks.Many<PositionDelta> sink = subscribers.computeIfAbsent(userId,
+            id -> Sinks.many().multicast().directBestEffort());
+        return sink.asFlux()
+            .doFinally(signal -> subscribers.computeIfPresent(userId,
+                (id, current) -> current.currentSubscriberCount() == 0 ? null : current));
+    }
+
+    /**
+     * Synchronous callback for every fill (e.g. risk invalidation)
+     */
+    public void addFillListener(Consumer<PositionDelta> listener) {
+        fillListeners.add(listener);
+    }
+
+    // ========== Internal ==========
+
+    private LivePosition positionFor(Long userId, String symbol) {
+        Map<String, LivePosition> positions = byUser.computeIfAbsent(userId, id -> new ConcurrentHashMap<>());
+        LivePosition position = positions.get(symbol);
+        if (position != null && !position.isEvicted()) {
+            return position;
+        }
+        return positions.compute(symbol, (s, current) -> {
+            if (current != null && !current.isEvicted()) {
+                return current;
+            }
+            SymbolPositions entry = bySymbol.computeIfAbsent(symbol, k -> new SymbolPositions());
+            UserAggregate aggregate = aggregates.computeIfAbsent(userId, id -> new UserAggregate());
+            // Realized P&L carries over from the retired position, whether or not it was evicted yet
+            PositionView previous = current != null ? current.view() : takeClosed(userId, symbol);
+            LivePosition created = new LivePosition(userId, symbol, aggregate, entry.lastPrice,
+                                                    previous != null ? previous.realizedPnL() : 0.0);
+            entry.add(created);
+            return created;
+        });
+    }
+
+    private PositionView takeClosed(Long userId, String symbol) {
+        Map<String, PositionView> userClosed = closed.get(userId);
+        return userClosed != null ? userClosed.remove(symbol) : null;
+    }
+
+    private void evict(LivePosition position) {
+        Map<String, LivePosition> positions = byUser.get(position.userId);
+        if (positions != null) {
+            // Unless a later fill already replaced it and carried its realized P&L over
+            positions.computeIfPresent(position.symbol, (symbol, current) -> {
+                if (current != position) {
+                    return current;
+                }
+                closed.computeIfAbsent(position.userId, id -> new ConcurrentHashMap<>())
+                    .put(symbol, position.view());
+                return null;
+            });
+        }
+        SymbolPositions entry = bySymbol.get(position.symbol);
+        if (entry != null) {
+            entry.remove(position);
+        }
+    }
+
+    /**
+     * @return False when the execution is already in the window
+     */
+    private boolean rememberExecution(String executionId) {
+        if (!appliedExecutions.add(executionId)) {
+            return false;
+        }
+        executionOrder.add(executionId);
+        if (executionCount.incrementAndGet() > EXECUTION_WINDOW) {
+            String oldest = executionOrder.poll();
+            if (oldest != null) {
+                appliedExecutions.remove(oldest);
+                executionCount.decrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    private void emit(Long userId, PositionDelta delta) {
+        Sinks.Many<PositionDelta> sink = subscribers.get(userId);
+        if (sink != null) {
+            emit(sink, delta);
+        }
+    }
+
+    // Fills and ticks arrive on different threads; sinks require serialised emission
+    private static void emit(Sinks.Many<PositionDelta> sink, PositionDelta delta) {
+        synchronized (sink) {
+            sink.tryEmitNext(delta);
+        }
+    }
+
+    /**
+     * Reverse index entry: positions holding the symbol plus its last price
+     */
+    private static final class SymbolPositions {
+        private volatile LivePosition[] positions = new LivePosition[0];
+        private volatile double lastPrice;
+
+        synchronized void add(LivePosition position) {
+            LivePosition[] grown = Arrays.copyOf(positions, positions.length + 1);
+            grown[positions.length] = position;
+            positions = grown;
+        }
+
+        synchronized void remove(LivePosition position) {
+            LivePosition[] current = positions;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == position) {
+                    LivePosition[] shrunk = new LivePosition[current.length - 1];
+                    System.arraycopy(current, 0, shrunk, 0, i);
+                    System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+                    positions = shrunk;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Running per-user totals fed by position changes
+     */
+    static final class UserAggregate {
+        private final DoubleAdder marketValue = new DoubleAdder();
+        private final DoubleAdder unrealizedPnL = new DoubleAdder();
+        private final DoubleAdder realizedPnL = new DoubleAdder();
+        private final AtomicInteger openPositions = new AtomicInteger();
+
+        void add(double marketValueChange, double unrealizedChange, double realizedChange, int openChange) {
+            marketValue.add(marketValueChange);
+            unrealizedPnL.add(unrealizedChange);
+            if (realizedChange != 0.0) {
+                realizedPnL.add(realizedChange);
+            }
+            if (openChange != 0) {
+                openPositions.addAndGet(openChange);
+            }
+        }
+
+        UserPnL view(Long userId) {
+            return new UserPnL(userId, marketValue.sum(), unrealizedPnL.sum(), realizedPnL.sum(), openPositions.get());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.trademaster.trading.position;
+
+import com.trademaster.trading.repository.PortfolioHoldingRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Position Book Loader
+ *
+ * Seeds the in-memory {@link PositionBook} from the stored holdings while the
+ * context starts, so positions and realized P&L survive a restart. Runs
+ * before the web server and Kafka listeners start, i.e. before any fill.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PositionBookLoader {
+
+    private final PositionBook positionBook;
+    private final PortfolioHoldingRepository holdingRepository;
+
+    @PostConstruct
+    void seed() {
+        int[] seeded = new int[1];
+        holdingRepository.forEachHolding(holding -> {
+            positionBook.restore(holding.userId(), holding.symbol(), holding.quantity(), holding.averagePrice(),
+                                 holding.realizedPnL(), holding.lastPrice(), holding.updatedAtMillis());
+            seeded[0]++;
+        });
+        log.info("Seeded position book with {} stored holdings ({} open)", seeded[0],
+                 positionBook.getPositionCount());
+    }
+}
@@ -0,0 +1,31 @@
+package com.trademaster.trading.position;
+
+/**
+ * Position Delta
+ *
+ * One change to a live position, carrying the post-change state and the
+ * change in total P&L it caused.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public record PositionDelta(
+    Kind kind,
+    PositionView position,
+    long quantityChange,
+    double pnlChange
+) {
+
+    public enum Kind {
+        FILL,
+        MARK
+    }
+
+    public Long userId() {
+        return position.userId();
+    }
+
+    public String symbol() {
+        return position.symbol();
+    }
+}
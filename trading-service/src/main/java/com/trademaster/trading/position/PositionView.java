@@ -0,0 +1,36 @@
+package com.trademaster.trading.position;
+
+/**
+ * Position View
+ *
+ * Immutable copy of one live position taken under the position's monitor.
+ * Quantities are signed (negative = short); P&L and values are in the
+ * instrument currency.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public record PositionView(
+    Long userId,
+    String symbol,
+    long quantity,
+    double averageCost,
+    double openCost,
+    double lastPrice,
+    double marketValue,
+    double unrealizedPnL,
+    double realizedPnL,
+    int openLots,
+    long firstFillMillis,
+    long lastFillMillis,
+    long updatedAtMillis
+) {
+
+    public double totalPnL() {
+        return unrealizedPnL + realizedPnL;
+    }
+
+    public boolean isFlat() {
+        return quantity == 0;
+    }
+}
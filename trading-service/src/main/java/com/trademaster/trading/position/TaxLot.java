@@ -0,0 +1,16 @@
+package com.trademaster.trading.position;
+
+/**
+ * Tax Lot
+ *
+ * Open lot of a live position, relieved first-in first-out.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public record TaxLot(long quantity, double price, long openedAtMillis) {
+
+    public double costBasis() {
+        return quantity * price;
+    }
+}
@@ -0,0 +1,26 @@
+package com.trademaster.trading.position;
+
+/**
+ * User P&L
+ *
+ * Per-user aggregate maintained incrementally from position deltas.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public record UserPnL(
+    Long userId,
+    double marketValue,
+    double unrealizedPnL,
+    double realizedPnL,
+    int openPositions
+) {
+
+    public static UserPnL empty(Long userId) {
+        return new UserPnL(userId, 0.0, 0.0, 0.0, 0);
+    }
+
+    public double totalPnL() {
+        return unrealizedPnL + realizedPnL;
+    }
+}
@@ -1,16 +1,25 @@
 package com.trademaster.trading.repository;
 
+import com.trademaster.trading.dto.DailyOrderStats;
+import com.trademaster.trading.dto.OrderHistoryPage;
+import com.trademaster.trading.dto.OrderStatusCount;
+import com.trademaster.trading.dto.OrderSummary;
 import com.trademaster.trading.entity.Order;
 import com.trademaster.trading.model.OrderStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -27,6 +36,10 @@ import java.util.concurrent.CompletableFuture;
  * - Optimized queries with proper indexing
  * - Batch operations for high-frequency trading
  * - Connection pooling for concurrent access
+ * - Keyset (seek) history pages on (user_id, created_at, id) served from a
+ *   covering index as {@link OrderSummary} projections
+ * - Status and daily counts read from the trigger-maintained
+ *   {@code order_daily_stats} table instead of scanning orders
  * 
  * @author TradeMaster Development Team
  * @version 2.0.0 (Java 24 + Virtual Threads)
@@ -34,6 +47,20 @@ import java.util.concurrent.CompletableFuture;
 @Repository
 public interface OrderJpaRepository extends JpaRepository<Order, Long> {
     
+    /**
+     * Zone that buckets orders into trading days in {@code order_daily_stats}
+     */
+    ZoneId TRADING_DAY_ZONE = ZoneId.of("Asia/Kolkata");
+    
+    /**
+     * Rows fetched per round trip when a whole range is streamed by keyset
+     */
+    int KEYSET_BATCH_SIZE = 2_000;
+    
+    String ORDER_SUMMARY_SELECT = "SELECT new com.trademaster.trading.dto.OrderSummary(" +
+        "o.id, o.orderId, o.symbol, o.side, o.orderType, o.quantity, o.filledQuantity, o.limitPrice, " +
+        "o.stopPrice, o.avgFillPrice, o.timeInForce, o.status, o.createdAt, o.updatedAt) FROM Order o ";
+    
     /**
      * Find order by external order ID
      */
@@ -72,9 +99,10 @@ public interface OrderJpaRepository extends JpaRepository<Order, Long> {
     long countOpenOrdersByUserId(@Param("userId") Long userId);
     
     /**
-     * Count daily orders for a user
+     * Count daily orders for a user from the pre-aggregated daily stats
      */
-    @Query("SELECT COUNT(o) FROM Order o WHERE o.userId = :userId AND DATE(o.createdAt) = :date")
+    @Query(value = "SELECT COALESCE(SUM(order_count), 0) FROM order_daily_stats " +
+                   "WHERE user_id = :userId AND trade_date = :date", nativeQuery = true)
     long countDailyOrdersByUserId(@Param("userId") Long userId, @Param("date") LocalDate date);
     
     /**
@@ -139,11 +167,114 @@ public interface OrderJpaRepository extends JpaRepository<Order, Long> {
            "FROM Order o WHERE o.userId = :userId ORDER BY o.createdAt DESC")
     List<Order> findRecentOrdersSummary(@Param("userId") Long userId, Pageable pageable);
     
+    // ========== Keyset History ==========
+    
+    /**
+     * Seek one page of a user's orders strictly older than (createdAt, id),
+     * newest first, not older than {@code from}. The first conjunct bounds the
+     * index range; the second only breaks ties on created_at.
+     */
+    @Query(ORDER_SUMMARY_SELECT +
+           "WHERE o.userId = :userId AND o.createdAt >= :from AND o.createdAt <= :createdAt " +
+           "AND (o.createdAt < :createdAt OR o.id < :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findOrderSummariesBefore(@Param("userId") Long userId,
+                                                @Param("from") Instant from,
+                                                @Param("createdAt") Instant createdAt,
+                                                @Param("id") Long id,
+                                                Limit limit);
+    
+    /**
+     * Seek one page of a user's orders in one symbol strictly older than (createdAt, id)
+     */
+    @Query(ORDER_SUMMARY_SELECT +
+           "WHERE o.userId = :userId AND o.symbol = :symbol AND o.createdAt <= :createdAt " +
+           "AND (o.createdAt < :createdAt OR o.id < :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findOrderSummariesBySymbolBefore(@Param("userId") Long userId,
+                                                        @Param("symbol") String symbol,
+                                                        @Param("createdAt") Instant createdAt,
+                                                        @Param("id") Long id,
+                                                        Limit limit);
+    
+    /**
+     * Offset page of order summaries, kept for page-number clients; the scan
+     * still runs over the covering index rather than the table
+     */
+    @Query(ORDER_SUMMARY_SELECT + "WHERE o.userId = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findOrderSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query(ORDER_SUMMARY_SELECT + "WHERE o.userId = :userId AND o.symbol = :symbol ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findOrderSummariesByUserIdAndSymbol(@Param("userId") Long userId,
+                                                           @Param("symbol") String symbol,
+                                                           Pageable pageable);
+    
+    /**
+     * One keyset page of history, optionally filtered by symbol
+     */
+    default List<OrderSummary> findOrderHistoryPage(Long userId, String symbol, OrderHistoryPage.Cursor cursor,
+                                                    int limit) {
+        return symbol == null
+            ? findOrderSummariesBefore(userId, Instant.EPOCH, cursor.createdAt(), cursor.id(), Limit.of(limit))
+            : findOrderSummariesBySymbolBefore(userId, symbol, cursor.createdAt(), cursor.id(), Limit.of(limit));
+    }
+    
+    /**
+     * All summaries with createdAt in [from, to), newest first, fetched in
+     * keyset batches so no single statement materialises years of history
+     */
+    default List<OrderSummary> findOrdersByUserAndTimeRange(Long userId, Instant from, Instant to) {
+        List<OrderSummary> orders = new ArrayList<>();
+        Instant createdAt = to;
+        long id = Long.MIN_VALUE; // Excludes rows at exactly 'to'
+        while (true) {
+            List<OrderSummary> batch = findOrderSummariesBefore(userId, from, createdAt, id, Limit.of(KEYSET_BATCH_SIZE));
+            orders.addAll(batch);
+            if (batch.size() < KEYSET_BATCH_SIZE) {
+                return orders;
+            }
+            OrderSummary last = batch.get(batch.size() - 1);
+            createdAt = last.createdAt();
+            id = last.id();
+        }
+    }
+    
+    // ========== Aggregates ==========
+    
+    /**
+     * Order counts by status for a user in one grouped read of the daily stats
+     */
+    @Query(value = "SELECT status AS status, SUM(order_count) AS orderCount FROM order_daily_stats " +
+                   "WHERE user_id = :userId GROUP BY status HAVING SUM(order_count) > 0", nativeQuery = true)
+    List<OrderStatusCount> countOrdersByStatus(@Param("userId") Long userId);
+    
+    /**
+     * Daily order stats for a user over [fromDate, toDate], newest day first
+     */
+    @Query(value = "SELECT trade_date AS tradeDate, status AS status, order_count AS orderCount, " +
+                   "total_quantity AS totalQuantity, filled_quantity AS filledQuantity " +
+                   "FROM order_daily_stats WHERE user_id = :userId AND trade_date BETWEEN :fromDate AND :toDate " +
+                   "AND order_count > 0 ORDER BY trade_date DESC, status", nativeQuery = true)
+    List<DailyOrderStats> findDailyOrderStats(@Param("userId") Long userId,
+                                              @Param("fromDate") LocalDate fromDate,
+                                              @Param("toDate") LocalDate toDate);
+    
     /**
      * Real-time order monitoring: Find orders modified since timestamp
      */
     List<Order> findByUpdatedAtAfterOrderByUpdatedAt(Instant since);
     
+    /**
+     * Bulk cancel: mark all still-cancellable orders in one UPDATE statement.
+     * Orders that reached a terminal state concurrently are left untouched, and the
+     * version is bumped so a stale copy of a cancelled order can no longer be saved.
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Order o SET o.status = 'CANCELLED', o.updatedAt = :updatedAt, o.version = o.version + 1 " +
+           "WHERE o.id IN :ids AND o.status NOT IN ('FILLED', 'CANCELLED', 'REJECTED', 'EXPIRED')")
+    int markCancelled(@Param("ids") List<Long> ids, @Param("updatedAt") Instant updatedAt);
+    
     // Async methods using Virtual Threads (Java 24 feature)
     
     /**
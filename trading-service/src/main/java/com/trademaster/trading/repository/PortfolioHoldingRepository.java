@@ -0,0 +1,66 @@
+package com.trademaster.trading.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.function.Consumer;
+
+/**
+ * Portfolio Holding Repository
+ *
+ * Reads the stored holdings in the portfolios table, one row per user and
+ * symbol with the per-exchange rows combined: quantities and realized P&L
+ * are summed and the average price is weighted by quantity.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+@Repository
+@RequiredArgsConstructor
+public class PortfolioHoldingRepository {
+
+    private static final String HOLDINGS_SQL = """
+        SELECT user_id, symbol, SUM(quantity) AS quantity, SUM(quantity * avg_price) AS open_cost,
+               SUM(COALESCE(realized_pnl, 0)) AS realized_pnl, MAX(last_price) AS last_price,
+               MAX(last_updated) AS last_updated
+        FROM portfolios
+        GROUP BY user_id, symbol
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Stream every stored holding to the consumer without materialising the table
+     */
+    public void forEachHolding(Consumer<Holding> consumer) {
+        jdbcTemplate.query(HOLDINGS_SQL, rs -> {
+            long quantity = rs.getLong("quantity");
+            double openCost = rs.getDouble("open_cost");
+            Timestamp lastUpdated = rs.getTimestamp("last_updated");
+            consumer.accept(new Holding(
+                rs.getLong("user_id"),
+                rs.getString("symbol"),
+                quantity,
+                quantity != 0 ? openCost / quantity : 0.0,
+                rs.getDouble("realized_pnl"),
+                rs.getDouble("last_price"),
+                lastUpdated != null ? lastUpdated.getTime() : 0L));
+        });
+    }
+
+    /**
+     * One stored holding; quantity is signed (negative = short)
+     */
+    public record Holding(
+        Long userId,
+        String symbol,
+        long quantity,
+        double averagePrice,
+        double realizedPnL,
+        double lastPrice,
+        long updatedAtMillis
+    ) {
+    }
+}
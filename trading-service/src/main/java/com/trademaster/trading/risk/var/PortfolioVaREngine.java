@@ -0,0 +1,450 @@
+package com.trademaster.trading.risk.var;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Portfolio VaR Engine
+ *
+ * Primitive-array risk engine for portfolio Value at Risk and Expected
+ * Shortfall:
+ * - Portfolios held as sorted symbol arrays with signed exposures
+ * - Daily return history per symbol as double[] series
+ * - Cholesky factor of the (shrunk) covariance cached per symbol universe
+ * - Correlated Monte Carlo run in parallel chunks, each with its own
+ *   {@link SplittableRandom} split from the engine root
+ * - VaR and ES at every requested confidence level from one sorted loss vector
+ *
+ * Positions are linear (delta-one), so each path's P&L is the dot product of
+ * the projected exposure Lᵀ·e with the path's standard normals: O(n) per path
+ * rather than O(n²) for the full correlated return vector.
+ *
+ * Return history is fed once per trading day by {@link DailyReturnRecorder}
+ * from the market data price stream.
+ *
+ * Invalidation is incremental: a position change drops only that user's
+ * cached results and keeps the universe factor when the symbol set is
+ * unchanged; a return-history update only invalidates factors whose universe
+ * contains the symbol. Factors are kept for the most recently used
+ * universes only.
+ *
+ * Performance Targets:
+ * - 1,000 positions x 100,000 paths: ~1 core-second of path generation,
+ *   split across all cores; factor build adds ~0.7s on first use per universe
+ * - Cached result lookup: <1 microsecond
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+@Component
+@Slf4j
+public class PortfolioVaREngine {
+
+    public static final String MONTE_CARLO = "MONTE_CARLO";
+    public static final String HISTORICAL = "HISTORICAL";
+    public static final String PARAMETRIC = "PARAMETRIC";
+
+    private static final int MIN_PATHS_PER_CHUNK = 4_096;
+    private static final int MAX_CACHED_FACTORS = 256;
+
+    private final Map<Long, Portfolio> portfolios = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, VaRResult>> results = new ConcurrentHashMap<>();
+    private final Map<List<String>, CholeskyFactor> factors = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<String>, CholeskyFactor> eldest) {
+                return size() > MAX_CACHED_FACTORS; // Least recently used universe goes first
+            }
+        });
+    private final Map<String, ReturnHistory> histories = new ConcurrentHashMap<>();
+    private final SplittableRandom rootRandom;
+
+    public PortfolioVaREngine() {
+        this(System.nanoTime());
+    }
+
+    public PortfolioVaREngine(long seed) {
+        this.rootRandom = new SplittableRandom(seed);
+    }
+
+    // ========== Portfolio and Market Updates ==========
+
+    /**
+     * Replace a user's portfolio, invalidating cached results only if an
+     * exposure actually changed
+     *
+     * @param exposures Symbol to signed market value (short positions negative)
+     */
+    public void syncPortfolio(Long userId, Map<String, Double> exposures) {
+        TreeMap<String, Double> sorted = new TreeMap<>();
+        exposures.forEach((symbol, exposure) -> {
+            if (exposure != null && exposure != 0.0) {
+                sorted.merge(symbol, exposure, Double::sum);
+            }
+        });
+        String[] symbols = sorted.keySet().toArray(String[]::new);
+        double[] values = sorted.values().stream().mapToDouble(Double::doubleValue).toArray();
+
+        Portfolio current = portfolios.get(userId);
+        if (current != null && Arrays.equals(current.symbols(), symbols) && Arrays.equals(current.exposures(), values)) {
+            return;
+        }
+        long version = current != null ? current.version() + 1 : 1L;
+        portfolios.put(userId, new Portfolio(symbols, values, version));
+        results.remove(userId);
+    }
+
+    /**
+     * Apply a single position change (fill, close, re-mark)
+     *
+     * @param exposure New signed market value for the symbol; 0 removes it
+     */
+    public void onPositionChange(Long userId, String symbol, double exposure) {
+        Portfolio before = portfolios.get(userId);
+        Portfolio after = portfolios.compute(userId, (id, current) -> {
+            Portfolio base = current != null ? current : new Portfolio(new String[0], new double[0], 0L);
+            return base.with(symbol, exposure);
+        });
+        // Results are version-checked on read; this only frees the stale entries
+        if (after != before) {
+            results.remove(userId);
+        }
+    }
+
+    /**
+     * Drop a user's portfolio and results
+     */
+    public void clearPortfolio(Long userId) {
+        portfolios.remove(userId);
+        results.remove(userId);
+    }
+
+    /**
+     * Replace the daily return history for a symbol
+     *
+     * Factors built over universes containing the symbol become stale and are
+     * rebuilt lazily; cached results referencing them are dropped.
+     */
+    public void updateReturnHistory(String symbol, double[] dailyReturns) {
+        histories.compute(symbol, (s, current) ->
+            new ReturnHistory(dailyReturns.clone(), current != null ? current.version() + 1 : 1L));
+        factors.keySet().removeIf(universe -> Collections.binarySearch(universe, symbol) >= 0);
+        portfolios.forEach((userId, portfolio) -> {
+            if (Arrays.binarySearch(portfolio.symbols(), symbol) >= 0) {
+                results.remove(userId);
+            }
+        });
+    }
+
+    // ========== VaR / ES ==========
+
+    /**
+     * Correlated Monte Carlo VaR and ES
+     *
+     * @param horizonDays Holding period; daily volatility scales by √horizon
+     * @param paths Number of simulated paths
+     * @param confidenceLevels Levels in (0, 1), e.g. 0.95, 0.99
+     */
+    public VaRResult monteCarlo(Long userId, int horizonDays, int paths, double... confidenceLevels) {
+        return cached(userId, MONTE_CARLO, horizonDays, paths, confidenceLevels, (portfolio, levels) -> {
+            CholeskyFactor factor = factorFor(portfolio);
+            double[] projected = factor.project(portfolio.exposures());
+            double scale = Math.sqrt(horizonDays);
+            return tailStatistics(simulateLosses(projected, scale, paths), levels);
+        });
+    }
+
+    /**
+     * Historical-simulation VaR and ES over the aligned return window
+     *
+     * Symbols without history contribute no P&L to any scenario.
+     */
+    public VaRResult historical(Long userId, int horizonDays, double... confidenceLevels) {
+        return cached(userId, HISTORICAL, horizonDays, 0, confidenceLevels, (portfolio, levels) -> {
+            CholeskyFactor factor = factorFor(portfolio);
+            int observations = factor.observations;
+            if (observations == 0) {
+                return new double[][] {new double[levels.length], new double[levels.length]};
+            }
+            double scale = Math.sqrt(horizonDays);
+            double[] exposures = portfolio.exposures();
+            double[] losses = new double[observations];
+            for (int i = 0; i < factor.size; i++) {
+                double[] series = factor.returns[i];
+                if (series == null) {
+                    continue;
+                }
+                double e = exposures[i] * scale;
+                for (int t = 0; t < observations; t++) {
+                    losses[t] -= e * series[t];
+                }
+            }
+            return tailStatistics(losses, levels);
+        });
+    }
+
+    /**
+     * Variance-covariance VaR and ES (normal P&L)
+     */
+    public VaRResult parametric(Long userId, int horizonDays, double... confidenceLevels) {
+        return cached(userId, PARAMETRIC, horizonDays, 0, confidenceLevels, (portfolio, levels) -> {
+            double[] projected = factorFor(portfolio).project(portfolio.exposures());
+            double variance = 0.0;
+            for (double b : projected) {
+                variance += b * b;
+            }
+            double sigma = Math.sqrt(variance * horizonDays);
+            double[] var = new double[levels.length];
+            double[] es = new double[levels.length];
+            for (int k = 0; k < levels.length; k++) {
+                double z = inverseNormal(levels[k]);
+                var[k] = z * sigma;
+                es[k] = sigma * Math.exp(-0.5 * z * z) / Math.sqrt(2.0 * Math.PI) / (1.0 - levels[k]);
+            }
+            return new double[][] {var, es};
+        });
+    }
+
+    /**
+     * Whether every symbol in the user's portfolio has return history
+     *
+     * Historical simulation of a portfolio with a symbol lacking history
+     * understates the loss; parametric and Monte Carlo fall back to the
+     * default volatility with no correlation for such symbols.
+     */
+    public boolean hasReturnHistory(Long userId) {
+        Portfolio portfolio = portfolios.get(userId);
+        if (portfolio == null || portfolio.symbols().length == 0) {
+            return false;
+        }
+        for (String symbol : portfolio.symbols()) {
+            ReturnHistory history = histories.get(symbol);
+            if (history == null || history.returns().length < 2) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of cached universe factors (monitoring)
+     */
+    public int getCachedFactorCount() {
+        return factors.size();
+    }
+
+    // ========== Internal ==========
+
+    @FunctionalInterface
+    private interface Calculation {
+        double[][] compute(Portfolio portfolio, double[] levels);
+    }
+
+    private VaRResult cached(Long userId, String method, int horizonDays, int paths,
+                             double[] confidenceLevels, Calculation calculation) {
+        double[] levels = validateLevels(confidenceLevels);
+        String key = method + ':' + horizonDays + ':' + paths + ':' + Arrays.toString(levels);
+
+        Portfolio portfolio = portfolios.get(userId);
+        if (portfolio == null || portfolio.symbols().length == 0) {
+            return new VaRResult(method, horizonDays, paths, levels, new double[levels.length],
+                                 new double[levels.length], portfolio != null ? portfolio.version() : 0L, 0L);
+        }
+
+        Map<String, VaRResult> userResults = results.get(userId);
+        VaRResult hit = userResults != null ? userResults.get(key) : null;
+        if (hit != null && hit.portfolioVersion() == portfolio.version()) {
+            return hit;
+        }
+
+        long[] historyVersions = historyVersions(portfolio.symbols());
+        long start = System.nanoTime();
+        double[][] tail = calculation.compute(portfolio, levels);
+        long elapsed = System.nanoTime() - start;
+        int scenarios = MONTE_CARLO.equals(method) ? paths : HISTORICAL.equals(method) ? factorFor(portfolio).observations : 0;
+        VaRResult result = new VaRResult(method, horizonDays, scenarios, levels, tail[0], tail[1],
+                                         portfolio.version(), elapsed);
+
+        // Only publish if neither the portfolio nor its return history moved while we were computing
+        if (portfolios.get(userId) == portfolio
+                && Arrays.equals(historyVersions, historyVersions(portfolio.symbols()))) {
+            results.computeIfAbsent(userId, id -> new ConcurrentHashMap<>()).put(key, result);
+        }
+        log.debug("{} VaR for user {} ({} positions) computed in {}us",
+                  method, userId, portfolio.symbols().length, elapsed / 1_000);
+        return result;
+    }
+
+    private long[] historyVersions(String[] symbols) {
+        long[] versions = new long[symbols.length];
+        for (int i = 0; i < versions.length; i++) {
+            ReturnHistory history = histories.get(symbols[i]);
+            versions[i] = history != null ? history.version() : 0L;
+        }
+        return versions;
+    }
+
+    private CholeskyFactor factorFor(Portfolio portfolio) {
+        List<String> universe = List.of(portfolio.symbols());
+        long[] versions = historyVersions(portfolio.symbols());
+
+        CholeskyFactor factor = factors.get(universe);
+        if (factor != null && Arrays.equals(factor.historyVersions, versions)) {
+            return factor;
+        }
+
+        double[][] series = new double[versions.length][];
+        for (int i = 0; i < series.length; i++) {
+            ReturnHistory history = histories.get(universe.get(i));
+            series[i] = history != null ? history.returns() : null;
+        }
+        long start = System.nanoTime();
+        factor = CholeskyFactor.build(universe, versions, series);
+        log.debug("Built Cholesky factor for {} symbols in {}ms", universe.size(), (System.nanoTime() - start) / 1_000_000);
+
+        factors.put(universe, factor);
+        return factor;
+    }
+
+    private double[] simulateLosses(double[] projected, double scale, int paths) {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int chunks = Math.max(1, Math.min(parallelism * 4, paths / MIN_PATHS_PER_CHUNK));
+        int chunkSize = (paths + chunks - 1) / chunks;
+
+        SplittableRandom[] randoms = new SplittableRandom[chunks];
+        synchronized (rootRandom) {
+            for (int c = 0; c < chunks; c++) {
+                randoms[c] = rootRandom.split();
+            }
+        }
+
+        double[] losses = new double[paths];
+        int n = projected.length;
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            SplittableRandom random = randoms[c];
+            int from = c * chunkSize;
+            int to = Math.min(paths, from + chunkSize);
+            for (int p = from; p < to; p++) {
+                double pnl = 0.0;
+                for (int j = 0; j < n; j++) {
+                    pnl += projected[j] * random.nextGaussian();
+                }
+                losses[p] = -pnl * scale;
+            }
+        });
+        return losses;
+    }
+
+    // Sort once, then VaR by rank and ES from one suffix sum walk over all levels
+    private static double[][] tailStatistics(double[] losses, double[] levels) {
+        Arrays.sort(losses);
+        int count = losses.length;
+        double[] var = new double[levels.length];
+        double[] es = new double[levels.length];
+
+        double suffixSum = 0.0;
+        int cursor = count;
+        for (int k = levels.length - 1; k >= 0; k--) {
+            int index = Math.min(count - 1, Math.max(0, (int) Math.ceil(levels[k] * count) - 1));
+            while (cursor > index) {
+                suffixSum += losses[--cursor];
+            }
+            var[k] = losses[index];
+            es[k] = suffixSum / (count - index);
+        }
+        return new double[][] {var, es};
+    }
+
+    private static double[] validateLevels(double[] confidenceLevels) {
+        if (confidenceLevels == null || confidenceLevels.length == 0) {
+            throw new IllegalArgumentException("At least one confidence level is required");
+        }
+        double[] levels = confidenceLevels.clone();
+        Arrays.sort(levels);
+        for (double level : levels) {
+            if (!(level > 0.0 && level < 1.0)) {
+                throw new IllegalArgumentException("Confidence level must be in (0, 1): " + level);
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * Inverse standard normal CDF (Acklam's rational approximation, |ε| < 1.2e-9)
+     */
+    static double inverseNormal(double p) {
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                            1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                            6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                            -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                            3.754408661907416e+00};
+        final double low = 0.02425;
+
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                 / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                  / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+             / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+
+    private record ReturnHistory(double[] returns, long version) {}
+
+    /**
+     * Immutable portfolio: sorted symbols with aligned signed exposures
+     */
+    private record Portfolio(String[] symbols, double[] exposures, long version) {
+
+        Portfolio with(String symbol, double exposure) {
+            int index = Arrays.binarySearch(symbols, symbol);
+            if (index >= 0) {
+                if (exposure != 0.0) {
+                    double[] values = exposures.clone();
+                    values[index] = exposure;
+                    return new Portfolio(symbols, values, version + 1);
+                }
+                List<String> names = new ArrayList<>(Arrays.asList(symbols));
+                names.remove(index);
+                double[] values = new double[exposures.length - 1];
+                System.arraycopy(exposures, 0, values, 0, index);
+                System.arraycopy(exposures, index + 1, values, index, values.length - index);
+                return new Portfolio(names.toArray(String[]::new), values, version + 1);
+            }
+            if (exposure == 0.0) {
+                return this;
+            }
+            int insert = -index - 1;
+            String[] names = new String[symbols.length + 1];
+            double[] values = new double[exposures.length + 1];
+            System.arraycopy(symbols, 0, names, 0, insert);
+            System.arraycopy(exposures, 0, values, 0, insert);
+            names[insert] = symbol;
+            values[insert] = exposure;
+            System.arraycopy(symbols, insert, names, insert + 1, symbols.length - insert);
+            System.arraycopy(exposures, insert, values, insert + 1, exposures.length - insert);
+            return new Portfolio(names, values, version + 1);
+        }
+    }
+}
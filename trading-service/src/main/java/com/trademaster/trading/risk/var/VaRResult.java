@@ -0,0 +1,48 @@
+package com.trademaster.trading.risk.var;
+
+import java.util.Arrays;
+
+/**
+ * VaR Result
+ *
+ * Value at Risk and Expected Shortfall for one portfolio, method and horizon
+ * at several confidence levels, all taken from the same simulated or
+ * historical loss distribution. Losses are reported as positive amounts in
+ * portfolio currency; a negative value means the tail is still a gain.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public record VaRResult(
+    String method,
+    int horizonDays,
+    int scenarios,
+    double[] confidenceLevels,
+    double[] valueAtRisk,
+    double[] expectedShortfall,
+    long portfolioVersion,
+    long computeNanos
+) {
+
+    /**
+     * VaR at one of the computed confidence levels
+     */
+    public double varAt(double confidenceLevel) {
+        return valueAtRisk[levelIndex(confidenceLevel)];
+    }
+
+    /**
+     * Expected Shortfall at one of the computed confidence levels
+     */
+    public double expectedShortfallAt(double confidenceLevel) {
+        return expectedShortfall[levelIndex(confidenceLevel)];
+    }
+
+    private int levelIndex(double confidenceLevel) {
+        int index = Arrays.binarySearch(confidenceLevels, confidenceLevel);
+        if (index < 0) {
+            throw new IllegalArgumentException("Confidence level not computed: " + confidenceLevel);
+        }
+        return index;
+    }
+}
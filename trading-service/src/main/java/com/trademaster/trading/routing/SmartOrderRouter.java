@@ -0,0 +1,311 @@
+package com.trademaster.trading.routing;
+
+import com.trademaster.trading.dto.MarketDataSnapshot;
+import com.trademaster.trading.routing.impl.ScoredAllocationPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Smart Order Router
+ *
+ * Rolling per-venue and per-broker execution model feeding venue scoring and
+ * order splitting:
+ * - Fill rate and slippage against arrival price (EWMA)
+ * - Latency percentiles over a fixed window of recent executions
+ * - Top-of-book price and depth per symbol from market data
+ *
+ * Writers update the mutable model under the model monitor and publish a
+ * new immutable {@link VenueStatsSnapshot} / {@link TopOfBook}; readers
+ * score and split from whatever snapshot is current, with no locks on the
+ * routing path.
+ *
+ * Performance Targets:
+ * - Venue score / split: <10 microseconds for up to 32 venues
+ * - Snapshot publish: <20 microseconds
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+@Component
+@Slf4j
+public class SmartOrderRouter {
+
+    public static final int MAX_VENUES = 32;
+
+    private static final double EWMA_ALPHA = 0.05;
+    private static final int LATENCY_WINDOW = 256;
+
+    private final RouteModel venues = new RouteModel();
+    private final RouteModel brokers = new RouteModel();
+
+    private final Map<String, AtomicReference<TopOfBook>> books = new ConcurrentHashMap<>();
+
+    private final ScoredAllocationPolicy allocationPolicy = new ScoredAllocationPolicy();
+
+    // ========== Model Updates ==========
+
+    /**
+     * Record an execution outcome against the venue and broker models
+     *
+     * @param venue Venue the order executed on
+     * @param brokerName Broker that carried the order (nullable)
+     * @param buy true for buy orders
+     * @param arrivalPrice Mid/reference price when the order arrived
+     * @param fillPrice Average fill price (ignored when nothing filled)
+     * @param requestedQuantity Quantity sent to the venue
+     * @param filledQuantity Quantity executed
+     * @param latencyMicros Order-to-ack latency in microseconds
+     */
+    public void recordExecution(String venue, String brokerName, boolean buy, double arrivalPrice,
+                                double fillPrice, int requestedQuantity, int filledQuantity, long latencyMicros) {
+        double fillRatio = requestedQuantity > 0 ? (double) filledQuantity / requestedQuantity : 0.0;
+        double slippageBps = 0.0;
+        if (filledQuantity > 0 && arrivalPrice > 0) {
+            double signed = (fillPrice - arrivalPrice) / arrivalPrice * 10_000.0;
+            slippageBps = buy ? signed : -signed;
+        }
+
+        venues.record(venue, fillRatio, slippageBps, filledQuantity > 0, latencyMicros);
+        if (brokerName != null) {
+            brokers.record(brokerName, fillRatio, slippageBps, filledQuantity > 0, latencyMicros);
+        }
+    }
+
+    /**
+     * Update top of book for one venue
+     */
+    public void onQuote(String symbol, String venue, double bid, long bidSize, double ask, long askSize) {
+        int index = venues.indexFor(venue);
+        if (index < 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        books.computeIfAbsent(symbol, s -> new AtomicReference<>(TopOfBook.empty(s, MAX_VENUES)))
+             .updateAndGet(book -> book.withQuote(index, now, bid, bidSize, ask, askSize));
+    }
+
+    /**
+     * Update top of book from an aggregated market data snapshot
+     */
+    public void onMarketData(MarketDataSnapshot snapshot) {
+        if (snapshot == null || snapshot.getVenueData() == null) {
+            return;
+        }
+        for (MarketDataSnapshot.VenueData venueData : snapshot.getVenueData()) {
+            onQuote(snapshot.getSymbol(), venueData.getVenueName(),
+                    toDouble(venueData.getBidPrice()), toLong(venueData.getBidVolume()),
+                    toDouble(venueData.getAskPrice()), toLong(venueData.getAskVolume()));
+        }
+    }
+
+    // ========== Routing ==========
+
+    /**
+     * Highest-scoring venue for the symbol, if any venue is known
+     */
+    public Optional<String> selectBestVenue(String symbol, boolean buy) {
+        return selectBestVenue(symbol, buy, venue -> true);
+    }
+
+    /**
+     * Highest-scoring venue for the symbol among the eligible ones, if any eligible venue is known
+     */
+    public Optional<String> selectBestVenue(String symbol, boolean buy, Predicate<String> eligible) {
+        VenueStatsSnapshot stats = venues.snapshot();
+        if (stats.size() == 0) {
+            return Optional.empty();
+        }
+        double[] scores = allocationPolicy.score(buy, stats, bookFor(symbol));
+        return argMax(scores, stats.venues(), eligible);
+    }
+
+    /**
+     * Highest-scoring broker from execution statistics, if any broker is known
+     */
+    public Optional<String> selectBestBroker() {
+        VenueStatsSnapshot stats = brokers.snapshot();
+        if (stats.size() == 0) {
+            return Optional.empty();
+        }
+        // Brokers have no quotes of their own: score from execution history only
+        double[] scores = allocationPolicy.score(true, stats, TopOfBook.empty("", MAX_VENUES));
+        return argMax(scores, stats.venues(), broker -> true);
+    }
+
+    /**
+     * Split quantity across venues for the symbol
+     *
+     * @return Venue to quantity, only venues with a non-zero allocation
+     */
+    public Map<String, Integer> splitOrder(String symbol, boolean buy, int quantity) {
+        VenueStatsSnapshot stats = venues.snapshot();
+        int[] allocation = allocationPolicy.allocate(buy, quantity, stats, bookFor(symbol));
+
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int i = 0; i < allocation.length; i++) {
+            if (allocation[i] > 0) {
+                result.put(stats.venues()[i], allocation[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Score for a single venue (0 if unknown)
+     */
+    public double scoreVenue(String symbol, String venue, boolean buy) {
+        VenueStatsSnapshot stats = venues.snapshot();
+        int index = stats.indexOf(venue);
+        if (index < 0) {
+            return 0.0;
+        }
+        return allocationPolicy.score(buy, stats, bookFor(symbol))[index];
+    }
+
+    public VenueStatsSnapshot getVenueStats() {
+        return venues.snapshot();
+    }
+
+    public VenueStatsSnapshot getBrokerStats() {
+        return brokers.snapshot();
+    }
+
+    public TopOfBook getTopOfBook(String symbol) {
+        return bookFor(symbol);
+    }
+
+    // ========== Internal Model ==========
+
+    private TopOfBook bookFor(String symbol) {
+        AtomicReference<TopOfBook> ref = books.get(symbol);
+        return ref != null ? ref.get() : TopOfBook.empty(symbol, MAX_VENUES);
+    }
+
+    private static Optional<String> argMax(double[] scores, String[] names, Predicate<String> eligible) {
+        int best = -1;
+        for (int i = 0; i < scores.length; i++) {
+            if (eligible.test(names[i]) && (best < 0 || scores[i] > scores[best])) {
+                best = i;
+            }
+        }
+        return best < 0 ? Optional.empty() : Optional.of(names[best]);
+    }
+
+    private static double toDouble(BigDecimal value) {
+        return value != null ? value.doubleValue() : 0.0;
+    }
+
+    private static long toLong(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    /**
+     * Rolling statistics for one route (venue or broker)
+     */
+    private static final class RouteStats {
+        private final long[] latencies = new long[LATENCY_WINDOW];
+        private double fillRate;
+        private double slippageBps;
+        private long samples;
+
+        void record(double fillRatio, double slippage, boolean filled, long latencyMicros) {
+            latencies[(int) (samples % LATENCY_WINDOW)] = latencyMicros;
+            if (samples == 0) {
+                fillRate = fillRatio;
+                slippageBps = slippage;
+            } else {
+                fillRate += EWMA_ALPHA * (fillRatio - fillRate);
+                if (filled) {
+                    slippageBps += EWMA_ALPHA * (slippage - slippageBps);
+                }
+            }
+            samples++;
+        }
+
+        long[] sortedLatencies() {
+            long[] window = Arrays.copyOf(latencies, (int) Math.min(samples, LATENCY_WINDOW));
+            Arrays.sort(window);
+            return window;
+        }
+    }
+
+    /**
+     * Registry of routes with stable indices plus the published snapshot
+     */
+    private static final class RouteModel {
+        private final Map<String, Integer> indices = new ConcurrentHashMap<>();
+        private final RouteStats[] stats = new RouteStats[MAX_VENUES];
+        private final String[] names = new String[MAX_VENUES];
+        private final AtomicReference<VenueStatsSnapshot> current = new AtomicReference<>(VenueStatsSnapshot.EMPTY);
+        private int count;
+
+        int indexFor(String name) {
+            Integer index = indices.get(name);
+            if (index != null) {
+                return index;
+            }
+            synchronized (this) {
+                index = indices.get(name);
+                if (index != null) {
+                    return index;
+                }
+                if (count == MAX_VENUES) {
+                    log.warn("Route model full, ignoring route {}", name);
+                    return -1;
+                }
+                names[count] = name;
+                stats[count] = new RouteStats();
+                indices.put(name, count);
+                count++;
+                publish(-1);
+                return count - 1;
+            }
+        }
+
+        void record(String name, double fillRatio, double slippage, boolean filled, long latencyMicros) {
+            int index = indexFor(name);
+            if (index < 0) {
+                return;
+            }
+            synchronized (this) {
+                stats[index].record(fillRatio, slippage, filled, latencyMicros);
+                publish(index);
+            }
+        }
+
+        VenueStatsSnapshot snapshot() {
+            return current.get();
+        }
+
+        // Caller holds the monitor; only the changed route's latency window is re-sorted
+        private void publish(int changed) {
+            VenueStatsSnapshot previous = current.get();
+            long[] p50 = Arrays.copyOf(previous.latencyP50Micros(), count);
+            long[] p99 = Arrays.copyOf(previous.latencyP99Micros(), count);
+            double[] fillRate = new double[count];
+            double[] slippage = new double[count];
+            long[] samples = new long[count];
+            for (int i = 0; i < count; i++) {
+                fillRate[i] = stats[i].fillRate;
+                slippage[i] = stats[i].slippageBps;
+                samples[i] = stats[i].samples;
+            }
+            if (changed >= 0) {
+                long[] sorted = stats[changed].sortedLatencies();
+                p50[changed] = sorted[(sorted.length - 1) / 2];
+                p99[changed] = sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+            }
+            current.set(new VenueStatsSnapshot(Arrays.copyOf(names, count), fillRate, slippage,
+                                               p50, p99, samples, previous.version() + 1));
+        }
+    }
+}
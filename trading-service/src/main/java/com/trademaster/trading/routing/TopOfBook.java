@@ -0,0 +1,56 @@
+package com.trademaster.trading.routing;
+
+/**
+ * Top of Book
+ *
+ * Immutable per-symbol best bid/offer across venues, indexed by the venue
+ * index assigned in {@link SmartOrderRouter}. A zero size means the venue has
+ * no displayed quote on that side. Each market data update publishes a new
+ * instance; arrays are never mutated after construction.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public record TopOfBook(
+    String symbol,
+    long timestampMillis,
+    double[] bidPrice,
+    long[] bidSize,
+    double[] askPrice,
+    long[] askSize
+) {
+
+    public static TopOfBook empty(String symbol, int venueCapacity) {
+        return new TopOfBook(symbol, 0L, new double[venueCapacity], new long[venueCapacity],
+                             new double[venueCapacity], new long[venueCapacity]);
+    }
+
+    /**
+     * Copy with one venue's quote replaced
+     */
+    public TopOfBook withQuote(int venueIndex, long timestampMillis, double bid, long bidQty, double ask, long askQty) {
+        double[] bids = bidPrice.clone();
+        long[] bidSizes = bidSize.clone();
+        double[] asks = askPrice.clone();
+        long[] askSizes = askSize.clone();
+        bids[venueIndex] = bid;
+        bidSizes[venueIndex] = bidQty;
+        asks[venueIndex] = ask;
+        askSizes[venueIndex] = askQty;
+        return new TopOfBook(symbol, timestampMillis, bids, bidSizes, asks, askSizes);
+    }
+
+    /**
+     * Price a buyer (ask) or seller (bid) would trade at on the venue
+     */
+    public double takePrice(boolean buy, int venueIndex) {
+        return buy ? askPrice[venueIndex] : bidPrice[venueIndex];
+    }
+
+    /**
+     * Displayed quantity a buyer (ask) or seller (bid) can take on the venue
+     */
+    public long takeSize(boolean buy, int venueIndex) {
+        return buy ? askSize[venueIndex] : bidSize[venueIndex];
+    }
+}
@@ -0,0 +1,31 @@
+package com.trademaster.trading.routing;
+
+/**
+ * Venue Allocation Policy
+ *
+ * Splits an order's quantity across venues from an immutable statistics
+ * snapshot and top of book. Implementations must be allocation-light and
+ * side-effect free so they can be evaluated on the order path and replayed
+ * in the routing simulator.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public interface VenueAllocationPolicy {
+
+    /**
+     * Allocate quantity across venues
+     *
+     * @param buy true for buy orders, false for sell orders
+     * @param quantity Total quantity to allocate
+     * @param stats Rolling venue statistics snapshot
+     * @param book Current top of book for the symbol
+     * @return Quantity per venue index (length = stats.size())
+     */
+    int[] allocate(boolean buy, int quantity, VenueStatsSnapshot stats, TopOfBook book);
+
+    /**
+     * Policy name for logging and simulation reports
+     */
+    String getPolicyName();
+}
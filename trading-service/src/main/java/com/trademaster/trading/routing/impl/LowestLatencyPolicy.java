@@ -0,0 +1,40 @@
+package com.trademaster.trading.routing.impl;
+
+import com.trademaster.trading.routing.TopOfBook;
+import com.trademaster.trading.routing.VenueAllocationPolicy;
+import com.trademaster.trading.routing.VenueStatsSnapshot;
+
+/**
+ * Lowest Latency Policy
+ * 
+ * Baseline policy: send the whole order to the venue with the lowest median
+ * latency, ignoring price and depth. Mirrors the original static venue
+ * selection and is kept for routing simulation comparisons.
+ * 
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public class LowestLatencyPolicy implements VenueAllocationPolicy {
+    
+    @Override
+    public int[] allocate(boolean buy, int quantity, VenueStatsSnapshot stats, TopOfBook book) {
+        int[] allocation = new int[stats.size()];
+        if (allocation.length == 0) {
+            return allocation;
+        }
+        
+        int best = 0;
+        for (int i = 1; i < allocation.length; i++) {
+            if (stats.latencyP50Micros()[i] < stats.latencyP50Micros()[best]) {
+                best = i;
+            }
+        }
+        allocation[best] = quantity;
+        return allocation;
+    }
+    
+    @Override
+    public String getPolicyName() {
+        return "LOWEST_LATENCY";
+    }
+}
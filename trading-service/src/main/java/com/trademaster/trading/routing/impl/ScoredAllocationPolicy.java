@@ -0,0 +1,139 @@
+package com.trademaster.trading.routing.impl;
+
+import com.trademaster.trading.routing.TopOfBook;
+import com.trademaster.trading.routing.VenueAllocationPolicy;
+import com.trademaster.trading.routing.VenueStatsSnapshot;
+
+/**
+ * Scored Allocation Policy
+ * 
+ * Default smart routing policy. Each venue is scored from the rolling model
+ * and the current quote:
+ * - Fill rate (expected share of quantity that actually executes)
+ * - Historical slippage against arrival price plus distance from best price
+ * - p99 latency (slow venues lose queue priority)
+ * 
+ * Quantity is first taken from displayed liquidity, best score first; any
+ * residual beyond displayed depth is split pro-rata by score.
+ * 
+ * Allocation-light: one score array per call, no boxing, no collections.
+ * 
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+public class ScoredAllocationPolicy implements VenueAllocationPolicy {
+    
+    private static final double PRIOR_FILL_RATE = 0.8; // Until a venue has executions
+    private static final long PRIOR_LATENCY_MICROS = 1000L;
+    private static final double NO_QUOTE_PENALTY_BPS = 25.0;
+    private static final double COST_SCALE_BPS = 10.0;
+    private static final double LATENCY_SCALE_MICROS = 2000.0;
+    
+    @Override
+    public int[] allocate(boolean buy, int quantity, VenueStatsSnapshot stats, TopOfBook book) {
+        int venueCount = stats.size();
+        int[] allocation = new int[venueCount];
+        if (venueCount == 0 || quantity <= 0) {
+            return allocation;
+        }
+        
+        double[] scores = score(buy, stats, book);
+        
+        // Take displayed liquidity from the best-scoring venues first
+        int remaining = quantity;
+        boolean[] taken = new boolean[venueCount];
+        for (int round = 0; round < venueCount && remaining > 0; round++) {
+            int best = argMax(scores, taken);
+            if (best < 0) {
+                break;
+            }
+            taken[best] = true;
+            int fill = (int) Math.min(remaining, book.takeSize(buy, best));
+            allocation[best] += fill;
+            remaining -= fill;
+        }
+        
+        if (remaining > 0) {
+            allocateResidual(allocation, scores, remaining);
+        }
+        
+        return allocation;
+    }
+    
+    /**
+     * Score every venue; higher is better, never negative
+     */
+    public double[] score(boolean buy, VenueStatsSnapshot stats, TopOfBook book) {
+        int venueCount = stats.size();
+        double[] scores = new double[venueCount];
+        double bestPrice = bestPrice(buy, venueCount, book);
+        
+        for (int i = 0; i < venueCount; i++) {
+            boolean hasHistory = stats.sampleCount()[i] > 0;
+            double fillRate = hasHistory ? stats.fillRate()[i] : PRIOR_FILL_RATE;
+            double slippage = hasHistory ? Math.max(0.0, stats.slippageBps()[i]) : 0.0;
+            long latency = hasHistory ? stats.latencyP99Micros()[i] : PRIOR_LATENCY_MICROS;
+            
+            double pricePenalty = NO_QUOTE_PENALTY_BPS;
+            if (book.takeSize(buy, i) > 0 && bestPrice > 0) {
+                pricePenalty = Math.abs(book.takePrice(buy, i) - bestPrice) / bestPrice * 10_000.0;
+            }
+            
+            scores[i] = fillRate * Math.exp(-(slippage + pricePenalty) / COST_SCALE_BPS)
+                        / (1.0 + latency / LATENCY_SCALE_MICROS);
+        }
+        return scores;
+    }
+    
+    private static double bestPrice(boolean buy, int venueCount, TopOfBook book) {
+        double best = 0.0;
+        for (int i = 0; i < venueCount; i++) {
+            if (book.takeSize(buy, i) <= 0) {
+                continue;
+            }
+            double price = book.takePrice(buy, i);
+            if (best == 0.0 || (buy ? price < best : price > best)) {
+                best = price;
+            }
+        }
+        return best;
+    }
+    
+    private static int argMax(double[] scores, boolean[] excluded) {
+        int best = -1;
+        for (int i = 0; i < scores.length; i++) {
+            if (!excluded[i] && scores[i] > 0 && (best < 0 || scores[i] > scores[best])) {
+                best = i;
+            }
+        }
+        return best;
+    }
+    
+    private static void allocateResidual(int[] allocation, double[] scores, int remaining) {
+        double total = 0.0;
+        int best = 0;
+        for (int i = 0; i < scores.length; i++) {
+            total += scores[i];
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        
+        int allocated = 0;
+        if (total > 0) {
+            for (int i = 0; i < scores.length; i++) {
+                int share = (int) (remaining * (scores[i] / total));
+                allocation[i] += share;
+                allocated += share;
+            }
+        }
+        
+        // Rounding remainder to the best venue
+        allocation[best] += remaining - allocated;
+    }
+    
+    @Override
+    public String getPolicyName() {
+        return "SCORED";
+    }
+}
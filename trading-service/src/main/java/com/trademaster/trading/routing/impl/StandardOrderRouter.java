@@ -1,10 +1,13 @@
 package com.trademaster.trading.routing.impl;
 
 import com.trademaster.trading.entity.Order;
+import com.trademaster.trading.model.OrderSide;
 import com.trademaster.trading.model.OrderType;
 import com.trademaster.trading.routing.ExecutionStrategy;
 import com.trademaster.trading.routing.OrderRouter;
 import com.trademaster.trading.routing.RoutingDecision;
+import com.trademaster.trading.routing.SmartOrderRouter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import java.math.BigDecimal;
@@ -23,10 +26,13 @@ import java.time.LocalTime;
  * - Stop orders: Monitor market and trigger appropriately
  * - Large orders: Consider algorithmic execution strategies
  * 
+ * Venues are limited to the order's exchange, where the symbol is listed.
+ * 
  * @author TradeMaster Development Team
  * @version 2.0.0 (Java 24 + Virtual Threads)
  */
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class StandardOrderRouter implements OrderRouter {
     
@@ -35,6 +41,8 @@ public class StandardOrderRouter implements OrderRouter {
     private static final int LARGE_QUANTITY_THRESHOLD = 10000; // 10K shares
     private static final String DEFAULT_BROKER = "ZERODHA"; // Default broker for routing
     
+    private final SmartOrderRouter smartOrderRouter;
+    
     @Override
     public RoutingDecision routeOrder(Order order) {
         long startTime = System.currentTimeMillis();
@@ -55,25 +63,26 @@ public class StandardOrderRouter implements OrderRouter {
     }
     
     private RoutingDecision determineRoutingStrategy(Order order) {
+        String broker = selectBestBroker();
+        
         // Check market hours first
         if (!isMarketOpen()) {
-            return RoutingDecision.delayed(DEFAULT_BROKER, order.getExchange(), 
+            return RoutingDecision.delayed(broker, order.getExchange(), 
                                          getMarketOpenTime(), getRouterName());
         }
         
         // Route based on order type
         return switch (order.getOrderType()) {
-            case MARKET -> routeMarketOrder(order);
-            case LIMIT -> routeLimitOrder(order);
-            case STOP_LOSS -> routeStopLossOrder(order);
-            case STOP_LIMIT -> routeStopLimitOrder(order);
+            case MARKET -> routeMarketOrder(order, broker);
+            case LIMIT -> routeLimitOrder(order, broker);
+            case STOP_LOSS -> routeStopLossOrder(order, broker);
+            case STOP_LIMIT -> routeStopLimitOrder(order, broker);
         };
     }
     
-    private RoutingDecision routeMarketOrder(Order order) {
+    private RoutingDecision routeMarketOrder(Order order, String broker) {
         // Market orders always execute immediately
         String venue = selectBestVenue(order);
-        String broker = selectBestBroker(order);
         
         // For very large orders, consider slicing
         if (isLargeOrder(order)) {
@@ -92,9 +101,8 @@ public class StandardOrderRouter implements OrderRouter {
         return RoutingDecision.immediate(broker, venue, getRouterName());
     }
     
-    private RoutingDecision routeLimitOrder(Order order) {
+    private RoutingDecision routeLimitOrder(Order order, String broker) {
         String venue = selectBestVenue(order);
-        String broker = selectBestBroker(order);
         
         // Check if limit price is aggressively priced (likely to execute immediately)
         if (isAggressivelyPriced(order)) {
@@ -128,9 +136,8 @@ public class StandardOrderRouter implements OrderRouter {
             .build();
     }
     
-    private RoutingDecision routeStopLossOrder(Order order) {
+    private RoutingDecision routeStopLossOrder(Order order, String broker) {
         String venue = selectBestVenue(order);
-        String broker = selectBestBroker(order);
         
         // Stop loss orders are scheduled until triggered
         return RoutingDecision.builder()
@@ -145,9 +152,8 @@ public class StandardOrderRouter implements OrderRouter {
             .build();
     }
     
-    private RoutingDecision routeStopLimitOrder(Order order) {
+    private RoutingDecision routeStopLimitOrder(Order order, String broker) {
         String venue = selectBestVenue(order);
-        String broker = selectBestBroker(order);
         
         // Stop limit orders combine stop monitoring with limit execution
         return RoutingDecision.builder()
@@ -163,30 +169,31 @@ public class StandardOrderRouter implements OrderRouter {
     }
     
     private String selectBestVenue(Order order) {
-        // In production, this would involve real-time analysis of:
-        // - Market depth and liquidity
-        // - Spread analysis
-        // - Historical execution quality
-        // - Venue-specific advantages
+        // Live venue scoring: fill rate, slippage, latency percentiles and top-of-book depth,
+        // over the venues of the order's exchange only. Falls back to the order's exchange
+        // until the model has seen one of its venues.
+        String exchange = order.getExchange();
+        String venue = smartOrderRouter.selectBestVenue(order.getSymbol(), order.getSide() == OrderSide.BUY,
+                candidate -> isVenueOf(candidate, exchange))
+            .orElse(exchange);
         
-        return switch (order.getExchange()) {
+        return switch (venue) {
             case "NSE" -> "NSE_MAIN";
             case "BSE" -> "BSE_MAIN";
             case "MCX" -> "MCX_MAIN";
-            default -> order.getExchange();
+            default -> venue;
         };
     }
     
-    private String selectBestBroker(Order order) {
-        // In production, this would consider:
-        // - User's broker preferences
-        // - Broker capabilities for order type
-        // - Execution costs and fees
-        // - Broker performance metrics
-        // - API availability and reliability
-        
-        // For now, return default broker
-        return DEFAULT_BROKER;
+    private static boolean isVenueOf(String venue, String exchange) {
+        // Venues are named after their exchange, optionally with a segment suffix (e.g. NSE_MAIN)
+        return exchange == null || venue.equals(exchange) || venue.startsWith(exchange + "_");
+    }
+    
+    private String selectBestBroker() {
+        // Broker with the best rolling fill rate, slippage and latency;
+        // default broker until execution statistics are available
+        return smartOrderRouter.selectBestBroker().orElse(DEFAULT_BROKER);
     }
     
     private boolean isLargeOrder(Order order) {
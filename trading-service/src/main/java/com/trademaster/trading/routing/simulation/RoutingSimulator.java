@@ -0,0 +1,159 @@
+package com.trademaster.trading.routing.simulation;
+
+import com.trademaster.trading.routing.TopOfBook;
+import com.trademaster.trading.routing.VenueAllocationPolicy;
+import com.trademaster.trading.routing.VenueStatsSnapshot;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Routing Simulator
+ *
+ * Offline harness that replays historical orders against recorded top-of-book
+ * snapshots and compares venue allocation policies.
+ *
+ * Fill model (deliberately simple and deterministic):
+ * - Each order sees the latest recorded book at or before its timestamp
+ * - A venue fills at most its displayed size at its displayed price
+ * - Displayed size is discounted by the venue's historical fill rate
+ *   (queue position / fade), taken from the supplied statistics snapshot
+ * - Anything not filled is counted as missed, not re-routed
+ *
+ * Reported per policy: fill rate, quantity-weighted slippage against arrival
+ * price, and p99 allocation time.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+@Slf4j
+public class RoutingSimulator {
+
+    /**
+     * Historical parent order to replay
+     */
+    public record HistoricalOrder(long timestampMillis, String symbol, boolean buy,
+                                  int quantity, double arrivalPrice) {}
+
+    /**
+     * Outcome of replaying all orders through one policy
+     */
+    public record PolicyResult(String policyName, long orders, long requestedQuantity, long filledQuantity,
+                               double fillRate, double avgSlippageBps, long p99AllocationNanos) {}
+
+    private record BookSeries(long[] timestamps, TopOfBook[] books) {}
+
+    private final VenueStatsSnapshot stats;
+    private final Map<String, BookSeries> booksBySymbol;
+
+    /**
+     * @param stats Venue statistics used by policies and by the fill model
+     * @param recordedBooks Recorded books for any symbols, in any order
+     */
+    public RoutingSimulator(VenueStatsSnapshot stats, List<TopOfBook> recordedBooks) {
+        this.stats = stats;
+        this.booksBySymbol = new HashMap<>();
+
+        Map<String, List<TopOfBook>> grouped = recordedBooks.stream()
+            .collect(Collectors.groupingBy(TopOfBook::symbol));
+        grouped.forEach((symbol, books) -> {
+            books.sort(Comparator.comparingLong(TopOfBook::timestampMillis));
+            long[] timestamps = books.stream().mapToLong(TopOfBook::timestampMillis).toArray();
+            booksBySymbol.put(symbol, new BookSeries(timestamps, books.toArray(TopOfBook[]::new)));
+        });
+    }
+
+    /**
+     * Replay the same orders through every policy
+     */
+    public List<PolicyResult> compare(List<VenueAllocationPolicy> policies, List<HistoricalOrder> orders) {
+        List<PolicyResult> results = new ArrayList<>(policies.size());
+        for (VenueAllocationPolicy policy : policies) {
+            PolicyResult result = run(policy, orders);
+            log.info("Routing simulation {}: fillRate={} slippageBps={} p99AllocNanos={}",
+                    result.policyName(), String.format("%.4f", result.fillRate()),
+                    String.format("%.2f", result.avgSlippageBps()), result.p99AllocationNanos());
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Replay orders through a single policy
+     */
+    public PolicyResult run(VenueAllocationPolicy policy, List<HistoricalOrder> orders) {
+        long requested = 0;
+        long filled = 0;
+        double slippageWeighted = 0.0;
+        long[] allocationNanos = new long[orders.size()];
+        int replayed = 0;
+
+        for (HistoricalOrder order : orders) {
+            TopOfBook book = bookAt(order.symbol(), order.timestampMillis());
+            if (book == null) {
+                continue;
+            }
+
+            long start = System.nanoTime();
+            int[] allocation = policy.allocate(order.buy(), order.quantity(), stats, book);
+            allocationNanos[replayed++] = System.nanoTime() - start;
+
+            requested += order.quantity();
+            for (int venue = 0; venue < allocation.length; venue++) {
+                if (allocation[venue] <= 0) {
+                    continue;
+                }
+                long venueFill = simulateFill(order.buy(), venue, allocation[venue], book);
+                if (venueFill == 0) {
+                    continue;
+                }
+                double price = book.takePrice(order.buy(), venue);
+                double slippageBps = (price - order.arrivalPrice()) / order.arrivalPrice() * 10_000.0;
+                slippageWeighted += (order.buy() ? slippageBps : -slippageBps) * venueFill;
+                filled += venueFill;
+            }
+        }
+
+        long[] measured = Arrays.copyOf(allocationNanos, replayed);
+        Arrays.sort(measured);
+        long p99 = measured.length == 0 ? 0L : measured[(int) Math.ceil(measured.length * 0.99) - 1];
+
+        return new PolicyResult(
+            policy.getPolicyName(),
+            replayed,
+            requested,
+            filled,
+            requested > 0 ? (double) filled / requested : 0.0,
+            filled > 0 ? slippageWeighted / filled : 0.0,
+            p99
+        );
+    }
+
+    private long simulateFill(boolean buy, int venue, int allocated, TopOfBook book) {
+        long displayed = book.takeSize(buy, venue);
+        if (displayed <= 0) {
+            return 0L;
+        }
+        double fillRate = venue < stats.size() && stats.sampleCount()[venue] > 0 ? stats.fillRate()[venue] : 1.0;
+        long available = (long) Math.floor(displayed * fillRate);
+        return Math.min(allocated, available);
+    }
+
+    private TopOfBook bookAt(String symbol, long timestampMillis) {
+        BookSeries series = booksBySymbol.get(symbol);
+        if (series == null) {
+            return null;
+        }
+        int index = Arrays.binarySearch(series.timestamps(), timestampMillis);
+        if (index < 0) {
+            index = -index - 2; // Latest book strictly before the order
+        }
+        return index >= 0 ? series.books()[index] : null;
+    }
+}
@@ -2,6 +2,10 @@ package com.trademaster.trading.service;
 
 import com.trademaster.trading.entity.Order;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Broker Integration Service
  * 
@@ -42,6 +46,29 @@ public interface BrokerIntegrationService {
      */
     void cancelOrder(String brokerOrderId);
     
+    /**
+     * Cancel a batch of orders held at one broker in a single round trip
+     * 
+     * Brokers without a native mass-cancel API fall back to one cancel call
+     * per order; a failed cancel is reported as false rather than thrown.
+     * 
+     * @param brokerName The broker holding the orders
+     * @param brokerOrderIds The broker order IDs to cancel
+     * @return Map of broker order ID to cancellation result
+     */
+    default Map<String, Boolean> cancelOrders(String brokerName, List<String> brokerOrderIds) {
+        Map<String, Boolean> results = new HashMap<>();
+        for (String brokerOrderId : brokerOrderIds) {
+            try {
+                cancelOrder(brokerOrderId);
+                results.put(brokerOrderId, true);
+            } catch (RuntimeException e) {
+                results.put(brokerOrderId, false);
+            }
+        }
+        return results;
+    }
+    
     /**
      * Modify order with broker
      * 
@@ -1,5 +1,7 @@
 package com.trademaster.trading.service;
 
+import com.trademaster.trading.dto.DailyOrderStats;
+import com.trademaster.trading.dto.OrderHistoryPage;
 import com.trademaster.trading.dto.OrderRequest;
 import com.trademaster.trading.dto.OrderResponse;
 import com.trademaster.trading.entity.Order;
@@ -7,6 +9,7 @@ import com.trademaster.trading.model.OrderStatus;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -50,6 +53,17 @@ public interface OrderService {
      */
     List<OrderResponse> getOrdersByUser(Long userId, Pageable pageable);
     
+    /**
+     * Get one keyset page of order history, newest first
+     * 
+     * @param userId The user ID
+     * @param symbol Optional symbol filter
+     * @param cursor Token from the previous page's nextCursor, or null for the first page
+     * @param limit Page size
+     * @return OrderHistoryPage containing orders and the cursor for the next page
+     */
+    OrderHistoryPage getOrderHistory(Long userId, String symbol, String cursor, int limit);
+    
     /**
      * Get orders by user and status
      * 
@@ -118,11 +132,30 @@ public interface OrderService {
     /**
      * Get order counts by status for dashboard
      * 
+     * Counts are read from {@code order_daily_stats}, which PostgreSQL triggers on
+     * {@code orders} keep current in the same transaction as every insert and status
+     * change (migration V2). They cover every order of the user, including rows
+     * written outside this service, but are only maintained on PostgreSQL.
+     * 
      * @param userId The user ID
-     * @return Map<String, Long> containing order counts
+     * @return Map<String, Long> containing order counts; statuses with no orders are absent
      */
     Map<String, Long> getOrderCounts(Long userId);
     
+    /**
+     * Get pre-aggregated daily order stats by status
+     * 
+     * Rows come from the trigger-maintained {@code order_daily_stats} table. A
+     * trading day is the Asia/Kolkata calendar day of the order's creation time
+     * ({@code OrderJpaRepository.TRADING_DAY_ZONE}), not the UTC or server-local date.
+     * 
+     * @param userId The user ID
+     * @param fromDate First trading day (inclusive)
+     * @param toDate Last trading day (inclusive)
+     * @return List<DailyOrderStats> containing one row per day and status
+     */
+    List<DailyOrderStats> getDailyOrderStats(Long userId, LocalDate fromDate, LocalDate toDate);
+    
     /**
      * Process order fill notification from broker
      * 
@@ -703,7 +703,7 @@ public class AdvancedOrderManagementServiceImpl implements AdvancedOrderManageme
             log.info("Calculating order analytics for user {} from {} to {}", userId, fromTime, toTime);
             
             try {
-                // Get all orders in the time range
+                // Summaries in the time range, read from the covering index in keyset batches
                 var orders = orderRepository.findOrdersByUserAndTimeRange(userId, fromTime, toTime);
                 
                 if (orders.isEmpty()) {
@@ -7,6 +7,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -101,4 +104,4 @@ public class BrokerIntegrationServiceImpl implements BrokerIntegrationService {
             throw new BrokerIntegrationException("Failed to modify broker order: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+}
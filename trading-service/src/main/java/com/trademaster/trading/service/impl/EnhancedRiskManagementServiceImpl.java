@@ -7,7 +7,14 @@ import com.trademaster.trading.dto.StressTestResult;
 import com.trademaster.trading.entity.Order;
 import com.trademaster.trading.entity.Position;
 import com.trademaster.trading.entity.RiskLimit;
+import com.trademaster.trading.marketdata.BookSignals;
+import com.trademaster.trading.marketdata.OrderBookModel;
+import com.trademaster.trading.model.OrderSide;
 import com.trademaster.trading.model.RiskViolation;
+import com.trademaster.trading.position.PositionBook;
+import com.trademaster.trading.position.PositionView;
+import com.trademaster.trading.risk.var.PortfolioVaREngine;
+import com.trademaster.trading.risk.var.VaRResult;
 import com.trademaster.trading.service.EnhancedRiskManagementService;
 import com.trademaster.trading.service.PortfolioService;
 import com.trademaster.trading.repository.RiskLimitRepository;
@@ -62,6 +69,19 @@ public class EnhancedRiskManagementServiceImpl implements EnhancedRiskManagement
     @Autowired
     private PositionRepository positionRepository;
     
+    @Autowired
+    private PortfolioVaREngine varEngine;
+    
+    @Autowired
+    private PositionBook positionBook;
+    
+    @Autowired
+    private OrderBookModel orderBookModel;
+    
+    // Levels always computed together so VaR/ES calls share one cached distribution
+    private static final double[] STANDARD_CONFIDENCE_LEVELS = {0.95, 0.975, 0.99};
+    private static final int MONTE_CARLO_PATHS = 100_000;
+    
     // Cache for real-time risk metrics (Redis-backed)
     private final Map<Long, RiskMetrics> riskMetricsCache = new ConcurrentHashMap<>();
     
@@ -244,49 +264,43 @@ public class EnhancedRiskManagementServiceImpl implements EnhancedRiskManagement
     // ========== Portfolio Risk Monitoring ==========
     
     @Override
-    @Cacheable(value = "portfolioVaR", key = "#userId + '_' + #confidenceLevel + '_' + #timeHorizon")
     public CompletableFuture<BigDecimal> calculateVaR(Long userId, BigDecimal confidenceLevel, Integer timeHorizon) {
         long startTime = System.currentTimeMillis();
         
         return CompletableFuture.supplyAsync(() -> {
             try {
-                // Get portfolio positions
-                List<Position> positions = portfolioService.getPositions(userId).get();
-                
-                if (positions.isEmpty()) {
+                // Sync exposures from the live position book, the same source that pushes fills
+                // to the engine; cached results are kept unless an exposure actually changed
+                if (!syncPortfolio(userId)) {
                     return BigDecimal.ZERO;
                 }
                 
-                // Parallel calculation of different VaR methods
-                try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
-                    
-                    var historicalVaRTask = scope.fork(() -> 
-                        calculateHistoricalVaR(positions, confidenceLevel, timeHorizon));
-                    var parametricVaRTask = scope.fork(() -> 
-                        calculateParametricVaR(positions, confidenceLevel, timeHorizon));
-                    var monteCarloVaRTask = scope.fork(() -> 
-                        calculateMonteCarloVaR(positions, confidenceLevel, timeHorizon));
-                    
-                    scope.join();
-                    scope.throwIfFailed();
-                    
-                    // Use weighted average of methods
-                    BigDecimal historicalVaR = historicalVaRTask.get();
-                    BigDecimal parametricVaR = parametricVaRTask.get();
-                    BigDecimal monteCarloVaR = monteCarloVaRTask.get();
-                    
-                    BigDecimal weightedVaR = historicalVaR.multiply(new BigDecimal("0.4"))
+                double level = confidenceLevel.doubleValue();
+                int horizon = timeHorizon != null ? timeHorizon : 1;
+                
+                // Use weighted average of methods; historical simulation only counts once every
+                // position has return history, otherwise its weight goes to the other methods
+                BigDecimal parametricVaR = calculateParametricVaR(userId, level, horizon);
+                BigDecimal monteCarloVaR = calculateMonteCarloVaR(userId, level, horizon);
+                
+                BigDecimal weightedVaR;
+                if (varEngine.hasReturnHistory(userId)) {
+                    BigDecimal historicalVaR = calculateHistoricalVaR(userId, level, horizon);
+                    weightedVaR = historicalVaR.multiply(new BigDecimal("0.4"))
                         .add(parametricVaR.multiply(new BigDecimal("0.3")))
                         .add(monteCarloVaR.multiply(new BigDecimal("0.3")));
-                    
-                    // Record performance
-                    long duration = System.currentTimeMillis() - startTime;
-                    performanceMetrics.put("varCalculation", duration);
-                    log.info("VaR calculation completed in {}ms for user {}", duration, userId);
-                    
-                    return weightedVaR;
+                } else {
+                    weightedVaR = parametricVaR.multiply(new BigDecimal("0.5"))
+                        .add(monteCarloVaR.multiply(new BigDecimal("0.5")));
                 }
                 
+                // Record performance
+                long duration = System.currentTimeMillis() - startTime;
+                performanceMetrics.put("varCalculation", duration);
+                log.info("VaR calculation completed in {}ms for user {}", duration, userId);
+                
+                return weightedVaR.setScale(2, RoundingMode.HALF_UP);
+                
             } catch (Exception e) {
                 log.error("Failed to calculate VaR for user {}", userId, e);
                 return BigDecimal.ZERO;
@@ -298,24 +312,14 @@ public class EnhancedRiskManagementServiceImpl implements EnhancedRiskManagement
     public CompletableFuture<BigDecimal> calculateExpectedShortfall(Long userId, BigDecimal confidenceLevel, Integer timeHorizon) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                // Get VaR first
-                BigDecimal var = calculateVaR(userId, confidenceLevel, timeHorizon).get();
-                
-                // Calculate Expected Shortfall (Conditional VaR)
-                List<Position> positions = portfolioService.getPositions(userId).get();
+                syncPortfolio(userId);
                 
-                // Monte Carlo simulation for tail losses
-                List<BigDecimal> simulatedReturns = runMonteCarloSimulation(positions, 10000, timeHorizon);
-                
-                // Sort returns and find tail losses beyond VaR
-                BigDecimal varThreshold = var.negate(); // VaR is typically negative
-                
-                BigDecimal expectedShortfall = simulatedReturns.stream()
-                    .filter(ret -> ret.compareTo(varThreshold) <= 0) // Losses beyond VaR
-                    .reduce(BigDecimal.ZERO, BigDecimal::add)
-                    .divide(BigDecimal.valueOf(simulatedReturns.size()), 4, RoundingMode.HALF_UP);
+                // Expected Shortfall (Conditional VaR) from the same Monte Carlo distribution as VaR
+                double level = confidenceLevel.doubleValue();
+                VaRResult result = varEngine.monteCarlo(userId, timeHorizon != null ? timeHorizon : 1,
+                    MONTE_CARLO_PATHS, confidenceLevels(level));
                 
-                return expectedShortfall.abs(); // Return as positive value
+                return toAmount(result.expectedShortfallAt(level));
                 
             } catch (Exception e) {
                 log.error("Failed to calculate Expected Shortfall for user {}", userId, e);
@@ -503,33 +507,48 @@ public class EnhancedRiskManagementServiceImpl implements EnhancedRiskManagement
         }
     }
     
-    private BigDecimal calculateHistoricalVaR(List<Position> positions, BigDecimal confidenceLevel, Integer timeHorizon) {
-        // Implementation for historical VaR calculation
-        return new BigDecimal("50000"); // Placeholder
+    private BigDecimal calculateHistoricalVaR(Long userId, double confidenceLevel, int timeHorizon) {
+        return toAmount(varEngine.historical(userId, timeHorizon, confidenceLevels(confidenceLevel))
+            .varAt(confidenceLevel));
     }
     
-    private BigDecimal calculateParametricVaR(List<Position> positions, BigDecimal confidenceLevel, Integer timeHorizon) {
-        // Implementation for parametric VaR calculation
-        return new BigDecimal("45000"); // Placeholder
+    private BigDecimal calculateParametricVaR(Long userId, double confidenceLevel, int timeHorizon) {
+        return toAmount(varEngine.parametric(userId, timeHorizon, confidenceLevels(confidenceLevel))
+            .varAt(confidenceLevel));
     }
     
-    private BigDecimal calculateMonteCarloVaR(List<Position> positions, BigDecimal confidenceLevel, Integer timeHorizon) {
-        // Implementation for Monte Carlo VaR calculation
-        return new BigDecimal("48000"); // Placeholder
+    private BigDecimal calculateMonteCarloVaR(Long userId, double confidenceLevel, int timeHorizon) {
+        return toAmount(varEngine.monteCarlo(userId, timeHorizon, MONTE_CARLO_PATHS, confidenceLevels(confidenceLevel))
+            .varAt(confidenceLevel));
     }
     
-    private List<BigDecimal> runMonteCarloSimulation(List<Position> positions, int simulations, Integer timeHorizon) {
-        // Implementation for Monte Carlo simulation
-        List<BigDecimal> returns = new ArrayList<>();
-        Random random = new Random();
-        
-        for (int i = 0; i < simulations; i++) {
-            // Generate random portfolio return
-            BigDecimal randomReturn = BigDecimal.valueOf(random.nextGaussian() * 0.02); // 2% daily volatility
-            returns.add(randomReturn);
+    /**
+     * Push the user's open positions from the position book to the VaR engine
+     *
+     * @return true if the user has any open position
+     */
+    private boolean syncPortfolio(Long userId) {
+        Map<String, Double> exposures = new HashMap<>();
+        for (PositionView position : positionBook.getOpenPositions(userId)) {
+            exposures.put(position.symbol(), position.marketValue()); // Signed: short positions negative
         }
-        
-        return returns;
+        varEngine.syncPortfolio(userId, exposures);
+        return !exposures.isEmpty();
+    }
+    
+    private static double[] confidenceLevels(double requested) {
+        for (double level : STANDARD_CONFIDENCE_LEVELS) {
+            if (level == requested) {
+                return STANDARD_CONFIDENCE_LEVELS;
+            }
+        }
+        double[] levels = Arrays.copyOf(STANDARD_CONFIDENCE_LEVELS, STANDARD_CONFIDENCE_LEVELS.length + 1);
+        levels[levels.length - 1] = requested;
+        return levels;
+    }
+    
+    private static BigDecimal toAmount(double loss) {
+        return BigDecimal.valueOf(Math.max(0.0, loss)).setScale(2, RoundingMode.HALF_UP);
     }
     
     private StressTestResult executeStressTestScenario(Long userId, String scenario) {
@@ -578,8 +597,25 @@ public class EnhancedRiskManagementServiceImpl implements EnhancedRiskManagement
     private BigDecimal calculateCrossMarginBenefit(Order order, List<Position> positions) { return BigDecimal.ZERO; }
     private BigDecimal calculatePortfolioMarginAdjustment(Long userId, Order order) { return BigDecimal.ZERO; }
     private BigDecimal calculateVolatilityAdjustment(Order order) { return BigDecimal.ZERO; }
-    private BigDecimal calculatePriceImpact(Order order) { return new BigDecimal("0.001"); }
-    private BigDecimal calculateLiquidityImpact(Order order) { return new BigDecimal("0.002"); }
+    
+    // Square-root impact and depth consumption read from the live L2 book; defaults when no book yet
+    private BigDecimal calculatePriceImpact(Order order) {
+        BookSignals signals = orderBookModel.signals(order.getSymbol());
+        if (signals.impactCoefficient() <= 0 || order.getQuantity() == null) {
+            return new BigDecimal("0.001");
+        }
+        return BigDecimal.valueOf(signals.impactFraction(order.getQuantity())).setScale(6, RoundingMode.HALF_UP);
+    }
+    
+    private BigDecimal calculateLiquidityImpact(Order order) {
+        BookSignals signals = orderBookModel.signals(order.getSymbol());
+        if (!signals.isTwoSided() || order.getQuantity() == null) {
+            return new BigDecimal("0.002");
+        }
+        boolean buy = order.getSide() == OrderSide.BUY;
+        return BigDecimal.valueOf(signals.depthConsumed(buy, order.getQuantity())).setScale(6, RoundingMode.HALF_UP);
+    }
+    
     private BigDecimal calculateVolatilityImpact(Order order) { return new BigDecimal("0.001"); }
     private BigDecimal calculateCorrelationImpact(Long userId, Order order) { return new BigDecimal("0.001"); }
     private BigDecimal calculatePortfolioRiskImpact(Long userId, Order order) { return new BigDecimal("0.005"); }
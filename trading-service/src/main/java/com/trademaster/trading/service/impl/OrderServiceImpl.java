@@ -1,14 +1,21 @@
 package com.trademaster.trading.service.impl;
 
+import com.trademaster.trading.dto.DailyOrderStats;
+import com.trademaster.trading.dto.OrderHistoryPage;
 import com.trademaster.trading.dto.OrderRequest;
 import com.trademaster.trading.dto.OrderResponse;
+import com.trademaster.trading.dto.OrderStatusCount;
+import com.trademaster.trading.dto.OrderSummary;
 import com.trademaster.trading.entity.Order;
 import com.trademaster.trading.exception.OrderNotFoundException;
+import com.trademaster.trading.execution.IcebergOrderManager;
+import com.trademaster.trading.execution.OrderLockRegistry;
 import com.trademaster.trading.exception.RiskCheckException;
 import com.trademaster.trading.model.OrderSide;
 import com.trademaster.trading.model.OrderStatus;
 import com.trademaster.trading.model.OrderType;
 import com.trademaster.trading.model.TimeInForce;
+import com.trademaster.trading.position.PositionBook;
 import com.trademaster.trading.repository.OrderJpaRepository;
 import com.trademaster.trading.service.OrderService;
 import com.trademaster.trading.service.RiskManagementService;
@@ -20,6 +27,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -65,6 +74,11 @@ public class OrderServiceImpl implements OrderService {
     private final BrokerIntegrationService brokerIntegrationService;
     private final PortfolioService portfolioService;
     private final NotificationService notificationService;
+    private final OrderLockRegistry orderLockRegistry;
+    private final IcebergOrderManager icebergOrderManager;
+    private final PositionBook positionBook;
+    
+    private static final int MAX_HISTORY_PAGE_SIZE = 500;
     
     @Override
     @Transactional
@@ -118,13 +132,30 @@ public class OrderServiceImpl implements OrderService {
     @Transactional(readOnly = true)
     public List<OrderResponse> getOrdersByUser(Long userId, Pageable pageable) {
         
-        return orderRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable)
-            .getContent()
+        return orderRepository.findOrderSummariesByUserId(userId, pageable)
             .stream()
             .map(this::mapToOrderResponse)
             .collect(Collectors.toList());
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public OrderHistoryPage getOrderHistory(Long userId, String symbol, String cursor, int limit) {
+        
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+        String normalizedSymbol = symbol != null ? symbol.toUpperCase() : null;
+        
+        // Fetch one extra row to learn whether another page exists without a COUNT
+        List<OrderSummary> rows = orderRepository.findOrderHistoryPage(
+            userId, normalizedSymbol, OrderHistoryPage.Cursor.decode(cursor), pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<OrderSummary> page = hasMore ? rows.subList(0, pageSize) : rows;
+        
+        return new OrderHistoryPage(
+            page.stream().map(this::mapToOrderResponse).collect(Collectors.toList()),
+            hasMore ? OrderHistoryPage.Cursor.of(page.get(page.size() - 1)).encode() : null);
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public List<OrderResponse> getOrdersByUserAndStatus(Long userId, OrderStatus status) {
@@ -139,8 +170,7 @@ public class OrderServiceImpl implements OrderService {
     @Transactional(readOnly = true)
     public List<OrderResponse> getOrdersByUserAndSymbol(Long userId, String symbol, Pageable pageable) {
         
-        return orderRepository.findByUserIdAndSymbolOrderByCreatedAtDesc(userId, symbol, pageable)
-            .getContent()
+        return orderRepository.findOrderSummariesByUserIdAndSymbol(userId, symbol, pageable)
             .stream()
             .map(this::mapToOrderResponse)
             .collect(Collectors.toList());
@@ -269,14 +299,17 @@ public class OrderServiceImpl implements OrderService {
     @Transactional(readOnly = true)
     public Map<String, Long> getOrderCounts(Long userId) {
         
-        List<Order> userOrders = orderRepository.findByUserIdOrderByCreatedAtDesc(userId, Pageable.unpaged())
-            .getContent();
+        // One grouped read over per-day buckets rather than every order the user ever placed
+        return orderRepository.countOrdersByStatus(userId)
+            .stream()
+            .collect(Collectors.toMap(OrderStatusCount::getStatus, OrderStatusCount::getOrderCount));
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<DailyOrderStats> getDailyOrderStats(Long userId, LocalDate fromDate, LocalDate toDate) {
         
-        return userOrders.stream()
-            .collect(Collectors.groupingBy(
-                order -> order.getStatus().name(),
-                Collectors.counting()
-            ));
+        return orderRepository.findDailyOrderStats(userId, fromDate, toDate);
     }
     
     @Override
@@ -286,6 +319,17 @@ public class OrderServiceImpl implements OrderService {
         log.info("Processing fill for order {}: {} shares @ {}", 
                 order.getOrderId(), fillQuantity, fillPrice);
         
+        // Serialize with cancel-replace until commit so a replacement is never sized from a stale fill count
+        return orderLockRegistry.withOrderLockUntilCompletion(order.getId(), () -> {
+            // Reload under the lock: the caller's copy may predate a fill or cancel committed meanwhile
+            Order current = orderRepository.findById(order.getId())
+                .orElseThrow(() -> new OrderNotFoundException("Order not found: " + order.getOrderId()));
+            return applyOrderFill(current, fillQuantity, fillPrice);
+        });
+    }
+    
+    private Order applyOrderFill(Order order, Integer fillQuantity, BigDecimal fillPrice) {
+        
         // Update order with fill details
         int currentFilled = order.getFilledQuantity() != null ? order.getFilledQuantity() : 0;
         int newFilled = currentFilled + fillQuantity;
@@ -316,9 +360,43 @@ public class OrderServiceImpl implements OrderService {
         Order savedOrder = orderRepository.save(order);
         portfolioService.updateFilledPosition(order.getUserId(), savedOrder, fillQuantity, fillPrice);
         
+        // Live position and user P&L move with the fill once it is committed; the order's
+        // cumulative filled quantity identifies the execution, so a redelivered fill is applied once
+        long signedQuantity = order.getSide() == OrderSide.SELL ? -fillQuantity : fillQuantity;
+        String executionId = order.getOrderId() + ":" + newFilled;
+        afterCommit("position book update for order " + order.getOrderId(), () -> positionBook.applyFill(
+            order.getUserId(), order.getSymbol(), executionId, signedQuantity, fillPrice.doubleValue(),
+            System.currentTimeMillis()));
+        
+        // Iceberg children refresh the visible tranche once the fill is committed, so a
+        // rolled back fill never releases the next tranche to the broker
+        afterCommit("iceberg fill for order " + order.getOrderId(),
+            () -> icebergOrderManager.onChildFill(savedOrder, fillQuantity, fillPrice));
+        
         return savedOrder;
     }
     
+    /**
+     * Run action after the current transaction commits, or now without one,
+     * so a rolled back fill never reaches in-memory state or the broker
+     */
+    private void afterCommit(String description, Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    log.error("Failed to apply {} after commit", description, e);
+                }
+            }
+        });
+    }
+    
     @Override
     @Transactional
     public Order updateOrderStatus(String orderId, OrderStatus newStatus, String reason) {
@@ -487,6 +565,7 @@ public class OrderServiceImpl implements OrderService {
         // Create a copy of the order with modifications
         Order modifiedOrder = Order.builder()
             .id(originalOrder.getId())
+            .version(originalOrder.getVersion())
             .orderId(originalOrder.getOrderId())
             .userId(originalOrder.getUserId())
             .symbol(originalOrder.getSymbol())
@@ -522,6 +601,26 @@ public class OrderServiceImpl implements OrderService {
         return "TM" + System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
     }
     
+    private OrderResponse mapToOrderResponse(OrderSummary order) {
+        return OrderResponse.builder()
+            .id(order.id())
+            .orderId(order.orderId())
+            .symbol(order.symbol())
+            .side(order.side())
+            .orderType(order.orderType())
+            .quantity(order.quantity())
+            .filledQuantity(order.filledQuantity())
+            .remainingQuantity(order.remainingQuantity())
+            .limitPrice(order.limitPrice())
+            .stopPrice(order.stopPrice())
+            .averagePrice(order.averagePrice())
+            .timeInForce(order.timeInForce())
+            .status(order.status())
+            .createdAt(order.createdAt())
+            .updatedAt(order.updatedAt())
+            .build();
+    }
+    
     private OrderResponse mapToOrderResponse(Order order) {
         return OrderResponse.builder()
             .orderId(order.getOrderId())
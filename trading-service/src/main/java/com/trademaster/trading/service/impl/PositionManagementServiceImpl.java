@@ -1,8 +1,14 @@
 package com.trademaster.trading.service.impl;
 
 import com.trademaster.trading.dto.*;
+import com.trademaster.trading.position.PositionBook;
+import com.trademaster.trading.position.PositionDelta;
+import com.trademaster.trading.position.PositionView;
+import com.trademaster.trading.position.UserPnL;
+import com.trademaster.trading.risk.var.PortfolioVaREngine;
 import com.trademaster.trading.service.PositionManagementService;
 import com.trademaster.common.exception.TradingException;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -21,6 +27,7 @@ import java.util.stream.Collectors;
  * High-Performance Position Management Service Implementation
  * 
  * Ultra-low latency position management with advanced analytics:
+ * - Event-driven positions and P&L via {@link PositionBook} (fills and ticks)
  * - Real-time position tracking with <2ms updates
  * - Lightning-fast P&L calculation <1ms response time
  * - Advanced cost basis optimization with multiple accounting methods
@@ -38,11 +45,11 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class PositionManagementServiceImpl implements PositionManagementService {
     
+    private final PortfolioVaREngine varEngine;
+    private final PositionBook positionBook;
+    
     // High-performance caching for sub-millisecond responses
     private final Map<String, PositionSnapshot> positionCache = new ConcurrentHashMap<>();
-    private final Map<Long, Map<String, PositionSnapshot>> userPositions = new ConcurrentHashMap<>();
-    private final Map<String, BigDecimal> marketPriceCache = new ConcurrentHashMap<>();
-    private final Map<String, List<PositionSnapshot.TaxLot>> taxLotCache = new ConcurrentHashMap<>();
     
     // Virtual Thread executors for parallel processing
     private final ExecutorService positionProcessor = Executors.newVirtualThreadPerTaskExecutor();
@@ -53,6 +60,13 @@ public class PositionManagementServiceImpl implements PositionManagementService
     private final Map<String, Long> performanceMetrics = new ConcurrentHashMap<>();
     private final Map<String, Integer> operationCounts = new ConcurrentHashMap<>();
     
+    @PostConstruct
+    void registerRiskInvalidation() {
+        // Every fill drops the user's cached VaR/ES; universe factors are kept
+        positionBook.addFillListener(delta ->
+            varEngine.onPositionChange(delta.userId(), delta.symbol(), delta.position().marketValue()));
+    }
+    
     /**
      * Get real-time position snapshot with <2ms response time
      */
@@ -103,61 +117,52 @@ public class PositionManagementServiceImpl implements PositionManagementService
      * Update position in real-time with <1ms processing
      */
     @Override
-    public Mono<PositionSnapshot> updatePosition(Long userId, String symbol, 
+    public Mono<PositionSnapshot> updatePosition(Long userId, String symbol, String executionId,
             Integer quantityChange, BigDecimal price, String transactionType) {
         var startTime = System.nanoTime();
         
         return Mono.fromCallable(() -> {
-            try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
-                
-                // Validate input parameters
-                validatePositionUpdate(userId, symbol, quantityChange, price, transactionType);
-                
-                // Get current position atomically
-                var currentTask = scope.fork(() -> getCurrentPosition(userId, symbol));
-                var marketDataTask = scope.fork(() -> getCurrentMarketData(symbol));
-                
-                scope.join();
-                scope.throwIfFailed();
-                
-                var currentPosition = currentTask.resultNow();
-                var marketData = marketDataTask.resultNow();
-                
-                // Apply position update with optimized calculations
-                var updatedPosition = applyPositionUpdate(currentPosition, 
-                    quantityChange, price, transactionType, marketData);
-                
-                // Parallel post-update processing
-                var riskTask = scope.fork(() -> recalculateRiskMetrics(updatedPosition));
-                var pnlTask = scope.fork(() -> recalculatePnL(updatedPosition, marketData));
-                var costBasisTask = scope.fork(() -> updateCostBasis(updatedPosition, 
-                    quantityChange, price, transactionType));
-                
-                scope.join();
-                scope.throwIfFailed();
-                
-                updatedPosition.setRiskMetrics(riskTask.resultNow());
-                updatedPosition.setPnlBreakdown(pnlTask.resultNow());
-                updatedPosition.setCostBasis(costBasisTask.resultNow());
-                
-                // Update caches atomically
-                var cacheKey = userId + ":" + symbol;
-                positionCache.put(cacheKey, updatedPosition);
-                userPositions.computeIfAbsent(userId, k -> new ConcurrentHashMap<>())
-                    .put(symbol, updatedPosition);
-                
-                var endTime = System.nanoTime();
-                recordPerformanceMetric("updatePosition", endTime - startTime);
-                
-                return updatedPosition;
-                
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new TradingException("Position update interrupted", e);
-            }
+            // Validate input parameters
+            validatePositionUpdate(userId, symbol, quantityChange, price, transactionType);
+            
+            // O(1) fill: quantity, FIFO lots, average cost and user P&L updated in place;
+            // a redelivered execution leaves the book as it is
+            var position = positionBook.applyFill(userId, symbol, executionId, quantityChange,
+                    price.doubleValue(), System.currentTimeMillis())
+                .map(PositionDelta::position)
+                .or(() -> positionBook.getPosition(userId, symbol))
+                .orElseThrow(() -> new TradingException("No position for " + symbol + " after execution " + executionId));
+            
+            var updatedPosition = toSnapshot(position);
+            updatedPosition.setRiskMetrics(calculateRiskMetrics(userId, symbol));
+            positionCache.put(userId + ":" + symbol, updatedPosition);
+            
+            var endTime = System.nanoTime();
+            recordPerformanceMetric("updatePosition", endTime - startTime);
+            
+            return updatedPosition;
         }).subscribeOn(reactor.core.scheduler.Schedulers.fromExecutor(positionProcessor));
     }
     
+    /**
+     * Mark all positions in a symbol at a new market price
+     *
+     * @return Number of positions re-marked
+     */
+    public int onMarketTick(String symbol, BigDecimal price) {
+        var startTime = System.nanoTime();
+        int marked = positionBook.onTick(symbol, price.doubleValue(), System.currentTimeMillis());
+        recordPerformanceMetric("onMarketTick", System.nanoTime() - startTime);
+        return marked;
+    }
+    
+    /**
+     * Incrementally maintained aggregate P&L for the user
+     */
+    public UserPnL getUserPnL(Long userId) {
+        return positionBook.getUserPnL(userId);
+    }
+    
     /**
      * Calculate real-time P&L with <1ms response time
      */
@@ -166,79 +171,22 @@ public class PositionManagementServiceImpl implements PositionManagementService
         var startTime = System.nanoTime();
         
         return Mono.fromCallable(() -> {
-            try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
-                
-                var positionTask = scope.fork(() -> getCurrentPosition(userId, symbol));
-                var marketPriceTask = scope.fork(() -> getCurrentMarketPrice(symbol));
-                var historicalTask = scope.fork(() -> getHistoricalPnL(userId, symbol));
-                
-                scope.join();
-                scope.throwIfFailed();
-                
-                var position = positionTask.resultNow();
-                var currentPrice = marketPriceTask.resultNow();
-                var historicalPnL = historicalTask.resultNow();
-                
-                if (position == null || position.getPositionDetails() == null) {
-                    return PositionSnapshot.PnLBreakdown.builder()
-                        .unrealizedPnL(BigDecimal.ZERO)
-                        .realizedPnL(BigDecimal.ZERO)
-                        .totalPnL(BigDecimal.ZERO)
-                        .performanceCategory("FLAT")
-                        .build();
-                }
-                
-                // Lightning-fast P&L calculations
-                var quantity = BigDecimal.valueOf(position.getPositionDetails().getTotalQuantity());
-                var avgPrice = position.getPositionDetails().getAveragePrice();
-                var costBasis = position.getCostBasis().getTotalCostBasis();
-                
-                // Unrealized P&L = (Current Price - Average Price) * Quantity
-                var unrealizedPnL = currentPrice.subtract(avgPrice)
-                    .multiply(quantity)
-                    .setScale(2, RoundingMode.HALF_UP);
-                
-                // Market value calculation
-                var marketValue = currentPrice.multiply(quantity);
-                
-                // Percentage return calculation
-                var percentReturn = costBasis.compareTo(BigDecimal.ZERO) > 0 
-                    ? unrealizedPnL.divide(costBasis, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100))
-                    : BigDecimal.ZERO;
-                
-                // Day change calculation
-                var dayChange = calculateDayChange(symbol, currentPrice, quantity);
-                var dayChangePercent = avgPrice.compareTo(BigDecimal.ZERO) > 0
-                    ? dayChange.divide(avgPrice.multiply(quantity), 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100))
-                    : BigDecimal.ZERO;
-                
-                // Performance category assignment
-                var performanceCategory = determinePerformanceCategory(percentReturn);
-                
-                var pnlBreakdown = PositionSnapshot.PnLBreakdown.builder()
-                    .unrealizedPnL(unrealizedPnL)
-                    .realizedPnL(historicalPnL)
-                    .totalPnL(unrealizedPnL.add(historicalPnL))
-                    .intradayPnL(dayChange)
-                    .percentReturn(percentReturn)
-                    .absoluteReturn(unrealizedPnL)
-                    .dayChange(dayChange)
-                    .dayChangePercent(dayChangePercent)
-                    .costBasis(costBasis)
-                    .marketValue(marketValue)
-                    .performanceCategory(performanceCategory)
-                    .build();
-                
-                var endTime = System.nanoTime();
-                recordPerformanceMetric("calculateRealTimePnL", endTime - startTime);
-                
-                return pnlBreakdown;
-                
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new TradingException("P&L calculation interrupted", e);
-            }
-        }).subscribeOn(reactor.core.scheduler.Schedulers.fromExecutor(positionProcessor));
+            // Already marked by the last tick: read, don't recompute
+            var pnlBreakdown = positionBook.getPosition(userId, symbol)
+                .filter(position -> !position.isFlat() || position.realizedPnL() != 0.0)
+                .map(this::toPnLBreakdown)
+                .orElseGet(() -> PositionSnapshot.PnLBreakdown.builder()
+                    .unrealizedPnL(BigDecimal.ZERO)
+                    .realizedPnL(BigDecimal.ZERO)
+                    .totalPnL(BigDecimal.ZERO)
+                    .performanceCategory("FLAT")
+                    .build());
+            
+            var endTime = System.nanoTime();
+            recordPerformanceMetric("calculateRealTimePnL", endTime - startTime);
+            
+            return pnlBreakdown;
+        });
     }
     
     /**
@@ -246,30 +194,8 @@ public class PositionManagementServiceImpl implements PositionManagementService
      */
     @Override
     public Flux<PositionSnapshot> getUserPositions(Long userId) {
-        return Mono.fromCallable(() -> {
-            try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
-                
-                var positionsTask = scope.fork(() -> getAllUserPositions(userId));
-                var marketDataTask = scope.fork(() -> getBulkMarketData());
-                
-                scope.join();
-                scope.throwIfFailed();
-                
-                var positions = positionsTask.resultNow();
-                var marketData = marketDataTask.resultNow();
-                
-                // Parallel enrichment of position data
-                return positions.parallelStream()
-                    .map(position -> enrichPositionSnapshot(position, marketData))
-                    .collect(Collectors.toList());
-                
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new TradingException("User positions retrieval interrupted", e);
-            }
-        })
-        .subscribeOn(reactor.core.scheduler.Schedulers.fromExecutor(positionProcessor))
-        .flatMapMany(Flux::fromIterable);
+        return Flux.defer(() -> Flux.fromIterable(positionBook.getOpenPositions(userId)))
+            .map(this::toSnapshot);
     }
     
     /**
@@ -348,10 +274,10 @@ public class PositionManagementServiceImpl implements PositionManagementService
      */
     @Override
     public Flux<PositionSnapshot> streamPositionUpdates(Long userId, String symbol) {
-        return Flux.interval(java.time.Duration.ofMillis(100))
-            .flatMap(tick -> getPositionSnapshot(userId, symbol))
-            .distinctUntilChanged((prev, curr) -> 
-                prev.getSnapshotTime().equals(curr.getSnapshotTime()))
+        // Pushed on every fill and tick that changes the position; no polling
+        return positionBook.streamDeltas(userId)
+            .filter(delta -> symbol == null || symbol.equals(delta.symbol()))
+            .map(delta -> toSnapshot(delta.position()))
             .onErrorResume(error -> {
                 log.error("Position streaming error for user {} symbol {}", userId, symbol, error);
                 return Flux.empty();
@@ -408,7 +334,8 @@ public class PositionManagementServiceImpl implements PositionManagementService
     }
     
     private BigDecimal getCurrentMarketPrice(String symbol) {
-        return marketPriceCache.getOrDefault(symbol, new BigDecimal("155.75"));
+        double lastPrice = positionBook.getLastPrice(symbol);
+        return lastPrice > 0.0 ? BigDecimal.valueOf(lastPrice) : new BigDecimal("155.75");
     }
     
     private PositionSnapshot.CostBasisDetails getCostBasisDetails(Long userId, String symbol) {
@@ -475,6 +402,68 @@ public class PositionManagementServiceImpl implements PositionManagementService
             .build();
     }
     
+    private PositionSnapshot toSnapshot(PositionView position) {
+        long quantity = position.quantity();
+        var details = PositionSnapshot.PositionDetails.builder()
+            .totalQuantity((int) quantity)
+            .longQuantity(quantity > 0 ? (int) quantity : 0)
+            .shortQuantity(quantity < 0 ? (int) -quantity : 0)
+            .availableQuantity((int) quantity)
+            .averagePrice(amount(position.averageCost()))
+            .marketPrice(amount(position.lastPrice()))
+            .marketValue(amount(position.marketValue()))
+            .costValue(amount(position.openCost()))
+            .positionType(quantity > 0 ? "LONG" : quantity < 0 ? "SHORT" : "FLAT")
+            .firstTradeDate(toDate(position.firstFillMillis()))
+            .lastTradeDate(toDate(position.lastFillMillis()))
+            .build();
+        
+        return PositionSnapshot.builder()
+            .userId(position.userId())
+            .symbol(position.symbol())
+            .snapshotTime(Instant.ofEpochMilli(position.updatedAtMillis()))
+            .positionDetails(details)
+            .pnlBreakdown(toPnLBreakdown(position))
+            .costBasis(PositionSnapshot.CostBasisDetails.builder()
+                .method("FIFO")
+                .averageCostPrice(amount(position.averageCost()))
+                .totalCostBasis(amount(position.openCost()))
+                .adjustedCostBasis(amount(position.openCost()))
+                .taxLotsCount(position.openLots())
+                .build())
+            .activeAlerts(new ArrayList<>())
+            .build();
+    }
+    
+    private PositionSnapshot.PnLBreakdown toPnLBreakdown(PositionView position) {
+        var unrealizedPnL = amount(position.unrealizedPnL());
+        var costBasis = amount(position.openCost());
+        var percentReturn = position.openCost() > 0.0
+            ? BigDecimal.valueOf(position.unrealizedPnL() / position.openCost() * 100.0).setScale(4, RoundingMode.HALF_UP)
+            : BigDecimal.ZERO;
+        
+        return PositionSnapshot.PnLBreakdown.builder()
+            .unrealizedPnL(unrealizedPnL)
+            .realizedPnL(amount(position.realizedPnL()))
+            .totalPnL(amount(position.totalPnL()))
+            .percentReturn(percentReturn)
+            .absoluteReturn(unrealizedPnL)
+            .costBasis(costBasis)
+            .marketValue(amount(position.marketValue()))
+            .performanceCategory(position.isFlat() ? "FLAT" : determinePerformanceCategory(percentReturn))
+            .build();
+    }
+    
+    private static BigDecimal amount(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+    
+    private static LocalDate toDate(long epochMillis) {
+        return epochMillis > 0
+            ? Instant.ofEpochMilli(epochMillis).atZone(java.time.ZoneId.systemDefault()).toLocalDate()
+            : null;
+    }
+    
     private void recordPerformanceMetric(String operation, long nanos) {
         var micros = nanos / 1000;
         performanceMetrics.put(operation + "_latency_micros", micros);
@@ -496,81 +485,6 @@ public class PositionManagementServiceImpl implements PositionManagementService
         }
     }
     
-    private PositionSnapshot getCurrentPosition(Long userId, String symbol) {
-        var cacheKey = userId + ":" + symbol;
-        return positionCache.get(cacheKey);
-    }
-    
-    private PositionSnapshot applyPositionUpdate(PositionSnapshot currentPosition,
-            Integer quantityChange, BigDecimal price, String transactionType,
-            PositionSnapshot.MarketContext marketData) {
-        
-        if (currentPosition == null) {
-            // Create new position
-            var positionDetails = PositionSnapshot.PositionDetails.builder()
-                .totalQuantity(quantityChange)
-                .longQuantity(quantityChange > 0 ? quantityChange : 0)
-                .shortQuantity(quantityChange < 0 ? Math.abs(quantityChange) : 0)
-                .availableQuantity(quantityChange)
-                .averagePrice(price)
-                .marketPrice(marketData.getCurrentPrice())
-                .marketValue(marketData.getCurrentPrice().multiply(BigDecimal.valueOf(quantityChange)))
-                .costValue(price.multiply(BigDecimal.valueOf(quantityChange)))
-                .positionType(quantityChange > 0 ? "LONG" : "SHORT")
-                .firstTradeDate(LocalDate.now())
-                .lastTradeDate(LocalDate.now())
-                .build();
-            
-            currentPosition = PositionSnapshot.builder()
-                .snapshotTime(Instant.now())
-                .positionDetails(positionDetails)
-                .build();
-        } else {
-            // Update existing position
-            var details = currentPosition.getPositionDetails();
-            var newQuantity = details.getTotalQuantity() + quantityChange;
-            var totalCost = details.getAveragePrice().multiply(BigDecimal.valueOf(details.getTotalQuantity()))
-                .add(price.multiply(BigDecimal.valueOf(quantityChange)));
-            var newAvgPrice = newQuantity != 0 
-                ? totalCost.divide(BigDecimal.valueOf(newQuantity), 4, RoundingMode.HALF_UP)
-                : BigDecimal.ZERO;
-            
-            details.setTotalQuantity(newQuantity);
-            details.setAveragePrice(newAvgPrice);
-            details.setMarketPrice(marketData.getCurrentPrice());
-            details.setMarketValue(marketData.getCurrentPrice().multiply(BigDecimal.valueOf(newQuantity)));
-            details.setLastTradeDate(LocalDate.now());
-        }
-        
-        return currentPosition;
-    }
-    
-    private PositionSnapshot.RiskMetrics recalculateRiskMetrics(PositionSnapshot position) {
-        // Recalculate risk metrics based on updated position
-        return calculateRiskMetrics(position.getUserId(), position.getSymbol());
-    }
-    
-    private PositionSnapshot.PnLBreakdown recalculatePnL(PositionSnapshot position, 
-            PositionSnapshot.MarketContext marketData) {
-        // Recalculate P&L based on updated position
-        return calculateRealTimePnL(position.getUserId(), position.getSymbol()).block();
-    }
-    
-    private PositionSnapshot.CostBasisDetails updateCostBasis(PositionSnapshot position,
-            Integer quantityChange, BigDecimal price, String transactionType) {
-        // Update cost basis with new transaction
-        return getCostBasisDetails(position.getUserId(), position.getSymbol());
-    }
-    
-    private BigDecimal getHistoricalPnL(Long userId, String symbol) {
-        return new BigDecimal("2500.00"); // Simulated historical P&L
-    }
-    
-    private BigDecimal calculateDayChange(String symbol, BigDecimal currentPrice, BigDecimal quantity) {
-        var previousClose = new BigDecimal("154.50"); // Simulated previous close
-        return currentPrice.subtract(previousClose).multiply(quantity);
-    }
-    
     private String determinePerformanceCategory(BigDecimal percentReturn) {
         if (percentReturn.compareTo(new BigDecimal("10.0")) > 0) return "EXCELLENT";
         if (percentReturn.compareTo(new BigDecimal("5.0")) > 0) return "GOOD";
@@ -578,26 +492,6 @@ public class PositionManagementServiceImpl implements PositionManagementService
         return "POOR";
     }
     
-    private List<PositionSnapshot> getAllUserPositions(Long userId) {
-        return userPositions.getOrDefault(userId, new ConcurrentHashMap<>())
-            .values()
-            .stream()
-            .collect(Collectors.toList());
-    }
-    
-    private Map<String, PositionSnapshot.MarketContext> getBulkMarketData() {
-        return Map.of("AAPL", getCurrentMarketData("AAPL"));
-    }
-    
-    private PositionSnapshot enrichPositionSnapshot(PositionSnapshot position, 
-            Map<String, PositionSnapshot.MarketContext> marketData) {
-        var marketContext = marketData.get(position.getSymbol());
-        if (marketContext != null) {
-            position.setMarketContext(marketContext);
-        }
-        return position;
-    }
-    
     // Analytics helper methods (simplified implementations)
     private PositionAnalytics.PerformanceMetrics calculatePerformanceMetrics(Long userId, String symbol, 
             LocalDate startDate, LocalDate endDate) {
@@ -649,8 +543,16 @@ public class PositionManagementServiceImpl implements PositionManagementService
     }
     
     private List<PositionSnapshot.TaxLot> getTaxLots(Long userId, String symbol) {
-        var cacheKey = userId + ":" + symbol;
-        return taxLotCache.getOrDefault(cacheKey, new ArrayList<>());
+        return positionBook.getTaxLots(userId, symbol).stream()
+            .map(lot -> PositionSnapshot.TaxLot.builder()
+                .quantity((int) lot.quantity())
+                .price(amount(lot.price()))
+                .costBasis(amount(lot.costBasis()))
+                .purchaseDate(toDate(lot.openedAtMillis()))
+                .costBasisMethod("FIFO")
+                .createdAt(Instant.ofEpochMilli(lot.openedAtMillis()))
+                .build())
+            .collect(Collectors.toList());
     }
     
     private Map<String, BigDecimal> getCurrentTaxRates(Long userId) {
@@ -681,7 +583,7 @@ public class PositionManagementServiceImpl implements PositionManagementService
             .mapToLong(Long::longValue).average().orElse(0.0));
         metrics.put("operation_counts", new HashMap<>(operationCounts));
         metrics.put("cache_size", positionCache.size());
-        metrics.put("active_users", userPositions.size());
+        metrics.put("live_positions", positionBook.getPositionCount());
         return metrics;
     }
 }
\ No newline at end of file
@@ -1,5 +1,11 @@
 package com.trademaster.trading.service.impl;
 
+import com.trademaster.trading.backtest.BacktestEngine;
+import com.trademaster.trading.backtest.BacktestReport;
+import com.trademaster.trading.backtest.BacktestSpec;
+import com.trademaster.trading.backtest.BarFile;
+import com.trademaster.trading.backtest.FillModel;
+import com.trademaster.trading.backtest.WalkForwardReport;
 import com.trademaster.trading.dto.*;
 import com.trademaster.trading.service.TradingStrategyService;
 import com.trademaster.common.exception.TradingException;
@@ -9,7 +15,10 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -42,6 +51,9 @@ public class TradingStrategyServiceImpl implements TradingStrategyService {
     private final Map<String, List<TradingSignal>> signalHistory = new ConcurrentHashMap<>();
     private final Map<Long, List<String>> userStrategies = new ConcurrentHashMap<>();
     
+    // Backtests replay on the engine's bounded fork/join pool; each run maps its own bar file
+    private final BacktestEngine backtestEngine;
+    
     // Virtual Thread executors for maximum performance
     private final ExecutorService strategyExecutor = Executors.newVirtualThreadPerTaskExecutor();
     private final ExecutorService backtestExecutor = Executors.newVirtualThreadPerTaskExecutor();
@@ -421,34 +433,25 @@ public class TradingStrategyServiceImpl implements TradingStrategyService {
         var startTime = System.nanoTime();
         
         return Mono.fromCallable(() -> {
-            try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
-                
-                // Parallel backtest execution
-                var dataTask = scope.fork(() -> loadBacktestData(backtestParams));
-                var engineTask = scope.fork(() -> initializeBacktestEngine(strategyDefinition));
-                
-                scope.join();
-                scope.throwIfFailed();
-                
-                var data = dataTask.resultNow();
-                var engine = engineTask.resultNow();
-                
-                // Run backtest simulation
-                var result = executeBacktest(engine, data, backtestParams);
-                
-                var endTime = System.nanoTime();
-                recordPerformanceMetric("runBacktest", endTime - startTime);
-                
-                log.info("Completed backtest for strategy {} - Total trades: {}", 
-                    strategyDefinition.getName(), 
-                    result.getTradingStats() != null ? result.getTradingStats().getTotalTrades() : 0);
-                    
-                return result;
-                
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new TradingException("Backtest execution interrupted", e);
+            var spec = toBacktestSpec(strategyDefinition, backtestParams);
+            
+            // Replay runs on the engine's fork/join pool; this thread only waits
+            var barFile = openBacktestData(backtestParams);
+            BacktestReport report;
+            try {
+                report = backtestEngine.run(barFile, spec);
+            } finally {
+                closeBacktestData(barFile);
             }
+            
+            var endTime = System.nanoTime();
+            recordPerformanceMetric("runBacktest", endTime - startTime);
+            
+            var result = toBacktestResult(strategyDefinition, report, (endTime - startTime) / 1_000_000);
+            log.info("Completed backtest for strategy {} - Total trades: {}, bars: {}", 
+                strategyDefinition.getName(), report.totalTrades(), report.barsProcessed());
+                
+            return result;
         }).subscribeOn(reactor.core.scheduler.Schedulers.fromExecutor(backtestExecutor));
     }
     
@@ -814,34 +817,151 @@ public class TradingStrategyServiceImpl implements TradingStrategyService {
         return new BigDecimal("0.85"); // 85% quality
     }
     
-    // Placeholder implementations for complex operations
-    private Object loadBacktestData(BacktestParameters params) { return new Object(); }
-    private Object initializeBacktestEngine(TradingStrategyDefinition def) { return new Object(); }
-    private BacktestResult executeBacktest(Object engine, Object data, BacktestParameters params) {
+    // ==================== BACKTEST ENGINE MAPPING ====================
+    
+    /**
+     * Map the run's bar file; the caller closes it when the run ends, so a file
+     * rewritten between runs is always read fresh and no mapping outlives its run
+     */
+    private BarFile openBacktestData(BacktestParameters params) {
+        if (params == null || params.getDataFile() == null) {
+            throw new TradingException("Backtest requires a bar data file");
+        }
+        var path = Path.of(params.getDataFile()).toAbsolutePath();
+        try {
+            return BarFile.open(path);
+        } catch (IOException e) {
+            throw new TradingException("Failed to open bar data file: " + path, e);
+        }
+    }
+    
+    private void closeBacktestData(BarFile barFile) {
+        try {
+            barFile.close();
+        } catch (IOException e) {
+            log.warn("Failed to close bar file", e);
+        }
+    }
+    
+    /**
+     * Strategy parameters come from the enabled indicators' numeric settings,
+     * overridden by the request; unset dates and capital fall back to the
+     * strategy's own backtest configuration
+     */
+    private BacktestSpec toBacktestSpec(TradingStrategyDefinition def, BacktestParameters params) {
+        var parameters = new HashMap<String, Double>();
+        if (def.getSignalConfig() != null && def.getSignalConfig().getIndicators() != null) {
+            for (var indicator : def.getSignalConfig().getIndicators()) {
+                if (Boolean.FALSE.equals(indicator.getEnabled()) || indicator.getParameters() == null) {
+                    continue;
+                }
+                indicator.getParameters().forEach((name, value) -> {
+                    if (value instanceof Number number) {
+                        parameters.put(name, number.doubleValue());
+                    }
+                });
+            }
+        }
+        if (params.getParameters() != null) {
+            parameters.putAll(params.getParameters());
+        }
+        
+        var config = def.getBacktestConfig();
+        var startDate = params.getStartDate() != null ? params.getStartDate()
+            : config != null ? config.getStartDate() : null;
+        var endDate = params.getEndDate() != null ? params.getEndDate()
+            : config != null ? config.getEndDate() : null;
+        var capital = params.getInitialCapital() != null ? params.getInitialCapital()
+            : config != null ? config.getInitialCapital() : null;
+        if (startDate == null || endDate == null || capital == null) {
+            throw new TradingException("Backtest requires start date, end date and initial capital");
+        }
+        var commissionBps = params.getCommissionBps() != null ? params.getCommissionBps()
+            : config != null && config.getCommissionRate() != null
+                ? config.getCommissionRate().multiply(BigDecimal.valueOf(10_000)) : null;
+        
+        var fillModel = new FillModel(
+            orDefault(params.getSlippageBps(), FillModel.DEFAULT.slippageBps()),
+            orDefault(commissionBps, FillModel.DEFAULT.commissionBps()),
+            orDefault(params.getMaxParticipation(), FillModel.DEFAULT.maxParticipation()));
+        var symbols = params.getSymbols() != null ? params.getSymbols() : def.getSymbols();
+        
+        try {
+            return new BacktestSpec(def.getStrategyType(), parameters, symbols, startDate, endDate,
+                capital.doubleValue(), orDefault(params.getPositionFraction(), 1.0), fillModel);
+        } catch (IllegalArgumentException e) {
+            throw new TradingException("Invalid backtest parameters: " + e.getMessage(), e);
+        }
+    }
+    
+    private BacktestResult toBacktestResult(TradingStrategyDefinition def, BacktestReport report, long executionTimeMs) {
         return BacktestResult.builder()
-            .backtestId("BT_" + System.currentTimeMillis())
-            .strategyName("Test Strategy")
-            .startDate(LocalDate.now().minusYears(1))
-            .endDate(LocalDate.now())
+            .backtestId("BT_" + UUID.randomUUID().toString().substring(0, 8))
+            .strategyName(def.getName())
+            .startDate(report.startDate())
+            .endDate(report.endDate())
             .completedAt(Instant.now())
+            .executionTimeMs(executionTimeMs)
+            .config(BacktestResult.BacktestConfig.builder()
+                .initialCapital(decimal(report.initialCapital()))
+                .dataFrequency("1m")
+                .totalDataPoints((int) Math.min(Integer.MAX_VALUE, report.barsProcessed()))
+                .dataSource("bar-file")
+                .build())
             .performance(BacktestResult.PerformanceSummary.builder()
-                .totalReturn(new BigDecimal("15.5"))
-                .annualizedReturn(new BigDecimal("18.2"))
-                .sharpeRatio(new BigDecimal("1.85"))
-                .maxDrawdown(new BigDecimal("8.5"))
+                .totalReturn(percent(report.totalReturn()))
+                .annualizedReturn(percent(report.annualizedReturn()))
+                .compoundAnnualGrowthRate(percent(report.cagr()))
+                .volatility(percent(report.volatility()))
+                .sharpeRatio(decimal(report.sharpeRatio()))
+                .sortinoRatio(decimal(report.sortinoRatio()))
+                .calmarRatio(decimal(report.calmarRatio()))
+                .maxDrawdown(percent(report.maxDrawdown()))
+                .maxDrawdownStart(report.maxDrawdownStart())
+                .maxDrawdownEnd(report.maxDrawdownEnd())
+                .maxDrawdownDays((int) (report.maxDrawdownEnd().toEpochDay() - report.maxDrawdownStart().toEpochDay()))
+                .dailyVaR95(decimal(report.dailyVaR95()))
+                .dailyVaR99(decimal(report.dailyVaR99()))
+                .expectedShortfall(decimal(report.expectedShortfall95()))
+                .maxDailyLoss(decimal(report.maxDailyLoss()))
+                .maxDailyGain(decimal(report.maxDailyGain()))
                 .build())
             .tradingStats(BacktestResult.TradingStatistics.builder()
-                .totalTrades(150)
-                .winningTrades(98)
-                .losingTrades(52)
-                .winRate(new BigDecimal("65.3"))
-                .averageWin(new BigDecimal("2.1"))
-                .averageLoss(new BigDecimal("1.3"))
-                .profitFactor(new BigDecimal("1.6"))
+                .totalTrades(report.totalTrades())
+                .longTrades(report.longTrades())
+                .shortTrades(report.shortTrades())
+                .winningTrades(report.winningTrades())
+                .losingTrades(report.losingTrades())
+                .winRate(percent(report.winRate()))
+                .averageWin(decimal(report.averageWin()))
+                .averageLoss(decimal(report.averageLoss()))
+                .largestWin(decimal(report.largestWin()))
+                .largestLoss(decimal(report.largestLoss()))
+                .profitFactor(decimal(report.profitFactor()))
+                .payoffRatio(decimal(report.payoffRatio()))
+                .averageHoldingPeriod(decimal(report.averageHoldingMinutes() / 1_440.0))
+                .longestTrade(decimal(report.longestHoldingMinutes() / 1_440.0))
+                .maxConsecutiveWins(report.maxConsecutiveWins())
+                .maxConsecutiveLosses(report.maxConsecutiveLosses())
+                .totalCommissions(decimal(report.totalCommissions()))
+                .totalSlippageCost(decimal(report.totalSlippageCost()))
+                .netProfitAfterCosts(decimal(report.netProfit()))
                 .build())
             .build();
     }
     
+    private static double orDefault(BigDecimal value, double defaultValue) {
+        return value != null ? value.doubleValue() : defaultValue;
+    }
+    
+    private static BigDecimal decimal(double value) {
+        return Double.isFinite(value) ? BigDecimal.valueOf(value).setScale(4, RoundingMode.HALF_UP) : null;
+    }
+    
+    private static BigDecimal percent(double fraction) {
+        return decimal(fraction * 100.0);
+    }
+    
     // More placeholder implementations...
     private SimulationResult executeSimulation(TradingStrategy strategy, SimulationParameters params) {
         return SimulationResult.builder().build();
@@ -852,7 +972,35 @@ public class TradingStrategyServiceImpl implements TradingStrategyService {
     }
     
     private WalkForwardResult executeWalkForwardAnalysis(TradingStrategyDefinition def, WalkForwardParameters params) {
-        return WalkForwardResult.builder().build();
+        var startTime = System.nanoTime();
+        if (params.getParameterGrid() == null || params.getParameterGrid().isEmpty()
+                || params.getTrainDays() == null || params.getTestDays() == null) {
+            throw new TradingException("Walk-forward requires a parameter grid and train/test window lengths");
+        }
+        var ranges = new LinkedHashMap<String, double[]>();
+        params.getParameterGrid().forEach((name, values) ->
+            ranges.put(name, values.stream().mapToDouble(Double::doubleValue).toArray()));
+        
+        var backtest = params.getBacktest();
+        var barFile = openBacktestData(backtest);
+        WalkForwardReport report;
+        try {
+            report = backtestEngine.walkForward(barFile, toBacktestSpec(def, backtest),
+                BacktestEngine.grid(ranges), params.getTrainDays(), params.getTestDays());
+        } finally {
+            closeBacktestData(barFile);
+        }
+        
+        var elapsedNanos = System.nanoTime() - startTime;
+        var elapsedMs = elapsedNanos / 1_000_000;
+        recordPerformanceMetric("walkForwardAnalysis", elapsedNanos);
+        return WalkForwardResult.builder()
+            .analysisId("WF_" + UUID.randomUUID().toString().substring(0, 8))
+            .windows(report.windows())
+            .outOfSample(toBacktestResult(def, report.outOfSample(), elapsedMs))
+            .efficiency(decimal(report.efficiency()))
+            .executionTimeMs(elapsedMs)
+            .build();
     }
     
     private MonteCarloResult executeMonteCarloSimulation(TradingStrategy strategy, MonteCarloParameters params) {
@@ -1002,13 +1150,42 @@ public class TradingStrategyServiceImpl implements TradingStrategyService {
     }
     
     // Additional placeholder classes for method signatures
-    public static class BacktestParameters { }
+    @lombok.Data
+    @lombok.Builder
+    public static class BacktestParameters {
+        private String dataFile; // Columnar bar file (see BarFile)
+        private LocalDate startDate;
+        private LocalDate endDate; // Exclusive
+        private BigDecimal initialCapital;
+        private BigDecimal positionFraction; // Of each symbol's capital per entry
+        private BigDecimal slippageBps;
+        private BigDecimal commissionBps;
+        private BigDecimal maxParticipation; // Of bar volume
+        private List<String> symbols;
+        private Map<String, Double> parameters; // Overrides indicator parameters
+    }
     public static class SimulationParameters { }
     public static class SimulationResult { }
     public static class ComparisonParameters { }
     public static class StrategyComparison { }
-    public static class WalkForwardParameters { }
-    public static class WalkForwardResult { }
+    @lombok.Data
+    @lombok.Builder
+    public static class WalkForwardParameters {
+        private BacktestParameters backtest;
+        private Map<String, List<Double>> parameterGrid;
+        private Integer trainDays;
+        private Integer testDays;
+    }
+    
+    @lombok.Data
+    @lombok.Builder
+    public static class WalkForwardResult {
+        private String analysisId;
+        private List<WalkForwardReport.Window> windows;
+        private BacktestResult outOfSample;
+        private BigDecimal efficiency; // Out-of-sample Sharpe / in-sample Sharpe
+        private Long executionTimeMs;
+    }
     public static class MonteCarloParameters { }
     public static class MonteCarloResult { }
     public static class OptimizationConfiguration { }
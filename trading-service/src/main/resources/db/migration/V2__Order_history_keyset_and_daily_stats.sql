@@ -0,0 +1,79 @@
+-- Trading Service Database Schema
+-- Version: 2.0.0
+-- Description: Keyset order history index and per-user daily order stats
+
+-- Order history is read newest first per user and paged by (created_at, id).
+-- The INCLUDE columns are exactly those of the OrderSummary projection, so a
+-- history page is an index-only range scan that never touches the heap.
+CREATE INDEX idx_orders_user_created_id ON orders(user_id, created_at DESC, id DESC)
+    INCLUDE (order_id, symbol, side, order_type, quantity, filled_quantity, limit_price, stop_price,
+             avg_fill_price, time_in_force, status, updated_at);
+
+-- Symbol-filtered history seeks on the same key behind the symbol
+CREATE INDEX idx_orders_user_symbol_created_id ON orders(user_id, symbol, created_at DESC, id DESC);
+
+-- Daily order stats per user, trading day (IST) and current status
+CREATE TABLE order_daily_stats (
+    user_id BIGINT NOT NULL,
+    trade_date DATE NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    total_quantity BIGINT NOT NULL DEFAULT 0,
+    filled_quantity BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, trade_date, status)
+);
+
+-- Apply one order's contribution to its (user, day, status) bucket
+CREATE OR REPLACE FUNCTION apply_order_daily_stats(
+    p_user_id BIGINT, p_created_at TIMESTAMP WITH TIME ZONE, p_status VARCHAR,
+    p_count BIGINT, p_quantity BIGINT, p_filled BIGINT)
+RETURNS VOID AS $$
+BEGIN
+    INSERT INTO order_daily_stats (user_id, trade_date, status, order_count, total_quantity, filled_quantity)
+    VALUES (p_user_id, (p_created_at AT TIME ZONE 'Asia/Kolkata')::DATE, p_status, p_count, p_quantity, p_filled)
+    ON CONFLICT (user_id, trade_date, status)
+    DO UPDATE SET
+        order_count = order_daily_stats.order_count + EXCLUDED.order_count,
+        total_quantity = order_daily_stats.total_quantity + EXCLUDED.total_quantity,
+        filled_quantity = order_daily_stats.filled_quantity + EXCLUDED.filled_quantity;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Move an order between buckets on insert, state transition, fill or delete
+CREATE OR REPLACE FUNCTION update_order_daily_stats()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM apply_order_daily_stats(OLD.user_id, OLD.created_at, OLD.status,
+                                        -1, -OLD.quantity, -COALESCE(OLD.filled_quantity, 0));
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM apply_order_daily_stats(NEW.user_id, NEW.created_at, NEW.status,
+                                        1, NEW.quantity, COALESCE(NEW.filled_quantity, 0));
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_orders_daily_stats
+    AFTER INSERT OR DELETE ON orders
+    FOR EACH ROW
+    EXECUTE FUNCTION update_order_daily_stats();
+
+-- JPA rewrites every column on save; only real transitions touch the stats row
+CREATE TRIGGER trg_orders_daily_stats_transition
+    AFTER UPDATE ON orders
+    FOR EACH ROW
+    WHEN (OLD.status IS DISTINCT FROM NEW.status
+          OR OLD.quantity IS DISTINCT FROM NEW.quantity
+          OR OLD.filled_quantity IS DISTINCT FROM NEW.filled_quantity)
+    EXECUTE FUNCTION update_order_daily_stats();
+
+-- Backfill from existing orders
+INSERT INTO order_daily_stats (user_id, trade_date, status, order_count, total_quantity, filled_quantity)
+SELECT user_id, (created_at AT TIME ZONE 'Asia/Kolkata')::DATE, status,
+       COUNT(*), SUM(quantity), SUM(COALESCE(filled_quantity, 0))
+FROM orders
+GROUP BY user_id, (created_at AT TIME ZONE 'Asia/Kolkata')::DATE, status;
+
+COMMENT ON TABLE order_daily_stats IS 'Per-user daily order counts by current status, trigger-maintained';
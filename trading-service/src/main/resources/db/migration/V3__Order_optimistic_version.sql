@@ -0,0 +1,8 @@
+-- Trading Service Database Schema
+-- Version: 2.0.0
+-- Description: Optimistic lock version on orders
+
+-- Bumped by every entity write and by bulk status updates, so a fill, cancel
+-- or broker acknowledgement saved from a stale copy of the order is rejected
+-- instead of silently overwriting the newer state.
+ALTER TABLE orders ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
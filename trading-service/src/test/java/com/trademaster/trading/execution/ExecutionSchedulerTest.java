@@ -0,0 +1,231 @@
+package com.trademaster.trading.execution;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Execution Scheduler Test
+ *
+ * Dispatch order under a single broker slot (strict priority for
+ * risk-reducing work, weighted share between classes, round-robin between
+ * users), shedding when measured service time makes the backlog exceed a
+ * class budget, concurrent submitters racing for the last slots of a full
+ * class, eviction of idle per-user lanes, and the latency-driven
+ * concurrency limit.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+class ExecutionSchedulerTest {
+
+    private ExecutionScheduler scheduler;
+
+    @AfterEach
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void riskFirstThenWeightedShareAndPerUserRoundRobin() throws Exception {
+        scheduler = new ExecutionScheduler(new SimpleMeterRegistry(), 1, 1, 1, TimeUnit.SECONDS.toNanos(1));
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch gate = new CountDownLatch(1);
+
+        // Occupy the only slot while the backlog builds
+        CompletableFuture<String> blocker = scheduler.submit(0L, ExecutionPriority.MANUAL, () -> {
+            gate.await();
+            return "blocker";
+        }, shed -> "shed");
+        waitUntil(() -> scheduler.snapshot().inFlight() == 1);
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            futures.add(submit(order, 1L, ExecutionPriority.ALGO_CHILD, "algoA"));
+        }
+        for (int i = 0; i < 4; i++) {
+            futures.add(submit(order, 2L, ExecutionPriority.ALGO_CHILD, "algoB"));
+        }
+        for (int i = 0; i < 6; i++) {
+            futures.add(submit(order, 3L, ExecutionPriority.MANUAL, "manual"));
+        }
+        futures.add(submit(order, 4L, ExecutionPriority.RISK_REDUCING, "cancel"));
+        assertThat(scheduler.snapshot().depth().get(ExecutionPriority.ALGO_CHILD)).isEqualTo(44);
+
+        gate.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertThat(order).hasSize(51);
+        assertThat(order.get(0)).isEqualTo("cancel");
+        // Manual (weight 6) and algo (weight 3) interleave 2:1 until manual drains
+        assertThat(order.subList(1, 10)).filteredOn("manual"::equals).hasSize(6);
+        // User B's four children are not stuck behind user A's forty
+        assertThat(order.lastIndexOf("algoB")).isLessThan(16);
+    }
+
+    @Test
+    void concurrentSubmittersNeverOverfillAClass() throws Exception {
+        scheduler = new ExecutionScheduler(new SimpleMeterRegistry(), 1, 1, 1, TimeUnit.SECONDS.toNanos(1));
+        CountDownLatch gate = new CountDownLatch(1);
+        scheduler.submit(0L, ExecutionPriority.MANUAL, () -> {
+            gate.await();
+            return "blocker";
+        }, shed -> "shed");
+        waitUntil(() -> scheduler.snapshot().inFlight() == 1);
+
+        // Sixteen submitters race 60,000 risk-reducing orders at a class that holds 50,000
+        int capacity = ExecutionPriority.RISK_REDUCING.capacity();
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> submitters = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            long userId = t;
+            submitters.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 3_750; i++) {
+                    CompletableFuture<String> future = scheduler.submit(userId, ExecutionPriority.RISK_REDUCING,
+                                                                        () -> "done", shed -> "shed");
+                    if (!future.isDone()) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+
+        assertThat(admitted.get()).isEqualTo(capacity);
+        assertThat(scheduler.snapshot().depth().get(ExecutionPriority.RISK_REDUCING)).isEqualTo(capacity);
+        assertThat(scheduler.snapshot().shed().get(ExecutionPriority.RISK_REDUCING)).isEqualTo(60_000L - capacity);
+        gate.countDown();
+    }
+
+    @Test
+    void shedsSheddableClassesWhenServiceTimeGrows() throws Exception {
+        scheduler = new ExecutionScheduler(new SimpleMeterRegistry(), 2, 2, 2, TimeUnit.SECONDS.toNanos(1));
+        // Learn a ~20ms service time
+        List<CompletableFuture<String>> warmup = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            warmup.add(scheduler.submit(1L, ExecutionPriority.MANUAL, () -> sleep(20), shed -> "shed"));
+        }
+        CompletableFuture.allOf(warmup.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        List<CompletableFuture<String>> flood = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            flood.add(scheduler.submit(1L, ExecutionPriority.ALGO_CHILD, () -> sleep(20),
+                                       shed -> shed.action() + ":" + shed.retryAfterMillis()));
+        }
+        long deferred = flood.stream().filter(f -> f.isDone() && f.join().startsWith("DEFER")).count();
+        // 500ms budget at ~10ms per dispatch slot: roughly 50 admitted, the rest deferred
+        assertThat(deferred).isBetween(100L, 170L);
+        assertThat(flood.stream().filter(CompletableFuture::isDone).map(CompletableFuture::join)
+                        .filter(r -> r.startsWith("DEFER")).findFirst().orElseThrow())
+            .matches("DEFER:\\d+");
+
+        // Manual work is measured only against the backlog at its own priority or above
+        CompletableFuture<String> manual = scheduler.submit(2L, ExecutionPriority.MANUAL, () -> "manual", shed -> "shed");
+        CompletableFuture<String> cancel = scheduler.submit(3L, ExecutionPriority.RISK_REDUCING, () -> "cancel", shed -> "shed");
+        assertThat(manual.get(5, TimeUnit.SECONDS)).isEqualTo("manual");
+        assertThat(cancel.get(5, TimeUnit.SECONDS)).isEqualTo("cancel");
+
+        ExecutionScheduler.Snapshot snapshot = scheduler.snapshot();
+        assertThat(snapshot.shed().get(ExecutionPriority.ALGO_CHILD)).isEqualTo(deferred);
+        assertThat(snapshot.serviceMicros()).isGreaterThan(10_000L);
+    }
+
+    @Test
+    void idleUserLanesAreEvicted() throws Exception {
+        scheduler = new ExecutionScheduler(new SimpleMeterRegistry(), 4, 4, 4, TimeUnit.SECONDS.toNanos(1),
+                                           TimeUnit.MILLISECONDS.toNanos(200));
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (long user = 1; user <= 500; user++) {
+            futures.add(scheduler.submit(user, ExecutionPriority.ALGO_CHILD, () -> "done", shed -> "shed"));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertThat(scheduler.laneCount()).isEqualTo(500);
+
+        // A user still submitting keeps their lane
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.laneCount() > 1 && System.nanoTime() < deadline) {
+            scheduler.submit(7L, ExecutionPriority.ALGO_CHILD, () -> "done", shed -> "shed").get(1, TimeUnit.SECONDS);
+            Thread.sleep(10);
+        }
+        assertThat(scheduler.laneCount()).isEqualTo(1);
+
+        // Returning users get a fresh lane and are served as before
+        assertThat(scheduler.submit(1L, ExecutionPriority.ALGO_CHILD, () -> "again", shed -> "shed")
+                            .get(5, TimeUnit.SECONDS)).isEqualTo("again");
+        assertThat(scheduler.laneCount()).isEqualTo(2);
+        waitUntil(() -> scheduler.laneCount() == 0);
+    }
+
+    @Test
+    void concurrencyLimitFollowsMeasuredLatency() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 500, TimeUnit.MILLISECONDS.toNanos(50));
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(5), limit.limit());
+        }
+        int grown = limit.limit();
+        assertThat(grown).isGreaterThan(100);
+
+        // Broker queueing: latency triples against the learned baseline
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(15), limit.limit());
+        }
+        int congested = limit.limit();
+        assertThat(congested).isLessThan(grown / 2);
+
+        // Above the hard target the limit falls to the floor
+        for (int i = 0; i < 500; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(200), limit.limit());
+        }
+        assertThat(limit.limit()).isEqualTo(4);
+
+        // Lightly loaded samples never raise the limit
+        AdaptiveConcurrencyLimit idle = new AdaptiveConcurrencyLimit(20, 4, 500, TimeUnit.MILLISECONDS.toNanos(50));
+        for (int i = 0; i < 200; i++) {
+            idle.onSample(TimeUnit.MILLISECONDS.toNanos(5), 1);
+        }
+        assertThat(idle.limit()).isEqualTo(20);
+    }
+
+    private CompletableFuture<String> submit(List<String> order, Long userId, ExecutionPriority priority, String label) {
+        return scheduler.submit(userId, priority, () -> {
+            order.add(label);
+            return label;
+        }, shed -> "shed");
+    }
+
+    private static String sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+        return "done";
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -0,0 +1,214 @@
+package com.trademaster.trading.execution;
+
+import com.trademaster.trading.dto.OrderExecution;
+import com.trademaster.trading.entity.Order;
+import com.trademaster.trading.model.OrderSide;
+import com.trademaster.trading.model.OrderStatus;
+import com.trademaster.trading.model.OrderType;
+import com.trademaster.trading.repository.OrderJpaRepository;
+import com.trademaster.trading.service.BrokerIntegrationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Iceberg Order Manager Test
+ *
+ * Slice replenishment: a new tranche is released only once the working one
+ * is fully filled, the last tranche carries the remainder, a refresh delay
+ * holds the next tranche back, and cancelling stops the iceberg, including
+ * when the cancel arrives while a tranche is still being submitted.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+class IcebergOrderManagerTest {
+
+    private static final BigDecimal PRICE = new BigDecimal("2500.00");
+
+    private final List<Order> submitted = new CopyOnWriteArrayList<>();
+    private final List<String> cancelled = new CopyOnWriteArrayList<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private volatile CountDownLatch submitGate = new CountDownLatch(0);
+
+    private ThreadPoolTaskScheduler taskScheduler;
+    private IcebergOrderManager manager;
+    private Order parent;
+
+    @BeforeEach
+    void setUp() {
+        OrderJpaRepository orderRepository = mock(OrderJpaRepository.class);
+        when(orderRepository.save(any(Order.class))).thenAnswer(inv -> {
+            Order order = inv.getArgument(0);
+            if (order.getId() == null) {
+                order.setId(nextId.incrementAndGet());
+            }
+            return order;
+        });
+        when(orderRepository.findById(anyLong())).thenAnswer(inv -> submitted.stream()
+            .filter(child -> child.getId().equals(inv.getArgument(0)))
+            .findFirst());
+
+        BrokerIntegrationService broker = new BrokerIntegrationService() {
+            @Override
+            public String submitOrder(Order order) {
+                submitted.add(order);
+                try {
+                    submitGate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "BRK-" + submitted.size();
+            }
+
+            @Override
+            public void cancelOrder(String brokerOrderId) {
+                cancelled.add(brokerOrderId);
+            }
+
+            @Override
+            public String modifyOrder(String brokerOrderId, Order modifiedOrder) {
+                return brokerOrderId;
+            }
+        };
+
+        taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.initialize();
+        manager = new IcebergOrderManager(orderRepository, broker, new OrderLockRegistry(), taskScheduler);
+
+        parent = Order.builder()
+            .id(1L)
+            .userId(7L)
+            .symbol("RELIANCE")
+            .exchange("NSE")
+            .brokerName("ZERODHA")
+            .orderType(OrderType.LIMIT)
+            .side(OrderSide.BUY)
+            .quantity(1_000)
+            .limitPrice(PRICE)
+            .status(OrderStatus.ACKNOWLEDGED)
+            .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskScheduler.shutdown();
+    }
+
+    @Test
+    void releasesTheNextSliceOnlyWhenTheWorkingOneIsFilled() throws Exception {
+        CompletableFuture<List<OrderExecution>> completion = manager.start(7L, parent, 300, 0);
+
+        assertThat(submitted).singleElement().extracting(Order::getQuantity).isEqualTo(300);
+        assertThat(manager.getHiddenQuantity(parent.getOrderId())).isEqualTo(700);
+
+        // A partial fill leaves the slice working
+        assertThat(manager.onChildFill(submitted.get(0), 100, PRICE)).isTrue();
+        assertThat(submitted).hasSize(1);
+
+        manager.onChildFill(submitted.get(0), 200, PRICE);
+        awaitSubmitted(2);
+        assertThat(manager.getHiddenQuantity(parent.getOrderId())).isEqualTo(400);
+
+        // A late fill on the finished slice is not counted again
+        manager.onChildFill(submitted.get(0), 50, PRICE);
+        assertThat(submitted).hasSize(2);
+
+        manager.onChildFill(submitted.get(1), 300, PRICE);
+        awaitSubmitted(3);
+        manager.onChildFill(submitted.get(2), 300, PRICE);
+        awaitSubmitted(4);
+        assertThat(submitted).extracting(Order::getQuantity).containsExactly(300, 300, 300, 100);
+        assertThat(manager.getHiddenQuantity(parent.getOrderId())).isZero();
+        assertThat(completion).isNotDone();
+
+        manager.onChildFill(submitted.get(3), 100, PRICE);
+        List<OrderExecution> executions = completion.get(1, TimeUnit.SECONDS);
+
+        assertThat(executions).extracting(OrderExecution::getExecutedQuantity).containsExactly(100, 200, 300, 300, 100);
+        assertThat(executions).extracting(OrderExecution::getRemainingQuantity).containsExactly(900, 700, 400, 100, 0);
+        assertThat(executions.get(executions.size() - 1).getExecutionStatus()).isEqualTo("FILLED");
+        assertThat(submitted).allMatch(child -> child.getSide() == OrderSide.BUY && PRICE.equals(child.getLimitPrice()));
+    }
+
+    @Test
+    void refreshDelayHoldsBackTheNextSlice() throws Exception {
+        manager.start(7L, parent, 400, 150);
+
+        long filledAt = System.nanoTime();
+        manager.onChildFill(submitted.get(0), 400, PRICE);
+        assertThat(submitted).hasSize(1);
+
+        while (submitted.size() < 2 && System.nanoTime() - filledAt < TimeUnit.SECONDS.toNanos(5)) {
+            Thread.sleep(5);
+        }
+        assertThat(submitted).hasSize(2);
+        assertThat(System.nanoTime() - filledAt).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(150));
+        assertThat(manager.getHiddenQuantity(parent.getOrderId())).isEqualTo(200);
+    }
+
+    @Test
+    void cancelStopsReplenishmentAndCancelsTheWorkingSlice() throws Exception {
+        CompletableFuture<List<OrderExecution>> completion = manager.start(7L, parent, 300, 0);
+        manager.onChildFill(submitted.get(0), 300, PRICE);
+        await(() -> submitted.size() == 2 && submitted.get(1).getStatus() == OrderStatus.ACKNOWLEDGED);
+
+        assertThat(manager.cancel(parent.getOrderId())).isTrue();
+
+        assertThat(completion.get(1, TimeUnit.SECONDS)).hasSize(1);
+        assertThat(cancelled).containsExactly(submitted.get(1).getBrokerOrderId());
+        assertThat(submitted.get(1).getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(manager.onChildFill(submitted.get(1), 300, PRICE)).isFalse();
+        assertThat(submitted).hasSize(2);
+        assertThat(manager.cancel(parent.getOrderId())).isFalse();
+    }
+
+    @Test
+    void cancelDuringSubmissionCancelsTheTrancheOnceSubmitted() throws Exception {
+        CompletableFuture<List<OrderExecution>> completion = manager.start(7L, parent, 300, 0);
+
+        // The broker holds the second tranche's submission open
+        submitGate = new CountDownLatch(1);
+        manager.onChildFill(submitted.get(0), 300, PRICE);
+        awaitSubmitted(2);
+
+        assertThat(manager.cancel(parent.getOrderId())).isTrue();
+        assertThat(completion.get(1, TimeUnit.SECONDS)).hasSize(1);
+        assertThat(cancelled).isEmpty();
+
+        submitGate.countDown();
+        await(() -> submitted.get(1).getStatus() == OrderStatus.CANCELLED);
+        assertThat(cancelled).containsExactly(submitted.get(1).getBrokerOrderId());
+        assertThat(manager.findParentOrderId(submitted.get(1).getId())).isEmpty();
+        assertThat(submitted).hasSize(2);
+    }
+
+    private void awaitSubmitted(int count) throws InterruptedException {
+        await(() -> submitted.size() >= count);
+        assertThat(submitted).hasSize(count);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
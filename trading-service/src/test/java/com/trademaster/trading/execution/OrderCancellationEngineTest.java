@@ -0,0 +1,260 @@
+package com.trademaster.trading.execution;
+
+import com.trademaster.trading.dto.OrderExecution;
+import com.trademaster.trading.entity.Order;
+import com.trademaster.trading.model.OrderSide;
+import com.trademaster.trading.model.OrderStatus;
+import com.trademaster.trading.model.OrderType;
+import com.trademaster.trading.repository.OrderJpaRepository;
+import com.trademaster.trading.service.BrokerIntegrationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Order Cancellation Engine Test
+ *
+ * Cancel-replace racing a fill. The fill runs in a transaction whose writes
+ * become visible only at a deliberately slow commit; cancel-replace starts
+ * once the fill is written, so it must wait for the commit and size the
+ * replacement from the committed fill. Bulk cancel only marks broker-confirmed
+ * cancels and hands iceberg tranches to the iceberg manager.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+class OrderCancellationEngineTest {
+
+    private static final long ORDER_ID = 1L;
+    private static final long COMMIT_MILLIS = 200;
+
+    // Committed rows; a transaction's writes are buffered per thread until commit
+    private final Map<Long, Order> committed = new ConcurrentHashMap<>();
+    private final ThreadLocal<List<Order>> pendingWrites = new ThreadLocal<>();
+    private final AtomicLong nextId = new AtomicLong(100);
+    private final List<Order> submitted = new ArrayList<>();
+    private final List<String> brokerCancels = new ArrayList<>();
+
+    private OrderLockRegistry lockRegistry;
+    private OrderJpaRepository orderRepository;
+    private IcebergOrderManager icebergOrderManager;
+    private OrderCancellationEngine engine;
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Buffers writes per transaction and publishes them at commit, after a delay
+     */
+    private final class DelayedCommitTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            pendingWrites.set(new ArrayList<>());
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            sleep(COMMIT_MILLIS);
+            pendingWrites.get().forEach(order -> committed.put(order.getId(), copy(order)));
+            pendingWrites.remove();
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            pendingWrites.remove();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        committed.put(ORDER_ID, Order.builder()
+            .id(ORDER_ID)
+            .userId(1L)
+            .symbol("RELIANCE")
+            .exchange("NSE")
+            .brokerName("ZERODHA")
+            .brokerOrderId("BRK-1")
+            .orderType(OrderType.LIMIT)
+            .side(OrderSide.BUY)
+            .quantity(100)
+            .filledQuantity(0)
+            .limitPrice(new BigDecimal("2500.00"))
+            .status(OrderStatus.ACKNOWLEDGED)
+            .build());
+
+        orderRepository = mock(OrderJpaRepository.class);
+        when(orderRepository.findById(anyLong()))
+            .thenAnswer(inv -> Optional.ofNullable(committed.get(inv.<Long>getArgument(0))).map(this::copy));
+        when(orderRepository.save(any(Order.class))).thenAnswer(inv -> {
+            Order order = inv.getArgument(0);
+            if (order.getId() == null) {
+                order.setId(nextId.incrementAndGet());
+            }
+            List<Order> pending = pendingWrites.get();
+            if (pending != null) {
+                pending.add(order);
+            } else {
+                committed.put(order.getId(), copy(order));
+            }
+            return order;
+        });
+
+        BrokerIntegrationService broker = new BrokerIntegrationService() {
+            @Override
+            public synchronized String submitOrder(Order order) {
+                submitted.add(copy(order));
+                return "BRK-" + order.getOrderId();
+            }
+
+            @Override
+            public synchronized void cancelOrder(String brokerOrderId) {
+                brokerCancels.add(brokerOrderId);
+            }
+
+            @Override
+            public String modifyOrder(String brokerOrderId, Order modifiedOrder) {
+                return brokerOrderId;
+            }
+        };
+
+        lockRegistry = new OrderLockRegistry();
+        icebergOrderManager = mock(IcebergOrderManager.class);
+        engine = new OrderCancellationEngine(orderRepository, broker, lockRegistry, icebergOrderManager,
+            new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor()));
+        transactionTemplate = new TransactionTemplate(new DelayedCommitTransactionManager());
+    }
+
+    @Test
+    void cancelReplaceWaitsForTheFillToCommit() throws Exception {
+        CountDownLatch fillWritten = new CountDownLatch(1);
+        CompletableFuture<Order> fill = CompletableFuture.supplyAsync(() -> fill(60, fillWritten, false));
+        assertThat(fillWritten.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // The fill is written but its commit is still in flight
+        OrderExecution replacement = engine.cancelReplace(ORDER_ID, Order.builder().quantity(100).build());
+        fill.get(5, TimeUnit.SECONDS);
+
+        assertThat(replacement.getOriginalQuantity()).isEqualTo(40);
+        assertThat(submitted).singleElement().extracting(Order::getQuantity).isEqualTo(40);
+        assertThat(committed.get(ORDER_ID).getFilledQuantity()).isEqualTo(60);
+        assertThat(committed.get(ORDER_ID).getStatus()).isEqualTo(OrderStatus.CANCELLED);
+    }
+
+    @Test
+    void rolledBackFillReleasesTheLockWithoutChangingTheReplacement() throws Exception {
+        CountDownLatch fillWritten = new CountDownLatch(1);
+        CompletableFuture<Order> fill = CompletableFuture.supplyAsync(() -> fill(60, fillWritten, true));
+        assertThat(fillWritten.await(5, TimeUnit.SECONDS)).isTrue();
+
+        OrderExecution replacement = engine.cancelReplace(ORDER_ID, Order.builder().quantity(100).build());
+
+        assertThatThrownBy(() -> fill.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(replacement.getOriginalQuantity()).isEqualTo(100);
+        assertThat(committed.get(ORDER_ID).getFilledQuantity()).isZero();
+    }
+
+    @Test
+    void bulkCancelMarksOnlyBrokerConfirmedCancelsAndRoutesIcebergTranches() {
+        Order unacknowledged = copy(committed.get(ORDER_ID));
+        unacknowledged.setId(2L);
+        unacknowledged.setBrokerOrderId(null);
+        when(orderRepository.findAllById(List.of(ORDER_ID, 2L)))
+            .thenReturn(List.of(copy(committed.get(ORDER_ID)), unacknowledged));
+        when(orderRepository.markCancelled(any(), any())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+        when(icebergOrderManager.findParentOrderId(3L)).thenReturn(Optional.of("TM-ICEBERG"));
+        when(icebergOrderManager.cancel("TM-ICEBERG")).thenReturn(true);
+
+        Map<Long, Boolean> results = engine.bulkCancel(List.of(ORDER_ID, 2L, 3L));
+
+        assertThat(results).containsExactlyInAnyOrderEntriesOf(Map.of(ORDER_ID, true, 2L, false, 3L, true));
+        assertThat(brokerCancels).containsExactly("BRK-1");
+        verify(orderRepository).markCancelled(eq(List.of(ORDER_ID)), any());
+        verify(icebergOrderManager).cancel("TM-ICEBERG");
+    }
+
+    @Test
+    void cancelReplaceRejectsIcebergTranches() {
+        when(icebergOrderManager.findParentOrderId(ORDER_ID)).thenReturn(Optional.of("TM-ICEBERG"));
+
+        OrderExecution replacement = engine.cancelReplace(ORDER_ID, Order.builder().quantity(100).build());
+
+        assertThat(replacement.getExecutionStatus()).isEqualTo("REJECTED");
+        assertThat(brokerCancels).isEmpty();
+        assertThat(committed.get(ORDER_ID).getStatus()).isEqualTo(OrderStatus.ACKNOWLEDGED);
+    }
+
+    /**
+     * Apply a fill the way OrderServiceImpl.processOrderFill does, inside a transaction
+     */
+    private Order fill(int quantity, CountDownLatch written, boolean failAfterWrite) {
+        return transactionTemplate.execute(status -> lockRegistry.withOrderLockUntilCompletion(ORDER_ID, () -> {
+            Order order = copy(committed.get(ORDER_ID));
+            if (!order.getStatus().isTerminal()) {
+                order.setFilledQuantity(order.getFilledQuantity() + quantity);
+                order.setStatus(OrderStatus.PARTIALLY_FILLED);
+                pendingWrites.get().add(order);
+            }
+            written.countDown();
+            sleep(COMMIT_MILLIS / 4); // Give cancel-replace time to reach the lock
+            if (failAfterWrite) {
+                throw new IllegalStateException("Portfolio update failed");
+            }
+            return order;
+        }));
+    }
+
+    private Order copy(Order order) {
+        return Order.builder()
+            .id(order.getId())
+            .orderId(order.getOrderId())
+            .userId(order.getUserId())
+            .symbol(order.getSymbol())
+            .exchange(order.getExchange())
+            .brokerName(order.getBrokerName())
+            .brokerOrderId(order.getBrokerOrderId())
+            .orderType(order.getOrderType())
+            .side(order.getSide())
+            .quantity(order.getQuantity())
+            .filledQuantity(order.getFilledQuantity())
+            .limitPrice(order.getLimitPrice())
+            .status(order.getStatus())
+            .build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.trademaster.trading.execution;
+
+import com.trademaster.trading.entity.Order;
+import com.trademaster.trading.model.OrderSide;
+import com.trademaster.trading.model.OrderStatus;
+import com.trademaster.trading.model.OrderType;
+import com.trademaster.trading.repository.OrderJpaRepository;
+import com.trademaster.trading.service.BrokerIntegrationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Order Cancellation Engine Throughput Test
+ *
+ * Benchmarks bulk cancel against a stub broker with a fixed mass-cancel
+ * round trip. Target: 10,000 cancels/second.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+class OrderCancellationEngineThroughputTest {
+
+    private static final int ORDER_COUNT = 10_000;
+    private static final String[] BROKERS = {"ZERODHA", "ANGEL_ONE", "ICICI_DIRECT", "UPSTOX"};
+    private static final String[] EXCHANGES = {"NSE", "BSE"};
+
+    private OrderJpaRepository orderRepository;
+    private StubBroker broker;
+    private OrderCancellationEngine engine;
+    private List<Long> orderIds;
+
+    /**
+     * Stub broker: 2ms per mass-cancel round trip, counts calls
+     */
+    private static class StubBroker implements BrokerIntegrationService {
+        private final AtomicInteger cancelRoundTrips = new AtomicInteger();
+
+        @Override public String submitOrder(Order order) { return "BRK-" + order.getOrderId(); }
+        @Override public void cancelOrder(String brokerOrderId) { cancelRoundTrips.incrementAndGet(); }
+        @Override public String modifyOrder(String brokerOrderId, Order modifiedOrder) { return brokerOrderId; }
+
+        @Override
+        public Map<String, Boolean> cancelOrders(String brokerName, List<String> brokerOrderIds) {
+            cancelRoundTrips.incrementAndGet();
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Map<String, Boolean> results = new HashMap<>();
+            brokerOrderIds.forEach(id -> results.put(id, true));
+            return results;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        List<Order> orders = new ArrayList<>(ORDER_COUNT);
+        orderIds = new ArrayList<>(ORDER_COUNT);
+        for (long id = 1; id <= ORDER_COUNT; id++) {
+            orders.add(Order.builder()
+                .id(id)
+                .userId(1L)
+                .symbol("RELIANCE")
+                .exchange(EXCHANGES[(int) (id % EXCHANGES.length)])
+                .brokerName(BROKERS[(int) (id % BROKERS.length)])
+                .brokerOrderId("BRK-" + id)
+                .orderType(OrderType.LIMIT)
+                .side(OrderSide.BUY)
+                .quantity(10)
+                .limitPrice(new BigDecimal("2500.00"))
+                .status(OrderStatus.ACKNOWLEDGED)
+                .build());
+            orderIds.add(id);
+        }
+
+        orderRepository = mock(OrderJpaRepository.class);
+        when(orderRepository.findAllById(anyList())).thenReturn(orders);
+        when(orderRepository.markCancelled(anyList(), any())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+
+        broker = new StubBroker();
+        engine = new OrderCancellationEngine(orderRepository, broker, new OrderLockRegistry(),
+            mock(IcebergOrderManager.class),
+            new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor()));
+    }
+
+    @Test
+    void bulkCancelSustainsTenThousandCancelsPerSecond() {
+        engine.bulkCancel(orderIds); // Warm-up
+
+        long start = System.nanoTime();
+        Map<Long, Boolean> results = engine.bulkCancel(orderIds);
+        long elapsedNanos = System.nanoTime() - start;
+
+        double cancelsPerSecond = ORDER_COUNT / (elapsedNanos / 1_000_000_000.0);
+        System.out.printf("Bulk cancel: %d orders in %.2f ms (%.0f cancels/sec)%n",
+                          ORDER_COUNT, elapsedNanos / 1_000_000.0, cancelsPerSecond);
+
+        assertThat(results).hasSize(ORDER_COUNT).doesNotContainValue(false);
+        assertThat(cancelsPerSecond).isGreaterThan(10_000);
+    }
+
+    @Test
+    void bulkCancelIssuesOneBrokerRoundTripPerVenueGroup() {
+        engine.bulkCancel(orderIds);
+
+        // 4 brokers x 2 exchanges, but id parity ties broker and exchange: 4 distinct groups
+        assertThat(broker.cancelRoundTrips.get()).isEqualTo(4);
+    }
+}
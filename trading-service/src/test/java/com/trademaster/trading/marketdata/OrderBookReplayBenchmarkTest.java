@@ -0,0 +1,182 @@
+package com.trademaster.trading.marketdata;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Order Book Replay Benchmark Test
+ *
+ * Signal arithmetic on a hand-built book, then a replay of a recorded-style
+ * level stream (random walk of the touch with adds, cancels and touch
+ * depletions across several venues) measuring per-update latency and
+ * checking imbalance and microprice against a brute-force book at
+ * checkpoints.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+class OrderBookReplayBenchmarkTest {
+
+    private static final double TICK = 0.05;
+    private static final int BAND = 10;
+    private static final int VENUES = 3;
+    private static final int UPDATES = 500_000;
+
+    @Test
+    void signalsFromHandBuiltBook() {
+        OrderBookModel model = new OrderBookModel(TICK, 256, 2);
+        model.onLevelUpdate("INFY", "NSE", true, 100.00, 300, 0L);
+        model.onLevelUpdate("INFY", "NSE", true, 99.95, 500, 1L);
+        model.onLevelUpdate("INFY", "NSE", true, 99.90, 900, 2L); // Outside the 2-tick band
+        model.onLevelUpdate("INFY", "NSE", false, 100.10, 100, 3L);
+        BookSignals signals = model.onLevelUpdate("INFY", "NSE", false, 100.15, 100, 4L);
+
+        assertThat(signals.bestBid()).isCloseTo(100.00, within(1e-9));
+        assertThat(signals.bestAsk()).isCloseTo(100.10, within(1e-9));
+        assertThat(signals.bidDepth()).isEqualTo(800);
+        assertThat(signals.askDepth()).isEqualTo(200);
+        assertThat(signals.imbalance()).isCloseTo(0.6, within(1e-12));
+        // (100.00 * 100 + 100.10 * 300) / 400: leans toward the thin ask
+        assertThat(signals.microprice()).isCloseTo(100.075, within(1e-9));
+
+        // Emptying the best bid falls back to the next level
+        signals = model.onLevelUpdate("INFY", "NSE", true, 100.00, 0, 5L);
+        assertThat(signals.bestBid()).isCloseTo(99.95, within(1e-9));
+        assertThat(signals.bidDepth()).isEqualTo(1400);
+
+        // Square-root impact: quadrupling the order doubles the move
+        model.onLevelUpdate("INFY", "BSE", false, 100.05, 400, 6L);
+        BookSignals consolidated = model.signals("INFY");
+        assertThat(consolidated.bestAsk()).isCloseTo(100.05, within(1e-9));
+        assertThat(consolidated.askDepth()).isEqualTo(600);
+        assertThat(consolidated.impactFraction(4_000))
+            .isCloseTo(2 * consolidated.impactFraction(1_000), within(1e-12));
+        assertThat(consolidated.depthConsumed(true, 300)).isCloseTo(0.5, within(1e-12));
+    }
+
+    @Test
+    void replayLatencyAndAccuracy() {
+        OrderBookModel model = new OrderBookModel(TICK, 4096, BAND);
+        BruteForceBook[] reference = new BruteForceBook[VENUES];
+        for (int v = 0; v < VENUES; v++) {
+            reference[v] = new BruteForceBook();
+        }
+        SplittableRandom random = new SplittableRandom(11L);
+        long[] mid = new long[VENUES];
+        Arrays.fill(mid, 20_000L); // 1000.00 in ticks
+
+        // Warm up on a separate symbol so the measured replay starts cold-book but hot-code
+        for (int i = 0; i < 100_000; i++) {
+            int v = random.nextInt(VENUES);
+            Update u = next(random, mid, v);
+            model.onLevelUpdate("WARM", "V" + v, u.bid, u.tick * TICK, u.size, i);
+        }
+        Arrays.fill(mid, 20_000L);
+
+        String[] venues = {"V0", "V1", "V2"};
+        long[] latencies = new long[UPDATES];
+        int checkpoints = 0;
+        for (int i = 0; i < UPDATES; i++) {
+            int v = random.nextInt(VENUES);
+            Update u = next(random, mid, v);
+            long start = System.nanoTime();
+            BookSignals signals = model.onLevelUpdate("RELIANCE", venues[v], u.bid, u.tick * TICK, u.size, i);
+            latencies[i] = System.nanoTime() - start;
+            reference[v].set(u.bid, u.tick, u.size);
+
+            if (i % 997 == 0) {
+                checkpoints++;
+                BruteForceBook book = reference[v];
+                assertThat(signals.bidDepth()).isEqualTo(book.bidDepth());
+                assertThat(signals.askDepth()).isEqualTo(book.askDepth());
+                assertThat(signals.imbalance()).isCloseTo(book.imbalance(), within(1e-12));
+                assertThat(signals.microprice()).isCloseTo(book.microprice(), within(1e-9));
+            }
+        }
+        Arrays.sort(latencies);
+        long p50 = latencies[UPDATES / 2];
+        long p99 = latencies[(int) (UPDATES * 0.99)];
+        System.out.printf("L2 replay of %d updates over %d venues: p50=%dns p99=%dns (%d checkpoints)%n",
+                          UPDATES, VENUES, p50, p99, checkpoints);
+
+        assertThat(p99).isLessThan(100_000L);
+        BookSignals consolidated = model.signals("RELIANCE");
+        assertThat(consolidated.bidDepth()).isEqualTo(
+            model.signals("RELIANCE", "V0").bidDepth() + model.signals("RELIANCE", "V1").bidDepth()
+                + model.signals("RELIANCE", "V2").bidDepth());
+        assertThat(consolidated.impactCoefficient()).isPositive();
+    }
+
+    // ========== Synthetic Feed ==========
+
+    private record Update(boolean bid, long tick, long size) {
+    }
+
+    /**
+     * Touch-centred random feed: mostly near-touch adds and cancels, with
+     * occasional touch depletion that moves the mid by a tick
+     */
+    private static Update next(SplittableRandom random, long[] mid, int venue) {
+        boolean bid = random.nextBoolean();
+        int roll = random.nextInt(100);
+        if (roll < 5) {
+            mid[venue] += bid ? -1 : 1;
+            return new Update(bid, bid ? mid[venue] : mid[venue] + 1, 0L);
+        }
+        int distance = (int) Math.min(40, Math.abs(random.nextGaussian() * 6));
+        long tick = bid ? mid[venue] - distance : mid[venue] + 1 + distance;
+        long size = roll < 30 ? 0L : 1 + random.nextInt(2_000);
+        return new Update(bid, tick, size);
+    }
+
+    /**
+     * Sorted-scan reference over a plain map of levels
+     */
+    private static final class BruteForceBook {
+
+        private final TreeMap<Long, Long> bids = new TreeMap<>();
+        private final TreeMap<Long, Long> asks = new TreeMap<>();
+
+        void set(boolean bid, long tick, long size) {
+            TreeMap<Long, Long> side = bid ? bids : asks;
+            if (size == 0) {
+                side.remove(tick);
+            } else {
+                side.put(tick, size);
+            }
+        }
+
+        long bidDepth() {
+            return bids.isEmpty() ? 0 : bids.headMap(bids.lastKey(), true).tailMap(bids.lastKey() - BAND + 1, true)
+                .values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        long askDepth() {
+            return asks.isEmpty() ? 0 : asks.subMap(asks.firstKey(), true, asks.firstKey() + BAND - 1, true)
+                .values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        double imbalance() {
+            long b = bidDepth();
+            long a = askDepth();
+            return b + a > 0 ? (double) (b - a) / (b + a) : 0.0;
+        }
+
+        double microprice() {
+            if (bids.isEmpty() || asks.isEmpty()) {
+                return bids.isEmpty() ? (asks.isEmpty() ? 0.0 : asks.firstKey() * TICK) : bids.lastKey() * TICK;
+            }
+            double bid = bids.lastKey() * TICK;
+            double ask = asks.firstKey() * TICK;
+            long bidSize = bids.lastEntry().getValue();
+            long askSize = asks.firstEntry().getValue();
+            return (bid * askSize + ask * bidSize) / (bidSize + askSize);
+        }
+    }
+}
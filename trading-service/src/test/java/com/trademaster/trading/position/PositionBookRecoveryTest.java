@@ -0,0 +1,115 @@
+package com.trademaster.trading.position;
+
+import com.trademaster.trading.repository.PortfolioHoldingRepository;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Position Book Recovery Test
+ *
+ * The book is seeded from the stored holdings on startup (per-exchange rows
+ * combined, flat holdings keeping only their realized P&L), and a fill
+ * redelivered under the same execution id is applied once.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+class PositionBookRecoveryTest {
+
+    private static final String SCHEMA = """
+        CREATE TABLE portfolios (
+            id BIGSERIAL PRIMARY KEY,
+            user_id BIGINT NOT NULL,
+            symbol VARCHAR(20) NOT NULL,
+            exchange VARCHAR(10) NOT NULL,
+            quantity INTEGER NOT NULL,
+            avg_price DECIMAL(15,4) NOT NULL CHECK (avg_price > 0),
+            realized_pnl DECIMAL(20,4) DEFAULT 0,
+            last_price DECIMAL(15,4),
+            last_updated TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
+            UNIQUE(user_id, symbol, exchange)
+        )
+        """;
+
+    private JdbcConnectionPool dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private PositionBook book;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = JdbcConnectionPool.create(
+            "jdbc:h2:mem:positions-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(SCHEMA);
+        book = new PositionBook();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.dispose();
+    }
+
+    @Test
+    void seedsOpenAndClosedHoldingsFromTheStore() {
+        holding(1L, "INFY", "NSE", 100, 10.0, 50.0, 11.0);
+        holding(1L, "INFY", "BSE", 100, 12.0, 0.0, 11.5);
+        holding(1L, "TCS", "NSE", 0, 20.0, 75.0, 21.0);
+        holding(2L, "TCS", "NSE", -10, 20.0, 0.0, 19.0);
+
+        new PositionBookLoader(book, new PortfolioHoldingRepository(jdbcTemplate)).seed();
+
+        assertThat(book.getPositionCount()).isEqualTo(2);
+        assertThat(book.getPosition(1L, "INFY")).hasValueSatisfying(infy -> {
+            assertThat(infy.quantity()).isEqualTo(200);
+            assertThat(infy.averageCost()).isCloseTo(11.0, within(1e-9));
+            assertThat(infy.lastPrice()).isEqualTo(11.5);
+            assertThat(infy.realizedPnL()).isCloseTo(50.0, within(1e-9));
+        });
+        assertThat(book.getPosition(1L, "TCS")).hasValueSatisfying(tcs -> {
+            assertThat(tcs.isFlat()).isTrue();
+            assertThat(tcs.realizedPnL()).isCloseTo(75.0, within(1e-9));
+        });
+        assertThat(book.getOpenPositions(2L)).singleElement()
+            .satisfies(position -> assertThat(position.quantity()).isEqualTo(-10));
+
+        UserPnL pnl = book.getUserPnL(1L);
+        assertThat(pnl.realizedPnL()).isCloseTo(125.0, within(1e-9));
+        assertThat(pnl.unrealizedPnL()).isCloseTo(100.0, within(1e-9));
+        assertThat(pnl.openPositions()).isEqualTo(1);
+
+        // Reopening the flat symbol carries its stored realized P&L
+        PositionDelta reopen = book.applyFill(1L, "TCS", "T-1", 5, 22.0, 2L).orElseThrow();
+        assertThat(reopen.position().realizedPnL()).isCloseTo(75.0, within(1e-9));
+        assertThat(book.getUserPnL(1L).realizedPnL()).isCloseTo(125.0, within(1e-9));
+    }
+
+    @Test
+    void redeliveredFillIsAppliedOnce() {
+        assertThat(book.applyFill(1L, "INFY", "ORD-1:100", 100, 10.0, 1L)).isPresent();
+        assertThat(book.applyFill(1L, "INFY", "ORD-1:100", 100, 10.0, 2L)).isEmpty();
+        assertThat(book.applyFill(1L, "INFY", "ORD-2:60", -60, 11.0, 3L)).isPresent();
+        assertThat(book.applyFill(1L, "INFY", "ORD-2:60", -60, 11.0, 4L)).isEmpty();
+
+        assertThat(book.getPosition(1L, "INFY")).hasValueSatisfying(infy -> {
+            assertThat(infy.quantity()).isEqualTo(40);
+            assertThat(infy.realizedPnL()).isCloseTo(60.0, within(1e-9));
+        });
+        assertThat(book.getUserPnL(1L).realizedPnL()).isCloseTo(60.0, within(1e-9));
+    }
+
+    private void holding(Long userId, String symbol, String exchange, int quantity, double avgPrice,
+                         double realizedPnL, double lastPrice) {
+        jdbcTemplate.update("""
+            INSERT INTO portfolios (user_id, symbol, exchange, quantity, avg_price, realized_pnl, last_price)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """, userId, symbol, exchange, quantity, avgPrice, realizedPnL, lastPrice);
+    }
+}
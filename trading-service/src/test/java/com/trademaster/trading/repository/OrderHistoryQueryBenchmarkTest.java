@@ -0,0 +1,284 @@
+package com.trademaster.trading.repository;
+
+import com.trademaster.trading.dto.OrderHistoryPage;
+import com.trademaster.trading.dto.OrderStatusCount;
+import com.trademaster.trading.dto.OrderSummary;
+import com.trademaster.trading.entity.Order;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Order History Query Benchmark Test
+ *
+ * Loads 10M orders into PostgreSQL (one active trader with 500,000 orders
+ * over five years, the rest spread across 20,000 users) through the real
+ * Flyway migrations, then times the real {@link OrderJpaRepository} queries
+ * (Spring Data over Hibernate, exactly as the service calls them):
+ * - A deep offset page against a keyset seek to the same rows, and checks the
+ *   SQL Hibernate rendered for the seek is an index-only scan on
+ *   idx_orders_user_created_id
+ * - Grouped status counts and the daily count from order_daily_stats against
+ *   the equivalent scans of orders
+ * - Stats maintenance across a state transition
+ *
+ * Row count can be lowered with -Dorders.benchmark.rows for local runs.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class OrderHistoryQueryBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("orders.benchmark.rows", 10_000_000);
+    private static final long ACTIVE_USER = 42L;
+    private static final int ACTIVE_USER_ORDERS = ROWS / 20;
+    private static final int PAGE = 50;
+    private static final int RUNS = 25;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine")
+        .withCommand("postgres", "-c", "shared_buffers=512MB", "-c", "max_wal_size=4GB", "-c", "fsync=off");
+
+    private static HikariDataSource dataSource;
+    private static LocalContainerEntityManagerFactoryBean entityManagerFactory;
+    private static OrderJpaRepository orderRepository;
+    private static volatile String lastSql;
+
+    @BeforeAll
+    static void loadOrders() throws SQLException {
+        Flyway.configure()
+            .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+            .locations("classpath:db/migration")
+            .load()
+            .migrate();
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(POSTGRES.getJdbcUrl());
+        config.setUsername(POSTGRES.getUsername());
+        config.setPassword(POSTGRES.getPassword());
+        dataSource = new HikariDataSource(config);
+
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            // Bulk load without per-row audit and stats triggers, then backfill stats in one pass
+            statement.execute("ALTER TABLE orders DISABLE TRIGGER USER");
+            statement.execute(
+                "INSERT INTO orders (order_id, user_id, symbol, exchange, order_type, side, quantity, " +
+                "time_in_force, status, filled_quantity, created_at, updated_at) " +
+                "SELECT 'TM' || g, " +
+                "       CASE WHEN g <= " + ACTIVE_USER_ORDERS + " THEN " + ACTIVE_USER + " ELSE 1000 + g % 20000 END, " +
+                "       'SYM' || (g % 500), 'NSE', 'MARKET', CASE WHEN g % 2 = 0 THEN 'BUY' ELSE 'SELL' END, " +
+                "       1 + g % 100, 'DAY', " +
+                "       (ARRAY['FILLED','CANCELLED','REJECTED','EXPIRED','ACKNOWLEDGED','FILLED'])[1 + g % 6], " +
+                "       CASE WHEN g % 6 IN (0, 5) THEN 1 + g % 100 ELSE 0 END, " +
+                "       ts, ts " +
+                "FROM generate_series(1, " + ROWS + ") g, " +
+                "     LATERAL (SELECT TIMESTAMPTZ '2026-06-30 10:00:00+05:30' - " +
+                "              (g % " + ACTIVE_USER_ORDERS + ") * INTERVAL '5 minutes' - (g / " + ACTIVE_USER_ORDERS + ") * INTERVAL '1 second' AS ts) t");
+            statement.execute("DELETE FROM order_daily_stats");
+            statement.execute(
+                "INSERT INTO order_daily_stats (user_id, trade_date, status, order_count, total_quantity, filled_quantity) " +
+                "SELECT user_id, (created_at AT TIME ZONE 'Asia/Kolkata')::DATE, status, " +
+                "       COUNT(*), SUM(quantity), SUM(COALESCE(filled_quantity, 0)) " +
+                "FROM orders GROUP BY 1, 2, 3");
+            statement.execute("ALTER TABLE orders ENABLE TRIGGER USER");
+            statement.execute("VACUUM ANALYZE orders");
+            statement.execute("VACUUM ANALYZE order_daily_stats");
+        }
+        System.out.printf("Loaded %d orders in %.1fs%n", ROWS, (System.nanoTime() - start) / 1e9);
+
+        // The repository the service uses, over a persistence unit holding only the order entity
+        entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setDataSource(dataSource);
+        entityManagerFactory.setManagedTypes(PersistenceManagedTypes.of(Order.class.getName()));
+        entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactory.setJpaPropertyMap(Map.of(
+            "hibernate.hbm2ddl.auto", "none",
+            "hibernate.session_factory.statement_inspector", (StatementInspector) sql -> lastSql = sql));
+        entityManagerFactory.afterPropertiesSet();
+        orderRepository = new JpaRepositoryFactory(
+            SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory.getObject()))
+            .getRepository(OrderJpaRepository.class);
+    }
+
+    @AfterAll
+    static void close() {
+        if (entityManagerFactory != null) {
+            entityManagerFactory.destroy();
+        }
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Test
+    void keysetSeekBeatsDeepOffset() throws SQLException {
+        int pageNumber = ACTIVE_USER_ORDERS / PAGE - 10;
+        int offset = pageNumber * PAGE;
+
+        // Cursor = last row of the page before the target
+        List<OrderSummary> previous = orderRepository.findOrderSummariesByUserId(ACTIVE_USER,
+            PageRequest.of(pageNumber - 1, PAGE));
+        assertThat(previous).hasSize(PAGE);
+        OrderHistoryPage.Cursor cursor = OrderHistoryPage.Cursor.of(previous.get(PAGE - 1));
+
+        long[] offsetNanos = new long[RUNS];
+        long[] keysetNanos = new long[RUNS];
+        List<Long> offsetIds = null;
+        List<Long> keysetIds = null;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            offsetIds = ids(orderRepository.findOrderSummariesByUserId(ACTIVE_USER, PageRequest.of(pageNumber, PAGE)));
+            offsetNanos[run] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            keysetIds = ids(orderRepository.findOrderHistoryPage(ACTIVE_USER, null, cursor, PAGE));
+            keysetNanos[run] = System.nanoTime() - start;
+        }
+        String keysetSql = lastSql;
+        long offsetP50 = median(offsetNanos);
+        long keysetP50 = median(keysetNanos);
+        System.out.printf("History page at offset %d of %d: offset p50=%.2fms keyset p50=%.2fms%n",
+                          offset, ACTIVE_USER_ORDERS, offsetP50 / 1e6, keysetP50 / 1e6);
+
+        assertThat(keysetIds).hasSize(PAGE).containsExactlyElementsOf(offsetIds);
+        assertThat(keysetP50).isLessThan(offsetP50 / 10);
+        assertThat(keysetP50).isLessThan(20_000_000L);
+
+        String plan = explain(keysetSql, cursor);
+        assertThat(plan).contains("Index Only Scan using idx_orders_user_created_id");
+    }
+
+    @Test
+    void statusAndDailyCountsComeFromStats() throws SQLException {
+        Map<String, Long> scanned = new HashMap<>();
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "SELECT status, COUNT(*) FROM orders WHERE user_id = ? GROUP BY status")) {
+            statement.setLong(1, ACTIVE_USER);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    scanned.put(rs.getString(1), rs.getLong(2));
+                }
+            }
+        }
+        long scanNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        Map<String, Long> aggregated = statusCounts(ACTIVE_USER);
+        long statsNanos = System.nanoTime() - start;
+        System.out.printf("Status counts for %d orders: scan=%.2fms stats=%.2fms%n",
+                          ACTIVE_USER_ORDERS, scanNanos / 1e6, statsNanos / 1e6);
+        assertThat(aggregated).isEqualTo(scanned);
+
+        // Trading days are Asia/Kolkata calendar days
+        LocalDate day = LocalDate.of(2026, 6, 1);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement byDate = connection.prepareStatement(
+                 "SELECT COUNT(*) FROM orders WHERE user_id = ? AND DATE(created_at AT TIME ZONE 'Asia/Kolkata') = ?")) {
+            byDate.setLong(1, ACTIVE_USER);
+            byDate.setObject(2, day);
+            assertThat(orderRepository.countDailyOrdersByUserId(ACTIVE_USER, day)).isEqualTo(single(byDate)).isPositive();
+        }
+    }
+
+    @Test
+    void stateTransitionsMoveStatsBuckets() throws SQLException {
+        long userId = 7L; // No bulk-loaded orders
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(
+                "INSERT INTO orders (order_id, user_id, symbol, exchange, order_type, side, quantity, time_in_force, status) " +
+                "VALUES ('TX-1', 7, 'INFY', 'NSE', 'MARKET', 'BUY', 100, 'DAY', 'PENDING')");
+            assertThat(statusCounts(userId)).containsExactly(Map.entry("PENDING", 1L));
+
+            statement.execute("UPDATE orders SET status = 'PARTIALLY_FILLED', filled_quantity = 40 WHERE order_id = 'TX-1'");
+            statement.execute("UPDATE orders SET symbol = 'INFY' WHERE order_id = 'TX-1'"); // Not a transition
+            statement.execute("UPDATE orders SET status = 'FILLED', filled_quantity = 100 WHERE order_id = 'TX-1'");
+            assertThat(statusCounts(userId)).containsExactly(Map.entry("FILLED", 1L));
+
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT SUM(total_quantity), SUM(filled_quantity) FROM order_daily_stats WHERE user_id = 7")) {
+                assertThat(rs.next()).isTrue();
+                assertThat(rs.getLong(1)).isEqualTo(100L);
+                assertThat(rs.getLong(2)).isEqualTo(100L);
+            }
+        }
+    }
+
+    // ========== Helpers ==========
+
+    private static Map<String, Long> statusCounts(long userId) {
+        return orderRepository.countOrdersByStatus(userId).stream()
+            .collect(Collectors.toMap(OrderStatusCount::getStatus, OrderStatusCount::getOrderCount));
+    }
+
+    private static List<Long> ids(List<OrderSummary> page) {
+        return page.stream().map(OrderSummary::id).toList();
+    }
+
+    private static long single(PreparedStatement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Plan of the keyset SQL Hibernate rendered, bound in the order its
+     * parameters appear: user, lower bound, cursor created_at twice, cursor id, limit
+     */
+    private static String explain(String sql, OrderHistoryPage.Cursor cursor) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            statement.setLong(1, ACTIVE_USER);
+            statement.setTimestamp(2, Timestamp.from(Instant.EPOCH));
+            statement.setTimestamp(3, Timestamp.from(cursor.createdAt()));
+            statement.setTimestamp(4, Timestamp.from(cursor.createdAt()));
+            statement.setLong(5, cursor.id());
+            statement.setInt(6, PAGE);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+        }
+        return plan.toString();
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
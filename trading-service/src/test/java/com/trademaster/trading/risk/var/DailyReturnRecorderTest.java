@@ -0,0 +1,75 @@
+package com.trademaster.trading.risk.var;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Daily Return Recorder Test
+ *
+ * Intraday prices close a day when the next trading day's first price
+ * arrives, the close-to-close returns roll in a fixed window, and once every
+ * position has history the engine's historical VaR is no longer zero.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+class DailyReturnRecorderTest {
+
+    private static final Long USER_ID = 1L;
+    private static final LocalDate MONDAY = LocalDate.of(2026, 10, 12);
+    private static final double[] LEVELS = {0.95, 0.99};
+
+    @Test
+    void closesEachDayOnTheNextDaysFirstPriceAndRollsTheWindow() {
+        PortfolioVaREngine engine = new PortfolioVaREngine(3L);
+        DailyReturnRecorder recorder = new DailyReturnRecorder(engine, 3);
+        engine.syncPortfolio(USER_ID, Map.of("RELIANCE", 1_000_000.0));
+
+        // Intraday prices only move the close; stale prices from an earlier day are ignored
+        recorder.onPrice("RELIANCE", 95.0, MONDAY);
+        recorder.onPrice("RELIANCE", 100.0, MONDAY);
+        recorder.onPrice("RELIANCE", 104.0, MONDAY.plusDays(1));
+        recorder.onPrice("RELIANCE", 110.0, MONDAY.plusDays(1));
+        recorder.onPrice("RELIANCE", 50.0, MONDAY);
+        assertThat(recorder.getReturnCount("RELIANCE")).isZero();
+
+        recorder.onPrice("RELIANCE", 99.0, MONDAY.plusDays(2));
+        assertThat(recorder.getReturnCount("RELIANCE")).isEqualTo(1);
+        assertThat(engine.hasReturnHistory(USER_ID)).isFalse();
+        assertThat(engine.historical(USER_ID, 1, LEVELS).varAt(0.99)).isZero();
+
+        // Closes 110, 99, 94.05: returns +10%, -10%, -5%
+        recorder.onPrice("RELIANCE", 94.05, MONDAY.plusDays(3));
+        recorder.onPrice("RELIANCE", 94.05, MONDAY.plusDays(6));
+        assertThat(recorder.getReturnCount("RELIANCE")).isEqualTo(3);
+        assertThat(engine.hasReturnHistory(USER_ID)).isTrue();
+        VaRResult historical = engine.historical(USER_ID, 1, LEVELS);
+        assertThat(historical.scenarios()).isEqualTo(3);
+        assertThat(historical.varAt(0.99)).isCloseTo(100_000.0, within(1e-6));
+
+        // A fourth return pushes the +10% day out of the three-day window
+        recorder.onPrice("RELIANCE", 94.05, MONDAY.plusDays(7));
+        assertThat(recorder.getReturnCount("RELIANCE")).isEqualTo(3);
+        assertThat(engine.historical(USER_ID, 1, LEVELS).varAt(0.95)).isCloseTo(100_000.0, within(1e-6));
+    }
+
+    @Test
+    void portfolioWithoutHistoryForEverySymbolHasNoReturnHistory() {
+        PortfolioVaREngine engine = new PortfolioVaREngine(3L);
+        DailyReturnRecorder recorder = new DailyReturnRecorder(engine, 250);
+        engine.syncPortfolio(USER_ID, Map.of("RELIANCE", 1_000_000.0, "TCS", 500_000.0));
+
+        for (int day = 0; day < 5; day++) {
+            recorder.onPrice("RELIANCE", 100.0 + day, MONDAY.plusDays(day));
+        }
+
+        assertThat(recorder.getReturnCount("RELIANCE")).isEqualTo(3);
+        assertThat(engine.hasReturnHistory(USER_ID)).isFalse();
+        assertThat(engine.hasReturnHistory(2L)).isFalse();
+    }
+}
@@ -0,0 +1,33 @@
+package com.trademaster.trading.routing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Smart Order Router Test
+ *
+ * Venue selection restricted to eligible candidates: the best venue of the
+ * order's exchange rather than the best venue overall.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+class SmartOrderRouterTest {
+
+    private static final String SYMBOL = "RELIANCE";
+
+    @Test
+    void selectsTheBestVenueOfTheEligibleOnes() {
+        SmartOrderRouter router = new SmartOrderRouter();
+        for (int i = 0; i < 50; i++) {
+            router.recordExecution("BSE", "ZERODHA", true, 2500.0, 2500.0, 100, 100, 300);
+            router.recordExecution("NSE_MAIN", "ZERODHA", true, 2500.0, 2501.0, 100, 60, 900);
+            router.recordExecution("NSE_SME", "ZERODHA", true, 2500.0, 2502.0, 100, 20, 2000);
+        }
+
+        assertThat(router.selectBestVenue(SYMBOL, true)).contains("BSE");
+        assertThat(router.selectBestVenue(SYMBOL, true, venue -> venue.startsWith("NSE_"))).contains("NSE_MAIN");
+        assertThat(router.selectBestVenue(SYMBOL, true, "MCX"::equals)).isEmpty();
+    }
+}
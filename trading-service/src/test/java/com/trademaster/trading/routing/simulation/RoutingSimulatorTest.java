@@ -0,0 +1,75 @@
+package com.trademaster.trading.routing.simulation;
+
+import com.trademaster.trading.routing.SmartOrderRouter;
+import com.trademaster.trading.routing.TopOfBook;
+import com.trademaster.trading.routing.VenueAllocationPolicy;
+import com.trademaster.trading.routing.VenueStatsSnapshot;
+import com.trademaster.trading.routing.impl.EqualSplitPolicy;
+import com.trademaster.trading.routing.impl.LowestLatencyPolicy;
+import com.trademaster.trading.routing.impl.ScoredAllocationPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing Simulator Test
+ *
+ * Replays synthetic orders against recorded books where the fastest venue
+ * is thin and the slower venues carry most of the depth, and checks that
+ * the scored policy beats both legacy baselines on fill rate.
+ *
+ * @author TradeMaster Development Team
+ * @version 2.0.0 (Java 24 + Virtual Threads)
+ */
+class RoutingSimulatorTest {
+
+    private static final String SYMBOL = "RELIANCE";
+    private static final int BOOKS = 1_000;
+    private static final int ORDERS = 20_000;
+
+    @Test
+    void scoredPolicyOutperformsLegacyPolicies() {
+        // NSE is thin but fast, BSE deep, MSEI deep with a poor fill history
+        VenueStatsSnapshot stats = new VenueStatsSnapshot(
+            new String[] {"NSE", "BSE", "MSEI"},
+            new double[] {0.98, 0.95, 0.40},
+            new double[] {0.5, 1.0, 4.0},
+            new long[] {250L, 400L, 900L},
+            new long[] {600L, 900L, 4000L},
+            new long[] {1000L, 1000L, 1000L},
+            1L);
+
+        Random random = new Random(42);
+        List<TopOfBook> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            double mid = 2500.0 + random.nextGaussian();
+            TopOfBook book = TopOfBook.empty(SYMBOL, SmartOrderRouter.MAX_VENUES)
+                .withQuote(0, i * 100L, mid - 0.05, 50, mid + 0.05, 50)
+                .withQuote(1, i * 100L, mid - 0.10, 800, mid + 0.10, 800)
+                .withQuote(2, i * 100L, mid - 0.10, 800, mid + 0.10, 800);
+            books.add(book);
+        }
+
+        List<RoutingSimulator.HistoricalOrder> orders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            orders.add(new RoutingSimulator.HistoricalOrder(
+                random.nextInt(BOOKS * 100), SYMBOL, random.nextBoolean(), 100 + random.nextInt(600), 2500.0));
+        }
+
+        RoutingSimulator simulator = new RoutingSimulator(stats, books);
+        List<VenueAllocationPolicy> policies = List.of(
+            new ScoredAllocationPolicy(), new LowestLatencyPolicy(), new EqualSplitPolicy());
+
+        List<RoutingSimulator.PolicyResult> results = simulator.compare(policies, orders);
+        results.forEach(System.out::println);
+
+        RoutingSimulator.PolicyResult scored = results.get(0);
+        assertThat(scored.orders()).isEqualTo(ORDERS);
+        assertThat(scored.fillRate()).isGreaterThan(results.get(1).fillRate());
+        assertThat(scored.fillRate()).isGreaterThan(results.get(2).fillRate());
+    }
+}